@@ -22,7 +22,6 @@ import boofcv.BoofVerbose;
 import boofcv.abst.geo.bundle.SceneStructureMetric;
 import boofcv.abst.tracker.PointTrack;
 import boofcv.abst.tracker.PointTracker;
-import boofcv.alg.cloud.PointCloudReader;
 import boofcv.alg.cloud.PointCloudUtils_F64;
 import boofcv.alg.geo.bundle.cameras.BundlePinholeSimplified;
 import boofcv.alg.misc.PixelMath;
@@ -54,18 +53,15 @@ import boofcv.io.wrapper.images.LoadFileImageSequence2;
 import boofcv.misc.BoofMiscOps;
 import boofcv.misc.LookUpImages;
 import boofcv.struct.Configuration;
-import boofcv.struct.Point3dRgbI_F64;
 import boofcv.struct.image.*;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import boofcv.visualize.PointCloudViewer;
 import boofcv.visualize.VisualizeData;
 import georegression.geometry.ConvertRotation3D_F64;
 import georegression.metric.UtilAngle;
-import georegression.struct.point.Point3D_F64;
 import georegression.struct.so.Rodrigues_F64;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import org.ddogleg.DDoglegConcurrency;
-import org.ddogleg.struct.DogArray;
-import org.ddogleg.struct.DogArray_I32;
 import org.jetbrains.annotations.NotNull;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
@@ -349,7 +345,7 @@ public class SceneReconstruction {
 		computeDense(paths, working, sceneDirectory);
 		saveCloudToDisk(sceneDirectory);
 		if (showCloud)
-			visualizeInPointCloud(sparseToDense.getCloud(), sparseToDense.getColorRgb(), scene, sceneDirectory.getName());
+			visualizeInPointCloud(sparseToDense.getCloud(), scene, sceneDirectory.getName());
 	}
 
 	private void configureDefault() {
@@ -511,7 +507,7 @@ public class SceneReconstruction {
 	}
 
 	private void computeMetric() {
-		var metric = new MetricFromUncalibratedPairwiseGraph();
+		MetricFromUncalibratedPairwiseGraph metric = FactorySceneReconstruction.metricFromPairwise(null);
 		metric.setVerbose(out, BoofMiscOps.hashSet(BoofVerbose.RECURSIVE));
 		BoofMiscOps.profile(() -> {
 			if (!metric.process(dbSimilar, dbCams, pairwise)) {
@@ -614,12 +610,11 @@ public class SceneReconstruction {
 	}
 
 	private void saveCloudToDisk( File outputDirectory ) {
-		List<Point3D_F64> cloud = sparseToDense.getCloud();
-		DogArray_I32 colorsRgb = sparseToDense.getColorRgb();
+		PackedPointCloud_F64 cloud = sparseToDense.getCloud();
 
 		// Save everything
 		try (FileOutputStream out = new FileOutputStream(new File(outputDirectory, "cloud.ply"))) {
-			PointCloudIO.save3D(PointCloudIO.Format.PLY, PointCloudReader.wrapF64(cloud, colorsRgb.data), true, out);
+			PointCloudIO.save3D(PointCloudIO.Format.PLY, cloud, true, out);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -630,24 +625,23 @@ public class SceneReconstruction {
 			// You might need to adjust the threshold for your application if too many points are cut
 			double distanceThreshold = 50.0;
 
-			DogArray<Point3dRgbI_F64> filtered = PointCloudUtils_F64.filter(
-					( idx, p ) -> p.setTo(cloud.get(idx)), colorsRgb::get, cloud.size(),
-					( idx ) -> cloud.get(idx).norm() <= distanceThreshold, null);
+			PackedPointCloud_F64 filtered = PointCloudUtils_F64.filter(cloud,
+					( idx ) -> cloud.xyz.getTemp(idx).norm() <= distanceThreshold, null);
 
-			PointCloudIO.save3D(PointCloudIO.Format.PLY, PointCloudReader.wrapF64RGB(filtered.toList()), true, out);
+			PointCloudIO.save3D(PointCloudIO.Format.PLY, filtered, true, out);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
-	public void visualizeInPointCloud( List<Point3D_F64> cloud, DogArray_I32 colorsRgb,
+	public void visualizeInPointCloud( PackedPointCloud_F64 cloud,
 									   SceneStructureMetric structure,
 									   String name ) {
 		PointCloudViewer viewer = VisualizeData.createPointCloudViewer();
 		viewer.setFog(true);
 		viewer.setDotSize(1);
 		viewer.setTranslationStep(0.15);
-		viewer.addCloud(( idx, p ) -> p.setTo(cloud.get(idx)), colorsRgb::get, cloud.size());
+		viewer.addCloud(cloud);
 		viewer.setCameraHFov(UtilAngle.radian(60));
 
 		SwingUtilities.invokeLater(() -> {
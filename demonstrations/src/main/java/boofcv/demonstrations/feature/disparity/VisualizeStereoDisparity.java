@@ -21,7 +21,6 @@ package boofcv.demonstrations.feature.disparity;
 import boofcv.abst.disparity.DisparitySmoother;
 import boofcv.abst.disparity.StereoDisparity;
 import boofcv.alg.cloud.DisparityToColorPointCloud;
-import boofcv.alg.cloud.PointCloudWriter;
 import boofcv.alg.distort.ImageDistort;
 import boofcv.alg.geo.PerspectiveOps;
 import boofcv.alg.geo.RectifyDistortImageOps;
@@ -50,6 +49,7 @@ import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.ImageGray;
 import boofcv.struct.image.ImageType;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import boofcv.visualize.PointCloudViewer;
 import boofcv.visualize.VisualizeData;
 import georegression.struct.point.Point2D_F64;
@@ -317,7 +317,7 @@ public class VisualizeStereoDisparity<T extends ImageGray<T>, D extends ImageGra
 			if (!computedCloud) {
 				computedCloud = true;
 				DisparityToColorPointCloud d2c = new DisparityToColorPointCloud();
-				PointCloudWriter.CloudArraysF32 cloud = new PointCloudWriter.CloudArraysF32();
+				var cloud = new PackedPointCloud_F64();
 
 				double baseline = calib.getRightToLeft().getT().norm();
 				d2c.configure(baseline, rectK, rectR, leftRectToPixel, disparityMin, disparityRange);
@@ -330,7 +330,7 @@ public class VisualizeStereoDisparity<T extends ImageGray<T>, D extends ImageGra
 
 				pcv.clearPoints();
 				pcv.setCameraHFov(PerspectiveOps.computeHFov(rectifiedPinhole));
-				pcv.addCloud(cloud.cloudXyz, cloud.cloudRgb);
+				pcv.addCloud(cloud);
 				changeView3D();
 			}
 
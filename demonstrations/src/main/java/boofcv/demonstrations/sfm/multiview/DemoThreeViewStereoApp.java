@@ -25,7 +25,6 @@ import boofcv.abst.feature.detdesc.DetectDescribePoint;
 import boofcv.abst.geo.bundle.BundleAdjustmentCamera;
 import boofcv.abst.geo.bundle.SceneStructureMetric;
 import boofcv.alg.cloud.DisparityToColorPointCloud;
-import boofcv.alg.cloud.PointCloudWriter;
 import boofcv.alg.descriptor.UtilFeature;
 import boofcv.alg.distort.ImageDistort;
 import boofcv.alg.feature.associate.AssociateThreeByPairs;
@@ -63,6 +62,7 @@ import boofcv.struct.feature.AssociatedTripleIndex;
 import boofcv.struct.feature.TupleDesc;
 import boofcv.struct.geo.AssociatedTriple;
 import boofcv.struct.image.*;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import boofcv.visualize.PointCloudViewer;
 import boofcv.visualize.VisualizeData;
 import georegression.struct.point.Point2D_F64;
@@ -827,7 +827,7 @@ public class DemoThreeViewStereoApp<TD extends TupleDesc<TD>> extends Demonstrat
 								Se3_F64 motion, DMatrixRMaj rectifiedK, DMatrixRMaj rectifiedR,
 								boolean _automaticChangeViews ) {
 		DisparityToColorPointCloud d2c = new DisparityToColorPointCloud();
-		PointCloudWriter.CloudArraysF32 cloud = new PointCloudWriter.CloudArraysF32();
+		var cloud = new PackedPointCloud_F64();
 		double baseline = motion.getT().norm();
 		int disparityMin = controls.controlDisparity.getDisparityMin();
 		int disparityRange = controls.controlDisparity.getDisparityRange();
@@ -842,7 +842,7 @@ public class DemoThreeViewStereoApp<TD extends TupleDesc<TD>> extends Demonstrat
 		if (_automaticChangeViews) // snape back to home position
 			pcv.setCameraToWorld(new Se3_F64());
 		pcv.clearPoints();
-		pcv.addCloud(cloud.cloudXyz, cloud.cloudRgb);
+		pcv.addCloud(cloud);
 		pcv.setDotSize(1);
 		pcv.setTranslationStep(baseline/10);
 
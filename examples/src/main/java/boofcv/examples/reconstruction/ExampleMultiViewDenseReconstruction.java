@@ -20,7 +20,6 @@ package boofcv.examples.reconstruction;
 
 import boofcv.BoofVerbose;
 import boofcv.abst.geo.bundle.SceneStructureMetric;
-import boofcv.alg.cloud.PointCloudReader;
 import boofcv.alg.cloud.PointCloudUtils_F64;
 import boofcv.alg.mvs.DisparityParameters;
 import boofcv.alg.mvs.MultiViewStereoFromKnownSceneStructure;
@@ -35,24 +34,20 @@ import boofcv.gui.image.VisualizeImageData;
 import boofcv.io.image.LookUpImageFilesByIndex;
 import boofcv.io.points.PointCloudIO;
 import boofcv.misc.BoofMiscOps;
-import boofcv.struct.Point3dRgbI_F64;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageType;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import boofcv.visualize.PointCloudViewer;
 import boofcv.visualize.VisualizeData;
 import georegression.metric.UtilAngle;
-import georegression.struct.point.Point3D_F64;
 import gnu.trove.map.hash.TIntObjectHashMap;
-import org.ddogleg.struct.DogArray;
-import org.ddogleg.struct.DogArray_I32;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.List;
 
 /**
  * A dense point cloud is created using a previously computed sparse reconstruction and a basic implementation of
@@ -137,7 +132,7 @@ public class ExampleMultiViewDenseReconstruction {
 		saveCloudToDisk(sparseToDense);
 
 		// Display the dense cloud
-		visualizeInPointCloud(sparseToDense.getCloud(), sparseToDense.getColorRgb(), example.scene);
+		visualizeInPointCloud(sparseToDense.getCloud(), example.scene);
 	}
 
 	private static void saveCloudToDisk( SparseSceneToDenseCloud<GrayU8> sparseToDense ) {
@@ -146,26 +141,24 @@ public class ExampleMultiViewDenseReconstruction {
 			// Filter points which are far away to make it easier to view in 3rd party viewers that auto scale
 			// You might need to adjust the threshold for your application if too many points are cut
 			double distanceThreshold = 50.0;
-			List<Point3D_F64> cloud = sparseToDense.getCloud();
-			DogArray_I32 colorsRgb = sparseToDense.getColorRgb();
+			PackedPointCloud_F64 cloud = sparseToDense.getCloud();
 
-			DogArray<Point3dRgbI_F64> filtered = PointCloudUtils_F64.filter(
-					( idx, p ) -> p.setTo(cloud.get(idx)), colorsRgb::get, cloud.size(),
-					( idx ) -> cloud.get(idx).norm() <= distanceThreshold, null);
+			// The cloud contains the location, color, and which view each point came from
+			PackedPointCloud_F64 filtered = PointCloudUtils_F64.filter(cloud,
+					( idx ) -> cloud.xyz.getTemp(idx).norm() <= distanceThreshold, null);
 
-			PointCloudIO.save3D(PointCloudIO.Format.PLY, PointCloudReader.wrapF64RGB(filtered.toList()), true, out);
+			PointCloudIO.save3D(PointCloudIO.Format.PLY, filtered, true, out);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
-	public static void visualizeInPointCloud( List<Point3D_F64> cloud, DogArray_I32 colorsRgb,
-											  SceneStructureMetric structure ) {
+	public static void visualizeInPointCloud( PackedPointCloud_F64 cloud, SceneStructureMetric structure ) {
 		PointCloudViewer viewer = VisualizeData.createPointCloudViewer();
 		viewer.setFog(true);
 		viewer.setDotSize(1);
 		viewer.setTranslationStep(0.15);
-		viewer.addCloud(( idx, p ) -> p.setTo(cloud.get(idx)), colorsRgb::get, cloud.size());
+		viewer.addCloud(cloud);
 		viewer.setCameraHFov(UtilAngle.radian(60));
 
 		SwingUtilities.invokeLater(() -> {
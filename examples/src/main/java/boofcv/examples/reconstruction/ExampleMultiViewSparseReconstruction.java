@@ -305,7 +305,7 @@ public class ExampleMultiViewSparseReconstruction {
 		System.out.println("----------------------------------------------------------------------------");
 		System.out.println("### Metric Reconstruction");
 
-		var metric = new MetricFromUncalibratedPairwiseGraph();
+		MetricFromUncalibratedPairwiseGraph metric = FactorySceneReconstruction.metricFromPairwise(null);
 		metric.setVerbose(System.out, BoofMiscOps.hashSet(BoofVerbose.RECURSIVE));
 		BoofMiscOps.profile(() -> {
 			if (!metric.process(dbSimilar, dbCams, pairwise)) {
@@ -20,7 +20,6 @@ package boofcv.examples.stereo;
 
 import boofcv.abst.disparity.StereoDisparity;
 import boofcv.alg.cloud.DisparityToColorPointCloud;
-import boofcv.alg.cloud.PointCloudWriter;
 import boofcv.alg.distort.ImageDistort;
 import boofcv.alg.geo.PerspectiveOps;
 import boofcv.alg.geo.RectifyDistortImageOps;
@@ -51,6 +50,7 @@ import boofcv.struct.distort.DoNothing2Transform2_F64;
 import boofcv.struct.distort.Point2Transform2_F64;
 import boofcv.struct.geo.AssociatedPair;
 import boofcv.struct.image.*;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import boofcv.visualize.PointCloudViewer;
 import boofcv.visualize.VisualizeData;
 import georegression.struct.se.Se3_F64;
@@ -294,7 +294,7 @@ public class ExampleStereoTwoViewsOneCamera {
 									   Se3_F64 motion, DMatrixRMaj rectifiedK, DMatrixRMaj rectifiedR,
 									   int disparityMin, int disparityRange ) {
 		DisparityToColorPointCloud d2c = new DisparityToColorPointCloud();
-		PointCloudWriter.CloudArraysF32 cloud = new PointCloudWriter.CloudArraysF32();
+		var cloud = new PackedPointCloud_F64();
 
 		double baseline = motion.getT().norm();
 		d2c.configure(baseline, rectifiedK, rectifiedR, new DoNothing2Transform2_F64(), disparityMin, disparityRange);
@@ -309,7 +309,7 @@ public class ExampleStereoTwoViewsOneCamera {
 		pcv.setCameraHFov(PerspectiveOps.computeHFov(rectifiedPinhole));
 		pcv.setCameraToWorld(cameraToWorld);
 		pcv.setTranslationStep(baseline/3);
-		pcv.addCloud(cloud.cloudXyz, cloud.cloudRgb);
+		pcv.addCloud(cloud);
 		pcv.setDotSize(1);
 		pcv.setTranslationStep(baseline/10);
 
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.lines;
+
+import boofcv.alg.feature.detect.line.HoughTransformBinary;
+import boofcv.alg.feature.detect.line.HoughTransformGradient;
+import boofcv.alg.filter.derivative.DerivativeType;
+import boofcv.alg.filter.derivative.GImageDerivativeOps;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.feature.detect.line.*;
+import boofcv.struct.ListIntPoint2D;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks just the Hough transform, without edge detection, so that accumulating votes can be compared
+ * against the full line detectors in {@link BenchmarkDetectLines}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class BenchmarkHoughTransform {
+	@Param({"true", "false"})
+	public boolean concurrent;
+
+	@Param({"1000"})
+	public int width;
+
+	GrayU8 binary = new GrayU8(1, 1);
+	GrayF32 derivX = new GrayF32(1, 1);
+	GrayF32 derivY = new GrayF32(1, 1);
+	ListIntPoint2D edges = new ListIntPoint2D();
+
+	HoughTransformBinary binaryPolar;
+	HoughTransformGradient<GrayF32> gradientPolar;
+	HoughTransformGradient<GrayF32> gradientFoot;
+
+	@Setup
+	public void setup() {
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+
+		// Draw the outline of a few rectangles and add some noise
+		var gray = new GrayF32(width, width);
+		ImageMiscOps.fillRectangle(gray, 100, 10, 15, width/4, width/4);
+		ImageMiscOps.fillRectangle(gray, 100, width/2, width/2 + 15, width/4, width/4);
+		ImageMiscOps.fillRectangle(gray, 100, width/2, 0, width/8, width/8);
+		ImageMiscOps.addUniform(gray, new Random(234), 0, 20);
+
+		derivX.reshape(width, width);
+		derivY.reshape(width, width);
+		GImageDerivativeOps.gradient(DerivativeType.SOBEL, gray, derivX, derivY, BorderType.EXTENDED);
+
+		// Edges are pixels with a large gradient
+		binary.reshape(width, width);
+		edges.configure(width, width);
+		for (int y = 0; y < width; y++) {
+			for (int x = 0; x < width; x++) {
+				float dx = derivX.get(x, y);
+				float dy = derivY.get(x, y);
+				if (dx*dx + dy*dy > 100*100) {
+					binary.set(x, y, 1);
+					edges.add(x, y);
+				}
+			}
+		}
+
+		binaryPolar = FactoryDetectLineAlgs.houghLinePolar(new ConfigHoughBinary(), new ConfigParamPolar());
+		gradientPolar = FactoryDetectLineAlgs.houghLinePolar(new ConfigHoughGradient(), new ConfigParamPolar(), GrayF32.class);
+		gradientFoot = FactoryDetectLineAlgs.houghLineFoot(new ConfigHoughGradient(), new ConfigParamFoot(), GrayF32.class);
+	}
+
+	@Benchmark public void binaryPolar() {
+		binaryPolar.transform(binary);
+	}
+
+	@Benchmark public void binaryPolarSparse() {
+		binaryPolar.transform(width, width, edges);
+	}
+
+	@Benchmark public void gradientPolar() {
+		gradientPolar.transform(derivX, derivY, binary);
+	}
+
+	@Benchmark public void gradientFoot() {
+		gradientFoot.transform(derivX, derivY, binary);
+	}
+
+	public static void main( String[] args ) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkHoughTransform.class.getSimpleName())
+				.warmupTime(TimeValue.seconds(1))
+				.measurementTime(TimeValue.seconds(1))
+				.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -28,7 +28,8 @@ import boofcv.struct.image.ImageType;
  *
  * @author Peter Abeles
  */
-public class DescribeBriefSO_RadiusAngle<T extends ImageGray<T>> implements DescribePointRadiusAngle<T, TupleDesc_B> {
+public class DescribeBriefSO_RadiusAngle<T extends ImageGray<T>>
+		implements DescribePointRadiusAngle<T, TupleDesc_B>, DescribePointSharedImage<T> {
 
 	int length;
 	DescribePointBriefSO<T> alg;
@@ -50,6 +51,11 @@ public class DescribeBriefSO_RadiusAngle<T extends ImageGray<T>> implements Desc
 		alg.setImage(image);
 	}
 
+	@Override
+	public void setImageShared( T image, DescribePointSharedImage<T> src ) {
+		alg.setImageShared(image, ((DescribeBriefSO_RadiusAngle<T>)src).alg);
+	}
+
 	@Override
 	public boolean process( double x, double y, double orientation, double radius, TupleDesc_B storage ) {
 		alg.process((float)x, (float)y, (float)orientation, (float)radius, storage);
@@ -28,7 +28,8 @@ import boofcv.struct.image.ImageType;
  *
  * @author Peter Abeles
  */
-public class DescribeBrief_RadiusAngle<T extends ImageGray<T>> implements DescribePointRadiusAngle<T, TupleDesc_B> {
+public class DescribeBrief_RadiusAngle<T extends ImageGray<T>>
+		implements DescribePointRadiusAngle<T, TupleDesc_B>, DescribePointSharedImage<T> {
 
 	int length;
 	DescribePointBrief<T> alg;
@@ -44,6 +45,10 @@ public class DescribeBrief_RadiusAngle<T extends ImageGray<T>> implements Descri
 
 	@Override public void setImage( T image ) {alg.setImage(image);}
 
+	@Override public void setImageShared( T image, DescribePointSharedImage<T> src ) {
+		alg.setImageShared(image, ((DescribeBrief_RadiusAngle<T>)src).alg);
+	}
+
 	@Override public boolean process( double x, double y, double orientation, double radius, TupleDesc_B storage ) {
 		alg.process(x, y, storage);
 		return true;
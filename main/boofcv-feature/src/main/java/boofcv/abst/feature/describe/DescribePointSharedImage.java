@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.feature.describe;
+
+import boofcv.struct.image.ImageBase;
+
+/**
+ * Implemented by describers which process the entire image when {@link DescribePointRadiusAngle#setImage} is called,
+ * e.g. blurring it or computing an integral image. Other instances with the same configuration can then reuse the
+ * processed image instead of processing it again. This allows features to be described concurrently with each
+ * thread having its own describer, while the image is only processed once.
+ *
+ * @author Peter Abeles
+ */
+public interface DescribePointSharedImage<T extends ImageBase<T>> {
+	/**
+	 * Used instead of {@link DescribePointRadiusAngle#setImage}. The image processed by 'src' is referenced and not
+	 * modified, so multiple instances can share the same 'src' at once. 'src' must not be modified while this
+	 * instance is in use.
+	 *
+	 * @param image The image which contains the features.
+	 * @param src Describer of the same type and configuration which has already been passed 'image'.
+	 */
+	void setImageShared( T image, DescribePointSharedImage<T> src );
+}
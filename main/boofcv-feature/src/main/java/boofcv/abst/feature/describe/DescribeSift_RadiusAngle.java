@@ -36,7 +36,7 @@ import boofcv.struct.image.ImageType;
  * @author Peter Abeles
  */
 public class DescribeSift_RadiusAngle<T extends ImageGray<T>>
-	implements DescribePointRadiusAngle<T,TupleDesc_F64>
+	implements DescribePointRadiusAngle<T,TupleDesc_F64>, DescribePointSharedImage<T>
 {
 	// expected type of input image. All image types are converted to floats since that's what
 	// the scale-space requires
@@ -44,6 +44,8 @@ public class DescribeSift_RadiusAngle<T extends ImageGray<T>>
 
 	// precomputes the entire scale-space gradient for faster lookup later
 	UnrollSiftScaleSpaceGradient gradient = new UnrollSiftScaleSpaceGradient();
+	// gradient which features are described from. Either 'gradient' or the gradient of another instance
+	UnrollSiftScaleSpaceGradient lookupGradient = gradient;
 
 	SiftScaleSpace scaleSpace;
 
@@ -74,6 +76,13 @@ public class DescribeSift_RadiusAngle<T extends ImageGray<T>>
 
 		scaleSpace.process(input);
 		gradient.process(scaleSpace);
+		lookupGradient = gradient;
+	}
+
+	@Override
+	public void setImageShared( T image, DescribePointSharedImage<T> src ) {
+		// The gradient is only read when describing features
+		lookupGradient = ((DescribeSift_RadiusAngle<T>)src).gradient;
 	}
 
 	@Override
@@ -83,7 +92,7 @@ public class DescribeSift_RadiusAngle<T extends ImageGray<T>>
 		double sigma = radius / BoofDefaults.SIFT_SCALE_TO_RADIUS;
 
 		// find the image which the blur factor closest to this sigma
-		UnrollSiftScaleSpaceGradient.ImageScale image = gradient.lookup(sigma);
+		UnrollSiftScaleSpaceGradient.ImageScale image = lookupGradient.lookup(sigma);
 
 		// compute the descriptor
 		describe.setImageGradient(image.derivX,image.derivY);
@@ -30,7 +30,7 @@ import boofcv.struct.image.ImageType;
  * @author Peter Abeles
  */
 public class DescribeSurf_RadiusAngle<T extends ImageGray<T>, II extends ImageGray<II>>
-		implements DescribePointRadiusAngle<T, TupleDesc_F64> {
+		implements DescribePointRadiusAngle<T, TupleDesc_F64>, DescribePointSharedImage<T> {
 
 	// computes SURF feature descriptor
 	DescribePointSurf<II> surf;
@@ -62,6 +62,12 @@ public class DescribeSurf_RadiusAngle<T extends ImageGray<T>, II extends ImageGr
 		surf.setImage(ii);
 	}
 
+	@Override
+	public void setImageShared( T image, DescribePointSharedImage<T> src ) {
+		// The integral image is only read when describing features
+		surf.setImage(((DescribeSurf_RadiusAngle<T, II>)src).ii);
+	}
+
 	@Override
 	public boolean process( double x, double y, double orientation, double radius, TupleDesc_F64 storage ) {
 		double scale = radius/canonicalRadius;
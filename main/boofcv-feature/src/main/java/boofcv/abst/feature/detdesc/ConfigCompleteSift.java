@@ -41,6 +41,12 @@ public class ConfigCompleteSift implements Configuration {
 	public ConfigSiftOrientation orientation = new ConfigSiftOrientation();
 	public ConfigSiftDescribe describe = new ConfigSiftDescribe();
 
+	/**
+	 * If true the scale-space is computed and processed one octave at a time, reducing peak memory usage
+	 * at the cost of recomputing the scale-space when the total number of features is limited.
+	 */
+	public boolean streaming = false;
+
 	/**
 	 * Creates a configuration similar to how it was originally described in the paper
 	 */
@@ -79,6 +85,7 @@ public class ConfigCompleteSift implements Configuration {
 		this.detector.setTo(src.detector);
 		this.orientation.setTo(src.orientation);
 		this.describe.setTo(src.describe);
+		this.streaming = src.streaming;
 	}
 
 	@Override
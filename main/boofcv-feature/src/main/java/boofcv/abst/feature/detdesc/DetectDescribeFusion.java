@@ -28,6 +28,7 @@ import georegression.struct.point.Point2D_F64;
 import org.ddogleg.struct.DogArray;
 import org.ddogleg.struct.DogArray_F64;
 import org.ddogleg.struct.FastArray;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Wrapper class around independent feature detectors, region orientation, and descriptors, that allow
@@ -42,19 +43,19 @@ import org.ddogleg.struct.FastArray;
 public class DetectDescribeFusion<T extends ImageGray<T>, TD extends TupleDesc<TD>>
 		implements DetectDescribePoint<T, TD> {
 	// detects interest points
-	private final InterestPointDetector<T> detector;
+	protected final InterestPointDetector<T> detector;
 	// optional override for orientation
-	private final OrientationImage<T> orientation;
+	protected final @Nullable OrientationImage<T> orientation;
 	// describes each feature found
-	private final DescribePointRadiusAngle<T, TD> describe;
+	protected final DescribePointRadiusAngle<T, TD> describe;
 
 	// list of extracted feature descriptors
-	private final DogArray<TD> descs;
+	protected final DogArray<TD> descs;
 
 	// storage for found orientations
-	private final DogArray_F64 featureRadiuses = new DogArray_F64(10);
-	private final DogArray_F64 featureAngles = new DogArray_F64(10);
-	private final FastArray<Point2D_F64> location = new FastArray<>(Point2D_F64.class);
+	protected final DogArray_F64 featureRadiuses = new DogArray_F64(10);
+	protected final DogArray_F64 featureAngles = new DogArray_F64(10);
+	protected final FastArray<Point2D_F64> location = new FastArray<>(Point2D_F64.class);
 
 	/**
 	 * Configures the algorithm.
@@ -64,7 +65,7 @@ public class DetectDescribeFusion<T extends ImageGray<T>, TD extends TupleDesc<T
 	 * @param describe Describes features
 	 */
 	public DetectDescribeFusion( InterestPointDetector<T> detector,
-								 OrientationImage<T> orientation,
+								 @Nullable OrientationImage<T> orientation,
 								 DescribePointRadiusAngle<T, TD> describe ) {
 		this.describe = describe;
 		this.orientation = orientation;
@@ -100,13 +101,21 @@ public class DetectDescribeFusion<T extends ImageGray<T>, TD extends TupleDesc<T
 		featureAngles.reset();
 		location.reset();
 
+		detector.detect(input);
+
+		describeDetections(input);
+	}
+
+	/**
+	 * Estimates the orientation (if requested) and computes the descriptor for every feature found by the
+	 * detector. Features which can't be described are discarded.
+	 */
+	protected void describeDetections( T input ) {
 		if (orientation != null) {
 			orientation.setImage(input);
 		}
 		describe.setImage(input);
 
-		detector.detect(input);
-
 		int N = detector.getNumberOfFeatures();
 
 		for (int i = 0; i < N; i++) {
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.feature.detdesc;
+
+import boofcv.abst.feature.describe.DescribePointRadiusAngle;
+import boofcv.abst.feature.describe.DescribePointSharedImage;
+import boofcv.abst.feature.detect.interest.InterestPointDetector;
+import boofcv.abst.feature.orientation.OrientationImage;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
+import boofcv.struct.feature.TupleDesc;
+import boofcv.struct.image.ImageGray;
+import georegression.struct.point.Point2D_F64;
+import org.ddogleg.struct.DogArray_B;
+import org.jetbrains.annotations.Nullable;
+import pabeles.concurrency.GrowArray;
+
+/**
+ * Concurrent implementation of {@link DetectDescribeFusion}. Orientation estimation and description of each
+ * detected feature is done in parallel. Each thread has its own orientation estimator, created using
+ * {@link OrientationImage#copy()}, and its own describer, created using the provided factory. The order of
+ * features is identical to what the single threaded version produces.
+ *
+ * If the describer implements {@link DescribePointSharedImage} then the image is only processed once, by
+ * the describer passed to the parent class, and the describer in each thread references the processed image.
+ * Otherwise every thread processes the entire image when its describer is passed the image.
+ *
+ * @author Peter Abeles
+ */
+public class DetectDescribeFusion_MT<T extends ImageGray<T>, TD extends TupleDesc<TD>>
+		extends DetectDescribeFusion<T, TD> {
+
+	/** If there are fewer than this detections it will use the single threaded algorithm */
+	public int minimumDetectionsThread = 50;
+
+	// Work space for each thread
+	GrowArray<ThreadData> threadData;
+
+	// Indicates if a feature could be described or not
+	DogArray_B success = new DogArray_B();
+
+	// If true then the describer in each thread uses the image processed by the main describer
+	final boolean sharedImage;
+
+	/**
+	 * Configures the algorithm.
+	 *
+	 * @param detector Feature detector
+	 * @param orientation (Optional) orientation estimation algorithm
+	 * @param factoryDescribe Creates new describers for use in each thread
+	 */
+	public DetectDescribeFusion_MT( InterestPointDetector<T> detector,
+									@Nullable OrientationImage<T> orientation,
+									BoofLambdas.Factory<DescribePointRadiusAngle<T, TD>> factoryDescribe ) {
+		super(detector, orientation, factoryDescribe.newInstance());
+		sharedImage = describe instanceof DescribePointSharedImage;
+
+		threadData = new GrowArray<>(() -> new ThreadData(
+				orientation == null ? null : (OrientationImage<T>)orientation.copy(), factoryDescribe.newInstance()));
+	}
+
+	@Override
+	protected void describeDetections( T input ) {
+		final int N = detector.getNumberOfFeatures();
+
+		// if there are very few features don't spawn threads
+		if (N < minimumDetectionsThread) {
+			super.describeDetections(input);
+			return;
+		}
+
+		// Every feature gets a slot so that the output order is the same as the single thread version
+		descs.resize(N);
+		featureRadiuses.resize(N);
+		featureAngles.resize(N);
+		success.resize(N);
+
+		// Process the image once so that it can be shared by all the threads
+		final DescribePointRadiusAngle<T, TD> mainDescribe = describe;
+		if (sharedImage)
+			mainDescribe.setImage(input);
+
+		BoofConcurrency.loopBlocks(0, N, threadData, ( data, i0, i1 ) -> {
+			final OrientationImage<T> orientation = data.orientation;
+			final DescribePointRadiusAngle<T, TD> describe = data.describe;
+
+			if (orientation != null)
+				orientation.setImage(input);
+			if (sharedImage) {
+				((DescribePointSharedImage<T>)describe).setImageShared(input, (DescribePointSharedImage<T>)mainDescribe);
+			} else {
+				describe.setImage(input);
+			}
+
+			for (int i = i0; i < i1; i++) {
+				Point2D_F64 p = detector.getLocation(i);
+				double radius = detector.getRadius(i);
+				double yaw = detector.getOrientation(i);
+
+				if (orientation != null) {
+					orientation.setObjectRadius(radius);
+					yaw = orientation.compute(p.x, p.y);
+				}
+
+				success.data[i] = describe.process(p.x, p.y, yaw, radius, descs.get(i));
+				featureRadiuses.data[i] = radius;
+				featureAngles.data[i] = yaw;
+			}
+		});
+
+		// Remove features which could not be described. Descriptors are swapped to avoid declaring new memory
+		int count = 0;
+		for (int i = 0; i < N; i++) {
+			if (!success.data[i])
+				continue;
+
+			if (count != i) {
+				TD tmp = descs.data[count];
+				descs.data[count] = descs.data[i];
+				descs.data[i] = tmp;
+				featureRadiuses.data[count] = featureRadiuses.data[i];
+				featureAngles.data[count] = featureAngles.data[i];
+			}
+			location.add(detector.getLocation(i));
+			count++;
+		}
+		descs.size = count;
+		featureRadiuses.size = count;
+		featureAngles.size = count;
+	}
+
+	private class ThreadData {
+		@Nullable OrientationImage<T> orientation;
+		DescribePointRadiusAngle<T, TD> describe;
+
+		public ThreadData( @Nullable OrientationImage<T> orientation, DescribePointRadiusAngle<T, TD> describe ) {
+			this.orientation = orientation;
+			this.describe = describe;
+		}
+	}
+}
@@ -71,6 +71,7 @@ public class OrientationIntegralToImage<T extends ImageGray<T>, II extends Image
 
 	@Override
 	public RegionOrientation copy() {
-		throw new RuntimeException("IMplement");
+		return new OrientationIntegralToImage<>((OrientationIntegral<II>)alg.copy(), inputType,
+				(Class<II>)integralImage.getClass());
 	}
 }
@@ -24,7 +24,9 @@ import boofcv.alg.interpolate.InterpolateRectangle;
 import boofcv.alg.tracker.PruneCloseTracks;
 import boofcv.alg.tracker.klt.*;
 import boofcv.alg.transform.pyramid.PyramidOps;
+import boofcv.struct.ConfigGridUniform;
 import boofcv.struct.ConfigLength;
+import boofcv.struct.ImageRectangle;
 import boofcv.struct.QueueCorner;
 import boofcv.struct.image.ImageGray;
 import boofcv.struct.image.ImageType;
@@ -33,6 +35,8 @@ import georegression.struct.point.Point2D_F64;
 import georegression.struct.point.Point2D_I16;
 import lombok.Getter;
 import lombok.Setter;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -52,6 +56,20 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>, D extends ImageGray<
 	// The actual maximum after considering the number of pixels
 	int actualMaxTracks;
 
+	/**
+	 * If true then new tracks are only spawned inside of grid cells which contain no active tracks. Feature
+	 * detection is then only done inside of the empty cells. Only used if there's a maximum number of tracks.
+	 */
+	public @Getter @Setter boolean spawnInEmptyCells = false;
+
+	/** Specifies the grid used to find empty regions when {@link #spawnInEmptyCells} is true */
+	public @Getter final ConfigGridUniform configSpawnGrid = new ConfigGridUniform();
+
+	// Regions which features will be detected inside of
+	protected final DogArray<ImageRectangle> spawnRegions = new DogArray<>(ImageRectangle::new);
+	// Indicates if a grid cell has an active track inside of it
+	protected final DogArray_B cellOccupied = new DogArray_B();
+
 	// reference to input image
 	protected I input;
 
@@ -89,7 +107,7 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>, D extends ImageGray<
 	// selects point features
 	private GeneralFeatureDetector<I, D> detector;
 	// list of corners which should be ignored by the corner detector
-	private QueueCorner excludeList = new QueueCorner(10);
+	protected QueueCorner excludeList = new QueueCorner(10);
 
 	// number of features tracked so far
 	private long totalFeatures = 0;
@@ -248,6 +266,16 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>, D extends ImageGray<
 			detector.setFeatureLimit(actualMaxTracks - excludeList.size);
 		} else
 			detector.setFeatureLimit(-1);
+
+		// Only detect features inside of regions which have no tracks
+		if (spawnInEmptyCells && actualMaxTracks > 0) {
+			findEmptyRegions(baseLayer.width, baseLayer.height, actualMaxTracks);
+			if (spawnRegions.size == 0)
+				return;
+			detector.setRegions(spawnRegions);
+		} else {
+			detector.setRegions(null);
+		}
 		detector.process(baseLayer, currPyr.derivX[0], currPyr.derivY[0], null, null, null);
 
 		// Create new tracks from the detected features
@@ -255,6 +283,45 @@ public class PointTrackerKltPyramid<I extends ImageGray<I>, D extends ImageGray<
 		addToTracks(scaleBottom, detector.getMaximums());
 	}
 
+	/**
+	 * Breaks the image up into a grid and finds cells without any active tracks inside of them. Adjacent empty
+	 * cells in the same row are merged into a single region to reduce the overhead of processing a region.
+	 */
+	protected void findEmptyRegions( int width, int height, int maxTracks ) {
+		spawnRegions.reset();
+
+		int cellLength = configSpawnGrid.selectTargetCellSize(maxTracks, width, height);
+		int rows = (height + cellLength - 1)/cellLength;
+		int cols = (width + cellLength - 1)/cellLength;
+
+		cellOccupied.resize(rows*cols, false);
+		for (int i = 0; i < excludeList.size; i++) {
+			Point2D_I16 p = excludeList.get(i);
+			int row = Math.min(rows - 1, Math.max(0, p.y/cellLength));
+			int col = Math.min(cols - 1, Math.max(0, p.x/cellLength));
+			cellOccupied.data[row*cols + col] = true;
+		}
+
+		for (int row = 0; row < rows; row++) {
+			int col = 0;
+			while (col < cols) {
+				if (cellOccupied.data[row*cols + col]) {
+					col++;
+					continue;
+				}
+				int col0 = col;
+				while (col < cols && !cellOccupied.data[row*cols + col]) {
+					col++;
+				}
+				ImageRectangle r = spawnRegions.grow();
+				r.x0 = col0*cellLength;
+				r.y0 = row*cellLength;
+				r.x1 = Math.min(width, col*cellLength);
+				r.y1 = Math.min(height, (row + 1)*cellLength);
+			}
+		}
+	}
+
 	@Override public ImageType<I> getImageType() {
 		return gradient.getInputType();
 	}
@@ -76,6 +76,18 @@ public class DescribePointBrief<T extends ImageGray<T>> {
 		describe.setImage(image);
 	}
 
+	/**
+	 * Same as {@link #setImage} but the image isn't blurred again, since that has already been done by 'src'.
+	 * Use this to describe features in multiple threads at once with the same image.
+	 *
+	 * @param image Image being examined.
+	 * @param src Describer with the same configuration that {@link #setImage} has been called on with 'image'
+	 */
+	public void setImageShared( T image, DescribePointBrief<T> src ) {
+		// Only the input image is sampled, so nothing needs to be referenced from 'src'
+		describe.setImage(image);
+	}
+
 	/**
 	 * Computes the descriptor at the specified point. If the region go outside of the image then a description
 	 * will not be made.
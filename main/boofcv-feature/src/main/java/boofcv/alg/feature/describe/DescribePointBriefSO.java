@@ -80,11 +80,24 @@ public class DescribePointBriefSO<T extends ImageGray<T>> {
 		interp.setImage(blur);
 	}
 
+	/**
+	 * Same as {@link #setImage} but the blurred image in 'src' is sampled instead of blurring the image again.
+	 * Use this to describe features in multiple threads at once with the same image.
+	 *
+	 * @param image Image being examined.
+	 * @param src Describer with the same configuration that {@link #setImage} has been called on with 'image'
+	 */
+	public void setImageShared( T image, DescribePointBriefSO<T> src ) {
+		interp.setImage(src.blur);
+	}
+
 	public void process( float c_x, float c_y, float orientation, float radius, TupleDesc_B feature ) {
 		float scale = (float)(radius/BoofDefaults.BRIEF_SCALE_TO_RADIUS);
 		// NOTE: This doesn't seem to take in account the interpolation border. Might not work algs
 		// other than bilinear interpolation
-		boolean isInside = BoofMiscOps.isInside(blur, c_x, c_y, definition.radius*scale);
+		// The image being sampled might be the blurred image of another instance
+		T image = interp.getImage();
+		boolean isInside = BoofMiscOps.isInside(image, c_x, c_y, definition.radius*scale);
 
 		float c = (float)Math.cos(orientation);
 		float s = (float)Math.sin(orientation);
@@ -108,7 +121,7 @@ public class DescribePointBriefSO<T extends ImageGray<T>> {
 				float x0 = c_x + (c*a.x - s*a.y)*scale;
 				float y0 = c_y + (s*a.x + c*a.y)*scale;
 
-				if (BoofMiscOps.isInside(blur, x0, y0)) {
+				if (BoofMiscOps.isInside(image, x0, y0)) {
 					// it might be inside the image but too close to the border for unsafe
 					values[i] = interp.get(x0, y0);
 				}
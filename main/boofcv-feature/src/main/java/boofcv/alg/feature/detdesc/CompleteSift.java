@@ -28,16 +28,19 @@ import boofcv.struct.feature.ScalePoint;
 import boofcv.struct.feature.TupleDesc_F64;
 import boofcv.struct.image.GrayF32;
 import lombok.Getter;
+import lombok.Setter;
 import org.ddogleg.struct.DogArray;
 import org.ddogleg.struct.DogArray_F64;
+import org.ddogleg.struct.DogArray_I32;
 import org.ddogleg.struct.FastAccess;
 import org.ddogleg.struct.FastArray;
 
 import java.util.List;
 
 /**
- * SIFT combined together to simultaneously detect and describe the key points it finds. Memory is conserved by
- * only having one octave of the scale-space in memory at any given time.
+ * SIFT combined together to simultaneously detect and describe the key points it finds. If {@link #streaming}
+ * is true then memory is conserved by only having one octave of the scale-space in memory at any given time.
+ * Otherwise the entire scale-space and its gradient are computed at once.
  *
  * @author Peter Abeles
  * @see OrientationHistogramSift
@@ -60,6 +63,24 @@ public class CompleteSift {
 
 	UnrollSiftScaleSpaceGradient gradient = new UnrollSiftScaleSpaceGradient();
 
+	/**
+	 * If true then the scale-space is processed one octave at a time, which reduces peak memory. If the total
+	 * number of features is limited then the scale-space is computed twice. The output is identical.
+	 */
+	@Getter @Setter boolean streaming = false;
+
+	// Workspace for streaming. Detections in the order they are described and where they are in the original list
+	FastArray<SiftPoint> octaveOrder = new FastArray<>(SiftPoint.class);
+	DogArray_I32 octaveOrderToList = new DogArray_I32();
+	FastArray<SiftPoint> octaveDetections = new FastArray<>(SiftPoint.class);
+
+	// Workspace for sorting descriptions back into the same order as the detections
+	DogArray_I32 descToList = new DogArray_I32();
+	DogArray_I32 listCounts = new DogArray_I32();
+	FastArray<ScalePoint> workLocations = new FastArray<>(ScalePoint.class);
+	DogArray_F64 workOrientations = new DogArray_F64();
+	FastArray<TupleDesc_F64> workDescs = new FastArray<>(TupleDesc_F64.class);
+
 	/**
 	 * Configures SIFT
 	 *
@@ -89,6 +110,11 @@ public class CompleteSift {
 		locations.reset();
 		orientations.reset();
 
+		if (streaming) {
+			processStreaming(input);
+			return;
+		}
+
 		// Compute the scale space
 		scaleSpace.process(input);
 
@@ -103,6 +129,116 @@ public class CompleteSift {
 		describeDetections(detections);
 	}
 
+	/**
+	 * Processes the image one octave at a time. When there's no limit on the total number of features, features
+	 * can be described as soon as each octave has been processed. Otherwise the best features are selected
+	 * across all octaves first and the scale-space needs to be computed again to describe them.
+	 */
+	protected void processStreaming( GrayF32 input ) {
+		detector.initialize();
+
+		scaleSpace.processFirstOctave(input);
+		do {
+			SiftScaleSpace.Octave o = scaleSpace.getCurrentOctave();
+			if (scaleSpace.isOctaveTooSmall(o))
+				break;
+			int octaveIdx = scaleSpace.getCurrentOctaveIdx();
+
+			int idx0 = detector.getDetectionsAll().size();
+			detector.processOctave(scaleSpace, octaveIdx, o);
+
+			// If all the features are going to be used, describe them now
+			if (detector.maxFeaturesAll <= 0) {
+				List<SiftPoint> all = detector.getDetectionsAll();
+				gradient.processOctave(scaleSpace, octaveIdx, o);
+				describeDetections(all.subList(idx0, all.size()));
+			}
+		} while (scaleSpace.processNextOctave());
+
+		detector.finishDetections(scaleSpace);
+
+		if (detector.maxFeaturesAll <= 0)
+			return;
+
+		// Only the selected detections are described
+		List<SiftPoint> detections = detector.getDetections();
+		int lastOctaveIdx = -1;
+		for (int i = 0; i < detections.size(); i++) {
+			lastOctaveIdx = Math.max(lastOctaveIdx, detections.get(i).octaveIdx);
+		}
+
+		octaveOrder.reset();
+		octaveOrderToList.reset();
+
+		scaleSpace.processFirstOctave(input);
+		do {
+			int octaveIdx = scaleSpace.getCurrentOctaveIdx();
+			if (octaveIdx > lastOctaveIdx)
+				break;
+
+			octaveDetections.reset();
+			for (int i = 0; i < detections.size(); i++) {
+				SiftPoint p = detections.get(i);
+				if (p.octaveIdx != octaveIdx)
+					continue;
+				octaveDetections.add(p);
+				octaveOrder.add(p);
+				octaveOrderToList.add(i);
+			}
+
+			if (octaveDetections.isEmpty())
+				continue;
+
+			gradient.processOctave(scaleSpace, octaveIdx, scaleSpace.getCurrentOctave());
+			describeDetections(octaveDetections.toList());
+		} while (scaleSpace.processNextOctave());
+
+		sortIntoDetectionOrder(detections.size());
+	}
+
+	/**
+	 * When the detections are described one octave at a time the order of the output can be different from the
+	 * order of the detections. This rearranges the output so that it's in the same order as the detections.
+	 * Descriptions from the same detection are in a contiguous block and in the same order as the detections
+	 * in {@link #octaveOrder}.
+	 */
+	void sortIntoDetectionOrder( int numDetections ) {
+		FastAccess<TupleDesc_F64> descs = getDescriptions();
+		final int N = locations.size;
+
+		// Find which detection in the original list each description belongs to
+		descToList.resize(N);
+		listCounts.resize(numDetections + 1, 0);
+		for (int i = 0, orderIdx = 0; i < N; i++) {
+			ScalePoint p = locations.get(i);
+			while (octaveOrder.get(orderIdx) != p) {
+				orderIdx++;
+			}
+			int listIdx = octaveOrderToList.get(orderIdx);
+			descToList.data[i] = listIdx;
+			listCounts.data[listIdx + 1]++;
+		}
+
+		// Counting sort, which is stable, so descriptions from the same detection remain in the same order
+		for (int i = 1; i <= numDetections; i++) {
+			listCounts.data[i] += listCounts.data[i - 1];
+		}
+
+		workLocations.resize(N, null);
+		workOrientations.resize(N);
+		workDescs.resize(N, null);
+		for (int i = 0; i < N; i++) {
+			int dst = listCounts.data[descToList.data[i]]++;
+			workLocations.data[dst] = locations.data[i];
+			workOrientations.data[dst] = orientations.data[i];
+			workDescs.data[dst] = descs.data[i];
+		}
+
+		System.arraycopy(workLocations.data, 0, locations.data, 0, N);
+		System.arraycopy(workOrientations.data, 0, orientations.data, 0, N);
+		System.arraycopy(workDescs.data, 0, descs.data, 0, N);
+	}
+
 	/**
 	 * Computes one or more descriptors for every point in the passed in list
 	 */
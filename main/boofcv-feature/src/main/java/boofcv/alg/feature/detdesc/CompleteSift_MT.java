@@ -79,8 +79,14 @@ public class CompleteSift_MT extends CompleteSift {
 
 	@Override protected void describeDetections( List<SiftDetector.SiftPoint> detections ) {
 		// if there are very few features don't spawn threads
-		if (minimumDetectionsThread >= detections.size())
+		if (minimumDetectionsThread >= detections.size()) {
+			int idx0 = features.size;
 			super.describeDetections(detections);
+			for (int i = idx0; i < features.size; i++) {
+				combinedFeatures.add(features.get(i));
+			}
+			return;
+		}
 
 		BoofConcurrency.loopBlocks(0, detections.size(), helpers, ( helper, idx0, idx1 ) -> {
 
@@ -124,8 +130,18 @@ public class CompleteSift_MT extends CompleteSift {
 			ThreadHelper helper = helpers.get(i);
 
 			locations.addAll(helper.locations);
-			combinedFeatures.addAll(helper.features);
 			orientations.addAll(helper.orientations);
+
+			if (streaming) {
+				// Thread storage is recycled for the next octave so the descriptions need to be copied
+				for (int j = 0; j < helper.features.size; j++) {
+					TupleDesc_F64 desc = features.grow();
+					desc.setTo(helper.features.get(j));
+					combinedFeatures.add(desc);
+				}
+			} else {
+				combinedFeatures.addAll(helper.features);
+			}
 		}
 	}
 
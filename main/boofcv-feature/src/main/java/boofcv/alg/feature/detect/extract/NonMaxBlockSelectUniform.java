@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.extract;
+
+import boofcv.alg.feature.detect.selector.FeatureSelectUniformBest;
+import boofcv.misc.BoofMiscOps;
+import boofcv.struct.ConfigGridUniform;
+import boofcv.struct.ImageGrid;
+import boofcv.struct.QueueCorner;
+import boofcv.struct.image.GrayF32;
+import georegression.struct.point.Point2D_I16;
+import org.ddogleg.struct.FastAccess;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * <p>
+ * Combines {@link NonMaxBlock} with {@link FeatureSelectUniformBest} so that uniformly selecting the best
+ * features is done in a single pass. The image is broken up into a grid and each cell keeps a bounded min-heap of
+ * the most intense local extremes found inside of it. After non-maximum suppression is done, features are selected
+ * from each cell in a round-robin fashion, starting with the most intense, until the limit is reached. Cells
+ * which contain prior features are skipped for one iteration for each prior feature. This avoids saving and
+ * sorting every local extreme in highly textured images.
+ * </p>
+ *
+ * <p>
+ * Each cell will store at most {@link #cellCapacityScale} times the number of features a cell would contain if
+ * features were evenly distributed. If cells need to contribute more than this then the results will be different
+ * from {@link FeatureSelectUniformBest}. Blocks are not allowed to cross the boundary between rows of cells,
+ * which lets rows of cells be processed independently.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class NonMaxBlockSelectUniform extends NonMaxBlock {
+
+	/** Configuration for the grid which features are selected uniformly across */
+	public ConfigGridUniform configUniform = new ConfigGridUniform();
+
+	/** Relative to an even distribution, how many features each cell can store */
+	public double cellCapacityScale = 2.0;
+
+	// Grid containing the most intense features in each cell
+	protected final ImageGrid<Cell> grid = new ImageGrid<>(Cell::new, Cell::reset);
+
+	// Maximum number of features a cell can store
+	protected int cellCapacity;
+
+	// Workspace for found features in a single block row
+	protected final QueueCorner blockFound = new QueueCorner();
+
+	public NonMaxBlockSelectUniform( Search search ) {
+		super(search);
+	}
+
+	/**
+	 * Finds local extremes and selects up to the limit of them, uniformly across the image.
+	 *
+	 * @param intensityImage (Input) Feature intensity image
+	 * @param prior (Input) Locations of previously detected features. Nullable.
+	 * @param positive (Input) true if it's searching for local maximums and false for minimums
+	 * @param limit (Input) Maximum number of features that are returned. Must be &gt; 0
+	 * @param output (Output) Selected features. Reset on every call.
+	 */
+	public void process( GrayF32 intensityImage, @Nullable FastAccess<Point2D_I16> prior,
+						 boolean positive, int limit, QueueCorner output ) {
+		BoofMiscOps.checkTrue(limit > 0, "Limit must be a positive number");
+		if (positive)
+			BoofMiscOps.checkTrue(search.isDetectMaximums(), "Search must detect maximums");
+		else
+			BoofMiscOps.checkTrue(search.isDetectMinimums(), "Search must detect minimums");
+
+		output.reset();
+
+		int targetCellSize = configUniform.selectTargetCellSize(limit, intensityImage.width, intensityImage.height);
+		grid.initialize(targetCellSize, intensityImage.width, intensityImage.height);
+
+		cellCapacity = Math.max(1, (int)Math.ceil(cellCapacityScale*limit/grid.cells.size));
+		for (int i = 0; i < grid.cells.size; i++) {
+			grid.cells.data[i].initialize(cellCapacity);
+		}
+
+		// Find the local extremes and save the best in each cell
+		searchCellRows(intensityImage, positive);
+
+		// Note the prior features
+		if (prior != null) {
+			for (int i = 0; i < prior.size; i++) {
+				Point2D_I16 p = prior.data[i];
+				grid.getCellAtPixel(p.x, p.y).priorCount++;
+			}
+		}
+
+		// Sort each cell so that the most intense feature is first
+		for (int i = 0; i < grid.cells.size; i++) {
+			grid.cells.data[i].sortDescending();
+		}
+
+		selectRoundRobin(intensityImage.width, limit, output);
+	}
+
+	/**
+	 * Searches for local extremes across all rows of cells in the grid
+	 */
+	protected void searchCellRows( GrayF32 intensityImage, boolean positive ) {
+		search.initialize(configuration, intensityImage,
+				positive ? null : blockFound, positive ? blockFound : null);
+		searchCellRows(intensityImage, 0, grid.rows, positive, search, blockFound);
+	}
+
+	/**
+	 * Searches for local extremes inside the specified rows of cells and adds them to the cells. Blocks are
+	 * clipped at the boundary between rows of cells. Each cell is only modified by the row it's contained in.
+	 *
+	 * @param row0 First row of cells, inclusive
+	 * @param row1 Last row of cells, exclusive
+	 * @param search The search which has been initialized and writes to 'found'
+	 * @param found Storage for local extremes found by the search
+	 */
+	protected void searchCellRows( GrayF32 intensityImage, int row0, int row1, boolean positive,
+								   Search search, QueueCorner found ) {
+		final int endX = intensityImage.width - border;
+		final int endY = intensityImage.height - border;
+		final int step = configuration.radius + 1;
+		final float sign = positive ? 1.0f : -1.0f;
+
+		for (int row = row0; row < row1; row++) {
+			// pixel rows inside this row of cells. The last row of cells extends to the bottom of the image
+			int cellY0 = Math.max(border, row*grid.lengthY);
+			int cellY1 = Math.min(endY, row + 1 == grid.rows ? intensityImage.height : (row + 1)*grid.lengthY);
+
+			for (int y = cellY0; y < cellY1; y += step) {
+				int y1 = Math.min(y + step, cellY1);
+
+				found.reset();
+				for (int x = border; x < endX; x += step) {
+					int x1 = x + step;
+					if (x1 > endX) x1 = endX;
+					search.searchBlock(x, y, x1, y1);
+				}
+
+				// Add the found features to the cell they are inside of
+				for (int i = 0; i < found.size; i++) {
+					Point2D_I16 p = found.data[i];
+					float value = sign*intensityImage.unsafe_get(p.x, p.y);
+					grid.getCellAtPixel(p.x, p.y).add(value, p.y*intensityImage.width + p.x);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Selects features by taking the best remaining feature in each cell, in order, until the limit is reached
+	 * or there are no more features
+	 */
+	protected void selectRoundRobin( int width, int limit, QueueCorner output ) {
+		final FastAccess<Cell> cells = grid.cells;
+
+		while (output.size < limit) {
+			boolean change = false;
+			for (int cellIdx = 0; cellIdx < cells.size && output.size < limit; cellIdx++) {
+				Cell cell = cells.data[cellIdx];
+
+				// if there's a prior feature here, note it and move on
+				if (cell.priorCount > 0) {
+					cell.priorCount--;
+					change = true;
+					continue;
+				}
+				// Are there any detected features remaining?
+				if (cell.taken >= cell.size)
+					continue;
+
+				int pixelIndex = cell.pixels[cell.taken++];
+				output.append(pixelIndex%width, pixelIndex/width);
+				change = true;
+			}
+			if (!change)
+				break;
+		}
+	}
+
+	/**
+	 * Most intense features inside a grid cell. Stored in a min-heap while being found so that the least intense
+	 * feature can be quickly replaced.
+	 */
+	protected static class Cell {
+		// Number of features in the cell from the prior list
+		int priorCount;
+		// Intensity of each feature. Adjusted so that larger is always better
+		float[] values = new float[0];
+		// Index of the pixel each feature is at
+		int[] pixels = new int[0];
+		// Maximum number of features in the heap
+		int capacity;
+		// Number of features in the heap
+		int size;
+		// Number of features which have been selected
+		int taken;
+
+		public void initialize( int capacity ) {
+			if (values.length < capacity) {
+				values = new float[capacity];
+				pixels = new int[capacity];
+			}
+			this.capacity = capacity;
+			reset();
+		}
+
+		/**
+		 * Adds the feature if the heap isn't full or if it's better than the worst feature in the heap.
+		 */
+		public void add( float value, int pixel ) {
+			if (size < capacity) {
+				// add to the end and move it up the heap
+				int idx = size++;
+				while (idx > 0) {
+					int parent = (idx - 1)/2;
+					if (values[parent] <= value)
+						break;
+					values[idx] = values[parent];
+					pixels[idx] = pixels[parent];
+					idx = parent;
+				}
+				values[idx] = value;
+				pixels[idx] = pixel;
+			} else if (value > values[0]) {
+				// replace the worst feature
+				siftDown(value, pixel, size);
+			}
+		}
+
+		/**
+		 * Puts the element at the root then moves it down the heap until the heap is valid
+		 */
+		private void siftDown( float value, int pixel, int length ) {
+			int idx = 0;
+			while (true) {
+				int child = 2*idx + 1;
+				if (child >= length)
+					break;
+				if (child + 1 < length && values[child + 1] < values[child])
+					child++;
+				if (value <= values[child])
+					break;
+				values[idx] = values[child];
+				pixels[idx] = pixels[child];
+				idx = child;
+			}
+			values[idx] = value;
+			pixels[idx] = pixel;
+		}
+
+		/**
+		 * Heap sort. Since it's a min-heap the results will be in descending order.
+		 */
+		public void sortDescending() {
+			for (int end = size - 1; end > 0; end--) {
+				float value = values[end];
+				int pixel = pixels[end];
+				values[end] = values[0];
+				pixels[end] = pixels[0];
+				siftDown(value, pixel, end);
+			}
+		}
+
+		public void reset() {
+			priorCount = 0;
+			size = 0;
+			taken = 0;
+		}
+	}
+}
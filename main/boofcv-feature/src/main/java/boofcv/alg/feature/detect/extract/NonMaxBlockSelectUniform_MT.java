@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.extract;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.QueueCorner;
+import boofcv.struct.image.GrayF32;
+import pabeles.concurrency.GrowArray;
+
+/**
+ * Concurrent implementation of {@link NonMaxBlockSelectUniform}. Each thread processes a band of rows in the
+ * grid. Since a cell is only modified by the band it's inside of no locks are needed and the results are identical
+ * to the single thread version.
+ *
+ * @author Peter Abeles
+ */
+public class NonMaxBlockSelectUniform_MT extends NonMaxBlockSelectUniform {
+
+	// Workspace for each thread
+	final GrowArray<SearchData> searches = new GrowArray<>(() -> new SearchData(search.newInstance()));
+
+	public NonMaxBlockSelectUniform_MT( Search search ) {
+		super(search);
+	}
+
+	@Override
+	protected void searchCellRows( GrayF32 intensityImage, boolean positive ) {
+		BoofConcurrency.loopBlocks(0, grid.rows, searches, ( data, row0, row1 ) -> {
+			data.search.initialize(configuration, intensityImage,
+					positive ? null : data.found, positive ? data.found : null);
+			searchCellRows(intensityImage, row0, row1, positive, data.search, data.found);
+		});
+	}
+
+	protected static class SearchData {
+		public final Search search;
+		public final QueueCorner found = new QueueCorner();
+
+		public SearchData( Search search ) {
+			this.search = search;
+		}
+	}
+}
@@ -21,12 +21,15 @@ package boofcv.alg.feature.detect.interest;
 import boofcv.abst.feature.detect.extract.NonMaxSuppression;
 import boofcv.abst.feature.detect.intensity.GeneralFeatureIntensity;
 import boofcv.alg.feature.detect.selector.FeatureSelectLimitIntensity;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.struct.ImageRectangle;
 import boofcv.struct.QueueCorner;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.ImageGray;
 import georegression.struct.point.Point2D_I16;
 import lombok.Getter;
 import lombok.Setter;
+import org.ddogleg.struct.FastAccess;
 import org.ddogleg.struct.FastArray;
 import org.jetbrains.annotations.Nullable;
 
@@ -43,6 +46,12 @@ import org.jetbrains.annotations.Nullable;
  * found features are returned. Set to a value &le; 0 to detect all features.
  * </p>
  *
+ * <p>
+ * Detection can be restricted to a set of regions, e.g. grid cells without any tracks in them, by calling
+ * {@link #setRegions}. Intensity and non-maximum suppression are then only computed inside of a sub-image around
+ * each region, reducing the cost proportional to how much of the image the regions cover.
+ * </p>
+ *
  * @param <I> Input image type.
  * @param <D> Image derivative type.
  * @author Peter Abeles
@@ -55,6 +64,12 @@ public class GeneralFeatureDetector<I extends ImageGray<I>, D extends ImageGray<
 	/** Corners which should be excluded from detection */
 	protected @Getter @Setter @Nullable QueueCorner exclude;
 
+	/**
+	 * If not null then features are only detected inside these regions. Regions should not overlap. The
+	 * intensity algorithm must be able to process sub-images.
+	 */
+	protected @Getter @Setter @Nullable FastAccess<ImageRectangle> regions;
+
 	// selects the features with the largest intensity
 	protected @Getter FeatureSelectLimitIntensity<Point2D_I16> selectMax;
 	protected FastArray<Point2D_I16> selected = new FastArray<>(Point2D_I16.class);
@@ -76,6 +91,17 @@ public class GeneralFeatureDetector<I extends ImageGray<I>, D extends ImageGray<
 	// Storage for initial set of found features
 	protected QueueCorner found = new QueueCorner(10);
 
+	// Storage for features found inside of regions
+	protected QueueCorner foundMin = new QueueCorner(10);
+	protected QueueCorner foundMax = new QueueCorner(10);
+
+	// Intensity image for the entire image when only processing regions. Only pixels inside regions are valid
+	protected GrayF32 regionIntensity = new GrayF32(1, 1);
+
+	// Sub-images around the region being processed
+	protected @Nullable I subImage;
+	protected @Nullable D subDerivX, subDerivY, subDerivXX, subDerivYY, subDerivXY;
+
 	/**
 	 * Specifies which algorithms to use and configures the detector.
 	 *
@@ -133,9 +159,6 @@ public class GeneralFeatureDetector<I extends ImageGray<I>, D extends ImageGray<
 		minimums.reset();
 		maximums.reset();
 
-		intensity.process(image, derivX, derivY, derivXX, derivYY, derivXY);
-		GrayF32 intensityImage = intensity.getIntensity();
-
 		// If there is a limit on the number of detections split it evenly between maximums and minimums
 		int limitPerSetMin = -1;
 		int limitPerSetMax = -1;
@@ -151,6 +174,14 @@ public class GeneralFeatureDetector<I extends ImageGray<I>, D extends ImageGray<
 			}
 		}
 
+		if (regions != null) {
+			processRegions(regions, image, derivX, derivY, derivXX, derivYY, derivXY, limitPerSetMin, limitPerSetMax);
+			return;
+		}
+
+		intensity.process(image, derivX, derivY, derivXX, derivYY, derivXY);
+		GrayF32 intensityImage = intensity.getIntensity();
+
 		// Detect local minimums and maximums separately while excluding points in the exclude list
 		if (intensity.localMinimums()) {
 			markExcludedPixels(intensityImage, -Float.MAX_VALUE);
@@ -173,6 +204,124 @@ public class GeneralFeatureDetector<I extends ImageGray<I>, D extends ImageGray<
 		}
 	}
 
+	/**
+	 * Detects features only inside the specified regions. Each region is expanded so that the intensity is valid
+	 * everywhere non-maximum suppression will look and then processed as a sub-image. Features are only kept if
+	 * they are inside the original region.
+	 */
+	protected void processRegions( FastAccess<ImageRectangle> regions,
+								   I image, D derivX, D derivY, D derivXX, D derivYY, D derivXY,
+								   int limitPerSetMin, int limitPerSetMax ) {
+		foundMin.reset();
+		foundMax.reset();
+
+		// Features are selected using this image. Pixels outside of regions are zero
+		regionIntensity.reshape(image.width, image.height);
+		ImageMiscOps.fill(regionIntensity, 0.0f);
+
+		// How much the region needs to be expanded by so that every pixel inside of it can be detected. The
+		// extractor ignores pixels along the sub-image's border and needs valid intensity values around each pixel
+		int border = intensity.getIgnoreBorder();
+		if (intensity.localMinimums())
+			border = Math.max(border, extractorMin.getIgnoreBorder());
+		if (intensity.localMaximums())
+			border = Math.max(border, extractorMax.getIgnoreBorder());
+		int margin = border + getSearchRadius();
+
+		for (int regionIdx = 0; regionIdx < regions.size; regionIdx++) {
+			ImageRectangle r = regions.get(regionIdx);
+
+			int x0 = Math.max(0, r.x0 - margin);
+			int y0 = Math.max(0, r.y0 - margin);
+			int x1 = Math.min(image.width, r.x1 + margin);
+			int y1 = Math.min(image.height, r.y1 + margin);
+			if (x1 <= x0 || y1 <= y0)
+				continue;
+
+			subImage = image.subimage(x0, y0, x1, y1, subImage);
+			subDerivX = derivX == null ? null : derivX.subimage(x0, y0, x1, y1, subDerivX);
+			subDerivY = derivY == null ? null : derivY.subimage(x0, y0, x1, y1, subDerivY);
+			subDerivXX = derivXX == null ? null : derivXX.subimage(x0, y0, x1, y1, subDerivXX);
+			subDerivYY = derivYY == null ? null : derivYY.subimage(x0, y0, x1, y1, subDerivYY);
+			subDerivXY = derivXY == null ? null : derivXY.subimage(x0, y0, x1, y1, subDerivXY);
+
+			intensity.process(subImage, subDerivX, subDerivY, subDerivXX, subDerivYY, subDerivXY);
+			GrayF32 subIntensity = intensity.getIntensity();
+
+			copyInsideRegion(subIntensity, x0, y0, r);
+
+			if (intensity.localMinimums()) {
+				markExcludedPixels(subIntensity, x0, y0, -Float.MAX_VALUE);
+				found.reset();
+				extractorMin.process(subIntensity,
+						intensity.hasCandidates() ? intensity.getCandidatesMin() : null, null, found, null);
+				addInsideRegion(found, x0, y0, r, foundMin);
+			}
+
+			if (intensity.localMaximums()) {
+				markExcludedPixels(subIntensity, x0, y0, Float.MAX_VALUE);
+				found.reset();
+				extractorMax.process(subIntensity,
+						null, intensity.hasCandidates() ? intensity.getCandidatesMax() : null, null, found);
+				addInsideRegion(found, x0, y0, r, foundMax);
+			}
+		}
+
+		if (intensity.localMinimums())
+			resolveSelectAmbiguity(regionIntensity, exclude, foundMin, minimums, limitPerSetMin, false);
+		if (intensity.localMaximums())
+			resolveSelectAmbiguity(regionIntensity, exclude, foundMax, maximums, limitPerSetMax, true);
+	}
+
+	/**
+	 * Copies intensity values inside the region from the sub-image's intensity into the full intensity image
+	 */
+	private void copyInsideRegion( GrayF32 subIntensity, int offsetX, int offsetY, ImageRectangle r ) {
+		int x0 = Math.max(0, r.x0);
+		int x1 = Math.min(regionIntensity.width, r.x1);
+		int y0 = Math.max(0, r.y0);
+		int y1 = Math.min(regionIntensity.height, r.y1);
+		if (x1 <= x0)
+			return;
+
+		for (int y = y0; y < y1; y++) {
+			int indexSrc = subIntensity.startIndex + (y - offsetY)*subIntensity.stride + x0 - offsetX;
+			int indexDst = regionIntensity.startIndex + y*regionIntensity.stride + x0;
+			System.arraycopy(subIntensity.data, indexSrc, regionIntensity.data, indexDst, x1 - x0);
+		}
+	}
+
+	/**
+	 * Adds features inside the region to the output after converting them into full image coordinates
+	 */
+	private static void addInsideRegion( QueueCorner found, int offsetX, int offsetY, ImageRectangle r,
+										 QueueCorner output ) {
+		for (int i = 0; i < found.size; i++) {
+			Point2D_I16 p = found.get(i);
+			int x = p.x + offsetX;
+			int y = p.y + offsetY;
+			if (x < r.x0 || x >= r.x1 || y < r.y0 || y >= r.y1)
+				continue;
+			output.append(x, y);
+		}
+	}
+
+	/**
+	 * Marks excluded pixels inside of a sub-image
+	 */
+	private void markExcludedPixels( GrayF32 subIntensity, int offsetX, int offsetY, float value ) {
+		if (exclude == null)
+			return;
+
+		for (int i = 0; i < exclude.size; i++) {
+			Point2D_I16 p = exclude.get(i);
+			int x = p.x - offsetX;
+			int y = p.y - offsetY;
+			if (subIntensity.isInBounds(x, y))
+				subIntensity.unsafe_set(x, y, value);
+		}
+	}
+
 	private void markExcludedPixels( GrayF32 intensityImage, float value ) {
 		if (exclude == null)
 			return;
@@ -215,8 +364,12 @@ public class GeneralFeatureDetector<I extends ImageGray<I>, D extends ImageGray<
 		return intensity.getRequiresHessian();
 	}
 
+	/**
+	 * Returns the intensity image. If detection was restricted to regions then only pixels inside the regions
+	 * are valid.
+	 */
 	public GrayF32 getIntensity() {
-		return intensity.getIntensity();
+		return regions == null ? intensity.getIntensity() : regionIntensity;
 	}
 
 	/**
@@ -174,35 +174,61 @@ public class SiftDetector {
 	 * @param scaleSpace (Input) Precomputed scale space. Not modified.
 	 */
 	public void process( SiftScaleSpace scaleSpace ) {
-		detectionsAll.reset();
-		selectedAll.reset();
+		initialize();
 
 		for (int octaveIdx = 0; octaveIdx < scaleSpace.octaves.length; octaveIdx++) {
 			if (scaleSpace.isOctaveTooSmall(octaveIdx))
 				break;
-			int octave = octaveIdx + scaleSpace.firstOctave;
-			SiftScaleSpace.Octave o = scaleSpace.octaves[octaveIdx];
-
-			// scale from octave to input image
-			pixelScaleToInput = scaleSpace.pixelScaleCurrentToInput(octave);
-
-			// detect features in the image
-			for (int scaleIdx = 1; scaleIdx < scaleSpace.getNumScales() + 1; scaleIdx++) {
-				// not really sure how to compute the scale for features found at a particular DoG image
-				// using the average resulted in less visually appealing circles in a test image
-				sigmaLower = scaleSpace.computeSigmaScale(octave, scaleIdx - 1);
-				sigmaTarget = scaleSpace.computeSigmaScale(octave, scaleIdx);
-				sigmaUpper = scaleSpace.computeSigmaScale(octave, scaleIdx + 1);
-
-				// grab the local DoG scale space images
-				dogLower = o.differenceOfGaussian[scaleIdx - 1];
-				dogTarget = o.differenceOfGaussian[scaleIdx];
-				dogUpper = o.differenceOfGaussian[scaleIdx + 1];
-
-				detectFeatures(octaveIdx, scaleIdx);
-			}
+			processOctave(scaleSpace, octaveIdx, scaleSpace.octaves[octaveIdx]);
 		}
 
+		finishDetections(scaleSpace);
+	}
+
+	/**
+	 * Discards all previously found detections. Must be called before {@link #processOctave} when
+	 * processing the scale space one octave at a time.
+	 */
+	public void initialize() {
+		detectionsAll.reset();
+		selectedAll.reset();
+	}
+
+	/**
+	 * Detects features inside a single octave. Detections are added to the end of the list of all detections.
+	 *
+	 * @param scaleSpace (Input) Scale space the octave belongs to. Not modified.
+	 * @param octaveIdx Index of the octave
+	 * @param o (Input) Images in the octave. Not modified.
+	 */
+	public void processOctave( SiftScaleSpace scaleSpace, int octaveIdx, SiftScaleSpace.Octave o ) {
+		int octave = octaveIdx + scaleSpace.firstOctave;
+
+		// scale from octave to input image
+		pixelScaleToInput = scaleSpace.pixelScaleCurrentToInput(octave);
+
+		// detect features in the image
+		for (int scaleIdx = 1; scaleIdx < scaleSpace.getNumScales() + 1; scaleIdx++) {
+			// not really sure how to compute the scale for features found at a particular DoG image
+			// using the average resulted in less visually appealing circles in a test image
+			sigmaLower = scaleSpace.computeSigmaScale(octave, scaleIdx - 1);
+			sigmaTarget = scaleSpace.computeSigmaScale(octave, scaleIdx);
+			sigmaUpper = scaleSpace.computeSigmaScale(octave, scaleIdx + 1);
+
+			// grab the local DoG scale space images
+			dogLower = o.differenceOfGaussian[scaleIdx - 1];
+			dogTarget = o.differenceOfGaussian[scaleIdx];
+			dogUpper = o.differenceOfGaussian[scaleIdx + 1];
+
+			detectFeatures(octaveIdx, scaleIdx);
+		}
+	}
+
+	/**
+	 * Called after all the octaves have been processed. If there is a limit on the total number of features
+	 * then the best ones are selected here.
+	 */
+	public void finishDetections( SiftScaleSpace scaleSpace ) {
 		if (maxFeaturesAll > 0)
 			selectFeaturesAll.select(null, scaleSpace.getOriginalWidth(), scaleSpace.getOriginalHeight(),
 					true, null, detectionsAll, maxFeaturesAll, selectedAll);
@@ -344,6 +370,13 @@ public class SiftDetector {
 		return (maxFeaturesAll > 0 ? selectedAll : detectionsAll).toList();
 	}
 
+	/**
+	 * All the found detections across scale space before any selection has been applied
+	 */
+	public List<SiftPoint> getDetectionsAll() {
+		return detectionsAll.toList();
+	}
+
 	/**
 	 * Adds information about the scale space it was detected in for quick reference when
 	 * computing the descriptor
@@ -84,6 +84,13 @@ public class SiftScaleSpace {
 	InterpolatePixelS<GrayF32> interp =
 			FactoryInterpolation.bilinearPixelS(GrayF32.class, BorderType.EXTENDED);
 
+	// Storage for the single octave used when processing one octave at a time. Memory is reused between octaves
+	final Octave streamOctave;
+	// Storage for the first scale in the next octave when processing one octave at a time
+	GrayF32 streamNextFirst = new GrayF32(1, 1);
+	/** Index of the octave in {@link #getCurrentOctave()} when processing one octave at a time */
+	@Getter int currentOctaveIdx = -1;
+
 	/**
 	 * Configures the scale-space
 	 *
@@ -112,6 +119,8 @@ public class SiftScaleSpace {
 			octaves[i] = new Octave(numScales + 3);
 		}
 
+		streamOctave = new Octave(numScales + 3);
+
 		tempImage = new GrayF32(1, 1);
 		tempBlur = new GrayF32(1, 1);
 
@@ -144,7 +153,13 @@ public class SiftScaleSpace {
 	 * Checks to see if the octave is too small to process and no more layers should be processed
 	 */
 	public boolean isOctaveTooSmall(int octaveIdx) {
-		Octave o = octaves[octaveIdx];
+		return isOctaveTooSmall(octaves[octaveIdx]);
+	}
+
+	/**
+	 * Checks to see if the octave is too small to process and no more layers should be processed
+	 */
+	public boolean isOctaveTooSmall( Octave o ) {
 		return o.scales[0].width < 10 || o.scales[0].height < 10;
 	}
 
@@ -156,40 +171,101 @@ public class SiftScaleSpace {
 	public void process( GrayF32 input ) {
 		this.input = input;
 
+		computeFirstScale(input, octaves[0].scales[0]);
+
+		// Compute all the other images
+		for (int octaveIdx = 0; octaveIdx < octaves.length; octaveIdx++) {
+			computeOctave(octaves[octaveIdx]);
+
+			// Create the first image in the octave using the scale which has 2x the blur of the initial image
+			if (octaveIdx+1<octaves.length)
+				PyramidOps.scaleDown2(octaves[octaveIdx].scales[numScales], octaves[octaveIdx+1].scales[0]);
+		}
+	}
+
+	/**
+	 * Alternative to {@link #process} where only a single octave is in memory at any time. This computes
+	 * the first octave. Call {@link #processNextOctave()} to compute the next octave. The octave's images are
+	 * identical to what {@link #process} would have computed but the memory is recycled.
+	 *
+	 * @param input Input image. No prior blur should be applied to this image. Not modified.
+	 * @see #getCurrentOctave()
+	 */
+	public void processFirstOctave( GrayF32 input ) {
+		this.input = input;
+
+		currentOctaveIdx = 0;
+		computeFirstScale(input, streamOctave.scales[0]);
+		computeOctave(streamOctave);
+	}
+
+	/**
+	 * Computes the next octave from the current octave, which is discarded. Must call
+	 * {@link #processFirstOctave} first.
+	 *
+	 * @return true if another octave was computed or false if all the octaves have been processed
+	 */
+	public boolean processNextOctave() {
+		if (currentOctaveIdx < 0)
+			throw new IllegalArgumentException("Must call processFirstOctave() first");
+		if (currentOctaveIdx + 1 >= getTotalOctaves())
+			return false;
+
+		// Create the first image in the octave using the scale which has 2x the blur of the initial image
+		PyramidOps.scaleDown2(streamOctave.scales[numScales], streamNextFirst);
+
+		// Swap so that the next first image is now the first image and the old image's memory is recycled
+		GrayF32 tmp = streamOctave.scales[0];
+		streamOctave.scales[0] = streamNextFirst;
+		streamNextFirst = tmp;
+
+		currentOctaveIdx++;
+		computeOctave(streamOctave);
+		return true;
+	}
+
+	/**
+	 * Returns the most recently computed octave when processing one octave at a time
+	 */
+	public Octave getCurrentOctave() {
+		return streamOctave;
+	}
+
+	/**
+	 * Computes the first scale image in the first octave
+	 */
+	void computeFirstScale( GrayF32 input, GrayF32 output ) {
 		// NOTE: In the 2004 paper the down sample is a factor of 2. In earlier works it was 1.5 pixels
 
 		if (firstOctave == -1) {
 			// The first octave is at a "higher" resolution than the input image
 			PyramidOps.scaleImageUp(input, tempImage, -2*firstOctave, interp);
-			applyGaussian(tempImage, octaves[0].scales[0], kernelSigma0);
+			applyGaussian(tempImage, output, kernelSigma0);
 		} else {
-			applyGaussian(input, octaves[0].scales[0], kernelSigma0);
+			applyGaussian(input, output, kernelSigma0);
 
 			// if the first octave is at a lower resolution then down sample it
 			for (int i = 1; i <= firstOctave; i++) {
 				// double the blur, then down sample
-				applyGaussian(octaves[0].scales[0], tempImage, kernelSigma0);
-				PyramidOps.scaleDown2(tempImage, octaves[0].scales[0]);
+				applyGaussian(output, tempImage, kernelSigma0);
+				PyramidOps.scaleDown2(tempImage, output);
 			}
 		}
+	}
 
-		// Compute all the other images
-		for (int octaveIdx = 0; octaveIdx < octaves.length; octaveIdx++) {
-			Octave o = octaves[octaveIdx];
-			o.reshapeToFirst();
-
-			// Compute the blur and DoG images for all scales in the octave
-			for (int i = 1; i < o.scales.length; i++) {
-				applyGaussian(o.scales[i - 1], o.scales[i], kernelSigmaToK[i - 1]);
-			}
+	/**
+	 * Computes all the scale and DoG images in the octave from its first scale image
+	 */
+	void computeOctave( Octave o ) {
+		o.reshapeToFirst();
 
-			for (int i = 1; i < o.scales.length; i++) {
-				PixelMath.subtract(o.scales[i], o.scales[i - 1], o.differenceOfGaussian[i - 1]);
-			}
+		// Compute the blur and DoG images for all scales in the octave
+		for (int i = 1; i < o.scales.length; i++) {
+			applyGaussian(o.scales[i - 1], o.scales[i], kernelSigmaToK[i - 1]);
+		}
 
-			// Create the first image in the octave using the scale which has 2x the blur of the initial image
-			if (octaveIdx+1<octaves.length)
-				PyramidOps.scaleDown2(octaves[octaveIdx].scales[numScales], octaves[octaveIdx+1].scales[0]);
+		for (int i = 1; i < o.scales.length; i++) {
+			PixelMath.subtract(o.scales[i], o.scales[i - 1], o.differenceOfGaussian[i - 1]);
 		}
 	}
 
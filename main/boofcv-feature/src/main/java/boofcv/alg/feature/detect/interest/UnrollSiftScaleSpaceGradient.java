@@ -38,11 +38,15 @@ public class UnrollSiftScaleSpaceGradient {
 
 	private int numScales;
 
+	// Index of the first octave which has been unrolled
+	private int firstOctaveIdx;
+
 	/**
 	 * Sets the input image. Scale-space is computed and unrolled from this image
 	 */
 	public void process( SiftScaleSpace scaleSpace ) {
 		numScales = scaleSpace.getNumScales();
+		firstOctaveIdx = 0;
 		int numScales = scaleSpace.getNumScales()*scaleSpace.getTotalOctaves();
 		scales.reserve(numScales);
 		scales.reset();
@@ -51,21 +55,36 @@ public class UnrollSiftScaleSpaceGradient {
 			if (scaleSpace.isOctaveTooSmall(octaveIdx))
 				break;
 
-			int octave = octaveIdx + scaleSpace.firstOctave;
-			SiftScaleSpace.Octave o = scaleSpace.octaves[octaveIdx];
+			unrollOctave(scaleSpace, octaveIdx, scaleSpace.octaves[octaveIdx]);
+		}
+	}
+
+	/**
+	 * Only computes the gradient for a single octave. Used when the scale space is processed one octave at
+	 * a time. Memory from the previous octave is recycled.
+	 */
+	public void processOctave( SiftScaleSpace scaleSpace, int octaveIdx, SiftScaleSpace.Octave o ) {
+		numScales = scaleSpace.getNumScales();
+		firstOctaveIdx = octaveIdx;
+		scales.reset();
+
+		unrollOctave(scaleSpace, octaveIdx, o);
+	}
 
-			for (int i = 0; i < scaleSpace.getNumScales(); i++) {
-				// See comment in ImageScale for why there's an offset below
-				GrayF32 scaleImage = o.scales[i+1];
-				double sigma = scaleSpace.computeSigmaScale(octave, i);
-				double pixelCurrentToInput = scaleSpace.pixelScaleCurrentToInput(octave);
+	private void unrollOctave( SiftScaleSpace scaleSpace, int octaveIdx, SiftScaleSpace.Octave o ) {
+		int octave = octaveIdx + scaleSpace.firstOctave;
 
-				ImageScale scale = scales.grow();
+		for (int i = 0; i < scaleSpace.getNumScales(); i++) {
+			// See comment in ImageScale for why there's an offset below
+			GrayF32 scaleImage = o.scales[i+1];
+			double sigma = scaleSpace.computeSigmaScale(octave, i);
+			double pixelCurrentToInput = scaleSpace.pixelScaleCurrentToInput(octave);
 
-				gradient.process(scaleImage, scale.derivX, scale.derivY);
-				scale.imageToInput = pixelCurrentToInput;
-				scale.sigma = sigma;
-			}
+			ImageScale scale = scales.grow();
+
+			gradient.process(scaleImage, scale.derivX, scale.derivY);
+			scale.imageToInput = pixelCurrentToInput;
+			scale.sigma = sigma;
 		}
 	}
 
@@ -88,11 +107,11 @@ public class UnrollSiftScaleSpaceGradient {
 	}
 
 	public GrayF32 getDerivX( byte octaveIdx, byte scaleIdx ) {
-		return scales.get(octaveIdx*numScales + scaleIdx).derivX;
+		return scales.get((octaveIdx - firstOctaveIdx)*numScales + scaleIdx).derivX;
 	}
 
 	public GrayF32 getDerivY( byte octaveIdx, byte scaleIdx ) {
-		return scales.get(octaveIdx*numScales + scaleIdx).derivY;
+		return scales.get((octaveIdx - firstOctaveIdx)*numScales + scaleIdx).derivY;
 	}
 
 	/**
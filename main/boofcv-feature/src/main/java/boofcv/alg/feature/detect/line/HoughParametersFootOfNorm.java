@@ -73,6 +73,11 @@ public class HoughParametersFootOfNorm implements HoughTransformParameters {
 		throw new IllegalArgumentException("Not supported");
 	}
 
+	@Override
+	public void parameterize( int x, int y, int[] accumulator ) {
+		throw new IllegalArgumentException("Not supported");
+	}
+
 	@Override
 	public void parameterize( int x, int y, float derivX, float derivY, Point2D_F32 parameter ) {
 		// put the point in a new coordinate system centered at the image's origin
@@ -115,6 +115,22 @@ public class HoughParametersPolar implements HoughTransformParameters {
 		}
 	}
 
+	@Override
+	public void parameterize( int x, int y, int[] accumulator ) {
+		x -= originX;
+		y -= originY;
+
+		final float[] c = tableTrig.c;
+		final float[] s = tableTrig.s;
+		final int w2 = numBinsRange/2;
+
+		// Same as the GrayF32 version, but with the row offset computed incrementally
+		for (int i = 0, index = w2; i < numBinsAngle; i++, index += numBinsRange) {
+			double p = x*c[i] + y*s[i];
+			accumulator[index + (int)Math.floor(p*w2/r_max)]++;
+		}
+	}
+
 	@Override
 	public void parameterize( int x, int y, float derivX, float derivY, Point2D_F32 parameter ) {
 		float px = x - originX;
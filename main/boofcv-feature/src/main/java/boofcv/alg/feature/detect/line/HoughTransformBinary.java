@@ -19,8 +19,8 @@
 package boofcv.alg.feature.detect.line;
 
 import boofcv.abst.feature.detect.extract.NonMaxSuppression;
-import boofcv.alg.misc.ImageMiscOps;
 import boofcv.struct.ConfigLength;
+import boofcv.struct.ListIntPoint2D;
 import boofcv.struct.QueueCorner;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.GrayU8;
@@ -28,8 +28,10 @@ import georegression.struct.line.LineParametric2D_F32;
 import georegression.struct.point.Point2D_I16;
 import org.ddogleg.struct.DogArray;
 import org.ddogleg.struct.DogArray_F32;
+import org.ddogleg.struct.DogArray_I32;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -40,6 +42,10 @@ import java.util.List;
  * in which each pixel represents a coordinate in parameter space.
  * 3) Local maximums are found.
  * </p>
+ * <p>
+ * Edge pixels can be provided as a binary image or as a sparse list of pixels. Votes are accumulated in an
+ * integer array before being converted into the transform image.
+ * </p>
  * <p> By the nature of this algorithms, lines are forced to be discretized into parameter space. The range
  * can vary from +- the maximum range inside the image and the angle from 0 to PI radians. How
  * finely discretized an image is effects line detection accuracy. If too fine lines might not be detected
@@ -74,6 +80,10 @@ public class HoughTransformBinary {
 	QueueCorner foundPeaks = new QueueCorner(10);
 	// line intensities for later pruning
 	DogArray_F32 foundIntensity = new DogArray_F32(10);
+	// pixels in the binary image which are edges
+	final ListIntPoint2D edges = new ListIntPoint2D();
+	// number of votes for each coordinate in the transform
+	final DogArray_I32 counts = new DogArray_I32();
 
 	HoughTransformParameters parameters;
 
@@ -105,33 +115,75 @@ public class HoughTransformBinary {
 	 * @param binary Binary image that indicates which pixels lie on edges.
 	 */
 	public void transform( GrayU8 binary ) {
-		parameters.initialize(binary.width, binary.height, transform);
-		ImageMiscOps.fill(transform, 0);
+		edges.configure(binary.width, binary.height);
+		findEdgePixels(binary);
+		transform(binary.width, binary.height, edges);
+	}
 
-		computeParameters(binary);
+	/**
+	 * Computes the Hough transform from a sparse list of edge pixels. Much faster than
+	 * {@link #transform(GrayU8)} when the list is already known.
+	 *
+	 * @param width Width of the image the edges came from
+	 * @param height Height of the image the edges came from
+	 * @param edges Pixels which lie on edges. Must have been configured using the same width.
+	 */
+	public void transform( int width, int height, ListIntPoint2D edges ) {
+		parameters.initialize(width, height, transform);
+
+		computeParameters(width, edges.getPoints());
 
 		extractLines();
 		if (maxLines <= 0) {
 			linesMerged.clear();
 			linesMerged.addAll(linesAll.toList());
 		} else {
-			mergeLines(binary.width, binary.height);
+			mergeLines(width, height);
 		}
 	}
 
-	void computeParameters( GrayU8 binary ) {
+	/**
+	 * Adds all the non-zero pixels in the binary image to the list of edges
+	 */
+	void findEdgePixels( GrayU8 binary ) {
+		DogArray_I32 points = edges.getPoints();
 		for (int y = 0; y < binary.height; y++) {
 			int start = binary.startIndex + y*binary.stride;
 			int stop = start + binary.width;
 
 			for (int index = start; index < stop; index++) {
 				if (binary.data[index] != 0) {
-					parameters.parameterize(index - start, y, transform);
+					points.add(y*binary.width + index - start);
 				}
 			}
 		}
 	}
 
+	/**
+	 * Accumulates votes for every edge pixel and saves the results in the transform image
+	 *
+	 * @param width Image width. Used to decode pixel coordinates
+	 * @param pixels Edge pixels encoded as y*width + x
+	 */
+	void computeParameters( int width, DogArray_I32 pixels ) {
+		int N = transform.width*transform.height;
+		counts.resize(N);
+		Arrays.fill(counts.data, 0, N, 0);
+
+		for (int i = 0; i < pixels.size; i++) {
+			int pixel = pixels.data[i];
+			parameters.parameterize(pixel%width, pixel/width, counts.data);
+		}
+
+		for (int y = 0; y < transform.height; y++) {
+			int indexCounts = y*transform.width;
+			int indexTran = transform.startIndex + y*transform.stride;
+			for (int x = 0; x < transform.width; x++) {
+				transform.data[indexTran++] = counts.data[indexCounts++];
+			}
+		}
+	}
+
 	/**
 	 * Searches for local maximals and converts into lines.
 	 */
@@ -21,13 +21,24 @@ package boofcv.alg.feature.detect.line;
 import boofcv.abst.feature.detect.extract.NonMaxSuppression;
 import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.image.GrayU8;
+import org.ddogleg.struct.DogArray_I32;
+import pabeles.concurrency.GrowArray;
+
+import java.util.Arrays;
 
 /**
- * Concurrent version of {@link HoughTransformBinary}
+ * Concurrent version of {@link HoughTransformBinary}. Each thread accumulates votes for a block of edge pixels
+ * into its own integer accumulator. The accumulators are then summed together into the transform. Results
+ * are identical to the single thread version.
  *
  * @author Peter Abeles
  */
 public class HoughTransformBinary_MT extends HoughTransformBinary {
+	// Edge pixels found in each block of rows
+	private final GrowArray<DogArray_I32> threadEdges = new GrowArray<>(DogArray_I32::new);
+	// Votes accumulated by each thread
+	private final GrowArray<DogArray_I32> threadCounts = new GrowArray<>(DogArray_I32::new);
+
 	/**
 	 * Specifies parameters of transform. The minimum number of points specified in the extractor
 	 * is an important tuning parameter.
@@ -39,14 +50,53 @@ public class HoughTransformBinary_MT extends HoughTransformBinary {
 	}
 
 	@Override
-	void computeParameters( GrayU8 binary ) {
-		BoofConcurrency.loopFor(0, binary.height, y -> {
-			int start = binary.startIndex + y*binary.stride;
-			int stop = start + binary.width;
-
-			for (int index = start; index < stop; index++) {
-				if (binary.data[index] != 0) {
-					parameters.parameterize(index - start, y, transform);
+	void findEdgePixels( GrayU8 binary ) {
+		threadEdges.reset();
+		BoofConcurrency.loopBlocks(0, binary.height, threadEdges, ( points, y0, y1 ) -> {
+			points.reset();
+			for (int y = y0; y < y1; y++) {
+				int start = binary.startIndex + y*binary.stride;
+				int stop = start + binary.width;
+
+				for (int index = start; index < stop; index++) {
+					if (binary.data[index] != 0) {
+						points.add(y*binary.width + index - start);
+					}
+				}
+			}
+		});
+
+		// Blocks are in order so the list will be the same as the single thread version
+		for (int i = 0; i < threadEdges.size(); i++) {
+			edges.getPoints().addAll(threadEdges.get(i));
+		}
+	}
+
+	@Override
+	void computeParameters( int width, DogArray_I32 pixels ) {
+		final int N = transform.width*transform.height;
+
+		threadCounts.reset();
+		BoofConcurrency.loopBlocks(0, pixels.size, threadCounts, ( counts, idx0, idx1 ) -> {
+			counts.resize(N);
+			Arrays.fill(counts.data, 0, N, 0);
+
+			for (int i = idx0; i < idx1; i++) {
+				int pixel = pixels.data[i];
+				parameters.parameterize(pixel%width, pixel/width, counts.data);
+			}
+		});
+
+		// Sum up votes from all the threads
+		BoofConcurrency.loopFor(0, transform.height, y -> {
+			int indexTran = transform.startIndex + y*transform.stride;
+			Arrays.fill(transform.data, indexTran, indexTran + transform.width, 0.0f);
+
+			for (int threadIdx = 0; threadIdx < threadCounts.size(); threadIdx++) {
+				int[] counts = threadCounts.get(threadIdx).data;
+				int indexCounts = y*transform.width;
+				for (int x = 0; x < transform.width; x++) {
+					transform.data[indexTran + x] += counts[indexCounts++];
 				}
 			}
 		});
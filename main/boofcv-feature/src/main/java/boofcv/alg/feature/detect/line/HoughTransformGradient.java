@@ -180,6 +180,16 @@ public class HoughTransformGradient<D extends ImageGray<D>> {
 	 * @param derivY gradient of point.
 	 */
 	final protected void parameterize( final ListIntPoint2D candidates, final int x, final int y, float derivX, float derivY ) {
+		parameterize(candidates, transform, x, y, derivX, derivY);
+	}
+
+	/**
+	 * Same as {@link #parameterize(ListIntPoint2D, int, int, float, float)} but with the accumulator specified.
+	 *
+	 * @param accumulator Image which votes are added to. Same shape as the transform.
+	 */
+	final protected void parameterize( final ListIntPoint2D candidates, final GrayF32 accumulator,
+									   final int x, final int y, float derivX, float derivY ) {
 		Point2D_F32 parameter = new Point2D_F32();
 		parameters.parameterize(x, y, derivX, derivY, parameter);
 
@@ -192,20 +202,20 @@ public class HoughTransformGradient<D extends ImageGray<D>> {
 		float wy = parameter.y - y0;
 
 		// make a soft decision and spread counts across neighbors
-		addParameters(candidates, x0, y0, (1f - wx)*(1f - wy));
-		addParameters(candidates, x0 + 1, y0, wx*(1f - wy));
-		addParameters(candidates, x0, y0 + 1, (1f - wx)*wy);
-		addParameters(candidates, x0 + 1, y0 + 1, wx*wy);
+		addParameters(candidates, accumulator, x0, y0, (1f - wx)*(1f - wy));
+		addParameters(candidates, accumulator, x0 + 1, y0, wx*(1f - wy));
+		addParameters(candidates, accumulator, x0, y0 + 1, (1f - wx)*wy);
+		addParameters(candidates, accumulator, x0 + 1, y0 + 1, wx*wy);
 	}
 
-	final protected void addParameters( ListIntPoint2D candidates, int x, int y, float amount ) {
-		if (transform.isInBounds(x, y)) {
-			int index = transform.startIndex + y*transform.stride + x;
+	final protected void addParameters( ListIntPoint2D candidates, GrayF32 accumulator, int x, int y, float amount ) {
+		if (accumulator.isInBounds(x, y)) {
+			int index = accumulator.startIndex + y*accumulator.stride + x;
 			// keep track of candidate pixels so that a sparse search can be done
 			// to detect lines
-			if (transform.data[index] == 0)
+			if (accumulator.data[index] == 0)
 				candidates.add(x, y);
-			transform.data[index] += amount;
+			accumulator.data[index] += amount;
 		}
 	}
 
@@ -19,25 +19,27 @@
 package boofcv.alg.feature.detect.line;
 
 import boofcv.abst.feature.detect.extract.NonMaxSuppression;
+import boofcv.alg.misc.ImageMiscOps;
 import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.ListIntPoint2D;
+import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageGray;
-import georegression.struct.point.Point2D_I32;
+import org.ddogleg.struct.DogArray_I32;
 import pabeles.concurrency.GrowArray;
 
 /**
- * Concurrent version of {@link HoughTransformGradient}
+ * Concurrent version of {@link HoughTransformGradient}. Each thread adds votes to its own accumulator while
+ * keeping track of which coordinates it modified. The sparse set of modified coordinates is then summed into the
+ * transform and the accumulators are zeroed, avoiding the need to fill them every time.
  *
  * @author Peter Abeles
  */
 public class HoughTransformGradient_MT<D extends ImageGray<D>>
 		extends HoughTransformGradient<D> {
 
-	// storage for candidates in each thread's block
-	private final GrowArray<ListIntPoint2D> blockCandidates = new GrowArray<>(ListIntPoint2D::new);
-
-	Point2D_I32 p = new Point2D_I32();
+	// storage for each thread's block
+	private final GrowArray<ThreadData> threadData = new GrowArray<>(ThreadData::new);
 
 	/**
 	 * Specifies parameters of transform.
@@ -51,9 +53,9 @@ public class HoughTransformGradient_MT<D extends ImageGray<D>>
 	@Override
 	void transform( GrayU8 binary ) {
 		candidates.configure(transform.width, transform.height);
-		blockCandidates.reset();
-		BoofConcurrency.loopBlocks(0, binary.height, blockCandidates, ( storage, y0, y1 ) -> {
-			storage.configure(transform.width, transform.height);
+		threadData.reset();
+		BoofConcurrency.loopBlocks(0, binary.height, threadData, ( data, y0, y1 ) -> {
+			data.initialize(transform.width, transform.height);
 			for (int y = y0; y < y1; y++) {
 				int start = binary.startIndex + y*binary.stride;
 				int end = start + binary.width;
@@ -61,19 +63,51 @@ public class HoughTransformGradient_MT<D extends ImageGray<D>>
 				for (int index = start; index < end; index++) {
 					if (binary.data[index] != 0) {
 						int x = index - start;
-						parameterize(storage, x, y, _derivX.unsafe_getF(x, y), _derivY.unsafe_getF(x, y));
+						parameterize(data.candidates, data.accumulator, x, y,
+								_derivX.unsafe_getF(x, y), _derivY.unsafe_getF(x, y));
 					}
 				}
 			}
 		});
 
 		// Combine results found in each thread together
-		for (int i = 0; i < blockCandidates.size(); i++) {
-			ListIntPoint2D s = blockCandidates.get(i);
-			for (int j = 0; j < s.size(); j++) {
-				s.get(j, p);
-				candidates.add(p.x, p.y);
+		for (int i = 0; i < threadData.size(); i++) {
+			ThreadData data = threadData.get(i);
+			DogArray_I32 points = data.candidates.getPoints();
+			GrayF32 accumulator = data.accumulator;
+
+			for (int j = 0; j < points.size; j++) {
+				int pixel = points.data[j];
+				int x = pixel%transform.width;
+				int y = pixel/transform.width;
+
+				int indexAcc = accumulator.startIndex + y*accumulator.stride + x;
+				float amount = accumulator.data[indexAcc];
+				// Zero means it has already been added or there were no votes
+				if (amount == 0.0f)
+					continue;
+				accumulator.data[indexAcc] = 0.0f;
+
+				int indexTran = transform.startIndex + y*transform.stride + x;
+				if (transform.data[indexTran] == 0)
+					candidates.add(x, y);
+				transform.data[indexTran] += amount;
+			}
+		}
+	}
+
+	private static class ThreadData {
+		// Votes from this thread. All values are zero when not in use
+		final GrayF32 accumulator = new GrayF32(1, 1);
+		// Coordinates which have been modified
+		final ListIntPoint2D candidates = new ListIntPoint2D();
+
+		public void initialize( int width, int height ) {
+			if (accumulator.width != width || accumulator.height != height) {
+				accumulator.reshape(width, height);
+				ImageMiscOps.fill(accumulator, 0.0f);
 			}
+			candidates.configure(width, height);
 		}
 	}
 }
@@ -39,5 +39,13 @@ public interface HoughTransformParameters {
 
 	void parameterize( int x, int y, GrayF32 transform );
 
+	/**
+	 * Same as {@link #parameterize(int, int, GrayF32)} but increments an integer accumulator instead. This is
+	 * intended to be used with concurrent implementations where each thread has its own accumulator.
+	 *
+	 * @param accumulator Array which has the same shape as the transform, stored row-major with no padding.
+	 */
+	void parameterize( int x, int y, int[] accumulator );
+
 	void parameterize( int x, int y, float derivX, float derivY, Point2D_F32 parameter );
 }
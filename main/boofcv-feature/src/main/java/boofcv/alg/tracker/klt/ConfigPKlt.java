@@ -60,6 +60,13 @@ public class ConfigPKlt implements Configuration {
 	 */
 	public ConfigLength maximumTracks = ConfigLength.relative(0.002, 50);
 
+	/**
+	 * If true then when spawning new tracks, features are only detected inside of grid cells which contain no
+	 * active tracks. This can significantly reduce the cost of spawning when most of the image is already covered.
+	 * Only used when there's a maximum number of tracks.
+	 */
+	public boolean spawnInEmptyCells = false;
+
 	public ConfigPKlt() {}
 
 	public ConfigPKlt( int templateRadius ) {
@@ -88,6 +95,7 @@ public class ConfigPKlt implements Configuration {
 		this.pyramidLevels.setTo(src.pyramidLevels);
 		this.pruneClose = src.pruneClose;
 		this.maximumTracks.setTo(src.maximumTracks);
+		this.spawnInEmptyCells = src.spawnInEmptyCells;
 	}
 
 	public ConfigPKlt copy() {
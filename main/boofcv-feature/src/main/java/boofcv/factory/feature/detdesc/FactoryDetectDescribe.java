@@ -21,6 +21,7 @@ package boofcv.factory.feature.detdesc;
 import boofcv.abst.feature.convert.ConvertTupleDesc;
 import boofcv.abst.feature.describe.ConfigSurfDescribe;
 import boofcv.abst.feature.describe.DescribePointRadiusAngle;
+import boofcv.abst.feature.describe.DescribePointSharedImage;
 import boofcv.abst.feature.detdesc.*;
 import boofcv.abst.feature.detect.interest.ConfigFastHessian;
 import boofcv.abst.feature.detect.interest.InterestPointDetector;
@@ -45,6 +46,7 @@ import boofcv.factory.feature.detect.interest.FactoryInterestPoint;
 import boofcv.factory.feature.detect.interest.FactoryInterestPointAlgs;
 import boofcv.factory.feature.orientation.FactoryOrientation;
 import boofcv.factory.feature.orientation.FactoryOrientationAlgs;
+import boofcv.misc.BoofLambdas;
 import boofcv.struct.feature.TupleDesc;
 import boofcv.struct.feature.TupleDesc_F64;
 import boofcv.struct.image.ImageGray;
@@ -96,7 +98,7 @@ public class FactoryDetectDescribe {
 			}
 			default -> throw new IllegalArgumentException("Unknown detector");
 		}
-		DescribePointRadiusAngle descriptor = switch (config.typeDescribe) {
+		BoofLambdas.Factory<DescribePointRadiusAngle> factoryDescribe = () -> switch (config.typeDescribe) {
 			case SURF_FAST -> FactoryDescribePointRadiusAngle.surfFast(config.describeSurfFast, imageType);
 			case SURF_STABLE -> FactoryDescribePointRadiusAngle.surfStable(config.describeSurfStability, imageType);
 			case SIFT -> FactoryDescribePointRadiusAngle.sift(config.scaleSpaceSift, config.describeSift, imageType);
@@ -104,6 +106,7 @@ public class FactoryDetectDescribe {
 			case TEMPLATE -> FactoryDescribePointRadiusAngle.template(config.describeTemplate, imageType);
 			default -> throw new IllegalArgumentException("Unknown descriptor");
 		};
+		DescribePointRadiusAngle descriptor = factoryDescribe.newInstance();
 
 		OrientationImage orientation = null;
 
@@ -118,6 +121,16 @@ public class FactoryDetectDescribe {
 			// TODO move into FactoryOrientation
 		}
 
+		// SIFT and SURF process the entire image when the image is set and BRIEF blurs the entire image. They share
+		// the processed image with the describer in each thread. Template descriptors only reference the image.
+		boolean describeConcurrent = config.typeDescribe == ConfigDescribeRegion.Type.TEMPLATE ||
+				descriptor instanceof DescribePointSharedImage;
+
+		if (BoofConcurrency.USE_CONCURRENT && describeConcurrent) {
+			return convertDesc(config.convertDescriptor,
+					new DetectDescribeFusion_MT(detector, orientation, factoryDescribe));
+		}
+
 		return convertDesc(config.convertDescriptor, FactoryDetectDescribe.fuseTogether(detector, orientation, descriptor));
 	}
 
@@ -333,4 +346,27 @@ public class FactoryDetectDescribe {
 											 DescribePointRadiusAngle<T, TD> describe ) {
 		return new DetectDescribeFusion<>(detector, orientation, describe);
 	}
+
+	/**
+	 * Given independent algorithms for feature detection, orientation, and describing, create a new
+	 * {@link DetectDescribePoint}. If concurrency is enabled then features will be described in parallel
+	 * with each thread having its own describer. Describers which process the entire image should implement
+	 * {@link DescribePointSharedImage}, otherwise the image will be processed again in each thread.
+	 *
+	 * @param detector Feature detector
+	 * @param orientation Orientation estimation. Optionally, can be null.
+	 * @param factoryDescribe Creates new instances of the feature descriptor
+	 * @return {@link DetectDescribePoint}.
+	 * @see DetectDescribeFusion_MT
+	 */
+	public static <T extends ImageGray<T>, TD extends TupleDesc<TD>>
+	DetectDescribePoint<T, TD> fuseTogether( InterestPointDetector<T> detector,
+											 @Nullable OrientationImage<T> orientation,
+											 BoofLambdas.Factory<DescribePointRadiusAngle<T, TD>> factoryDescribe ) {
+		if (BoofConcurrency.USE_CONCURRENT) {
+			return new DetectDescribeFusion_MT<>(detector, orientation, factoryDescribe);
+		} else {
+			return new DetectDescribeFusion<>(detector, orientation, factoryDescribe.newInstance());
+		}
+	}
 }
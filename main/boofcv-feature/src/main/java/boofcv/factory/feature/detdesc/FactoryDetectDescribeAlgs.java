@@ -53,9 +53,11 @@ public class FactoryDetectDescribeAlgs {
 		SiftDetector detector = FactoryInterestPointAlgs.sift(configDetector);
 		detector.maxFeaturesAll = configDetector.maxFeaturesAll;
 
+		CompleteSift alg;
+
 		// Create the threaded variant if requested
 		if (BoofConcurrency.USE_CONCURRENT) {
-			return new CompleteSift_MT(ss, detector,
+			alg = new CompleteSift_MT(ss, detector,
 					() -> new OrientationHistogramSift<>(
 							configOri.histogramSize, configOri.sigmaEnlarge, GrayF32.class),
 					() -> new DescribePointSift<>(
@@ -71,7 +73,9 @@ public class FactoryDetectDescribeAlgs {
 					configDesc.sigmaToPixels, configDesc.weightingSigmaFraction,
 					configDesc.maxDescriptorElementValue, GrayF32.class);
 
-			return new CompleteSift(ss, detector, orientation, describe);
+			alg = new CompleteSift(ss, detector, orientation, describe);
 		}
+		alg.setStreaming(config.streaming);
+		return alg;
 	}
 }
@@ -26,6 +26,7 @@ import boofcv.alg.feature.detect.selector.FeatureSelectLimitIntensity;
 import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.feature.detect.selector.ConfigSelectLimit;
 import boofcv.factory.feature.detect.selector.FactorySelectLimit;
+import boofcv.struct.ConfigGridUniform;
 import boofcv.struct.image.ImageGray;
 import georegression.struct.point.Point2D_I16;
 import org.jetbrains.annotations.Nullable;
@@ -107,6 +108,44 @@ public class FactoryFeatureExtractor {
 		return new WrapperNonMaximumBlock(alg);
 	}
 
+	/**
+	 * Non-max feature extractor which also selects the best features uniformly across the image in a single pass.
+	 * Only one of local minimums or local maximums can be detected.
+	 *
+	 * @param config Configuration for extractor
+	 * @param configUniform Configuration for the grid features are selected across. Nullable.
+	 * @return A feature extractor.
+	 */
+	public static NonMaxBlockSelectUniform nonmaxSelectUniform( @Nullable ConfigExtract config,
+																@Nullable ConfigGridUniform configUniform ) {
+		if (config == null)
+			config = new ConfigExtract();
+		config.checkValidity();
+
+		if (config.detectMaximums == config.detectMinimums)
+			throw new IllegalArgumentException("Must detect either minimums or maximums but not both");
+
+		NonMaxBlock.Search search;
+		if (config.useStrictRule) {
+			search = config.detectMaximums ? new NonMaxBlockSearchStrict.Max() : new NonMaxBlockSearchStrict.Min();
+		} else {
+			search = config.detectMaximums ? new NonMaxBlockSearchRelaxed.Max() : new NonMaxBlockSearchRelaxed.Min();
+		}
+
+		// See if the user wants to use threaded code or not
+		NonMaxBlockSelectUniform alg = BoofConcurrency.USE_CONCURRENT ?
+				new NonMaxBlockSelectUniform_MT(search) : new NonMaxBlockSelectUniform(search);
+
+		alg.setSearchRadius(config.radius);
+		alg.setThresholdMax(config.threshold);
+		alg.setThresholdMin(-config.threshold);
+		alg.setBorder(config.ignoreBorder);
+		if (configUniform != null)
+			alg.configUniform.setTo(configUniform);
+
+		return alg;
+	}
+
 	/**
 	 * Non-max feature extractor which saves a candidate list of all the found local maximums..
 	 *
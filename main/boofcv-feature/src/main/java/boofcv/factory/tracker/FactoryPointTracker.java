@@ -169,6 +169,7 @@ public class FactoryPointTracker {
 				config.templateRadius, config.pruneClose, pyramid, detector,
 				gradient, interpInput, interpDeriv, derivType);
 		ret.configMaxTracks = config.maximumTracks;
+		ret.spawnInEmptyCells = config.spawnInEmptyCells;
 		return ret;
 	}
 
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.feature.detdesc;
+
+import boofcv.abst.feature.describe.ConfigBrief;
+import boofcv.abst.feature.describe.ConfigTemplateDescribe;
+import boofcv.abst.feature.describe.DescribePointRadiusAngle;
+import boofcv.abst.feature.describe.DescribePointRadiusAngleAbstract;
+import boofcv.abst.feature.detect.interest.InterestPointDetector;
+import boofcv.abst.feature.orientation.OrientationImage;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
+import boofcv.factory.feature.describe.FactoryDescribePointRadiusAngle;
+import boofcv.factory.feature.detect.interest.FactoryInterestPoint;
+import boofcv.factory.feature.orientation.FactoryOrientationAlgs;
+import boofcv.struct.feature.TupleDesc;
+import boofcv.struct.feature.TupleDesc_F32;
+import boofcv.struct.feature.TupleDesc_F64;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageType;
+import georegression.struct.point.Point2D_F64;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestDetectDescribeFusion_MT extends GenericTestsDetectDescribePoint<GrayF32, TupleDesc_F32> {
+	TestDetectDescribeFusion_MT() {
+		super(true, true, ImageType.single(GrayF32.class), TupleDesc_F32.class);
+	}
+
+	@Override
+	public DetectDescribePoint<GrayF32, TupleDesc_F32> createDetDesc() {
+		return createDetDesc(true);
+	}
+
+	/**
+	 * Uses a template descriptor since that's what FactoryDetectDescribe will run concurrently
+	 */
+	public DetectDescribeFusion<GrayF32, TupleDesc_F32> createDetDesc( boolean concurrent ) {
+		InterestPointDetector<GrayF32> detector = FactoryInterestPoint.fastHessian(null, GrayF32.class);
+		OrientationImage<GrayF32> ori = FactoryOrientationAlgs.nogradient(1.0/2.0, 5, GrayF32.class);
+
+		var config = new ConfigTemplateDescribe();
+		config.type = ConfigTemplateDescribe.Type.PIXEL;
+
+		if (concurrent) {
+			var alg = new DetectDescribeFusion_MT<GrayF32, TupleDesc_F32>(detector, ori,
+					() -> FactoryDescribePointRadiusAngle.template(config, GrayF32.class));
+			// force it to always use the concurrent code
+			alg.minimumDetectionsThread = 0;
+			return alg;
+		} else {
+			DescribePointRadiusAngle<GrayF32, TupleDesc_F32> desc =
+					FactoryDescribePointRadiusAngle.template(config, GrayF32.class);
+			return new DetectDescribeFusion<>(detector, ori, desc);
+		}
+	}
+
+	/**
+	 * Results should be identical to the single thread version, including the order
+	 */
+	@Test void compareToSingleThread() {
+		BoofConcurrency.USE_CONCURRENT = true;
+
+		DetectDescribePoint<GrayF32, TupleDesc_F32> algA = createDetDesc(false);
+		DetectDescribePoint<GrayF32, TupleDesc_F32> algB = createDetDesc(true);
+
+		var image = new GrayF32(400, 300);
+		GImageMiscOps.fillUniform(image, rand, 0, 100);
+
+		algA.detect(image);
+		algB.detect(image);
+
+		int N = algA.getNumberOfFeatures();
+		assertTrue(N > 50);
+		assertEquals(N, algB.getNumberOfFeatures());
+
+		for (int i = 0; i < N; i++) {
+			assertEquals(0.0, algA.getLocation(i).distance(algB.getLocation(i)));
+			assertEquals(algA.getRadius(i), algB.getRadius(i));
+			assertEquals(algA.getOrientation(i), algB.getOrientation(i));
+
+			TupleDesc_F32 a = algA.getDescription(i);
+			TupleDesc_F32 b = algB.getDescription(i);
+			for (int k = 0; k < a.size(); k++) {
+				assertEquals(a.data[k], b.data[k]);
+			}
+		}
+	}
+
+	/**
+	 * Describers which process the entire image share the processed image between threads. Results should
+	 * be identical to the single thread version.
+	 */
+	@Test void sharedImage() {
+		BoofConcurrency.USE_CONCURRENT = true;
+
+		compareToSingleThread(() -> FactoryDescribePointRadiusAngle.brief(new ConfigBrief(true), GrayF32.class));
+		compareToSingleThread(() -> FactoryDescribePointRadiusAngle.brief(new ConfigBrief(false), GrayF32.class));
+		compareToSingleThread(() -> FactoryDescribePointRadiusAngle.surfFast(null, GrayF32.class));
+		compareToSingleThread(() -> FactoryDescribePointRadiusAngle.sift(null, null, GrayF32.class));
+	}
+
+	private <TD extends TupleDesc<TD>>
+	void compareToSingleThread( BoofLambdas.Factory<DescribePointRadiusAngle<GrayF32, TD>> factory ) {
+		InterestPointDetector<GrayF32> detector = FactoryInterestPoint.fastHessian(null, GrayF32.class);
+
+		var algA = new DetectDescribeFusion<>(detector, null, factory.newInstance());
+		var algB = new DetectDescribeFusion_MT<>(detector, null, factory);
+		algB.minimumDetectionsThread = 0;
+		assertTrue(algB.sharedImage);
+
+		var image = new GrayF32(400, 300);
+		GImageMiscOps.fillUniform(image, rand, 0, 100);
+
+		algA.detect(image);
+		algB.detect(image);
+
+		int N = algA.getNumberOfFeatures();
+		assertTrue(N > 50);
+		assertEquals(N, algB.getNumberOfFeatures());
+		for (int i = 0; i < N; i++) {
+			TD a = algA.getDescription(i);
+			TD b = algB.getDescription(i);
+			for (int k = 0; k < a.size(); k++) {
+				assertEquals(a.getDouble(k), b.getDouble(k));
+			}
+		}
+	}
+
+	/**
+	 * Features which can't be described need to be removed without messing up the order
+	 */
+	@Test void featuresNotDescribed() {
+		var detector = new TestDetectDescribeFusion.DummyDetector() {
+			@Override public Point2D_F64 getLocation( int featureIndex ) {
+				return new Point2D_F64(featureIndex, 0);
+			}
+		};
+		var alg = new DetectDescribeFusion_MT<GrayF32, TupleDesc_F64>(detector, null, DummyDescribe::new);
+		alg.minimumDetectionsThread = 0;
+
+		alg.detect(new GrayF32(2, 2));
+
+		// one feature should not be inside the image
+		assertEquals(9, alg.getNumberOfFeatures());
+
+		for (int i = 0; i < 9; i++) {
+			assertEquals(i < 5 ? i : i + 1, alg.getLocation(i).x);
+			assertEquals(2, alg.getRadius(i), 1e-8);
+			assertEquals(1, alg.getOrientation(i), 1e-8);
+		}
+	}
+
+	/**
+	 * Fails to describe the feature at x = 5
+	 */
+	private static class DummyDescribe extends DescribePointRadiusAngleAbstract<GrayF32, TupleDesc_F64> {
+		@Override public boolean process( double x, double y, double orientation, double radius,
+										  TupleDesc_F64 description ) {
+			return x != 5;
+		}
+
+		@Override public TupleDesc_F64 createDescription() {return new TupleDesc_F64(10);}
+	}
+}
@@ -25,12 +25,12 @@ import boofcv.abst.tracker.PointTrackerKltPyramid.PointTrackMod;
 import boofcv.alg.misc.GImageMiscOps;
 import boofcv.alg.tracker.klt.*;
 import boofcv.factory.tracker.FactoryPointTracker;
+import boofcv.struct.ImageRectangle;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.pyramid.ConfigDiscreteLevels;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author Peter Abeles
@@ -178,6 +178,72 @@ class TestPointTrackerKltPyramid extends GenericChecksPointTracker<GrayF32> {
 		assertTrue(alg.getActiveTracks(null).size() < originalTotal/30);
 	}
 
+	/**
+	 * When only spawning in empty cells, new tracks should not be inside of cells with active tracks
+	 */
+	@Test void spawnInEmptyCells() {
+		var config = new ConfigPKlt();
+		config.maximumTracks.setFixed(200);
+		config.spawnInEmptyCells = true;
+
+		PointTrackerKltPyramid<GrayF32, GrayF32> alg = createKLT(config);
+
+		// no tracks so it should spawn everywhere
+		alg.process(image);
+		alg.spawnTracks();
+		int total = alg.active.size();
+		assertTrue(total > 50);
+
+		// Drop all tracks on the left side of the image
+		alg.dropTracks(track -> track.pixel.x < image.width/2);
+		int remaining = alg.active.size();
+		assertTrue(remaining < total);
+
+		// Save the cells which are occupied
+		int cellLength = alg.configSpawnGrid.selectTargetCellSize(200, image.width, image.height);
+		int cols = (image.width + cellLength - 1)/cellLength;
+		var occupied = new boolean[cols*((image.height + cellLength - 1)/cellLength)];
+		for (PyramidKltFeature f : alg.active) {
+			occupied[((int)f.y/cellLength)*cols + (int)f.x/cellLength] = true;
+		}
+
+		alg.spawnTracks();
+		assertTrue(alg.spawned.size() > 0);
+		for (PyramidKltFeature f : alg.spawned) {
+			assertFalse(occupied[((int)f.y/cellLength)*cols + (int)f.x/cellLength]);
+		}
+	}
+
+	/**
+	 * Empty cells in the same row should be merged into a single region
+	 */
+	@Test void findEmptyRegions() {
+		PointTrackerKltPyramid<GrayF32, GrayF32> alg = createKLT(new ConfigPKlt());
+
+		// 4 by 3 grid with a cell length of 10
+		alg.configSpawnGrid.regionScaleFactor = 1.0;
+		alg.configSpawnGrid.minCellLength = 10;
+		alg.excludeList.reset();
+		alg.excludeList.append(15, 5);
+		alg.excludeList.append(35, 25);
+
+		alg.findEmptyRegions(40, 25, 1000);
+
+		assertEquals(4, alg.spawnRegions.size);
+		checkRegion(alg.spawnRegions.get(0), 0, 0, 10, 10);
+		checkRegion(alg.spawnRegions.get(1), 20, 0, 40, 10);
+		checkRegion(alg.spawnRegions.get(2), 0, 10, 40, 20);
+		// the second point is outside the image and should be clamped into the last cell
+		checkRegion(alg.spawnRegions.get(3), 0, 20, 30, 25);
+	}
+
+	private void checkRegion( ImageRectangle r, int x0, int y0, int x1, int y1 ) {
+		assertEquals(x0, r.x0);
+		assertEquals(y0, r.y0);
+		assertEquals(x1, r.x1);
+		assertEquals(y1, r.y1);
+	}
+
 	private PointTrackerKltPyramid<GrayF32, GrayF32> createKLT( ConfigPKlt config ) {
 		var configDetector = new ConfigPointDetector();
 		configDetector.type = PointDetectorTypes.SHI_TOMASI;
@@ -21,6 +21,7 @@ package boofcv.alg.feature.detdesc;
 import boofcv.abst.feature.detect.extract.ConfigExtract;
 import boofcv.abst.feature.detect.extract.NonMaxLimiter;
 import boofcv.abst.feature.detect.extract.NonMaxSuppression;
+import boofcv.alg.descriptor.DescriptorDistance;
 import boofcv.alg.feature.describe.DescribePointSift;
 import boofcv.alg.feature.detect.interest.SiftDetector;
 import boofcv.alg.feature.detect.interest.SiftScaleSpace;
@@ -91,6 +92,49 @@ public class TestCompleteSift extends BoofStandardJUnit {
 		assertEquals( alg.getLocations().size, alg.getDescriptions().size);
 	}
 
+	/**
+	 * Processing one octave at a time should produce identical results
+	 */
+	@Test void streaming() {
+		GrayF32 image = new GrayF32(300, 290);
+		GImageMiscOps.fillUniform(image, rand, 0, 200);
+
+		// Without a limit features are described as each octave is processed. With a limit they are described
+		// after they have all been selected
+		for (int maxAll : new int[]{-1, 50}) {
+			CompleteSift expected = createAlg();
+			CompleteSift alg = createAlg();
+			expected.detector.maxFeaturesAll = maxAll;
+			alg.detector.maxFeaturesAll = maxAll;
+			alg.setStreaming(true);
+
+			expected.process(image);
+			alg.process(image);
+
+			checkIdentical(expected, alg);
+		}
+	}
+
+	public static void checkIdentical( CompleteSift expected, CompleteSift found ) {
+		int N = expected.getLocations().size;
+		assertTrue(N > 10);
+		assertEquals(N, found.getLocations().size);
+		assertEquals(N, found.getOrientations().size);
+		assertEquals(N, found.getDescriptions().size);
+
+		for (int i = 0; i < N; i++) {
+			ScalePoint e = expected.getLocations().get(i);
+			ScalePoint f = found.getLocations().get(i);
+
+			assertEquals(e.intensity, f.intensity);
+			assertEquals(e.scale, f.scale);
+			assertEquals(0.0, e.pixel.distance(f.pixel));
+			assertEquals(expected.getOrientations().get(i), found.getOrientations().get(i));
+			assertEquals(0.0, DescriptorDistance.euclidean(
+					expected.getDescriptions().get(i), found.getDescriptions().get(i)));
+		}
+	}
+
 	private CompleteSift createAlg() {
 		SiftScaleSpace ss = new SiftScaleSpace(-1, 4, 3, 1.6);
 
@@ -75,4 +75,28 @@ public class TestCompleteSift_MT extends BoofStandardJUnit {
 			assertEquals(0.0, DescriptorDistance.euclidean(sd,md));
 		}
 	}
+
+	/**
+	 * Processing one octave at a time should produce the same results as the single threaded version
+	 */
+	@Test void compareToSingleThread_Streaming() {
+		GrayF32 image = new GrayF32(300, 290);
+		GImageMiscOps.fillUniform(image, rand, 0, 200);
+
+		for (int maxAll : new int[]{-1, 500}) {
+			config.detector.maxFeaturesAll = maxAll;
+
+			BoofConcurrency.USE_CONCURRENT = false;
+			CompleteSift single = FactoryDetectDescribeAlgs.sift(config);
+			BoofConcurrency.USE_CONCURRENT = true;
+			config.streaming = true;
+			CompleteSift multi = FactoryDetectDescribeAlgs.sift(config);
+			config.streaming = false;
+
+			single.process(image);
+			multi.process(image);
+
+			TestCompleteSift.checkIdentical(single, multi);
+		}
+	}
 }
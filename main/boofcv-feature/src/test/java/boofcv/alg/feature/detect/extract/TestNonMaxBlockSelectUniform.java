@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2020, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.feature.detect.extract;
+
+import boofcv.abst.feature.detect.extract.ConfigExtract;
+import boofcv.alg.feature.detect.selector.FeatureSelectUniformBest;
+import boofcv.alg.feature.detect.selector.SampleIntensityImage;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.errors.BoofCheckFailure;
+import boofcv.factory.feature.detect.extract.FactoryFeatureExtractor;
+import boofcv.struct.QueueCorner;
+import boofcv.struct.image.GrayF32;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.point.Point2D_I16;
+import org.ddogleg.struct.FastArray;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestNonMaxBlockSelectUniform extends BoofStandardJUnit {
+
+	GrayF32 intensity = new GrayF32(120, 100);
+
+	/**
+	 * Compare against running non-maximum suppression and then selecting features. If the cells have enough
+	 * capacity the same features should be selected
+	 */
+	@Test void compareToSelectUniformBest() {
+		ImageMiscOps.fillUniform(intensity, rand, -1.0f, 1.0f);
+
+		for (boolean positive : new boolean[]{true, false}) {
+			for (int limit : new int[]{1, 20, 60, 2000}) {
+				compareToSelectUniformBest(positive, limit, null);
+
+				// Add a few prior features
+				var prior = new QueueCorner();
+				prior.append(5, 6);
+				prior.append(100, 80);
+				prior.append(101, 81);
+				compareToSelectUniformBest(positive, limit, prior);
+			}
+		}
+	}
+
+	void compareToSelectUniformBest( boolean positive, int limit, @Nullable QueueCorner prior ) {
+		ConfigExtract config = positive ? ConfigExtract.max(2, 0.0f, 1, true) : ConfigExtract.min(2, 0.0f, 1, true);
+
+		NonMaxBlockSelectUniform alg = FactoryFeatureExtractor.nonmaxSelectUniform(config, null);
+		alg.cellCapacityScale = 1000;
+		var found = new QueueCorner();
+		alg.process(intensity, prior, positive, limit, found);
+
+		// Create the expected solution
+		var nonmax = new NonMaxBlock(positive ? new NonMaxBlockSearchStrict.Max() : new NonMaxBlockSearchStrict.Min());
+		nonmax.setSearchRadius(config.radius);
+		nonmax.setThresholdMax(config.threshold);
+		nonmax.setThresholdMin(-config.threshold);
+		nonmax.setBorder(config.ignoreBorder);
+		var all = new QueueCorner();
+		nonmax.process(intensity, positive ? null : all, positive ? all : null);
+
+		var selector = new FeatureSelectUniformBest<>(new SampleIntensityImage.I16());
+		var expected = new FastArray<>(Point2D_I16.class);
+		selector.select(intensity, -1, -1, positive, prior, all, limit, expected);
+
+		assertTrue(found.size > 0);
+		assertEquals(expected.size, found.size);
+
+		// Order isn't specified by the selector
+		for (int i = 0; i < expected.size; i++) {
+			Point2D_I16 e = expected.get(i);
+			assertTrue(contains(found, e.x, e.y));
+		}
+	}
+
+	/**
+	 * When the cells are full the most intense features should be kept and the limit should never be exceeded
+	 */
+	@Test void limitedCapacity() {
+		ImageMiscOps.fillUniform(intensity, rand, -1.0f, 1.0f);
+
+		NonMaxBlockSelectUniform alg = FactoryFeatureExtractor.nonmaxSelectUniform(null, null);
+		alg.cellCapacityScale = 1.0;
+		var found = new QueueCorner();
+		alg.process(intensity, null, true, 50, found);
+
+		assertTrue(found.size > 20);
+		assertTrue(found.size <= 50);
+
+		// every selected feature should be a local maximum
+		var all = new QueueCorner();
+		var nonmax = new NonMaxBlock(new NonMaxBlockSearchStrict.Max());
+		nonmax.process(intensity, null, all);
+		for (int i = 0; i < found.size; i++) {
+			Point2D_I16 p = found.get(i);
+			assertTrue(contains(all, p.x, p.y));
+		}
+	}
+
+	/**
+	 * The concurrent implementation should produce identical results, including order
+	 */
+	@Test void compareToConcurrent() {
+		ImageMiscOps.fillUniform(intensity, rand, -1.0f, 1.0f);
+
+		BoofConcurrency.USE_CONCURRENT = false;
+		NonMaxBlockSelectUniform algA = FactoryFeatureExtractor.nonmaxSelectUniform(null, null);
+		BoofConcurrency.USE_CONCURRENT = true;
+		NonMaxBlockSelectUniform algB = FactoryFeatureExtractor.nonmaxSelectUniform(null, null);
+		assertTrue(algB instanceof NonMaxBlockSelectUniform_MT);
+
+		var foundA = new QueueCorner();
+		var foundB = new QueueCorner();
+
+		for (int limit : new int[]{5, 50, 500}) {
+			algA.process(intensity, null, true, limit, foundA);
+			algB.process(intensity, null, true, limit, foundB);
+
+			assertEquals(foundA.size, foundB.size);
+			for (int i = 0; i < foundA.size; i++) {
+				assertEquals(foundA.get(i).x, foundB.get(i).x);
+				assertEquals(foundA.get(i).y, foundB.get(i).y);
+			}
+		}
+	}
+
+	/**
+	 * Searching for minimums with a search that can only detect maximums is an error
+	 */
+	@Test void wrongSearchType() {
+		var alg = new NonMaxBlockSelectUniform(new NonMaxBlockSearchStrict.Max());
+		assertThrows(BoofCheckFailure.class,
+				() -> alg.process(intensity, null, false, 10, new QueueCorner()));
+	}
+
+	private static boolean contains( QueueCorner list, int x, int y ) {
+		for (int i = 0; i < list.size; i++) {
+			Point2D_I16 p = list.get(i);
+			if (p.x == x && p.y == y)
+				return true;
+		}
+		return false;
+	}
+}
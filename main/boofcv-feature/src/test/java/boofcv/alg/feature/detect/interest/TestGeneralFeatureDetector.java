@@ -23,13 +23,22 @@ import boofcv.abst.feature.detect.extract.NonMaxSuppression;
 import boofcv.abst.feature.detect.intensity.GeneralFeatureIntensity;
 import boofcv.alg.feature.detect.selector.FeatureSelectLimitIntensity;
 import boofcv.alg.feature.detect.selector.FeatureSelectNBest;
+import boofcv.abst.feature.detect.interest.ConfigPointDetector;
+import boofcv.abst.feature.detect.interest.PointDetectorTypes;
 import boofcv.alg.feature.detect.selector.SampleIntensityImage;
+import boofcv.alg.filter.derivative.DerivativeType;
+import boofcv.alg.filter.derivative.GImageDerivativeOps;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.feature.detect.interest.FactoryDetectPoint;
+import boofcv.struct.ImageRectangle;
 import boofcv.factory.feature.detect.extract.FactoryFeatureExtractor;
 import boofcv.struct.ListIntPoint2D;
 import boofcv.struct.QueueCorner;
+import boofcv.struct.border.BorderType;
 import boofcv.struct.image.GrayF32;
 import boofcv.testing.BoofStandardJUnit;
 import georegression.struct.point.Point2D_I16;
+import org.ddogleg.struct.DogArray;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -287,6 +296,77 @@ class TestGeneralFeatureDetector extends BoofStandardJUnit {
 		assertTrue(detector.isDetectMaximums());
 	}
 
+	/**
+	 * Restricting detection to regions should produce the same features as processing the entire image and
+	 * then only keeping the ones inside the regions
+	 */
+	@Test void regions() {
+		regions(-1);
+	}
+
+	/**
+	 * Same as {@link #regions()}, but the extractor ignores a larger border than the intensity does
+	 */
+	@Test void regions_extractorBorder() {
+		regions(6);
+	}
+
+	/**
+	 * @param extractorBorder If &ge; 0 then the extractor's ignore border is set to this value
+	 */
+	void regions( int extractorBorder ) {
+		var image = new GrayF32(80, 70);
+		ImageMiscOps.fillUniform(image, rand, 0, 200);
+		GrayF32 derivX = image.createSameShape();
+		GrayF32 derivY = image.createSameShape();
+		GImageDerivativeOps.gradient(DerivativeType.SOBEL, image, derivX, derivY, BorderType.EXTENDED);
+
+		var config = new ConfigPointDetector();
+		config.type = PointDetectorTypes.SHI_TOMASI;
+		config.general.radius = 2;
+		config.general.threshold = 1.0f;
+		config.general.maxFeatures = -1;
+		GeneralFeatureDetector<GrayF32, GrayF32> detector = FactoryDetectPoint.create(config, GrayF32.class, GrayF32.class);
+		if (extractorBorder >= 0) {
+			assertTrue(extractorBorder > detector.getExtractorMax().getIgnoreBorder());
+			detector.getExtractorMax().setIgnoreBorder(extractorBorder);
+		}
+
+		// Process the whole image
+		detector.process(image, derivX, derivY, null, null, null);
+		var expected = new QueueCorner();
+		expected.appendAll(detector.getMaximums());
+
+		// Restrict it to two regions. One is at the image border
+		var regions = new DogArray<>(ImageRectangle::new);
+		regions.grow().setTo(10, 12, 40, 30);
+		regions.grow().setTo(50, 40, 80, 70);
+		detector.setRegions(regions);
+		detector.process(image, derivX, derivY, null, null, null);
+		QueueCorner found = detector.getMaximums();
+
+		int total = 0;
+		for (int i = 0; i < expected.size; i++) {
+			Point2D_I16 p = expected.get(i);
+			boolean inside = false;
+			for (int regionIdx = 0; regionIdx < regions.size; regionIdx++) {
+				ImageRectangle r = regions.get(regionIdx);
+				inside |= p.x >= r.x0 && p.x < r.x1 && p.y >= r.y0 && p.y < r.y1;
+			}
+			if (!inside)
+				continue;
+			total++;
+
+			boolean matched = false;
+			for (int j = 0; j < found.size; j++) {
+				matched |= found.get(j).x == p.x && found.get(j).y == p.y;
+			}
+			assertTrue(matched);
+		}
+		assertTrue(total > 5);
+		assertEquals(total, found.size);
+	}
+
 	public static class HelperExtractor implements NonMaxSuppression {
 
 		boolean usesCandidates;
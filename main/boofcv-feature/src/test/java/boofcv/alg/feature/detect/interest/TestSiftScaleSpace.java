@@ -18,6 +18,7 @@
 
 package boofcv.alg.feature.detect.interest;
 
+import boofcv.BoofTesting;
 import boofcv.alg.filter.blur.GBlurImageOps;
 import boofcv.alg.misc.GImageMiscOps;
 import boofcv.struct.image.GrayF32;
@@ -118,6 +119,38 @@ public class TestSiftScaleSpace extends BoofStandardJUnit {
 		return averageError;
 	}
 
+	/**
+	 * Processing one octave at a time should produce identical images to processing them all at once
+	 */
+	@Test void processOneOctaveAtATime() {
+		GrayF32 original = new GrayF32(300, 340);
+		GImageMiscOps.fillUniform(original, rand, 0, 100);
+
+		for (int firstOctave = -1; firstOctave <= 1; firstOctave++) {
+			var expected = new SiftScaleSpace(firstOctave, 3, 3, 1.6);
+			var alg = new SiftScaleSpace(firstOctave, 3, 3, 1.6);
+			expected.process(original);
+
+			int count = 0;
+			alg.processFirstOctave(original);
+			do {
+				assertEquals(count, alg.getCurrentOctaveIdx());
+				SiftScaleSpace.Octave e = expected.octaves[count];
+				SiftScaleSpace.Octave f = alg.getCurrentOctave();
+
+				for (int i = 0; i < e.scales.length; i++) {
+					BoofTesting.assertEquals(e.scales[i], f.scales[i], 0.0);
+				}
+				for (int i = 0; i < e.differenceOfGaussian.length; i++) {
+					BoofTesting.assertEquals(e.differenceOfGaussian[i], f.differenceOfGaussian[i], 0.0);
+				}
+				count++;
+			} while (alg.processNextOctave());
+
+			assertEquals(expected.getTotalOctaves(), count);
+		}
+	}
+
 	/**
 	 * The number of octaves would make the input image too small. See if it blows up.
 	 */
@@ -18,6 +18,10 @@
 
 package boofcv.alg.feature.detect.line;
 
+import boofcv.BoofTesting;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.struct.ListIntPoint2D;
+import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.GrayU8;
 import boofcv.testing.BoofStandardJUnit;
 import georegression.struct.line.LineParametric2D_F32;
@@ -62,4 +66,52 @@ public abstract class CommonHoughBinaryChecks extends BoofStandardJUnit {
 			assertEquals(1,Math.abs(l.slope.y),0.1);
 		}
 	}
+
+	/**
+	 * Compare the transform against directly computing it using the parameterization. Counts should be identical
+	 */
+	@Test void compareTransformToParameterize() {
+		var image = new GrayU8(width, height);
+		ImageMiscOps.fillUniform(image, rand, 0, 2);
+
+		HoughTransformBinary alg = createAlgorithm();
+		alg.transform(image);
+
+		var expected = new GrayF32(1, 1);
+		HoughTransformParameters parameters = alg.getParameters();
+		parameters.initialize(width, height, expected);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (image.get(x, y) != 0)
+					parameters.parameterize(x, y, expected);
+			}
+		}
+
+		BoofTesting.assertEquals(expected, alg.getTransform(), 0.0);
+	}
+
+	/**
+	 * Providing edges as a sparse list should produce the same results as a binary image
+	 */
+	@Test void sparseEdgeList() {
+		var image = new GrayU8(width, height);
+		ImageMiscOps.fillUniform(image, rand, 0, 2);
+
+		var edges = new ListIntPoint2D();
+		edges.configure(width, height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (image.get(x, y) != 0)
+					edges.add(x, y);
+			}
+		}
+
+		HoughTransformBinary algA = createAlgorithm();
+		HoughTransformBinary algB = createAlgorithm();
+		algA.transform(image);
+		algB.transform(width, height, edges);
+
+		BoofTesting.assertEquals(algA.getTransform(), algB.getTransform(), 0.0);
+		assertEquals(algA.getLinesMerged().size(), algB.getLinesMerged().size());
+	}
 }
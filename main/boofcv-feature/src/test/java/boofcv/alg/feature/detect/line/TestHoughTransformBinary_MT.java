@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.line;
+
+import boofcv.BoofTesting;
+import boofcv.abst.feature.detect.extract.ConfigExtract;
+import boofcv.abst.feature.detect.extract.NonMaxSuppression;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.feature.detect.extract.FactoryFeatureExtractor;
+import boofcv.struct.ListIntPoint2D;
+import boofcv.struct.image.GrayU8;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the concurrent implementation against the single thread implementation
+ *
+ * @author Peter Abeles
+ */
+class TestHoughTransformBinary_MT extends BoofStandardJUnit {
+	int width = 120;
+	int height = 100;
+
+	/**
+	 * Input is a binary image. Several images are processed to make sure the thread storage is reset
+	 */
+	@Test void compareToSingle_image() {
+		HoughTransformBinary single = createAlgorithm(false);
+		HoughTransformBinary multi = createAlgorithm(true);
+
+		var binary = new GrayU8(width, height);
+		for (int trial = 0; trial < 3; trial++) {
+			randomEdges(binary);
+
+			single.transform(binary);
+			multi.transform(binary);
+
+			// Votes are integers so the results should be identical
+			BoofTesting.assertEquals(single.getTransform(), multi.getTransform(), 0.0);
+			assertEquals(single.getLinesMerged().size(), multi.getLinesMerged().size());
+		}
+	}
+
+	/**
+	 * Input is a sparse list of edge pixels
+	 */
+	@Test void compareToSingle_sparse() {
+		HoughTransformBinary single = createAlgorithm(false);
+		HoughTransformBinary multi = createAlgorithm(true);
+
+		var binary = new GrayU8(width, height);
+		var edges = new ListIntPoint2D();
+		for (int trial = 0; trial < 3; trial++) {
+			randomEdges(binary);
+			edges.configure(width, height);
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					if (binary.get(x, y) != 0)
+						edges.add(x, y);
+				}
+			}
+
+			single.transform(width, height, edges);
+			multi.transform(width, height, edges);
+
+			BoofTesting.assertEquals(single.getTransform(), multi.getTransform(), 0.0);
+			assertEquals(single.getLinesMerged().size(), multi.getLinesMerged().size());
+		}
+	}
+
+	private void randomEdges( GrayU8 binary ) {
+		ImageMiscOps.fill(binary, 0);
+		for (int i = 0; i < width*height/10; i++) {
+			binary.set(rand.nextInt(width), rand.nextInt(height), 1);
+		}
+	}
+
+	private HoughTransformBinary createAlgorithm( boolean concurrent ) {
+		NonMaxSuppression extractor = FactoryFeatureExtractor.nonmax(new ConfigExtract(4, -1, 0, false));
+		HoughTransformParameters hough = new HoughParametersPolar(0.5, 180);
+		return concurrent ? new HoughTransformBinary_MT(extractor, hough) : new HoughTransformBinary(extractor, hough);
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.line;
+
+import boofcv.BoofTesting;
+import boofcv.abst.feature.detect.extract.ConfigExtract;
+import boofcv.abst.feature.detect.extract.NonMaxSuppression;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.core.image.GeneralizedImageOps;
+import boofcv.factory.feature.detect.extract.FactoryFeatureExtractor;
+import boofcv.struct.image.*;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.line.LineParametric2D_F32;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the concurrent implementation against the single thread implementation
+ *
+ * @author Peter Abeles
+ */
+class TestHoughTransformGradient_MT extends BoofStandardJUnit {
+	Class[] imageTypes = new Class[]{GrayS16.class, GrayS32.class, GrayF32.class};
+	int width = 120;
+	int height = 100;
+
+	@Test void compareToSingle_Polar() {
+		for (Class imageType : imageTypes) {
+			compareToSingle(imageType, () -> new HoughParametersPolar(0.5, 180));
+		}
+	}
+
+	@Test void compareToSingle_FootOfNorm() {
+		for (Class imageType : imageTypes) {
+			compareToSingle(imageType, () -> new HoughParametersFootOfNorm(5));
+		}
+	}
+
+	/**
+	 * Process several images in a row. Each thread's accumulator is reused so this makes sure it's cleaned up
+	 * correctly after each call
+	 */
+	private <D extends ImageGray<D>> void compareToSingle( Class<D> derivType, ParametersFactory factory ) {
+		HoughTransformGradient<D> single = createAlgorithm(derivType, factory.create(), false);
+		HoughTransformGradient<D> multi = createAlgorithm(derivType, factory.create(), true);
+
+		var binary = new GrayU8(width, height);
+		D derivX = GeneralizedImageOps.createSingleBand(derivType, width, height);
+		D derivY = GeneralizedImageOps.createSingleBand(derivType, width, height);
+
+		for (int trial = 0; trial < 3; trial++) {
+			// Sparse set of edge pixels with a random gradient
+			ImageMiscOps.fill(binary, 0);
+			for (int i = 0; i < width*height/10; i++) {
+				binary.set(rand.nextInt(width), rand.nextInt(height), 1);
+			}
+			GImageMiscOps.fillUniform(derivX, rand, -100, 100);
+			GImageMiscOps.fillUniform(derivY, rand, -100, 100);
+
+			single.transform(derivX, derivY, binary);
+			multi.transform(derivX, derivY, binary);
+
+			// Votes are summed in a different order so there can be small floating point differences
+			BoofTesting.assertEquals(single.getTransform(), multi.getTransform(), 1e-3);
+
+			// Candidates are found in a different order, so the order of the lines can be different
+			List<LineParametric2D_F32> expected = single.getLinesMerged();
+			List<LineParametric2D_F32> found = multi.getLinesMerged();
+			assertEquals(expected.size(), found.size());
+			for (LineParametric2D_F32 e : expected) {
+				assertTrue(found.stream().anyMatch(f -> e.p.distance(f.p) <= 1e-2));
+			}
+		}
+	}
+
+	private <D extends ImageGray<D>> HoughTransformGradient<D>
+	createAlgorithm( Class<D> derivType, HoughTransformParameters parameters, boolean concurrent ) {
+		NonMaxSuppression extractor = FactoryFeatureExtractor.nonmax(new ConfigExtract(4, 5, 0, true));
+		if (concurrent)
+			return new HoughTransformGradient_MT<>(extractor, parameters, derivType);
+		else
+			return new HoughTransformGradient<>(extractor, parameters, derivType);
+	}
+
+	interface ParametersFactory {
+		HoughTransformParameters create();
+	}
+}
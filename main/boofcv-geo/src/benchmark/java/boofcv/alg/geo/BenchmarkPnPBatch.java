@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.geo;
+
+import boofcv.abst.geo.Estimate1ofPnP;
+import boofcv.abst.geo.RefinePnP;
+import boofcv.alg.geo.pose.PnPBatchEstimator;
+import boofcv.alg.geo.pose.PnPBatchEstimator_MT;
+import boofcv.factory.geo.EnumPNP;
+import boofcv.factory.geo.FactoryMultiView;
+import boofcv.struct.geo.Point2D3D;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of solving many small PnP problems, such as when estimating the pose of fiducials. Compares
+ * creating new estimators for each problem against reusing them and against solving the problems in parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class BenchmarkPnPBatch extends ArtificialStereoScene {
+	static final int NUM_PROBLEMS = 2000;
+	static final int POINTS_PER_PROBLEM = 12;
+
+	List<List<Point2D3D>> problems = new ArrayList<>();
+
+	DogArray<Se3_F64> found = new DogArray<>(Se3_F64::new);
+	DogArray_B success = new DogArray_B();
+	Se3_F64 initial = new Se3_F64();
+
+	PnPBatchEstimator batch = new PnPBatchEstimator(
+			BenchmarkPnPBatch::createEstimate, BenchmarkPnPBatch::createRefine);
+	PnPBatchEstimator batch_MT = new PnPBatchEstimator_MT(
+			BenchmarkPnPBatch::createEstimate, BenchmarkPnPBatch::createRefine);
+
+	@Setup public void setup() {
+		init(NUM_PROBLEMS*POINTS_PER_PROBLEM, false, false);
+
+		problems.clear();
+		for (int i = 0; i < NUM_PROBLEMS; i++) {
+			problems.add(observationPose.subList(i*POINTS_PER_PROBLEM, (i + 1)*POINTS_PER_PROBLEM));
+		}
+	}
+
+	/**
+	 * New estimators are created for each problem
+	 */
+	@Benchmark public void individual() {
+		found.resize(problems.size());
+		for (int i = 0; i < problems.size(); i++) {
+			Estimate1ofPnP estimate = createEstimate();
+			RefinePnP refine = createRefine();
+			List<Point2D3D> points = problems.get(i);
+			if (estimate.process(points, initial))
+				refine.fitModel(points, initial, found.get(i));
+		}
+	}
+
+	// @formatter:off
+	@Benchmark public void batch() {batch.process(problems, found, success);}
+	@Benchmark public void batch_MT() {batch_MT.process(problems, found, success);}
+	// @formatter:on
+
+	static Estimate1ofPnP createEstimate() {
+		return FactoryMultiView.pnp_1(EnumPNP.EPNP, 10, 0);
+	}
+
+	static RefinePnP createRefine() {
+		return FactoryMultiView.pnpRefine(1e-8, 50);
+	}
+
+	public static void main( String[] args ) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkPnPBatch.class.getSimpleName())
+				.warmupTime(TimeValue.seconds(1))
+				.measurementTime(TimeValue.seconds(1))
+				.build();
+
+		new Runner(opt).run();
+	}
+}
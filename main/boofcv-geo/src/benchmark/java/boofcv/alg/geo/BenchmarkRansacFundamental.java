@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo;
+
+import boofcv.factory.geo.ConfigFundamental;
+import boofcv.factory.geo.ConfigRansac;
+import boofcv.factory.geo.FactoryMultiViewRobust;
+import boofcv.struct.geo.AssociatedPair;
+import org.ddogleg.fitting.modelset.ModelMatcher;
+import org.ejml.data.DMatrixRMaj;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares standard RANSAC against adaptive termination, PROSAC, and local optimization when robustly
+ * estimating a fundamental matrix. Outliers are placed at the end of the list, which is what PROSAC
+ * would see if the pairs had been sorted by association score.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class BenchmarkRansacFundamental {
+	@Param({"500"})
+	public int numPoints;
+
+	@Param({"0.3", "0.6"})
+	public double fractionOutliers;
+
+	List<AssociatedPair> pairs;
+
+	@Setup public void setup() {
+		var scene = new ArtificialStereoScene();
+		scene.init(numPoints, true, false);
+		scene.addPixelNoise(0.5);
+		pairs = scene.pairs;
+
+		// replace points at the end with outliers
+		var rand = new Random(0xBEEF);
+		int numOutliers = (int)(numPoints*fractionOutliers);
+		for (int i = numPoints - numOutliers; i < numPoints; i++) {
+			AssociatedPair p = pairs.get(i);
+			p.p2.setTo(rand.nextDouble()*640, rand.nextDouble()*480);
+		}
+	}
+
+	@Benchmark public double Fixed() {
+		return process(new ConfigRansac(500, 1.0));
+	}
+
+	@Benchmark public double Adaptive() {
+		ConfigRansac config = new ConfigRansac(500, 1.0);
+		config.confidence = 0.99;
+		return process(config);
+	}
+
+	@Benchmark public double Prosac() {
+		ConfigRansac config = new ConfigRansac(500, 1.0);
+		config.confidence = 0.99;
+		config.prosac = true;
+		return process(config);
+	}
+
+	@Benchmark public double AdaptiveLO() {
+		ConfigRansac config = new ConfigRansac(500, 1.0);
+		config.confidence = 0.99;
+		config.localOptimization = true;
+		return process(config);
+	}
+
+	private double process( ConfigRansac config ) {
+		ModelMatcher<DMatrixRMaj, AssociatedPair> alg =
+				FactoryMultiViewRobust.fundamentalRansac(new ConfigFundamental(), config);
+		if (!alg.process(pairs))
+			throw new RuntimeException("Failed");
+		return alg.getFitQuality();
+	}
+
+	public static void main( String[] args ) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkRansacFundamental.class.getSimpleName())
+				.warmupTime(TimeValue.seconds(1))
+				.measurementTime(TimeValue.seconds(1))
+				.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -18,11 +18,18 @@
 
 package boofcv.alg.geo;
 
+import boofcv.abst.geo.triangulate.Wrap2ViewsTriangulateGeometricH;
 import boofcv.alg.geo.triangulate.PixelDepthLinearMetric;
 import boofcv.alg.geo.triangulate.Triangulate2ViewsGeometricMetric;
+import boofcv.alg.geo.triangulate.TriangulateBatch2ViewsMetricH;
+import boofcv.alg.geo.triangulate.TriangulateBatch2ViewsMetricH_MT;
 import boofcv.alg.geo.triangulate.TriangulateMetricLinearDLT;
+import boofcv.struct.packed.PackedArrayPoint2D_F64;
+import boofcv.struct.packed.PackedArrayPoint4D_F64;
 import georegression.struct.point.Point3D_F64;
 import georegression.struct.point.Point4D_F64;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_F64;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
@@ -49,8 +56,27 @@ public class BenchmarkTriangulate extends ArtificialStereoScene {
 	private final Triangulate2ViewsGeometricMetric view2 = new Triangulate2ViewsGeometricMetric();
 	private final PixelDepthLinearMetric pixelDepth = new PixelDepthLinearMetric();
 
+	private final TriangulateBatch2ViewsMetricH batch =
+			new TriangulateBatch2ViewsMetricH(Wrap2ViewsTriangulateGeometricH::new);
+	private final TriangulateBatch2ViewsMetricH_MT batchMT =
+			new TriangulateBatch2ViewsMetricH_MT(Wrap2ViewsTriangulateGeometricH::new);
+
+	private final PackedArrayPoint2D_F64 packedA = new PackedArrayPoint2D_F64();
+	private final PackedArrayPoint2D_F64 packedB = new PackedArrayPoint2D_F64();
+	private final PackedArrayPoint4D_F64 packedFound = new PackedArrayPoint4D_F64();
+	private final DogArray_B success = new DogArray_B();
+	private final DogArray_F64 errors = new DogArray_F64();
+
 	@Setup public void setup() {
 		init(numPoints, false, false);
+
+		packedA.reset();
+		packedB.reset();
+		for (int i = 0; i < numPoints; i++) {
+			packedA.append(pairs.get(i).p1);
+			packedB.append(pairs.get(i).p2);
+		}
+		batch.triangulate(packedA, packedB, motion, packedFound, success);
 	}
 
 	@Benchmark public void dlt() {
@@ -68,6 +94,22 @@ public class BenchmarkTriangulate extends ArtificialStereoScene {
 			pixelDepth.depth2View(pairs.get(i).p1, pairs.get(i).p2, motion);
 	}
 
+	@Benchmark public void batch() {
+		batch.triangulate(packedA, packedB, motion, packedFound, success);
+	}
+
+	@Benchmark public void batch_MT() {
+		batchMT.triangulate(packedA, packedB, motion, packedFound, success);
+	}
+
+	@Benchmark public void batchErrors() {
+		batch.reprojectionErrors(packedFound, packedB, motion, errors);
+	}
+
+	@Benchmark public void batchErrors_MT() {
+		batchMT.reprojectionErrors(packedFound, packedB, motion, errors);
+	}
+
 	public static void main( String[] args ) throws RunnerException {
 		Options opt = new OptionsBuilder()
 				.include(BenchmarkTriangulate.class.getSimpleName())
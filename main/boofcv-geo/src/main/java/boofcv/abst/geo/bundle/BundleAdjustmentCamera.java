@@ -81,4 +81,15 @@ public interface BundleAdjustmentCamera {
 	 * @return number of intrinsic parameters.
 	 */
 	int getIntrinsicCount();
+
+	/**
+	 * Creates a new instance with the same configuration and intrinsic parameters. Some models have internal
+	 * workspace and can't be shared between threads, so each thread needs its own copy when the Jacobian is
+	 * computed concurrently.
+	 *
+	 * @return A copy of the model or null if it can't be copied
+	 */
+	default @Nullable BundleAdjustmentCamera copy() {
+		return null;
+	}
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.abst.geo.bundle;
+
+import boofcv.abst.geo.bundle.BundleAdjustmentSchur.Codec;
+import boofcv.abst.geo.bundle.BundleAdjustmentSchur.FunctionResiduals;
+import boofcv.abst.geo.bundle.BundleAdjustmentSchur.Jacobian;
+import boofcv.alg.geo.bundle.SchurComplementPcg_DSCC;
+import lombok.Getter;
+import org.ejml.data.DMatrixSparseCSC;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.PrintStream;
+import java.util.Set;
+
+/**
+ * Sparse bundle adjustment which uses Levenberg-Marquardt where each step is found by solving the reduced
+ * camera system with preconditioned conjugate gradient, see {@link SchurComplementPcg_DSCC}. For large scenes
+ * this is much faster and uses much less memory than a direct solver since the reduced camera matrix is never
+ * computed. The price is an inexact step, which can increase the number of iterations.
+ *
+ * @author Peter Abeles
+ */
+public class BundleAdjustmentSchurPcg_DSCC<Structure extends SceneStructure>
+		implements BundleAdjustment<Structure> {
+
+	/** Initial value of the damping parameter */
+	public double dampingInitial = 1e-3;
+
+	/** If the damping becomes larger than this it will stop since no improvement is possible */
+	public double dampingMaximum = 1e20;
+
+	/** Computes the step using the reduced camera system */
+	@Getter private final SchurComplementPcg_DSCC solver;
+
+	private final FunctionResiduals<Structure> function;
+	private final Jacobian<Structure, DMatrixSparseCSC> jacobian;
+	private final Codec<Structure> codec;
+
+	private int maxIterations;
+	private double ftol, gtol;
+
+	private volatile boolean stopRequested = false;
+
+	// Parameters and residuals for the current state and a candidate state
+	private double[] parameters = new double[0];
+	private double[] candidate = new double[0];
+	private double[] residuals = new double[0];
+	private double[] candidateResiduals = new double[0];
+	private double[] gradient = new double[0];
+	private double[] step = new double[0];
+
+	// Jacobian split into the eliminated parameters (left) and the reduced parameters (right)
+	private final DMatrixSparseCSC left = new DMatrixSparseCSC(1, 1);
+	private final DMatrixSparseCSC right = new DMatrixSparseCSC(1, 1);
+
+	// Value of the cost function, 0.5*|residuals|^2
+	private double fx;
+	private double damping;
+	private int totalIterations;
+
+	@Nullable PrintStream verbose;
+
+	public BundleAdjustmentSchurPcg_DSCC( SchurComplementPcg_DSCC solver,
+										  FunctionResiduals<Structure> function,
+										  Jacobian<Structure, DMatrixSparseCSC> jacobian,
+										  Codec<Structure> codec ) {
+		this.solver = solver;
+		this.function = function;
+		this.jacobian = jacobian;
+		this.codec = codec;
+	}
+
+	@Override
+	public void configure( double ftol, double gtol, int maxIterations ) {
+		this.ftol = ftol;
+		this.gtol = gtol;
+		this.maxIterations = maxIterations;
+	}
+
+	@Override
+	public void setParameters( Structure structure, SceneObservations observations ) {
+		this.function.configure(structure, observations);
+		this.jacobian.configure(structure, observations);
+
+		int N = structure.getParameterCount();
+		int M = function.getNumOfOutputsM();
+		if (parameters.length < N) {
+			parameters = new double[N];
+			candidate = new double[N];
+			gradient = new double[N];
+			step = new double[N];
+		}
+		if (residuals.length < M) {
+			residuals = new double[M];
+			candidateResiduals = new double[M];
+		}
+
+		codec.encode(structure, parameters);
+		function.process(parameters, residuals);
+		fx = cost(residuals, M);
+		damping = dampingInitial;
+		totalIterations = 0;
+	}
+
+	@Override
+	public boolean optimize( Structure output ) {
+		stopRequested = false;
+
+		double before = fx;
+		for (int i = 0; i < maxIterations && !stopRequested; i++) {
+			if (iterate())
+				break;
+		}
+
+		codec.decode(parameters, output);
+		return fx < before;
+	}
+
+	/**
+	 * Computes the Jacobian then adjusts the damping until a step is found which reduces the cost.
+	 *
+	 * @return true if it has converged
+	 */
+	boolean iterate() {
+		final int N = function.getNumOfInputsN();
+		final int M = function.getNumOfOutputsM();
+
+		jacobian.process(parameters, left, right);
+		solver.setJacobian(left, right);
+		solver.computeGradient(residuals, gradient);
+
+		double gradientMax = 0.0;
+		for (int i = 0; i < N; i++) {
+			gradientMax = Math.max(gradientMax, Math.abs(gradient[i]));
+		}
+		if (gradientMax <= gtol)
+			return true;
+
+		while (!stopRequested) {
+			if (!solver.solve(damping, gradient, step)) {
+				if (!increaseDamping())
+					return true;
+				continue;
+			}
+
+			for (int i = 0; i < N; i++) {
+				candidate[i] = parameters[i] + step[i];
+			}
+			function.process(candidate, candidateResiduals);
+			double candidateFx = cost(candidateResiduals, M);
+
+			if (verbose != null)
+				verbose.printf("iter=%3d fx=%.6e candidate=%.6e damping=%.2e cg=%d\n",
+						totalIterations, fx, candidateFx, damping, solver.getIterations());
+
+			if (candidateFx < fx) {
+				boolean converged = fx - candidateFx <= ftol*fx;
+
+				double[] tmp = parameters;
+				parameters = candidate;
+				candidate = tmp;
+				tmp = residuals;
+				residuals = candidateResiduals;
+				candidateResiduals = tmp;
+				fx = candidateFx;
+				damping = Math.max(1e-15, damping/3.0);
+				totalIterations++;
+				return converged;
+			}
+
+			if (!increaseDamping())
+				return true;
+		}
+		return true;
+	}
+
+	/**
+	 * Increases the damping after a step was rejected
+	 *
+	 * @return false if the damping is too large and it should stop
+	 */
+	private boolean increaseDamping() {
+		damping *= 4.0;
+		return damping <= dampingMaximum;
+	}
+
+	private static double cost( double[] residuals, int length ) {
+		double sum = 0.0;
+		for (int i = 0; i < length; i++) {
+			sum += residuals[i]*residuals[i];
+		}
+		return 0.5*sum;
+	}
+
+	@Override
+	public double getFitScore() {
+		return fx;
+	}
+
+	@Override
+	public void requestStop() {
+		stopRequested = true;
+	}
+
+	@Override
+	public boolean isStopRequested() {
+		return stopRequested;
+	}
+
+	@Override
+	public void setVerbose( @Nullable PrintStream out, @Nullable Set<String> configuration ) {
+		this.verbose = out;
+	}
+}
@@ -18,6 +18,7 @@
 
 package boofcv.abst.geo.bundle;
 
+import boofcv.concurrency.BoofConcurrency;
 import georegression.helper.KdTreePoint3D_F64;
 import georegression.struct.point.Point2D_F64;
 import georegression.struct.point.Point3D_F64;
@@ -25,8 +26,11 @@ import georegression.struct.se.Se3_F64;
 import org.ddogleg.nn.FactoryNearestNeighbor;
 import org.ddogleg.nn.NearestNeighbor;
 import org.ddogleg.nn.NnData;
+import org.ddogleg.sorting.QuickSelect;
 import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_F64;
 import org.ddogleg.struct.DogArray_I32;
+import pabeles.concurrency.GrowArray;
 
 import java.util.*;
 
@@ -41,6 +45,15 @@ public class PruneStructureFromSceneMetric {
 	SceneStructureMetric structure;
 	SceneObservations observations;
 
+	// Reprojection error of every observation. Observations in a view are next to each other
+	final DogArray_F64 errors = new DogArray_F64();
+	// Copy of the errors which is modified when selecting the threshold
+	final DogArray_F64 errorsSorted = new DogArray_F64();
+	// Index of the first observation of each view in the array of errors
+	final DogArray_I32 viewStart = new DogArray_I32();
+	// Workspace for each thread
+	final GrowArray<ErrorWorkspace> workspaces = new GrowArray<>(ErrorWorkspace::new);
+
 	public PruneStructureFromSceneMetric( SceneStructureMetric structure,
 										  SceneObservations observations ) {
 		this.structure = structure;
@@ -55,20 +68,80 @@ public class PruneStructureFromSceneMetric {
 	 * @param inlierFraction Fraction of observations to keep. 0 to 1. 1 = no change. 0 = everything is pruned.
 	 */
 	public void pruneObservationsByErrorRank( double inlierFraction ) {
+		// Find where each view's observations start in the packed array of errors
+		viewStart.reset();
+		viewStart.add(0);
+		for (int viewIndex = 0; viewIndex < observations.views.size; viewIndex++) {
+			viewStart.add(viewStart.getTail(0) + observations.views.data[viewIndex].point.size);
+		}
+		final int total = viewStart.getTail(0);
+		errors.resize(total);
+
+		// Each view writes to its own part of the array so they can be computed independently
+		if (BoofConcurrency.USE_CONCURRENT) {
+			BoofConcurrency.loopBlocks(0, observations.views.size, workspaces, ( work, idx0, idx1 ) ->
+					computeReprojectionErrors(idx0, idx1, work));
+		} else {
+			computeReprojectionErrors(0, observations.views.size, workspaces.grow());
+		}
 
-		var observation = new Point2D_F64();
-		var predicted = new Point2D_F64();
-		var X = new Point3D_F64();
-		var world_to_view = new Se3_F64();
-		var tmp = new Se3_F64();
+		// Number of observations with the smallest errors which are kept
+		int numKeep = (int)(total*inlierFraction);
+		if (numKeep >= total)
+			return;
 
-		// Create a list of observation errors
-		List<Errors> errors = new ArrayList<>();
+		// Find the largest error which is kept. Selection is used instead of a full sort
+		errorsSorted.setTo(errors);
+		double threshold = numKeep > 0 ? QuickSelect.select(errorsSorted.data, numKeep - 1, total) : -1.0;
+
+		// Keep observations with a smaller error and, to handle ties, the first ones with an error equal to
+		// the threshold
+		int numBelow = 0;
+		for (int i = 0; i < total; i++) {
+			if (errors.data[i] < threshold)
+				numBelow++;
+		}
+		int numTiesKeep = numKeep - numBelow;
+
+		// Mark observations which are to be removed. Can't remove yet since the indexes will change
 		for (int viewIndex = 0; viewIndex < observations.views.size; viewIndex++) {
+			SceneObservations.View v = observations.views.data[viewIndex];
+			int offset = viewStart.data[viewIndex];
+			for (int pointIndex = 0; pointIndex < v.point.size; pointIndex++) {
+				double error = errors.data[offset + pointIndex];
+				if (error < threshold)
+					continue;
+				if (error == threshold && numTiesKeep > 0) {
+					numTiesKeep--;
+					continue;
+				}
+				v.setPixel(pointIndex, Float.NaN, Float.NaN);
+			}
+		}
+
+		// Remove all marked features
+		removeMarkedObservations();
+	}
+
+	/**
+	 * Computes the squared reprojection error in pixels for all observations in the specified views
+	 *
+	 * @param view0 First view, inclusive
+	 * @param view1 Last view, exclusive
+	 */
+	void computeReprojectionErrors( int view0, int view1, ErrorWorkspace work ) {
+		final Point2D_F64 observation = work.observation;
+		final Point2D_F64 predicted = work.predicted;
+		final Point3D_F64 X = work.X;
+		final Se3_F64 world_to_view = work.world_to_view;
+
+		for (int viewIndex = view0; viewIndex < view1; viewIndex++) {
 			SceneObservations.View v = observations.views.data[viewIndex];
 			SceneStructureMetric.View view = structure.views.data[viewIndex];
-			structure.getWorldToView(view, world_to_view, tmp);
+			SceneStructureCommon.Camera camera = structure.cameras.data[view.camera];
+			structure.getWorldToView(view, world_to_view, work.tmp);
 
+			int offset = viewStart.data[viewIndex];
 			for (int pointIndex = 0; pointIndex < v.point.size; pointIndex++) {
 				int pointID = v.point.data[pointIndex];
 				SceneStructureCommon.Point f = structure.points.data[pointID];
@@ -82,29 +155,13 @@ public class PruneStructureFromSceneMetric {
 				world_to_view.transform(X, X);
 
 				// predicted pixel
-				SceneStructureCommon.Camera camera = structure.cameras.data[view.camera];
 				camera.model.project(X.x, X.y, X.z, predicted);
 
-				Errors e = new Errors();
-				e.view = viewIndex;
-				e.pointIndexInView = pointIndex;
-				e.error = predicted.distance2(observation);
-				errors.add(e);
+				// NaN is treated as the largest possible error
+				double error = predicted.distance2(observation);
+				errors.data[offset + pointIndex] = Double.isNaN(error) ? Double.POSITIVE_INFINITY : error;
 			}
 		}
-
-		errors.sort(Comparator.comparingDouble(a -> a.error));
-
-		// Mark observations which are to be removed. Can't remove yet since the indexes will change
-		for (int i = (int)(errors.size()*inlierFraction); i < errors.size(); i++) {
-			Errors e = errors.get(i);
-
-			SceneObservations.View v = observations.views.get(e.view);
-			v.setPixel(e.pointIndexInView, Float.NaN, Float.NaN);
-		}
-
-		// Remove all marked features
-		removeMarkedObservations();
 	}
 
 	/**
@@ -413,9 +470,12 @@ public class PruneStructureFromSceneMetric {
 		return true;
 	}
 
-	private static class Errors {
-		int view;
-		int pointIndexInView;
-		double error;
+	/** Workspace for computing reprojection errors in a single thread */
+	static class ErrorWorkspace {
+		final Point2D_F64 observation = new Point2D_F64();
+		final Point2D_F64 predicted = new Point2D_F64();
+		final Point3D_F64 X = new Point3D_F64();
+		final Se3_F64 world_to_view = new Se3_F64();
+		final Se3_F64 tmp = new Se3_F64();
 	}
 }
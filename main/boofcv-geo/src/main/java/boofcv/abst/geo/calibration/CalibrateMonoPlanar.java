@@ -21,10 +21,12 @@ package boofcv.abst.geo.calibration;
 import boofcv.abst.geo.bundle.SceneStructureMetric;
 import boofcv.alg.geo.calibration.CalibrationObservation;
 import boofcv.alg.geo.calibration.CalibrationPlanarGridZhang99;
+import boofcv.alg.geo.calibration.CalibrationPlanarGridZhang99_MT;
 import boofcv.alg.geo.calibration.cameras.Zhang99Camera;
 import boofcv.alg.geo.calibration.cameras.Zhang99CameraBrown;
 import boofcv.alg.geo.calibration.cameras.Zhang99CameraKannalaBrandt;
 import boofcv.alg.geo.calibration.cameras.Zhang99CameraUniversalOmni;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.calib.CameraModel;
 import georegression.struct.point.Point2D_F64;
 import lombok.Getter;
@@ -97,7 +99,7 @@ public class CalibrateMonoPlanar implements VerbosePrint {
 	 * Specifies the calibration model.
 	 */
 	public void configure( boolean assumeZeroSkew, Zhang99Camera camera ) {
-		zhang99 = new CalibrationPlanarGridZhang99(layout, camera);
+		zhang99 = createZhang99(camera);
 		zhang99.setZeroSkew(assumeZeroSkew);
 	}
 
@@ -105,14 +107,14 @@ public class CalibrateMonoPlanar implements VerbosePrint {
 								  int numRadialParam,
 								  boolean includeTangential ) {
 		var camera = new Zhang99CameraBrown(layout, assumeZeroSkew, includeTangential, numRadialParam);
-		zhang99 = new CalibrationPlanarGridZhang99(layout, camera);
+		zhang99 = createZhang99(camera);
 		zhang99.setZeroSkew(assumeZeroSkew);
 	}
 
 	public void configureUniversalOmni( boolean assumeZeroSkew,
 										int numRadialParam,
 										boolean includeTangential ) {
-		zhang99 = new CalibrationPlanarGridZhang99(layout,
+		zhang99 = createZhang99(
 				new Zhang99CameraUniversalOmni(layout, assumeZeroSkew, includeTangential, numRadialParam));
 		zhang99.setZeroSkew(assumeZeroSkew);
 	}
@@ -120,8 +122,7 @@ public class CalibrateMonoPlanar implements VerbosePrint {
 	public void configureKannalaBrandt( boolean assumeZeroSkew,
 										int numSymmetric,
 										int numAsymmetric ) {
-		zhang99 = new CalibrationPlanarGridZhang99(layout,
-				new Zhang99CameraKannalaBrandt(assumeZeroSkew, numSymmetric, numAsymmetric));
+		zhang99 = createZhang99(new Zhang99CameraKannalaBrandt(assumeZeroSkew, numSymmetric, numAsymmetric));
 		zhang99.setZeroSkew(assumeZeroSkew);
 	}
 
@@ -129,11 +130,18 @@ public class CalibrateMonoPlanar implements VerbosePrint {
 										int numRadialParam,
 										boolean includeTangential,
 										double mirrorOffset ) {
-		zhang99 = new CalibrationPlanarGridZhang99(layout,
+		zhang99 = createZhang99(
 				new Zhang99CameraUniversalOmni(layout, assumeZeroSkew, includeTangential, numRadialParam, mirrorOffset));
 		zhang99.setZeroSkew(assumeZeroSkew);
 	}
 
+	private CalibrationPlanarGridZhang99 createZhang99( Zhang99Camera camera ) {
+		if (BoofConcurrency.USE_CONCURRENT)
+			return new CalibrationPlanarGridZhang99_MT(layout, camera);
+		else
+			return new CalibrationPlanarGridZhang99(layout, camera);
+	}
+
 	/**
 	 * Resets internal data structures. Must call before adding images
 	 */
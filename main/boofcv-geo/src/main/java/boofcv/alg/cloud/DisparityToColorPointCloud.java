@@ -22,6 +22,7 @@ import boofcv.struct.distort.Point2Transform2_F64;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageGray;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import georegression.geometry.GeometryMath_F32;
 import georegression.struct.point.Point2D_F64;
 import georegression.struct.point.Point3D_F32;
@@ -41,6 +42,11 @@ import org.ejml.ops.ConvertMatrixData;
  * (closest to viewing camera) point as being visible.
  * </p>
  *
+ * <p>
+ * Points are passed to the output one image row at a time using {@link PointCloudWriter#addBlock}, which allows
+ * packed clouds, e.g. {@link PackedPointCloud_F64}, to copy an entire row at once.
+ * </p>
+ *
  * @author Peter Abeles
  */
 public class DisparityToColorPointCloud {
@@ -73,6 +79,10 @@ public class DisparityToColorPointCloud {
 	// region of interest
 	Rectangle2D_I32 roi = new Rectangle2D_I32();
 
+	// Points in the row being processed. Interleaved (x,y,z) and RGB
+	double[] rowXyz = new double[0];
+	int[] rowRgb = new int[0];
+
 	/**
 	 * Stereo and intrinsic camera parameters
 	 *
@@ -117,6 +127,20 @@ public class DisparityToColorPointCloud {
 			throw new IllegalArgumentException("Unsupported image type " + disparity.getClass().getSimpleName());
 	}
 
+	/**
+	 * Converts the disparity image into a packed color point cloud. The cloud is initialized with color and
+	 * any points already inside of it are removed.
+	 *
+	 * @param disparity (Input) Disparity image
+	 * @param color (Input) Color image of left camera
+	 * @param output (Output) destination for the colorized point cloud
+	 */
+	public void process( ImageGray<?> disparity, ColorImage color, PackedPointCloud_F64 output ) {
+		PointCloudWriter writer = PointCloudWriter.wrap(output);
+		writer.initialize(disparity.width*disparity.height, true);
+		process(disparity, color, writer);
+	}
+
 	/**
 	 * Converts the disparity image into a color point cloud
 	 *
@@ -131,8 +155,11 @@ public class DisparityToColorPointCloud {
 		final int x1 = Math.min(roi.x1, disparity.width);
 		final int y1 = Math.min(roi.y1, disparity.height);
 
+		growRowStorage(x1 - x0);
+
 		for (int pixelY = y0; pixelY < y1; pixelY++) {
 			int index = disparity.startIndex + disparity.stride*pixelY + x0;
+			int count = 0;
 
 			for (int pixelX = x0; pixelX < x1; pixelX++) {
 				int value = disparity.data[index++] & 0xFF;
@@ -155,8 +182,13 @@ public class DisparityToColorPointCloud {
 				// Bring it back into left camera frame
 				GeometryMath_F32.multTran(rectifiedR, p, p);
 
-				output.add(p.x, p.y, p.z, getColor(color, pixelX, pixelY));
+				rowXyz[count*3] = p.x;
+				rowXyz[count*3 + 1] = p.y;
+				rowXyz[count*3 + 2] = p.z;
+				rowRgb[count++] = getColor(color, pixelX, pixelY);
 			}
+			if (count > 0)
+				output.addBlock(rowXyz, rowRgb, count);
 		}
 	}
 
@@ -174,8 +206,11 @@ public class DisparityToColorPointCloud {
 		final int x1 = Math.min(roi.x1, disparity.width);
 		final int y1 = Math.min(roi.y1, disparity.height);
 
+		growRowStorage(x1 - x0);
+
 		for (int pixelY = y0; pixelY < y1; pixelY++) {
 			int index = disparity.startIndex + disparity.stride*pixelY + x0;
+			int count = 0;
 
 			for (int pixelX = x0; pixelX < x1; pixelX++) {
 				float value = disparity.data[index++];
@@ -197,11 +232,27 @@ public class DisparityToColorPointCloud {
 				// Bring it back into left camera frame
 				GeometryMath_F32.multTran(rectifiedR, p, p);
 
-				output.add(p.x, p.y, p.z, getColor(color, pixelX, pixelY));
+				rowXyz[count*3] = p.x;
+				rowXyz[count*3 + 1] = p.y;
+				rowXyz[count*3 + 2] = p.z;
+				rowRgb[count++] = getColor(color, pixelX, pixelY);
 			}
+			if (count > 0)
+				output.addBlock(rowXyz, rowRgb, count);
 		}
 	}
 
+	/**
+	 * Ensures the row storage can hold the specified number of points
+	 */
+	void growRowStorage( int width ) {
+		width = Math.max(0, width);
+		if (rowRgb.length >= width)
+			return;
+		rowXyz = new double[width*3];
+		rowRgb = new int[width];
+	}
+
 	/**
 	 * @param color color image
 	 * @param x coordinate in disparity image
@@ -20,6 +20,7 @@ package boofcv.alg.cloud;
 
 import boofcv.struct.Point3dRgbI_F32;
 import boofcv.struct.Point3dRgbI_F64;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import georegression.struct.point.Point3D_F32;
 import georegression.struct.point.Point3D_F64;
 
@@ -153,6 +154,18 @@ public interface PointCloudReader {
 		};
 	}
 
+	static PointCloudReader wrap( PackedPointCloud_F64 cloud ) {
+		return new PointCloudReader() {
+			@Override public int size() {return cloud.size();}
+
+			@Override public void get( int index, Point3D_F32 point ) {convert(cloud.xyz.getTemp(index), point);}
+
+			@Override public void get( int index, Point3D_F64 point ) {cloud.xyz.getCopy(index, point);}
+
+			@Override public int getRGB( int index ) {return cloud.getRgb(index);}
+		};
+	}
+
 	static PointCloudReader wrap( Generic op, int size ) {
 		return new PointCloudReader() {
 			Point3dRgbI_F64 p = new Point3dRgbI_F64();
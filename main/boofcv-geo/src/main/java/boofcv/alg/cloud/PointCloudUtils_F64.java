@@ -18,16 +18,25 @@
 
 package boofcv.alg.cloud;
 
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.misc.BoofLambdas;
+import boofcv.struct.PackedArray;
 import boofcv.struct.Point3dRgbI_F64;
+import boofcv.struct.packed.PackedBigArrayPoint3D_F64;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import georegression.helper.KdTreePoint3D_F64;
+import georegression.struct.point.Point3D_F32;
 import georegression.struct.point.Point3D_F64;
 import org.ddogleg.nn.FactoryNearestNeighbor;
 import org.ddogleg.nn.NearestNeighbor;
 import org.ddogleg.nn.NnData;
+import org.ddogleg.sorting.QuickSelect;
 import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_F64;
 import org.ddogleg.struct.DogArray_I32;
 import org.jetbrains.annotations.Nullable;
+import pabeles.concurrency.GrowArray;
 
 import java.util.List;
 
@@ -125,66 +134,375 @@ public class PointCloudUtils_F64 {
 	}
 
 	/**
-	 * Prunes points from the point cloud if they have very few neighbors
+	 * Copies points which pass the filter into the output cloud. All attributes of the point are copied.
+	 *
+	 * @param cloud (Input) The point cloud
+	 * @param filter (Input) Returns true if the point at the index should be kept
+	 * @param output (Output) Storage for filtered cloud. Can be null.
+	 * @return The filtered cloud
+	 */
+	public static PackedPointCloud_F64 filter( PackedPointCloud_F64 cloud, BoofLambdas.FilterInt filter,
+											   @Nullable PackedPointCloud_F64 output ) {
+		if (output == null)
+			output = new PackedPointCloud_F64();
+		output.initialize(cloud.hasColor(), cloud.hasNormals(), cloud.hasViews());
+
+		final PackedPointCloud_F64 _output = output;
+		cloud.xyz.forIdx(0, cloud.size(), ( pointIdx, p ) -> {
+			if (!filter.keep(pointIdx))
+				return;
+
+			int idx = _output.append(p.x, p.y, p.z, cloud.getRgb(pointIdx));
+			if (cloud.hasNormals()) {
+				Point3D_F32 n = cloud.normals.getTemp(pointIdx);
+				_output.setNormal(idx, n.x, n.y, n.z);
+			}
+			if (cloud.hasViews())
+				_output.setView(idx, cloud.getView(pointIdx));
+		});
+
+		return output;
+	}
+
+	/**
+	 * Automatically rescales the point cloud based so that it has a standard deviation of 'target'
+	 *
+	 * @param cloud The point cloud
+	 * @param target The desired standard deviation of the cloud. Try 100
+	 * @return The selected scale factor
+	 */
+	public static double autoScale( PackedBigArrayPoint3D_F64 cloud, double target ) {
+		Point3D_F64 mean = new Point3D_F64();
+		Point3D_F64 stdev = new Point3D_F64();
+
+		statistics(cloud, mean, stdev);
+
+		double scale = target/Math.max(Math.max(stdev.x, stdev.y), stdev.z);
+
+		int N = cloud.size();
+		for (int i = 0; i < N; i++) {
+			Point3D_F64 p = cloud.getTemp(i);
+			cloud.set(i, p.x*scale, p.y*scale, p.z*scale);
+		}
+
+		return scale;
+	}
+
+	/**
+	 * Computes the mean and standard deviation of each axis in the point cloud computed in dependently
+	 *
+	 * @param cloud (Input) Cloud
+	 * @param mean (Output) mean of each axis
+	 * @param stdev (Output) standard deviation of each axis
+	 */
+	public static void statistics( PackedArray<Point3D_F64> cloud, Point3D_F64 mean, Point3D_F64 stdev ) {
+		final int N = cloud.size();
+		cloud.forIdx(0, N, ( idx, p ) -> {
+			mean.x += p.x/N;
+			mean.y += p.y/N;
+			mean.z += p.z/N;
+		});
+
+		cloud.forIdx(0, N, ( idx, p ) -> {
+			double dx = p.x - mean.x;
+			double dy = p.y - mean.y;
+			double dz = p.z - mean.z;
+
+			stdev.x += dx*dx/N;
+			stdev.y += dy*dy/N;
+			stdev.z += dz*dz/N;
+		});
+		stdev.x = Math.sqrt(stdev.x);
+		stdev.y = Math.sqrt(stdev.y);
+		stdev.z = Math.sqrt(stdev.z);
+	}
+
+	/**
+	 * Prunes points from the point cloud if they have very few neighbors. Neighbors are found concurrently using
+	 * a kd-tree and then the cloud is compacted in a single pass.
 	 *
 	 * @param cloud Point cloud
 	 * @param minNeighbors Minimum number of neighbors for it to not be pruned
 	 * @param radius search distance for neighbors
 	 */
 	public static void prune( List<Point3D_F64> cloud, int minNeighbors, double radius ) {
+		DogArray_B keep = markWithNeighbors(cloud, minNeighbors, radius);
+
+		int count = 0;
+		for (int i = 0; i < cloud.size(); i++) {
+			if (keep.data[i])
+				cloud.set(count++, cloud.get(i));
+		}
+		cloud.subList(count, cloud.size()).clear();
+	}
+
+	/**
+	 * Prunes points from the point cloud if they have very few neighbors. Neighbors are found concurrently using
+	 * a kd-tree and then the cloud is compacted in a single pass.
+	 *
+	 * @param cloud Point cloud
+	 * @param colors Color of each point.
+	 * @param minNeighbors Minimum number of neighbors for it to not be pruned
+	 * @param radius search distance for neighbors
+	 */
+	public static void prune( List<Point3D_F64> cloud, DogArray_I32 colors, int minNeighbors, double radius ) {
+		DogArray_B keep = markWithNeighbors(cloud, minNeighbors, radius);
+
+		int count = 0;
+		for (int i = 0; i < cloud.size(); i++) {
+			if (!keep.data[i])
+				continue;
+			cloud.set(count, cloud.get(i));
+			colors.data[count] = colors.data[i];
+			count++;
+		}
+		cloud.subList(count, cloud.size()).clear();
+		colors.size = count;
+	}
+
+	/**
+	 * Marks which points have at least the minimum number of neighbors
+	 */
+	private static DogArray_B markWithNeighbors( List<Point3D_F64> cloud, int minNeighbors, double radius ) {
 		if (minNeighbors < 0)
 			throw new IllegalArgumentException("minNeighbors must be >= 0");
 		NearestNeighbor<Point3D_F64> nn = FactoryNearestNeighbor.kdtree(new KdTreePoint3D_F64());
-		NearestNeighbor.Search<Point3D_F64> search = nn.createSearch();
-
 		nn.setPoints(cloud, false);
-		DogArray<NnData<Point3D_F64>> results = new DogArray<>(NnData::new);
 
 		// It will always find itself
-		minNeighbors += 1;
+		final int minFound = minNeighbors + 1;
 
 		// distance is Euclidean squared
-		radius *= radius;
+		final double radiusSq = radius*radius;
 
-		for (int i = cloud.size() - 1; i >= 0; i--) {
-			search.findNearest(cloud.get(i), radius, minNeighbors, results);
+		final var keep = new DogArray_B();
+		keep.resize(cloud.size());
+		if (cloud.isEmpty())
+			return keep;
 
-			if (results.size < minNeighbors) {
-				cloud.remove(i);
+		// Each thread needs its own search
+		GrowArray<KdSearch> searches = new GrowArray<>(() -> new KdSearch(nn.createSearch()));
+		BoofConcurrency.loopBlocks(0, cloud.size(), searches, ( data, idx0, idx1 ) -> {
+			for (int i = idx0; i < idx1; i++) {
+				data.search.findNearest(cloud.get(i), radiusSq, minFound, data.results);
+				keep.data[i] = data.results.size >= minFound;
 			}
-		}
+		});
+
+		return keep;
 	}
 
 	/**
-	 * Prunes points from the point cloud if they have very few neighbors
+	 * Prunes points from the point cloud if they have very few neighbors. A {@link VoxelHashGrid_F64} is used
+	 * to find neighbors, which makes it O(N), and points are processed concurrently. Removed points are compacted
+	 * in a single pass and all attributes are kept in sync.
 	 *
-	 * @param cloud Point cloud
-	 * @param colors Color of each point.
+	 * @param cloud (Input) Point cloud. Modified.
 	 * @param minNeighbors Minimum number of neighbors for it to not be pruned
 	 * @param radius search distance for neighbors
+	 * @return Number of points which were pruned
 	 */
-	public static void prune( List<Point3D_F64> cloud, DogArray_I32 colors, int minNeighbors, double radius ) {
+	public static int prune( PackedPointCloud_F64 cloud, int minNeighbors, double radius ) {
 		if (minNeighbors < 0)
 			throw new IllegalArgumentException("minNeighbors must be >= 0");
-		NearestNeighbor<Point3D_F64> nn = FactoryNearestNeighbor.kdtree(new KdTreePoint3D_F64());
-		NearestNeighbor.Search<Point3D_F64> search = nn.createSearch();
+		if (cloud.size() == 0)
+			return 0;
 
-		nn.setPoints(cloud, false);
-		DogArray<NnData<Point3D_F64>> results = new DogArray<>(NnData::new);
+		// Neighbors must be inside adjacent voxels if the voxel is the same size as the search radius
+		var grid = new VoxelHashGrid_F64();
+		grid.process(cloud.xyz, radius);
+
+		final var keep = new DogArray_B();
+		keep.resize(cloud.size());
 
 		// It will always find itself
-		minNeighbors += 1;
+		final int minFound = minNeighbors + 1;
 
-		// distance is Euclidean squared
-		radius *= radius;
+		GrowArray<VoxelSearch> searches = new GrowArray<>(() -> new VoxelSearch(grid.createSearch(cloud.xyz)));
+		BoofConcurrency.loopBlocks(0, cloud.size(), searches, ( data, idx0, idx1 ) -> {
+			for (int i = idx0; i < idx1; i++) {
+				cloud.xyz.getCopy(i, data.point);
+				keep.data[i] = data.search.findNearby(data.point, radius, minFound) >= minFound;
+			}
+		});
+
+		return cloud.compact(keep);
+	}
+
+	/**
+	 * Removes statistical outliers from the cloud. For each point the mean distance to its k-nearest neighbors is
+	 * found. Points are removed if their mean distance is more than the global mean plus 'stdevThreshold'
+	 * standard deviations. To keep it O(N) neighbors are only searched for inside the specified radius using a
+	 * {@link VoxelHashGrid_F64}. If fewer than k neighbors are found then the missing neighbors are assumed to
+	 * be at a distance of 'radius'.
+	 *
+	 * @param cloud (Input) Point cloud. Modified.
+	 * @param numNeighbors Number of nearest neighbors used to compute the mean distance
+	 * @param radius Maximum distance a neighbor can be from the point
+	 * @param stdevThreshold Points with a mean distance more than this number of standard deviations are removed
+	 * @return Number of points which were removed
+	 */
+	public static int removeStatisticalOutliers( PackedPointCloud_F64 cloud, int numNeighbors, double radius,
+												 double stdevThreshold ) {
+		if (numNeighbors <= 0)
+			throw new IllegalArgumentException("numNeighbors must be > 0");
+		final int N = cloud.size();
+		if (N == 0)
+			return 0;
+
+		var grid = new VoxelHashGrid_F64();
+		grid.process(cloud.xyz, radius);
 
-		for (int i = cloud.size() - 1; i >= 0; i--) {
-			search.findNearest(cloud.get(i), radius, minNeighbors, results);
+		// Mean distance to the nearest neighbors for each point
+		final var meanDistances = new DogArray_F64();
+		meanDistances.resize(N);
 
-			if (results.size < minNeighbors) {
-				cloud.remove(i);
-				colors.remove(i);
+		GrowArray<VoxelSearch> searches = new GrowArray<>(() -> new VoxelSearch(grid.createSearch(cloud.xyz)));
+		BoofConcurrency.loopBlocks(0, N, searches, ( data, idx0, idx1 ) -> {
+			for (int i = idx0; i < idx1; i++) {
+				cloud.xyz.getCopy(i, data.point);
+				int found = data.search.findNearby(data.point, radius, 0);
+				double[] distancesSq = data.search.distancesSq.data;
+
+				// The point itself will be found with a distance of zero, so it's k+1 nearest
+				int used = Math.min(found, numNeighbors + 1);
+				if (found > used)
+					QuickSelect.select(distancesSq, used, found);
+
+				double sum = 0.0;
+				for (int j = 0; j < used; j++) {
+					sum += Math.sqrt(distancesSq[j]);
+				}
+				sum += (numNeighbors + 1 - used)*radius;
+				meanDistances.data[i] = sum/numNeighbors;
 			}
+		});
+
+		// Statistics of mean distance across the cloud
+		double mean = 0.0;
+		for (int i = 0; i < N; i++) {
+			mean += meanDistances.data[i];
 		}
+		mean /= N;
+		double variance = 0.0;
+		for (int i = 0; i < N; i++) {
+			double d = meanDistances.data[i] - mean;
+			variance += d*d;
+		}
+		double threshold = mean + stdevThreshold*Math.sqrt(variance/N);
+
+		final var keep = new DogArray_B();
+		keep.resize(N);
+		for (int i = 0; i < N; i++) {
+			keep.data[i] = meanDistances.data[i] <= threshold;
+		}
+
+		return cloud.compact(keep);
+	}
+
+	/**
+	 * Down samples the cloud by replacing all the points inside a voxel with a single point. The new point's
+	 * location and color are the average of the points inside the voxel. Normals are averaged and then
+	 * normalized. The view index is taken from the first point inside the voxel. Voxels are processed
+	 * concurrently.
+	 *
+	 * @param cloud (Input) Point cloud
+	 * @param voxelSize Length of a side of each voxel
+	 * @param output (Output) Storage for the down sampled cloud. Can be null.
+	 * @return The down sampled cloud
+	 */
+	public static PackedPointCloud_F64 voxelDownsample( PackedPointCloud_F64 cloud, double voxelSize,
+														@Nullable PackedPointCloud_F64 output ) {
+		if (output == null)
+			output = new PackedPointCloud_F64();
+		output.initialize(cloud.hasColor(), cloud.hasNormals(), cloud.hasViews());
+
+		var grid = new VoxelHashGrid_F64();
+		grid.process(cloud.xyz, voxelSize);
+
+		// Each voxel is written to its own point, so threads don't need to coordinate
+		final int numVoxels = grid.getVoxelCount();
+		output.resize(numVoxels);
+		if (numVoxels == 0)
+			return output;
+
+		final PackedPointCloud_F64 _output = output;
+		GrowArray<VoxelWork> workspace = new GrowArray<>(VoxelWork::new);
+		BoofConcurrency.loopBlocks(0, numVoxels, workspace, ( work, voxel0, voxel1 ) -> {
+			final Point3D_F64 p = work.point;
+			final Point3D_F32 n = work.normal;
+
+			for (int voxel = voxel0; voxel < voxel1; voxel++) {
+				int idx0 = grid.voxelStart.data[voxel];
+				int idx1 = grid.voxelStart.data[voxel + 1];
+				int count = idx1 - idx0;
+
+				double sumX = 0, sumY = 0, sumZ = 0;
+				double sumNX = 0, sumNY = 0, sumNZ = 0;
+				int sumR = 0, sumG = 0, sumB = 0;
+				for (int idx = idx0; idx < idx1; idx++) {
+					int pointIdx = grid.sortedPoints.data[idx];
+					cloud.xyz.getCopy(pointIdx, p);
+					sumX += p.x;
+					sumY += p.y;
+					sumZ += p.z;
+
+					if (cloud.hasColor()) {
+						int rgb = cloud.rgb.get(pointIdx);
+						sumR += (rgb >> 16) & 0xFF;
+						sumG += (rgb >> 8) & 0xFF;
+						sumB += rgb & 0xFF;
+					}
+
+					if (cloud.hasNormals()) {
+						cloud.normals.getCopy(pointIdx, n);
+						sumNX += n.x;
+						sumNY += n.y;
+						sumNZ += n.z;
+					}
+				}
+
+				_output.xyz.set(voxel, sumX/count, sumY/count, sumZ/count);
+				if (cloud.hasColor())
+					_output.setRgb(voxel, (sumR/count) << 16 | (sumG/count) << 8 | (sumB/count));
+				if (cloud.hasNormals()) {
+					double norm = Math.sqrt(sumNX*sumNX + sumNY*sumNY + sumNZ*sumNZ);
+					if (norm > 0.0)
+						_output.setNormal(voxel, (float)(sumNX/norm), (float)(sumNY/norm), (float)(sumNZ/norm));
+					else
+						_output.setNormal(voxel, 0.0f, 0.0f, 0.0f);
+				}
+				if (cloud.hasViews())
+					_output.setView(voxel, cloud.views.get(grid.sortedPoints.data[idx0]));
+			}
+		});
+
+		return output;
+	}
+
+	/** Workspace for a thread searching a kd-tree */
+	private static class KdSearch {
+		final NearestNeighbor.Search<Point3D_F64> search;
+		final DogArray<NnData<Point3D_F64>> results = new DogArray<>(NnData::new);
+
+		public KdSearch( NearestNeighbor.Search<Point3D_F64> search ) {
+			this.search = search;
+		}
+	}
+
+	/** Workspace for a thread searching a voxel grid */
+	private static class VoxelSearch {
+		final VoxelHashGrid_F64.Search search;
+		final Point3D_F64 point = new Point3D_F64();
+
+		public VoxelSearch( VoxelHashGrid_F64.Search search ) {
+			this.search = search;
+		}
+	}
+
+	/** Workspace for a thread computing the average of each voxel */
+	private static class VoxelWork {
+		final Point3D_F64 point = new Point3D_F64();
+		final Point3D_F32 normal = new Point3D_F32();
 	}
 }
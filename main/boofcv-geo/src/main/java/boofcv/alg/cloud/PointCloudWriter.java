@@ -20,6 +20,7 @@ package boofcv.alg.cloud;
 
 import boofcv.struct.Point3dRgbI_F32;
 import boofcv.struct.Point3dRgbI_F64;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import georegression.struct.point.Point3D_F32;
 import georegression.struct.point.Point3D_F64;
 import org.ddogleg.struct.DogArray;
@@ -45,6 +46,20 @@ public interface PointCloudWriter {
 	 */
 	void add( double x, double y, double z, int rgb );
 
+	/**
+	 * Adds a block of points which are stored in arrays. By default each point is passed to
+	 * {@link #add}. Writers which store points in packed arrays override this to copy the block at once.
+	 *
+	 * @param xyz (Input) Interleaved location of each point, (x,y,z)
+	 * @param rgb (Input) Color of each point
+	 * @param count Number of points in the block
+	 */
+	default void addBlock( double[] xyz, int[] rgb, int count ) {
+		for (int i = 0; i < count; i++) {
+			add(xyz[i*3], xyz[i*3 + 1], xyz[i*3 + 2], rgb[i]);
+		}
+	}
+
 	class CloudArraysF32 implements PointCloudWriter {
 		// Storage for point cloud
 		public DogArray_F32 cloudXyz = new DogArray_F32();
@@ -119,4 +134,26 @@ public interface PointCloudWriter {
 			}
 		};
 	}
+
+	/**
+	 * Writes to a {@link PackedPointCloud_F64}. The cloud will have color if the source has color.
+	 */
+	static PointCloudWriter wrap( PackedPointCloud_F64 cloud ) {
+		return new PointCloudWriter() {
+			@Override public void initialize( int size, boolean hasColor ) {
+				cloud.initialize(hasColor, false, false);
+				if (size > 0)
+					cloud.reserve(size);
+			}
+
+			@Override
+			public void add( double x, double y, double z, int rgb ) {
+				cloud.append(x, y, z, rgb);
+			}
+
+			@Override public void addBlock( double[] xyz, int[] rgb, int count ) {
+				cloud.appendBlock(xyz, rgb, 0, count);
+			}
+		};
+	}
 }
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.cloud;
+
+import boofcv.misc.BoofMiscOps;
+import boofcv.struct.PackedArray;
+import georegression.struct.point.Point3D_F64;
+import lombok.Getter;
+import org.ddogleg.struct.DogArray_F64;
+import org.ddogleg.struct.DogArray_I32;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Spatial index for a point cloud where each point is assigned to a cube shaped voxel. Only voxels which contain
+ * points are saved and they are looked up using a hash table, so memory scales with the number of points and not
+ * the volume the cloud occupies. After the index has been built, points are sorted by the voxel they belong to
+ * into a single array, so the points inside a voxel can be traversed without any additional lookups.
+ * Building the index is O(N).
+ * </p>
+ *
+ * <p>
+ * Once built, the index can be searched from multiple threads at the same time by creating a {@link Search}
+ * for each thread.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class VoxelHashGrid_F64 {
+	/** Length of a side of a voxel */
+	@Getter protected double voxelSize;
+
+	/** Integer coordinate of each voxel */
+	public final DogArray_I32 voxelX = new DogArray_I32();
+	public final DogArray_I32 voxelY = new DogArray_I32();
+	public final DogArray_I32 voxelZ = new DogArray_I32();
+
+	/** Index in {@link #sortedPoints} of the first point in each voxel. Has one more element than voxels. */
+	public final DogArray_I32 voxelStart = new DogArray_I32();
+
+	/** Index of every point in the cloud sorted by which voxel it's inside of */
+	public final DogArray_I32 sortedPoints = new DogArray_I32();
+
+	/** Index of the voxel each point is inside of */
+	public final DogArray_I32 pointToVoxel = new DogArray_I32();
+
+	// Open addressing hash table. Each element is the index of a voxel or -1 if empty. Length is a power of two.
+	protected int[] table = new int[0];
+
+	// Number of points in each voxel and then the location the next point is written to while sorting
+	protected final DogArray_I32 work = new DogArray_I32();
+
+	/**
+	 * Builds the index by assigning every point in the cloud to a voxel
+	 *
+	 * @param cloud (Input) Point cloud. All points must have finite values.
+	 * @param voxelSize (Input) Length of a side of each voxel
+	 */
+	public void process( PackedArray<Point3D_F64> cloud, double voxelSize ) {
+		BoofMiscOps.checkTrue(voxelSize > 0.0, "voxelSize must be more than zero");
+		this.voxelSize = voxelSize;
+		final int N = cloud.size();
+
+		voxelX.reset();
+		voxelY.reset();
+		voxelZ.reset();
+		work.reset();
+		pointToVoxel.resize(N);
+
+		// Initial guess assumes several points per voxel. The table will grow if needed
+		resetTable(Math.max(1024, N/4));
+
+		// Assign each point to a voxel and count the number of points in each voxel
+		cloud.forIdx(0, N, ( idx, p ) -> {
+			int voxel = findOrAdd(coordinate(p.x), coordinate(p.y), coordinate(p.z));
+			pointToVoxel.data[idx] = voxel;
+			work.data[voxel]++;
+		});
+
+		// Convert the counts into where each voxel starts in the sorted array
+		final int numVoxels = voxelX.size;
+		voxelStart.resize(numVoxels + 1);
+		voxelStart.data[0] = 0;
+		for (int voxel = 0; voxel < numVoxels; voxel++) {
+			voxelStart.data[voxel + 1] = voxelStart.data[voxel] + work.data[voxel];
+			work.data[voxel] = voxelStart.data[voxel];
+		}
+
+		// Counting sort of points by voxel
+		sortedPoints.resize(N);
+		for (int pointIdx = 0; pointIdx < N; pointIdx++) {
+			sortedPoints.data[work.data[pointToVoxel.data[pointIdx]]++] = pointIdx;
+		}
+	}
+
+	/**
+	 * Converts a coordinate along one axis into a voxel coordinate
+	 */
+	public int coordinate( double value ) {
+		return (int)Math.floor(value/voxelSize);
+	}
+
+	/**
+	 * Returns the index of the voxel at the specified voxel coordinate or -1 if it has no points
+	 */
+	public int findVoxel( int x, int y, int z ) {
+		final int mask = table.length - 1;
+		int slot = hash(x, y, z) & mask;
+		while (true) {
+			int voxel = table[slot];
+			if (voxel == -1 || (voxelX.data[voxel] == x && voxelY.data[voxel] == y && voxelZ.data[voxel] == z))
+				return voxel;
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Returns the index of the voxel at the specified voxel coordinate. If it doesn't exist a new voxel is added.
+	 */
+	protected int findOrAdd( int x, int y, int z ) {
+		final int mask = table.length - 1;
+		int slot = hash(x, y, z) & mask;
+		while (true) {
+			int voxel = table[slot];
+			if (voxel == -1)
+				break;
+			if (voxelX.data[voxel] == x && voxelY.data[voxel] == y && voxelZ.data[voxel] == z)
+				return voxel;
+			slot = (slot + 1) & mask;
+		}
+
+		int voxel = voxelX.size;
+		voxelX.add(x);
+		voxelY.add(y);
+		voxelZ.add(z);
+		work.add(0);
+		table[slot] = voxel;
+
+		// Keep the table at most half full so that collisions are rare
+		if (voxelX.size*2 > table.length)
+			resizeTable(table.length*2);
+
+		return voxel;
+	}
+
+	/**
+	 * Creates an empty table which has a length that's the smallest power of two &ge; minimumLength
+	 */
+	protected void resetTable( int minimumLength ) {
+		int length = Integer.highestOneBit(minimumLength - 1) << 1;
+		if (table.length != length)
+			table = new int[length];
+		Arrays.fill(table, -1);
+	}
+
+	/**
+	 * Increases the size of the table and adds all the existing voxels to it
+	 */
+	protected void resizeTable( int length ) {
+		table = new int[length];
+		Arrays.fill(table, -1);
+
+		final int mask = length - 1;
+		for (int voxel = 0; voxel < voxelX.size; voxel++) {
+			int slot = hash(voxelX.data[voxel], voxelY.data[voxel], voxelZ.data[voxel]) & mask;
+			while (table[slot] != -1) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = voxel;
+		}
+	}
+
+	protected static int hash( int x, int y, int z ) {
+		int h = x*73856093 ^ y*19349663 ^ z*83492791;
+		return h ^ (h >>> 16);
+	}
+
+	/** Number of voxels which contain at least one point */
+	public int getVoxelCount() {
+		return voxelX.size;
+	}
+
+	/** Number of points inside the voxel */
+	public int getPointCount( int voxel ) {
+		return voxelStart.data[voxel + 1] - voxelStart.data[voxel];
+	}
+
+	/**
+	 * Creates a new search. Each thread needs its own search.
+	 *
+	 * @param cloud The same cloud which was passed into {@link #process}
+	 */
+	public Search createSearch( PackedArray<Point3D_F64> cloud ) {
+		return new Search(cloud);
+	}
+
+	/**
+	 * Finds points near a target point by only examining the voxel the target is inside and its 26 neighbors.
+	 * The search radius can't be larger than the voxel size.
+	 */
+	public class Search {
+		/** Index of each point found */
+		public final DogArray_I32 indexes = new DogArray_I32();
+
+		/** Euclidean distance squared of each point found */
+		public final DogArray_F64 distancesSq = new DogArray_F64();
+
+		final PackedArray<Point3D_F64> cloud;
+		final Point3D_F64 candidate = new Point3D_F64();
+
+		protected Search( PackedArray<Point3D_F64> cloud ) {
+			this.cloud = cloud;
+		}
+
+		/**
+		 * Finds all points within the radius of the target. The order of points found is arbitrary. If the target
+		 * is in the cloud it will be found too.
+		 *
+		 * @param target (Input) Point being searched around
+		 * @param radius (Input) Maximum Euclidean distance. Must be &le; voxel size.
+		 * @param maxResults (Input) The search stops once this many points have been found. If &le; 0 there's
+		 * no limit.
+		 * @return Number of points found
+		 */
+		public int findNearby( Point3D_F64 target, double radius, int maxResults ) {
+			BoofMiscOps.checkTrue(radius <= voxelSize, "radius must be less than or equal to the voxel size");
+			indexes.reset();
+			distancesSq.reset();
+			if (maxResults <= 0)
+				maxResults = Integer.MAX_VALUE;
+
+			final double radiusSq = radius*radius;
+			final int cx = coordinate(target.x);
+			final int cy = coordinate(target.y);
+			final int cz = coordinate(target.z);
+
+			for (int z = cz - 1; z <= cz + 1; z++) {
+				for (int y = cy - 1; y <= cy + 1; y++) {
+					for (int x = cx - 1; x <= cx + 1; x++) {
+						int voxel = findVoxel(x, y, z);
+						if (voxel == -1)
+							continue;
+
+						int idx1 = voxelStart.data[voxel + 1];
+						for (int idx = voxelStart.data[voxel]; idx < idx1; idx++) {
+							int pointIdx = sortedPoints.data[idx];
+							cloud.getCopy(pointIdx, candidate);
+							double d = candidate.distance2(target);
+							if (d > radiusSq)
+								continue;
+							indexes.add(pointIdx);
+							distancesSq.add(d);
+							if (indexes.size >= maxResults)
+								return indexes.size;
+						}
+					}
+				}
+			}
+			return indexes.size;
+		}
+	}
+}
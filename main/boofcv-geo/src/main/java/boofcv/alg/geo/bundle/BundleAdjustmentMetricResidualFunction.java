@@ -29,8 +29,11 @@ import georegression.struct.point.Point4D_F64;
 import georegression.struct.se.Se3_F64;
 import georegression.transform.se.SePointOps_F64;
 import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_I32;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -50,23 +53,16 @@ import java.util.Map;
  */
 public class BundleAdjustmentMetricResidualFunction
 		implements BundleAdjustmentSchur.FunctionResiduals<SceneStructureMetric> {
-	private SceneStructureMetric structure;
-	private SceneObservations observations;
-
-	// feature location in world coordinates
-	private final Point3D_F64 worldPt = new Point3D_F64();
+	protected SceneStructureMetric structure;
+	protected SceneObservations observations;
 
 	// number of parameters being optimised
 	private int numParameters;
 	// number of observations. 2 for each point in each view
 	private int numObservations;
 
-	// local variable which stores the predicted location of the feature in the camera frame
-	private final Point3D_F64 cameraPt = new Point3D_F64();
-
-	// Storage for rendered output
-	private final Point2D_F64 predictedPixel = new Point2D_F64();
-	private final PointIndex2D_F64 observedPixel = new PointIndex2D_F64();
+	// Index of the first observation in each view
+	protected final DogArray_I32 viewObservationOffset = new DogArray_I32();
 
 	// Used to write the "unknown" parameters into the scene
 	private final CodecSceneStructureMetric codec = new CodecSceneStructureMetric();
@@ -75,10 +71,11 @@ public class BundleAdjustmentMetricResidualFunction
 	private final DogArray<Se3_F64> storageSe3 = new DogArray<>(Se3_F64::new);
 	// Look up workspace by view ID when relative view
 	private final Map<SceneStructureMetric.View, Se3_F64> mapWorldToView = new HashMap<>();
+	// world to view transform for every view. Updated every time the parameters change
+	protected final List<Se3_F64> listWorldToView = new ArrayList<>();
 
-	// Storage for 3D points in Cartesian and homogenous coordinates
-	private final Point3D_F64 p3 = new Point3D_F64();
-	private final Point4D_F64 p4 = new Point4D_F64();
+	// Workspace for the single thread version
+	private final Workspace workspace = new Workspace();
 
 	/**
 	 * Specifies the scenes structure and observed feature locations
@@ -103,6 +100,16 @@ public class BundleAdjustmentMetricResidualFunction
 			Se3_F64 world_to_view = storageSe3.grow();
 			mapWorldToView.put(v, world_to_view);
 		}
+
+		// Location of each view's observations in the residuals
+		viewObservationOffset.reset();
+		int offset = 0;
+		for (int viewIdx = 0; viewIdx < structure.views.size; viewIdx++) {
+			viewObservationOffset.add(offset);
+			offset += observations.views.get(viewIdx).size();
+			if (observations.hasRigid())
+				offset += observations.viewsRigid.get(viewIdx).size();
+		}
 	}
 
 	@Override
@@ -121,71 +128,96 @@ public class BundleAdjustmentMetricResidualFunction
 		// write the current parameters into the scene's structure
 		codec.decode(input, structure);
 
+		// Relative views depend on their parent's transform, so this is done in order
+		listWorldToView.clear();
+		for (int viewIndex = 0; viewIndex < structure.views.size; viewIndex++) {
+			listWorldToView.add(lookupWorldToView(structure.views.get(viewIndex)));
+		}
+
 		// Project the general scene now
-		if (structure.isHomogenous())
-			project4(output);
-		else
-			project3(output);
+		projectAllViews(output);
 	}
 
 	/**
-	 * projection from 3D coordinates
+	 * Computes residuals for every view
 	 */
-	private void project3( double[] output ) {
-		int observationIndex = 0;
-		for (int viewIndex = 0; viewIndex < structure.views.size; viewIndex++) {
-			SceneStructureMetric.View view = structure.views.get(viewIndex);
-			SceneStructureCommon.Camera camera = structure.cameras.get(view.camera);
-
-			Se3_F64 world_to_view = lookupWorldToView(view);
-
-			//=========== Project General Points in this View
-			{
-				SceneObservations.View obsView = observations.views.get(viewIndex);
-				for (int i = 0; i < obsView.size(); i++) {
-					obsView.getPixel(i, observedPixel);
-					SceneStructureCommon.Point worldPt = structure.points.data[observedPixel.index];
-					worldPt.get(p3);
-
-					SePointOps_F64.transform(world_to_view, p3, cameraPt);
+	protected void projectAllViews( double[] output ) {
+		projectViews(0, structure.views.size, output, workspace);
+	}
 
-					camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
+	/**
+	 * Computes the residuals for all observations in the specified range of views. Residuals in different views
+	 * are independent of each other.
+	 *
+	 * @param view0 First view, inclusive
+	 * @param view1 Last view, exclusive
+	 */
+	protected void projectViews( int view0, int view1, double[] output, Workspace work ) {
+		for (int viewIndex = view0; viewIndex < view1; viewIndex++) {
+			if (structure.isHomogenous())
+				project4(viewIndex, output, work);
+			else
+				project3(viewIndex, output, work);
+		}
+	}
 
-					int outputIndex = observationIndex*2;
-					output[outputIndex] = predictedPixel.x - observedPixel.p.x;
-					output[outputIndex + 1] = predictedPixel.y - observedPixel.p.y;
-					observationIndex++;
-				}
+	/**
+	 * projection from 3D coordinates
+	 */
+	private void project3( int viewIndex, double[] output, Workspace work ) {
+		SceneStructureMetric.View view = structure.views.get(viewIndex);
+		SceneStructureCommon.Camera camera = structure.cameras.get(view.camera);
+
+		Se3_F64 world_to_view = listWorldToView.get(viewIndex);
+		PointIndex2D_F64 observedPixel = work.observedPixel;
+		int observationIndex = viewObservationOffset.get(viewIndex);
+
+		//=========== Project General Points in this View
+		{
+			SceneObservations.View obsView = observations.views.get(viewIndex);
+			for (int i = 0; i < obsView.size(); i++) {
+				obsView.getPixel(i, observedPixel);
+				SceneStructureCommon.Point worldPt = structure.points.data[observedPixel.index];
+				worldPt.get(work.p3);
+
+				SePointOps_F64.transform(world_to_view, work.p3, work.cameraPt);
+
+				camera.model.project(work.cameraPt.x, work.cameraPt.y, work.cameraPt.z, work.predictedPixel);
+
+				int outputIndex = observationIndex*2;
+				output[outputIndex] = work.predictedPixel.x - observedPixel.p.x;
+				output[outputIndex + 1] = work.predictedPixel.y - observedPixel.p.y;
+				observationIndex++;
 			}
+		}
 
-			//=========== Project Rigid Object Points in this View
-			if (observations.hasRigid()) {
-				SceneObservations.View obsView = observations.viewsRigid.get(viewIndex);
-				for (int i = 0; i < obsView.size(); i++) {
-					obsView.getPixel(i, observedPixel);
-
-					// Use lookup table to figure out which rigid object it belongs to
-					int rigidIndex = structure.lookupRigid[observedPixel.index];
-					SceneStructureMetric.Rigid rigid = structure.rigids.get(rigidIndex);
-					// Compute the point's index on the rigid object
-					int pointIndex = observedPixel.index - rigid.indexFirst;
-
-					// Load the 3D location of point on the rigid body
-					SceneStructureCommon.Point objectPt = rigid.points[pointIndex];
-					objectPt.get(p3);
-
-					// Transform to world frame and from world to camera
-					SePointOps_F64.transform(rigid.object_to_world, p3, worldPt);
-					SePointOps_F64.transform(world_to_view, worldPt, cameraPt);
-
-					// Project and compute residual
-					camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
-
-					int outputIndex = observationIndex*2;
-					output[outputIndex] = predictedPixel.x - observedPixel.p.x;
-					output[outputIndex + 1] = predictedPixel.y - observedPixel.p.y;
-					observationIndex++;
-				}
+		//=========== Project Rigid Object Points in this View
+		if (observations.hasRigid()) {
+			SceneObservations.View obsView = observations.viewsRigid.get(viewIndex);
+			for (int i = 0; i < obsView.size(); i++) {
+				obsView.getPixel(i, observedPixel);
+
+				// Use lookup table to figure out which rigid object it belongs to
+				int rigidIndex = structure.lookupRigid[observedPixel.index];
+				SceneStructureMetric.Rigid rigid = structure.rigids.get(rigidIndex);
+				// Compute the point's index on the rigid object
+				int pointIndex = observedPixel.index - rigid.indexFirst;
+
+				// Load the 3D location of point on the rigid body
+				SceneStructureCommon.Point objectPt = rigid.points[pointIndex];
+				objectPt.get(work.p3);
+
+				// Transform to world frame and from world to camera
+				SePointOps_F64.transform(rigid.object_to_world, work.p3, work.worldPt);
+				SePointOps_F64.transform(world_to_view, work.worldPt, work.cameraPt);
+
+				// Project and compute residual
+				camera.model.project(work.cameraPt.x, work.cameraPt.y, work.cameraPt.z, work.predictedPixel);
+
+				int outputIndex = observationIndex*2;
+				output[outputIndex] = work.predictedPixel.x - observedPixel.p.x;
+				output[outputIndex + 1] = work.predictedPixel.y - observedPixel.p.y;
+				observationIndex++;
 			}
 		}
 	}
@@ -193,63 +225,62 @@ public class BundleAdjustmentMetricResidualFunction
 	/**
 	 * projection from homogenous coordinates
 	 */
-	private void project4( double[] output ) {
-		int observationIndex = 0;
-		for (int viewIndex = 0; viewIndex < structure.views.size; viewIndex++) {
-			SceneStructureMetric.View view = structure.views.get(viewIndex);
-			SceneStructureCommon.Camera camera = structure.cameras.get(view.camera);
+	private void project4( int viewIndex, double[] output, Workspace work ) {
+		SceneStructureMetric.View view = structure.views.get(viewIndex);
+		SceneStructureCommon.Camera camera = structure.cameras.get(view.camera);
 
-			Se3_F64 world_to_view = lookupWorldToView(view);
+		Se3_F64 world_to_view = listWorldToView.get(viewIndex);
+		PointIndex2D_F64 observedPixel = work.observedPixel;
+		int observationIndex = viewObservationOffset.get(viewIndex);
 
-			//=========== Project General Points in this View
-			{
-				SceneObservations.View obsView = observations.views.get(viewIndex);
+		//=========== Project General Points in this View
+		{
+			SceneObservations.View obsView = observations.views.get(viewIndex);
 
-				for (int i = 0; i < obsView.size(); i++) {
-					obsView.getPixel(i, observedPixel);
-					SceneStructureCommon.Point worldPt = structure.points.data[observedPixel.index];
-					worldPt.get(p4);
+			for (int i = 0; i < obsView.size(); i++) {
+				obsView.getPixel(i, observedPixel);
+				SceneStructureCommon.Point worldPt = structure.points.data[observedPixel.index];
+				worldPt.get(work.p4);
 
-					// TODO Explain why this is correct. The last row is omitted when converted to 3D
-					SePointOps_F64.transformV(world_to_view, p4, cameraPt);
+				// TODO Explain why this is correct. The last row is omitted when converted to 3D
+				SePointOps_F64.transformV(world_to_view, work.p4, work.cameraPt);
 
-					camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
+				camera.model.project(work.cameraPt.x, work.cameraPt.y, work.cameraPt.z, work.predictedPixel);
 
-					int outputIndex = observationIndex*2;
-					output[outputIndex] = predictedPixel.x - observedPixel.p.x;
-					output[outputIndex + 1] = predictedPixel.y - observedPixel.p.y;
-					observationIndex++;
-				}
+				int outputIndex = observationIndex*2;
+				output[outputIndex] = work.predictedPixel.x - observedPixel.p.x;
+				output[outputIndex + 1] = work.predictedPixel.y - observedPixel.p.y;
+				observationIndex++;
 			}
+		}
 
-			//=========== Project Rigid Object Points in this View
-			if (observations.hasRigid()) {
-				SceneObservations.View obsView = observations.viewsRigid.get(viewIndex);
+		//=========== Project Rigid Object Points in this View
+		if (observations.hasRigid()) {
+			SceneObservations.View obsView = observations.viewsRigid.get(viewIndex);
 
-				for (int i = 0; i < obsView.size(); i++) {
-					obsView.getPixel(i, observedPixel);
+			for (int i = 0; i < obsView.size(); i++) {
+				obsView.getPixel(i, observedPixel);
 
-					// Use lookup table to figure out which rigid object it belongs to
-					int rigidIndex = structure.lookupRigid[observedPixel.index];
-					SceneStructureMetric.Rigid rigid = structure.rigids.get(rigidIndex);
-					// Compute the point's index on the rigid object
-					int pointIndex = observedPixel.index - rigid.indexFirst;
+				// Use lookup table to figure out which rigid object it belongs to
+				int rigidIndex = structure.lookupRigid[observedPixel.index];
+				SceneStructureMetric.Rigid rigid = structure.rigids.get(rigidIndex);
+				// Compute the point's index on the rigid object
+				int pointIndex = observedPixel.index - rigid.indexFirst;
 
-					// Load the 3D location of point on the rigid body
-					SceneStructureCommon.Point objectPt = rigid.points[pointIndex];
-					objectPt.get(p4);
+				// Load the 3D location of point on the rigid body
+				SceneStructureCommon.Point objectPt = rigid.points[pointIndex];
+				objectPt.get(work.p4);
 
-					// Transform to world frame and from world to camera
-					SePointOps_F64.transformV(rigid.object_to_world, p4, worldPt);
-					SePointOps_F64.transform(world_to_view, worldPt, cameraPt);
+				// Transform to world frame and from world to camera
+				SePointOps_F64.transformV(rigid.object_to_world, work.p4, work.worldPt);
+				SePointOps_F64.transform(world_to_view, work.worldPt, work.cameraPt);
 
-					camera.model.project(cameraPt.x, cameraPt.y, cameraPt.z, predictedPixel);
+				camera.model.project(work.cameraPt.x, work.cameraPt.y, work.cameraPt.z, work.predictedPixel);
 
-					int outputIndex = observationIndex*2;
-					output[outputIndex] = predictedPixel.x - observedPixel.p.x;
-					output[outputIndex + 1] = predictedPixel.y - observedPixel.p.y;
-					observationIndex++;
-				}
+				int outputIndex = observationIndex*2;
+				output[outputIndex] = work.predictedPixel.x - observedPixel.p.x;
+				output[outputIndex + 1] = work.predictedPixel.y - observedPixel.p.y;
+				observationIndex++;
 			}
 		}
 	}
@@ -277,4 +308,20 @@ public class BundleAdjustmentMetricResidualFunction
 		}
 		return world_to_view;
 	}
+
+	/**
+	 * Storage used while computing residuals
+	 */
+	protected static class Workspace {
+		// feature location in world coordinates
+		final Point3D_F64 worldPt = new Point3D_F64();
+		// local variable which stores the predicted location of the feature in the camera frame
+		final Point3D_F64 cameraPt = new Point3D_F64();
+		// Storage for rendered output
+		final Point2D_F64 predictedPixel = new Point2D_F64();
+		final PointIndex2D_F64 observedPixel = new PointIndex2D_F64();
+		// Storage for 3D points in Cartesian and homogenous coordinates
+		final Point3D_F64 p3 = new Point3D_F64();
+		final Point4D_F64 p4 = new Point4D_F64();
+	}
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.concurrency.BoofConcurrency;
+import pabeles.concurrency.GrowArray;
+
+/**
+ * Concurrent implementation of {@link BundleAdjustmentMetricResidualFunction}. Views are split into blocks and
+ * the residuals for each block are computed in a different thread. Each view writes to its own section of the
+ * output array, so the results are identical to the single thread version. The parameters are still decoded in
+ * a single thread since that modifies the scene.
+ *
+ * @author Peter Abeles
+ */
+public class BundleAdjustmentMetricResidualFunction_MT extends BundleAdjustmentMetricResidualFunction {
+
+	/** If there are fewer observations than this it will use the single thread version */
+	public int minimumObservationsConcurrent = 2000;
+
+	// Workspace for each thread
+	private final GrowArray<Workspace> workspaces = new GrowArray<>(Workspace::new);
+
+	@Override
+	protected void projectAllViews( double[] output ) {
+		if (getNumOfOutputsM()/2 < minimumObservationsConcurrent) {
+			super.projectAllViews(output);
+			return;
+		}
+
+		BoofConcurrency.loopBlocks(0, structure.views.size, workspaces, ( work, view0, view1 ) ->
+				projectViews(view0, view1, output, work));
+	}
+}
@@ -18,6 +18,7 @@
 
 package boofcv.alg.geo.bundle;
 
+import boofcv.abst.geo.bundle.BundleAdjustmentCamera;
 import boofcv.abst.geo.bundle.BundleAdjustmentSchur;
 import boofcv.abst.geo.bundle.SceneObservations;
 import boofcv.abst.geo.bundle.SceneStructureCommon;
@@ -29,11 +30,10 @@ import georegression.struct.point.Point4D_F64;
 import georegression.struct.point.Vector3D_F64;
 import georegression.struct.se.Se3_F64;
 import georegression.transform.se.SePointOps_F64;
-import gnu.trove.map.TIntObjectMap;
-import gnu.trove.map.hash.TIntObjectHashMap;
 import lombok.Getter;
 import lombok.Setter;
 import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_I32;
 import org.ejml.data.DMatrix;
 import org.ejml.data.DMatrixRMaj;
 import org.ejml.data.ReshapeMatrix;
@@ -44,14 +44,17 @@ import java.util.Map;
 
 /**
  * Computes the Jacobian for bundle adjustment with a Schur implementation. This is the base class
- * for specific types of matrices
+ * for specific types of matrices.
+ *
+ * The parameters are first decoded into the scene in a single pass. After that the rows for each view only
+ * depend on that view's observations and can be computed independently, using the workspace passed in.
  *
  * @author Peter Abeles
  */
 public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		implements BundleAdjustmentSchur.Jacobian<SceneStructureMetric, M> {
-	private SceneStructureMetric structure;
-	private SceneObservations observations;
+	protected SceneStructureMetric structure;
+	protected SceneObservations observations;
 
 	// number of views with parameters that are going to be adjusted
 	private int numMotionsUnknown;
@@ -71,24 +74,12 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 	private final DogArray<DMatrixRMaj[]> storageSO3Jac = new DogArray<>(this::declareRotJacStorage);
 	// Look up workspace by view ID when relative view. Only filled in when a relative view is encountered
 	private final Map<SceneStructureMetric.View, Se3_F64> mapWorldToView = new HashMap<>();
-	private final TIntObjectMap<DMatrixRMaj[]> mapSO3Jac = new TIntObjectHashMap<>();
-	// If only one view will use a particular motion then we don't want to store the Jacobian for future use
-
-	// Workspace for world to view transform
-	private final Se3_F64 world_to_view = new Se3_F64();
+	// Partials of the SO3 parameters for each motion. null if the motion is known
+	private DMatrixRMaj[][] motionSO3Jac = new DMatrixRMaj[0][];
 
 	// Jacobians for rigid objects
 	private JacobianSo3[] jacRigidS03;
 
-	// feature location in world coordinates
-	private final Point3D_F64 worldPt3 = new Point3D_F64();
-	private final Point4D_F64 worldPt4 = new Point4D_F64();
-	// feature location in rigid body coordinates
-	private final Point3D_F64 rigidPt3 = new Point3D_F64();
-	private final Point4D_F64 rigidPt4 = new Point4D_F64();
-	// feature location in camera coordinates
-	private final Point3D_F64 cameraPt = new Point3D_F64();
-
 	// Number of parameters to describe SE3 (rotation + translation)
 	private int lengthSE3;
 	// first index for rigid body parameters
@@ -102,25 +93,14 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 	private int[] motionParameterIndexes;
 	// first index in input/parameters vector for each camera. Right side
 	private int[] cameraParameterIndexes;
+	// Largest number of intrinsic parameters in a camera
+	protected int largestCameraSize;
 
-	// Jacobian matrix index of x and y partial
-	private int jacRowX, jacRowY;
-
-	// Storage for gradients
-	private final double[] pointGradX = new double[3];
-	private final double[] pointGradY = new double[3];
-	private double[] calibGradX = null;
-	private double[] calibGradY = null;
+	// Index of the first observation in each view
+	protected final DogArray_I32 viewObservationOffset = new DogArray_I32();
 
-	// work space for R2*R1
-	DMatrixRMaj RR = new DMatrixRMaj(3, 3);
-
-	// Storage for current view's partials of SO3
-	private DMatrixRMaj[] arraySO3 = new DMatrixRMaj[0];
-	private final DMatrixRMaj accumulatedR = new DMatrixRMaj(3, 3);
-	private final Point4D_F64 worldX = new Point4D_F64();
-	private final Point3D_F64 pt3 = new Point3D_F64();
-	private final DMatrixRMaj tmp3x3 = new DMatrixRMaj(3, 3);
+	// Workspace for the single thread version
+	private final Workspace workspace = new Workspace();
 
 	@Override
 	public void configure( SceneStructureMetric structure, SceneObservations observations ) {
@@ -168,7 +148,7 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 
 		// Create a lookup table for each camera. Camera ID to location in parameter vector
 		cameraParameterIndexes = new int[structure.cameras.size];
-		int largestCameraSize = 0;
+		largestCameraSize = 0;
 		for (int i = 0, index = 0; i < structure.cameras.size; i++) {
 			if (!structure.cameras.get(i).known) {
 				cameraParameterIndexes[i] = index;
@@ -178,12 +158,19 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 			}
 		}
 
-		calibGradX = new double[largestCameraSize];
-		calibGradY = new double[largestCameraSize];
+		// Location of each view's observations in the Jacobian
+		viewObservationOffset.reset();
+		int offset = 0;
+		for (int viewIdx = 0; viewIdx < structure.views.size; viewIdx++) {
+			viewObservationOffset.add(offset);
+			offset += observations.views.get(viewIdx).size();
+			if (observations.hasRigid())
+				offset += observations.viewsRigid.get(viewIdx).size();
+		}
 
 		// Storage for relative views
 		declareStorageWorldToView(structure);
-		declareStoragePartialsSE3(structure);
+		declareStoragePartialsSO3(structure);
 	}
 
 	/**
@@ -202,14 +189,12 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 	}
 
 	/**
-	 * Pre-declare storage for all the SO3 Jacobians that will need to be retrieved as part of a relative view
-	 * in the future. This is needed when relative views are in use. When there are no regular views then
-	 * these sparse data structures will be empty.
+	 * Pre-declare storage for the SO3 Jacobian of every unknown motion. These are computed when the parameters
+	 * are decoded and are then looked up by every view which depends on the motion, including relative views.
 	 */
-	private void declareStoragePartialsSE3( SceneStructureMetric structure ) {
+	private void declareStoragePartialsSO3( SceneStructureMetric structure ) {
 		int lengthParam = storageSO3Jac.grow().length;
 
-		mapSO3Jac.clear();
 		// see if the parameterization changed. If so discard all the old data
 		if (jacSO3.getParameterLength() != lengthParam) {
 			storageSO3Jac.data = new DMatrixRMaj[0][];
@@ -217,21 +202,12 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		} else {
 			storageSO3Jac.reset();
 		}
-		arraySO3 = arraySO3.length != lengthParam ? new DMatrixRMaj[lengthParam] : arraySO3;
-		for (int viewIdx = 0; viewIdx < structure.views.size; viewIdx++) {
-			SceneStructureMetric.View v = structure.views.get(viewIdx);
-			if (v.parent == null)
-				continue;
 
-			// if this view is relative to another we don't need to store the Jacobian since we already have it
-			// However, the parent it refers to needs to be stored. We do not need to traverse back any more due
-			// since all potential ancestors have already been processed
-			SceneStructureMetric.View vp = v.parent;
-			SceneStructureMetric.Motion mp = structure.motions.get(vp.parent_to_view);
-			if (mp.known || mapSO3Jac.containsKey(vp.parent_to_view))
+		motionSO3Jac = new DMatrixRMaj[structure.motions.size][];
+		for (int motionIdx = 0; motionIdx < structure.motions.size; motionIdx++) {
+			if (structure.motions.get(motionIdx).known)
 				continue;
-
-			mapSO3Jac.put(vp.parent_to_view, storageSO3Jac.grow());
+			motionSO3Jac[motionIdx] = storageSO3Jac.grow();
 		}
 	}
 
@@ -245,62 +221,6 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		return observations.getObservationCount()*2;
 	}
 
-	private int computeGeneralPoints( DMatrix leftPoint, DMatrix rightView,
-									  double[] input, int observationIndex, int viewIndex,
-									  SceneStructureCommon.Camera camera,
-									  int cameraParamStartIndex ) {
-		SceneObservations.View obsView = observations.views.get(viewIndex);
-		SceneStructureMetric.View strView = structure.views.get(viewIndex);
-
-		for (int i = 0; i < obsView.size(); i++) {
-			int featureIndex = obsView.point.get(i);
-			int columnOfPointInJac = featureIndex*lengthPoint;
-
-			if (structure.isHomogenous()) {
-				worldPt4.x = input[columnOfPointInJac];
-				worldPt4.y = input[columnOfPointInJac + 1];
-				worldPt4.z = input[columnOfPointInJac + 2];
-				worldPt4.w = input[columnOfPointInJac + 3];
-
-				SePointOps_F64.transformV(world_to_view, worldPt4, cameraPt);
-			} else {
-				worldPt3.x = input[columnOfPointInJac];
-				worldPt3.y = input[columnOfPointInJac + 1];
-				worldPt3.z = input[columnOfPointInJac + 2];
-
-				SePointOps_F64.transform(world_to_view, worldPt3, cameraPt);
-			}
-
-			jacRowX = observationIndex*2;
-			jacRowY = jacRowX + 1;
-
-			//============ Partial of camera parameters
-			if (!camera.known) {
-				int N = camera.model.getIntrinsicCount();
-				camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z,
-						pointGradX, pointGradY, true, calibGradX, calibGradY);
-
-				int location = indexLastMotion - indexFirstMotion + cameraParamStartIndex;
-				for (int j = 0; j < N; j++) {
-					set(rightView, jacRowX, location + j, calibGradX[j]);
-					set(rightView, jacRowY, location + j, calibGradY[j]);
-				}
-			} else {
-				camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z, pointGradX, pointGradY,
-						false, null, null);
-			}
-			//============ Partial of worldPt
-			if (structure.isHomogenous()) {
-				partialPointH(leftPoint, rightView, strView, columnOfPointInJac);
-			} else {
-				partialPoint3(leftPoint, rightView, strView, columnOfPointInJac);
-			}
-
-			observationIndex++;
-		}
-		return observationIndex;
-	}
-
 	/**
 	 * Internal matrix type agnostic process function.
 	 *
@@ -327,49 +247,135 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 			}
 		}
 
-		int observationIndex = 0;
-		// first decode the transformation
+		decodeMotions(input);
+
+		// Relative views depend on their parent's transform, so this is done in order
 		for (int viewIndex = 0; viewIndex < structure.views.size; viewIndex++) {
 			SceneStructureMetric.View view = structure.views.data[viewIndex];
-			SceneStructureCommon.Camera camera = structure.cameras.data[view.camera];
-			SceneStructureMetric.Motion motion = structure.motions.data[view.parent_to_view];
-
-			if (!motion.known) {
-				int paramIndex = motionParameterIndexes[view.parent_to_view] + indexFirstMotion;
-				jacSO3.setParameters(input, paramIndex);
-				paramIndex += jacSO3.getParameterLength();
-
-				motion.motion.T.x = input[paramIndex];
-				motion.motion.T.y = input[paramIndex + 1];
-				motion.motion.T.z = input[paramIndex + 2];
-
-				motion.motion.getR().setTo(jacSO3.getRotationMatrix());
-
-				// save the Jacobian if we need to
-				DMatrixRMaj[] savedJac = mapSO3Jac.get(view.parent_to_view);
-				if (savedJac != null) {
-					for (int i = 0; i < savedJac.length; i++) {
-						savedJac[i].setTo(jacSO3.getPartial(i));
-					}
-				}
+			if (view.parent != null)
+				updateRelativeWorldToView(view);
+		}
+
+		for (int cameraIndex = 0; cameraIndex < structure.cameras.size; cameraIndex++) {
+			SceneStructureCommon.Camera camera = structure.cameras.data[cameraIndex];
+			if (!camera.known) {
+				camera.model.setIntrinsic(input, indexLastMotion + cameraParameterIndexes[cameraIndex]);
 			}
+		}
 
-			lookupWorldToView(view, world_to_view);
+		computeAllViews(input, leftPoint, rightView);
+	}
 
-			int cameraParamStartIndex = cameraParameterIndexes[view.camera];
-			if (!camera.known) {
-				camera.model.setIntrinsic(input, indexLastMotion + cameraParamStartIndex);
+	/**
+	 * Writes the motion parameters into the scene and saves the partials of their rotations
+	 */
+	private void decodeMotions( double[] input ) {
+		for (int motionIndex = 0; motionIndex < structure.motions.size; motionIndex++) {
+			SceneStructureMetric.Motion motion = structure.motions.data[motionIndex];
+			if (motion.known)
+				continue;
+
+			int paramIndex = motionParameterIndexes[motionIndex] + indexFirstMotion;
+			jacSO3.setParameters(input, paramIndex);
+			paramIndex += jacSO3.getParameterLength();
+
+			motion.motion.T.x = input[paramIndex];
+			motion.motion.T.y = input[paramIndex + 1];
+			motion.motion.T.z = input[paramIndex + 2];
+
+			motion.motion.getR().setTo(jacSO3.getRotationMatrix());
+
+			DMatrixRMaj[] savedJac = motionSO3Jac[motionIndex];
+			for (int i = 0; i < savedJac.length; i++) {
+				savedJac[i].setTo(jacSO3.getPartial(i));
 			}
+		}
+	}
 
-			observationIndex = computeGeneralPoints(leftPoint, rightView, input, observationIndex, viewIndex, camera, cameraParamStartIndex);
+	/**
+	 * Computes the Jacobian rows for every view
+	 */
+	protected void computeAllViews( double[] input, DMatrix leftPoint, DMatrix rightView ) {
+		workspace.initialize(largestCameraSize, leftPoint, rightView);
+		// The single thread version can use the scene's camera models directly
+		if (workspace.cameras.length != structure.cameras.size)
+			workspace.cameras = new BundleAdjustmentCamera[structure.cameras.size];
+		for (int cameraIndex = 0; cameraIndex < structure.cameras.size; cameraIndex++) {
+			workspace.cameras[cameraIndex] = structure.cameras.data[cameraIndex].model;
+		}
+		computeViews(0, structure.views.size, input, workspace);
+	}
+
+	/**
+	 * Computes the Jacobian rows for all observations in the specified range of views. Rows in different views
+	 * are independent of each other. The parameters must have already been decoded.
+	 *
+	 * @param view0 First view, inclusive
+	 * @param view1 Last view, exclusive
+	 * @param work Workspace which contains the camera models and the matrices it will write to
+	 */
+	protected void computeViews( int view0, int view1, double[] input, Workspace work ) {
+		for (int viewIndex = view0; viewIndex < view1; viewIndex++) {
+			SceneStructureMetric.View view = structure.views.data[viewIndex];
+			boolean cameraKnown = structure.cameras.data[view.camera].known;
+			BundleAdjustmentCamera model = work.cameras[view.camera];
+
+			work.world_to_view.setTo(getWorldToView(view));
+
+			int cameraParamStartIndex = cameraParameterIndexes[view.camera];
+			int observationIndex = viewObservationOffset.get(viewIndex);
+			observationIndex = computeGeneralPoints(work, input, observationIndex, viewIndex,
+					cameraKnown, model, cameraParamStartIndex);
 			if (observations.hasRigid())
-				observationIndex = computeRigidPoints(leftPoint, rightView, observationIndex, viewIndex, camera, cameraParamStartIndex);
+				computeRigidPoints(work, observationIndex, viewIndex, cameraKnown, model, cameraParamStartIndex);
 		}
 	}
 
-	private int computeRigidPoints( DMatrix leftPoint, DMatrix rightView,
-									int observationIndex, int viewIndex,
-									SceneStructureCommon.Camera camera,
+	private int computeGeneralPoints( Workspace work, double[] input, int observationIndex, int viewIndex,
+									  boolean cameraKnown, BundleAdjustmentCamera model,
+									  int cameraParamStartIndex ) {
+		SceneObservations.View obsView = observations.views.get(viewIndex);
+		SceneStructureMetric.View strView = structure.views.get(viewIndex);
+
+		for (int i = 0; i < obsView.size(); i++) {
+			int featureIndex = obsView.point.get(i);
+			int columnOfPointInJac = featureIndex*lengthPoint;
+
+			if (structure.isHomogenous()) {
+				work.worldPt4.x = input[columnOfPointInJac];
+				work.worldPt4.y = input[columnOfPointInJac + 1];
+				work.worldPt4.z = input[columnOfPointInJac + 2];
+				work.worldPt4.w = input[columnOfPointInJac + 3];
+
+				SePointOps_F64.transformV(work.world_to_view, work.worldPt4, work.cameraPt);
+			} else {
+				work.worldPt3.x = input[columnOfPointInJac];
+				work.worldPt3.y = input[columnOfPointInJac + 1];
+				work.worldPt3.z = input[columnOfPointInJac + 2];
+
+				SePointOps_F64.transform(work.world_to_view, work.worldPt3, work.cameraPt);
+			}
+
+			work.jacRowX = observationIndex*2;
+			work.jacRowY = work.jacRowX + 1;
+
+			//============ Partial of camera parameters
+			computeCameraPartials(work, cameraKnown, model, cameraParamStartIndex);
+
+			//============ Partial of worldPt
+			if (structure.isHomogenous()) {
+				partialPointH(work, strView, columnOfPointInJac);
+			} else {
+				partialPoint3(work, strView, columnOfPointInJac);
+			}
+
+			observationIndex++;
+		}
+		return observationIndex;
+	}
+
+	private int computeRigidPoints( Workspace work, int observationIndex, int viewIndex,
+									boolean cameraKnown, BundleAdjustmentCamera model,
 									int cameraParamStartIndex ) {
 		SceneObservations.View obsView = observations.viewsRigid.get(viewIndex);
 		SceneStructureMetric.View view = structure.views.data[viewIndex];
@@ -381,35 +387,22 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 			int pointIndex = featureIndex - rigid.indexFirst; // index of point in rigid body
 
 			if (structure.isHomogenous()) {
-				rigid.getPoint(pointIndex, rigidPt4);
-				SePointOps_F64.transformV(rigid.object_to_world, rigidPt4, worldPt3);
+				rigid.getPoint(pointIndex, work.rigidPt4);
+				SePointOps_F64.transformV(rigid.object_to_world, work.rigidPt4, work.worldPt3);
 			} else {
-				rigid.getPoint(pointIndex, rigidPt3);
-				SePointOps_F64.transform(rigid.object_to_world, rigidPt3, worldPt3);
+				rigid.getPoint(pointIndex, work.rigidPt3);
+				SePointOps_F64.transform(rigid.object_to_world, work.rigidPt3, work.worldPt3);
 			}
-			SePointOps_F64.transform(world_to_view, worldPt3, cameraPt);
+			SePointOps_F64.transform(work.world_to_view, work.worldPt3, work.cameraPt);
 
-			jacRowX = observationIndex*2;
-			jacRowY = jacRowX + 1;
+			work.jacRowX = observationIndex*2;
+			work.jacRowY = work.jacRowX + 1;
 
 			//============ Partial of camera parameters
-			if (!camera.known) {
-				int N = camera.model.getIntrinsicCount();
-				camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z,
-						pointGradX, pointGradY, true, calibGradX, calibGradY);
-
-				int location = indexLastMotion - indexFirstMotion + cameraParamStartIndex;
-				for (int j = 0; j < N; j++) {
-					set(rightView, jacRowX, location + j, calibGradX[j]);
-					set(rightView, jacRowY, location + j, calibGradY[j]);
-				}
-			} else {
-				camera.model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z, pointGradX, pointGradY,
-						false, null, null);
-			}
+			computeCameraPartials(work, cameraKnown, model, cameraParamStartIndex);
 
 			//============ Partial of world to view
-			partialViewSE3(rightView, view, worldPt3.x, worldPt3.y, worldPt3.z, 1);
+			partialViewSE3(work, view, work.worldPt3.x, work.worldPt3.y, work.worldPt3.z, 1);
 
 			//============ Partial of body to world
 			// R2*(R1*X+T1)+T2
@@ -419,9 +412,9 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 			// partial T1 is R2*(@T1)
 			if (!rigid.known) {
 				if (structure.isHomogenous()) {
-					partialRigidSE3(leftPoint, rigidIndex, rigidPt4.x, rigidPt4.y, rigidPt4.z, rigidPt4.w);
+					partialRigidSE3(work, rigidIndex, work.rigidPt4.x, work.rigidPt4.y, work.rigidPt4.z, work.rigidPt4.w);
 				} else {
-					partialRigidSE3(leftPoint, rigidIndex, rigidPt3.x, rigidPt3.y, rigidPt3.z, 1);
+					partialRigidSE3(work, rigidIndex, work.rigidPt3.x, work.rigidPt3.y, work.rigidPt3.z, 1);
 				}
 			}
 
@@ -430,25 +423,46 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		return observationIndex;
 	}
 
-	private void partialPoint3( DMatrix leftPoint, DMatrix rightView,
-								SceneStructureMetric.View view, int columnOfPointInJac ) {
+	/**
+	 * Computes the gradient of the projection at the point in camera coordinates. If the camera is unknown then
+	 * the partials of its intrinsic parameters are also written into the Jacobian.
+	 */
+	private void computeCameraPartials( Workspace work, boolean cameraKnown, BundleAdjustmentCamera model,
+										int cameraParamStartIndex ) {
+		Point3D_F64 cameraPt = work.cameraPt;
+		if (!cameraKnown) {
+			int N = model.getIntrinsicCount();
+			model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z,
+					work.pointGradX, work.pointGradY, true, work.calibGradX, work.calibGradY);
+
+			int location = indexLastMotion - indexFirstMotion + cameraParamStartIndex;
+			for (int j = 0; j < N; j++) {
+				set(work.rightView, work.jacRowX, location + j, work.calibGradX[j]);
+				set(work.rightView, work.jacRowY, location + j, work.calibGradY[j]);
+			}
+		} else {
+			model.jacobian(cameraPt.x, cameraPt.y, cameraPt.z, work.pointGradX, work.pointGradY,
+					false, null, null);
+		}
+	}
+
+	private void partialPoint3( Workspace work, SceneStructureMetric.View view, int columnOfPointInJac ) {
 		// partial of (R*X + T) with respect to X is a 3 by 3 matrix
 		// This turns out to be just R
 		// grad F(G(X)) = 2 x 3 matrix which is then multiplied by R
-		addToJacobian(leftPoint, columnOfPointInJac, pointGradX, pointGradY, world_to_view.R);
+		addToJacobian(work, work.leftPoint, columnOfPointInJac, work.world_to_view.R);
 
-		partialViewSE3(rightView, view, worldPt3.x, worldPt3.y, worldPt3.z, 1);
+		partialViewSE3(work, view, work.worldPt3.x, work.worldPt3.y, work.worldPt3.z, 1);
 	}
 
-	private void partialPointH( DMatrix leftPoint, DMatrix rightView,
-								SceneStructureMetric.View view, int columnOfPointInJac ) {
+	private void partialPointH( Workspace work, SceneStructureMetric.View view, int columnOfPointInJac ) {
 		// partial of (R*[x,y,z]' + T*w) with respect to X=[x,y,z,w] is a 3 by 4 matrix, [R|T]
 		//
 		// grad F(G(X)) = 2 x 4 matrix which is then multiplied by R
-		addToJacobian(leftPoint, columnOfPointInJac, pointGradX, pointGradY, world_to_view.R);
-		addToJacobian(leftPoint, columnOfPointInJac + 3, pointGradX, pointGradY, world_to_view.T);
+		addToJacobian(work, work.leftPoint, columnOfPointInJac, work.world_to_view.R);
+		addToJacobian(work, work.leftPoint, columnOfPointInJac + 3, work.world_to_view.T);
 
-		partialViewSE3(rightView, view, worldPt4.x, worldPt4.y, worldPt4.z, worldPt4.w);
+		partialViewSE3(work, view, work.worldPt4.x, work.worldPt4.y, work.worldPt4.z, work.worldPt4.w);
 	}
 
 	/**
@@ -472,8 +486,7 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 	 * </pre>
 	 * The chained view can be writen as a recursive formula where a rotation matrix is updated each iteration.
 	 */
-	private void partialViewSE3( DMatrix rightView,
-								 SceneStructureMetric.View view,
+	private void partialViewSE3( Workspace work, SceneStructureMetric.View view,
 								 double X, double Y, double Z, double W ) {
 		{ // Abort if there is no partial derivative to compute
 			SceneStructureMetric.Motion motion = structure.motions.get(view.parent_to_view);
@@ -481,8 +494,12 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 				return;
 		}
 
-		boolean firstView = true;
-		worldX.setTo(X, Y, Z, W);
+		final DMatrixRMaj accumulatedR = work.accumulatedR;
+		final DMatrixRMaj tmp3x3 = work.tmp3x3;
+		final double[] pointGradX = work.pointGradX;
+		final double[] pointGradY = work.pointGradY;
+
+		work.worldX.setTo(X, Y, Z, W);
 
 		// Recursively computed rotation R[i]*R[i-1] ... etc
 		CommonOps_DDRM.setIdentity(accumulatedR);
@@ -503,31 +520,21 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 				continue;
 			}
 			// look up the SO3 Jacobian
-			DMatrixRMaj[] jacobianSO3;
-			if (firstView) {
-				firstView = false;
-				// Current view isn't saved in storage and needs to have a reference copied to the array
-				for (int i = 0; i < arraySO3.length; i++) {
-					arraySO3[i] = jacSO3.getPartial(i);
-				}
-				jacobianSO3 = arraySO3;
-			} else {
-				jacobianSO3 = mapSO3Jac.get(view.parent_to_view);
-			}
+			DMatrixRMaj[] jacobianSO3 = motionSO3Jac[view.parent_to_view];
 
 			//============== Partial of view rotation parameters
 			final int paramLength = jacSO3.getParameterLength();
 			if (view.parent == null) {
 				for (int i = 0; i < paramLength; i++) {
 					CommonOps_DDRM.mult(accumulatedR, jacobianSO3[i], tmp3x3);
-					addToJacobian(rightView, col + i, pointGradX, pointGradY, tmp3x3, X, Y, Z);
+					addToJacobian(work, work.rightView, col + i, tmp3x3, X, Y, Z);
 				}
 			} else {
 				Se3_F64 world_to_parent = getWorldToView(view.parent);
 				for (int i = 0; i < paramLength; i++) {
-					SePointOps_F64.transformV(world_to_parent, worldX, pt3);
+					SePointOps_F64.transformV(world_to_parent, work.worldX, work.pt3);
 					CommonOps_DDRM.mult(accumulatedR, jacobianSO3[i], tmp3x3);
-					addToJacobian(rightView, col + i, pointGradX, pointGradY, tmp3x3, pt3.x, pt3.y, pt3.z);
+					addToJacobian(work, work.rightView, col + i, tmp3x3, work.pt3.x, work.pt3.y, work.pt3.z);
 				}
 			}
 
@@ -540,8 +547,8 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 					sumX += r_ji*pointGradX[j];
 					sumY += r_ji*pointGradY[j];
 				}
-				add(rightView, jacRowX, col + paramLength + i, sumX*W);
-				add(rightView, jacRowY, col + paramLength + i, sumY*W);
+				add(work.rightView, work.jacRowX, col + paramLength + i, sumX*W);
+				add(work.rightView, work.jacRowY, col + paramLength + i, sumY*W);
 			}
 
 			// If there is a parent then traverse to it next
@@ -568,65 +575,73 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		return world_to_view;
 	}
 
-	private void partialRigidSE3( DMatrix leftPoint, int rigidIndex,
-								  double X, double Y, double Z, double W ) {
+	private void partialRigidSE3( Workspace work, int rigidIndex, double X, double Y, double Z, double W ) {
 		int col = rigidParameterIndexes[rigidIndex] + indexFirstRigid;
 
 		JacobianSo3 jac = jacRigidS03[rigidIndex];
+		DMatrixRMaj R = work.world_to_view.R;
+		double[] pointGradX = work.pointGradX;
+		double[] pointGradY = work.pointGradY;
 
 		//============== Partial of view rotation parameters
 		final int N = jac.getParameterLength();
 		for (int i = 0; i < N; i++) {
-			CommonOps_DDRM.mult(world_to_view.R, jac.getPartial(i), RR);
-			addToJacobian(leftPoint, col + i, pointGradX, pointGradY, RR, X, Y, Z);
+			CommonOps_DDRM.mult(R, jac.getPartial(i), work.RR);
+			addToJacobian(work, work.leftPoint, col + i, work.RR, X, Y, Z);
 		}
 
 		//============== Partial of view translation parameters
 		// Apply rotation matrix to gradX and gradY.
 		// RX = gradX'*R
-		double RX0 = world_to_view.R.data[0]*pointGradX[0] + world_to_view.R.data[3]*pointGradX[1] + world_to_view.R.data[6]*pointGradX[2];
-		double RX1 = world_to_view.R.data[1]*pointGradX[0] + world_to_view.R.data[4]*pointGradX[1] + world_to_view.R.data[7]*pointGradX[2];
-		double RX2 = world_to_view.R.data[2]*pointGradX[0] + world_to_view.R.data[5]*pointGradX[1] + world_to_view.R.data[8]*pointGradX[2];
+		double RX0 = R.data[0]*pointGradX[0] + R.data[3]*pointGradX[1] + R.data[6]*pointGradX[2];
+		double RX1 = R.data[1]*pointGradX[0] + R.data[4]*pointGradX[1] + R.data[7]*pointGradX[2];
+		double RX2 = R.data[2]*pointGradX[0] + R.data[5]*pointGradX[1] + R.data[8]*pointGradX[2];
 		// RY = gradY'*R
-		double RY0 = world_to_view.R.data[0]*pointGradY[0] + world_to_view.R.data[3]*pointGradY[1] + world_to_view.R.data[6]*pointGradY[2];
-		double RY1 = world_to_view.R.data[1]*pointGradY[0] + world_to_view.R.data[4]*pointGradY[1] + world_to_view.R.data[7]*pointGradY[2];
-		double RY2 = world_to_view.R.data[2]*pointGradY[0] + world_to_view.R.data[5]*pointGradY[1] + world_to_view.R.data[8]*pointGradY[2];
-
-		set(leftPoint, jacRowX, col + N, RX0*W);
-		set(leftPoint, jacRowY, col + N, RY0*W);
-		set(leftPoint, jacRowX, col + N + 1, RX1*W);
-		set(leftPoint, jacRowY, col + N + 1, RY1*W);
-		set(leftPoint, jacRowX, col + N + 2, RX2*W);
-		set(leftPoint, jacRowY, col + N + 2, RY2*W);
+		double RY0 = R.data[0]*pointGradY[0] + R.data[3]*pointGradY[1] + R.data[6]*pointGradY[2];
+		double RY1 = R.data[1]*pointGradY[0] + R.data[4]*pointGradY[1] + R.data[7]*pointGradY[2];
+		double RY2 = R.data[2]*pointGradY[0] + R.data[5]*pointGradY[1] + R.data[8]*pointGradY[2];
+
+		set(work.leftPoint, work.jacRowX, col + N, RX0*W);
+		set(work.leftPoint, work.jacRowY, col + N, RY0*W);
+		set(work.leftPoint, work.jacRowX, col + N + 1, RX1*W);
+		set(work.leftPoint, work.jacRowY, col + N + 1, RY1*W);
+		set(work.leftPoint, work.jacRowX, col + N + 2, RX2*W);
+		set(work.leftPoint, work.jacRowY, col + N + 2, RY2*W);
 	}
 
 	/**
 	 * J[rows,col:(col+3)] =  [a;b]*R
 	 */
-	private void addToJacobian( DMatrix matrix, int col, double[] a, double[] b, DMatrixRMaj R ) {
-		set(matrix, jacRowX, col + 0, a[0]*R.data[0] + a[1]*R.data[3] + a[2]*R.data[6]);
-		set(matrix, jacRowX, col + 1, a[0]*R.data[1] + a[1]*R.data[4] + a[2]*R.data[7]);
-		set(matrix, jacRowX, col + 2, a[0]*R.data[2] + a[1]*R.data[5] + a[2]*R.data[8]);
-
-		set(matrix, jacRowY, col + 0, b[0]*R.data[0] + b[1]*R.data[3] + b[2]*R.data[6]);
-		set(matrix, jacRowY, col + 1, b[0]*R.data[1] + b[1]*R.data[4] + b[2]*R.data[7]);
-		set(matrix, jacRowY, col + 2, b[0]*R.data[2] + b[1]*R.data[5] + b[2]*R.data[8]);
+	private void addToJacobian( Workspace work, DMatrix matrix, int col, DMatrixRMaj R ) {
+		double[] a = work.pointGradX;
+		double[] b = work.pointGradY;
+		set(matrix, work.jacRowX, col + 0, a[0]*R.data[0] + a[1]*R.data[3] + a[2]*R.data[6]);
+		set(matrix, work.jacRowX, col + 1, a[0]*R.data[1] + a[1]*R.data[4] + a[2]*R.data[7]);
+		set(matrix, work.jacRowX, col + 2, a[0]*R.data[2] + a[1]*R.data[5] + a[2]*R.data[8]);
+
+		set(matrix, work.jacRowY, col + 0, b[0]*R.data[0] + b[1]*R.data[3] + b[2]*R.data[6]);
+		set(matrix, work.jacRowY, col + 1, b[0]*R.data[1] + b[1]*R.data[4] + b[2]*R.data[7]);
+		set(matrix, work.jacRowY, col + 2, b[0]*R.data[2] + b[1]*R.data[5] + b[2]*R.data[8]);
 	}
 
-	private void addToJacobian( DMatrix matrix, int col, double[] a, double[] b,
+	private void addToJacobian( Workspace work, DMatrix matrix, int col,
 								DMatrixRMaj R, double X, double Y, double Z ) {
+		double[] a = work.pointGradX;
+		double[] b = work.pointGradY;
 
 		double x = R.data[0]*X + R.data[1]*Y + R.data[2]*Z;
 		double y = R.data[3]*X + R.data[4]*Y + R.data[5]*Z;
 		double z = R.data[6]*X + R.data[7]*Y + R.data[8]*Z;
 
-		add(matrix, jacRowX, col, a[0]*x + a[1]*y + a[2]*z);
-		add(matrix, jacRowY, col, b[0]*x + b[1]*y + b[2]*z);
+		add(matrix, work.jacRowX, col, a[0]*x + a[1]*y + a[2]*z);
+		add(matrix, work.jacRowY, col, b[0]*x + b[1]*y + b[2]*z);
 	}
 
-	private void addToJacobian( DMatrix matrix, int col, double[] a, double[] b, Vector3D_F64 X ) {
-		set(matrix, jacRowX, col, a[0]*X.x + a[1]*X.y + a[2]*X.z);
-		set(matrix, jacRowY, col, b[0]*X.x + b[1]*X.y + b[2]*X.z);
+	private void addToJacobian( Workspace work, DMatrix matrix, int col, Vector3D_F64 X ) {
+		double[] a = work.pointGradX;
+		double[] b = work.pointGradY;
+		set(matrix, work.jacRowX, col, a[0]*X.x + a[1]*X.y + a[2]*X.z);
+		set(matrix, work.jacRowY, col, b[0]*X.x + b[1]*X.y + b[2]*X.z);
 	}
 
 	/**
@@ -641,15 +656,11 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 	protected abstract void add( DMatrix matrix, int row, int col, double value );
 
 	/**
-	 * Returns a transform from the world_to_view. If relative then the parent's world to view is look up and used
-	 * to compute this view's transform and the results are saved.
+	 * Computes the world to view transform for a relative view and saves the results. The parent must have a
+	 * lower index so that its transform is already known.
 	 */
-	protected void lookupWorldToView( SceneStructureMetric.View v, Se3_F64 world_to_view ) {
+	private void updateRelativeWorldToView( SceneStructureMetric.View v ) {
 		Se3_F64 parent_to_view = structure.getParentToView(v);
-		if (v.parent == null) {
-			world_to_view.setTo(parent_to_view);
-			return;
-		}
 		Se3_F64 saved_world_to_view = mapWorldToView.get(v);
 		SceneStructureMetric.View parentView = v.parent;
 
@@ -662,7 +673,6 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 			Se3_F64 world_to_parent = mapWorldToView.get(v.parent);
 			world_to_parent.concat(parent_to_view, saved_world_to_view);
 		}
-		world_to_view.setTo(saved_world_to_view);
 	}
 
 	/**
@@ -675,4 +685,56 @@ public abstract class BundleAdjustmentMetricSchurJacobian<M extends DMatrix>
 		}
 		return partials;
 	}
+
+	/**
+	 * Everything which is modified while computing the Jacobian rows of a view
+	 */
+	protected static class Workspace {
+		// Matrices the Jacobian is written into
+		DMatrix leftPoint, rightView;
+		// Camera model for each camera in the scene
+		BundleAdjustmentCamera[] cameras = new BundleAdjustmentCamera[0];
+
+		// Workspace for world to view transform
+		final Se3_F64 world_to_view = new Se3_F64();
+
+		// feature location in world coordinates
+		final Point3D_F64 worldPt3 = new Point3D_F64();
+		final Point4D_F64 worldPt4 = new Point4D_F64();
+		// feature location in rigid body coordinates
+		final Point3D_F64 rigidPt3 = new Point3D_F64();
+		final Point4D_F64 rigidPt4 = new Point4D_F64();
+		// feature location in camera coordinates
+		final Point3D_F64 cameraPt = new Point3D_F64();
+
+		// Jacobian matrix index of x and y partial
+		int jacRowX, jacRowY;
+
+		// Storage for gradients
+		final double[] pointGradX = new double[3];
+		final double[] pointGradY = new double[3];
+		double[] calibGradX = new double[0];
+		double[] calibGradY = new double[0];
+
+		// work space for R2*R1
+		final DMatrixRMaj RR = new DMatrixRMaj(3, 3);
+
+		// Storage for computing the partials of relative views
+		final DMatrixRMaj accumulatedR = new DMatrixRMaj(3, 3);
+		final Point4D_F64 worldX = new Point4D_F64();
+		final Point3D_F64 pt3 = new Point3D_F64();
+		final DMatrixRMaj tmp3x3 = new DMatrixRMaj(3, 3);
+
+		/**
+		 * Specifies where the output is written and ensures the storage is large enough
+		 */
+		protected void initialize( int largestCameraSize, DMatrix leftPoint, DMatrix rightView ) {
+			this.leftPoint = leftPoint;
+			this.rightView = rightView;
+			if (calibGradX.length < largestCameraSize) {
+				calibGradX = new double[largestCameraSize];
+				calibGradY = new double[largestCameraSize];
+			}
+		}
+	}
 }
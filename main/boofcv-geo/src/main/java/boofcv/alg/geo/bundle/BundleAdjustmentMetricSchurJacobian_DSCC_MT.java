@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.abst.geo.bundle.BundleAdjustmentCamera;
+import boofcv.abst.geo.bundle.SceneObservations;
+import boofcv.abst.geo.bundle.SceneStructureMetric;
+import boofcv.concurrency.BoofConcurrency;
+import org.ejml.data.DMatrix;
+import org.ejml.data.DMatrixSparseTriplet;
+import pabeles.concurrency.GrowArray;
+
+import java.util.Objects;
+
+/**
+ * Concurrent implementation of {@link BundleAdjustmentMetricSchurJacobian_DSCC}. Views are split into blocks and
+ * the Jacobian rows for each block are computed in a different thread. Camera models can have internal workspace,
+ * so each thread uses its own copy of every camera, see {@link BundleAdjustmentCamera#copy()}. Each thread writes
+ * into its own triplet matrices which are then combined in order of increasing view, so the results are identical
+ * to the single thread version.
+ *
+ * @author Peter Abeles
+ */
+public class BundleAdjustmentMetricSchurJacobian_DSCC_MT extends BundleAdjustmentMetricSchurJacobian_DSCC {
+
+	/** If there are fewer observations than this it will use the single thread version */
+	public int minimumObservationsConcurrent = 2000;
+
+	// Workspace for each thread
+	private final GrowArray<BlockWorkspace> workspaces = new GrowArray<>(BlockWorkspace::new);
+
+	// true if every camera model can be copied. If not, it will use the single thread version
+	boolean camerasCopyable;
+
+	@Override
+	public void configure( SceneStructureMetric structure, SceneObservations observations ) {
+		super.configure(structure, observations);
+
+		camerasCopyable = true;
+		for (int cameraIdx = 0; cameraIdx < structure.cameras.size; cameraIdx++) {
+			if (structure.cameras.get(cameraIdx).model.copy() == null) {
+				camerasCopyable = false;
+				break;
+			}
+		}
+	}
+
+	@Override
+	protected void computeAllViews( double[] input, DMatrix leftPoint, DMatrix rightView ) {
+		if (!camerasCopyable || getNumOfOutputsM()/2 < minimumObservationsConcurrent) {
+			super.computeAllViews(input, leftPoint, rightView);
+			return;
+		}
+
+		var left = (DMatrixSparseTriplet)leftPoint;
+		var right = (DMatrixSparseTriplet)rightView;
+
+		BoofConcurrency.loopBlocks(0, structure.views.size, workspaces, ( work, view0, view1 ) -> {
+			work.view0 = view0;
+			work.view1 = view1;
+			work.left.reshape(left.numRows, left.numCols);
+			work.right.reshape(right.numRows, right.numCols);
+			work.initialize(largestCameraSize, work.left, work.right);
+			work.updateCameras(structure);
+			computeViews(view0, view1, input, work);
+		});
+
+		// Add the elements in the same order as the single thread version
+		int nextView = 0;
+		for (int count = 0; count < workspaces.size(); count++) {
+			BlockWorkspace work = findBlock(nextView);
+			appendItems(work.left, left);
+			appendItems(work.right, right);
+			nextView = work.view1;
+		}
+	}
+
+	/**
+	 * Finds the workspace for the block which starts at the specified view
+	 */
+	private BlockWorkspace findBlock( int view0 ) {
+		for (int i = 0; i < workspaces.size(); i++) {
+			if (workspaces.get(i).view0 == view0)
+				return workspaces.get(i);
+		}
+		throw new RuntimeException("BUG! No block starts at view " + view0);
+	}
+
+	private static void appendItems( DMatrixSparseTriplet src, DMatrixSparseTriplet dst ) {
+		for (int i = 0; i < src.nz_length; i++) {
+			dst.addItem(src.nz_rowcol.data[i*2], src.nz_rowcol.data[i*2 + 1], src.nz_value.data[i]);
+		}
+	}
+
+	static class BlockWorkspace extends Workspace {
+		// Range of views this block processed
+		int view0, view1;
+		// Storage for this block's part of the Jacobian
+		final DMatrixSparseTriplet left = new DMatrixSparseTriplet(1, 1, 1);
+		final DMatrixSparseTriplet right = new DMatrixSparseTriplet(1, 1, 1);
+		// The scene's camera models which the copies were created from
+		BundleAdjustmentCamera[] copiedFrom = new BundleAdjustmentCamera[0];
+		// Storage for copying intrinsic parameters
+		double[] intrinsic = new double[0];
+
+		/**
+		 * Makes sure there's a copy of every camera in the scene and that it has the latest parameters
+		 */
+		void updateCameras( SceneStructureMetric structure ) {
+			if (cameras.length != structure.cameras.size) {
+				cameras = new BundleAdjustmentCamera[structure.cameras.size];
+				copiedFrom = new BundleAdjustmentCamera[structure.cameras.size];
+			}
+
+			for (int cameraIdx = 0; cameraIdx < structure.cameras.size; cameraIdx++) {
+				BundleAdjustmentCamera src = structure.cameras.get(cameraIdx).model;
+				if (copiedFrom[cameraIdx] != src) {
+					cameras[cameraIdx] = Objects.requireNonNull(src.copy());
+					copiedFrom[cameraIdx] = src;
+					continue;
+				}
+
+				int N = src.getIntrinsicCount();
+				if (intrinsic.length < N)
+					intrinsic = new double[N];
+				src.getIntrinsic(intrinsic, 0);
+				cameras[cameraIdx].setIntrinsic(intrinsic, 0);
+			}
+		}
+	}
+}
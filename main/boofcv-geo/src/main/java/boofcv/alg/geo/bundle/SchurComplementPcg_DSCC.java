@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.geo.bundle;
+
+import lombok.Getter;
+import org.ddogleg.struct.DogArray_F64;
+import org.ddogleg.struct.DogArray_I32;
+import org.ejml.data.DGrowArray;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.data.DMatrixSparseCSC;
+import org.ejml.data.IGrowArray;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.ejml.interfaces.linsol.LinearSolverSparse;
+import org.ejml.sparse.FillReducing;
+import org.ejml.sparse.csc.CommonOps_DSCC;
+import org.ejml.sparse.csc.factory.LinearSolverFactory_DSCC;
+
+/**
+ * <p>
+ * Computes the damped Gauss-Newton step for bundle adjustment by solving the reduced camera system (Schur complement)
+ * with preconditioned conjugate gradient (PCG). The Jacobian is split into a left side J<sub>l</sub>, parameters
+ * which are eliminated (e.g. points), and a right side J<sub>r</sub>, the reduced system (e.g. views and cameras).
+ * With A = J<sub>l</sub><sup>T</sup>J<sub>l</sub> the reduced matrix is
+ * S = J<sub>r</sub><sup>T</sup>(I - J<sub>l</sub>A<sup>-1</sup>J<sub>l</sub><sup>T</sup>)J<sub>r</sub> + &lambda;D,
+ * which is never explicitly computed. Instead each product with S is found using products with the Jacobians and
+ * a solve with A. Since A is block diagonal, or nearly so, its Cholesky decomposition is inexpensive. This avoids
+ * computing and decomposing S, which becomes dense and very expensive as the number of views grows.
+ * </p>
+ *
+ * <p>
+ * The preconditioner is the inverse of the block diagonal of J<sub>r</sub><sup>T</sup>J<sub>r</sub> + &lambda;D.
+ * Blocks are found by grouping consecutive columns in J<sub>r</sub> with identical non-zero patterns, which
+ * happens naturally since all the parameters of a view or camera are observed by the same residuals.
+ * </p>
+ *
+ * <p>
+ * Conjugate gradient is stopped early once the residual has been reduced by {@link #tolerance}, making this an
+ * inexact solver. Since the step is only used inside a damped non-linear optimization, this is usually not a
+ * problem and greatly reduces the computational cost.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class SchurComplementPcg_DSCC {
+
+	/** Maximum number of conjugate gradient iterations */
+	public int maxIterations = 200;
+
+	/** Conjugate gradient stops when the norm of the residual relative to the initial residual is less than this */
+	public double tolerance = 1e-6;
+
+	/** Lower limit on the diagonal elements which are scaled to create the damping term */
+	public double minimumDiagonal = 1e-6;
+
+	/** Number of conjugate gradient iterations in the most recent solve */
+	@Getter protected int iterations;
+
+	// Jacobian of the parameters which are eliminated and the reduced parameters
+	protected DMatrixSparseCSC left = new DMatrixSparseCSC(1, 1);
+	protected DMatrixSparseCSC right = new DMatrixSparseCSC(1, 1);
+	protected final DMatrixSparseCSC leftT = new DMatrixSparseCSC(1, 1);
+	protected final DMatrixSparseCSC rightT = new DMatrixSparseCSC(1, 1);
+
+	// A = L'*L without damping and with damping
+	protected final DMatrixSparseCSC hessianA = new DMatrixSparseCSC(1, 1);
+	protected final DMatrixSparseCSC dampedA = new DMatrixSparseCSC(1, 1);
+	protected final LinearSolverSparse<DMatrixSparseCSC, DMatrixRMaj> solverA =
+			LinearSolverFactory_DSCC.cholesky(FillReducing.NONE);
+
+	// First column in each block in the right Jacobian. The last element is the number of columns
+	protected final DogArray_I32 blockStart = new DogArray_I32();
+	// Offset of each block's elements in the block arrays
+	protected final DogArray_I32 blockOffset = new DogArray_I32();
+	// Block diagonal elements of R'*R, stored in row-major order
+	protected final DogArray_F64 blockHessian = new DogArray_F64();
+	// Inverse of the damped blocks. This is the preconditioner
+	protected final DogArray_F64 blockInverse = new DogArray_F64();
+	protected final DMatrixRMaj blockWork = new DMatrixRMaj(1, 1);
+
+	// Vectors with the same length as the eliminated parameters
+	protected final DMatrixRMaj vectorP0 = new DMatrixRMaj(1, 1);
+	protected final DMatrixRMaj vectorP1 = new DMatrixRMaj(1, 1);
+	// Vectors with the same length as the residuals
+	protected final DMatrixRMaj vectorR0 = new DMatrixRMaj(1, 1);
+	protected final DMatrixRMaj vectorR1 = new DMatrixRMaj(1, 1);
+	// Vectors with the same length as the reduced parameters
+	protected final DMatrixRMaj cgR = new DMatrixRMaj(1, 1);
+	protected final DMatrixRMaj cgZ = new DMatrixRMaj(1, 1);
+	protected final DMatrixRMaj cgP = new DMatrixRMaj(1, 1);
+	protected final DMatrixRMaj cgSP = new DMatrixRMaj(1, 1);
+	protected final DMatrixRMaj cgX = new DMatrixRMaj(1, 1);
+	protected final DogArray_F64 dampingC = new DogArray_F64();
+
+	// Workspace for sparse operations
+	protected final IGrowArray gw = new IGrowArray();
+	protected final DGrowArray gx = new DGrowArray();
+
+	/**
+	 * Specifies the Jacobian and computes everything which doesn't depend on the damping.
+	 *
+	 * @param left (Input) Jacobian of eliminated parameters. Reference is saved.
+	 * @param right (Input) Jacobian of reduced parameters. Reference is saved.
+	 */
+	public void setJacobian( DMatrixSparseCSC left, DMatrixSparseCSC right ) {
+		this.left = left;
+		this.right = right;
+
+		CommonOps_DSCC.transpose(left, leftT, gw);
+		CommonOps_DSCC.transpose(right, rightT, gw);
+		CommonOps_DSCC.mult(leftT, left, hessianA, gw, gx);
+		if (!hessianA.indicesSorted)
+			hessianA.sortIndices(null);
+
+		selectBlocks();
+		computeBlockHessian();
+
+		vectorP0.reshape(left.numCols, 1);
+		vectorP1.reshape(left.numCols, 1);
+		vectorR0.reshape(left.numRows, 1);
+		vectorR1.reshape(left.numRows, 1);
+		cgR.reshape(right.numCols, 1);
+		cgZ.reshape(right.numCols, 1);
+		cgP.reshape(right.numCols, 1);
+		cgSP.reshape(right.numCols, 1);
+		cgX.reshape(right.numCols, 1);
+	}
+
+	/**
+	 * Computes the gradient J'*r. The first part is the gradient of the eliminated parameters, followed by the
+	 * reduced parameters.
+	 *
+	 * @param residuals (Input) Residuals
+	 * @param gradient (Output) Gradient
+	 */
+	public void computeGradient( double[] residuals, double[] gradient ) {
+		innerColumns(left, residuals, 0, gradient, 0);
+		innerColumns(right, residuals, 0, gradient, left.numCols);
+	}
+
+	/**
+	 * Solves for the step which minimizes the damped linear model.
+	 *
+	 * @param lambda (Input) Damping parameter. Scales the diagonal elements of J'*J.
+	 * @param gradient (Input) Gradient, as computed by {@link #computeGradient}
+	 * @param step (Output) Step which is added to the parameters
+	 * @return true if successful or false if A could not be decomposed
+	 */
+	public boolean solve( double lambda, double[] gradient, double[] step ) {
+		final int numP = left.numCols;
+		final int numC = right.numCols;
+
+		if (!computeDampedA(lambda))
+			return false;
+		computePreconditioner(lambda);
+
+		// b = -gc + R'*L*inv(A)*gp
+		System.arraycopy(gradient, 0, vectorP0.data, 0, numP);
+		solverA.solve(vectorP0, vectorP1);
+		innerColumns(leftT, vectorP1.data, 0, vectorR0.data, 0);
+		innerColumns(right, vectorR0.data, 0, cgR.data, 0);
+		for (int i = 0; i < numC; i++) {
+			cgR.data[i] -= gradient[numP + i];
+		}
+
+		conjugateGradient();
+		System.arraycopy(cgX.data, 0, step, numP, numC);
+
+		// back substitution: dp = -inv(A)*(gp + L'*R*dc)
+		innerColumns(rightT, cgX.data, 0, vectorR0.data, 0);
+		innerColumns(left, vectorR0.data, 0, vectorP0.data, 0);
+		for (int i = 0; i < numP; i++) {
+			vectorP0.data[i] += gradient[i];
+		}
+		solverA.solve(vectorP0, vectorP1);
+		for (int i = 0; i < numP; i++) {
+			step[i] = -vectorP1.data[i];
+		}
+
+		return true;
+	}
+
+	/**
+	 * Solves S*x = b using preconditioned conjugate gradient, where b is stored in cgR and x in cgX.
+	 */
+	protected void conjugateGradient() {
+		final int N = cgX.numRows;
+		iterations = 0;
+		cgX.zero();
+
+		double normB = normF(cgR.data, N);
+		if (normB == 0.0)
+			return;
+
+		applyPreconditioner(cgR.data, cgZ.data);
+		System.arraycopy(cgZ.data, 0, cgP.data, 0, N);
+		double rz = dot(cgR.data, cgZ.data, N);
+
+		while (iterations < maxIterations) {
+			iterations++;
+			multiplySchur(cgP.data, cgSP.data);
+
+			double pSp = dot(cgP.data, cgSP.data, N);
+			if (pSp <= 0.0)
+				break;
+
+			double alpha = rz/pSp;
+			for (int i = 0; i < N; i++) {
+				cgX.data[i] += alpha*cgP.data[i];
+				cgR.data[i] -= alpha*cgSP.data[i];
+			}
+
+			if (normF(cgR.data, N) <= tolerance*normB)
+				break;
+
+			applyPreconditioner(cgR.data, cgZ.data);
+			double rzNext = dot(cgR.data, cgZ.data, N);
+			double beta = rzNext/rz;
+			rz = rzNext;
+			for (int i = 0; i < N; i++) {
+				cgP.data[i] = cgZ.data[i] + beta*cgP.data[i];
+			}
+		}
+	}
+
+	/**
+	 * Computes output = S*x = R'*(R*x - L*inv(A)*L'*R*x) + damping*x
+	 */
+	protected void multiplySchur( double[] x, double[] output ) {
+		innerColumns(rightT, x, 0, vectorR0.data, 0);
+		innerColumns(left, vectorR0.data, 0, vectorP0.data, 0);
+		solverA.solve(vectorP0, vectorP1);
+		innerColumns(leftT, vectorP1.data, 0, vectorR1.data, 0);
+
+		final int numRows = vectorR0.numRows;
+		for (int i = 0; i < numRows; i++) {
+			vectorR0.data[i] -= vectorR1.data[i];
+		}
+		innerColumns(right, vectorR0.data, 0, output, 0);
+
+		final int N = right.numCols;
+		for (int i = 0; i < N; i++) {
+			output[i] += dampingC.data[i]*x[i];
+		}
+	}
+
+	/**
+	 * Adds damping to the diagonal of A and decomposes it
+	 */
+	protected boolean computeDampedA( double lambda ) {
+		dampedA.setTo(hessianA);
+
+		for (int col = 0; col < dampedA.numCols; col++) {
+			int idx0 = dampedA.col_idx[col];
+			int idx1 = dampedA.col_idx[col + 1];
+
+			boolean found = false;
+			for (int idx = idx0; idx < idx1; idx++) {
+				if (dampedA.nz_rows[idx] != col)
+					continue;
+				dampedA.nz_values[idx] += lambda*Math.max(minimumDiagonal, dampedA.nz_values[idx]);
+				found = true;
+				break;
+			}
+			// A parameter with no observations. Only the damping constrains it
+			if (!found)
+				dampedA.set(col, col, lambda*minimumDiagonal);
+		}
+
+		return solverA.setA(dampedA);
+	}
+
+	/**
+	 * Groups consecutive columns in the right Jacobian with identical non-zero patterns into blocks
+	 */
+	protected void selectBlocks() {
+		blockStart.reset();
+		blockOffset.reset();
+
+		int offset = 0;
+		for (int col = 0; col < right.numCols; col++) {
+			if (col > 0 && samePattern(right, col - 1, col))
+				continue;
+			if (blockStart.size > 0) {
+				int length = col - blockStart.getTail();
+				offset += length*length;
+			}
+			blockStart.add(col);
+			blockOffset.add(offset);
+		}
+		if (blockStart.size > 0) {
+			int length = right.numCols - blockStart.getTail();
+			offset += length*length;
+		}
+		blockStart.add(right.numCols);
+		blockOffset.add(offset);
+	}
+
+	/**
+	 * Returns true if the two columns have non-zero elements in the same rows
+	 */
+	static boolean samePattern( DMatrixSparseCSC M, int colA, int colB ) {
+		int idxA0 = M.col_idx[colA];
+		int idxB0 = M.col_idx[colB];
+		int length = M.col_idx[colA + 1] - idxA0;
+		if (length != M.col_idx[colB + 1] - idxB0)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (M.nz_rows[idxA0 + i] != M.nz_rows[idxB0 + i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the block diagonal elements of R'*R. Columns inside a block have the same pattern so the inner
+	 * product is just an element-wise product of their non-zero values.
+	 */
+	protected void computeBlockHessian() {
+		blockHessian.resize(blockOffset.getTail());
+
+		for (int block = 0; block < blockStart.size - 1; block++) {
+			int col0 = blockStart.data[block];
+			int length = blockStart.data[block + 1] - col0;
+			int offset = blockOffset.data[block];
+
+			for (int i = 0; i < length; i++) {
+				int idxI = right.col_idx[col0 + i];
+				int nz = right.col_idx[col0 + i + 1] - idxI;
+				for (int j = i; j < length; j++) {
+					int idxJ = right.col_idx[col0 + j];
+					double sum = 0.0;
+					for (int k = 0; k < nz; k++) {
+						sum += right.nz_values[idxI + k]*right.nz_values[idxJ + k];
+					}
+					blockHessian.data[offset + i*length + j] = sum;
+					blockHessian.data[offset + j*length + i] = sum;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the damping for the reduced parameters and inverts each damped block in the block diagonal
+	 */
+	protected void computePreconditioner( double lambda ) {
+		dampingC.resize(right.numCols);
+		blockInverse.resize(blockHessian.size);
+
+		for (int block = 0; block < blockStart.size - 1; block++) {
+			int col0 = blockStart.data[block];
+			int length = blockStart.data[block + 1] - col0;
+			int offset = blockOffset.data[block];
+
+			blockWork.reshape(length, length);
+			System.arraycopy(blockHessian.data, offset, blockWork.data, 0, length*length);
+			for (int i = 0; i < length; i++) {
+				double damping = lambda*Math.max(minimumDiagonal, blockWork.data[i*length + i]);
+				dampingC.data[col0 + i] = damping;
+				blockWork.data[i*length + i] += damping;
+			}
+
+			if (!CommonOps_DDRM.invert(blockWork)) {
+				// Fall back to a Jacobi preconditioner for this block
+				blockWork.zero();
+				for (int i = 0; i < length; i++) {
+					double diag = blockHessian.data[offset + i*length + i] + dampingC.data[col0 + i];
+					blockWork.data[i*length + i] = 1.0/diag;
+				}
+			}
+			System.arraycopy(blockWork.data, 0, blockInverse.data, offset, length*length);
+		}
+	}
+
+	/**
+	 * Applies the block diagonal preconditioner, output = inv(M)*input
+	 */
+	protected void applyPreconditioner( double[] input, double[] output ) {
+		for (int block = 0; block < blockStart.size - 1; block++) {
+			int col0 = blockStart.data[block];
+			int length = blockStart.data[block + 1] - col0;
+			int offset = blockOffset.data[block];
+
+			for (int i = 0; i < length; i++) {
+				double sum = 0.0;
+				for (int j = 0; j < length; j++) {
+					sum += blockInverse.data[offset + i*length + j]*input[col0 + j];
+				}
+				output[col0 + i] = sum;
+			}
+		}
+	}
+
+	/**
+	 * Computes the inner product of every column in M with the vector x, i.e. output = M'*x. Products with
+	 * M are computed by passing in the transpose of M. This is where almost all the computations are done.
+	 */
+	protected void innerColumns( DMatrixSparseCSC M, double[] x, int offsetX, double[] output, int offsetOut ) {
+		innerColumns(M, x, offsetX, output, offsetOut, 0, M.numCols);
+	}
+
+	/**
+	 * Computes the inner product for columns col0 to col1-1
+	 */
+	protected static void innerColumns( DMatrixSparseCSC M, double[] x, int offsetX, double[] output, int offsetOut,
+										int col0, int col1 ) {
+		for (int col = col0; col < col1; col++) {
+			int idx0 = M.col_idx[col];
+			int idx1 = M.col_idx[col + 1];
+			double sum = 0.0;
+			for (int idx = idx0; idx < idx1; idx++) {
+				sum += M.nz_values[idx]*x[offsetX + M.nz_rows[idx]];
+			}
+			output[offsetOut + col] = sum;
+		}
+	}
+
+	static double dot( double[] a, double[] b, int length ) {
+		double sum = 0.0;
+		for (int i = 0; i < length; i++) {
+			sum += a[i]*b[i];
+		}
+		return sum;
+	}
+
+	static double normF( double[] a, int length ) {
+		return Math.sqrt(dot(a, a, length));
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.concurrency.BoofConcurrency;
+import org.ejml.data.DMatrixSparseCSC;
+
+/**
+ * Concurrent implementation of {@link SchurComplementPcg_DSCC}. The sparse matrix-vector products are computed
+ * in parallel with each thread processing a range of columns. Each output element is written to by a single
+ * thread, so the results are identical to the single threaded version.
+ *
+ * @author Peter Abeles
+ */
+public class SchurComplementPcg_DSCC_MT extends SchurComplementPcg_DSCC {
+
+	/** If a matrix has fewer non-zero elements than this then a product with it will be done in a single thread */
+	public int minimumNonZeroConcurrent = 10_000;
+
+	@Override
+	protected void innerColumns( DMatrixSparseCSC M, double[] x, int offsetX, double[] output, int offsetOut ) {
+		if (M.nz_length < minimumNonZeroConcurrent) {
+			super.innerColumns(M, x, offsetX, output, offsetOut);
+			return;
+		}
+
+		BoofConcurrency.loopBlocks(0, M.numCols, ( col0, col1 ) ->
+				innerColumns(M, x, offsetX, output, offsetOut, col0, col1));
+	}
+}
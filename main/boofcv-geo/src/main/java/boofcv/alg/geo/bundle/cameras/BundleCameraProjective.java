@@ -56,4 +56,9 @@ public class BundleCameraProjective implements BundleAdjustmentCamera {
 	public int getIntrinsicCount() {
 		return 0;
 	}
+
+	@Override
+	public BundleCameraProjective copy() {
+		return new BundleCameraProjective();
+	}
 }
@@ -340,4 +340,11 @@ public class BundleKannalaBrandt implements BundleAdjustmentCamera {
 	@Override public int getIntrinsicCount() {
 		return dof;
 	}
+
+	@Override public BundleKannalaBrandt copy() {
+		var ret = new BundleKannalaBrandt();
+		ret.configure(zeroSkew, model.symmetric.length, model.radial.length);
+		ret.model.setTo(model);
+		return ret;
+	}
 }
@@ -118,6 +118,17 @@ public class BundlePinhole implements BundleAdjustmentCamera {
 		return zeroSkew ? 4 : 5;
 	}
 
+	@Override
+	public BundlePinhole copy() {
+		var ret = new BundlePinhole(zeroSkew);
+		ret.fx = fx;
+		ret.fy = fy;
+		ret.skew = skew;
+		ret.cx = cx;
+		ret.cy = cy;
+		return ret;
+	}
+
 	@Override
 	public String toString() {
 		return "BundlePinhole{" +
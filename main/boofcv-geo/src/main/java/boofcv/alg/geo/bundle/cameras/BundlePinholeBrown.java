@@ -273,4 +273,18 @@ public class BundlePinholeBrown implements BundleAdjustmentCamera {
 	public int getIntrinsicCount() {
 		return 4 + radial.length + (tangential ? 2 : 0) + (zeroSkew ? 0 : 1);
 	}
+
+	@Override
+	public BundlePinholeBrown copy() {
+		var ret = new BundlePinholeBrown(zeroSkew, tangential);
+		ret.fx = fx;
+		ret.fy = fy;
+		ret.skew = skew;
+		ret.cx = cx;
+		ret.cy = cy;
+		ret.radial = radial.clone();
+		ret.t1 = t1;
+		ret.t2 = t2;
+		return ret;
+	}
 }
@@ -152,6 +152,7 @@ public class BundlePinholeSimplified implements BundleAdjustmentCamera {
 		this.k2 = c.k2;
 	}
 
+	@Override
 	public BundlePinholeSimplified copy() {
 		return new BundlePinholeSimplified(f, k1, k2);
 	}
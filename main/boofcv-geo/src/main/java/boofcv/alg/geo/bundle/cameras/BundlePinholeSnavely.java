@@ -81,6 +81,13 @@ public class BundlePinholeSnavely extends BundlePinholeSimplified {
 		calibY[2] = f*normY*n2*n2;
 	}
 
+	@Override
+	public BundlePinholeSnavely copy() {
+		var ret = new BundlePinholeSnavely();
+		ret.setTo(this);
+		return ret;
+	}
+
 	@Override
 	public String toString() {
 		return "BundlePinholeSnavely{" +
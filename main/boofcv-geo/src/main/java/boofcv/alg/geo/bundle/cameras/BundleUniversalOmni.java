@@ -383,4 +383,19 @@ public class BundleUniversalOmni implements BundleAdjustmentCamera {
 
 		return totalIntrinsic;
 	}
+
+	@Override
+	public BundleUniversalOmni copy() {
+		var ret = new BundleUniversalOmni(zeroSkew, radial.length, tangential, fixedMirror);
+		ret.fx = fx;
+		ret.fy = fy;
+		ret.skew = skew;
+		ret.cx = cx;
+		ret.cy = cy;
+		ret.mirrorOffset = mirrorOffset;
+		System.arraycopy(radial, 0, ret.radial, 0, radial.length);
+		ret.t1 = t1;
+		ret.t2 = t2;
+		return ret;
+	}
 }
@@ -103,7 +103,7 @@ public class CalibrationPlanarGridZhang99 implements VerbosePrint {
 	@Getter @Setter private Listener listener;
 
 	// where calibration points are layout on the target.
-	private final List<Point2D_F64> layout;
+	protected final List<Point2D_F64> layout;
 
 	/** Use a robust non-linear solver. This can run significantly slower */
 	@Getter @Setter private boolean robust = false;
@@ -152,6 +152,31 @@ public class CalibrationPlanarGridZhang99 implements VerbosePrint {
 		List<DMatrixRMaj> homographies = new ArrayList<>();
 		List<Se3_F64> motions = new ArrayList<>();
 
+		if (!computeHomographies(observations, homographies))
+			return false;
+
+		status("Estimating Calibration Matrix");
+		computeK.process(homographies);
+
+		DMatrixRMaj K = computeK.getCalibrationMatrix();
+
+		decomposeHomographies(K, homographies, motions);
+
+		status("Initial Model Parameters");
+
+		convertIntoBundleStructure(motions, K, homographies, observations);
+		return true;
+	}
+
+	/**
+	 * Computes the homography between the target and each image
+	 *
+	 * @param observations (Input) Observations of the target in each image
+	 * @param homographies (Output) Homography for each image
+	 * @return true if successful
+	 */
+	protected boolean computeHomographies( List<CalibrationObservation> observations,
+										   List<DMatrixRMaj> homographies ) {
 		for (int i = 0; i < observations.size(); i++) {
 			CalibrationObservation obs = observations.get(i);
 
@@ -162,22 +187,22 @@ public class CalibrationPlanarGridZhang99 implements VerbosePrint {
 
 			homographies.add(H);
 		}
+		return true;
+	}
 
-		status("Estimating Calibration Matrix");
-		computeK.process(homographies);
-
-		DMatrixRMaj K = computeK.getCalibrationMatrix();
-
+	/**
+	 * Given the calibration matrix, decomposes each homography to find the target's pose in each image
+	 *
+	 * @param K (Input) Calibration matrix
+	 * @param homographies (Input) Homography for each image
+	 * @param motions (Output) Target to camera transform for each image
+	 */
+	protected void decomposeHomographies( DMatrixRMaj K, List<DMatrixRMaj> homographies, List<Se3_F64> motions ) {
 		decomposeH.setCalibrationMatrix(K);
 		for (int i = 0; i < homographies.size(); i++) {
 			DMatrixRMaj H = homographies.get(i);
 			motions.add(decomposeH.decompose(H));
 		}
-
-		status("Initial Model Parameters");
-
-		convertIntoBundleStructure(motions, K, homographies, observations);
-		return true;
 	}
 
 	private void status( String message ) {
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.geo.calibration;
+
+import boofcv.alg.geo.calibration.cameras.Zhang99Camera;
+import boofcv.concurrency.BoofConcurrency;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.struct.DogArray_B;
+import org.ejml.data.DMatrixRMaj;
+import pabeles.concurrency.GrowArray;
+
+import java.util.List;
+
+/**
+ * Concurrent implementation of {@link CalibrationPlanarGridZhang99}. The homography and target pose for each image
+ * are computed in parallel. Non-linear refinement is done with sparse bundle adjustment, which will compute
+ * residuals in parallel when concurrency is enabled. Results are identical to the single thread version.
+ *
+ * @author Peter Abeles
+ */
+public class CalibrationPlanarGridZhang99_MT extends CalibrationPlanarGridZhang99 {
+
+	/** If there are fewer images than this it will use the single thread version */
+	public int minimumImagesConcurrent = 10;
+
+	// Per-thread estimators
+	private final GrowArray<Zhang99ComputeTargetHomography> workHomography;
+	private final GrowArray<Zhang99DecomposeHomography> workDecompose =
+			new GrowArray<>(Zhang99DecomposeHomography::new);
+
+	// Storage for results from each image before being added to the output list
+	private final DogArray_B success = new DogArray_B();
+	private DMatrixRMaj[] foundHomographies = new DMatrixRMaj[0];
+	private Se3_F64[] foundMotions = new Se3_F64[0];
+
+	public CalibrationPlanarGridZhang99_MT( List<Point2D_F64> layout, Zhang99Camera cameraGenerator ) {
+		super(layout, cameraGenerator);
+		workHomography = new GrowArray<>(() -> new Zhang99ComputeTargetHomography(layout));
+	}
+
+	@Override
+	protected boolean computeHomographies( List<CalibrationObservation> observations,
+										   List<DMatrixRMaj> homographies ) {
+		final int N = observations.size();
+		if (N < minimumImagesConcurrent)
+			return super.computeHomographies(observations, homographies);
+
+		success.resize(N);
+		if (foundHomographies.length < N)
+			foundHomographies = new DMatrixRMaj[N];
+
+		BoofConcurrency.loopBlocks(0, N, workHomography, ( alg, idx0, idx1 ) -> {
+			for (int i = idx0; i < idx1; i++) {
+				success.data[i] = alg.computeHomography(observations.get(i));
+				foundHomographies[i] = success.data[i] ? alg.getHomography() : null;
+			}
+		});
+
+		for (int i = 0; i < N; i++) {
+			if (!success.data[i])
+				return false;
+			homographies.add(foundHomographies[i]);
+			foundHomographies[i] = null;
+		}
+		return true;
+	}
+
+	@Override
+	protected void decomposeHomographies( DMatrixRMaj K, List<DMatrixRMaj> homographies, List<Se3_F64> motions ) {
+		final int N = homographies.size();
+		if (N < minimumImagesConcurrent) {
+			super.decomposeHomographies(K, homographies, motions);
+			return;
+		}
+
+		if (foundMotions.length < N)
+			foundMotions = new Se3_F64[N];
+
+		BoofConcurrency.loopBlocks(0, N, workDecompose, ( alg, idx0, idx1 ) -> {
+			alg.setCalibrationMatrix(K);
+			for (int i = idx0; i < idx1; i++) {
+				foundMotions[i] = alg.decompose(homographies.get(i));
+			}
+		});
+
+		for (int i = 0; i < N; i++) {
+			motions.add(foundMotions[i]);
+			foundMotions[i] = null;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.geo.pose;
+
+import boofcv.abst.geo.Estimate1ofPnP;
+import boofcv.abst.geo.RefinePnP;
+import boofcv.misc.BoofLambdas;
+import boofcv.struct.geo.Point2D3D;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Solves many independent PnP problems. Each problem is a set of observations in normalized image coordinates with
+ * the known 3D location of the observed points in its own world frame. The pose of each problem is found using
+ * {@link Estimate1ofPnP} then optionally refined using {@link RefinePnP}. The estimators are created once and
+ * reused for every problem, avoiding the overhead of creating them for each problem.
+ *
+ * @author Peter Abeles
+ */
+public class PnPBatchEstimator {
+	// Used to create the estimators
+	protected final BoofLambdas.Factory<Estimate1ofPnP> factoryEstimate;
+	protected final @Nullable BoofLambdas.Factory<RefinePnP> factoryRefine;
+
+	// Estimators used by the single thread version
+	protected final Workspace workspace;
+
+	/**
+	 * Specifies how the pose is estimated
+	 *
+	 * @param factoryEstimate Creates the estimator which provides the initial pose
+	 * @param factoryRefine (Optional) Creates the estimator which refines the pose. If null there is no refinement
+	 */
+	public PnPBatchEstimator( BoofLambdas.Factory<Estimate1ofPnP> factoryEstimate,
+							  @Nullable BoofLambdas.Factory<RefinePnP> factoryRefine ) {
+		this.factoryEstimate = factoryEstimate;
+		this.factoryRefine = factoryRefine;
+		this.workspace = createWorkspace();
+	}
+
+	/**
+	 * Estimates the pose for every problem.
+	 *
+	 * @param problems (Input) Observations and 3D points for each problem
+	 * @param worldToCamera (Output) Estimated world to camera transform for each problem. Resized.
+	 * @param success (Output) If the pose of each problem could be estimated. Resized.
+	 */
+	public void process( List<List<Point2D3D>> problems, DogArray<Se3_F64> worldToCamera, DogArray_B success ) {
+		worldToCamera.resize(problems.size());
+		success.resize(problems.size());
+
+		processRange(workspace, problems, 0, problems.size(), worldToCamera, success);
+	}
+
+	/**
+	 * Estimates the pose of problems in the specified range.
+	 *
+	 * @param idx0 First problem, inclusive
+	 * @param idx1 Last problem, exclusive
+	 */
+	protected void processRange( Workspace workspace, List<List<Point2D3D>> problems, int idx0, int idx1,
+								 DogArray<Se3_F64> worldToCamera, DogArray_B success ) {
+		for (int i = idx0; i < idx1; i++) {
+			success.data[i] = workspace.estimate(problems.get(i), worldToCamera.get(i));
+		}
+	}
+
+	protected Workspace createWorkspace() {
+		return new Workspace(factoryEstimate.newInstance(), factoryRefine == null ? null : factoryRefine.newInstance());
+	}
+
+	/**
+	 * Estimators and storage used to solve a single problem
+	 */
+	protected static class Workspace {
+		public final Estimate1ofPnP estimate;
+		public final @Nullable RefinePnP refine;
+		// Pose before refinement
+		public final Se3_F64 initial = new Se3_F64();
+
+		public Workspace( Estimate1ofPnP estimate, @Nullable RefinePnP refine ) {
+			this.estimate = estimate;
+			this.refine = refine;
+		}
+
+		/**
+		 * Estimates the pose for a single problem
+		 *
+		 * @return true if successful
+		 */
+		public boolean estimate( List<Point2D3D> points, Se3_F64 worldToCamera ) {
+			if (points.size() < estimate.getMinimumPoints())
+				return false;
+
+			if (refine == null)
+				return estimate.process(points, worldToCamera);
+
+			if (!estimate.process(points, initial))
+				return false;
+			return refine.fitModel(points, initial, worldToCamera);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.geo.pose;
+
+import boofcv.abst.geo.Estimate1ofPnP;
+import boofcv.abst.geo.RefinePnP;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
+import boofcv.struct.geo.Point2D3D;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
+import org.jetbrains.annotations.Nullable;
+import pabeles.concurrency.GrowArray;
+
+import java.util.List;
+
+/**
+ * Concurrent implementation of {@link PnPBatchEstimator}. Each thread is given a block of problems and its own
+ * estimators. Estimators are kept between calls so they are only created once for each thread. Since the
+ * estimators are deterministic and each problem is independent, the results are identical to the single thread
+ * version.
+ *
+ * @author Peter Abeles
+ */
+public class PnPBatchEstimator_MT extends PnPBatchEstimator {
+
+	/** If there are fewer than this number of problems it will use the single thread version */
+	public int minimumProblemsConcurrent = 20;
+
+	// Estimators for each thread
+	protected final GrowArray<Workspace> workspaces = new GrowArray<>(this::createWorkspace);
+
+	public PnPBatchEstimator_MT( BoofLambdas.Factory<Estimate1ofPnP> factoryEstimate,
+								 @Nullable BoofLambdas.Factory<RefinePnP> factoryRefine ) {
+		super(factoryEstimate, factoryRefine);
+	}
+
+	@Override
+	public void process( List<List<Point2D3D>> problems, DogArray<Se3_F64> worldToCamera, DogArray_B success ) {
+		if (problems.size() < minimumProblemsConcurrent) {
+			super.process(problems, worldToCamera, success);
+			return;
+		}
+
+		worldToCamera.resize(problems.size());
+		success.resize(problems.size());
+
+		BoofConcurrency.loopBlocks(0, problems.size(), workspaces, ( workspace, idx0, idx1 ) ->
+				processRange(workspace, problems, idx0, idx1, worldToCamera, success));
+	}
+}
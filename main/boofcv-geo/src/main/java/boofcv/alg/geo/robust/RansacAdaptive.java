@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.robust;
+
+import boofcv.misc.BoofMiscOps;
+import lombok.Getter;
+import lombok.Setter;
+import org.ddogleg.fitting.modelset.DistanceFromModel;
+import org.ddogleg.fitting.modelset.ModelGenerator;
+import org.ddogleg.fitting.modelset.ModelManager;
+import org.ddogleg.fitting.modelset.ModelMatcher;
+import org.ddogleg.struct.DogArray_F64;
+import org.ddogleg.struct.DogArray_I32;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>
+ * Variant of RANSAC which can stop early, sample using PROSAC, and refine models using local optimization.
+ * </p>
+ *
+ * <ul>
+ *     <li><b>Adaptive Termination:</b> After a new best model has been found, the number of iterations needed to
+ *     have drawn an outlier free sample with the specified {@link #confidence} is recomputed using the
+ *     inlier ratio. Once that many iterations have been performed it stops. </li>
+ *     <li><b>PROSAC:</b> Samples are drawn from a set of points that grows over time, starting with the points
+ *     at the front of the list. Input points must be sorted by quality, e.g. association score, with the best
+ *     first. If the quality is correlated with being an inlier then a good model is found much sooner. [1]</li>
+ *     <li><b>Local Optimization:</b> When a new best model is found, a model is fit to all of its inliers using
+ *     a generator which can handle more than the minimum number of points. This is repeated while the number of
+ *     inliers increases. [2]</li>
+ * </ul>
+ *
+ * <p>
+ * [1] Chum, Ondrej, and Jiri Matas. "Matching with PROSAC-progressive sample consensus." CVPR 2005<br>
+ * [2] Chum, Ondrej, Jiri Matas, and Josef Kittler. "Locally optimized RANSAC." Joint Pattern Recognition
+ * Symposium 2003
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class RansacAdaptive<Model, Point> implements ModelMatcher<Model, Point> {
+	/** Maximum number of iterations it will perform */
+	@Getter @Setter int maxIterations;
+
+	/** Points with an error less than or equal to this are inliers */
+	@Getter @Setter double thresholdFit;
+
+	/**
+	 * Desired probability that an outlier free sample has been drawn. Must be in the range [0, 1). If zero then
+	 * it will always perform {@link #maxIterations}.
+	 */
+	@Getter @Setter double confidence = 0.0;
+
+	/** If true then PROSAC sampling is used. The input points must be sorted from best to worst. */
+	@Getter @Setter boolean prosac = false;
+
+	/** If not null then it's used to refine the best model using all of its inliers */
+	@Getter @Setter @Nullable ModelGenerator<Model, Point> localOptimizer;
+
+	/** Maximum number of times local optimization will be applied to a new best model */
+	@Getter @Setter int localIterations = 3;
+
+	/** Number of iterations performed in the most recent call to {@link #process} */
+	@Getter int iterationsPerformed;
+
+	// Random number generator and the seed it was initialized with
+	final long randSeed;
+	final Random rand;
+
+	final ModelManager<Model> manager;
+	final ModelGenerator<Model, Point> generator;
+	final DistanceFromModel<Model, Point> distance;
+
+	// Reference to the input points
+	List<Point> dataSet = new ArrayList<>();
+
+	// Points in the current sample and their indexes
+	final List<Point> sample = new ArrayList<>();
+	final DogArray_I32 sampleIdx = new DogArray_I32();
+
+	// Storage for models
+	final Model candidate;
+	final Model bestModel;
+
+	// Inliers of the best model and the model being evaluated
+	DogArray_I32 bestInliers = new DogArray_I32();
+	DogArray_I32 candidateInliers = new DogArray_I32();
+	final List<Point> matchSet = new ArrayList<>();
+
+	// Distance of each point from the model
+	final DogArray_F64 distances = new DogArray_F64();
+
+	// PROSAC. Number of points being sampled from, the expected and actual iteration when it will grow
+	int prosacN;
+	double prosacTn;
+	int prosacTnPrime;
+
+	public RansacAdaptive( long randSeed, int maxIterations, double thresholdFit,
+						   ModelManager<Model> manager,
+						   ModelGenerator<Model, Point> generator,
+						   DistanceFromModel<Model, Point> distance ) {
+		this.randSeed = randSeed;
+		this.rand = new Random(randSeed);
+		this.maxIterations = maxIterations;
+		this.thresholdFit = thresholdFit;
+		this.manager = manager;
+		this.generator = generator;
+		this.distance = distance;
+		this.candidate = manager.createModelInstance();
+		this.bestModel = manager.createModelInstance();
+	}
+
+	@Override
+	public boolean process( List<Point> dataSet ) {
+		BoofMiscOps.checkTrue(confidence >= 0.0 && confidence < 1.0, "Confidence must be in the range [0,1)");
+		this.dataSet = dataSet;
+		bestInliers.reset();
+		matchSet.clear();
+		iterationsPerformed = 0;
+
+		final int N = dataSet.size();
+		final int m = generator.getMinimumPoints();
+		if (N < m)
+			return false;
+
+		distances.resize(N);
+		initializeProsac(N, m);
+
+		int iterationLimit = maxIterations;
+		while (iterationsPerformed < iterationLimit) {
+			iterationsPerformed++;
+
+			if (prosac)
+				sampleProsac(iterationsPerformed, N, m);
+			else
+				sampleUniform(N, m);
+
+			if (!generator.generate(sample, candidate))
+				continue;
+
+			findInliers(candidate, candidateInliers);
+			if (candidateInliers.size <= bestInliers.size)
+				continue;
+
+			saveCandidateAsBest();
+			if (localOptimizer != null)
+				locallyOptimize(localOptimizer);
+
+			iterationLimit = Math.min(maxIterations, adaptiveIterations(bestInliers.size, N, m));
+		}
+
+		if (bestInliers.size == 0)
+			return false;
+
+		for (int i = 0; i < bestInliers.size; i++) {
+			matchSet.add(dataSet.get(bestInliers.data[i]));
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the number of iterations needed to have drawn at least one outlier free sample with the
+	 * specified confidence, given the inlier ratio.
+	 */
+	int adaptiveIterations( int numInliers, int N, int m ) {
+		if (confidence <= 0.0)
+			return maxIterations;
+
+		double probGoodSample = Math.pow(numInliers/(double)N, m);
+		if (probGoodSample >= 1.0)
+			return 1;
+		double denominator = Math.log(1.0 - probGoodSample);
+		if (denominator == 0.0)
+			return maxIterations;
+
+		double k = Math.ceil(Math.log(1.0 - confidence)/denominator);
+		return k >= maxIterations ? maxIterations : Math.max(1, (int)k);
+	}
+
+	/**
+	 * Initializes PROSAC so that it starts by sampling from the first 'm' points
+	 */
+	void initializeProsac( int N, int m ) {
+		prosacN = m;
+		prosacTn = maxIterations;
+		for (int i = 0; i < m; i++) {
+			prosacTn *= (m - i)/(double)(N - i);
+		}
+		prosacTnPrime = 1;
+	}
+
+	/**
+	 * Selects a sample using PROSAC's growth function. The newest point in the sampling set is always included
+	 * until the set is allowed to grow again.
+	 *
+	 * @param t The iteration, starting from 1
+	 */
+	void sampleProsac( int t, int N, int m ) {
+		// See if it's time to grow the set of points being sampled
+		while (t > prosacTnPrime && prosacN < N) {
+			double TnNext = prosacTn*(prosacN + 1)/(prosacN + 1 - m);
+			prosacN++;
+			prosacTnPrime += (int)Math.ceil(TnNext - prosacTn);
+			prosacTn = TnNext;
+		}
+
+		if (prosacTnPrime < t) {
+			// All the points are being sampled from. Standard RANSAC
+			sampleUniform(prosacN, m);
+		} else {
+			// Sample from the points before the newest point then add the newest point
+			sampleUniform(prosacN - 1, m - 1);
+			sampleIdx.add(prosacN - 1);
+			sample.add(dataSet.get(prosacN - 1));
+		}
+	}
+
+	/**
+	 * Randomly selects a set of 'm' unique points from the first 'N' points
+	 */
+	void sampleUniform( int N, int m ) {
+		sample.clear();
+		sampleIdx.reset();
+		while (sampleIdx.size < m) {
+			int idx = rand.nextInt(N);
+			if (isInSample(idx))
+				continue;
+			sampleIdx.add(idx);
+			sample.add(dataSet.get(idx));
+		}
+	}
+
+	private boolean isInSample( int idx ) {
+		for (int i = 0; i < sampleIdx.size; i++) {
+			if (sampleIdx.data[i] == idx)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the index of all points which are inliers to the model
+	 */
+	void findInliers( Model model, DogArray_I32 inliers ) {
+		inliers.reset();
+		distance.setModel(model);
+		distance.distances(dataSet, distances.data);
+		for (int i = 0; i < dataSet.size(); i++) {
+			if (distances.data[i] <= thresholdFit)
+				inliers.add(i);
+		}
+	}
+
+	/**
+	 * Fits a model to all the inliers of the best model. If the new model has more inliers it becomes the best
+	 * model and the process is repeated.
+	 */
+	void locallyOptimize( ModelGenerator<Model, Point> optimizer ) {
+		for (int iteration = 0; iteration < localIterations; iteration++) {
+			if (bestInliers.size < optimizer.getMinimumPoints())
+				return;
+
+			sample.clear();
+			for (int i = 0; i < bestInliers.size; i++) {
+				sample.add(dataSet.get(bestInliers.data[i]));
+			}
+
+			if (!optimizer.generate(sample, candidate))
+				return;
+
+			findInliers(candidate, candidateInliers);
+			if (candidateInliers.size <= bestInliers.size)
+				return;
+
+			saveCandidateAsBest();
+		}
+	}
+
+	/**
+	 * The candidate model becomes the best model
+	 */
+	void saveCandidateAsBest() {
+		manager.copyModel(candidate, bestModel);
+		DogArray_I32 tmp = bestInliers;
+		bestInliers = candidateInliers;
+		candidateInliers = tmp;
+	}
+
+	@Override public Model getModelParameters() {return bestModel;}
+
+	@Override public List<Point> getMatchSet() {return matchSet;}
+
+	@Override public int getInputIndex( int matchIndex ) {return bestInliers.get(matchIndex);}
+
+	/**
+	 * Number of inliers in the best model
+	 */
+	@Override public double getFitQuality() {return bestInliers.size;}
+
+	@Override public int getMinimumSize() {return generator.getMinimumPoints();}
+
+	@Override public void reset() {rand.setSeed(randSeed);}
+
+	@Override public Class<Point> getPointType() {return distance.getPointType();}
+
+	@Override public Class<Model> getModelType() {return distance.getModelType();}
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.triangulate;
+
+import boofcv.abst.geo.Triangulate2ViewsMetricH;
+import boofcv.misc.BoofLambdas;
+import boofcv.misc.BoofMiscOps;
+import boofcv.struct.packed.PackedArrayPoint2D_F64;
+import boofcv.struct.packed.PackedArrayPoint4D_F64;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.point.Point4D_F64;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_F64;
+
+/**
+ * <p>
+ * Triangulates and computes the reprojection error for a batch of points at once. Input and output are stored in
+ * packed arrays so that an object isn't needed for every point. Internally it uses
+ * {@link Triangulate2ViewsMetricH} to triangulate each point.
+ * </p>
+ *
+ * <p>
+ * All observations are in normalized image coordinates and the reprojection error is also in normalized image
+ * coordinates.
+ * </p>
+ *
+ * @author Peter Abeles
+ * @see TriangulateBatch2ViewsMetricH_MT
+ */
+public class TriangulateBatch2ViewsMetricH {
+	// Creates new instances of the triangulation algorithm
+	protected final BoofLambdas.Factory<Triangulate2ViewsMetricH> factory;
+
+	// Work space for when it's single threaded
+	protected final Workspace workspace;
+
+	/**
+	 * @param factory Creates new instances of the triangulation algorithm.
+	 */
+	public TriangulateBatch2ViewsMetricH( BoofLambdas.Factory<Triangulate2ViewsMetricH> factory ) {
+		this.factory = factory;
+		this.workspace = new Workspace(factory.newInstance());
+	}
+
+	/**
+	 * Triangulates each pair of observations.
+	 *
+	 * @param obsA (Input) Observations in view A. Normalized image coordinates.
+	 * @param obsB (Input) Observations in view B. Normalized image coordinates. Same order as obsA.
+	 * @param a_to_b (Input) Transform from view A to view B.
+	 * @param foundInA (Output) Triangulated points in homogenous coordinates in A's reference frame. Resized.
+	 * @param success (Output) If triangulation of a point was successful or not. Resized.
+	 */
+	public void triangulate( PackedArrayPoint2D_F64 obsA, PackedArrayPoint2D_F64 obsB, Se3_F64 a_to_b,
+							 PackedArrayPoint4D_F64 foundInA, DogArray_B success ) {
+		BoofMiscOps.checkEq(obsA.size(), obsB.size(), "Number of observations in each view must be the same");
+		int N = obsA.size();
+		foundInA.resize(N);
+		success.resize(N);
+		triangulate(obsA, obsB, a_to_b, foundInA, success, 0, N, workspace);
+	}
+
+	/**
+	 * Triangulates points inside the specified range
+	 *
+	 * @param idx0 First point, inclusive
+	 * @param idx1 Last point, exclusive
+	 */
+	protected static void triangulate( PackedArrayPoint2D_F64 obsA, PackedArrayPoint2D_F64 obsB, Se3_F64 a_to_b,
+									   PackedArrayPoint4D_F64 foundInA, DogArray_B success,
+									   int idx0, int idx1, Workspace work ) {
+		final double[] dataA = obsA.array.data;
+		final double[] dataB = obsB.array.data;
+		final double[] found = foundInA.array.data;
+		final Point4D_F64 X = work.X;
+
+		for (int i = idx0; i < idx1; i++) {
+			work.a.setTo(dataA[i*2], dataA[i*2 + 1]);
+			work.b.setTo(dataB[i*2], dataB[i*2 + 1]);
+
+			success.data[i] = work.triangulate.triangulate(work.a, work.b, a_to_b, X);
+
+			int idx = i*4;
+			found[idx] = X.x;
+			found[idx + 1] = X.y;
+			found[idx + 2] = X.z;
+			found[idx + 3] = X.w;
+		}
+	}
+
+	/**
+	 * Computes the squared reprojection error of each point in the view. If a point is behind the camera or
+	 * projects to infinity then the error is {@link Double#MAX_VALUE}.
+	 *
+	 * @param points (Input) Location of points in the world frame. Homogenous coordinates.
+	 * @param observations (Input) Observation of each point in the view. Normalized image coordinates.
+	 * @param world_to_view (Input) Transform from world to view
+	 * @param errors (Output) Squared reprojection error of each point. Resized.
+	 */
+	public void reprojectionErrors( PackedArrayPoint4D_F64 points, PackedArrayPoint2D_F64 observations,
+									Se3_F64 world_to_view, DogArray_F64 errors ) {
+		BoofMiscOps.checkEq(points.size(), observations.size(), "Each point must have an observation");
+		errors.resize(points.size());
+		reprojectionErrors(points, observations, world_to_view, errors, 0, points.size());
+	}
+
+	/**
+	 * Computes reprojection errors for points inside the specified range
+	 *
+	 * @param idx0 First point, inclusive
+	 * @param idx1 Last point, exclusive
+	 */
+	protected static void reprojectionErrors( PackedArrayPoint4D_F64 points, PackedArrayPoint2D_F64 observations,
+											  Se3_F64 world_to_view, DogArray_F64 errors, int idx0, int idx1 ) {
+		final double[] R = world_to_view.R.data;
+		final double tx = world_to_view.T.x, ty = world_to_view.T.y, tz = world_to_view.T.z;
+		final double[] dataX = points.array.data;
+		final double[] dataObs = observations.array.data;
+
+		for (int i = idx0; i < idx1; i++) {
+			int idx = i*4;
+			double x = dataX[idx], y = dataX[idx + 1], z = dataX[idx + 2], w = dataX[idx + 3];
+
+			// X' = R*X + T*w
+			double vx = R[0]*x + R[1]*y + R[2]*z + tx*w;
+			double vy = R[3]*x + R[4]*y + R[5]*z + ty*w;
+			double vz = R[6]*x + R[7]*y + R[8]*z + tz*w;
+
+			// Homogenous coordinates have an arbitrary sign. Make w positive so that z says which side it's on
+			if (w < 0.0) {
+				vx = -vx;
+				vy = -vy;
+				vz = -vz;
+			}
+
+			// Points behind the camera can't be observed
+			if (vz <= 0.0) {
+				errors.data[i] = Double.MAX_VALUE;
+				continue;
+			}
+
+			double dx = vx/vz - dataObs[i*2];
+			double dy = vy/vz - dataObs[i*2 + 1];
+			errors.data[i] = dx*dx + dy*dy;
+		}
+	}
+
+	/**
+	 * Work space for a single thread
+	 */
+	protected static class Workspace {
+		public final Triangulate2ViewsMetricH triangulate;
+		public final Point2D_F64 a = new Point2D_F64();
+		public final Point2D_F64 b = new Point2D_F64();
+		public final Point4D_F64 X = new Point4D_F64();
+
+		public Workspace( Triangulate2ViewsMetricH triangulate ) {
+			this.triangulate = triangulate;
+		}
+	}
+}
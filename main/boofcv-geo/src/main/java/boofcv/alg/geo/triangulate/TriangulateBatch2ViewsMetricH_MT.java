@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.triangulate;
+
+import boofcv.abst.geo.Triangulate2ViewsMetricH;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
+import boofcv.misc.BoofMiscOps;
+import boofcv.struct.packed.PackedArrayPoint2D_F64;
+import boofcv.struct.packed.PackedArrayPoint4D_F64;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_F64;
+import pabeles.concurrency.GrowArray;
+
+/**
+ * Concurrent implementation of {@link TriangulateBatch2ViewsMetricH}. Points are split into blocks and each
+ * thread has its own instance of the triangulation algorithm. Results are identical to the single thread version.
+ *
+ * @author Peter Abeles
+ */
+public class TriangulateBatch2ViewsMetricH_MT extends TriangulateBatch2ViewsMetricH {
+	/** If there are fewer than this number of points then it will be single threaded */
+	public int minimumPointsConcurrent = 100;
+
+	// Work space for each thread
+	final GrowArray<Workspace> workspaces;
+
+	public TriangulateBatch2ViewsMetricH_MT( BoofLambdas.Factory<Triangulate2ViewsMetricH> factory ) {
+		super(factory);
+		workspaces = new GrowArray<>(() -> new Workspace(factory.newInstance()));
+	}
+
+	@Override
+	public void triangulate( PackedArrayPoint2D_F64 obsA, PackedArrayPoint2D_F64 obsB, Se3_F64 a_to_b,
+							 PackedArrayPoint4D_F64 foundInA, DogArray_B success ) {
+		if (obsA.size() < minimumPointsConcurrent) {
+			super.triangulate(obsA, obsB, a_to_b, foundInA, success);
+			return;
+		}
+
+		BoofMiscOps.checkEq(obsA.size(), obsB.size(), "Number of observations in each view must be the same");
+		int N = obsA.size();
+		foundInA.resize(N);
+		success.resize(N);
+		BoofConcurrency.loopBlocks(0, N, workspaces, ( work, idx0, idx1 ) ->
+				triangulate(obsA, obsB, a_to_b, foundInA, success, idx0, idx1, work));
+	}
+
+	@Override
+	public void reprojectionErrors( PackedArrayPoint4D_F64 points, PackedArrayPoint2D_F64 observations,
+									Se3_F64 world_to_view, DogArray_F64 errors ) {
+		if (points.size() < minimumPointsConcurrent) {
+			super.reprojectionErrors(points, observations, world_to_view, errors);
+			return;
+		}
+
+		BoofMiscOps.checkEq(points.size(), observations.size(), "Each point must have an observation");
+		errors.resize(points.size());
+		BoofConcurrency.loopBlocks(0, points.size(), ( idx0, idx1 ) ->
+				reprojectionErrors(points, observations, world_to_view, errors, idx0, idx1));
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.triangulate;
+
+import boofcv.abst.geo.TriangulateNViewsMetric;
+import boofcv.misc.BoofLambdas;
+import boofcv.misc.BoofMiscOps;
+import boofcv.struct.packed.PackedArrayPoint2D_F64;
+import boofcv.struct.packed.PackedArrayPoint3D_F64;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.point.Point3D_F64;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_F64;
+import org.ddogleg.struct.DogArray_I32;
+import org.ddogleg.struct.FastArray;
+
+import java.util.List;
+
+/**
+ * <p>
+ * Triangulates and computes the reprojection error for a batch of points which are each observed in a variable
+ * number of views. Observations of all the points are stored in a single packed array, with the observations of
+ * each point next to each other. Where a point's observations start is given by 'pointStart', i.e. the observations
+ * of point 'i' are from pointStart[i] to pointStart[i+1]-1, and 'observationView' specifies which view each
+ * observation is from. Internally it uses {@link TriangulateNViewsMetric} to triangulate each point.
+ * </p>
+ *
+ * <p>
+ * All observations are in normalized image coordinates and the reprojection error is also in normalized image
+ * coordinates.
+ * </p>
+ *
+ * @author Peter Abeles
+ * @see TriangulateBatchNViewsMetric_MT
+ */
+public class TriangulateBatchNViewsMetric {
+	// Creates new instances of the triangulation algorithm
+	protected final BoofLambdas.Factory<TriangulateNViewsMetric> factory;
+
+	// Work space for when it's single threaded
+	protected final Workspace workspace;
+
+	/**
+	 * @param factory Creates new instances of the triangulation algorithm.
+	 */
+	public TriangulateBatchNViewsMetric( BoofLambdas.Factory<TriangulateNViewsMetric> factory ) {
+		this.factory = factory;
+		this.workspace = new Workspace(factory.newInstance());
+	}
+
+	/**
+	 * Triangulates each point from all of its observations.
+	 *
+	 * @param observations (Input) Observations of all the points. Normalized image coordinates.
+	 * @param observationView (Input) Index of the view each observation is from
+	 * @param pointStart (Input) Index of the first observation of each point. Has one more element than there are
+	 * points, with the last element being the total number of observations.
+	 * @param listWorldToView (Input) Transform from world to each view
+	 * @param found (Output) Triangulated points in world coordinates. Resized.
+	 * @param success (Output) If triangulation of a point was successful or not. Resized.
+	 */
+	public void triangulate( PackedArrayPoint2D_F64 observations, DogArray_I32 observationView,
+							 DogArray_I32 pointStart, List<Se3_F64> listWorldToView,
+							 PackedArrayPoint3D_F64 found, DogArray_B success ) {
+		int N = checkInput(observations, observationView, pointStart);
+		found.resize(N);
+		success.resize(N);
+		triangulate(observations, observationView, pointStart, listWorldToView, found, success, 0, N, workspace);
+	}
+
+	/**
+	 * Makes sure the input is consistent and returns the number of points
+	 */
+	protected static int checkInput( PackedArrayPoint2D_F64 observations, DogArray_I32 observationView,
+									 DogArray_I32 pointStart ) {
+		BoofMiscOps.checkTrue(pointStart.size > 0, "pointStart must have at least one element");
+		BoofMiscOps.checkEq(observations.size(), observationView.size, "Each observation must have a view");
+		BoofMiscOps.checkEq(observations.size(), pointStart.getTail(0), "Last element must be the number of observations");
+		return pointStart.size - 1;
+	}
+
+	/**
+	 * Triangulates points inside the specified range
+	 *
+	 * @param idx0 First point, inclusive
+	 * @param idx1 Last point, exclusive
+	 */
+	protected static void triangulate( PackedArrayPoint2D_F64 observations, DogArray_I32 observationView,
+									   DogArray_I32 pointStart, List<Se3_F64> listWorldToView,
+									   PackedArrayPoint3D_F64 found, DogArray_B success,
+									   int idx0, int idx1, Workspace work ) {
+		final double[] dataObs = observations.array.data;
+		final double[] dataFound = found.array.data;
+		final Point3D_F64 X = work.X;
+
+		for (int i = idx0; i < idx1; i++) {
+			int obs0 = pointStart.data[i];
+			int obs1 = pointStart.data[i + 1];
+
+			work.observations.reset();
+			work.poses.reset();
+			for (int obsIdx = obs0; obsIdx < obs1; obsIdx++) {
+				work.observations.grow().setTo(dataObs[obsIdx*2], dataObs[obsIdx*2 + 1]);
+				work.poses.add(listWorldToView.get(observationView.data[obsIdx]));
+			}
+
+			success.data[i] = work.triangulate.triangulate(work.observations.toList(), work.poses.toList(), X);
+
+			int idx = i*3;
+			dataFound[idx] = X.x;
+			dataFound[idx + 1] = X.y;
+			dataFound[idx + 2] = X.z;
+		}
+	}
+
+	/**
+	 * Computes the squared reprojection error of every observation. If a point is behind the camera or
+	 * projects to infinity then the error is {@link Double#MAX_VALUE}.
+	 *
+	 * @param points (Input) Location of points in world coordinates
+	 * @param observations (Input) Observations of all the points. Normalized image coordinates.
+	 * @param observationView (Input) Index of the view each observation is from
+	 * @param pointStart (Input) Index of the first observation of each point. See {@link #triangulate}.
+	 * @param listWorldToView (Input) Transform from world to each view
+	 * @param errors (Output) Squared reprojection error of each observation. Resized.
+	 */
+	public void reprojectionErrors( PackedArrayPoint3D_F64 points, PackedArrayPoint2D_F64 observations,
+									DogArray_I32 observationView, DogArray_I32 pointStart,
+									List<Se3_F64> listWorldToView, DogArray_F64 errors ) {
+		int N = checkInput(observations, observationView, pointStart);
+		BoofMiscOps.checkEq(N, points.size(), "Number of points doesn't match pointStart");
+		errors.resize(observations.size());
+		reprojectionErrors(points, observations, observationView, pointStart, listWorldToView, errors, 0, N);
+	}
+
+	/**
+	 * Computes reprojection errors for observations of points inside the specified range
+	 *
+	 * @param idx0 First point, inclusive
+	 * @param idx1 Last point, exclusive
+	 */
+	protected static void reprojectionErrors( PackedArrayPoint3D_F64 points, PackedArrayPoint2D_F64 observations,
+											  DogArray_I32 observationView, DogArray_I32 pointStart,
+											  List<Se3_F64> listWorldToView, DogArray_F64 errors,
+											  int idx0, int idx1 ) {
+		final double[] dataX = points.array.data;
+		final double[] dataObs = observations.array.data;
+
+		for (int i = idx0; i < idx1; i++) {
+			double x = dataX[i*3], y = dataX[i*3 + 1], z = dataX[i*3 + 2];
+
+			int obs1 = pointStart.data[i + 1];
+			for (int obsIdx = pointStart.data[i]; obsIdx < obs1; obsIdx++) {
+				Se3_F64 world_to_view = listWorldToView.get(observationView.data[obsIdx]);
+				final double[] R = world_to_view.R.data;
+
+				// X' = R*X + T
+				double vx = R[0]*x + R[1]*y + R[2]*z + world_to_view.T.x;
+				double vy = R[3]*x + R[4]*y + R[5]*z + world_to_view.T.y;
+				double vz = R[6]*x + R[7]*y + R[8]*z + world_to_view.T.z;
+
+				// Points behind the camera can't be observed
+				if (vz <= 0.0) {
+					errors.data[obsIdx] = Double.MAX_VALUE;
+					continue;
+				}
+
+				double dx = vx/vz - dataObs[obsIdx*2];
+				double dy = vy/vz - dataObs[obsIdx*2 + 1];
+				errors.data[obsIdx] = dx*dx + dy*dy;
+			}
+		}
+	}
+
+	/**
+	 * Work space for a single thread
+	 */
+	protected static class Workspace {
+		public final TriangulateNViewsMetric triangulate;
+		public final DogArray<Point2D_F64> observations = new DogArray<>(Point2D_F64::new);
+		public final FastArray<Se3_F64> poses = new FastArray<>(Se3_F64.class);
+		public final Point3D_F64 X = new Point3D_F64();
+
+		public Workspace( TriangulateNViewsMetric triangulate ) {
+			this.triangulate = triangulate;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.triangulate;
+
+import boofcv.abst.geo.TriangulateNViewsMetric;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
+import boofcv.misc.BoofMiscOps;
+import boofcv.struct.packed.PackedArrayPoint2D_F64;
+import boofcv.struct.packed.PackedArrayPoint3D_F64;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_F64;
+import org.ddogleg.struct.DogArray_I32;
+import pabeles.concurrency.GrowArray;
+
+import java.util.List;
+
+/**
+ * Concurrent implementation of {@link TriangulateBatchNViewsMetric}. Points are split into blocks and each
+ * thread has its own instance of the triangulation algorithm. Results are identical to the single thread version.
+ *
+ * @author Peter Abeles
+ */
+public class TriangulateBatchNViewsMetric_MT extends TriangulateBatchNViewsMetric {
+	/** If there are fewer than this number of points then it will be single threaded */
+	public int minimumPointsConcurrent = 50;
+
+	// Work space for each thread
+	final GrowArray<Workspace> workspaces;
+
+	public TriangulateBatchNViewsMetric_MT( BoofLambdas.Factory<TriangulateNViewsMetric> factory ) {
+		super(factory);
+		workspaces = new GrowArray<>(() -> new Workspace(factory.newInstance()));
+	}
+
+	@Override
+	public void triangulate( PackedArrayPoint2D_F64 observations, DogArray_I32 observationView,
+							 DogArray_I32 pointStart, List<Se3_F64> listWorldToView,
+							 PackedArrayPoint3D_F64 found, DogArray_B success ) {
+		int N = checkInput(observations, observationView, pointStart);
+		if (N < minimumPointsConcurrent) {
+			super.triangulate(observations, observationView, pointStart, listWorldToView, found, success);
+			return;
+		}
+
+		found.resize(N);
+		success.resize(N);
+		BoofConcurrency.loopBlocks(0, N, workspaces, ( work, idx0, idx1 ) ->
+				triangulate(observations, observationView, pointStart, listWorldToView, found, success, idx0, idx1, work));
+	}
+
+	@Override
+	public void reprojectionErrors( PackedArrayPoint3D_F64 points, PackedArrayPoint2D_F64 observations,
+									DogArray_I32 observationView, DogArray_I32 pointStart,
+									List<Se3_F64> listWorldToView, DogArray_F64 errors ) {
+		int N = checkInput(observations, observationView, pointStart);
+		if (N < minimumPointsConcurrent) {
+			super.reprojectionErrors(points, observations, observationView, pointStart, listWorldToView, errors);
+			return;
+		}
+
+		BoofMiscOps.checkEq(N, points.size(), "Number of points doesn't match pointStart");
+		errors.resize(observations.size());
+		BoofConcurrency.loopBlocks(0, N, ( idx0, idx1 ) ->
+				reprojectionErrors(points, observations, observationView, pointStart, listWorldToView, errors, idx0, idx1));
+	}
+}
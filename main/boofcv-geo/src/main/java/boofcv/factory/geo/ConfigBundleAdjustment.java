@@ -35,8 +35,37 @@ public class ConfigBundleAdjustment {
 	 */
 	public Object configOptimizer = new ConfigLevenbergMarquardt();
 
+	/**
+	 * Specifies how the reduced camera system is solved. Only used by sparse bundle adjustment. If
+	 * {@link SchurSolver#PCG} is selected then {@link #configOptimizer} is ignored, other than the initial damping
+	 * when it's Levenberg-Marquardt.
+	 */
+	public SchurSolver schurSolver = SchurSolver.CHOLESKY;
+
+	/** Maximum number of conjugate gradient iterations used to compute a single step. Only used by PCG. */
+	public int pcgMaxIterations = 200;
+
+	/** Conjugate gradient stops once the residual has been reduced by this fraction. Only used by PCG. */
+	public double pcgTolerance = 1e-6;
+
 	public void setTo( ConfigBundleAdjustment src ) {
 		// it should copy / overwrite but that isn'y possible/easy. So this is the compromise
 		this.configOptimizer = src.configOptimizer;
+		this.schurSolver = src.schurSolver;
+		this.pcgMaxIterations = src.pcgMaxIterations;
+		this.pcgTolerance = src.pcgTolerance;
+	}
+
+	/**
+	 * Approach used to solve the reduced camera system
+	 */
+	public enum SchurSolver {
+		/** Explicitly compute the reduced camera matrix and solve it using Cholesky decomposition */
+		CHOLESKY,
+		/**
+		 * Solve the reduced camera system without computing it using conjugate gradient with a block Jacobi
+		 * preconditioner. Scales much better to scenes with many views.
+		 */
+		PCG
 	}
 }
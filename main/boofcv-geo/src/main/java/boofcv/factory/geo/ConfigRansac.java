@@ -40,6 +40,25 @@ public class ConfigRansac implements Configuration {
 	 */
 	public double inlierThreshold;
 
+	/**
+	 * If greater than zero then RANSAC will stop early once it's this confident that an outlier free sample
+	 * has been drawn. Must be in the range [0, 1). Typical values are 0.99 or 0.999.
+	 */
+	public double confidence = 0.0;
+
+	/**
+	 * If true then PROSAC sampling is used. Input points must be sorted by quality, e.g. association score,
+	 * with the best first. Users of this config which have access to association scores, such as
+	 * GeneratePairwiseImageGraph, will sort the input for you.
+	 */
+	public boolean prosac = false;
+
+	/**
+	 * If true then local optimization is used to refine new best models with all of their inliers. Only used
+	 * by estimators which have a model generator that can use more than the minimum number of points.
+	 */
+	public boolean localOptimization = false;
+
 	public ConfigRansac( int iterations, double inlierThreshold ) {
 		this.iterations = iterations;
 		this.inlierThreshold = inlierThreshold;
@@ -48,14 +67,25 @@ public class ConfigRansac implements Configuration {
 	public ConfigRansac() {
 	}
 
+	/**
+	 * Returns true if any of the features which require {@link boofcv.alg.geo.robust.RansacAdaptive} are turned on
+	 */
+	public boolean isAdaptive() {
+		return confidence > 0.0 || prosac || localOptimization;
+	}
+
 	@Override
 	public void checkValidity() {
 		BoofMiscOps.checkTrue(iterations >= 0, "Must specify a non-negative number for number of iterations");
+		BoofMiscOps.checkTrue(confidence >= 0.0 && confidence < 1.0, "Confidence must be in the range [0,1)");
 	}
 
 	public void setTo( ConfigRansac src ) {
 		this.randSeed = src.randSeed;
 		this.iterations = src.iterations;
 		this.inlierThreshold = src.inlierThreshold;
+		this.confidence = src.confidence;
+		this.prosac = src.prosac;
+		this.localOptimization = src.localOptimization;
 	}
 }
@@ -43,6 +43,8 @@ import boofcv.alg.geo.selfcalib.*;
 import boofcv.alg.geo.triangulate.*;
 import boofcv.alg.geo.trifocal.RefineThreeViewProjectiveGeometric;
 import boofcv.alg.geo.trifocal.TrifocalAlgebraicPoint7;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
 import boofcv.misc.ConfigConverge;
 import boofcv.struct.calib.ElevateViewInfo;
 import boofcv.struct.geo.AssociatedPair;
@@ -82,6 +84,13 @@ public class FactoryMultiView {
 		if (config == null)
 			config = new ConfigBundleAdjustment();
 
+		if (config.schurSolver == ConfigBundleAdjustment.SchurSolver.PCG) {
+			return bundleSparsePcg(config,
+					metricResidualFunction(),
+					metricJacobian(),
+					new CodecSceneStructureMetric());
+		}
+
 		UnconstrainedLeastSquaresSchur<DMatrixSparseCSC> minimizer;
 
 		if (config.configOptimizer instanceof ConfigTrustRegion)
@@ -90,8 +99,8 @@ public class FactoryMultiView {
 			minimizer = FactoryOptimizationSparse.levenbergMarquardtSchur((ConfigLevenbergMarquardt)config.configOptimizer);
 
 		return new BundleAdjustmentSchur_DSCC<>(minimizer,
-				new BundleAdjustmentMetricResidualFunction(),
-				new BundleAdjustmentMetricSchurJacobian_DSCC(),
+				metricResidualFunction(),
+				metricJacobian(),
 				new CodecSceneStructureMetric());
 	}
 
@@ -106,6 +115,13 @@ public class FactoryMultiView {
 		if (config == null)
 			config = new ConfigBundleAdjustment();
 
+		if (config.schurSolver == ConfigBundleAdjustment.SchurSolver.PCG) {
+			return bundleSparsePcg(config,
+					new BundleAdjustmentProjectiveResidualFunction(),
+					new BundleAdjustmentProjectiveSchurJacobian_DSCC(),
+					new CodecSceneStructureProjective());
+		}
+
 		UnconstrainedLeastSquaresSchur<DMatrixSparseCSC> minimizer;
 
 		if (config.configOptimizer instanceof ConfigTrustRegion)
@@ -119,6 +135,47 @@ public class FactoryMultiView {
 				new CodecSceneStructureProjective());
 	}
 
+	/**
+	 * Creates the residual function for metric bundle adjustment. Residuals are computed in parallel if
+	 * concurrency is turned on.
+	 */
+	private static BundleAdjustmentMetricResidualFunction metricResidualFunction() {
+		if (BoofConcurrency.USE_CONCURRENT)
+			return new BundleAdjustmentMetricResidualFunction_MT();
+		else
+			return new BundleAdjustmentMetricResidualFunction();
+	}
+
+	/**
+	 * Creates the sparse Jacobian for metric bundle adjustment. Rows are computed in parallel if concurrency
+	 * is turned on.
+	 */
+	private static BundleAdjustmentMetricSchurJacobian_DSCC metricJacobian() {
+		if (BoofConcurrency.USE_CONCURRENT)
+			return new BundleAdjustmentMetricSchurJacobian_DSCC_MT();
+		else
+			return new BundleAdjustmentMetricSchurJacobian_DSCC();
+	}
+
+	/**
+	 * Creates sparse bundle adjustment which solves the reduced camera system using preconditioned conjugate gradient
+	 */
+	private static <Structure extends SceneStructure> BundleAdjustment<Structure>
+	bundleSparsePcg( ConfigBundleAdjustment config,
+					 BundleAdjustmentSchur.FunctionResiduals<Structure> function,
+					 BundleAdjustmentSchur.Jacobian<Structure, DMatrixSparseCSC> jacobian,
+					 BundleAdjustmentSchur.Codec<Structure> codec ) {
+		SchurComplementPcg_DSCC solver = BoofConcurrency.USE_CONCURRENT ?
+				new SchurComplementPcg_DSCC_MT() : new SchurComplementPcg_DSCC();
+		solver.maxIterations = config.pcgMaxIterations;
+		solver.tolerance = config.pcgTolerance;
+
+		var alg = new BundleAdjustmentSchurPcg_DSCC<>(solver, function, jacobian, codec);
+		if (config.configOptimizer instanceof ConfigLevenbergMarquardt)
+			alg.dampingInitial = ((ConfigLevenbergMarquardt)config.configOptimizer).dampeningInitial;
+		return alg;
+	}
+
 	/**
 	 * Returns bundle adjustment with a dense implementation for metric reconstruction. While much slower than a
 	 * sparse solver, a dense solver can handle systems which are degenerate.
@@ -140,7 +197,7 @@ public class FactoryMultiView {
 			minimizer = FactoryOptimization.levenbergMarquardtSchur(robust, (ConfigLevenbergMarquardt)config.configOptimizer);
 
 		return new BundleAdjustmentSchur_DDRM<>(minimizer,
-				new BundleAdjustmentMetricResidualFunction(),
+				metricResidualFunction(),
 				new BundleAdjustmentMetricSchurJacobian_DDRM(),
 				new CodecSceneStructureMetric());
 	}
@@ -500,6 +557,33 @@ public class FactoryMultiView {
 		return new PnPRefineRodrigues(tol, maxIterations);
 	}
 
+	/**
+	 * Creates an estimator which solves many independent PnP problems. Each problem is solved using the estimator
+	 * specified in the configuration and then optionally refined. If concurrency is turned on then problems
+	 * will be solved in parallel with each thread having its own estimators.
+	 *
+	 * @param config (Optional) Specifies the initial pose estimator
+	 * @param refineTol Convergence tolerance for refinement. Try 1e-8
+	 * @param refineIterations Maximum number of refinement iterations. If &le; 0 there is no refinement. Try 100
+	 * @return PnPBatchEstimator
+	 */
+	public static PnPBatchEstimator pnpBatch( @Nullable ConfigPnP config, double refineTol, int refineIterations ) {
+		if (config == null)
+			config = new ConfigPnP();
+		config.checkValidity();
+
+		final ConfigPnP _config = config;
+		BoofLambdas.Factory<Estimate1ofPnP> factoryEstimate =
+				() -> pnp_1(_config.which, _config.epnpIterations, _config.numResolve);
+		@Nullable BoofLambdas.Factory<RefinePnP> factoryRefine =
+				refineIterations <= 0 ? null : () -> pnpRefine(refineTol, refineIterations);
+
+		if (BoofConcurrency.USE_CONCURRENT)
+			return new PnPBatchEstimator_MT(factoryEstimate, factoryRefine);
+		else
+			return new PnPBatchEstimator(factoryEstimate, factoryRefine);
+	}
+
 	/**
 	 * Estimate the camera motion give two observations and the 3D world coordinate of each points.
 	 *
@@ -545,6 +629,27 @@ public class FactoryMultiView {
 		};
 	}
 
+	/**
+	 * Triangulates and computes reprojection errors for batches of points stored in packed arrays. If concurrency
+	 * is turned on then points are processed in parallel.
+	 *
+	 * @param config Specifies which triangulation algorithm is used
+	 * @return Batch triangulation algorithm
+	 * @see TriangulateBatch2ViewsMetricH
+	 */
+	public static TriangulateBatch2ViewsMetricH triangulate2ViewMetricHBatch( @Nullable ConfigTriangulation config ) {
+		if (config == null)
+			config = new ConfigTriangulation();
+		config.checkValidity();
+
+		final ConfigTriangulation _config = config;
+		BoofLambdas.Factory<Triangulate2ViewsMetricH> factory = () -> triangulate2ViewMetricH(_config);
+
+		if (BoofConcurrency.USE_CONCURRENT)
+			return new TriangulateBatch2ViewsMetricH_MT(factory);
+		return new TriangulateBatch2ViewsMetricH(factory);
+	}
+
 	/**
 	 * Triangulate two view using the Discrete Linear Transform (DLT) with an uncalibrated camera.
 	 *
@@ -584,6 +689,27 @@ public class FactoryMultiView {
 		};
 	}
 
+	/**
+	 * Triangulates and computes reprojection errors for batches of points with N views that are stored in packed
+	 * arrays. If concurrency is turned on then points are processed in parallel.
+	 *
+	 * @param config Specifies which triangulation algorithm is used
+	 * @return Batch triangulation algorithm
+	 * @see TriangulateBatchNViewsMetric
+	 */
+	public static TriangulateBatchNViewsMetric triangulateNViewMetricBatch( @Nullable ConfigTriangulation config ) {
+		if (config == null)
+			config = new ConfigTriangulation();
+		config.checkValidity();
+
+		final ConfigTriangulation _config = config;
+		BoofLambdas.Factory<TriangulateNViewsMetric> factory = () -> triangulateNViewMetric(_config);
+
+		if (BoofConcurrency.USE_CONCURRENT)
+			return new TriangulateBatchNViewsMetric_MT(factory);
+		return new TriangulateBatchNViewsMetric(factory);
+	}
+
 	/**
 	 * Triangulate N views using the Discrete Linear Transform (DLT) with a calibrated camera in homogenous coordinates
 	 *
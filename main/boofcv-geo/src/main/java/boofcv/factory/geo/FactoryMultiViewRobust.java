@@ -127,6 +127,15 @@ public class FactoryMultiViewRobust {
 		// convert from pixels to pixels squared
 		double threshold = configRansac.inlierThreshold*configRansac.inlierThreshold;
 
+		if (configRansac.isAdaptive()) {
+			var ransac = new RansacAdaptiveCalibrated<>(
+					configRansac.randSeed, configRansac.iterations, threshold, manager, generator, distance);
+			int epnpIterations = configPnP.epnpIterations;
+			configureAdaptive(configRansac, ransac, () -> new EstimatorToGenerator<>(
+					FactoryMultiView.pnp_1(EnumPNP.EPNP, epnpIterations, 0)));
+			return ransac;
+		}
+
 		return new RansacCalibrated<>(
 				configRansac.randSeed, configRansac.iterations, threshold, manager, generator, distance);
 	}
@@ -230,6 +239,14 @@ public class FactoryMultiViewRobust {
 
 		double ransacTOL = configRansac.inlierThreshold*configRansac.inlierThreshold*2.0;
 
+		if (configRansac.isAdaptive()) {
+			var ransac = new RansacAdaptiveCalibrated<>(configRansac.randSeed, configRansac.iterations, ransacTOL,
+					manager, generateEpipolarMotion, distanceSe3);
+			configureAdaptive(configRansac, ransac, () -> new Se3FromEssentialGenerator(
+					FactoryMultiView.essential_1(EnumEssential.LINEAR_8, 0), triangulate));
+			return ransac;
+		}
+
 		return new RansacCalibrated<>(configRansac.randSeed, configRansac.iterations, ransacTOL,
 				manager, generateEpipolarMotion, distanceSe3);
 	}
@@ -257,6 +274,14 @@ public class FactoryMultiViewRobust {
 				new DistanceMultiView_EssentialSampson();
 		double ransacTOL = configRansac.inlierThreshold*configRansac.inlierThreshold;
 
+		if (configRansac.isAdaptive()) {
+			var ransac = new RansacAdaptiveCalibrated<>(configRansac.randSeed, configRansac.iterations, ransacTOL,
+					managerE, generateE, errorMetric);
+			configureAdaptive(configRansac, ransac, () -> new GenerateEpipolarMatrix(
+					FactoryMultiView.essential_1(EnumEssential.LINEAR_8, 0)));
+			return ransac;
+		}
+
 		return new RansacCalibrated<>(configRansac.randSeed, configRansac.iterations, ransacTOL,
 				managerE, generateE, errorMetric);
 	}
@@ -272,19 +297,29 @@ public class FactoryMultiViewRobust {
 
 		double ransacTol = configRansac.inlierThreshold*configRansac.inlierThreshold;
 
-		Ransac<DMatrixRMaj, AssociatedPair> ransac =
-				createRansac(configRansac, ransacTol, manager, AssociatedPair.class);
-
-		ransac.setModel(
-				() -> {
-					Estimate1ofEpipolar estimateF = FactoryMultiView.fundamental_1(configFundamental.which,
-							configFundamental.numResolve);
-					return new GenerateEpipolarMatrix(estimateF);
-				},
+		Factory<ModelGenerator<DMatrixRMaj, AssociatedPair>> factoryGenerator = () -> {
+			Estimate1ofEpipolar estimateF = FactoryMultiView.fundamental_1(configFundamental.which,
+					configFundamental.numResolve);
+			return new GenerateEpipolarMatrix(estimateF);
+		};
+		Factory<DistanceFromModel<DMatrixRMaj, AssociatedPair>> factoryDistance =
 				() -> switch (configFundamental.errorModel) {
 					case SAMPSON -> new DistanceFromModelResidual<>(new FundamentalResidualSampson());
 					case GEOMETRIC -> new DistanceFundamentalGeometric();
-				});
+				};
+
+		if (configRansac.isAdaptive()) {
+			var ransac = new RansacAdaptive<>(configRansac.randSeed, configRansac.iterations, ransacTol,
+					manager, factoryGenerator.newInstance(), factoryDistance.newInstance());
+			configureAdaptive(configRansac, ransac, () -> new GenerateEpipolarMatrix(
+					FactoryMultiView.fundamental_1(EnumFundamental.LINEAR_8, 0)));
+			return ransac;
+		}
+
+		Ransac<DMatrixRMaj, AssociatedPair> ransac =
+				createRansac(configRansac, ransacTol, manager, AssociatedPair.class);
+
+		ransac.setModel(factoryGenerator, factoryDistance);
 		return ransac;
 	}
 
@@ -470,6 +505,20 @@ public class FactoryMultiViewRobust {
 		return alg;
 	}
 
+	/**
+	 * Configures {@link RansacAdaptive} using settings in the config.
+	 *
+	 * @param localOptimizer Creates a generator for local optimization. Must be able to use more than the minimum
+	 * number of points. Only called if local optimization is turned on.
+	 */
+	static <Model, Point> void configureAdaptive( ConfigRansac configRansac, RansacAdaptive<Model, Point> ransac,
+												  Factory<ModelGenerator<Model, Point>> localOptimizer ) {
+		ransac.setConfidence(configRansac.confidence);
+		ransac.setProsac(configRansac.prosac);
+		if (configRansac.localOptimization)
+			ransac.setLocalOptimizer(localOptimizer.newInstance());
+	}
+
 	/**
 	 * Returns a new instance of RANSAC. If concurrency is turned on then a concurrent version will be returned.
 	 *
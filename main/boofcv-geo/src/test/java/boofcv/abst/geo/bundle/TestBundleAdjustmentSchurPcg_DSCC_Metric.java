@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2020, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.geo.bundle;
+
+import boofcv.factory.geo.ConfigBundleAdjustment;
+import boofcv.factory.geo.FactoryMultiView;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestBundleAdjustmentSchurPcg_DSCC_Metric extends GenericBundleAdjustmentMetricChecks {
+
+	@Override
+	public BundleAdjustment<SceneStructureMetric> createAlg() {
+		var config = new ConfigBundleAdjustment();
+		config.schurSolver = ConfigBundleAdjustment.SchurSolver.PCG;
+		BundleAdjustment<SceneStructureMetric> ret = FactoryMultiView.bundleSparseMetric(config);
+//		ret.setVerbose(System.out,0);
+		ret.configure(1e-5,1e-5,20);
+		return ret;
+	}
+}
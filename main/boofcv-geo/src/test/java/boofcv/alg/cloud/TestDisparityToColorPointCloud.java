@@ -23,13 +23,18 @@ import boofcv.struct.Point3dRgbI_F64;
 import boofcv.struct.distort.DoNothing2Transform2_F64;
 import boofcv.struct.distort.Point2Transform2_F64;
 import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.point.Point3D_F64;
 import org.ddogleg.struct.DogArray;
 import org.ejml.data.DMatrixRMaj;
 import org.ejml.dense.row.CommonOps_DDRM;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author Peter Abeles
@@ -77,5 +82,55 @@ class TestDisparityToColorPointCloud extends BoofStandardJUnit {
 		}
 	}
 
+	/**
+	 * Output written to a packed cloud should be identical to the output written one point at a time
+	 */
+	@Test
+	void packedCloud() {
+		packedCloud(new GrayU8(60, 40));
+		packedCloud(new GrayF32(60, 40));
+	}
+
+	void packedCloud( ImageGray<?> disparity ) {
+		DMatrixRMaj K = PerspectiveOps.pinholeToMatrix(500.0, 500, 0, 30, 20);
+		int disparityRange = 100;
+
+		// Every third pixel is invalid and the others have a disparity which varies with the location
+		for (int y = 0; y < disparity.height; y++) {
+			for (int x = 0; x < disparity.width; x++) {
+				int value = (x + y)%3 == 0 ? disparityRange : 1 + (x + y)%20;
+				if (disparity instanceof GrayU8)
+					((GrayU8)disparity).set(x, y, value);
+				else
+					((GrayF32)disparity).set(x, y, value);
+			}
+		}
 
+		var alg = new DisparityToColorPointCloud();
+		alg.configure(1.0, K, CommonOps_DDRM.identity(3), new DoNothing2Transform2_F64(), 2, disparityRange);
+		alg.setRegionOfInterest(5, 2, 50, 35);
+
+		var color = new DisparityToColorPointCloud.ColorImage() {
+			@Override public boolean isInBounds( int x, int y ) {return true;}
+
+			@Override public int getRGB( int x, int y ) {return x*1000 + y;}
+		};
+
+		var expected = new DogArray<>(Point3dRgbI_F64::new);
+		var found = new PackedPointCloud_F64();
+		found.initialize(false, false, false);
+		found.append(1, 2, 3); // should be discarded
+		alg.process(disparity, color, PointCloudWriter.wrapF64RGB(expected));
+		alg.process(disparity, color, found);
+
+		assertTrue(found.hasColor());
+		assertTrue(expected.size > 0);
+		assertEquals(expected.size, found.size());
+		var p = new Point3D_F64();
+		for (int i = 0; i < expected.size; i++) {
+			found.getPoint(i, p);
+			assertEquals(0.0, expected.get(i).distance(p), 1e-8);
+			assertEquals(expected.get(i).rgb, found.getRgb(i));
+		}
+	}
 }
@@ -20,6 +20,7 @@ package boofcv.alg.cloud;
 
 import boofcv.struct.Point3dRgbI_F32;
 import boofcv.struct.Point3dRgbI_F64;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import boofcv.testing.BoofStandardJUnit;
 import georegression.struct.point.Point3D_F32;
 import georegression.struct.point.Point3D_F64;
@@ -160,4 +161,18 @@ class TestPointCloudReader extends BoofStandardJUnit {
 			return PointCloudReader.wrapF64RGB(points);
 		}
 	}
+
+	@Nested
+	public class CheckWrapPacked extends ReaderTests {
+		@Override
+		public PointCloudReader createReader(List<Point3dRgbI_F64> points) {
+			var cloud = new PackedPointCloud_F64();
+			cloud.initialize(true, false, false);
+			for (Point3dRgbI_F64 p : points) {
+				cloud.append(p.x, p.y, p.z, p.rgb);
+			}
+
+			return PointCloudReader.wrap(cloud);
+		}
+	}
 }
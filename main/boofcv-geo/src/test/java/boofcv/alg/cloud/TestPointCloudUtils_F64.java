@@ -19,7 +19,10 @@
 package boofcv.alg.cloud;
 
 import boofcv.struct.Point3dRgbI_F64;
+import boofcv.struct.packed.PackedBigArrayPoint3D_F64;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.point.Point3D_F32;
 import georegression.struct.point.Point3D_F64;
 import org.ddogleg.struct.DogArray;
 import org.ddogleg.struct.DogArray_I32;
@@ -30,6 +33,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author Peter Abeles
@@ -102,6 +106,70 @@ public class TestPointCloudUtils_F64 extends BoofStandardJUnit {
 		assertEquals(0, foundStdev.distance(stdev), tol);
 	}
 
+	@Test void filter_packed() {
+		var input = new PackedPointCloud_F64();
+		input.initialize(true, true, true);
+		for (int i = 0; i < 20; i++) {
+			int idx = input.append(i, i, i, i + 100);
+			input.setNormal(idx, 1, 0, 0);
+			input.setView(idx, i/5);
+		}
+
+		PackedPointCloud_F64 output = PointCloudUtils_F64.filter(input, ( idx ) -> idx%2 == 1, null);
+
+		assertEquals(10, output.size());
+		var p = new Point3D_F64();
+		var n = new Point3D_F32();
+		for (int i = 0; i < output.size(); i++) {
+			int expected = i*2 + 1;
+			output.getPoint(i, p);
+			assertEquals(0.0, p.distance(expected, expected, expected));
+			assertEquals(expected + 100, output.getRgb(i));
+			output.getNormal(i, n);
+			assertEquals(0.0f, n.distance(1, 0, 0));
+			assertEquals(expected/5, output.getView(i));
+		}
+	}
+
+	@Test void autoScale_packed() {
+		var list = new ArrayList<Point3D_F64>();
+		var packed = new PackedBigArrayPoint3D_F64();
+		for (int i = 0; i < 2000; i++) {
+			var p = new Point3D_F64(rand.nextGaussian()*2 + 1, rand.nextGaussian()*0.5, rand.nextGaussian() + 3);
+			list.add(p);
+			packed.append(p);
+		}
+
+		// Should produce the same results as the list version
+		double expected = PointCloudUtils_F64.autoScale(list, 10);
+		double found = PointCloudUtils_F64.autoScale(packed, 10);
+		assertEquals(expected, found, UtilEjml.TEST_F64);
+
+		for (int i = 0; i < list.size(); i++) {
+			assertEquals(0.0, list.get(i).distance(packed.getTemp(i)), UtilEjml.TEST_F64);
+		}
+	}
+
+	@Test void statistics_packed() {
+		var list = new ArrayList<Point3D_F64>();
+		var packed = new PackedBigArrayPoint3D_F64();
+		for (int i = 0; i < 2000; i++) {
+			var p = new Point3D_F64(rand.nextGaussian()*2 + 1, rand.nextGaussian()*0.5, rand.nextGaussian() + 3);
+			list.add(p);
+			packed.append(p);
+		}
+
+		var expectedMean = new Point3D_F64();
+		var expectedStdev = new Point3D_F64();
+		var foundMean = new Point3D_F64();
+		var foundStdev = new Point3D_F64();
+		PointCloudUtils_F64.statistics(list, expectedMean, expectedStdev);
+		PointCloudUtils_F64.statistics(packed, foundMean, foundStdev);
+
+		assertEquals(0.0, expectedMean.distance(foundMean), UtilEjml.TEST_F64);
+		assertEquals(0.0, expectedStdev.distance(foundStdev), UtilEjml.TEST_F64);
+	}
+
 	@Test void prune() {
 		List<Point3D_F64> list = new ArrayList<>();
 		for (int i = 0; i < 100; i++) {
@@ -135,4 +203,107 @@ public class TestPointCloudUtils_F64 extends BoofStandardJUnit {
 		assertEquals(1, rgb.get(0));
 		assertEquals(97, rgb.get(96));
 	}
+
+	@Test void prune_packed() {
+		var cloud = new PackedPointCloud_F64();
+		cloud.initialize(true, false, true);
+		for (int i = 0; i < 100; i++) {
+			int idx = cloud.append(i*0.1, 0, 0, i);
+			cloud.setView(idx, i + 1);
+		}
+
+		assertEquals(0, PointCloudUtils_F64.prune(cloud, 3, 0.31));
+		assertEquals(100, cloud.size());
+
+		// end points should be pruned
+		assertEquals(2, PointCloudUtils_F64.prune(cloud, 3, 0.28));
+		assertEquals(98, cloud.size());
+		assertEquals(98, cloud.rgb.size);
+		assertEquals(98, cloud.views.size);
+		assertEquals(1, cloud.getRgb(0));
+		assertEquals(97, cloud.getRgb(96));
+		assertEquals(2, cloud.getView(0));
+		assertEquals(98, cloud.getView(96));
+	}
+
+	/**
+	 * The voxel grid and the kd-tree should find the same neighbors
+	 */
+	@Test void prune_packed_compareToList() {
+		var list = new ArrayList<Point3D_F64>();
+		var cloud = new PackedPointCloud_F64();
+		for (int i = 0; i < 2000; i++) {
+			var p = new Point3D_F64(rand.nextDouble()*2, rand.nextDouble()*2, rand.nextDouble()*2);
+			list.add(p);
+			cloud.append(p.x, p.y, p.z);
+		}
+
+		PointCloudUtils_F64.prune(list, 4, 0.2);
+		PointCloudUtils_F64.prune(cloud, 4, 0.2);
+
+		// sanity check to make sure it's not trivial
+		assertTrue(list.size() > 100 && list.size() < 1900);
+		assertEquals(list.size(), cloud.size());
+		for (int i = 0; i < list.size(); i++) {
+			assertEquals(0.0, list.get(i).distance(cloud.xyz.getTemp(i)));
+		}
+	}
+
+	@Test void removeStatisticalOutliers() {
+		var cloud = new PackedPointCloud_F64();
+		cloud.initialize(true, false, false);
+		// Dense cluster of points with rgb = 0
+		for (int i = 0; i < 500; i++) {
+			cloud.append(rand.nextDouble(), rand.nextDouble(), rand.nextDouble(), 0);
+		}
+		// Isolated points with rgb = 1
+		for (int i = 0; i < 5; i++) {
+			cloud.append(10 + i*2, 0, 0, 1);
+		}
+
+		int removed = PointCloudUtils_F64.removeStatisticalOutliers(cloud, 5, 0.5, 3.0);
+		assertTrue(removed >= 5 && removed <= 15);
+		assertEquals(505 - removed, cloud.size());
+		assertEquals(cloud.size(), cloud.rgb.size);
+		for (int i = 0; i < cloud.size(); i++) {
+			assertEquals(0, cloud.getRgb(i));
+			assertTrue(cloud.xyz.getTemp(i).x <= 1.0);
+		}
+	}
+
+	@Test void voxelDownsample() {
+		var cloud = new PackedPointCloud_F64();
+		cloud.initialize(true, true, true);
+		cloud.append(0.2, 0.2, 0.2, 0x000000);
+		cloud.setNormal(0, 1, 0, 0);
+		cloud.setView(0, 3);
+		cloud.append(5.5, 0.5, -0.5, 0x010203);
+		cloud.setNormal(1, 0, 0, 1);
+		cloud.setView(1, 5);
+		cloud.append(0.4, 0.4, 0.4, 0x0A1420);
+		cloud.setNormal(2, 0, 1, 0);
+		cloud.setView(2, 4);
+
+		PackedPointCloud_F64 found = PointCloudUtils_F64.voxelDownsample(cloud, 1.0, null);
+		assertEquals(2, found.size());
+		assertTrue(found.hasColor() && found.hasNormals() && found.hasViews());
+
+		// Voxels are in the order they were first seen
+		var p = new Point3D_F64();
+		var n = new Point3D_F32();
+		found.getPoint(0, p);
+		assertEquals(0.0, p.distance(0.3, 0.3, 0.3), UtilEjml.TEST_F64);
+		assertEquals(0x050A10, found.getRgb(0));
+		found.getNormal(0, n);
+		float v = (float)Math.sqrt(0.5);
+		assertEquals(0.0f, n.distance(v, v, 0), UtilEjml.TEST_F32);
+		assertEquals(3, found.getView(0));
+
+		found.getPoint(1, p);
+		assertEquals(0.0, p.distance(5.5, 0.5, -0.5), UtilEjml.TEST_F64);
+		assertEquals(0x010203, found.getRgb(1));
+		found.getNormal(1, n);
+		assertEquals(0.0f, n.distance(0, 0, 1), UtilEjml.TEST_F32);
+		assertEquals(5, found.getView(1));
+	}
 }
@@ -21,6 +21,7 @@ package boofcv.alg.cloud;
 import boofcv.alg.cloud.PointCloudWriter.CloudArraysF32;
 import boofcv.struct.Point3dRgbI_F32;
 import boofcv.struct.Point3dRgbI_F64;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import boofcv.testing.BoofStandardJUnit;
 import georegression.struct.point.Point3D_F32;
 import georegression.struct.point.Point3D_F64;
@@ -204,4 +205,34 @@ class TestPointCloudWriter extends BoofStandardJUnit {
 		}
 	}
 
+	@Nested
+	public class CheckWrapPacked extends PcwTests {
+
+		PackedPointCloud_F64 cloud;
+
+		@Override
+		public PointCloudWriter create() {
+			cloud = new PackedPointCloud_F64();
+			PointCloudWriter alg = PointCloudWriter.wrap(cloud);
+			alg.initialize(0, true);
+			return alg;
+		}
+
+		@Override
+		public int size(PointCloudWriter data) {
+			return cloud.size();
+		}
+
+		@Override
+		public Point3D_F64 getPoint(PointCloudWriter data, int i) {
+			var p = new Point3D_F64();
+			cloud.getPoint(i, p);
+			return p;
+		}
+
+		@Override
+		public int getColor(PointCloudWriter data, int i) {
+			return cloud.getRgb(i);
+		}
+	}
 }
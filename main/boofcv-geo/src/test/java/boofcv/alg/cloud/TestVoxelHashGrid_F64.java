@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.cloud;
+
+import boofcv.errors.BoofCheckFailure;
+import boofcv.struct.packed.PackedBigArrayPoint3D_F64;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.point.Point3D_F64;
+import org.ddogleg.struct.DogArray_I32;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestVoxelHashGrid_F64 extends BoofStandardJUnit {
+	/**
+	 * Random cloud with enough voxels that the hash table needs to grow
+	 */
+	@Test void process() {
+		PackedBigArrayPoint3D_F64 cloud = createCloud(5000);
+
+		var alg = new VoxelHashGrid_F64();
+		alg.process(cloud, 0.7);
+
+		// Find the set of expected voxels by brute force
+		Set<List<Integer>> expected = new HashSet<>();
+		for (int i = 0; i < cloud.size(); i++) {
+			Point3D_F64 p = cloud.getTemp(i);
+			expected.add(List.of((int)Math.floor(p.x/0.7), (int)Math.floor(p.y/0.7), (int)Math.floor(p.z/0.7)));
+		}
+		assertEquals(expected.size(), alg.getVoxelCount());
+		assertEquals(alg.getVoxelCount() + 1, alg.voxelStart.size);
+		assertEquals(cloud.size(), alg.voxelStart.get(alg.getVoxelCount()));
+
+		// Every point should be inside the voxel it was assigned to and appear once in the sorted list
+		var found = new DogArray_I32();
+		found.resize(cloud.size(), 0);
+		for (int voxel = 0; voxel < alg.getVoxelCount(); voxel++) {
+			assertTrue(alg.getPointCount(voxel) > 0);
+			assertEquals(voxel, alg.findVoxel(alg.voxelX.get(voxel), alg.voxelY.get(voxel), alg.voxelZ.get(voxel)));
+
+			for (int idx = alg.voxelStart.get(voxel); idx < alg.voxelStart.get(voxel + 1); idx++) {
+				int pointIdx = alg.sortedPoints.get(idx);
+				found.data[pointIdx]++;
+				assertEquals(voxel, alg.pointToVoxel.get(pointIdx));
+
+				Point3D_F64 p = cloud.getTemp(pointIdx);
+				assertEquals(alg.voxelX.get(voxel), alg.coordinate(p.x));
+				assertEquals(alg.voxelY.get(voxel), alg.coordinate(p.y));
+				assertEquals(alg.voxelZ.get(voxel), alg.coordinate(p.z));
+			}
+		}
+		for (int i = 0; i < found.size; i++) {
+			assertEquals(1, found.get(i));
+		}
+
+		// Nothing is out here
+		assertEquals(-1, alg.findVoxel(100, 100, 100));
+	}
+
+	/**
+	 * Negative coordinates should be rounded down and not towards zero
+	 */
+	@Test void coordinate() {
+		var alg = new VoxelHashGrid_F64();
+		alg.process(new PackedBigArrayPoint3D_F64(), 0.5);
+
+		assertEquals(0, alg.coordinate(0.2));
+		assertEquals(-1, alg.coordinate(-0.2));
+		assertEquals(2, alg.coordinate(1.0));
+		assertEquals(-3, alg.coordinate(-1.2));
+	}
+
+	/**
+	 * Compare against a brute force search
+	 */
+	@Test void findNearby() {
+		PackedBigArrayPoint3D_F64 cloud = createCloud(2000);
+
+		var alg = new VoxelHashGrid_F64();
+		alg.process(cloud, 0.5);
+		VoxelHashGrid_F64.Search search = alg.createSearch(cloud);
+
+		double radius = 0.4;
+		for (int trial = 0; trial < 50; trial++) {
+			var target = new Point3D_F64(rand.nextGaussian()*2, rand.nextGaussian()*2, rand.nextGaussian()*2);
+
+			Set<Integer> expected = new HashSet<>();
+			for (int i = 0; i < cloud.size(); i++) {
+				if (cloud.getTemp(i).distance(target) <= radius)
+					expected.add(i);
+			}
+
+			assertEquals(expected.size(), search.findNearby(target, radius, 0));
+			assertEquals(expected.size(), search.distancesSq.size);
+			for (int i = 0; i < search.indexes.size; i++) {
+				int pointIdx = search.indexes.get(i);
+				assertTrue(expected.contains(pointIdx));
+				assertEquals(cloud.getTemp(pointIdx).distance2(target), search.distancesSq.get(i));
+			}
+
+			// Limit the number of results
+			if (expected.size() > 2) {
+				assertEquals(2, search.findNearby(target, radius, 2));
+			}
+		}
+	}
+
+	@Test void findNearby_radiusTooLarge() {
+		var alg = new VoxelHashGrid_F64();
+		alg.process(createCloud(10), 0.5);
+		VoxelHashGrid_F64.Search search = alg.createSearch(createCloud(10));
+		assertThrows(BoofCheckFailure.class, () -> search.findNearby(new Point3D_F64(), 0.6, 0));
+	}
+
+	private PackedBigArrayPoint3D_F64 createCloud( int count ) {
+		var cloud = new PackedBigArrayPoint3D_F64();
+		for (int i = 0; i < count; i++) {
+			cloud.append(rand.nextGaussian()*2, rand.nextGaussian()*2, rand.nextGaussian()*2);
+		}
+		return cloud;
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.abst.geo.bundle.SceneObservations;
+import boofcv.abst.geo.bundle.SceneStructureMetric;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import static boofcv.alg.geo.bundle.TestBundleAdjustmentMetricResidualFunction.createObservations;
+import static boofcv.alg.geo.bundle.TestCodecSceneStructureMetric.createScene;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * @author Peter Abeles
+ */
+class TestBundleAdjustmentMetricResidualFunction_MT extends BoofStandardJUnit {
+	/**
+	 * Results should be identical to the single thread version
+	 */
+	@Test void compareToSingleThread() {
+		compareToSingleThread(true, false, false);
+		compareToSingleThread(false, false, false);
+		compareToSingleThread(true, true, false);
+		compareToSingleThread(false, true, false);
+		compareToSingleThread(true, false, true);
+		compareToSingleThread(false, false, true);
+	}
+
+	void compareToSingleThread( boolean homogenous, boolean hasRigid, boolean hasRelative ) {
+		SceneStructureMetric structure = createScene(rand, homogenous, hasRigid, hasRelative);
+		SceneObservations obs = createObservations(rand, structure);
+
+		double[] param = new double[structure.getParameterCount()];
+		new CodecSceneStructureMetric().encode(structure, param);
+
+		var single = new BundleAdjustmentMetricResidualFunction();
+		var concurrent = new BundleAdjustmentMetricResidualFunction_MT();
+		concurrent.minimumObservationsConcurrent = 0;
+		single.configure(structure, obs);
+		concurrent.configure(structure, obs);
+
+		double[] expected = new double[single.getNumOfOutputsM()];
+		double[] found = new double[concurrent.getNumOfOutputsM()];
+
+		single.process(param, expected);
+		concurrent.process(param, found);
+
+		assertArrayEquals(expected, found, 0.0);
+	}
+}
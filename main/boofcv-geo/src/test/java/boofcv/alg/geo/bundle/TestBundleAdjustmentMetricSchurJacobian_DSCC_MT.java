@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.abst.geo.bundle.SceneObservations;
+import boofcv.abst.geo.bundle.SceneStructureMetric;
+import boofcv.alg.geo.bundle.cameras.BundleKannalaBrandt;
+import boofcv.struct.calib.CameraKannalaBrandt;
+import org.ddogleg.optimization.wrap.SchurJacobian_to_NtoMxN;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.data.DMatrixSparseCSC;
+import org.ejml.dense.row.MatrixFeatures_DDRM;
+import org.ejml.ops.DConvertMatrixStruct;
+import org.junit.jupiter.api.Test;
+
+import static boofcv.alg.geo.bundle.TestBundleAdjustmentMetricResidualFunction.createObservations;
+import static boofcv.alg.geo.bundle.TestCodecSceneStructureMetric.createScene;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestBundleAdjustmentMetricSchurJacobian_DSCC_MT
+		extends CommonBundleAdjustmentMetricSchurJacobian<DMatrixSparseCSC> {
+
+	@Override
+	protected BundleAdjustmentMetricSchurJacobian<DMatrixSparseCSC> createAlg() {
+		var alg = new BundleAdjustmentMetricSchurJacobian_DSCC_MT();
+		alg.minimumObservationsConcurrent = 0;
+		return alg;
+	}
+
+	@Override
+	protected SchurJacobian_to_NtoMxN<DMatrixSparseCSC>
+	createJacobian( BundleAdjustmentMetricSchurJacobian<DMatrixSparseCSC> alg ) {
+		return new SchurJacobian_to_NtoMxN.DSCC(alg);
+	}
+
+	/**
+	 * Results should be identical to the single thread version. Kannala-Brandt is used since its Jacobian
+	 * modifies internal workspace.
+	 */
+	@Test void compareToSingleThread() {
+		compareToSingleThread(true, false, false);
+		compareToSingleThread(false, false, false);
+		compareToSingleThread(false, true, false);
+		compareToSingleThread(false, false, true);
+		compareToSingleThread(true, true, true);
+	}
+
+	void compareToSingleThread( boolean homogenous, boolean hasRigid, boolean hasRelative ) {
+		SceneStructureMetric structure = createScene(rand, homogenous, hasRigid, hasRelative);
+
+		var kannala = new CameraKannalaBrandt(3, 2).fsetK(500, 510, 0.0, 400, 410);
+		kannala.fsetSymmetric(1.0, 0.01, -0.01).fsetRadial(0.01, -0.02).fsetTangent(0.02, 0.01)
+				.fsetRadialTrig(0.01, 0.02, -0.01, 0.03).fsetTangentTrig(0.02, -0.01, 0.01, 0.01);
+		structure.setCamera(1, false, new BundleKannalaBrandt(kannala));
+
+		SceneObservations obs = createObservations(rand, structure);
+
+		double[] param = new double[structure.getParameterCount()];
+		new CodecSceneStructureMetric().encode(structure, param);
+
+		var single = new BundleAdjustmentMetricSchurJacobian_DSCC();
+		var concurrent = (BundleAdjustmentMetricSchurJacobian_DSCC_MT)createAlg();
+		single.configure(structure, obs);
+		concurrent.configure(structure, obs);
+
+		var expectedLeft = new DMatrixSparseCSC(1, 1);
+		var expectedRight = new DMatrixSparseCSC(1, 1);
+		var foundLeft = new DMatrixSparseCSC(1, 1);
+		var foundRight = new DMatrixSparseCSC(1, 1);
+
+		single.process(param, expectedLeft, expectedRight);
+		// Call it twice to make sure the camera copies are updated
+		concurrent.process(param, foundLeft, foundRight);
+		concurrent.process(param, foundLeft, foundRight);
+
+		assertTrue(MatrixFeatures_DDRM.isIdentical(dense(expectedLeft), dense(foundLeft), 0.0));
+		assertTrue(MatrixFeatures_DDRM.isIdentical(dense(expectedRight), dense(foundRight), 0.0));
+	}
+
+	private static DMatrixRMaj dense( DMatrixSparseCSC m ) {
+		return DConvertMatrixStruct.convert(m, (DMatrixRMaj)null);
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.geo.bundle;
+
+import boofcv.testing.BoofStandardJUnit;
+import org.ejml.UtilEjml;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.data.DMatrixSparseCSC;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.ejml.ops.ConvertDMatrixStruct;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestSchurComplementPcg_DSCC extends BoofStandardJUnit {
+
+	int numPoints = 15;
+	int numViews = 4;
+
+	DMatrixRMaj denseLeft, denseRight;
+	DMatrixSparseCSC left = new DMatrixSparseCSC(1, 1);
+	DMatrixSparseCSC right = new DMatrixSparseCSC(1, 1);
+
+	/**
+	 * Creates a Jacobian with the same structure as bundle adjustment. Every point is observed by every view
+	 */
+	void createJacobian() {
+		int numRows = 2*numPoints*numViews;
+		denseLeft = new DMatrixRMaj(numRows, numPoints*3);
+		denseRight = new DMatrixRMaj(numRows, numViews*6);
+
+		int row = 0;
+		for (int viewIdx = 0; viewIdx < numViews; viewIdx++) {
+			for (int pointIdx = 0; pointIdx < numPoints; pointIdx++, row += 2) {
+				for (int i = 0; i < 2; i++) {
+					for (int j = 0; j < 3; j++) {
+						denseLeft.set(row + i, pointIdx*3 + j, rand.nextGaussian());
+					}
+					for (int j = 0; j < 6; j++) {
+						denseRight.set(row + i, viewIdx*6 + j, rand.nextGaussian());
+					}
+				}
+			}
+		}
+
+		ConvertDMatrixStruct.convert(denseLeft, left, 0.0);
+		ConvertDMatrixStruct.convert(denseRight, right, 0.0);
+	}
+
+	/**
+	 * Compare the step against the step found by solving the full damped system
+	 */
+	@Test void solve_compareToDense() {
+		createJacobian();
+		checkSolve(new SchurComplementPcg_DSCC());
+	}
+
+	@Test void solve_concurrent() {
+		createJacobian();
+		var alg = new SchurComplementPcg_DSCC_MT();
+		alg.minimumNonZeroConcurrent = 0;
+		checkSolve(alg);
+	}
+
+	void checkSolve( SchurComplementPcg_DSCC alg ) {
+		alg.tolerance = 1e-14;
+		alg.maxIterations = 500;
+		double lambda = 0.1;
+
+		int N = denseLeft.numCols + denseRight.numCols;
+		var residuals = new double[denseLeft.numRows];
+		for (int i = 0; i < residuals.length; i++) {
+			residuals[i] = rand.nextGaussian();
+		}
+
+		alg.setJacobian(left, right);
+		var gradient = new double[N];
+		alg.computeGradient(residuals, gradient);
+		var step = new double[N];
+		assertTrue(alg.solve(lambda, gradient, step));
+
+		// Solve the damped normal equations directly
+		var J = new DMatrixRMaj(denseLeft.numRows, N);
+		CommonOps_DDRM.insert(denseLeft, J, 0, 0);
+		CommonOps_DDRM.insert(denseRight, J, 0, denseLeft.numCols);
+		var H = new DMatrixRMaj(N, N);
+		CommonOps_DDRM.multTransA(J, J, H);
+		var g = new DMatrixRMaj(N, 1);
+		CommonOps_DDRM.multTransA(J, DMatrixRMaj.wrap(residuals.length, 1, residuals), g);
+		for (int i = 0; i < N; i++) {
+			assertEquals(g.data[i], gradient[i], UtilEjml.TEST_F64);
+			H.add(i, i, lambda*Math.max(alg.minimumDiagonal, H.get(i, i)));
+		}
+		var expected = new DMatrixRMaj(N, 1);
+		CommonOps_DDRM.solve(H, g, expected);
+
+		for (int i = 0; i < N; i++) {
+			assertEquals(-expected.data[i], step[i], 1e-6);
+		}
+	}
+
+	/**
+	 * Each view should be its own block in the preconditioner
+	 */
+	@Test void selectBlocks() {
+		createJacobian();
+		var alg = new SchurComplementPcg_DSCC();
+		alg.setJacobian(left, right);
+
+		assertEquals(numViews + 1, alg.blockStart.size);
+		for (int i = 0; i <= numViews; i++) {
+			assertEquals(i*6, alg.blockStart.get(i));
+			assertEquals(i*36, alg.blockOffset.get(i));
+		}
+	}
+}
@@ -29,9 +29,9 @@ import org.ejml.data.DMatrixRMaj;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
+import java.util.Objects;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author Peter Abeles
@@ -70,6 +70,7 @@ public abstract class GenericChecksBundleAdjustmentCamera extends BoofStandardJU
 	public void checkAll() {
 		jacobians();
 		compare_input_jacobians();
+		copy();
 	}
 
 	/**
@@ -118,6 +119,35 @@ public abstract class GenericChecksBundleAdjustmentCamera extends BoofStandardJU
 		}
 	}
 
+	/**
+	 * A copy should be a different instance which has the same parameters and produces the same results
+	 */
+	@Test void copy() {
+		int N = model.getIntrinsicCount();
+		for (double[] p : parameters) {
+			model.setIntrinsic(p, 0);
+			BundleAdjustmentCamera found = Objects.requireNonNull(model.copy());
+			assertNotSame(model, found);
+			assertSame(model.getClass(), found.getClass());
+			assertEquals(N, found.getIntrinsicCount());
+
+			double[] expectedParam = new double[N];
+			double[] foundParam = new double[N];
+			model.getIntrinsic(expectedParam, 0);
+			found.getIntrinsic(foundParam, 0);
+			assertArrayEquals(expectedParam, foundParam, 0.0);
+
+			var expectedPixel = new Point2D_F64();
+			var foundPixel = new Point2D_F64();
+			for (double[] X : test_X) {
+				model.project(X[0], X[1], X[2], expectedPixel);
+				found.project(X[0], X[1], X[2], foundPixel);
+				assertEquals(expectedPixel.x, foundPixel.x, 0.0);
+				assertEquals(expectedPixel.y, foundPixel.y, 0.0);
+			}
+		}
+	}
+
 	private class FunctionOfPoint implements FunctionNtoM {
 
 		Point2D_F64 p = new Point2D_F64();
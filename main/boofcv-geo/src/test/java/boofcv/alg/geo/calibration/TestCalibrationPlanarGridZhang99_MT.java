@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.geo.calibration;
+
+import boofcv.abst.geo.bundle.SceneStructureMetric;
+import boofcv.alg.geo.calibration.cameras.Zhang99CameraBrown;
+import boofcv.struct.calib.CameraPinholeBrown;
+import boofcv.testing.BoofStandardJUnit;
+import org.ejml.dense.row.MatrixFeatures_DDRM;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestCalibrationPlanarGridZhang99_MT extends BoofStandardJUnit {
+	/**
+	 * The initial estimate should be identical to the single thread version
+	 */
+	@Test void linearEstimate_compareToSingleThread() {
+		var model = new CameraPinholeBrown(2).fsetK(1250, 900, 0, 255, 260, 600, 500).fsetRadial(0.01, -0.005);
+		GenericCalibrationZhang99.CalibInputs inputs = GenericCalibrationZhang99.createInputs(model, 25, rand);
+
+		var single = new CalibrationPlanarGridZhang99(inputs.layout,
+				new Zhang99CameraBrown(inputs.layout, true, false, 2));
+		var concurrent = new CalibrationPlanarGridZhang99_MT(inputs.layout,
+				new Zhang99CameraBrown(inputs.layout, true, false, 2));
+		concurrent.minimumImagesConcurrent = 0;
+
+		assertTrue(single.linearEstimate(inputs.observations));
+		assertTrue(concurrent.linearEstimate(inputs.observations));
+
+		SceneStructureMetric expected = single.getStructure();
+		SceneStructureMetric found = concurrent.getStructure();
+
+		assertEquals(expected.views.size, found.views.size);
+		for (int i = 0; i < expected.motions.size; i++) {
+			assertTrue(MatrixFeatures_DDRM.isIdentical(
+					expected.motions.get(i).motion.R, found.motions.get(i).motion.R, 0.0));
+			assertEquals(0.0, expected.motions.get(i).motion.T.distance(found.motions.get(i).motion.T));
+		}
+
+		double[] paramsExpected = new double[expected.cameras.get(0).model.getIntrinsicCount()];
+		double[] paramsFound = new double[paramsExpected.length];
+		expected.cameras.get(0).model.getIntrinsic(paramsExpected, 0);
+		found.cameras.get(0).model.getIntrinsic(paramsFound, 0);
+		for (int i = 0; i < paramsExpected.length; i++) {
+			assertEquals(paramsExpected[i], paramsFound[i]);
+		}
+	}
+
+	/**
+	 * Full calibration with the concurrent version
+	 */
+	@Test void process() {
+		var model = new CameraPinholeBrown(2).fsetK(1250, 900, 0, 255, 260, 600, 500).fsetRadial(0.01, -0.005);
+		GenericCalibrationZhang99.CalibInputs inputs = GenericCalibrationZhang99.createInputs(model, 25, rand);
+
+		var alg = new CalibrationPlanarGridZhang99_MT(inputs.layout,
+				new Zhang99CameraBrown(inputs.layout, true, false, 2));
+		alg.minimumImagesConcurrent = 0;
+		assertTrue(alg.process(inputs.observations));
+
+		var found = (CameraPinholeBrown)alg.getCameraModel();
+		assertEquals(model.fx, found.fx, 1e-3);
+		assertEquals(model.fy, found.fy, 1e-3);
+		assertEquals(model.cx, found.cx, 1e-3);
+		assertEquals(model.cy, found.cy, 1e-3);
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.geo.pose;
+
+import boofcv.BoofTesting;
+import boofcv.factory.geo.EnumPNP;
+import boofcv.factory.geo.FactoryMultiView;
+import boofcv.struct.geo.Point2D3D;
+import georegression.struct.se.Se3_F64;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
+import org.ejml.dense.row.MatrixFeatures_DDRM;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestPnPBatchEstimator extends CommonMotionNPoint {
+
+	List<List<Point2D3D>> problems = new ArrayList<>();
+	List<Se3_F64> expected = new ArrayList<>();
+
+	void createProblems( int count ) {
+		for (int i = 0; i < count; i++) {
+			Se3_F64 motion = SpecialEuclideanOps_F64.eulerXyz(
+					rand.nextGaussian()*0.1, rand.nextGaussian()*0.1, rand.nextGaussian()*0.1,
+					rand.nextGaussian()*0.1, rand.nextGaussian()*0.1, rand.nextGaussian()*0.1, null);
+			generateScene(20, motion, false);
+			problems.add(pointPose);
+			expected.add(motion);
+		}
+	}
+
+	PnPBatchEstimator createAlg( boolean concurrent ) {
+		if (concurrent) {
+			var alg = new PnPBatchEstimator_MT(() -> FactoryMultiView.pnp_1(EnumPNP.EPNP, 10, 0),
+					() -> FactoryMultiView.pnpRefine(1e-8, 100));
+			alg.minimumProblemsConcurrent = 0;
+			return alg;
+		}
+		return new PnPBatchEstimator(() -> FactoryMultiView.pnp_1(EnumPNP.EPNP, 10, 0),
+				() -> FactoryMultiView.pnpRefine(1e-8, 100));
+	}
+
+	@Test void perfect() {
+		createProblems(30);
+
+		var found = new DogArray<>(Se3_F64::new);
+		var success = new DogArray_B();
+		createAlg(false).process(problems, found, success);
+
+		assertEquals(problems.size(), found.size);
+		assertEquals(problems.size(), success.size);
+		for (int i = 0; i < problems.size(); i++) {
+			assertTrue(success.get(i));
+			BoofTesting.assertEquals(expected.get(i), found.get(i), 1e-6, 1e-6);
+		}
+	}
+
+	/**
+	 * Problems which don't have enough points should fail without affecting the others
+	 */
+	@Test void tooFewPoints() {
+		createProblems(5);
+		problems.set(2, problems.get(2).subList(0, 2));
+
+		var found = new DogArray<>(Se3_F64::new);
+		var success = new DogArray_B();
+		createAlg(false).process(problems, found, success);
+
+		for (int i = 0; i < problems.size(); i++) {
+			assertEquals(i != 2, success.get(i));
+		}
+	}
+
+	/**
+	 * The concurrent version should produce identical results
+	 */
+	@Test void compareToConcurrent() {
+		createProblems(60);
+		problems.set(7, problems.get(7).subList(0, 2));
+
+		var expectedFound = new DogArray<>(Se3_F64::new);
+		var expectedSuccess = new DogArray_B();
+		createAlg(false).process(problems, expectedFound, expectedSuccess);
+
+		PnPBatchEstimator alg = createAlg(true);
+		var found = new DogArray<>(Se3_F64::new);
+		var success = new DogArray_B();
+		// Process it twice to make sure the estimators can be reused
+		for (int trial = 0; trial < 2; trial++) {
+			alg.process(problems, found, success);
+
+			assertEquals(expectedFound.size, found.size);
+			assertFalse(success.get(7));
+			for (int i = 0; i < problems.size(); i++) {
+				assertEquals(expectedSuccess.get(i), success.get(i));
+				if (!success.get(i))
+					continue;
+				assertTrue(MatrixFeatures_DDRM.isIdentical(expectedFound.get(i).R, found.get(i).R, 0.0));
+				assertEquals(0.0, expectedFound.get(i).T.distance(found.get(i).T));
+			}
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.robust;
+
+import boofcv.struct.geo.AssociatedPair;
+import boofcv.struct.geo.ScaleTranslate2D;
+import boofcv.testing.BoofStandardJUnit;
+import org.ddogleg.fitting.modelset.ModelGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestRansacAdaptive extends BoofStandardJUnit {
+	ScaleTranslate2D model = new ScaleTranslate2D(1.5, -2, 3);
+
+	/**
+	 * Creates a set of observations where the inliers are at the front of the list and outliers are at the end
+	 */
+	List<AssociatedPair> createObservations( int numInliers, int numOutliers ) {
+		List<AssociatedPair> list = new ArrayList<>();
+		for (int i = 0; i < numInliers; i++) {
+			list.add(TestDistanceScaleTranslate2DSq.apply(rand.nextGaussian()*5, rand.nextGaussian()*5, model));
+		}
+		for (int i = 0; i < numOutliers; i++) {
+			var p = new AssociatedPair();
+			p.p1.setTo(rand.nextGaussian()*5, rand.nextGaussian()*5);
+			p.p2.setTo(rand.nextGaussian()*20, rand.nextGaussian()*20);
+			list.add(p);
+		}
+		return list;
+	}
+
+	RansacAdaptive<ScaleTranslate2D, AssociatedPair> create( int maxIterations ) {
+		return new RansacAdaptive<>(0xBEEF, maxIterations, 0.01, new ModelManagerScaleTranslate2D(),
+				new GenerateScaleTranslate2D(), new DistanceScaleTranslate2DSq());
+	}
+
+	/**
+	 * Without a confidence it should run through all the iterations and still find the correct model
+	 */
+	@Test void fixedIterations() {
+		List<AssociatedPair> obs = createObservations(70, 30);
+
+		var alg = create(200);
+		assertTrue(alg.process(obs));
+		assertEquals(200, alg.getIterationsPerformed());
+		checkSolution(alg, 70);
+	}
+
+	/**
+	 * Adaptive termination should stop well before the maximum number of iterations
+	 */
+	@Test void adaptiveTermination() {
+		List<AssociatedPair> obs = createObservations(70, 30);
+
+		var alg = create(2000);
+		alg.setConfidence(0.99);
+		assertTrue(alg.process(obs));
+		// with an inlier ratio of 0.7 and two points only about 7 iterations are needed
+		assertTrue(alg.getIterationsPerformed() < 50);
+		checkSolution(alg, 70);
+	}
+
+	/**
+	 * With sorted data PROSAC should find the solution almost immediately even when most points are outliers
+	 */
+	@Test void prosac() {
+		List<AssociatedPair> obs = createObservations(20, 200);
+
+		var alg = create(2000);
+		alg.setConfidence(0.99);
+		alg.setProsac(true);
+		assertTrue(alg.process(obs));
+		checkSolution(alg, 20);
+
+		// Sample from the full set should still work too
+		alg.setProsac(false);
+		alg.setConfidence(0.0);
+		assertTrue(alg.process(obs));
+		checkSolution(alg, 20);
+	}
+
+	/**
+	 * Make sure the local optimizer is called and that the solution is still correct
+	 */
+	@Test void localOptimization() {
+		List<AssociatedPair> obs = createObservations(70, 30);
+
+		var optimizer = new CountingGenerator();
+		var alg = create(200);
+		alg.setLocalOptimizer(optimizer);
+		assertTrue(alg.process(obs));
+		assertTrue(optimizer.calls > 0);
+		// the optimizer should have been given more than the minimum number of points
+		assertTrue(optimizer.maxPoints > 2);
+		checkSolution(alg, 70);
+	}
+
+	/**
+	 * Not enough points to fit a model
+	 */
+	@Test void tooFewPoints() {
+		var alg = create(200);
+		assertFalse(alg.process(createObservations(1, 0)));
+		assertEquals(0, alg.getMatchSet().size());
+	}
+
+	/**
+	 * Calling reset should cause the same results to be produced
+	 */
+	@Test void reset() {
+		List<AssociatedPair> obs = createObservations(30, 70);
+
+		var alg = create(2000);
+		alg.setConfidence(0.99);
+		assertTrue(alg.process(obs));
+		int iterations = alg.getIterationsPerformed();
+
+		alg.reset();
+		assertTrue(alg.process(obs));
+		assertEquals(iterations, alg.getIterationsPerformed());
+	}
+
+	void checkSolution( RansacAdaptive<ScaleTranslate2D, AssociatedPair> alg, int numInliers ) {
+		ScaleTranslate2D found = alg.getModelParameters();
+		assertEquals(model.scale, found.scale, 1e-8);
+		assertEquals(model.transX, found.transX, 1e-8);
+		assertEquals(model.transY, found.transY, 1e-8);
+
+		assertEquals(numInliers, alg.getMatchSet().size());
+		assertEquals(numInliers, alg.getFitQuality());
+		for (int i = 0; i < numInliers; i++) {
+			// inliers are at the start of the list
+			assertTrue(alg.getInputIndex(i) < numInliers);
+		}
+	}
+
+	private static class CountingGenerator implements ModelGenerator<ScaleTranslate2D, AssociatedPair> {
+		GenerateScaleTranslate2D generator = new GenerateScaleTranslate2D();
+		int calls = 0;
+		int maxPoints = 0;
+
+		@Override public boolean generate( List<AssociatedPair> dataSet, ScaleTranslate2D output ) {
+			calls++;
+			maxPoints = Math.max(maxPoints, dataSet.size());
+			return generator.generate(dataSet, output);
+		}
+
+		@Override public int getMinimumPoints() {return 2;}
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.triangulate;
+
+import boofcv.abst.geo.Triangulate2ViewsMetricH;
+import boofcv.abst.geo.triangulate.Wrap2ViewsTriangulateGeometricH;
+import boofcv.struct.packed.PackedArrayPoint2D_F64;
+import boofcv.struct.packed.PackedArrayPoint4D_F64;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.point.Point3D_F64;
+import georegression.struct.point.Point4D_F64;
+import georegression.struct.se.Se3_F64;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import georegression.transform.se.SePointOps_F64;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_F64;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestTriangulateBatch2ViewsMetricH extends BoofStandardJUnit {
+	int numPoints = 300;
+	Se3_F64 a_to_b = SpecialEuclideanOps_F64.eulerXyz(0.3, 0.02, -0.05, 0.05, -0.02, 0.01, null);
+
+	PackedArrayPoint2D_F64 obsA = new PackedArrayPoint2D_F64();
+	PackedArrayPoint2D_F64 obsB = new PackedArrayPoint2D_F64();
+	PackedArrayPoint4D_F64 points = new PackedArrayPoint4D_F64();
+
+	/**
+	 * Creates a scene with perfect observations
+	 */
+	void createScene() {
+		var X = new Point3D_F64();
+		var Xb = new Point3D_F64();
+		for (int i = 0; i < numPoints; i++) {
+			X.setTo(rand.nextGaussian(), rand.nextGaussian(), 4.0 + rand.nextDouble());
+			SePointOps_F64.transform(a_to_b, X, Xb);
+
+			points.append(new Point4D_F64(X.x, X.y, X.z, 1.0));
+			obsA.append(new Point2D_F64(X.x/X.z, X.y/X.z));
+			obsB.append(new Point2D_F64(Xb.x/Xb.z, Xb.y/Xb.z));
+		}
+	}
+
+	/**
+	 * Compare against triangulating one point at a time
+	 */
+	@Test void triangulate() {
+		createScene();
+
+		var alg = new TriangulateBatch2ViewsMetricH(Wrap2ViewsTriangulateGeometricH::new);
+		var found = new PackedArrayPoint4D_F64();
+		var success = new DogArray_B();
+		alg.triangulate(obsA, obsB, a_to_b, found, success);
+
+		assertEquals(numPoints, found.size());
+		assertEquals(numPoints, success.size);
+
+		Triangulate2ViewsMetricH single = new Wrap2ViewsTriangulateGeometricH();
+		var expected = new Point4D_F64();
+		var actual = new Point4D_F64();
+		var a = new Point2D_F64();
+		var b = new Point2D_F64();
+		for (int i = 0; i < numPoints; i++) {
+			obsA.getCopy(i, a);
+			obsB.getCopy(i, b);
+			assertEquals(single.triangulate(a, b, a_to_b, expected), success.get(i));
+			found.getCopy(i, actual);
+			assertEquals(0.0, expected.distance(actual), 1e-8);
+
+			// it should also be the true location
+			points.getCopy(i, expected);
+			assertEquals(0.0, expected.x/expected.w - actual.x/actual.w, 1e-6);
+			assertEquals(0.0, expected.y/expected.w - actual.y/actual.w, 1e-6);
+			assertEquals(0.0, expected.z/expected.w - actual.z/actual.w, 1e-6);
+		}
+	}
+
+	@Test void reprojectionErrors() {
+		createScene();
+
+		var alg = new TriangulateBatch2ViewsMetricH(Wrap2ViewsTriangulateGeometricH::new);
+		var errors = new DogArray_F64();
+
+		// perfect observations should have no error
+		alg.reprojectionErrors(points, obsB, a_to_b, errors);
+		assertEquals(numPoints, errors.size);
+		for (int i = 0; i < numPoints; i++) {
+			assertEquals(0.0, errors.get(i), 1e-12);
+		}
+
+		// Scaling the homogenous coordinate should have no effect and shifting an observation should
+		for (int i = 0; i < points.array.size; i++) {
+			points.array.data[i] *= -2.0;
+		}
+		obsB.array.data[0] += 0.1;
+		alg.reprojectionErrors(points, obsB, a_to_b, errors);
+		assertEquals(0.01, errors.get(0), 1e-8);
+		for (int i = 1; i < numPoints; i++) {
+			assertEquals(0.0, errors.get(i), 1e-12);
+		}
+
+		// point is at the camera center and can't be projected
+		points.array.data[0] = 0.0;
+		points.array.data[1] = 0.0;
+		points.array.data[2] = 0.0;
+		points.array.data[3] = 1.0;
+		alg.reprojectionErrors(points, obsA, new Se3_F64(), errors);
+		assertEquals(Double.MAX_VALUE, errors.get(0));
+
+		// point is behind the camera
+		points.array.data[2] = -1.0;
+		alg.reprojectionErrors(points, obsA, new Se3_F64(), errors);
+		assertEquals(Double.MAX_VALUE, errors.get(0));
+		// still behind the camera after the sign of the homogenous coordinate is flipped
+		for (int i = 0; i < 4; i++) {
+			points.array.data[i] *= -1.0;
+		}
+		alg.reprojectionErrors(points, obsA, new Se3_F64(), errors);
+		assertEquals(Double.MAX_VALUE, errors.get(0));
+	}
+
+	/**
+	 * Concurrent version should produce identical results
+	 */
+	@Test void compareToConcurrent() {
+		createScene();
+
+		var algST = new TriangulateBatch2ViewsMetricH(Wrap2ViewsTriangulateGeometricH::new);
+		var algMT = new TriangulateBatch2ViewsMetricH_MT(Wrap2ViewsTriangulateGeometricH::new);
+		algMT.minimumPointsConcurrent = 0;
+
+		var foundST = new PackedArrayPoint4D_F64();
+		var foundMT = new PackedArrayPoint4D_F64();
+		var successST = new DogArray_B();
+		var successMT = new DogArray_B();
+		algST.triangulate(obsA, obsB, a_to_b, foundST, successST);
+		algMT.triangulate(obsA, obsB, a_to_b, foundMT, successMT);
+
+		assertEquals(foundST.array.size, foundMT.array.size);
+		for (int i = 0; i < foundST.array.size; i++) {
+			assertEquals(foundST.array.get(i), foundMT.array.get(i));
+		}
+		for (int i = 0; i < numPoints; i++) {
+			assertTrue(successST.get(i));
+			assertEquals(successST.get(i), successMT.get(i));
+		}
+
+		var errorsST = new DogArray_F64();
+		var errorsMT = new DogArray_F64();
+		algST.reprojectionErrors(foundST, obsB, a_to_b, errorsST);
+		algMT.reprojectionErrors(foundST, obsB, a_to_b, errorsMT);
+		for (int i = 0; i < numPoints; i++) {
+			assertEquals(errorsST.get(i), errorsMT.get(i));
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.triangulate;
+
+import boofcv.abst.geo.TriangulateNViewsMetric;
+import boofcv.factory.geo.ConfigTriangulation;
+import boofcv.factory.geo.FactoryMultiView;
+import boofcv.struct.packed.PackedArrayPoint2D_F64;
+import boofcv.struct.packed.PackedArrayPoint3D_F64;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.point.Point3D_F64;
+import georegression.struct.se.Se3_F64;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import georegression.transform.se.SePointOps_F64;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_F64;
+import org.ddogleg.struct.DogArray_I32;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestTriangulateBatchNViewsMetric extends BoofStandardJUnit {
+	int numPoints = 200;
+	int numViews = 5;
+
+	List<Se3_F64> listWorldToView = new ArrayList<>();
+
+	PackedArrayPoint3D_F64 points = new PackedArrayPoint3D_F64();
+	PackedArrayPoint2D_F64 observations = new PackedArrayPoint2D_F64();
+	DogArray_I32 observationView = new DogArray_I32();
+	DogArray_I32 pointStart = new DogArray_I32();
+
+	/**
+	 * Creates a scene with perfect observations. Each point is seen by a different number of views
+	 */
+	@BeforeEach void createScene() {
+		for (int viewIdx = 0; viewIdx < numViews; viewIdx++) {
+			listWorldToView.add(SpecialEuclideanOps_F64.eulerXyz(
+					0.2*viewIdx, 0.01*viewIdx, -0.02*viewIdx, 0.03*viewIdx, -0.02*viewIdx, 0.01, null));
+		}
+
+		var X = new Point3D_F64();
+		var Xv = new Point3D_F64();
+		pointStart.add(0);
+		for (int i = 0; i < numPoints; i++) {
+			X.setTo(rand.nextGaussian(), rand.nextGaussian(), 4.0 + rand.nextDouble());
+			points.append(X);
+
+			int count = 2 + rand.nextInt(numViews - 1);
+			for (int viewIdx = 0; viewIdx < count; viewIdx++) {
+				SePointOps_F64.transform(listWorldToView.get(viewIdx), X, Xv);
+				observations.append(new Point2D_F64(Xv.x/Xv.z, Xv.y/Xv.z));
+				observationView.add(viewIdx);
+			}
+			pointStart.add(observations.size());
+		}
+	}
+
+	/**
+	 * Compare against triangulating one point at a time
+	 */
+	@Test void triangulate() {
+		var config = ConfigTriangulation.GEOMETRIC();
+		var alg = new TriangulateBatchNViewsMetric(() -> FactoryMultiView.triangulateNViewMetric(config));
+		var found = new PackedArrayPoint3D_F64();
+		var success = new DogArray_B();
+		alg.triangulate(observations, observationView, pointStart, listWorldToView, found, success);
+
+		assertEquals(numPoints, found.size());
+		assertEquals(numPoints, success.size);
+
+		TriangulateNViewsMetric single = FactoryMultiView.triangulateNViewMetric(config);
+		var expected = new Point3D_F64();
+		for (int i = 0; i < numPoints; i++) {
+			List<Point2D_F64> obs = new ArrayList<>();
+			List<Se3_F64> poses = new ArrayList<>();
+			for (int obsIdx = pointStart.get(i); obsIdx < pointStart.get(i + 1); obsIdx++) {
+				var p = new Point2D_F64();
+				observations.getCopy(obsIdx, p);
+				obs.add(p);
+				poses.add(listWorldToView.get(observationView.get(obsIdx)));
+			}
+			assertTrue(single.triangulate(obs, poses, expected));
+			assertTrue(success.get(i));
+
+			Point3D_F64 actual = found.getTemp(i);
+			assertEquals(0.0, expected.distance(actual), 1e-8);
+			// Observations are perfect so it should be the true location too
+			assertEquals(0.0, points.getTemp(i).distance(actual), 1e-4);
+		}
+	}
+
+	@Test void reprojectionErrors() {
+		var alg = new TriangulateBatchNViewsMetric(() -> FactoryMultiView.triangulateNViewMetric(null));
+		var errors = new DogArray_F64();
+
+		// perfect observations should have no error
+		alg.reprojectionErrors(points, observations, observationView, pointStart, listWorldToView, errors);
+		assertEquals(observations.size(), errors.size);
+		for (int i = 0; i < errors.size; i++) {
+			assertEquals(0.0, errors.get(i), 1e-12);
+		}
+
+		// shift one observation of the second point
+		int obsIdx = pointStart.get(1) + 1;
+		observations.array.data[obsIdx*2] += 0.1;
+		alg.reprojectionErrors(points, observations, observationView, pointStart, listWorldToView, errors);
+		for (int i = 0; i < errors.size; i++) {
+			assertEquals(i == obsIdx ? 0.01 : 0.0, errors.get(i), 1e-8);
+		}
+
+		// move the first point behind every view
+		points.array.data[2] = -5.0;
+		alg.reprojectionErrors(points, observations, observationView, pointStart, listWorldToView, errors);
+		for (int i = pointStart.get(0); i < pointStart.get(1); i++) {
+			assertEquals(Double.MAX_VALUE, errors.get(i));
+		}
+	}
+
+	/**
+	 * Concurrent version should produce identical results
+	 */
+	@Test void compareToConcurrent() {
+		var config = ConfigTriangulation.GEOMETRIC();
+		var algST = new TriangulateBatchNViewsMetric(() -> FactoryMultiView.triangulateNViewMetric(config));
+		var algMT = new TriangulateBatchNViewsMetric_MT(() -> FactoryMultiView.triangulateNViewMetric(config));
+		algMT.minimumPointsConcurrent = 0;
+
+		var foundST = new PackedArrayPoint3D_F64();
+		var foundMT = new PackedArrayPoint3D_F64();
+		var successST = new DogArray_B();
+		var successMT = new DogArray_B();
+		algST.triangulate(observations, observationView, pointStart, listWorldToView, foundST, successST);
+		algMT.triangulate(observations, observationView, pointStart, listWorldToView, foundMT, successMT);
+
+		assertEquals(foundST.array.size, foundMT.array.size);
+		for (int i = 0; i < foundST.array.size; i++) {
+			assertEquals(foundST.array.get(i), foundMT.array.get(i));
+		}
+		for (int i = 0; i < numPoints; i++) {
+			assertEquals(successST.get(i), successMT.get(i));
+		}
+
+		var errorsST = new DogArray_F64();
+		var errorsMT = new DogArray_F64();
+		algST.reprojectionErrors(foundST, observations, observationView, pointStart, listWorldToView, errorsST);
+		algMT.reprojectionErrors(foundST, observations, observationView, pointStart, listWorldToView, errorsMT);
+		assertEquals(errorsST.size, errorsMT.size);
+		for (int i = 0; i < errorsST.size; i++) {
+			assertEquals(errorsST.get(i), errorsMT.get(i));
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.geo;
+
+import boofcv.alg.structure.PairwiseImageGraph;
+import boofcv.alg.structure.SceneWorkingGraph;
+import boofcv.alg.structure.SubmapStorage;
+import boofcv.misc.BoofMiscOps;
+import lombok.Getter;
+
+import java.io.File;
+
+/**
+ * Saves each submap into a directory using {@link MultiViewIO}. The graph and the scene of each submap are saved
+ * into their own files.
+ *
+ * @author Peter Abeles
+ */
+public class SubmapStorageDirectory implements SubmapStorage {
+	/** Directory the submaps are saved to */
+	final @Getter File directory;
+
+	public SubmapStorageDirectory( File directory ) {
+		this.directory = directory;
+		if (!directory.exists())
+			BoofMiscOps.checkTrue(directory.mkdirs(), "Failed to create directory");
+	}
+
+	@Override public void saveGraph( int submapIdx, PairwiseImageGraph pairwise ) {
+		MultiViewIO.save(pairwise, fileGraph(submapIdx).getPath());
+	}
+
+	@Override public void loadGraph( int submapIdx, PairwiseImageGraph output ) {
+		MultiViewIO.load(fileGraph(submapIdx).getPath(), output);
+	}
+
+	@Override public void saveScene( int submapIdx, SceneWorkingGraph scene ) {
+		MultiViewIO.save(scene, fileScene(submapIdx).getPath());
+	}
+
+	@Override public void loadScene( int submapIdx, PairwiseImageGraph pairwise, SceneWorkingGraph output ) {
+		MultiViewIO.load(fileScene(submapIdx).getPath(), pairwise, output);
+	}
+
+	@Override public boolean containsScene( int submapIdx ) {
+		return fileScene(submapIdx).exists();
+	}
+
+	public File fileGraph( int submapIdx ) {
+		return new File(directory, String.format("submap%04d_pairwise.yaml", submapIdx));
+	}
+
+	public File fileScene( int submapIdx ) {
+		return new File(directory, String.format("submap%04d_scene.yaml", submapIdx));
+	}
+}
@@ -29,6 +29,7 @@ import java.util.List;
 
 /**
  * Implementation of {@link LookUpImages} that converts the name into an integer and grabs images from memory.
+ * Thread safe as long as the conversion function is thread safe.
  *
  * @author Peter Abeles
  */
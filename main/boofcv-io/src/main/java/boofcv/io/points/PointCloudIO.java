@@ -23,12 +23,17 @@ import boofcv.alg.cloud.AccessPointIndex;
 import boofcv.alg.cloud.PointCloudReader;
 import boofcv.alg.cloud.PointCloudWriter;
 import boofcv.io.points.impl.PlyCodec;
+import boofcv.io.points.impl.PlyRandomAccessReader;
+import boofcv.misc.BoofLambdas;
+import boofcv.misc.BoofMiscOps;
 import boofcv.struct.Point3dRgbI_F64;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import georegression.struct.point.Point3D_F32;
 import georegression.struct.point.Point3D_F64;
 import org.ddogleg.struct.DogArray;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -80,6 +85,16 @@ public class PointCloudIO {
 		save3D(format, reader, saveRGB, outputStream);
 	}
 
+	/**
+	 * Saves a packed point cloud to disk.
+	 *
+	 * @see PlyCodec
+	 */
+	public static void save3D( Format format, PackedPointCloud_F64 cloud, boolean saveRGB, OutputStream outputStream )
+			throws IOException {
+		save3D(format, PointCloudReader.wrap(cloud), saveRGB && cloud.hasColor(), outputStream);
+	}
+
 	public static DogArray<Point3D_F32>
 	load3D32F( Format format, InputStream input, @Nullable DogArray<Point3D_F32> storage ) throws IOException {
 		if (storage == null)
@@ -107,6 +122,32 @@ public class PointCloudIO {
 		return storage;
 	}
 
+	/**
+	 * Loads a point cloud into a packed cloud. Color is saved if the file has color.
+	 *
+	 * @param format Storage format
+	 * @param input Input stream
+	 * @param storage (Output) Storage for the cloud. If null a new instance is created.
+	 * @return The loaded cloud
+	 */
+	public static PackedPointCloud_F64
+	load3D( Format format, InputStream input, @Nullable PackedPointCloud_F64 storage ) throws IOException {
+		if (storage == null)
+			storage = new PackedPointCloud_F64();
+		load(format, input, PointCloudWriter.wrap(storage));
+		return storage;
+	}
+
+	/**
+	 * Opens a binary PLY file for random access to its points without loading it into memory. The file is
+	 * memory mapped. Must be closed when finished.
+	 *
+	 * @see PlyRandomAccessReader
+	 */
+	public static PlyRandomAccessReader openRandomAccess( File file ) throws IOException {
+		return new PlyRandomAccessReader(file);
+	}
+
 	/**
 	 * Reads a point cloud from the input stream in the specified format and writes it to the output.
 	 *
@@ -120,6 +161,54 @@ public class PointCloudIO {
 		}
 	}
 
+	/**
+	 * Reads the point cloud a chunk at a time. Every time the chunk is full it's passed to the handler and then
+	 * reset. The last chunk can have fewer points. Use this when the cloud is too large to fit in memory.
+	 *
+	 * @param format Storage format
+	 * @param input Input stream
+	 * @param chunkSize Maximum number of points in a chunk
+	 * @param chunk (Output) Storage for points in the chunk. Color is saved if the file has color.
+	 * @param handler Called after a chunk has been read
+	 */
+	public static void loadChunks( Format format, InputStream input, int chunkSize, PackedPointCloud_F64 chunk,
+								   BoofLambdas.ProcessObject<PackedPointCloud_F64> handler ) throws IOException {
+		BoofMiscOps.checkTrue(chunkSize > 0, "Chunk size must be positive");
+
+		PointCloudWriter writer = new PointCloudWriter() {
+			@Override public void initialize( int size, boolean hasColor ) {
+				chunk.initialize(hasColor, false, false);
+				chunk.reserve(size > 0 ? Math.min(size, chunkSize) : chunkSize);
+			}
+
+			@Override public void add( double x, double y, double z, int rgb ) {
+				chunk.append(x, y, z, rgb);
+				if (chunk.size() < chunkSize)
+					return;
+				handler.process(chunk);
+				chunk.reset();
+			}
+
+			@Override public void addBlock( double[] xyz, int[] rgb, int count ) {
+				// Split the block up at chunk boundaries
+				int offset = 0;
+				while (offset < count) {
+					int length = Math.min(count - offset, chunkSize - chunk.size());
+					chunk.appendBlock(xyz, rgb, offset, length);
+					offset += length;
+					if (chunk.size() < chunkSize)
+						continue;
+					handler.process(chunk);
+					chunk.reset();
+				}
+			}
+		};
+		load(format, input, writer);
+
+		if (chunk.size() > 0)
+			handler.process(chunk);
+	}
+
 	/**
 	 * The same as {@link #load(Format, InputStream, PointCloudWriter)}, but with a simplified writer that
 	 * removes the initialization function. Result is more concise code with less flexibility
@@ -30,14 +30,18 @@ import java.io.Writer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * For reading PLY point files
+ * For reading PLY point files. Binary vertex data is read and written in blocks instead of one value at a time.
  *
  * @author Peter Abeles
  */
 public class PlyCodec {
+	// Number of bytes which are read or written at once when processing binary vertexes
+	static final int BLOCK_BYTES = 1 << 16;
+
 	public static void saveAscii( PointCloudReader cloud, boolean saveRgb, Writer outputWriter ) throws IOException {
 		outputWriter.write("ply\n");
 		outputWriter.write("format ascii 1.0\n");
@@ -71,7 +75,7 @@ public class PlyCodec {
 	}
 
 	/**
-	 * Saves data in binary format
+	 * Saves data in binary format. Points are encoded in blocks to reduce the number of writes.
 	 *
 	 * @param cloud (Input) Point cloud data
 	 * @param order The byte order of the binary data. ByteOrder.BIG_ENDIAN is recommended
@@ -83,9 +87,10 @@ public class PlyCodec {
 								   OutputStream outputWriter ) throws IOException {
 		String format = "UTF-8";
 		String dataType = saveAsFloat ? "float" : "double";
+		String endian = order == ByteOrder.LITTLE_ENDIAN ? "binary_little_endian" : "binary_big_endian";
 		int dataLength = saveAsFloat ? 4 : 8;
 		outputWriter.write("ply\n".getBytes(format));
-		outputWriter.write("format binary_big_endian 1.0\n".getBytes(format));
+		outputWriter.write(("format " + endian + " 1.0\n").getBytes(format));
 		outputWriter.write("comment Created using BoofCV!\n".getBytes(format));
 		outputWriter.write(("element vertex " + cloud.size() + "\n").getBytes(format));
 		outputWriter.write((
@@ -100,32 +105,36 @@ public class PlyCodec {
 		}
 		outputWriter.write("end_header\n".getBytes(format));
 
-		int end = dataLength*3;
-		var bytes = ByteBuffer.allocate(dataLength*3 + (saveRgb ? 3 : 0));
+		final int end = dataLength*3;
+		final int bytesPerVertex = end + (saveRgb ? 3 : 0);
+		final int blockVertexes = Math.max(1, BLOCK_BYTES/bytesPerVertex);
+		var bytes = ByteBuffer.allocate(blockVertexes*bytesPerVertex);
 		bytes.order(order);
 		Point3D_F64 p = new Point3D_F64();
-		for (int i = 0; i < cloud.size(); i++) {
-			cloud.get(i, p);
-			if (saveAsFloat) {
-				bytes.putFloat(0, (float)p.x);
-				bytes.putFloat(4, (float)p.y);
-				bytes.putFloat(8, (float)p.z);
-			} else {
-				bytes.putDouble(0, p.x);
-				bytes.putDouble(8, p.y);
-				bytes.putDouble(16, p.z);
-			}
+		for (int idx0 = 0; idx0 < cloud.size(); idx0 += blockVertexes) {
+			int idx1 = Math.min(cloud.size(), idx0 + blockVertexes);
+
+			for (int i = idx0; i < idx1; i++) {
+				int location = (i - idx0)*bytesPerVertex;
+				cloud.get(i, p);
+				if (saveAsFloat) {
+					bytes.putFloat(location, (float)p.x);
+					bytes.putFloat(location + 4, (float)p.y);
+					bytes.putFloat(location + 8, (float)p.z);
+				} else {
+					bytes.putDouble(location, p.x);
+					bytes.putDouble(location + 8, p.y);
+					bytes.putDouble(location + 16, p.z);
+				}
 
-			if (saveRgb) {
-				int rgb = cloud.getRGB(i);
-				int r = (rgb >> 16) & 0xFF;
-				int g = (rgb >> 8) & 0xFF;
-				int b = rgb & 0xFF;
-				bytes.put(end, (byte)r);
-				bytes.put(end + 1, (byte)g);
-				bytes.put(end + 2, (byte)b);
+				if (saveRgb) {
+					int rgb = cloud.getRGB(i);
+					bytes.put(location + end, (byte)(rgb >> 16));
+					bytes.put(location + end + 1, (byte)(rgb >> 8));
+					bytes.put(location + end + 2, (byte)rgb);
+				}
 			}
-			outputWriter.write(bytes.array());
+			outputWriter.write(bytes.array(), 0, (idx1 - idx0)*bytesPerVertex);
 		}
 		outputWriter.flush();
 	}
@@ -144,19 +153,26 @@ public class PlyCodec {
 		return line;
 	}
 
-	public static void read( InputStream input, PointCloudWriter output ) throws IOException {
-		StringBuilder buffer = new StringBuilder();
+	/**
+	 * Reads the header. When it returns the input stream will be at the start of the vertex data.
+	 *
+	 * @param input Stream with the PLY file at the start
+	 * @return Description of the file's contents
+	 */
+	public static Header readHeader( InputStream input ) throws IOException {
+		return readHeader(input, new StringBuilder());
+	}
 
+	/**
+	 * Reads the header using the provided storage for each line.
+	 */
+	static Header readHeader( InputStream input, StringBuilder buffer ) throws IOException {
 		String line = UtilIO.readLine(input, buffer);
 		if (line.length() == 0) throw new IOException("Missing first line");
 		if (line.compareToIgnoreCase("ply") != 0) throw new IOException("Expected PLY at start of file");
 
-		var dataWords = new ArrayList<DataWord>();
-
-		int vertexCount = -1;
+		var header = new Header();
 
-		Format format = null;
-		boolean rgb = false;
 		line = readNextPly(input, true, buffer);
 		while (line.length() != 0) {
 			if (line.equals("end_header"))
@@ -165,7 +181,7 @@ public class PlyCodec {
 			if (words.length == 1)
 				throw new IOException("Expected more than one word");
 			if( line.startsWith("format")) {
-				format = switch (words[1]) {
+				header.format = switch (words[1]) {
 					case "ascii" -> Format.ASCII;
 					case "binary_little_endian" -> Format.BINARY_LITTLE;
 					case "binary_big_endian" -> Format.BINARY_BIG;
@@ -173,7 +189,7 @@ public class PlyCodec {
 				};
 			} else if (line.startsWith("element")) {
 				if (words[1].equals("vertex")) {
-					vertexCount = Integer.parseInt(words[2]);
+					header.vertexCount = Integer.parseInt(words[2]);
 				}
 			} else if (words[0].equals("property")) {
 				DataType d = switch (words[1].toLowerCase()) {
@@ -192,28 +208,35 @@ public class PlyCodec {
 					case "x" -> v = VarType.X;
 					case "y" -> v = VarType.Y;
 					case "z" -> v = VarType.Z;
-					case "red" -> { v = VarType.R; rgb = true; }
-					case "green" -> { v = VarType.G; rgb = true; }
-					case "blue" -> { v = VarType.B; rgb = true; }
+					case "red" -> { v = VarType.R; header.rgb = true; }
+					case "green" -> { v = VarType.G; header.rgb = true; }
+					case "blue" -> { v = VarType.B; header.rgb = true; }
 					default -> v = VarType.UNKNOWN;
 				}
-				dataWords.add(new DataWord(v, d));
+				header.addWord(v, d);
 			} else {
 				throw new IOException("Unknown header element");
 			}
 			line = readNextPly(input, true, buffer);
 		}
-		if (vertexCount == -1)
+		if (header.vertexCount == -1)
 			throw new IOException("File is missing vertex count");
-		if (format == null)
+		if (header.format == null)
 			throw new IOException("Format is never specified");
 
-		output.initialize(vertexCount, rgb);
+		return header;
+	}
 
-		switch (format) {
-			case ASCII -> readAscii(output, input, dataWords, buffer, vertexCount, rgb);
-			case BINARY_LITTLE -> readBinary(output, input, dataWords, ByteOrder.LITTLE_ENDIAN, vertexCount, rgb);
-			case BINARY_BIG -> readBinary(output, input, dataWords, ByteOrder.BIG_ENDIAN, vertexCount, rgb);
+	public static void read( InputStream input, PointCloudWriter output ) throws IOException {
+		// The same storage is used for each line in the header and ASCII vertexes
+		var buffer = new StringBuilder();
+		Header header = readHeader(input, buffer);
+
+		output.initialize(header.vertexCount, header.rgb);
+
+		switch (header.format) {
+			case ASCII -> readAscii(output, input, header.dataWords, buffer, header.vertexCount, header.rgb);
+			case BINARY_LITTLE, BINARY_BIG -> readBinary(output, input, header);
 			default -> throw new RuntimeException("BUG!");
 		}
 	}
@@ -260,68 +283,120 @@ public class PlyCodec {
 		}
 	}
 
-	private static void readBinary( PointCloudWriter output, InputStream reader, List<DataWord> dataWords,
-									ByteOrder order,
-									int vertexCount, boolean rgb ) throws IOException {
-
-		int totalBytes = 0;
-		for (int i = 0; i < dataWords.size(); i++) {
-			totalBytes += dataWords.get(i).data.size;
+	/**
+	 * Reads binary vertex data a block at a time. Only the properties which are used are decoded, at a fixed
+	 * offset inside each vertex. Each block is decoded into packed arrays which are passed to the output at once.
+	 */
+	private static void readBinary( PointCloudWriter output, InputStream reader, Header header ) throws IOException {
+		final int bytesPerVertex = header.bytesPerVertex;
+		final int blockVertexes = Math.max(1, BLOCK_BYTES/bytesPerVertex);
+
+		final byte[] block = new byte[blockVertexes*bytesPerVertex];
+		final ByteBuffer bb = ByteBuffer.wrap(block);
+		bb.order(header.getByteOrder());
+
+		// Decoded points in the block
+		final double[] blockXyz = new double[blockVertexes*3];
+		final int[] blockRgb = new int[blockVertexes];
+
+		int remaining = header.vertexCount;
+		while (remaining > 0) {
+			int count = Math.min(remaining, blockVertexes);
+			readFully(reader, block, count*bytesPerVertex);
+			remaining -= count;
+
+			for (int i = 0, location = 0; i < count; i++, location += bytesPerVertex) {
+				blockXyz[i*3] = header.getDouble(bb, location, VarType.X);
+				blockXyz[i*3 + 1] = header.getDouble(bb, location, VarType.Y);
+				blockXyz[i*3 + 2] = header.getDouble(bb, location, VarType.Z);
+				blockRgb[i] = header.rgb ? header.getRGB(bb, location) : 0x0;
+			}
+			output.addBlock(blockXyz, blockRgb, count);
 		}
+	}
 
-		final byte[] line = new byte[totalBytes];
-		final ByteBuffer bb = ByteBuffer.wrap(line);
-		bb.order(order);
+	/**
+	 * Reads exactly the specified number of bytes or throws an exception
+	 */
+	private static void readFully( InputStream input, byte[] data, int length ) throws IOException {
+		int offset = 0;
+		while (offset < length) {
+			int found = input.read(data, offset, length - offset);
+			if (found < 0)
+				throw new IOException("Read unexpected number of bytes. " + offset + " vs " + length);
+			offset += found;
+		}
+	}
 
-		// storage for read in values
-		int I32 = -1;
-		double F64 = -1;
+	/**
+	 * Describes the contents of a PLY file and where each property is inside a binary vertex
+	 */
+	public static class Header {
+		/** Number of vertexes in the file */
+		public int vertexCount = -1;
+		/** If the vertexes have color */
+		public boolean rgb = false;
+		/** Number of bytes in each vertex when encoded in binary */
+		public int bytesPerVertex = 0;
+
+		Format format;
+		final List<DataWord> dataWords = new ArrayList<>();
+
+		// Byte offset and data type inside a binary vertex for each VarType. -1 if not in the file
+		final int[] offsets = new int[VarType.values().length];
+		final DataType[] types = new DataType[VarType.values().length];
+
+		Header() {
+			Arrays.fill(offsets, -1);
+		}
 
-		// values that are writen to that we care about
-		int r = -1, g = -1, b = -1;
-		double x = -1, y = -1, z = -1;
+		void addWord( VarType var, DataType data ) {
+			dataWords.add(new DataWord(var, data));
+			if (var != VarType.UNKNOWN) {
+				offsets[var.ordinal()] = bytesPerVertex;
+				types[var.ordinal()] = data;
+			}
+			bytesPerVertex += data.size;
+		}
 
-		for (int i = 0; i < vertexCount; i++) {
-			int found = reader.read(line);
-			if (line.length != found)
-				throw new IOException("Read unexpected number of bytes. " + found + " vs " + line.length);
+		/** True if the vertexes are encoded in binary */
+		public boolean isBinary() {
+			return format != Format.ASCII;
+		}
 
-			int location = 0;
+		/** Byte order of binary data */
+		public ByteOrder getByteOrder() {
+			return format == Format.BINARY_LITTLE ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+		}
 
-			for (int j = 0; j < dataWords.size(); j++) {
-				DataWord d = dataWords.get(j);
-				switch (d.data) {
-					case FLOAT -> F64 = bb.getFloat(location);
-					case DOUBLE -> F64 = bb.getDouble(location);
-					case CHAR -> I32 = bb.get(location);
-					case UCHAR -> I32 = bb.get(location) & 0xFF;
-					case SHORT -> I32 = bb.getShort(location);
-					case USHORT -> I32 = bb.getShort(location) & 0xFFFF;
-					case INT -> I32 = bb.getInt(location);
-					case UINT -> I32 = bb.getInt(location); // NOTE: not really uint...
-					default -> throw new RuntimeException("Unsupported");
-				}
-				location += d.data.size;
-				switch( d.var ) {
-					case X: x = F64; break;
-					case Y: y = F64; break;
-					case Z: z = F64; break;
-					case R: r = I32; break;
-					case G: g = I32; break;
-					case B: b = I32; break;
-					default: break;
-				}
-			}
+		/** Reads the value of a property in the vertex which starts at 'location'. 0 if it's not in the file */
+		double getDouble( ByteBuffer bb, int location, VarType var ) {
+			int offset = offsets[var.ordinal()];
+			if (offset < 0)
+				return 0;
+			location += offset;
+			return switch (types[var.ordinal()]) {
+				case FLOAT -> bb.getFloat(location);
+				case DOUBLE -> bb.getDouble(location);
+				case CHAR -> bb.get(location);
+				case UCHAR -> bb.get(location) & 0xFF;
+				case SHORT -> bb.getShort(location);
+				case USHORT -> bb.getShort(location) & 0xFFFF;
+				case INT -> bb.getInt(location);
+				case UINT -> bb.getInt(location) & 0xFFFFFFFFL;
+			};
+		}
 
-			if (rgb) {
-				output.add(x, y, z, r << 16 | g << 8 | b);
-			} else {
-				output.add(x, y, z, 0x0);
-			}
+		/** Reads the color of the vertex which starts at 'location' */
+		int getRGB( ByteBuffer bb, int location ) {
+			int r = (int)getDouble(bb, location, VarType.R);
+			int g = (int)getDouble(bb, location, VarType.G);
+			int b = (int)getDouble(bb, location, VarType.B);
+			return r << 16 | g << 8 | b;
 		}
 	}
 
-	private static class DataWord {
+	static class DataWord {
 		VarType var;
 		DataType data;
 
@@ -331,11 +406,11 @@ public class PlyCodec {
 		}
 	}
 
-	private enum VarType {
+	enum VarType {
 		X, Y, Z, R, G, B, UNKNOWN
 	}
 
-	private enum DataType {
+	enum DataType {
 		FLOAT(4),
 		DOUBLE(8),
 		CHAR(1),
@@ -352,7 +427,7 @@ public class PlyCodec {
 		}
 	}
 
-	private enum Format {
+	enum Format {
 		ASCII,
 		BINARY_LITTLE,
 		BINARY_BIG
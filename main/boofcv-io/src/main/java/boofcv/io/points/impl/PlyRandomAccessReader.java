@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.io.points.impl;
+
+import boofcv.alg.cloud.PointCloudReader;
+import georegression.struct.point.Point3D_F32;
+import georegression.struct.point.Point3D_F64;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Provides random access to the points inside a binary PLY file without loading the file into memory. Every
+ * vertex in a binary PLY file has the same number of bytes, so the location of any vertex can be computed
+ * directly from its index. The file is memory mapped in regions, each containing a whole number of vertexes, so
+ * that files larger than 2 GB and larger than the heap can be accessed. The operating system decides which
+ * parts of the file are in memory.
+ *
+ * Reading points is thread safe since the mapped buffers are only accessed with absolute get functions.
+ *
+ * @author Peter Abeles
+ */
+public class PlyRandomAccessReader implements PointCloudReader, Closeable {
+	/** Description of the file's contents */
+	final PlyCodec.Header header;
+
+	// Memory mapped regions of the file
+	final MappedByteBuffer[] regions;
+
+	// Number of vertexes in each region
+	final int regionVertexes;
+
+	final FileChannel channel;
+
+	/**
+	 * Opens the file and maps the vertex data into memory.
+	 *
+	 * @param file A binary PLY file
+	 */
+	public PlyRandomAccessReader( File file ) throws IOException {
+		var stream = new FileInputStream(file);
+		try {
+			header = PlyCodec.readHeader(stream);
+			if (!header.isBinary())
+				throw new IOException("Only binary PLY files can be randomly accessed");
+			if (header.bytesPerVertex == 0)
+				throw new IOException("Vertexes have no properties");
+
+			channel = stream.getChannel();
+			// The header is read one byte at a time so this is where the vertex data starts
+			long start = channel.position();
+			long bytesPerVertex = header.bytesPerVertex;
+			if (channel.size() < start + bytesPerVertex*header.vertexCount)
+				throw new IOException("File is too small for the number of vertexes");
+
+			regionVertexes = (int)Math.max(1, Integer.MAX_VALUE/bytesPerVertex);
+			int numRegions = (header.vertexCount + regionVertexes - 1)/regionVertexes;
+			regions = new MappedByteBuffer[numRegions];
+			for (int i = 0; i < numRegions; i++) {
+				long vertex0 = (long)i*regionVertexes;
+				long vertexes = Math.min(regionVertexes, header.vertexCount - vertex0);
+				regions[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						start + vertex0*bytesPerVertex, vertexes*bytesPerVertex);
+				regions[i].order(header.getByteOrder());
+			}
+		} catch (IOException | RuntimeException e) {
+			stream.close();
+			throw e;
+		}
+	}
+
+	@Override public int size() {
+		return header.vertexCount;
+	}
+
+	@Override public void get( int index, Point3D_F32 point ) {
+		ByteBuffer bb = regions[index/regionVertexes];
+		int location = (index%regionVertexes)*header.bytesPerVertex;
+		point.x = (float)header.getDouble(bb, location, PlyCodec.VarType.X);
+		point.y = (float)header.getDouble(bb, location, PlyCodec.VarType.Y);
+		point.z = (float)header.getDouble(bb, location, PlyCodec.VarType.Z);
+	}
+
+	@Override public void get( int index, Point3D_F64 point ) {
+		ByteBuffer bb = regions[index/regionVertexes];
+		int location = (index%regionVertexes)*header.bytesPerVertex;
+		point.x = header.getDouble(bb, location, PlyCodec.VarType.X);
+		point.y = header.getDouble(bb, location, PlyCodec.VarType.Y);
+		point.z = header.getDouble(bb, location, PlyCodec.VarType.Z);
+	}
+
+	/** Returns the color of the point or 0 if the file has no color */
+	@Override public int getRGB( int index ) {
+		if (!header.rgb)
+			return 0;
+		ByteBuffer bb = regions[index/regionVertexes];
+		return header.getRGB(bb, (index%regionVertexes)*header.bytesPerVertex);
+	}
+
+	/** True if the points have color */
+	public boolean hasColor() {
+		return header.rgb;
+	}
+
+	@Override public void close() throws IOException {
+		channel.close();
+	}
+}
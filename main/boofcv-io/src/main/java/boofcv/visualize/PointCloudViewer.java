@@ -21,6 +21,7 @@ package boofcv.visualize;
 import boofcv.alg.cloud.AccessColorIndex;
 import boofcv.alg.cloud.AccessPointIndex;
 import boofcv.struct.Point3dRgbI_F64;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import georegression.struct.point.Point3D_F64;
 import georegression.struct.se.Se3_F64;
 import org.ddogleg.struct.DogArray;
@@ -108,6 +109,13 @@ public interface PointCloudViewer {
 		}
 	}
 
+	/**
+	 * Adds a packed point cloud. Color is only used if the cloud has color.
+	 */
+	default void addCloud( PackedPointCloud_F64 cloud ) {
+		addCloud(cloud.xyz::getCopy, cloud.hasColor() ? cloud.rgb::get : null, cloud.size());
+	}
+
 	@Deprecated
 	default void addCloud( List<Point3D_F64> cloudXyz , int []colorsRgb ) {
 		addCloud((index, p)->p.setTo(cloudXyz.get(index)), (index)->colorsRgb[index], cloudXyz.size());
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.io.geo;
+
+import boofcv.alg.structure.PairwiseImageGraph;
+import boofcv.alg.structure.SceneWorkingGraph;
+import boofcv.io.UtilIO;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import org.ejml.UtilEjml;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestSubmapStorageDirectory extends BoofStandardJUnit {
+	/**
+	 * Save a graph and scene then load them into objects which already have data in them
+	 */
+	@Test void save_load() throws IOException {
+		File directory = Files.createTempDirectory("submaps").toFile();
+		try {
+			var alg = new SubmapStorageDirectory(directory);
+
+			PairwiseImageGraph graph = createGraph();
+			var scene = new SceneWorkingGraph();
+			SceneWorkingGraph.Camera camera = scene.addCamera(2);
+			camera.intrinsic.f = 120.0;
+			for (int i = 0; i < graph.nodes.size; i++) {
+				SceneWorkingGraph.View v = scene.addView(graph.nodes.get(i), camera);
+				SpecialEuclideanOps_F64.eulerXyz(i, 0.1, 0, 0.2, 0, 0, v.world_to_view);
+			}
+
+			assertFalse(alg.containsScene(1));
+			alg.saveGraph(1, graph);
+			assertFalse(alg.containsScene(1));
+			alg.saveScene(1, scene);
+			assertTrue(alg.containsScene(1));
+			assertFalse(alg.containsScene(0));
+
+			// Fill the output with junk to make sure it's reset
+			PairwiseImageGraph foundGraph = createGraph();
+			foundGraph.createNode("junk");
+			var foundScene = new SceneWorkingGraph();
+			foundScene.addCamera(5);
+
+			alg.loadGraph(1, foundGraph);
+			assertEquals(graph.nodes.size, foundGraph.nodes.size);
+			assertEquals(graph.edges.size, foundGraph.edges.size);
+			for (int i = 0; i < graph.nodes.size; i++) {
+				assertEquals(graph.nodes.get(i).id, foundGraph.nodes.get(i).id);
+				assertEquals(graph.nodes.get(i).totalObservations, foundGraph.nodes.get(i).totalObservations);
+			}
+
+			alg.loadScene(1, foundGraph, foundScene);
+			assertEquals(1, foundScene.listCameras.size());
+			assertEquals(120.0, foundScene.listCameras.get(0).intrinsic.f);
+			assertEquals(scene.listViews.size(), foundScene.listViews.size());
+			for (int i = 0; i < scene.listViews.size(); i++) {
+				SceneWorkingGraph.View expected = scene.listViews.get(i);
+				SceneWorkingGraph.View found = foundScene.listViews.get(i);
+				// The scene must reference the graph it was loaded with
+				assertSame(foundGraph.lookupNode(expected.pview.id), found.pview);
+				assertEquals(0.0, expected.world_to_view.T.distance(found.world_to_view.T), UtilEjml.TEST_F64);
+			}
+		} finally {
+			UtilIO.deleteRecursive(directory);
+		}
+	}
+
+	private PairwiseImageGraph createGraph() {
+		var graph = new PairwiseImageGraph();
+		for (int i = 0; i < 3; i++) {
+			graph.createNode("view" + i).totalObservations = 20 + i;
+		}
+		PairwiseImageGraph.Motion m = graph.connect(graph.nodes.get(0), graph.nodes.get(1));
+		m.is3D = true;
+		m.score3D = 2.0;
+		m.inliers.grow().setTo(1, 2, 0.1);
+		graph.connect(graph.nodes.get(1), graph.nodes.get(2)).inliers.grow().setTo(3, 4, 0.1);
+		return graph;
+	}
+}
@@ -20,6 +20,7 @@ package boofcv.io.points;
 
 import boofcv.alg.cloud.PointCloudReader;
 import boofcv.io.points.PointCloudIO.Format;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import boofcv.testing.BoofStandardJUnit;
 import georegression.struct.point.Point3D_F32;
 import georegression.struct.point.Point3D_F64;
@@ -35,6 +36,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author Peter Abeles
@@ -89,4 +91,62 @@ class TestPointCloudIO extends BoofStandardJUnit {
 			}
 		}
 	}
+
+	@Test
+	void encode_decode_packed() throws IOException {
+		var expected = new PackedPointCloud_F64();
+		expected.initialize(true, false, false);
+		for (int i = 0; i < 10; i++) {
+			expected.append(i*123.45, i - 1.01, i + 2.34, i*0x010203);
+		}
+
+		Format[] formats = new Format[]{Format.PLY};
+		for (Format f : formats) {
+			var found = new PackedPointCloud_F64();
+			found.append(1, 1, 1);
+
+			ByteArrayOutputStream stream = new ByteArrayOutputStream();
+			PointCloudIO.save3D(f, expected, true, stream);
+			InputStream input = new ByteArrayInputStream(stream.toByteArray());
+			PointCloudIO.load3D(f, input, found);
+
+			// make sure it cleared the points
+			assertEquals(expected.size(), found.size());
+			assertTrue(found.hasColor());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(0.0, found.xyz.getTemp(i).distance(expected.xyz.getTemp(i)), UtilEjml.TEST_F64);
+				assertEquals(expected.getRgb(i), found.getRgb(i));
+			}
+		}
+	}
+
+	@Test
+	void loadChunks() throws IOException {
+		var expected = new PackedPointCloud_F64();
+		expected.initialize(true, false, false);
+		for (int i = 0; i < 25; i++) {
+			expected.append(i*123.45, i - 1.01, i + 2.34, i*0x010203);
+		}
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		PointCloudIO.save3D(Format.PLY, expected, true, stream);
+		InputStream input = new ByteArrayInputStream(stream.toByteArray());
+
+		// Combine the chunks together
+		var found = new PackedPointCloud_F64();
+		found.initialize(true, false, false);
+		List<Integer> chunkSizes = new ArrayList<>();
+		PointCloudIO.loadChunks(Format.PLY, input, 10, new PackedPointCloud_F64(), chunk -> {
+			assertTrue(chunk.hasColor());
+			chunkSizes.add(chunk.size());
+			found.appendAll(chunk);
+		});
+
+		assertEquals(List.of(10, 10, 5), chunkSizes);
+		assertEquals(expected.size(), found.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(0.0, found.xyz.getTemp(i).distance(expected.xyz.getTemp(i)), UtilEjml.TEST_F64);
+			assertEquals(expected.getRgb(i), found.getRgb(i));
+		}
+	}
 }
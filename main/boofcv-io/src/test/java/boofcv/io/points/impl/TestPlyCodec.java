@@ -21,6 +21,7 @@ package boofcv.io.points.impl;
 import boofcv.alg.cloud.PointCloudReader;
 import boofcv.alg.cloud.PointCloudWriter;
 import boofcv.struct.Point3dRgbI_F64;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import boofcv.testing.BoofStandardJUnit;
 import georegression.struct.point.Point3D_F64;
 import org.ddogleg.struct.DogArray;
@@ -33,7 +34,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author Peter Abeles
@@ -136,4 +137,120 @@ class TestPlyCodec extends BoofStandardJUnit {
 			}
 		}
 	}
+
+	/**
+	 * Save and read with every combination of binary settings. Enough points so that multiple blocks are used.
+	 */
+	@Test void saveBinary_read() throws IOException {
+		PackedPointCloud_F64 expected = createCloud(10_000);
+
+		for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+			for (boolean saveAsFloat : new boolean[]{true, false}) {
+				for (boolean saveRgb : new boolean[]{true, false}) {
+					var stream = new ByteArrayOutputStream();
+					PlyCodec.saveBinary(PointCloudReader.wrap(expected), order, saveRgb, saveAsFloat, stream);
+
+					var found = new PackedPointCloud_F64();
+					PlyCodec.read(new ByteArrayInputStream(stream.toByteArray()), PointCloudWriter.wrap(found));
+
+					assertEquals(saveRgb, found.hasColor());
+					compare(expected, found, saveRgb, saveAsFloat ? UtilEjml.TEST_F32 : UtilEjml.TEST_F64);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The header should specify the same byte order as the data
+	 */
+	@Test void readHeader() throws IOException {
+		PackedPointCloud_F64 cloud = createCloud(10);
+		var stream = new ByteArrayOutputStream();
+		PlyCodec.saveBinary(PointCloudReader.wrap(cloud), ByteOrder.LITTLE_ENDIAN, true, true, stream);
+
+		PlyCodec.Header header = PlyCodec.readHeader(new ByteArrayInputStream(stream.toByteArray()));
+		assertEquals(10, header.vertexCount);
+		assertTrue(header.rgb);
+		assertTrue(header.isBinary());
+		assertEquals(ByteOrder.LITTLE_ENDIAN, header.getByteOrder());
+		assertEquals(4*3 + 3, header.bytesPerVertex);
+	}
+
+	/**
+	 * Input streams are allowed to return fewer bytes than requested
+	 */
+	@Test void read_partialReads() throws IOException {
+		PackedPointCloud_F64 expected = createCloud(5_000);
+		var stream = new ByteArrayOutputStream();
+		PlyCodec.saveBinary(PointCloudReader.wrap(expected), ByteOrder.BIG_ENDIAN, true, false, stream);
+
+		// Only returns up to 7 bytes at a time
+		InputStream input = new ByteArrayInputStream(stream.toByteArray()) {
+			@Override public synchronized int read( byte[] b, int off, int len ) {
+				return super.read(b, off, Math.min(7, len));
+			}
+		};
+
+		var found = new PackedPointCloud_F64();
+		PlyCodec.read(input, PointCloudWriter.wrap(found));
+		compare(expected, found, true, UtilEjml.TEST_F64);
+	}
+
+	@Test void randomAccess() throws IOException {
+		PackedPointCloud_F64 expected = createCloud(1_000);
+
+		File temp = File.createTempFile("temp", ".ply");
+		// Some operating systems won't delete a file while it's memory mapped
+		temp.deleteOnExit();
+		try (var output = new FileOutputStream(temp)) {
+			PlyCodec.saveBinary(PointCloudReader.wrap(expected), ByteOrder.LITTLE_ENDIAN, true, false, output);
+		}
+
+		try (var reader = new PlyRandomAccessReader(temp)) {
+			assertEquals(expected.size(), reader.size());
+			assertTrue(reader.hasColor());
+
+			var found = new Point3D_F64();
+			// Access the points out of order
+			for (int trial = 0; trial < 200; trial++) {
+				int index = rand.nextInt(expected.size());
+				reader.get(index, found);
+				assertEquals(0.0, expected.xyz.getTemp(index).distance(found), UtilEjml.TEST_F64);
+				assertEquals(expected.getRgb(index), reader.getRGB(index));
+			}
+		}
+	}
+
+	/**
+	 * ASCII files can't be randomly accessed
+	 */
+	@Test void randomAccess_ascii() throws IOException {
+		File temp = File.createTempFile("temp", ".ply");
+		try (var output = new FileWriter(temp)) {
+			PlyCodec.saveAscii(PointCloudReader.wrap(createCloud(10)), true, output);
+		}
+
+		assertThrows(IOException.class, () -> new PlyRandomAccessReader(temp));
+
+		// clean up
+		assertTrue(temp.delete());
+	}
+
+	private PackedPointCloud_F64 createCloud( int count ) {
+		var cloud = new PackedPointCloud_F64();
+		cloud.initialize(true, false, false);
+		for (int i = 0; i < count; i++) {
+			cloud.append(rand.nextGaussian(), rand.nextGaussian(), rand.nextGaussian(), rand.nextInt(0xFFFFFF));
+		}
+		return cloud;
+	}
+
+	private void compare( PackedPointCloud_F64 expected, PackedPointCloud_F64 found, boolean rgb, double tol ) {
+		assertEquals(expected.size(), found.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(0.0, expected.xyz.getTemp(i).distance(found.xyz.getTemp(i)), tol);
+			if (rgb)
+				assertEquals(expected.getRgb(i), found.getRgb(i));
+		}
+	}
 }
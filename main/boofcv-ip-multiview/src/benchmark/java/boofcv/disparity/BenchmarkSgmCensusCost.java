@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.disparity;
+
+import boofcv.abst.filter.FilterImageInterface;
+import boofcv.alg.disparity.sgm.cost.SgmCostCensusHamming_U8;
+import boofcv.alg.disparity.sgm.cost.SgmCostHamming;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.alg.transform.census.CensusTransform;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.core.image.border.FactoryImageBorder;
+import boofcv.factory.transform.census.CensusVariants;
+import boofcv.factory.transform.census.FactoryCensusTransform;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU16;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.Planar;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares computing the SGM Census cost in two steps, Census transform then Hamming distance, against
+ * computing both at once. Lives next to the disparity benchmarks since the cost tensor is defined by SGM.
+ * See BenchmarkCensus for the transform by itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class BenchmarkSgmCensusCost {
+	@Param({"true", "false"})
+	public boolean concurrent = false;
+
+	static final int width = 640;
+	static final int height = 480;
+	static final int disparityRange = 64;
+
+	final GrayU8 left = new GrayU8(width, height);
+	final GrayU8 right = new GrayU8(width, height);
+	final GrayS32 censusLeft = new GrayS32(width, height);
+	final GrayS32 censusRight = new GrayS32(width, height);
+	final Planar<GrayU16> costYXD = new Planar<>(GrayU16.class, 1, 1, 1);
+
+	FilterImageInterface<GrayU8, GrayS32> census;
+	SgmCostHamming.S32 hamming = new SgmCostHamming.S32();
+	SgmCostCensusHamming_U8 fused;
+
+	@Setup public void setup() {
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+		var rand = new Random(234234);
+
+		ImageMiscOps.fillUniform(left, rand, 0, 255);
+		ImageMiscOps.fillUniform(right, rand, 0, 255);
+
+		census = FactoryCensusTransform.variant(CensusVariants.BLOCK_5_5, true, GrayU8.class);
+		hamming.configure(0, disparityRange);
+		fused = new SgmCostCensusHamming_U8(CensusTransform.createBlockSamples(2),
+				FactoryImageBorder.single(FactoryCensusTransform.CENSUS_BORDER, GrayU8.class));
+		fused.configure(0, disparityRange);
+	}
+
+	@Benchmark public void Separate() {
+		census.process(left, censusLeft);
+		census.process(right, censusRight);
+		hamming.process(censusLeft, censusRight, costYXD);
+	}
+
+	@Benchmark public void Fused() {
+		fused.process(left, right, costYXD);
+	}
+
+	public static void main( String[] args ) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkSgmCensusCost.class.getSimpleName())
+				.build();
+
+		new Runner(opt).run();
+	}
+}
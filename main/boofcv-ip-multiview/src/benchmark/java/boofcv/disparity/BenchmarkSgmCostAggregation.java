@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.disparity;
+
+import boofcv.alg.disparity.sgm.SgmCostAggregation;
+import boofcv.alg.disparity.sgm.cost.SgmCostHamming;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU16;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.Planar;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares different ways to aggregate the SGM cost. The cost is computed from a Census transform.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class BenchmarkSgmCostAggregation {
+	@Param({"true", "false"})
+	public boolean concurrent = false;
+
+	@Param({"8"})
+	public int paths = 8;
+
+	static final int width = 640;
+	static final int height = 480;
+	static final int disparityRange = 64;
+
+	Planar<GrayU16> costYXD = new Planar<>(GrayU16.class, 1, 1, 1);
+	Planar<GrayU8> compactYXD = new Planar<>(GrayU8.class, 1, 1, 1);
+	short[] costTable;
+
+	SgmCostAggregation aggregation = new SgmCostAggregation();
+	SgmCostAggregation aggregationDirections = new SgmCostAggregation();
+
+	@Setup public void setup() {
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+		var rand = new Random(234234);
+
+		// Census images are random bits
+		var left = new GrayS32(width, height);
+		var right = new GrayS32(width, height);
+		GImageMiscOps.fillUniform(left, rand, 0, Integer.MAX_VALUE - 1);
+		GImageMiscOps.fillUniform(right, rand, 0, Integer.MAX_VALUE - 1);
+
+		var cost = new SgmCostHamming.S32();
+		cost.configure(0, disparityRange);
+		cost.process(left, right, costYXD);
+		cost.processCompact(left, right, compactYXD);
+		costTable = cost.createCostTable();
+
+		aggregation.setPathsConsidered(paths);
+		aggregationDirections.setPathsConsidered(paths);
+		aggregationDirections.setConcurrentDirections(true);
+	}
+
+	// @formatter:off
+	@Benchmark public void Cost16() {aggregation.process(costYXD);}
+	@Benchmark public void Cost8() {aggregation.processCompact(compactYXD, costTable);}
+	@Benchmark public void Cost16_Directions() {aggregationDirections.process(costYXD);}
+	@Benchmark public void Cost8_Directions() {aggregationDirections.processCompact(compactYXD, costTable);}
+	// @formatter:on
+
+	public static void main( String[] args ) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkSgmCostAggregation.class.getSimpleName())
+				.build();
+
+		new Runner(opt).run();
+	}
+}
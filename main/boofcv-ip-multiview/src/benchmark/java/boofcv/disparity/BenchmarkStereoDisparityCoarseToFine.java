@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.disparity;
+
+import boofcv.abst.disparity.StereoDisparity;
+import boofcv.abst.disparity.StereoDisparityCoarseToFine;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.disparity.ConfigDisparityBM;
+import boofcv.factory.disparity.DisparityError;
+import boofcv.factory.disparity.FactoryStereoDisparity;
+import boofcv.struct.image.GrayU8;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares coarse-to-fine disparity against searching the full range when the disparity range is large. Part of
+ * the image has no texture so that the cost of tiles without a valid coarse disparity is included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class BenchmarkStereoDisparityCoarseToFine {
+	@Param({"SAD", "CENSUS"})
+	public DisparityError error = DisparityError.SAD;
+
+	static final int width = 800;
+	static final int height = 600;
+	static final int disparityRange = 160;
+	static final int disparity = 60;
+
+	final GrayU8 left = new GrayU8(width, height);
+	final GrayU8 right = new GrayU8(width, height);
+
+	StereoDisparity<GrayU8, ?> full;
+	StereoDisparityCoarseToFine<GrayU8> coarseToFine;
+
+	@Setup public void setup() {
+		BoofConcurrency.USE_CONCURRENT = false;
+		var rand = new Random(234234);
+
+		// Right image is the left image shifted by a constant disparity
+		ImageMiscOps.fillUniform(left, rand, 0, 255);
+		ImageMiscOps.fillUniform(right, rand, 0, 255);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x + disparity < width; x++) {
+				right.set(x, y, left.get(x + disparity, y));
+			}
+		}
+
+		// A region without texture. The coarse disparity will be invalid inside of it
+		ImageMiscOps.fillRectangle(left, 100, width/2, height/4, width/3, height/3);
+		ImageMiscOps.fillRectangle(right, 100, width/2 - disparity, height/4, width/3, height/3);
+
+		var config = new ConfigDisparityBM();
+		config.errorType = error;
+		config.disparityMin = 0;
+		config.disparityRange = disparityRange;
+		config.regionRadiusX = 3;
+		config.regionRadiusY = 3;
+		config.subpixel = false;
+
+		full = FactoryStereoDisparity.blockMatch(config, GrayU8.class, GrayU8.class);
+		coarseToFine = FactoryStereoDisparity.blockMatchCoarseToFine(config, 4, GrayU8.class);
+	}
+
+	// @formatter:off
+	@Benchmark public void FullRange() {full.process(left, right);}
+	@Benchmark public void CoarseToFine() {coarseToFine.process(left, right);}
+	// @formatter:on
+
+	public static void main( String[] args ) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkStereoDisparityCoarseToFine.class.getSimpleName())
+				.warmupTime(TimeValue.seconds(1))
+				.measurementTime(TimeValue.seconds(1))
+				.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.disparity;
+
+import boofcv.abst.disparity.StereoDisparitySparse;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.disparity.ConfigDisparityBM;
+import boofcv.factory.disparity.DisparityError;
+import boofcv.factory.disparity.FactoryStereoDisparity;
+import boofcv.struct.image.GrayU8;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_F64;
+import org.ddogleg.struct.DogArray_I32;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares computing sparse disparity one pixel at a time against processing all the pixels as a batch
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class BenchmarkStereoDisparitySparse {
+	@Param({"true", "false"})
+	public boolean concurrent = false;
+
+	/** Number of pixels which are processed */
+	@Param({"2000", "20000"})
+	public int count = 2000;
+
+	static final int width = 800;
+	static final int height = 600;
+	static final int min = 0;
+	static final int max = 60;
+	static final int radiusX = 3;
+	static final int radiusY = 3;
+
+	final GrayU8 left = new GrayU8(width, height);
+	final GrayU8 right = new GrayU8(width, height);
+
+	final DogArray_I32 pixels = new DogArray_I32();
+	final DogArray_F64 disparity = new DogArray_F64();
+	final DogArray_B valid = new DogArray_B();
+
+	StereoDisparitySparse<GrayU8> sad;
+	StereoDisparitySparse<GrayU8> census;
+
+	@Setup public void setup() {
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+		var rand = new Random(234234);
+
+		GImageMiscOps.fillUniform(left, rand, 0, 30);
+		GImageMiscOps.fillUniform(right, rand, 0, 30);
+
+		// Randomly selected pixels, like features from a point detector
+		pixels.reset();
+		for (int i = 0; i < count; i++) {
+			pixels.add(rand.nextInt(width));
+			pixels.add(rand.nextInt(height));
+		}
+
+		var config = new ConfigDisparityBM();
+		config.errorType = DisparityError.SAD;
+		config.disparityMin = min;
+		config.disparityRange = max - min + 1;
+		config.regionRadiusX = radiusX;
+		config.regionRadiusY = radiusY;
+		config.subpixel = true;
+		sad = FactoryStereoDisparity.sparseRectifiedBM(config, GrayU8.class);
+		sad.setImages(left, right);
+		config.errorType = DisparityError.CENSUS;
+		census = FactoryStereoDisparity.sparseRectifiedBM(config, GrayU8.class);
+		census.setImages(left, right);
+	}
+
+	/** Processes the pixels one at a time in their original order */
+	void processEach( StereoDisparitySparse<GrayU8> alg ) {
+		for (int i = 0; i < count; i++) {
+			alg.process(pixels.data[i*2], pixels.data[i*2 + 1]);
+		}
+	}
+
+	// @formatter:off
+	@Benchmark public void SAD_Each() {processEach(sad);}
+	@Benchmark public void SAD_Batch() {sad.process(pixels, disparity, valid);}
+	@Benchmark public void Census_Each() {processEach(census);}
+	@Benchmark public void Census_Batch() {census.process(pixels, disparity, valid);}
+	// @formatter:on
+
+	public static void main( String[] args ) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkStereoDisparitySparse.class.getSimpleName())
+				.warmupTime(TimeValue.seconds(1))
+				.measurementTime(TimeValue.seconds(1))
+				.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.abst.disparity;
+
+import boofcv.alg.filter.misc.AverageDownSampleOps;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.core.image.GeneralizedImageOps;
+import boofcv.misc.BoofMiscOps;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.image.ImageType;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import lombok.Getter;
+import org.ddogleg.struct.DogArray_I32;
+
+/**
+ * Reduces the disparity range which is searched by first computing disparity at a lower resolution. The input
+ * images are down sampled and a coarse disparity image is computed. The full resolution image is then broken up
+ * into tiles. Each tile's disparity range is found from the coarse disparity inside the tile plus a margin, and
+ * the fine disparity algorithm only searches that range. If there is no valid coarse disparity inside a tile then
+ * the union of the ranges of tiles within {@link #fallbackRadius} tiles is searched. If none of those tiles have a
+ * valid coarse disparity either then the tile is skipped and marked as invalid. This bounds the cost of tiles
+ * without texture, which would otherwise search the full range.
+ *
+ * The fine algorithm is always run with a minimum disparity of zero. This is done by shifting the right image
+ * by the tile's minimum disparity. Tiles are padded so that the fine algorithm sees the same pixels as it would
+ * when processing the whole image. For efficiency, the tile disparity range is rounded up to a multiple of
+ * {@link #rangeStep} and fine algorithms are cached by range.
+ *
+ * Any dense disparity algorithm can be used for the coarse step, e.g. block matching or SGM. The coarse
+ * algorithm must be configured with a disparity range which has been scaled by {@link #scale}.
+ *
+ * @author Peter Abeles
+ */
+public class StereoDisparityCoarseToFine<T extends ImageGray<T>> implements StereoDisparity<T, GrayF32> {
+	/** Width of square tiles which have their disparity range computed independently */
+	public int tileSize = 32;
+
+	/** Number of disparity values added to each side of the tile's coarse disparity range */
+	public int searchMargin;
+
+	/** The tile's disparity range is rounded up to a multiple of this value */
+	public int rangeStep = 8;
+
+	/** Number of pixels tiles are padded by. Must be large enough to include the fine algorithm's block radius */
+	public int padding;
+
+	/**
+	 * If a tile has no valid coarse disparity then the ranges of tiles up to this many tiles away are used instead.
+	 * If 0 then tiles without a valid coarse disparity are always skipped.
+	 */
+	public int fallbackRadius = 1;
+
+	/** Full resolution disparity range */
+	final int disparityMin, disparityRange;
+
+	/** Ratio of full resolution to coarse resolution image */
+	final @Getter int scale;
+
+	/** Computes disparity for the coarse images */
+	final @Getter StereoDisparity<T, ?> coarse;
+
+	// Creates fine disparity algorithms for a specific range
+	final FineFactory<T> factoryFine;
+	// Fine disparity algorithms for each range
+	final TIntObjectHashMap<StereoDisparity<T, ?>> fineByRange = new TIntObjectHashMap<>();
+
+	// Down sampled images
+	final T coarseLeft, coarseRight;
+	// Copy of the padded tile
+	final T tileLeft, tileRight;
+
+	// Found disparity for the full image
+	final GrayF32 disparity = new GrayF32(1, 1);
+
+	// Disparity range of the current tile
+	int tileMin, tileRange;
+
+	// Number of tiles along each axis
+	int tilesX, tilesY;
+	// Disparity range of each tile found from the coarse disparity, including the margin. Max < min if unknown
+	final DogArray_I32 tilesMin = new DogArray_I32();
+	final DogArray_I32 tilesMax = new DogArray_I32();
+
+	/** Number of tiles in the most recent image which were skipped because their range was unknown */
+	@Getter int totalSkippedTiles;
+
+	/**
+	 * @param disparityMin Minimum disparity at full resolution
+	 * @param disparityRange Disparity range at full resolution
+	 * @param scale Ratio of full resolution to coarse resolution. Must be &ge; 2
+	 * @param coarse Computes disparity at coarse resolution
+	 * @param factoryFine Creates an algorithm to compute disparity at full resolution for a specific range
+	 * @param padding Number of pixels tiles are padded by
+	 */
+	public StereoDisparityCoarseToFine( int disparityMin, int disparityRange, int scale,
+										StereoDisparity<T, ?> coarse, FineFactory<T> factoryFine, int padding ) {
+		BoofMiscOps.checkTrue(scale >= 2, "Scale must be 2 or more");
+		BoofMiscOps.checkTrue(disparityMin >= 0 && disparityRange > 0, "Invalid disparity range");
+		this.disparityMin = disparityMin;
+		this.disparityRange = disparityRange;
+		this.scale = scale;
+		this.coarse = coarse;
+		this.factoryFine = factoryFine;
+		this.padding = padding;
+		this.searchMargin = 2*scale;
+
+		ImageType<T> imageType = coarse.getInputType();
+		coarseLeft = imageType.createImage(1, 1);
+		coarseRight = imageType.createImage(1, 1);
+		tileLeft = imageType.createImage(1, 1);
+		tileRight = imageType.createImage(1, 1);
+	}
+
+	@Override public void process( T imageLeft, T imageRight ) {
+		// Compute the disparity at a lower resolution
+		AverageDownSampleOps.reshapeDown(coarseLeft, imageLeft.width, imageLeft.height, scale);
+		AverageDownSampleOps.reshapeDown(coarseRight, imageLeft.width, imageLeft.height, scale);
+		AverageDownSampleOps.down(imageLeft, scale, coarseLeft);
+		AverageDownSampleOps.down(imageRight, scale, coarseRight);
+		coarse.process(coarseLeft, coarseRight);
+
+		disparity.reshape(imageLeft.width, imageLeft.height);
+		ImageMiscOps.fill(disparity, disparityRange);
+
+		// Find the range of every tile first so that tiles without a range can use their neighbors
+		tilesX = (imageLeft.width + tileSize - 1)/tileSize;
+		tilesY = (imageLeft.height + tileSize - 1)/tileSize;
+		tilesMin.resize(tilesX*tilesY);
+		tilesMax.resize(tilesX*tilesY);
+		for (int ty = 0; ty < tilesY; ty++) {
+			int y0 = ty*tileSize;
+			int y1 = Math.min(imageLeft.height, y0 + tileSize);
+			for (int tx = 0; tx < tilesX; tx++) {
+				int x0 = tx*tileSize;
+				int x1 = Math.min(imageLeft.width, x0 + tileSize);
+				coarseTileRange(x0, y0, x1, y1, ty*tilesX + tx);
+			}
+		}
+
+		totalSkippedTiles = 0;
+		for (int ty = 0; ty < tilesY; ty++) {
+			int y0 = ty*tileSize;
+			int y1 = Math.min(imageLeft.height, y0 + tileSize);
+			for (int tx = 0; tx < tilesX; tx++) {
+				int x0 = tx*tileSize;
+				int x1 = Math.min(imageLeft.width, x0 + tileSize);
+				if (!selectTileRange(tx, ty)) {
+					totalSkippedTiles++;
+					continue;
+				}
+				processTile(imageLeft, imageRight, x0, y0, x1, y1);
+			}
+		}
+	}
+
+	/**
+	 * Selects the disparity range of a tile. If the tile's range is unknown then the union of known ranges
+	 * in nearby tiles is used.
+	 *
+	 * @return true if a range was found or false if the tile should be skipped
+	 */
+	boolean selectTileRange( int tx, int ty ) {
+		int index = ty*tilesX + tx;
+		int foundMin = tilesMin.get(index);
+		int foundMax = tilesMax.get(index);
+
+		if (foundMin > foundMax) {
+			for (int y = Math.max(0, ty - fallbackRadius); y <= Math.min(tilesY - 1, ty + fallbackRadius); y++) {
+				for (int x = Math.max(0, tx - fallbackRadius); x <= Math.min(tilesX - 1, tx + fallbackRadius); x++) {
+					int neighbor = y*tilesX + x;
+					if (tilesMin.get(neighbor) > tilesMax.get(neighbor))
+						continue;
+					foundMin = Math.min(foundMin, tilesMin.get(neighbor));
+					foundMax = Math.max(foundMax, tilesMax.get(neighbor));
+				}
+			}
+			if (foundMin > foundMax)
+				return false;
+		}
+
+		// Round the range up so that fewer fine algorithms need to be created
+		int disparityMax = disparityMin + disparityRange - 1;
+		tileRange = foundMax - foundMin + 1;
+		tileRange = Math.min(disparityRange, ((tileRange + rangeStep - 1)/rangeStep)*rangeStep);
+		tileMin = Math.min(foundMin, disparityMax - tileRange + 1);
+		return true;
+	}
+
+	/**
+	 * Uses the coarse disparity inside the tile, and the coarse pixels around it, to find the tile's disparity
+	 * range. If there is no valid coarse disparity then max will be less than min.
+	 */
+	void coarseTileRange( int x0, int y0, int x1, int y1, int index ) {
+		ImageGray<?> coarseDisparity = coarse.getDisparity();
+		int coarseInvalid = coarse.getInvalidValue();
+		int coarseMin = coarse.getDisparityMin();
+
+		int cx0 = Math.max(0, x0/scale - 1);
+		int cy0 = Math.max(0, y0/scale - 1);
+		int cx1 = Math.min(coarseDisparity.width, (x1 - 1)/scale + 2);
+		int cy1 = Math.min(coarseDisparity.height, (y1 - 1)/scale + 2);
+
+		double foundMin = Double.MAX_VALUE;
+		double foundMax = -Double.MAX_VALUE;
+		for (int y = cy0; y < cy1; y++) {
+			for (int x = cx0; x < cx1; x++) {
+				double value = GeneralizedImageOps.get(coarseDisparity, x, y);
+				if (value >= coarseInvalid)
+					continue;
+				double d = (value + coarseMin)*scale;
+				foundMin = Math.min(foundMin, d);
+				foundMax = Math.max(foundMax, d);
+			}
+		}
+
+		if (foundMin > foundMax) {
+			tilesMin.data[index] = Integer.MAX_VALUE;
+			tilesMax.data[index] = Integer.MIN_VALUE;
+			return;
+		}
+
+		int disparityMax = disparityMin + disparityRange - 1;
+		int tileMax = Math.min(disparityMax, (int)Math.ceil(foundMax) + searchMargin);
+		tilesMin.data[index] = Math.min(tileMax, Math.max(disparityMin, (int)Math.floor(foundMin) - searchMargin));
+		tilesMax.data[index] = tileMax;
+	}
+
+	/**
+	 * Computes the disparity inside the tile using the tile's disparity range
+	 */
+	void processTile( T imageLeft, T imageRight, int x0, int y0, int x1, int y1 ) {
+		// Left image region. Pixels need to be able to see the full disparity range and the block
+		int lx0 = Math.max(tileMin, x0 - tileRange + 1 - padding);
+		int lx1 = Math.min(imageLeft.width, x1 + padding);
+		int ly0 = Math.max(0, y0 - padding);
+		int ly1 = Math.min(imageLeft.height, y1 + padding);
+		if (lx0 >= lx1)
+			return;
+
+		// The right image is shifted by the minimum disparity. This way the fine algorithm's min is always zero
+		tileLeft.setTo(imageLeft.subimage(lx0, ly0, lx1, ly1));
+		tileRight.setTo(imageRight.subimage(lx0 - tileMin, ly0, lx1 - tileMin, ly1));
+
+		StereoDisparity<T, ?> fine = fineByRange.get(tileRange);
+		if (fine == null) {
+			fine = factoryFine.create(tileRange);
+			fineByRange.put(tileRange, fine);
+		}
+		fine.process(tileLeft, tileRight);
+		ImageGray<?> found = fine.getDisparity();
+
+		// Copy the results into the full resolution disparity image
+		int fineInvalid = fine.getInvalidValue();
+		int offset = tileMin - disparityMin;
+		for (int y = y0; y < y1; y++) {
+			for (int x = Math.max(x0, lx0); x < x1; x++) {
+				double value = GeneralizedImageOps.get(found, x - lx0, y - ly0);
+				if (value >= fineInvalid)
+					continue;
+				disparity.unsafe_set(x, y, (float)(value + offset));
+			}
+		}
+	}
+
+	@Override public GrayF32 getDisparity() {return disparity;}
+
+	@Override public int getDisparityMin() {return disparityMin;}
+
+	@Override public int getDisparityRange() {return disparityRange;}
+
+	@Override public int getInvalidValue() {return disparityRange;}
+
+	@Override public int getBorderX() {return 0;}
+
+	@Override public int getBorderY() {return 0;}
+
+	@Override public ImageType<T> getInputType() {return coarse.getInputType();}
+
+	@Override public Class<GrayF32> getDisparityType() {return GrayF32.class;}
+
+	/**
+	 * Creates a disparity algorithm which will be used at full resolution.
+	 */
+	@FunctionalInterface
+	public interface FineFactory<T extends ImageGray<T>> {
+		/**
+		 * @param disparityRange The disparity range. Minimum disparity must be zero.
+		 */
+		StereoDisparity<T, ?> create( int disparityRange );
+	}
+}
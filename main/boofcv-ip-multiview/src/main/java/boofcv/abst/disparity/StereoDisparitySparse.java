@@ -19,6 +19,9 @@
 package boofcv.abst.disparity;
 
 import boofcv.struct.image.ImageGray;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_F64;
+import org.ddogleg.struct.DogArray_I32;
 
 /**
  * <p>
@@ -54,6 +57,26 @@ public interface StereoDisparitySparse<Image extends ImageGray> {
 	 */
 	public boolean process( int x  , int y );
 
+	/**
+	 * Calculates the disparity at every pixel in the list. Results are written to packed arrays with one element
+	 * for each pixel. Implementations can process the pixels in any order or concurrently. The default
+	 * implementation calls {@link #process(int, int)} on each pixel.
+	 *
+	 * @param pixels (Input) Pixel coordinates packed as x and y pairs. Pixel i is at (pixels[2*i], pixels[2*i+1]).
+	 * @param disparity (Output) Disparity at each pixel. If not valid then the value is 0. Resized.
+	 * @param valid (Output) true if a correspondence was found at the pixel. Resized.
+	 */
+	default void process( DogArray_I32 pixels, DogArray_F64 disparity, DogArray_B valid ) {
+		final int N = pixels.size/2;
+		disparity.resize(N);
+		valid.resize(N);
+		for (int i = 0; i < N; i++) {
+			boolean success = process(pixels.data[i*2], pixels.data[i*2 + 1]);
+			valid.data[i] = success;
+			disparity.data[i] = success ? getDisparity() : 0.0;
+		}
+	}
+
 	/**
 	 * The found disparity at the selected point
 	 *
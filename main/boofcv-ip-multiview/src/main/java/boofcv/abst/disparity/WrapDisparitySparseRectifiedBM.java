@@ -20,12 +20,29 @@ package boofcv.abst.disparity;
 
 import boofcv.alg.disparity.block.DisparitySparseSelect;
 import boofcv.alg.disparity.block.score.DisparitySparseRectifiedScoreBM;
+import boofcv.alg.disparity.block.score.DisparitySparseRectifiedScoreRowBM;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
 import boofcv.struct.image.ImageGray;
 import lombok.Getter;
+import lombok.Setter;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_F64;
+import org.ddogleg.struct.DogArray_I32;
+import org.jetbrains.annotations.Nullable;
+import pabeles.concurrency.GrowArray;
+
+import java.util.Objects;
 
 /**
  * Wrapper around {@link DisparitySparseRectifiedScoreBM} for {@link StereoDisparitySparse}
  *
+ * When processing a batch of pixels, the pixels are first ordered by row then by column. If the score function
+ * is a {@link DisparitySparseRectifiedScoreRowBM} then pixels in the same row which are close enough for their
+ * blocks to overlap share column scores, see {@link DisparitySparseRectifiedScoreRowBM#prepareRowLeftToRight}.
+ * If a factory for workers has been specified then the ordered pixels are split into blocks which are processed
+ * concurrently, with each thread having its own worker.
+ *
  * @author Peter Abeles
  */
 public class WrapDisparitySparseRectifiedBM<ArrayData,T extends ImageGray<T>>
@@ -34,9 +51,29 @@ public class WrapDisparitySparseRectifiedBM<ArrayData,T extends ImageGray<T>>
 	@Getter DisparitySparseRectifiedScoreBM<ArrayData,T> computeScore;
 	@Getter DisparitySparseSelect<ArrayData> select;
 
+	/** Creates a new instance with the same configuration for use by another thread. If null then batch is single threaded */
+	@Getter @Setter @Nullable BoofLambdas.Factory<WrapDisparitySparseRectifiedBM<ArrayData, T>> factoryWorker;
+
+	/** If a batch has fewer than this number of pixels it won't be processed concurrently */
+	public int minimumBatchThread = 100;
+
 	// for an insignificant speed boost save this constant as a floating point number
 	double minDisparityFloat;
 
+	// Reference to input images
+	T imageLeft, imageRight;
+
+	// Indexes of pixels in the batch ordered by row then column
+	final DogArray_I32 order = new DogArray_I32();
+	// Indexes of pixels in the batch ordered by column. Used to sort pixels
+	final DogArray_I32 orderColumn = new DogArray_I32();
+	// Number of pixels in each row or column. Used to sort pixels
+	final DogArray_I32 counts = new DogArray_I32();
+
+	// Workers for each thread
+	final GrowArray<WrapDisparitySparseRectifiedBM<ArrayData, T>> workers =
+			new GrowArray<>(() -> Objects.requireNonNull(factoryWorker).newInstance());
+
 	public WrapDisparitySparseRectifiedBM(DisparitySparseRectifiedScoreBM<ArrayData,T> computeScore,
 										  DisparitySparseSelect<ArrayData> select ) {
 		this.computeScore = computeScore;
@@ -47,6 +84,8 @@ public class WrapDisparitySparseRectifiedBM<ArrayData,T extends ImageGray<T>>
 	public void setImages(T imageLeft, T imageRight ) {
 		computeScore.setImages(imageLeft,imageRight);
 		minDisparityFloat = computeScore.getDisparityMin();
+		this.imageLeft = imageLeft;
+		this.imageRight = imageRight;
 	}
 
 	@Override
@@ -59,6 +98,116 @@ public class WrapDisparitySparseRectifiedBM<ArrayData,T extends ImageGray<T>>
 		return select.select(computeScore,x,y);
 	}
 
+	@Override
+	public void process( DogArray_I32 pixels, DogArray_F64 disparity, DogArray_B valid ) {
+		final int N = pixels.size/2;
+		disparity.resize(N);
+		valid.resize(N);
+
+		sortByRow(pixels, N);
+
+		if (factoryWorker == null || !BoofConcurrency.USE_CONCURRENT || N < minimumBatchThread) {
+			processOrdered(this, pixels, 0, N, disparity, valid);
+			return;
+		}
+
+		BoofConcurrency.loopBlocks(0, N, workers, ( worker, idx0, idx1 ) -> {
+			worker.setImages(imageLeft, imageRight);
+			processOrdered(worker, pixels, idx0, idx1, disparity, valid);
+		});
+	}
+
+	/**
+	 * Computes the disparity for pixels in the specified range of the ordered list. Consecutive pixels in the
+	 * same row with overlapping blocks share column scores.
+	 */
+	void processOrdered( WrapDisparitySparseRectifiedBM<ArrayData, T> alg, DogArray_I32 pixels, int idx0, int idx1,
+						 DogArray_F64 disparity, DogArray_B valid ) {
+		final int blockWidth = 2*computeScore.getRadiusX() + 1;
+		// Only score functions which can be broken up into columns can share scores
+		final @Nullable DisparitySparseRectifiedScoreRowBM<ArrayData, T> rowScore =
+				alg.computeScore instanceof DisparitySparseRectifiedScoreRowBM ?
+						(DisparitySparseRectifiedScoreRowBM<ArrayData, T>)alg.computeScore : null;
+
+		int i = idx0;
+		while (i < idx1) {
+			// Find the run of pixels whose blocks are connected to the first pixel's block
+			int y = pixels.data[order.data[i]*2 + 1];
+			int x0 = pixels.data[order.data[i]*2];
+			int x1 = x0;
+			int end = i + 1;
+			while (end < idx1) {
+				int pixelIdx = order.data[end];
+				int x = pixels.data[pixelIdx*2];
+				if (pixels.data[pixelIdx*2 + 1] != y || x - x1 > blockWidth)
+					break;
+				x1 = x;
+				end++;
+			}
+
+			// Only worth computing column scores if they are shared
+			if (rowScore != null && end - i > 1)
+				rowScore.prepareRowLeftToRight(x0, x1 + 1, y);
+
+			for (; i < end; i++) {
+				int pixelIdx = order.data[i];
+				boolean success = alg.process(pixels.data[pixelIdx*2], pixels.data[pixelIdx*2 + 1]);
+				valid.data[pixelIdx] = success;
+				disparity.data[pixelIdx] = success ? alg.getDisparity() : 0.0;
+			}
+		}
+	}
+
+	/**
+	 * Uses a counting sort to order the pixels by their x-coordinate then a stable counting sort to order
+	 * them by their y-coordinate. The result is ordered by row and then column.
+	 */
+	void sortByRow( DogArray_I32 pixels, int N ) {
+		orderColumn.resize(N);
+		order.resize(N);
+		if (N == 0)
+			return;
+
+		// First sort pixels by x-coordinate, from their original order
+		countingSort(pixels, 0, null, orderColumn, N);
+		// Then sort by y-coordinate. Pixels in the same row will be ordered by x-coordinate
+		countingSort(pixels, 1, orderColumn, order, N);
+	}
+
+	/**
+	 * Stable counting sort of the pixels by one of their coordinates
+	 *
+	 * @param axis 0 = x-coordinate, 1 = y-coordinate
+	 * @param input Order pixels are visited in. If null then the original order
+	 * @param output (Output) Sorted order
+	 */
+	void countingSort( DogArray_I32 pixels, int axis, @Nullable DogArray_I32 input, DogArray_I32 output, int N ) {
+		int minValue = Integer.MAX_VALUE;
+		int maxValue = Integer.MIN_VALUE;
+		for (int i = 0; i < N; i++) {
+			int value = pixels.data[i*2 + axis];
+			minValue = Math.min(minValue, value);
+			maxValue = Math.max(maxValue, value);
+		}
+
+		// Find where each value starts in the ordered list
+		counts.resetResize(maxValue - minValue + 1, 0);
+		for (int i = 0; i < N; i++) {
+			counts.data[pixels.data[i*2 + axis] - minValue]++;
+		}
+		int total = 0;
+		for (int bin = 0; bin < counts.size; bin++) {
+			int count = counts.data[bin];
+			counts.data[bin] = total;
+			total += count;
+		}
+
+		for (int i = 0; i < N; i++) {
+			int pixelIdx = input == null ? i : input.data[i];
+			output.data[counts.data[pixels.data[pixelIdx*2 + axis] - minValue]++] = pixelIdx;
+		}
+	}
+
 	@Override
 	public int getBorderX() {
 		return computeScore.getRadiusX();
@@ -47,6 +47,9 @@ public interface SparseScoreRectifiedCensus {
 		// census transform applied to left and right image patches
 		Out censusLeft, censusRight;
 
+		// census transform applied to left and right image strips
+		Out censusStripLeft, censusStripRight;
+
 		protected Census( int radiusX, int radiusY, FilterCensusTransform<In, Out> censusTran, Class<In> imageType ) {
 			super(radiusX, radiusY, imageType);
 			this.censusTran = censusTran;
@@ -54,6 +57,8 @@ public interface SparseScoreRectifiedCensus {
 
 			censusLeft = censusTran.getOutputType().createImage(1, 1);
 			censusRight = censusTran.getOutputType().createImage(1, 1);
+			censusStripLeft = censusTran.getOutputType().createImage(1, 1);
+			censusStripRight = censusTran.getOutputType().createImage(1, 1);
 		}
 
 		@Override
@@ -73,6 +78,18 @@ public interface SparseScoreRectifiedCensus {
 			scoreCensus(disparityRange, leftToRight);
 		}
 
+		@Override
+		protected void scoreColumns( int numColumns, int offsetCompare ) {
+			censusStripLeft.reshape(stripTemplate);
+			censusStripRight.reshape(stripCompare);
+
+			// NOTE: the borders do not need to be processed
+			censusTran.process(stripTemplate, censusStripLeft);
+			censusTran.process(stripCompare, censusStripRight);
+
+			super.scoreColumns(numColumns, offsetCompare);
+		}
+
 		protected abstract void scoreCensus( int disparityRange, final boolean leftToRight );
 	}
 
@@ -106,6 +123,25 @@ public interface SparseScoreRectifiedCensus {
 				scores[index] = total;
 			}
 		}
+
+		@Override
+		protected void scoreColumn( int columnTemplate, int columnCompare, int localRange, int indexOut ) {
+			final byte[] dataLeft = censusStripLeft.data;
+			final byte[] dataRight = censusStripRight.data;
+			for (int i = 0; i < localRange; i++) {
+				int total = 0;
+				int idxLeft = sampleRadiusY*censusStripLeft.stride + sampleRadiusX + columnTemplate;
+				int idxRight = sampleRadiusY*censusStripRight.stride + sampleRadiusX + columnCompare - i;
+				for (int y = 0; y < blockHeight; y++) {
+					final int a = dataLeft[idxLeft] & 0xFF;
+					final int b = dataRight[idxRight] & 0xFF;
+					total += DescriptorDistance.hamming(a ^ b);
+					idxLeft += censusStripLeft.stride;
+					idxRight += censusStripRight.stride;
+				}
+				columnScores[indexOut + i] = total;
+			}
+		}
 	}
 
 	/**
@@ -138,6 +174,25 @@ public interface SparseScoreRectifiedCensus {
 				scores[index] = total;
 			}
 		}
+
+		@Override
+		protected void scoreColumn( int columnTemplate, int columnCompare, int localRange, int indexOut ) {
+			final int[] dataLeft = censusStripLeft.data;
+			final int[] dataRight = censusStripRight.data;
+			for (int i = 0; i < localRange; i++) {
+				int total = 0;
+				int idxLeft = sampleRadiusY*censusStripLeft.stride + sampleRadiusX + columnTemplate;
+				int idxRight = sampleRadiusY*censusStripRight.stride + sampleRadiusX + columnCompare - i;
+				for (int y = 0; y < blockHeight; y++) {
+					final int a = dataLeft[idxLeft];
+					final int b = dataRight[idxRight];
+					total += DescriptorDistance.hamming(a ^ b);
+					idxLeft += censusStripLeft.stride;
+					idxRight += censusStripRight.stride;
+				}
+				columnScores[indexOut + i] = total;
+			}
+		}
 	}
 
 	/**
@@ -170,5 +225,24 @@ public interface SparseScoreRectifiedCensus {
 				scores[index] = total;
 			}
 		}
+
+		@Override
+		protected void scoreColumn( int columnTemplate, int columnCompare, int localRange, int indexOut ) {
+			final long[] dataLeft = censusStripLeft.data;
+			final long[] dataRight = censusStripRight.data;
+			for (int i = 0; i < localRange; i++) {
+				int total = 0;
+				int idxLeft = sampleRadiusY*censusStripLeft.stride + sampleRadiusX + columnTemplate;
+				int idxRight = sampleRadiusY*censusStripRight.stride + sampleRadiusX + columnCompare - i;
+				for (int y = 0; y < blockHeight; y++) {
+					final long a = dataLeft[idxLeft];
+					final long b = dataRight[idxRight];
+					total += DescriptorDistance.hamming(a ^ b);
+					idxLeft += censusStripLeft.stride;
+					idxRight += censusStripRight.stride;
+				}
+				columnScores[indexOut + i] = total;
+			}
+		}
 	}
 }
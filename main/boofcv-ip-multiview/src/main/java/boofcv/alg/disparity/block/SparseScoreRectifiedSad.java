@@ -80,6 +80,23 @@ public interface SparseScoreRectifiedSad {
 				scores[index] = total;
 			}
 		}
+
+		@Override
+		protected void scoreColumn( int columnTemplate, int columnCompare, int localRange, int indexOut ) {
+			final byte[] dataTemplate = stripTemplate.data;
+			final byte[] dataCompare = stripCompare.data;
+			for (int i = 0; i < localRange; i++) {
+				int total = 0;
+				int idxTemplate = columnTemplate;
+				int idxCompare = columnCompare - i;
+				for (int y = 0; y < blockHeight; y++) {
+					total += Math.abs((dataTemplate[idxTemplate] & 0xFF) - (dataCompare[idxCompare] & 0xFF));
+					idxTemplate += stripTemplate.stride;
+					idxCompare += stripCompare.stride;
+				}
+				columnScores[indexOut + i] = total;
+			}
+		}
 	}
 
 	class U16 extends DisparitySparseRectifiedScoreBM_S32<GrayU16> {
@@ -106,6 +123,23 @@ public interface SparseScoreRectifiedSad {
 				scores[index] = total;
 			}
 		}
+
+		@Override
+		protected void scoreColumn( int columnTemplate, int columnCompare, int localRange, int indexOut ) {
+			final short[] dataTemplate = stripTemplate.data;
+			final short[] dataCompare = stripCompare.data;
+			for (int i = 0; i < localRange; i++) {
+				int total = 0;
+				int idxTemplate = columnTemplate;
+				int idxCompare = columnCompare - i;
+				for (int y = 0; y < blockHeight; y++) {
+					total += Math.abs((dataTemplate[idxTemplate] & 0xFFFF) - (dataCompare[idxCompare] & 0xFFFF));
+					idxTemplate += stripTemplate.stride;
+					idxCompare += stripCompare.stride;
+				}
+				columnScores[indexOut + i] = total;
+			}
+		}
 	}
 
 	class S16 extends DisparitySparseRectifiedScoreBM_S32<GrayS16> {
@@ -132,5 +166,22 @@ public interface SparseScoreRectifiedSad {
 				scores[index] = total;
 			}
 		}
+
+		@Override
+		protected void scoreColumn( int columnTemplate, int columnCompare, int localRange, int indexOut ) {
+			final short[] dataTemplate = stripTemplate.data;
+			final short[] dataCompare = stripCompare.data;
+			for (int i = 0; i < localRange; i++) {
+				int total = 0;
+				int idxTemplate = columnTemplate;
+				int idxCompare = columnCompare - i;
+				for (int y = 0; y < blockHeight; y++) {
+					total += Math.abs((dataTemplate[idxTemplate] & 0xFFFF) - (dataCompare[idxCompare] & 0xFFFF));
+					idxTemplate += stripTemplate.stride;
+					idxCompare += stripCompare.stride;
+				}
+				columnScores[indexOut + i] = total;
+			}
+		}
 	}
 }
@@ -23,18 +23,21 @@ import lombok.Getter;
 
 /**
  * <p>
- * Implementation of {@link DisparitySparseRectifiedScoreBM} that processes integer typed images.
+ * Implementation of {@link DisparitySparseRectifiedScoreRowBM} that processes integer typed images.
  * </p>
  *
  * @author Peter Abeles
  */
 @SuppressWarnings({"MissingOverride"})
 public abstract class DisparitySparseRectifiedScoreBM_S32<T extends ImageGray<T>>
-		extends DisparitySparseRectifiedScoreBM<int[], T> {
+		extends DisparitySparseRectifiedScoreRowBM<int[], T> {
 	// Fit scores as a function of disparity. scores[0] = score at disparity of disparityMin
 	@Getter protected int[] scoreLtoR; // left to right
 	@Getter protected int[] scoreRtoL; // right to left
 
+	// Score of each column in a row for every disparity. columnScores[column*disparityRange + i]
+	protected int[] columnScores = new int[0];
+
 	protected DisparitySparseRectifiedScoreBM_S32( int radiusX, int radiusY, Class<T> imageType ) {
 		super(radiusX, radiusY, imageType);
 	}
@@ -45,4 +48,42 @@ public abstract class DisparitySparseRectifiedScoreBM_S32<T extends ImageGray<T>
 		scoreLtoR = new int[disparityRange];
 		scoreRtoL = new int[disparityRange];
 	}
+
+	@Override
+	protected void scoreColumns( int numColumns, int offsetCompare ) {
+		if (columnScores.length < numColumns*disparityRange)
+			columnScores = new int[numColumns*disparityRange];
+
+		for (int column = 0; column < numColumns; column++) {
+			// Compare column can't be before the start of the strip
+			int localRange = Math.min(disparityRange, column + offsetCompare + 1);
+			scoreColumn(column, column + offsetCompare, localRange, column*disparityRange);
+		}
+	}
+
+	/**
+	 * Computes the score for a single column in the template strip against columns in the compare strip
+	 *
+	 * @param columnTemplate Column in the template strip, not including the sample region
+	 * @param columnCompare Column in the compare strip at disparity index 0, not including the sample region
+	 * @param localRange Number of disparities to score
+	 * @param indexOut Index in {@link #columnScores} where the score at disparity index 0 is written to
+	 */
+	protected abstract void scoreColumn( int columnTemplate, int columnCompare, int localRange, int indexOut );
+
+	@Override
+	protected void sumColumnScores( int column0, int localRange ) {
+		final int[] scores = scoreLtoR;
+		final int[] columnScores = this.columnScores;
+		int index = column0*disparityRange;
+		for (int i = 0; i < localRange; i++) {
+			scores[i] = columnScores[index + i];
+		}
+		for (int column = 1; column < blockWidth; column++) {
+			index += disparityRange;
+			for (int i = 0; i < localRange; i++) {
+				scores[i] += columnScores[index + i];
+			}
+		}
+	}
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.disparity.block.score;
+
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.core.image.GeneralizedImageOps;
+import boofcv.struct.border.ImageBorder;
+import boofcv.struct.image.ImageGray;
+
+/**
+ * Extension of {@link DisparitySparseRectifiedScoreBM} for score functions which can be broken up into the
+ * sum of independent column scores. Pixels in the same row which are close to each other have blocks which overlap.
+ * {@link #prepareRowLeftToRight} computes the score of every column in the overlapping blocks once,
+ * then the score for each pixel is found by summing the column scores inside its block.
+ *
+ * @author Peter Abeles
+ */
+public abstract class DisparitySparseRectifiedScoreRowBM<ArrayData, Input extends ImageGray<Input>>
+		extends DisparitySparseRectifiedScoreBM<ArrayData, Input> {
+	// Copies of the rows in the left and right images that are needed to compute column scores
+	protected final Input stripTemplate;
+	protected final Input stripCompare;
+
+	// The row which column scores have been computed for. -1 if there are no column scores
+	protected int columnsY = -1;
+	// Pixels in the left image with x-coordinates from columnsX0 to columnsX1-1 can use the column scores
+	protected int columnsX0, columnsX1;
+	// x-coordinate in the left image of the first column score
+	protected int columnsOffset;
+
+	protected DisparitySparseRectifiedScoreRowBM( int radiusX, int radiusY, Class<Input> inputType ) {
+		super(radiusX, radiusY, inputType);
+		stripTemplate = GeneralizedImageOps.createSingleBand(inputType, 1, 1);
+		stripCompare = GeneralizedImageOps.createSingleBand(inputType, 1, 1);
+	}
+
+	@Override
+	public void setBorder( ImageBorder<Input> border ) {
+		super.setBorder(border);
+		this.columnsY = -1;
+	}
+
+	@Override
+	public void configure( int disparityMin, int disparityRange ) {
+		super.configure(disparityMin, disparityRange);
+		this.columnsY = -1;
+	}
+
+	@Override
+	public void setImages( Input left, Input right ) {
+		super.setImages(left, right);
+		this.columnsY = -1;
+	}
+
+	/**
+	 * Same as {@link DisparitySparseRectifiedScoreBM#processLeftToRight} but if column scores have been computed
+	 * for this pixel then they are summed instead of scoring the entire block.
+	 */
+	@Override
+	public boolean processLeftToRight( int x, int y ) {
+		if (y != columnsY || x < columnsX0 || x >= columnsX1)
+			return super.processLeftToRight(x, y);
+
+		// adjust disparity range for image border
+		localRangeLtoR = Math.min(x, disparityMax) - disparityMin + 1;
+		sumColumnScores(x - radiusX - columnsOffset, localRangeLtoR);
+		return true;
+	}
+
+	/**
+	 * Computes column scores in the left to right direction which are shared by pixels in row 'y' with
+	 * x-coordinates from x0 to x1-1. After this has been called, {@link #processLeftToRight} will sum the
+	 * column scores for these pixels instead of scoring their entire block. The results are identical.
+	 * The column scores are discarded when a different row is prepared or the images are changed.
+	 *
+	 * @param x0 First x-coordinate of pixels in the row, inclusive
+	 * @param x1 Last x-coordinate of pixels in the row, exclusive
+	 * @param y y-coordinate of the row
+	 * @return true if column scores were computed
+	 */
+	public boolean prepareRowLeftToRight( int x0, int x1, int y ) {
+		columnsY = -1;
+
+		// disparity can't be estimated for pixels before the min disparity
+		x0 = Math.max(x0, disparityMin);
+		if (x0 >= x1)
+			return false;
+
+		// Columns in the left image which are inside of a block
+		int colX0 = x0 - radiusX;
+		int colX1 = x1 + radiusX;
+
+		// Columns in the right image that will be compared against. A block never starts before -radiusX
+		// because the local disparity range is adjusted for the image border
+		int rightX0 = Math.max(colX0 - disparityMax, -radiusX);
+		int rightX1 = colX1 - disparityMin;
+
+		copyStrip(colX0, colX1, y, left, stripTemplate);
+		copyStrip(rightX0, rightX1, y, right, stripCompare);
+		scoreColumns(colX1 - colX0, colX0 - disparityMin - rightX0);
+
+		columnsY = y;
+		columnsX0 = x0;
+		columnsX1 = x1;
+		columnsOffset = colX0;
+		return true;
+	}
+
+	/**
+	 * Copies the rows around 'y' for columns x0 to x1-1, plus the sample region, from the image into the strip
+	 */
+	protected final void copyStrip( int x0, int x1, int y, Input src, Input dst ) {
+		int px0 = x0 - sampleRadiusX;
+		int py0 = y - radiusY - sampleRadiusY;
+		int px1 = x1 + sampleRadiusX;
+		int py1 = y + radiusY + sampleRadiusY + 1;
+
+		dst.reshape(px1 - px0, py1 - py0);
+		GImageMiscOps.copy(px0, py0, 0, 0, px1 - px0, py1 - py0, src, border, dst);
+	}
+
+	/**
+	 * Computes the score of each column in {@link #stripTemplate} for every disparity using {@link #stripCompare}.
+	 * Column 'c' in the template is compared against column 'c + offsetCompare - i' in compare at disparity
+	 * index 'i'. Only disparity indexes where that column is inside the compare strip need to be scored.
+	 *
+	 * @param numColumns Number of columns in the template strip, not including the sample region
+	 * @param offsetCompare Offset from a template column to the compare column at a disparity index of zero
+	 */
+	protected abstract void scoreColumns( int numColumns, int offsetCompare );
+
+	/**
+	 * Sums the column scores inside the block and saves the results in the left to right score array
+	 *
+	 * @param column0 Index of the first column score in the block
+	 * @param localRange The local disparity range
+	 */
+	protected abstract void sumColumnScores( int column0, int localRange );
+}
@@ -21,8 +21,10 @@ package boofcv.alg.disparity.sgm;
 import boofcv.alg.misc.GImageMiscOps;
 import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.image.GrayU16;
+import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.Planar;
 import org.ddogleg.struct.DogArray;
+import org.jetbrains.annotations.Nullable;
 import pabeles.concurrency.GrowArray;
 import pabeles.concurrency.IntRangeObjectConsumer;
 
@@ -49,6 +51,16 @@ import pabeles.concurrency.IntRangeObjectConsumer;
  * type-o in it because their formula doesn't have the stated properties. A simple modification prevents the cost
  * variables from overflowing.</p>
  *
+ * <p>By default directions are scored one after another and paths inside a direction are scored in parallel.
+ * If {@link #setConcurrentDirections concurrentDirections} is true then paths from all directions are scored at
+ * the same time. Each thread adds its paths into a private copy of the aggregated tensor and the copies are summed
+ * at the end. This reduces the number of times threads need to synchronize but requires one aggregated tensor
+ * for each thread. The results are identical.</p>
+ *
+ * <p>The cost can also be provided as a compact 8-bit tensor and a look up table that converts each value into
+ * the actual cost, see {@link #processCompact}. This halves the memory which needs to be read when the
+ * number of possible costs is small, e.g. Hamming distance from a Census transform.</p>
+ *
  * <p>[1] Hirschmuller, Heiko. "Stereo processing by semiglobal matching and mutual information."
  * IEEE Transactions on pattern analysis and machine intelligence 30.2 (2007): 328-341.</p>
  *
@@ -73,6 +85,9 @@ public class SgmCostAggregation {
 	Planar<GrayU16> aggregated = new Planar<>(GrayU16.class, 1, 1, 2);
 
 	Planar<GrayU16> costYXD;
+	// Compact cost tensor and the table which converts its values into a cost. If null then costYXD is used
+	@Nullable Planar<GrayU8> costCompactYXD;
+	short[] costTable = new short[0];
 	// Length of original image. x = col, y = rows, d = disparity range
 	int lengthX, lengthY, lengthD;
 	// If disparityMin > 0 then the first disparityMin x elements have no score and are skipped
@@ -88,6 +103,9 @@ public class SgmCostAggregation {
 	// Cost applied to small and large changes in the neighborhood
 	int penalty1 = 200, penalty2 = 2000;
 
+	// If true then all directions are scored at the same time with each thread having its own aggregated cost
+	boolean concurrentDirections = false;
+
 	// Book keeping for concurrency
 	DogArray<Trajectory> trajectories = new DogArray<>(Trajectory.class, Trajectory::new);
 	GrowArray<WorkSpace> workspace = new GrowArray<>(WorkSpace::new);
@@ -111,48 +129,83 @@ public class SgmCostAggregation {
 	 */
 	public void process( Planar<GrayU16> costYXD ) {
 		init(costYXD);
+		aggregateAllDirections();
+	}
 
-		if (pathsConsidered >= 1) {
-			scoreDirection(1, 0);
-		}
-		if (pathsConsidered >= 2) {
-			scoreDirection(-1, 0);
-		}
-		if (pathsConsidered >= 4) {
-			scoreDirection(0, 1);
-			scoreDirection(0, -1);
-		}
-		if (pathsConsidered >= 8) {
-			scoreDirection(1, 1);
-			scoreDirection(-1, -1);
-			scoreDirection(-1, 1);
-			scoreDirection(1, -1);
+	/**
+	 * Aggregates the cost when it's been encoded in a compact 8-bit tensor. Each element in the tensor is
+	 * converted into a cost using the look up table. The tensor has the same shape as in
+	 * {@link #process(Planar)} and results are identical to calling that function with the decoded cost.
+	 *
+	 * @param costYXD Encoded cost for all possible combinations of x,y,d in input image.
+	 * @param costTable Look up table that converts an encoded value into a cost. Must have 256 elements.
+	 */
+	public void processCompact( Planar<GrayU8> costYXD, short[] costTable ) {
+		if (costTable.length != 256)
+			throw new IllegalArgumentException("Cost table must have 256 elements");
+		initCompact(costYXD, costTable);
+		aggregateAllDirections();
+	}
+
+	/**
+	 * Scores all the directions specified by the number of paths
+	 */
+	void aggregateAllDirections() {
+		int numDirections = selectNumberOfDirections();
+
+		if (concurrentDirections && BoofConcurrency.USE_CONCURRENT) {
+			scoreDirectionsConcurrent(numDirections);
+			return;
 		}
-		if (pathsConsidered >= 16) {
-			scoreDirection(1, 2);
-			scoreDirection(2, 1);
-			scoreDirection(2, -1);
-			scoreDirection(1, -2);
-			scoreDirection(-1, -2);
-			scoreDirection(-2, -1);
-			scoreDirection(-2, 1);
-			scoreDirection(-1, 2);
+
+		for (int i = 0; i < numDirections; i++) {
+			scoreDirection(DIRECTIONS[i][0], DIRECTIONS[i][1]);
 		}
 	}
 
+	/**
+	 * Number of directions that are scored given the number of paths considered
+	 */
+	int selectNumberOfDirections() {
+		if (pathsConsidered >= 16)
+			return 16;
+		else if (pathsConsidered >= 8)
+			return 8;
+		else if (pathsConsidered >= 4)
+			return 4;
+		else if (pathsConsidered >= 2)
+			return 2;
+		else
+			return 1;
+	}
+
 	/**
 	 * Initializes data structures
 	 */
 	void init( Planar<GrayU16> costYXD ) {
+		this.costYXD = costYXD;
+		this.costCompactYXD = null;
+		initShape(costYXD.getWidth(), costYXD.getHeight(), costYXD.getNumBands());
+	}
+
+	/**
+	 * Initializes data structures for when the compact cost tensor is used
+	 */
+	void initCompact( Planar<GrayU8> costYXD, short[] costTable ) {
+		this.costCompactYXD = costYXD;
+		this.costTable = costTable;
+		initShape(costYXD.getWidth(), costYXD.getHeight(), costYXD.getNumBands());
+	}
+
+	private void initShape( int lengthD, int lengthX, int lengthY ) {
 		if (pathsConsidered < 1 || pathsConsidered > 16)
 			throw new IllegalArgumentException("Number of paths must be 1 to 16, inclusive. Not " + pathsConsidered);
-		this.costYXD = costYXD;
-		aggregated.reshape(costYXD);
+		aggregated.reshape(lengthD, lengthX, lengthY);
 		GImageMiscOps.fill(aggregated, 0);
 
-		this.lengthX = costYXD.getHeight();
-		this.lengthD = costYXD.getWidth();
-		this.lengthY = costYXD.getNumBands();
+		this.lengthX = lengthX;
+		this.lengthD = lengthD;
+		this.lengthY = lengthY;
 		this.effectiveLengthX = this.lengthX - disparityMin;
 
 		helper.configure(lengthX, disparityMin, lengthD);
@@ -169,6 +222,60 @@ public class SgmCostAggregation {
 
 		// Create a list of paths it will score
 		trajectories.reset();
+		addTrajectories(dx, dy);
+
+		if (BoofConcurrency.USE_CONCURRENT) {
+			BoofConcurrency.loopBlocks(0, trajectories.size, 1, workspace, computeBlock);
+		} else {
+			WorkSpace w = workspace.get(0);
+			w.checkSize();
+			for (int i = 0; i < trajectories.size; i++) {
+				Trajectory t = trajectories.get(i);
+				scorePath(t.x0, t.y0, t.dx, t.dy, w.workCostLr);
+			}
+		}
+	}
+
+	/**
+	 * Scores paths from all the directions at once. Two paths from different directions can touch the same
+	 * pixel so each thread adds to its own copy of the aggregated cost. Once all paths have been scored
+	 * the copies are summed up. Since addition is exact the order they are summed in doesn't matter.
+	 */
+	void scoreDirectionsConcurrent( int numDirections ) {
+		trajectories.reset();
+		for (int i = 0; i < numDirections; i++) {
+			addTrajectories(DIRECTIONS[i][0], DIRECTIONS[i][1]);
+		}
+
+		BoofConcurrency.loopBlocks(0, trajectories.size, 1, workspace, ( w, idx0, idx1 ) -> {
+			w.checkSize();
+			w.aggregated.reshape(lengthD, lengthX, lengthY);
+			GImageMiscOps.fill(w.aggregated, 0);
+
+			for (int i = idx0; i < idx1; i++) {
+				Trajectory t = trajectories.get(i);
+				scorePath(t.x0, t.y0, t.dx, t.dy, w.workCostLr, w.aggregated);
+			}
+		});
+
+		// Sum up the results from each thread. Each thread is assigned a different set of bands
+		final int numWorkspaces = workspace.size();
+		final int lengthXD = lengthX*lengthD;
+		BoofConcurrency.loopFor(0, lengthY, y -> {
+			final short[] dst = aggregated.getBand(y).data;
+			for (int workIdx = 0; workIdx < numWorkspaces; workIdx++) {
+				final short[] src = workspace.get(workIdx).aggregated.getBand(y).data;
+				for (int i = 0; i < lengthXD; i++) {
+					dst[i] = (short)((dst[i] & 0xFFFF) + (src[i] & 0xFFFF));
+				}
+			}
+		});
+	}
+
+	/**
+	 * Adds all the paths for the specified direction to the list of trajectories
+	 */
+	void addTrajectories( int dx, int dy ) {
 		if (dx > 0) {
 			for (int y = 0; y < lengthY; y++) {
 				trajectories.grow().set(0, y, dx, dy);
@@ -193,17 +300,6 @@ public class SgmCostAggregation {
 				trajectories.grow().set(x, lengthY - 1, dx, dy);
 			}
 		}
-
-		if (BoofConcurrency.USE_CONCURRENT) {
-			BoofConcurrency.loopBlocks(0, trajectories.size, 1, workspace, computeBlock);
-		} else {
-			WorkSpace w = workspace.get(0);
-			w.checkSize();
-			for (int i = 0; i < trajectories.size; i++) {
-				Trajectory t = trajectories.get(i);
-				scorePath(t.x0, t.y0, t.dx, t.dy, w.workCostLr);
-			}
-		}
 	}
 
 	private class ComputeBlock implements IntRangeObjectConsumer<WorkSpace> {
@@ -235,17 +331,36 @@ public class SgmCostAggregation {
 	 * @param dy step y-axis
 	 */
 	void scorePath( int x0, int y0, int dx, int dy, short[] workCostLr ) {
+		scorePath(x0, y0, dx, dy, workCostLr, aggregated);
+	}
+
+	/**
+	 * Same as {@link #scorePath(int, int, int, int, short[])} but the path's cost is added to the specified
+	 * aggregated cost tensor.
+	 */
+	void scorePath( int x0, int y0, int dx, int dy, short[] workCostLr, Planar<GrayU16> aggregated ) {
+		final Planar<GrayU8> costCompactYXD = this.costCompactYXD;
 
 		// there is no previous disparity score so simply fill the cost for d=0
 		{
 			int minCost = Integer.MAX_VALUE;
-			final GrayU16 costXD = costYXD.getBand(y0);
-			final int idxCost = costXD.getIndex(0, x0);   // C(0,0)
 			final int localRangeD = helper.localDisparityRangeLeft(x0 + disparityMin);
-			for (int d = 0; d < localRangeD; d++) {
-				int v = costXD.data[idxCost + d] & 0xFFFF; // Lr(0,d) = C(0,d)
-				workCostLr[d] = (short)v;
-				minCost = Math.min(minCost, v);
+			if (costCompactYXD == null) {
+				final GrayU16 costXD = costYXD.getBand(y0);
+				final int idxCost = costXD.getIndex(0, x0);   // C(0,0)
+				for (int d = 0; d < localRangeD; d++) {
+					int v = costXD.data[idxCost + d] & 0xFFFF; // Lr(0,d) = C(0,d)
+					workCostLr[d] = (short)v;
+					minCost = Math.min(minCost, v);
+				}
+			} else {
+				final GrayU8 costXD = costCompactYXD.getBand(y0);
+				final int idxCost = costXD.getIndex(0, x0);   // C(0,0)
+				for (int d = 0; d < localRangeD; d++) {
+					int v = costTable[costXD.data[idxCost + d] & 0xFF] & 0xFFFF; // Lr(0,d) = C(0,d)
+					workCostLr[d] = (short)v;
+					minCost = Math.min(minCost, v);
+				}
 			}
 			// The modified equation 13. Cost Equation 12 - min[k] Lr(p,k)
 			for (int d = 0; d < localRangeD; d++) {
@@ -263,21 +378,34 @@ public class SgmCostAggregation {
 		// Compute the cost of rest of the path recursively
 		int lengthPath = computePathLength(x0, y0, dx, dy);
 		for (int i = 1, x = x0 + dx, y = y0 + dy; i < lengthPath; i++, x += dx, y += dy) {
-			// Index of cost for C(y,p0+i,0)
-			final GrayU16 costXD = costYXD.getBand(y);
-			final int idxCost = costXD.getIndex(0, x);
 			// remember x=0 is really x+disparityMin because the first elements are skipped
 			final int localRangeD = helper.localDisparityRangeLeft(x + disparityMin);
 
 			// Index for the previous cost in this path
 			int idxLrPrev = (i - 1)*lengthD;
 
-			// Score the inner portion of disparity first to avoid bounds checks
-			computeCostInnerD(costXD.data, idxCost, idxLrPrev, localRangeD, workCostLr);
+			if (costCompactYXD == null) {
+				// Index of cost for C(y,p0+i,0)
+				final GrayU16 costXD = costYXD.getBand(y);
+				final int idxCost = costXD.getIndex(0, x);
+
+				// Score the inner portion of disparity first to avoid bounds checks
+				computeCostInnerD(costXD.data, idxCost, idxLrPrev, localRangeD, workCostLr);
+
+				// Now handle the borders at d=0 and d=N-1
+				computeCostBorderD(idxCost, idxLrPrev, 0, costXD, localRangeD, workCostLr);
+				computeCostBorderD(idxCost, idxLrPrev, localRangeD - 1, costXD, localRangeD, workCostLr);
+			} else {
+				final GrayU8 costXD = costCompactYXD.getBand(y);
+				final int idxCost = costXD.getIndex(0, x);
+
+				computeCostInnerD(costXD.data, costTable, idxCost, idxLrPrev, localRangeD, workCostLr);
 
-			// Now handle the borders at d=0 and d=N-1
-			computeCostBorderD(idxCost, idxLrPrev, 0, costXD, localRangeD, workCostLr);
-			computeCostBorderD(idxCost, idxLrPrev, localRangeD - 1, costXD, localRangeD, workCostLr);
+				int costFirst = costTable[costXD.data[idxCost] & 0xFF] & 0xFFFF;
+				int costLast = costTable[costXD.data[idxCost + localRangeD - 1] & 0xFF] & 0xFFFF;
+				computeCostBorderD(costFirst, idxLrPrev, 0, localRangeD, workCostLr);
+				computeCostBorderD(costLast, idxLrPrev, localRangeD - 1, localRangeD, workCostLr);
+			}
 
 			// see comments above for what's going on here
 			if (localRangeD != helper.disparityRange) {
@@ -295,13 +423,18 @@ public class SgmCostAggregation {
 			}
 		}
 
-		saveWorkToAggregated(x0, y0, dx, dy, lengthPath, workCostLr);
+		saveWorkToAggregated(x0, y0, dx, dy, lengthPath, workCostLr, aggregated);
 	}
 
 	/**
 	 * Adds the work LR onto the aggregated cost Tensor, which is the sum of all paths
 	 */
 	void saveWorkToAggregated( int x0, int y0, int dx, int dy, int length, short[] workCostLr ) {
+		saveWorkToAggregated(x0, y0, dx, dy, length, workCostLr, aggregated);
+	}
+
+	void saveWorkToAggregated( int x0, int y0, int dx, int dy, int length, short[] workCostLr,
+							   Planar<GrayU16> aggregated ) {
 		for (int i = 0, x = x0, y = y0; i < length; i++, x += dx, y += dy) {
 			final int localLengthD = helper.localDisparityRangeLeft(x + disparityMin);
 			GrayU16 aggrXD = aggregated.getBand(y);
@@ -366,6 +499,44 @@ public class SgmCostAggregation {
 		}
 	}
 
+	/**
+	 * Variant of {@link #computeCostInnerD(short[], int, int, int, short[])} for the compact cost tensor. The cost
+	 * is found by looking up the encoded value in the table.
+	 */
+	void computeCostInnerD( final byte[] costXD, final short[] costTable, final int idxCost, int idxLrPrev,
+							final int lengthLocalD, final short[] workCostLr ) {
+		final int nextRow = this.lengthD - 1; // idxLrPrev is +1
+		final int penalty1 = this.penalty1;
+		final int penalty2 = this.penalty2;
+
+		idxLrPrev += 1; // start at d=1
+
+		int c1 = workCostLr[idxLrPrev - 1] & 0xFFFF;  // Lr(p-r,d-1)
+		int c2 = workCostLr[idxLrPrev] & 0xFFFF;  // Lr(p-r,d  )
+		idxLrPrev += 1;
+
+		for (int d = 1; d < lengthLocalD - 1; d++, idxLrPrev++) {
+			int cost = costTable[costXD[idxCost + d] & 0xFF] & 0xFFFF; // C(p,d)
+
+			int c0 = c1; // Lr(p-r,d-1)
+			c1 = c2;     // Lr(p-r,d  )
+			c2 = workCostLr[idxLrPrev] & 0xFFFF; // Lr(p-r,d+1)
+
+			int a = c1;
+			int b = c0 + penalty1;
+			int c = c2 + penalty1;
+
+			if (b < a)
+				a = b;
+			if (c < a)
+				a = c;
+			if (penalty2 < a)
+				a = penalty2;
+
+			workCostLr[idxLrPrev + nextRow] = (short)(cost + a);
+		}
+	}
+
 	/**
 	 * Computes the aggregate cost but with bounds checks to ensure it doesn't sample outside of the
 	 * disparity change.
@@ -376,8 +547,15 @@ public class SgmCostAggregation {
 	 * @param costXD cost in X-D plane
 	 */
 	void computeCostBorderD( int idxCost, int idxLrPrev, int d, GrayU16 costXD, int localRangeD, short[] workCostLr ) {
-		int cost = costXD.data[idxCost + d] & 0xFFFF;  // C(p,d)
+		computeCostBorderD(costXD.data[idxCost + d] & 0xFFFF, idxLrPrev, d, localRangeD, workCostLr);
+	}
 
+	/**
+	 * Computes the aggregate cost at the border given the cost C(p,d)
+	 *
+	 * @param cost The cost C(p,d)
+	 */
+	void computeCostBorderD( int cost, int idxLrPrev, int d, int localRangeD, short[] workCostLr ) {
 		// Sample previously computed aggregate costs with bounds checking
 		int a = workCostLr[idxLrPrev + d] & 0xFFFF; // Lr(p-r,d)
 		int b = d > 0 ? workCostLr[idxLrPrev + d - 1] & 0xFFFF : SgmDisparityCost.MAX_COST; // Lr(p-r,d-1)
@@ -437,6 +615,9 @@ public class SgmCostAggregation {
 		// This is actually why a work space is required and aggregated isn't used directly
 		short[] workCostLr = new short[0];
 
+		// Aggregated cost from the paths this thread scored. Only used when directions are processed concurrently
+		Planar<GrayU16> aggregated = new Planar<>(GrayU16.class, 1, 1, 1);
+
 		public void checkSize() {
 			int N = Math.max(lengthX, lengthY)*lengthD;
 			if (workCostLr.length != N)
@@ -447,6 +628,15 @@ public class SgmCostAggregation {
 		}
 	}
 
+	/**
+	 * Direction (dx,dy) of each path in the order they are scored. The number used depends on paths considered.
+	 */
+	private static final int[][] DIRECTIONS = new int[][]{
+			{1, 0}, {-1, 0},
+			{0, 1}, {0, -1},
+			{1, 1}, {-1, -1}, {-1, 1}, {1, -1},
+			{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+
 	/**
 	 * Defines the starting coordinate and direction a trajectory takes.
 	 * (x0,y0) is the initial coordinate
@@ -490,4 +680,12 @@ public class SgmCostAggregation {
 	public void setPathsConsidered( int pathsConsidered ) {
 		this.pathsConsidered = pathsConsidered;
 	}
+
+	public boolean isConcurrentDirections() {
+		return concurrentDirections;
+	}
+
+	public void setConcurrentDirections( boolean concurrentDirections ) {
+		this.concurrentDirections = concurrentDirections;
+	}
 }
@@ -20,13 +20,20 @@ package boofcv.alg.disparity.sgm;
 
 import boofcv.abst.filter.FilterImageInterface;
 import boofcv.alg.InputSanityCheck;
+import boofcv.alg.disparity.sgm.cost.SgmCostHamming;
+import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.ImageGray;
+import boofcv.struct.image.Planar;
 
 /**
  * Computes Census score for SGM using a straight forward implementation. A census transform is applied
  * to the left and right input images. That's then used to compute the census error.
  *
+ * If the cost is computed using {@link SgmCostHamming} then the cost can optionally be stored in a compact 8-bit
+ * tensor, see {@link #setCompactCost}. This reduces the memory used by the cost tensor and the memory read while
+ * aggregating by half with identical results. In this mode {@link #getCostYXD()} is not updated.
+ *
  * @author Peter Abeles
  */
 public class SgmStereoDisparityCensus<T extends ImageBase<T>, C extends ImageGray<C>>
@@ -36,6 +43,12 @@ public class SgmStereoDisparityCensus<T extends ImageBase<T>, C extends ImageGra
 	C cleft;
 	C cright;
 
+	// If true then the cost is stored in the compact tensor
+	boolean compactCost = false;
+	// Compact cost tensor and the table which converts it into a cost
+	Planar<GrayU8> costCompactYXD = new Planar<>(GrayU8.class, 1, 1, 1);
+	short[] costTable = new short[0];
+
 	public SgmStereoDisparityCensus( FilterImageInterface<T, C> censusTran,
 									 SgmDisparityCost<C> sgmCost, SgmDisparitySelector selector ) {
 		super(sgmCost, selector);
@@ -64,13 +77,36 @@ public class SgmStereoDisparityCensus<T extends ImageBase<T>, C extends ImageGra
 		sgmCost.configure(disparityMin, disparityRange);
 		aggregation.configure(disparityMin);
 
-		// Compute the cost using mutual information
-		sgmCost.process(cleft, cright, costYXD);
-		// Aggregate the cost along all the paths
-		aggregation.process(costYXD);
+		if (compactCost) {
+			// Compute the Hamming distance then aggregate the cost along all the paths
+			((SgmCostHamming<C>)sgmCost).processCompact(cleft, cright, costCompactYXD);
+			aggregation.processCompact(costCompactYXD, costTable);
+		} else {
+			// Compute the cost using mutual information
+			sgmCost.process(cleft, cright, costYXD);
+			// Aggregate the cost along all the paths
+			aggregation.process(costYXD);
+		}
 
 		// Select the best disparity for each pixel given the cost
 		selector.setDisparityMin(disparityMin);
 		selector.select(costYXD, aggregation.getAggregated(), disparity);
 	}
+
+	/**
+	 * Specifies if the cost should be stored in a compact 8-bit tensor. Requires that the cost be
+	 * computed using {@link SgmCostHamming}.
+	 */
+	public void setCompactCost( boolean compactCost ) {
+		if (compactCost) {
+			if (!(sgmCost instanceof SgmCostHamming))
+				throw new IllegalArgumentException("Compact cost requires SgmCostHamming");
+			costTable = ((SgmCostHamming<C>)sgmCost).createCostTable();
+		}
+		this.compactCost = compactCost;
+	}
+
+	public boolean isCompactCost() {
+		return compactCost;
+	}
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.disparity.sgm.cost;
+
+import boofcv.alg.InputSanityCheck;
+import boofcv.alg.disparity.sgm.SgmDisparityCost;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofMiscOps;
+import boofcv.struct.border.ImageBorder_S32;
+import boofcv.struct.image.GrayU16;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.Planar;
+import georegression.struct.point.Point2D_I32;
+import org.ddogleg.struct.DogArray_I32;
+import org.ddogleg.struct.FastAccess;
+import pabeles.concurrency.GrowArray;
+
+/**
+ * <p>
+ * Computes the Census transform and the Hamming distance cost together, one row at a time. The Census
+ * descriptor for a row in the left and right images is packed into 64-bit words which are then compared
+ * against every disparity in the range with {@link Long#bitCount}. The cost is written directly into the
+ * SGM cost tensor. This avoids creating and then reading two full resolution Census images.
+ * Rows are independent and are processed in parallel.
+ * </p>
+ *
+ * <p>
+ * The output is identical to applying a Census transform, with the same samples and border, then computing the
+ * cost using {@link SgmCostHamming}. To match, the Hamming distance is scaled by the number of bits in the
+ * image type the Census transform would write to, i.e. 8, 32, or 64 bits. At most 64 samples can be used.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class SgmCostCensusHamming_U8 implements SgmDisparityCost<GrayU8> {
+	// Relative coordinates of each sample in the census region
+	final int[] sampleX, sampleY;
+	// Radius of the region along each axis
+	final int radiusX, radiusY;
+
+	// Converts the Hamming distance into a cost
+	final short[] costTable;
+
+	// Handle pixels along the image border
+	final ImageBorder_S32<GrayU8> borderLeft, borderRight;
+
+	// Array index offsets of each sample for the left and right images
+	final DogArray_I32 offsetsLeft = new DogArray_I32();
+	final DogArray_I32 offsetsRight = new DogArray_I32();
+
+	// Storage for the Census descriptors of a row
+	final GrowArray<RowWork> workspace = new GrowArray<>(RowWork::new);
+
+	int disparityMin;
+	int disparityRange;
+
+	/**
+	 * Specifies the Census region and how the border is handled
+	 *
+	 * @param samples Relative coordinates that are sampled in the Census transform. At most 64.
+	 * @param border How the image border is handled
+	 */
+	public SgmCostCensusHamming_U8( FastAccess<Point2D_I32> samples, ImageBorder_S32<GrayU8> border ) {
+		BoofMiscOps.checkTrue(samples.size > 0 && samples.size <= 64, "Must have 1 to 64 samples");
+
+		sampleX = new int[samples.size];
+		sampleY = new int[samples.size];
+		int radiusX = 0, radiusY = 0;
+		for (int i = 0; i < samples.size; i++) {
+			Point2D_I32 p = samples.get(i);
+			sampleX[i] = p.x;
+			sampleY[i] = p.y;
+			radiusX = Math.max(radiusX, Math.abs(p.x));
+			radiusY = Math.max(radiusY, Math.abs(p.y));
+		}
+		this.radiusX = radiusX;
+		this.radiusY = radiusY;
+
+		// Scale the distance the same way SgmCostHamming would for the image the descriptor is stored in
+		int bits = samples.size <= 8 ? 8 : samples.size <= 32 ? 32 : 64;
+		costTable = new short[65];
+		for (int distance = 0; distance < costTable.length; distance++) {
+			costTable[distance] = (short)(MAX_COST*distance/bits);
+		}
+
+		this.borderLeft = border;
+		this.borderRight = (ImageBorder_S32<GrayU8>)border.copy();
+	}
+
+	@Override
+	public void configure( int disparityMin, int disparityRange ) {
+		this.disparityMin = disparityMin;
+		this.disparityRange = disparityRange;
+	}
+
+	@Override
+	public void process( GrayU8 left, GrayU8 right, Planar<GrayU16> costYXD ) {
+		InputSanityCheck.checkSameShape(left, right);
+		if (disparityRange == 0)
+			throw new IllegalArgumentException("disparityRange is 0. Did you call configure()?");
+
+		// Declare the "tensor" with shape (lengthY,lengthX,lengthD)
+		costYXD.reshape(/* width= */disparityRange, /* height= */left.width, /* numberOfBands= */left.height);
+
+		computeOffsets(left, offsetsLeft);
+		computeOffsets(right, offsetsRight);
+		borderLeft.setImage(left);
+		borderRight.setImage(right);
+
+		if (BoofConcurrency.USE_CONCURRENT) {
+			BoofConcurrency.loopBlocks(0, left.height, workspace, ( work, y0, y1 ) ->
+					processRows(left, right, costYXD, work, y0, y1));
+		} else {
+			workspace.reset();
+			processRows(left, right, costYXD, workspace.grow(), 0, left.height);
+		}
+	}
+
+	/**
+	 * Computes the cost for all pixels in the specified rows
+	 */
+	void processRows( GrayU8 left, GrayU8 right, Planar<GrayU16> costYXD, RowWork work, int row0, int row1 ) {
+		work.resize(left.width);
+
+		for (int y = row0; y < row1; y++) {
+			censusRow(left, offsetsLeft, borderLeft, y, work.censusLeft);
+			censusRow(right, offsetsRight, borderRight, y, work.censusRight);
+			costRow(left.width, work.censusLeft, work.censusRight, costYXD.getBand(y));
+		}
+	}
+
+	/**
+	 * Computes the Census descriptor for every pixel in a row
+	 */
+	void censusRow( GrayU8 image, DogArray_I32 offsets, ImageBorder_S32<GrayU8> border, int y, long[] census ) {
+		final int width = image.width;
+		final int numSamples = offsets.size;
+
+		// The entire region is inside the image for these pixels and array offsets can be used
+		int x0 = radiusX, x1 = width - radiusX;
+		if (y < radiusY || y >= image.height - radiusY || x1 <= x0) {
+			x0 = x1 = width;
+		}
+
+		for (int x = 0; x < x0; x++) {
+			census[x] = censusBorder(border, x, y);
+		}
+
+		final byte[] src = image.data;
+		final int[] offsetsData = offsets.data;
+		int indexSrc = image.startIndex + y*image.stride + x0;
+		for (int x = x0; x < x1; x++, indexSrc++) {
+			int center = src[indexSrc] & 0xFF;
+			long value = 0;
+			for (int i = 0; i < numSamples; i++) {
+				if ((src[indexSrc + offsetsData[i]] & 0xFF) > center)
+					value |= 1L << i;
+			}
+			census[x] = value;
+		}
+
+		for (int x = Math.max(x0, x1); x < width; x++) {
+			census[x] = censusBorder(border, x, y);
+		}
+	}
+
+	/**
+	 * Census descriptor for a pixel where the region might extend outside the image
+	 */
+	long censusBorder( ImageBorder_S32<GrayU8> border, int x, int y ) {
+		int center = border.get(x, y);
+		long value = 0;
+		for (int i = 0; i < sampleX.length; i++) {
+			if (border.get(x + sampleX[i], y + sampleY[i]) > center)
+				value |= 1L << i;
+		}
+		return value;
+	}
+
+	/**
+	 * Computes the cost for every pixel and disparity in a row using the packed Census descriptors
+	 */
+	void costRow( int width, long[] censusLeft, long[] censusRight, GrayU16 costXD ) {
+		final short[] costTable = this.costTable;
+		final short[] output = costXD.data;
+
+		for (int x = disparityMin; x < width; x++) {
+			int idxOut = costXD.startIndex + (x - disparityMin)*costXD.stride;
+
+			// The local limits on ranges that can be examined
+			int localRange = Math.min(disparityRange, x - disparityMin + 1);
+
+			// start reading the right image at the smallest disparity then increase disparity size
+			final long valueLeft = censusLeft[x];
+			int xRight = x - disparityMin;
+			for (int d = 0; d < localRange; d++) {
+				output[idxOut + d] = costTable[Long.bitCount(valueLeft ^ censusRight[xRight - d])];
+			}
+
+			// Fill in the disparity values outside the image with max cost
+			for (int d = localRange; d < disparityRange; d++) {
+				output[idxOut + d] = MAX_COST;
+			}
+		}
+	}
+
+	/**
+	 * Computes the offset of each sample as an array index
+	 */
+	void computeOffsets( GrayU8 image, DogArray_I32 offsets ) {
+		offsets.resize(sampleX.length);
+		for (int i = 0; i < sampleX.length; i++) {
+			offsets.data[i] = sampleY[i]*image.stride + sampleX[i];
+		}
+	}
+
+	static class RowWork {
+		long[] censusLeft = new long[0];
+		long[] censusRight = new long[0];
+
+		void resize( int width ) {
+			if (censusLeft.length < width) {
+				censusLeft = new long[width];
+				censusRight = new long[width];
+			}
+		}
+	}
+}
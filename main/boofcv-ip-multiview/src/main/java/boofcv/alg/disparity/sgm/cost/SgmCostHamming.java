@@ -18,20 +18,101 @@
 
 package boofcv.alg.disparity.sgm.cost;
 
+import boofcv.alg.InputSanityCheck;
 import boofcv.alg.descriptor.DescriptorDistance;
 import boofcv.alg.disparity.sgm.SgmDisparityCost;
 import boofcv.struct.image.GrayS32;
 import boofcv.struct.image.GrayS64;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.Planar;
 
 /**
  * Computes the cost as the hamming distance between two pixels.
  *
+ * <p>The cost can also be computed in a compact 8-bit format using {@link #processCompact}. In the compact
+ * format the raw Hamming distance is saved and {@link #createCostTable()} is used to convert it into the
+ * same cost that {@link #process} would compute. Disparities outside the image are marked with
+ * {@link #COMPACT_OUTSIDE}.</p>
+ *
  * @author Peter Abeles
  */
 public abstract class SgmCostHamming<T extends ImageBase<T>> extends SgmCostBase<T> {
+	/** Value in the compact tensor for disparities which are outside the image. Decodes to MAX_COST. */
+	public static final int COMPACT_OUTSIDE = 0xFF;
+
+	// Number of bits in each census descriptor
+	private final int bits;
+
+	// Row in the compact tensor that's being written to
+	protected GrayU8 compactXD;
+
+	protected SgmCostHamming( int bits ) {
+		this.bits = bits;
+	}
+
+	/**
+	 * Computes the hamming distance for all disparities and saves it in a compact tensor with one byte per
+	 * element. See {@link SgmDisparityCost#process} for a description of the tensor's shape.
+	 *
+	 * @param left left image
+	 * @param right right image
+	 * @param costYXD (Output) Hamming distance. Convert into a cost using {@link #createCostTable()}.
+	 */
+	public void processCompact( T left, T right, Planar<GrayU8> costYXD ) {
+		InputSanityCheck.checkSameShape(left, right);
+		if (disparityRange == 0)
+			throw new IllegalArgumentException("disparityRange is 0. Did you call configure()?");
+		this.left = left;
+		this.right = right;
+
+		// Declare the "tensor" with shape (lengthY,lengthX,lengthD)
+		costYXD.reshape(/* width= */disparityRange, /* height= */left.width, /* numberOfBands= */left.height);
+
+		for (int y = 0; y < left.height; y++) {
+			compactXD = costYXD.getBand(y);
+
+			int idxLeft = left.startIndex + y*left.stride + disparityMin;
+
+			for (int x = disparityMin; x < left.width; x++, idxLeft++) {
+				int idxOut = compactXD.startIndex + (x - disparityMin)*costYXD.stride;
+
+				// The local limits on ranges that can be examined
+				int localRange = Math.min(disparityRange, x - disparityMin + 1);
+
+				// start reading the right image at the smallest disparity then increase disparity size
+				int idxRight = right.startIndex + y*right.stride + x - disparityMin;
+
+				computeDisparityDistances(idxLeft, idxRight, idxOut, localRange);
+
+				// Fill in the disparity values outside the image with max cost
+				for (int d = localRange; d < disparityRange; d++) {
+					compactXD.data[idxOut + d] = (byte)COMPACT_OUTSIDE;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a table which converts a value in the compact tensor into the cost computed by {@link #process}.
+	 */
+	public short[] createCostTable() {
+		var table = new short[256];
+		for (int distance = 0; distance <= bits; distance++) {
+			table[distance] = (short)(MAX_COST*distance/bits);
+		}
+		table[COMPACT_OUTSIDE] = (short)MAX_COST;
+		return table;
+	}
+
+	/**
+	 * Same as {@link #computeDisparityErrors} but the Hamming distance is written to the compact tensor.
+	 */
+	protected abstract void computeDisparityDistances( int idxLeft, int idxRight, int idxOut, int localRange );
+
 	public static class U8 extends SgmCostHamming<GrayU8> {
+		public U8() {super(8);}
+
 		@Override
 		protected void computeDisparityErrors( int idxLeft, int idxRight, int idxOut, int disparityRange ) {
 			int valLeft = left.data[idxLeft] & 0xFF;
@@ -40,9 +121,20 @@ public abstract class SgmCostHamming<T extends ImageBase<T>> extends SgmCostBase
 				costXD.data[idxOut + d] = (short)(SgmDisparityCost.MAX_COST*DescriptorDistance.hamming(valLeft ^ valRight)/8);
 			}
 		}
+
+		@Override
+		protected void computeDisparityDistances( int idxLeft, int idxRight, int idxOut, int disparityRange ) {
+			int valLeft = left.data[idxLeft] & 0xFF;
+			for (int d = 0; d < disparityRange; d++) {
+				int valRight = right.data[idxRight--] & 0xFF;
+				compactXD.data[idxOut + d] = (byte)DescriptorDistance.hamming(valLeft ^ valRight);
+			}
+		}
 	}
 
 	public static class S32 extends SgmCostHamming<GrayS32> {
+		public S32() {super(32);}
+
 		@Override
 		protected void computeDisparityErrors( int idxLeft, int idxRight, int idxOut, int disparityRange ) {
 			int valLeft = left.data[idxLeft];
@@ -51,9 +143,20 @@ public abstract class SgmCostHamming<T extends ImageBase<T>> extends SgmCostBase
 				costXD.data[idxOut + d] = (short)(MAX_COST*DescriptorDistance.hamming(valLeft ^ valRight)/32);
 			}
 		}
+
+		@Override
+		protected void computeDisparityDistances( int idxLeft, int idxRight, int idxOut, int disparityRange ) {
+			int valLeft = left.data[idxLeft];
+			for (int d = 0; d < disparityRange; d++) {
+				int valRight = right.data[idxRight--];
+				compactXD.data[idxOut + d] = (byte)DescriptorDistance.hamming(valLeft ^ valRight);
+			}
+		}
 	}
 
 	public static class S64 extends SgmCostHamming<GrayS64> {
+		public S64() {super(64);}
+
 		@Override
 		protected void computeDisparityErrors( int idxLeft, int idxRight, int idxOut, int disparityRange ) {
 			long valLeft = left.data[idxLeft];
@@ -62,5 +165,14 @@ public abstract class SgmCostHamming<T extends ImageBase<T>> extends SgmCostBase
 				costXD.data[idxOut + d] = (short)(MAX_COST*DescriptorDistance.hamming(valLeft ^ valRight)/64);
 			}
 		}
+
+		@Override
+		protected void computeDisparityDistances( int idxLeft, int idxRight, int idxOut, int disparityRange ) {
+			long valLeft = left.data[idxLeft];
+			for (int d = 0; d < disparityRange; d++) {
+				long valRight = right.data[idxRight--];
+				compactXD.data[idxOut + d] = (byte)DescriptorDistance.hamming(valLeft ^ valRight);
+			}
+		}
 	}
 }
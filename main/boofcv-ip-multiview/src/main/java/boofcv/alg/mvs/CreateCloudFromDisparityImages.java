@@ -25,13 +25,14 @@ import boofcv.struct.distort.PixelTransform;
 import boofcv.struct.distort.Point2Transform2_F64;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.GrayU8;
+import boofcv.struct.packed.PackedBigArrayPoint3D_F64;
 import georegression.geometry.GeometryMath_F64;
 import georegression.struct.point.Point2D_F64;
 import georegression.struct.point.Point3D_F64;
 import georegression.struct.se.Se3_F64;
 import georegression.transform.se.SePointOps_F64;
 import lombok.Getter;
-import org.ddogleg.struct.DogArray;
+import lombok.Setter;
 import org.ddogleg.struct.DogArray_I32;
 import org.ejml.UtilEjml;
 
@@ -52,8 +53,11 @@ public class CreateCloudFromDisparityImages {
 	 */
 	public double disparitySimilarTol = 1.0;
 
-	/** List of all the points in the cloud */
-	final @Getter DogArray<Point3D_F64> cloud = new DogArray<>(Point3D_F64::new, p -> p.setTo(0, 0, 0));
+	/**
+	 * List of all the points in the cloud. Packed to reduce memory usage. Can be replaced so that the points
+	 * are written directly into storage owned by someone else, e.g. {@link boofcv.struct.packed.PackedPointCloud_F64#xyz}
+	 */
+	@Getter @Setter PackedBigArrayPoint3D_F64 cloud = new PackedBigArrayPoint3D_F64();
 	/** List of indices which specify the cloud size when a view 'i' was added. idx[i] &le; cloud < idx[i+1] */
 	final @Getter DogArray_I32 viewPointIdx = new DogArray_I32();
 
@@ -73,8 +77,10 @@ public class CreateCloudFromDisparityImages {
 	 * @return The index of the view that can be used to retrieve the specified points added
 	 */
 	public int addCloud( List<Point3D_F64> cloud ) {
-		viewPointIdx.add(this.cloud.size + cloud.size());
-		this.cloud.copyAll(cloud, ( s, d ) -> d.setTo(s));
+		for (int i = 0; i < cloud.size(); i++) {
+			this.cloud.append(cloud.get(i));
+		}
+		viewPointIdx.add(this.cloud.size());
 		return this.viewPointIdx.size - 1;
 	}
 
@@ -98,7 +104,7 @@ public class CreateCloudFromDisparityImages {
 							 PixelTransform<Point2D_F64> dispPixel_to_rectNorm ) {
 		InputSanityCheck.checkSameShape(disparity, mask);
 
-		MultiViewStereoOps.maskOutPointsInCloud(cloud.toList(), disparity, parameters, world_to_view,
+		MultiViewStereoOps.maskOutPointsInCloud(cloud, disparity, parameters, world_to_view,
 				rectNorm_to_dispPixel, disparitySimilarTol, mask);
 
 		if (UtilEjml.isUncountable(ImageStatistics.sum(disparity)))
@@ -110,6 +116,8 @@ public class CreateCloudFromDisparityImages {
 		final Point3D_F64 rectP = new Point3D_F64();
 		// 3D point in left stereo camera reference frame
 		final Point3D_F64 leftP = new Point3D_F64();
+		// 3D point in world reference frame
+		final Point3D_F64 worldP = new Point3D_F64();
 
 		final CameraPinhole intrinsic = parameters.pinhole;
 		final double baseline = parameters.baseline;
@@ -145,7 +153,8 @@ public class CreateCloudFromDisparityImages {
 				GeometryMath_F64.multTran(parameters.rotateToRectified, rectP, leftP);
 
 				// Left to world frame
-				SePointOps_F64.transformReverse(world_to_view, leftP, cloud.grow());
+				SePointOps_F64.transformReverse(world_to_view, leftP, worldP);
+				cloud.append(worldP);
 			}
 		}
 
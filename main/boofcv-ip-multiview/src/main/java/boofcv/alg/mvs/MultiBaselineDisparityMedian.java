@@ -19,6 +19,7 @@
 package boofcv.alg.mvs;
 
 import boofcv.alg.InputSanityCheck;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.misc.BoofMiscOps;
 import boofcv.struct.calib.CameraPinhole;
 import boofcv.struct.distort.PixelTransform;
@@ -29,16 +30,17 @@ import georegression.struct.point.Point2D_F64;
 import georegression.transform.homography.HomographyPointOps_F64;
 import lombok.Getter;
 import org.ddogleg.sorting.QuickSelect;
-import org.ddogleg.struct.DogArray;
 import org.ddogleg.struct.DogArray_F32;
+import org.ddogleg.struct.DogArray_I32;
 import org.ddogleg.struct.VerbosePrint;
 import org.ejml.UtilEjml;
 import org.ejml.data.DMatrixRMaj;
-import org.ejml.dense.row.CommonOps_DDRM;
 import org.ejml.ops.DConvertMatrixStruct;
 import org.jetbrains.annotations.Nullable;
+import pabeles.concurrency.GrowArray;
 
 import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.Set;
 
 import static boofcv.misc.BoofMiscOps.checkTrue;
@@ -49,6 +51,10 @@ import static boofcv.misc.BoofMiscOps.checkTrue;
  * the original image's pixel coordinate and will not be a rectified image. The disparity for each pixel
  * is selected using a median filter.
  *
+ * Disparity images are processed as they are added and are not saved. Values from all the images are stored in
+ * a single packed array and sorted by pixel, in a compressed row format, only when the median is computed. This
+ * avoids creating an array for every pixel. Rows are processed concurrently.
+ *
  * The fused disparity image will always have a disparityMin of 0 and disparityRange of 100.
  * The baseline is computed dynamically to ensure that max value
  *
@@ -65,15 +71,21 @@ public class MultiBaselineDisparityMedian implements VerbosePrint {
 	// undistorted to distorted pixel coordinates
 	PixelTransform<Point2D_F64> pixelOrig_to_Undist;
 
-	// A copy of all the input disparity images
-	final @Getter DogArray<DisparityImage> images = new DogArray<>(DisparityImage::new, DisparityImage::reset);
+	/** Number of disparity images which have been added */
+	@Getter int imageCount;
 
 	// Where the combined results are stored
 	final @Getter FusedImage fused = new FusedImage();
 
+	// Fused disparity, with a baseline of one, from the image being added. NaN if a pixel has no value
+	final GrayF32 projected = new GrayF32(1, 1);
+
 	// Storage for transform from rectified to unrectified pixels
 	private final Homography2D_F64 rect = new Homography2D_F64();
 
+	// Workspace for each thread. Each has its own copy of the pixel transform. Created in initialize()
+	GrowArray<Workspace> workspace;
+
 	PrintStream verbose;
 
 	/**
@@ -85,13 +97,18 @@ public class MultiBaselineDisparityMedian implements VerbosePrint {
 	 */
 	public void initialize( CameraPinhole intrinsic, PixelTransform<Point2D_F64> pixelDist_to_Undist ) {
 		this.fusedIntrinsic.setTo(intrinsic);
-		this.images.reset();
+		this.fusedBaseline = 0;
+		this.imageCount = 0;
 		this.fused.resize(intrinsic.width, intrinsic.height);
+		this.projected.reshape(intrinsic.width, intrinsic.height);
 		this.pixelOrig_to_Undist = pixelDist_to_Undist;
+		// Discard copies of the previous transform
+		this.workspace = new GrowArray<>(() -> new Workspace(pixelDist_to_Undist.copyConcurrent()));
 	}
 
 	/**
-	 * Adds a disparity image to the list
+	 * Adds the disparity image to the fused image. The image is not saved and can be modified after this
+	 * function returns.
 	 *
 	 * @param disparity The disparity image. Does not need to be same shape as original.
 	 * @param mask Indicates which pixels could have usable disparity information
@@ -103,11 +120,11 @@ public class MultiBaselineDisparityMedian implements VerbosePrint {
 		InputSanityCheck.checkSameShape(disparity, mask);
 		parameters.checkValidity();
 
-		DisparityImage d = images.grow();
-		d.disparity.setTo(disparity);
-		d.mask.setTo(mask);
-		d.undist_to_rect_px.setTo(undist_to_rect_px);
-		d.parameters.setTo(parameters);
+		// The fused baseline is the largest input baseline. Want to avoid being way too small.
+		fusedBaseline = Math.max(fusedBaseline, parameters.baseline);
+		imageCount++;
+
+		addToFusedImage(disparity, mask, parameters, undist_to_rect_px);
 	}
 
 	/**
@@ -119,26 +136,14 @@ public class MultiBaselineDisparityMedian implements VerbosePrint {
 	 * @return true if successful or false if it failed
 	 */
 	public boolean process( GrayF32 disparity ) {
-		checkTrue(!images.isEmpty(), "No images have been added");
+		checkTrue(imageCount > 0, "No images have been added");
 
 		disparity.reshape(fused.width, fused.height);
 
-		// select the initial value for the fused baseline using the inputs. Want to avoid being way too small.
-		fusedBaseline = 0;
-		for (int i = 0; i < images.size; i++) {
-			fusedBaseline = Math.max(fusedBaseline, images.get(i).parameters.baseline);
-		}
-
-		// For each image, map valid pixels back into the original and add to that
-		for (int i = 0; i < images.size; i++) {
-			if (!addToFusedImage(images.get(i)))
-				return false;
-		}
-
 		// Combine all the disparity information together robustly
 		if (!computeFused(disparity)) {
 			if (verbose != null)
-				verbose.println("FAILED: Not a single disparity computed in any of the images. images.size=" + images.size);
+				verbose.println("FAILED: Not a single disparity computed in any of the images. images.size=" + imageCount);
 			return false;
 		}
 
@@ -147,15 +152,31 @@ public class MultiBaselineDisparityMedian implements VerbosePrint {
 	}
 
 	/**
-	 * Adds valid disparity values inside of this into the fused image
-	 *
-	 * @return true if successful and false if it failed
+	 * Adds valid disparity values inside of this into the fused image. Values are saved as if the fused baseline
+	 * is one since the final baseline isn't known until all images have been added.
 	 */
-	boolean addToFusedImage( DisparityImage image ) {
-		final GrayF32 disparity = image.disparity;
-		final GrayU8 mask = image.mask;
-		final DisparityParameters imageParam = image.parameters;
+	void addToFusedImage( GrayF32 disparity, GrayU8 mask, DisparityParameters imageParam,
+						  DMatrixRMaj undist_to_rect_px ) {
+		DConvertMatrixStruct.convert(undist_to_rect_px, rect);
+
+		// Find the value of every pixel in the fused image. Each row is independent
+		if (BoofConcurrency.USE_CONCURRENT) {
+			BoofConcurrency.loopBlocks(0, fused.height, workspace, ( work, y0, y1 ) ->
+					projectRows(disparity, mask, imageParam, work, y0, y1));
+		} else {
+			workspace.reset();
+			projectRows(disparity, mask, imageParam, workspace.grow(), 0, fused.height);
+		}
+
+		// Save the values. Done in a single thread so the order is always the same
+		fused.addImage(projected);
+	}
 
+	/**
+	 * Computes the fused disparity for every pixel in the specified rows and writes it to {@link #projected}
+	 */
+	void projectRows( GrayF32 disparity, GrayU8 mask, DisparityParameters imageParam, Workspace work,
+					  int row0, int row1 ) {
 		// Only do the int to float and double to float conversion once
 		final float imageRange = imageParam.disparityRange;
 		final float imageMin = imageParam.disparityMin;
@@ -163,18 +184,19 @@ public class MultiBaselineDisparityMedian implements VerbosePrint {
 		final double imageBaseline = imageParam.baseline;
 		final CameraPinhole imagePinhole = imageParam.pinhole;
 
-		DConvertMatrixStruct.convert(image.undist_to_rect_px, rect);
-
 		// fused image undistorted pixel coordinates
-		Point2D_F64 undistPix = new Point2D_F64();
+		final Point2D_F64 undistPix = work.undistPix;
 		// rectified image coordinates
-		Point2D_F64 rectPix = new Point2D_F64();
+		final Point2D_F64 rectPix = work.rectPix;
 
 		// To avoid sampling issues, go from fused image to disparity image
-		for (int origPixY = 0; origPixY < fused.height; origPixY++) {
-			for (int origPixX = 0; origPixX < fused.width; origPixX++) {
+		for (int origPixY = row0; origPixY < row1; origPixY++) {
+			int indexOut = projected.startIndex + origPixY*projected.stride;
+			Arrays.fill(projected.data, indexOut, indexOut + fused.width, Float.NaN);
+
+			for (int origPixX = 0; origPixX < fused.width; origPixX++, indexOut++) {
 				// Go from distorted to undistorted pixels
-				pixelOrig_to_Undist.compute(origPixX, origPixY, undistPix);
+				work.pixelOrig_to_Undist.compute(origPixX, origPixY, undistPix);
 				// undistorted to rectified pixels
 				HomographyPointOps_F64.transform(rect, undistPix.x, undistPix.y, rectPix);
 
@@ -213,17 +235,14 @@ public class MultiBaselineDisparityMedian implements VerbosePrint {
 					double rectY = rectZ*(rectPixY - imagePinhole.cy)/imagePinhole.fy;
 					// Go from rectified to left camera, which is the fused camera
 					double worldZ = dotRightCol(imageParam.rotateToRectified, rectX, rectY, rectZ);
-					// Now that we know Z we can compute the disparity
-					float fusedDisp = (float)(fusedBaseline*fusedIntrinsic.fx/worldZ);
-
-					fused.get(origPixX, origPixY).add(fusedDisp);
+					// Now that we know Z we can compute the disparity, with a baseline of one
+					projected.data[indexOut] = (float)(fusedIntrinsic.fx/worldZ);
 				} else {
 					// Points at infinity are a special case. They will remain at infinity
-					fused.get(origPixX, origPixY).add(0.0f);
+					projected.data[indexOut] = 0.0f;
 				}
 			}
 		}
-		return true;
 	}
 
 	/**
@@ -241,33 +260,58 @@ public class MultiBaselineDisparityMedian implements VerbosePrint {
 	 */
 	boolean computeFused( GrayF32 disparity ) {
 		// If there's one pixel with a valid value this will pass
-		boolean singleValidPixel = false;
+		if (fused.sampleValues.size == 0)
+			return false;
+
+		fused.sortByPixel();
+
+		if (BoofConcurrency.USE_CONCURRENT) {
+			BoofConcurrency.loopBlocks(0, fused.height, workspace, ( work, y0, y1 ) ->
+					computeFusedRows(disparity, work.values, y0, y1));
+		} else {
+			workspace.reset();
+			computeFusedRows(disparity, workspace.grow().values, 0, fused.height);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Computes the fused output for pixels in the specified rows
+	 *
+	 * @param work Storage for the values of a pixel while the median is found
+	 */
+	void computeFusedRows( GrayF32 disparity, DogArray_F32 work, int row0, int row1 ) {
+		final int[] pixelStart = fused.pixelStart.data;
+		final float[] values = fused.values.data;
 
-		for (int y = 0; y < fused.height; y++) {
+		for (int y = row0; y < row1; y++) {
 			int indexOut = disparity.startIndex + y*disparity.stride;
-			for (int x = 0; x < fused.width; x++) {
-				DogArray_F32 values = fused.get(x, y);
+			int pixel = y*fused.width;
+			for (int x = 0; x < fused.width; x++, pixel++) {
+				int idx0 = pixelStart[pixel];
+				int size = pixelStart[pixel + 1] - idx0;
+
 				float outputValue;
-				if (values.size == 0) {
+				if (size == 0) {
 					// mark this pixel as invalid. The disparity will be rescaled later on and the max value at this
 					// time isn't known
-					outputValue = Float.MAX_VALUE;
-				} else if (values.size == 1) {
-					singleValidPixel = true;
-					outputValue = values.data[0];
-				} else if (values.size == 2) {
-					singleValidPixel = true;
-					outputValue = 0.5f*(values.data[0] + values.data[1]);
+					disparity.data[indexOut++] = Float.MAX_VALUE;
+					continue;
+				} else if (size == 1) {
+					outputValue = values[idx0];
+				} else if (size == 2) {
+					outputValue = 0.5f*(values[idx0] + values[idx0 + 1]);
 				} else {
-					// median value
-					outputValue = QuickSelect.select(values.data, values.size/2, values.size);
-					singleValidPixel = true;
+					// median value. Copied since QuickSelect modifies the array
+					work.resize(size);
+					System.arraycopy(values, idx0, work.data, 0, size);
+					outputValue = QuickSelect.select(work.data, size/2, size);
 				}
-				disparity.data[indexOut++] = outputValue;
+				// Values were saved with a baseline of one
+				disparity.data[indexOut++] = (float)(fusedBaseline*outputValue);
 			}
 		}
-
-		return singleValidPixel;
 	}
 
 	/**
@@ -321,39 +365,98 @@ public class MultiBaselineDisparityMedian implements VerbosePrint {
 		this.verbose = BoofMiscOps.addPrefix(this, out);
 	}
 
-	/** All the information for a disparity image */
-	static class DisparityImage {
-		/** The found disparity image */
-		public final GrayF32 disparity = new GrayF32(1, 1);
-		/** Mask which indicates pixels that have a source inside the original image and are valid */
-		public final GrayU8 mask = new GrayU8(1, 1);
-		/** Rectification matrix/homography. From undistorted pixel to rectified pixel */
-		public final DMatrixRMaj undist_to_rect_px = new DMatrixRMaj(3, 3);
-		/** Geometric meaning of disparity fo this view */
-		public final DisparityParameters parameters = new DisparityParameters();
-
-		public void reset() {
-			disparity.reshape(1, 1);
-			mask.reshape(1, 1);
-			CommonOps_DDRM.fill(undist_to_rect_px, 0);
-			parameters.reset();
+	/** Workspace for a single thread */
+	class Workspace {
+		final PixelTransform<Point2D_F64> pixelOrig_to_Undist;
+		final Point2D_F64 undistPix = new Point2D_F64();
+		final Point2D_F64 rectPix = new Point2D_F64();
+		final DogArray_F32 values = new DogArray_F32();
+
+		public Workspace( PixelTransform<Point2D_F64> pixelOrig_to_Undist ) {
+			this.pixelOrig_to_Undist = pixelOrig_to_Undist;
 		}
 	}
 
 	/**
-	 * Contains disparity information mapped to original distorted pixels.
+	 * Contains disparity information mapped to original distorted pixels. Values are saved in the order they are
+	 * added, then sorted by pixel into a single array before the median is computed. The values for pixel 'i'
+	 * are then stored in values[pixelStart[i]] to values[pixelStart[i+1]-1].
 	 */
 	static class FusedImage {
-		public final DogArray<DogArray_F32> pixels = new DogArray<>(DogArray_F32::new, DogArray_F32::reset);
+		/** Number of values at each pixel */
+		public final DogArray_I32 counts = new DogArray_I32();
+		/** Pixel index of each value in the order they were added */
+		public final DogArray_I32 samplePixels = new DogArray_I32();
+		/** Each value in the order they were added */
+		public final DogArray_F32 sampleValues = new DogArray_F32();
+		/** Index of the first value of each pixel in 'values'. Has one more element than there are pixels */
+		public final DogArray_I32 pixelStart = new DogArray_I32();
+		/** All values sorted by pixel */
+		public final DogArray_F32 values = new DogArray_F32();
 		public int width, height;
 
-		public DogArray_F32 get( int x, int y ) {
-			return pixels.get(y*width + x);
+		/** Adds a value to the pixel */
+		public void add( int x, int y, float value ) {
+			int pixel = y*width + x;
+			counts.data[pixel]++;
+			samplePixels.add(pixel);
+			sampleValues.add(value);
+		}
+
+		/**
+		 * Adds the value of every pixel in the image which is not NaN
+		 */
+		public void addImage( GrayF32 image ) {
+			for (int y = 0; y < height; y++) {
+				int indexIn = image.startIndex + y*image.stride;
+				for (int x = 0; x < width; x++) {
+					float value = image.data[indexIn++];
+					if (!Float.isNaN(value))
+						add(x, y, value);
+				}
+			}
+		}
+
+		/**
+		 * Sorts all the values by pixel using a counting sort
+		 */
+		public void sortByPixel() {
+			final int N = width*height;
+			pixelStart.resize(N + 1);
+			pixelStart.data[0] = 0;
+			for (int i = 0; i < N; i++) {
+				pixelStart.data[i + 1] = pixelStart.data[i] + counts.data[i];
+			}
+
+			// Use counts to keep track of where the next value goes then restore it
+			for (int i = 0; i < N; i++) {
+				counts.data[i] = pixelStart.data[i];
+			}
+			values.resize(sampleValues.size);
+			for (int i = 0; i < sampleValues.size; i++) {
+				values.data[counts.data[samplePixels.data[i]]++] = sampleValues.data[i];
+			}
+			for (int i = 0; i < N; i++) {
+				counts.data[i] = pixelStart.data[i + 1] - pixelStart.data[i];
+			}
+		}
+
+		/** Number of values at a pixel */
+		public int getCount( int x, int y ) {
+			return counts.data[y*width + x];
+		}
+
+		/** Returns a value at a pixel. Only valid after {@link #sortByPixel()} has been called. */
+		public float getValue( int x, int y, int i ) {
+			return values.data[pixelStart.data[y*width + x] + i];
 		}
 
 		public void resize( int width, int height ) {
-			pixels.reset();
-			pixels.resize(width*height);
+			counts.resetResize(width*height, 0);
+			samplePixels.reset();
+			sampleValues.reset();
+			pixelStart.reset();
+			values.reset();
 			this.width = width;
 			this.height = height;
 		}
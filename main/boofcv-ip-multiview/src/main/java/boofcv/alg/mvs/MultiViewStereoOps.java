@@ -19,9 +19,11 @@
 package boofcv.alg.mvs;
 
 import boofcv.alg.InputSanityCheck;
+import boofcv.alg.cloud.AccessPointIndex;
 import boofcv.alg.distort.pinhole.PixelTransformPinholeNorm_F64;
 import boofcv.alg.mvs.impl.ImplMultiViewStereoOps;
 import boofcv.misc.BoofLambdas;
+import boofcv.struct.PackedArray;
 import boofcv.struct.distort.PixelTransform;
 import boofcv.struct.distort.Point2Transform2_F64;
 import boofcv.struct.image.GrayF32;
@@ -67,6 +69,40 @@ public class MultiViewStereoOps {
 											 final Point2Transform2_F64 rectNorm_to_dispPixel,
 											 final double tolerance,
 											 final GrayU8 mask ) {
+		maskOutPointsInCloud(cloud.size(), ( idx, p ) -> p.setTo(cloud.get(idx)), disparity, parameters,
+				cloud_to_stereo, rectNorm_to_dispPixel, tolerance, mask);
+	}
+
+	/**
+	 * Same as {@link #maskOutPointsInCloud(List, GrayF32, DisparityParameters, Se3_F64, Point2Transform2_F64, double, GrayU8)}
+	 * but for a packed point cloud.
+	 */
+	public static void maskOutPointsInCloud( final PackedArray<Point3D_F64> cloud,
+											 final GrayF32 disparity,
+											 final DisparityParameters parameters,
+											 final Se3_F64 cloud_to_stereo,
+											 final Point2Transform2_F64 rectNorm_to_dispPixel,
+											 final double tolerance,
+											 final GrayU8 mask ) {
+		maskOutPointsInCloud(cloud.size(), cloud::getCopy, disparity, parameters,
+				cloud_to_stereo, rectNorm_to_dispPixel, tolerance, mask);
+	}
+
+	/**
+	 * Same as {@link #maskOutPointsInCloud(List, GrayF32, DisparityParameters, Se3_F64, Point2Transform2_F64, double, GrayU8)}
+	 * but the cloud is accessed through {@link AccessPointIndex}.
+	 *
+	 * @param size (Input) Number of points in the cloud
+	 * @param cloud (Input) Used to access the 3D points
+	 */
+	public static void maskOutPointsInCloud( final int size,
+											 final AccessPointIndex<Point3D_F64> cloud,
+											 final GrayF32 disparity,
+											 final DisparityParameters parameters,
+											 final Se3_F64 cloud_to_stereo,
+											 final Point2Transform2_F64 rectNorm_to_dispPixel,
+											 final double tolerance,
+											 final GrayU8 mask ) {
 		InputSanityCheck.checkSameShape(disparity, mask);
 		parameters.checkValidity();
 
@@ -80,9 +116,12 @@ public class MultiViewStereoOps {
 		// Pixel coordinate in disparity image
 		Point2D_F64 pixel = new Point2D_F64();
 
-		for (int cloudIdx = 0; cloudIdx < cloud.size(); cloudIdx++) {
+		// 3D coordinate of point in cloud reference frame
+		Point3D_F64 cloudPt = new Point3D_F64();
+
+		for (int cloudIdx = 0; cloudIdx < size; cloudIdx++) {
 			// find the point in the camera's reference frame
-			Point3D_F64 cloudPt = cloud.get(cloudIdx);
+			cloud.getPoint(cloudIdx, cloudPt);
 			SePointOps_F64.transform(cloud_to_stereo, cloudPt, cameraPt);
 			if (cameraPt.z <= 0.0)
 				continue;
@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.mvs;
+
+import boofcv.alg.InputSanityCheck;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofMiscOps;
+import boofcv.struct.calib.CameraPinhole;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.packed.PackedBigArrayPoint3D_F64;
+import georegression.struct.se.Se3_F64;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import lombok.Getter;
+import org.ddogleg.struct.DogArray;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Fuses depth or disparity images into a sparse volume of voxels which store a truncated signed distance function
+ * (TSDF). Unlike {@link CreateCloudFromDisparityImages}, a surface which is seen by multiple views is only stored
+ * once and memory usage is bounded by the size of the observed surface divided by the voxel size, not by the number
+ * of images. A de-duplicated point cloud is extracted from the surface on demand.
+ * </p>
+ *
+ * <p>
+ * Voxels are grouped into cubic blocks with {@link #BLOCK_LENGTH} voxels along each side. Blocks are only
+ * allocated near observed surfaces and are looked up using a hash map. When an image is added, blocks inside the
+ * truncation distance of an observed surface are found, then each block is updated by projecting its voxels into
+ * the image. Since each voxel is only modified by the block it belongs to, blocks are updated in parallel and the
+ * results are identical to the single thread version. Signed distance is measured along the camera's z-axis and
+ * is positive in front of the surface.
+ * </p>
+ *
+ * <p>[1] Newcombe, Richard A., et al. "KinectFusion: Real-time dense surface mapping and tracking."
+ * 2011 10th IEEE international symposium on mixed and augmented reality. IEEE, 2011.</p>
+ *
+ * @author Peter Abeles
+ */
+public class VolumetricFusionTsdf {
+	/** Number of voxels along each side of a block */
+	public static final int BLOCK_LENGTH = 8;
+	/** Number of voxels in a block */
+	public static final int BLOCK_VOXELS = BLOCK_LENGTH*BLOCK_LENGTH*BLOCK_LENGTH;
+
+	/** Length of a voxel's side. World units. */
+	@Getter double voxelSize;
+
+	/** Distance from a surface at which the signed distance is truncated. World units. Must be &gt; voxelSize */
+	@Getter double truncation;
+
+	/** A voxel's weight will not go above this value. Smaller values allow it to adapt faster to changes. */
+	public float maxWeight = 100.0f;
+
+	/** When extracting the surface, voxels with a weight less than this are ignored */
+	public float minWeightSurface = 1.0f;
+
+	// Allocated blocks. Memory is recycled after a reset
+	final DogArray<Block> blockStorage = new DogArray<>(Block::new, Block::reset);
+	// Look up table from block coordinate to block
+	final TLongObjectHashMap<Block> blockMap = new TLongObjectHashMap<>();
+
+	// Blocks which are near a surface in the image being added
+	final List<Block> touched = new ArrayList<>();
+	// Number of images which have been added. Used to mark which blocks have already been touched
+	int imageCount;
+
+	// Depth image computed from a disparity image
+	final GrayF32 depthFromDisparity = new GrayF32(1, 1);
+	// Transforms from the view to the rectified view and world to rectified view
+	final Se3_F64 view_to_rect = new Se3_F64();
+	final Se3_F64 world_to_rect = new Se3_F64();
+	final DMatrixRMaj R_view_to_world = new DMatrixRMaj(3, 3);
+
+	/**
+	 * Specifies the volume's resolution
+	 *
+	 * @param voxelSize Length of a voxel's side. World units.
+	 * @param truncation Distance from a surface at which the signed distance is truncated. Try 3 to 5 voxels.
+	 */
+	public VolumetricFusionTsdf( double voxelSize, double truncation ) {
+		BoofMiscOps.checkTrue(voxelSize > 0.0, "Voxel size must be positive");
+		BoofMiscOps.checkTrue(truncation > voxelSize, "Truncation must be larger than a voxel");
+		this.voxelSize = voxelSize;
+		this.truncation = truncation;
+		reset();
+	}
+
+	/**
+	 * Discards all the voxels
+	 */
+	public void reset() {
+		blockStorage.reset();
+		blockMap.clear();
+		touched.clear();
+		imageCount = 0;
+	}
+
+	/**
+	 * Fuses a disparity image into the volume. The disparity image is converted into a depth image in the rectified
+	 * view's reference frame and then added using {@link #addDepth}.
+	 *
+	 * @param disparity (Input) Disparity image
+	 * @param mask (Input) Optional mask. Pixels with a non-zero value are skipped. Can be null.
+	 * @param world_to_view (Input) Transform from world to view reference frame
+	 * @param parameters (Input) Describes how to interpret the disparity values
+	 */
+	public void addDisparity( GrayF32 disparity, @Nullable GrayU8 mask, Se3_F64 world_to_view,
+							  DisparityParameters parameters ) {
+		if (mask != null)
+			InputSanityCheck.checkSameShape(disparity, mask);
+
+		// Convert disparity into depth. Invalid pixels are marked with zero
+		final double baselineFx = parameters.baseline*parameters.pinhole.fx;
+		depthFromDisparity.reshape(disparity.width, disparity.height);
+		for (int y = 0; y < disparity.height; y++) {
+			int indexDisp = disparity.startIndex + y*disparity.stride;
+			int indexDepth = y*depthFromDisparity.width;
+			for (int x = 0; x < disparity.width; x++, indexDisp++, indexDepth++) {
+				float d = disparity.data[indexDisp];
+				if (d >= parameters.disparityRange || (mask != null && mask.unsafe_get(x, y) != 0)) {
+					depthFromDisparity.data[indexDepth] = 0.0f;
+					continue;
+				}
+				d += parameters.disparityMin;
+				depthFromDisparity.data[indexDepth] = d <= 0.0f ? 0.0f : (float)(baselineFx/d);
+			}
+		}
+
+		// The depth image is in the rectified view's reference frame
+		view_to_rect.R.setTo(parameters.rotateToRectified);
+		view_to_rect.T.setTo(0, 0, 0);
+		world_to_view.concat(view_to_rect, world_to_rect);
+
+		addDepth(depthFromDisparity, parameters.pinhole, world_to_rect);
+	}
+
+	/**
+	 * Fuses a depth image into the volume. Depth is the distance along the camera's z-axis. Pixels with a depth
+	 * which is not a positive finite number are skipped.
+	 *
+	 * @param depth (Input) Depth image
+	 * @param intrinsic (Input) Intrinsic camera parameters of the depth image. No lens distortion.
+	 * @param world_to_view (Input) Transform from world to view reference frame
+	 */
+	public void addDepth( GrayF32 depth, CameraPinhole intrinsic, Se3_F64 world_to_view ) {
+		imageCount++;
+		findTouchedBlocks(depth, intrinsic, world_to_view);
+
+		// Each block only modifies its own voxels so they can be updated independently
+		if (BoofConcurrency.USE_CONCURRENT) {
+			BoofConcurrency.loopBlocks(0, touched.size(), ( idx0, idx1 ) ->
+					updateBlocks(depth, intrinsic, world_to_view, idx0, idx1));
+		} else {
+			updateBlocks(depth, intrinsic, world_to_view, 0, touched.size());
+		}
+	}
+
+	/**
+	 * Finds all the blocks which are within the truncation distance of a surface point in the depth image.
+	 * Blocks which do not exist are created.
+	 */
+	void findTouchedBlocks( GrayF32 depth, CameraPinhole intrinsic, Se3_F64 world_to_view ) {
+		touched.clear();
+
+		// transform from view to world
+		CommonOps_DDRM.transpose(world_to_view.R, R_view_to_world);
+		final DMatrixRMaj R = R_view_to_world;
+		final double tx = world_to_view.T.x, ty = world_to_view.T.y, tz = world_to_view.T.z;
+
+		// Sample along the ray often enough that a block can't be skipped over
+		final double blockSize = BLOCK_LENGTH*voxelSize;
+		final int numSamples = (int)Math.ceil(2.0*truncation/(0.5*blockSize)) + 1;
+		final double sampleStep = 2.0*truncation/(numSamples - 1);
+
+		for (int y = 0; y < depth.height; y++) {
+			int indexDepth = depth.startIndex + y*depth.stride;
+			double ny = (y - intrinsic.cy)/intrinsic.fy;
+			for (int x = 0; x < depth.width; x++, indexDepth++) {
+				float z = depth.data[indexDepth];
+				if (!(z > 0.0f) || Float.isInfinite(z))
+					continue;
+
+				double nx = (x - intrinsic.cx - intrinsic.skew*ny)/intrinsic.fx;
+
+				for (int i = 0; i < numSamples; i++) {
+					double sampleZ = z - truncation + i*sampleStep;
+					if (sampleZ <= 0.0)
+						continue;
+
+					// point in view reference frame minus the translation
+					double vx = nx*sampleZ - tx;
+					double vy = ny*sampleZ - ty;
+					double vz = sampleZ - tz;
+
+					// point in world reference frame
+					double wx = R.data[0]*vx + R.data[1]*vy + R.data[2]*vz;
+					double wy = R.data[3]*vx + R.data[4]*vy + R.data[5]*vz;
+					double wz = R.data[6]*vx + R.data[7]*vy + R.data[8]*vz;
+
+					Block block = Objects.requireNonNull(lookupBlock((int)Math.floor(wx/blockSize),
+							(int)Math.floor(wy/blockSize), (int)Math.floor(wz/blockSize), true));
+					if (block.lastImage != imageCount) {
+						block.lastImage = imageCount;
+						touched.add(block);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates the voxels inside the touched blocks by projecting them into the depth image
+	 */
+	void updateBlocks( GrayF32 depth, CameraPinhole intrinsic, Se3_F64 world_to_view, int idx0, int idx1 ) {
+		final double[] R = world_to_view.R.data;
+		final double tx = world_to_view.T.x, ty = world_to_view.T.y, tz = world_to_view.T.z;
+		final double fx = intrinsic.fx, fy = intrinsic.fy, skew = intrinsic.skew;
+		final double cx = intrinsic.cx, cy = intrinsic.cy;
+
+		for (int blockIdx = idx0; blockIdx < idx1; blockIdx++) {
+			Block block = touched.get(blockIdx);
+
+			int voxelIdx = 0;
+			for (int k = 0; k < BLOCK_LENGTH; k++) {
+				double wz = (block.z*BLOCK_LENGTH + k + 0.5)*voxelSize;
+				for (int j = 0; j < BLOCK_LENGTH; j++) {
+					double wy = (block.y*BLOCK_LENGTH + j + 0.5)*voxelSize;
+					for (int i = 0; i < BLOCK_LENGTH; i++, voxelIdx++) {
+						double wx = (block.x*BLOCK_LENGTH + i + 0.5)*voxelSize;
+
+						// voxel center in view reference frame
+						double vz = R[6]*wx + R[7]*wy + R[8]*wz + tz;
+						if (vz <= 0.0)
+							continue;
+						double vx = R[0]*wx + R[1]*wy + R[2]*wz + tx;
+						double vy = R[3]*wx + R[4]*wy + R[5]*wz + ty;
+
+						// project into the image and find the nearest pixel
+						double ny = vy/vz;
+						int px = (int)Math.floor(fx*(vx/vz) + skew*ny + cx + 0.5);
+						int py = (int)Math.floor(fy*ny + cy + 0.5);
+						if (px < 0 || py < 0 || px >= depth.width || py >= depth.height)
+							continue;
+
+						float observed = depth.unsafe_get(px, py);
+						if (!(observed > 0.0f) || Float.isInfinite(observed))
+							continue;
+
+						// Voxels far behind the surface can't be seen
+						double distance = observed - vz;
+						if (distance < -truncation)
+							continue;
+
+						float sdf = (float)(Math.min(1.0, distance/truncation));
+						float weight = block.weight[voxelIdx];
+						block.tsdf[voxelIdx] = (block.tsdf[voxelIdx]*weight + sdf)/(weight + 1.0f);
+						block.weight[voxelIdx] = Math.min(maxWeight, weight + 1.0f);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Extracts the surface as a point cloud. A point is created at every location where the signed distance
+	 * changes sign between two neighboring voxels. The location is found using linear interpolation. Each
+	 * surface crossing is only added once, no matter how many images observed it.
+	 *
+	 * @param cloud (Output) Points on the surface. Points are appended.
+	 */
+	public void extractCloud( PackedBigArrayPoint3D_F64 cloud ) {
+		for (int blockIdx = 0; blockIdx < blockStorage.size; blockIdx++) {
+			Block block = blockStorage.get(blockIdx);
+
+			int voxelIdx = 0;
+			for (int k = 0; k < BLOCK_LENGTH; k++) {
+				for (int j = 0; j < BLOCK_LENGTH; j++) {
+					for (int i = 0; i < BLOCK_LENGTH; i++, voxelIdx++) {
+						if (block.weight[voxelIdx] < minWeightSurface)
+							continue;
+						float value = block.tsdf[voxelIdx];
+
+						// Only check neighbors in the positive direction so that each crossing is considered once
+						if (i + 1 < BLOCK_LENGTH)
+							checkCrossing(block, i, j, k, value, block, voxelIdx + 1, 0, cloud);
+						else
+							checkCrossing(block, i, j, k, value, lookupBlock(block.x + 1, block.y, block.z, false),
+									voxelIdx + 1 - BLOCK_LENGTH, 0, cloud);
+
+						if (j + 1 < BLOCK_LENGTH)
+							checkCrossing(block, i, j, k, value, block, voxelIdx + BLOCK_LENGTH, 1, cloud);
+						else
+							checkCrossing(block, i, j, k, value, lookupBlock(block.x, block.y + 1, block.z, false),
+									voxelIdx + BLOCK_LENGTH - BLOCK_LENGTH*BLOCK_LENGTH, 1, cloud);
+
+						if (k + 1 < BLOCK_LENGTH)
+							checkCrossing(block, i, j, k, value, block, voxelIdx + BLOCK_LENGTH*BLOCK_LENGTH, 2, cloud);
+						else
+							checkCrossing(block, i, j, k, value, lookupBlock(block.x, block.y, block.z + 1, false),
+									voxelIdx + BLOCK_LENGTH*BLOCK_LENGTH - BLOCK_VOXELS, 2, cloud);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds a point to the cloud if the surface is between the voxel at (i,j,k) and its neighbor along the
+	 * specified axis.
+	 */
+	private void checkCrossing( Block block, int i, int j, int k, float value,
+								@Nullable Block neighbor, int neighborIdx, int axis,
+								PackedBigArrayPoint3D_F64 cloud ) {
+		if (neighbor == null || neighbor.weight[neighborIdx] < minWeightSurface)
+			return;
+		float neighborValue = neighbor.tsdf[neighborIdx];
+
+		// Truncated values are not near a surface. This also avoids creating surfaces at occlusion boundaries
+		if (Math.abs(value) >= 1.0f || Math.abs(neighborValue) >= 1.0f)
+			return;
+		if ((value >= 0.0f) == (neighborValue >= 0.0f))
+			return;
+
+		double offset = value/(value - neighborValue);
+		double x = (block.x*BLOCK_LENGTH + i + 0.5 + (axis == 0 ? offset : 0.0))*voxelSize;
+		double y = (block.y*BLOCK_LENGTH + j + 0.5 + (axis == 1 ? offset : 0.0))*voxelSize;
+		double z = (block.z*BLOCK_LENGTH + k + 0.5 + (axis == 2 ? offset : 0.0))*voxelSize;
+		cloud.append(x, y, z);
+	}
+
+	/**
+	 * Returns the block at the specified block coordinate.
+	 *
+	 * @param create If true and the block doesn't exist then it will be created
+	 * @return The block or null if it doesn't exist and create is false
+	 */
+	@Nullable Block lookupBlock( int x, int y, int z, boolean create ) {
+		long key = blockKey(x, y, z);
+		Block block = blockMap.get(key);
+		if (block != null || !create)
+			return block;
+
+		block = blockStorage.grow();
+		block.x = x;
+		block.y = y;
+		block.z = z;
+		blockMap.put(key, block);
+		return block;
+	}
+
+	/**
+	 * Packs the block coordinate into a single long. Each axis has 21-bits.
+	 */
+	static long blockKey( int x, int y, int z ) {
+		return ((long)(x & 0x1FFFFF) << 42) | ((long)(y & 0x1FFFFF) << 21) | (long)(z & 0x1FFFFF);
+	}
+
+	/** Number of allocated blocks */
+	public int getBlockCount() {
+		return blockStorage.size;
+	}
+
+	/**
+	 * A cube of voxels. Voxels are stored in the order x, y, then z. index = (z*BLOCK_LENGTH + y)*BLOCK_LENGTH + x
+	 */
+	static class Block {
+		// Coordinate of the block in block units
+		int x, y, z;
+		// Truncated signed distance, normalized by the truncation distance so it's from -1 to 1
+		final float[] tsdf = new float[BLOCK_VOXELS];
+		// Weight of each voxel. Zero means it has not been observed
+		final float[] weight = new float[BLOCK_VOXELS];
+		// The last image which touched this block
+		int lastImage;
+
+		public void reset() {
+			x = y = z = 0;
+			lastImage = 0;
+			Arrays.fill(tsdf, 0.0f);
+			Arrays.fill(weight, 0.0f);
+		}
+	}
+}
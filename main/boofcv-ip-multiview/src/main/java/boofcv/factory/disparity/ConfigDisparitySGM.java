@@ -76,6 +76,22 @@ public class ConfigDisparitySGM implements Configuration {
 	 * error to prefer a region with lots of pixels outside the image border.
 	 */
 	public BorderType border = BorderType.REFLECT;
+	/**
+	 * If true then all path directions are aggregated at the same time. Each thread will have its own copy of
+	 * the aggregated cost which requires more memory. Results are identical.
+	 */
+	public boolean concurrentDirections = false;
+	/**
+	 * If true then the Census cost is stored in a compact 8-bit format, which halves memory usage of the cost
+	 * tensor. Results are identical. Only used if error type is Census and {@link #useBlocks} is false.
+	 */
+	public boolean compactCost = false;
+	/**
+	 * If true then the Census transform and the Hamming distance are computed together, one row at a time, and
+	 * the Census images are never created. Results are identical. Only used if error type is Census and
+	 * {@link #useBlocks} is false. Takes priority over {@link #compactCost}.
+	 */
+	public boolean fusedCensus = false;
 
 	public void setTo( ConfigDisparitySGM src ) {
 		this.disparityMin = src.disparityMin;
@@ -93,6 +109,9 @@ public class ConfigDisparitySGM implements Configuration {
 		this.configHMI.setTo(src.configHMI);
 		this.configBlockMatch.setTo(src.configBlockMatch);
 		this.border = src.border;
+		this.concurrentDirections = src.concurrentDirections;
+		this.compactCost = src.compactCost;
+		this.fusedCensus = src.fusedCensus;
 	}
 
 	public static class ConfigBlockMatchError implements Configuration {
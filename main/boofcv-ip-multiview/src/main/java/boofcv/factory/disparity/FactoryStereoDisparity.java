@@ -124,6 +124,52 @@ public class FactoryStereoDisparity {
 		}
 	}
 
+	/**
+	 * Block matching which first computes disparity using down sampled images. This is then used to reduce the
+	 * disparity range which is searched at full resolution. Useful when the disparity range is large.
+	 *
+	 * @param config Configuration for block matching at full resolution. Coarse resolution uses a scaled range.
+	 * @param scale Ratio of full resolution to coarse resolution. Try 4.
+	 * @param imageType Type of input image
+	 * @see StereoDisparityCoarseToFine
+	 */
+	public static <T extends ImageGray<T>> StereoDisparityCoarseToFine<T>
+	blockMatchCoarseToFine( @Nullable ConfigDisparityBM config, int scale, Class<T> imageType ) {
+		if (config == null)
+			config = new ConfigDisparityBM();
+		config.checkValidity();
+
+		final Class dispType = config.subpixel ? GrayF32.class : GrayU8.class;
+
+		// Coarse range is selected so that it includes the full resolution range
+		var configCoarse = new ConfigDisparityBM();
+		configCoarse.setTo(config);
+		configCoarse.disparityMin = config.disparityMin/scale;
+		int coarseMax = (config.disparityMin + config.disparityRange - 1 + scale - 1)/scale;
+		configCoarse.disparityRange = coarseMax - configCoarse.disparityMin + 1;
+		StereoDisparity<T, ?> coarse = blockMatch(configCoarse, imageType, dispType);
+
+		// Fine range is specified for each tile and the minimum is always zero
+		var configFine = new ConfigDisparityBM();
+		configFine.setTo(config);
+		configFine.disparityMin = 0;
+
+		// Tiles need to be padded by the block radius and census radius
+		int padding = Math.max(config.regionRadiusX, config.regionRadiusY);
+		if (config.errorType == DisparityError.CENSUS) {
+			FilterCensusTransform censusTran = FactoryCensusTransform.variant(config.configCensus.variant, false, imageType);
+			padding += Math.max(censusTran.getRadiusX(), censusTran.getRadiusY());
+		}
+
+		return new StereoDisparityCoarseToFine<>(config.disparityMin, config.disparityRange, scale, coarse,
+				range -> {
+					var configRange = new ConfigDisparityBM();
+					configRange.setTo(configFine);
+					configRange.disparityRange = range;
+					return blockMatch(configRange, imageType, dispType);
+				}, padding);
+	}
+
 	public static BlockRowScore createCensusRowScore( ConfigDisparityBM config, FilterImageInterface censusTran ) {
 		Class censusType = censusTran.getOutputType().getImageClass();
 		int bits = config.configCensus.variant.getBits();
@@ -278,6 +324,17 @@ public class FactoryStereoDisparity {
 
 	public static <T extends ImageGray<T>> StereoDisparitySparse<T>
 	sparseRectifiedBM( ConfigDisparityBM config, final Class<T> imageType ) {
+		WrapDisparitySparseRectifiedBM alg = createSparseRectifiedBM(config, imageType);
+
+		// Each thread needs its own instance when a batch of pixels is processed concurrently
+		var configCopy = new ConfigDisparityBM();
+		configCopy.setTo(config);
+		alg.setFactoryWorker(() -> createSparseRectifiedBM(configCopy, imageType));
+		return alg;
+	}
+
+	private static <T extends ImageGray<T>> WrapDisparitySparseRectifiedBM
+	createSparseRectifiedBM( ConfigDisparityBM config, final Class<T> imageType ) {
 
 		double maxError = (config.regionRadiusX*2 + 1)*(config.regionRadiusY*2 + 1)*config.maxPerPixelError;
 
@@ -27,13 +27,19 @@ import boofcv.alg.disparity.block.DisparitySparseSelect;
 import boofcv.alg.disparity.block.select.*;
 import boofcv.alg.disparity.sgm.*;
 import boofcv.alg.disparity.sgm.cost.SgmCostAbsoluteDifference;
+import boofcv.alg.disparity.sgm.cost.SgmCostCensusHamming_U8;
 import boofcv.alg.disparity.sgm.cost.SgmCostFromBlocks;
 import boofcv.alg.disparity.sgm.cost.SgmCostHamming;
 import boofcv.alg.disparity.sgm.cost.StereoMutualInformation;
+import boofcv.alg.transform.census.CensusTransform;
 import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.border.FactoryImageBorder;
+import boofcv.factory.transform.census.CensusVariants;
 import boofcv.factory.transform.census.FactoryCensusTransform;
+import boofcv.struct.border.ImageBorder_S32;
 import boofcv.struct.image.*;
+import georegression.struct.point.Point2D_I32;
+import org.ddogleg.struct.FastAccess;
 import org.jetbrains.annotations.Nullable;
 
 import static boofcv.factory.disparity.FactoryStereoDisparity.*;
@@ -73,6 +79,7 @@ public class FactoryStereoDisparityAlgs {
 		sgm.getAggregation().setPathsConsidered(config.paths.getCount());
 		sgm.getAggregation().setPenalty1(config.penaltySmallChange);
 		sgm.getAggregation().setPenalty2(config.penaltyLargeChange);
+		sgm.getAggregation().setConcurrentDirections(config.concurrentDirections);
 
 		return sgm;
 	}
@@ -94,6 +101,12 @@ public class FactoryStereoDisparityAlgs {
 			break;
 
 			case CENSUS: {
+				if (config.fusedCensus) {
+					ImageBorder_S32<GrayU8> border = FactoryImageBorder.single(FactoryCensusTransform.CENSUS_BORDER, GrayU8.class);
+					FastAccess<Point2D_I32> samples = createCensusSamples(config.configCensus.variant);
+					sgm = new SgmStereoDisparityError(new SgmCostCensusHamming_U8(samples, border), selector);
+					break;
+				}
 				FilterImageInterface censusTran = FactoryCensusTransform.variant(config.configCensus.variant, true, GrayU8.class);
 				Class censusType = censusTran.getOutputType().getImageClass();
 				SgmCostHamming cost;
@@ -107,6 +120,7 @@ public class FactoryStereoDisparityAlgs {
 					throw new IllegalArgumentException("Unsupported image type");
 				}
 				sgm = new SgmStereoDisparityCensus(censusTran, cost, selector);
+				((SgmStereoDisparityCensus)sgm).setCompactCost(config.compactCost);
 			}
 			break;
 
@@ -116,6 +130,21 @@ public class FactoryStereoDisparityAlgs {
 		return sgm;
 	}
 
+	/**
+	 * Samples used by the Census transform variant. Matches what {@link FactoryCensusTransform#variant} uses.
+	 */
+	private static FastAccess<Point2D_I32> createCensusSamples( CensusVariants variant ) {
+		switch (variant) {
+			case BLOCK_3_3: return CensusTransform.createBlockSamples(1);
+			case BLOCK_5_5: return CensusTransform.createBlockSamples(2);
+			case BLOCK_7_7: return CensusTransform.createBlockSamples(3);
+			case BLOCK_9_7: return CensusTransform.createBlockSamples(4, 3);
+			case BLOCK_13_5: return CensusTransform.createBlockSamples(5, 2);
+			case CIRCLE_9: return CensusTransform.createCircleSamples();
+			default: throw new IllegalArgumentException("Unknown type " + variant);
+		}
+	}
+
 	private static <T extends ImageGray<T>>
 	SgmStereoDisparity createSgmBlockCost( ConfigDisparitySGM config, SgmDisparitySelector selector, Class<T> imageType ) {
 		SgmStereoDisparity sgm;
@@ -20,14 +20,21 @@ package boofcv.abst.disparity;
 
 import boofcv.BoofTesting;
 import boofcv.alg.misc.GImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.disparity.ConfigDisparityBM;
 import boofcv.factory.disparity.DisparityError;
 import boofcv.factory.disparity.FactoryStereoDisparity;
 import boofcv.struct.image.*;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_F64;
+import org.ddogleg.struct.DogArray_I32;
 import org.junit.jupiter.api.Test;
 
 import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
  * @author Peter Abeles
  */
@@ -122,6 +129,55 @@ public abstract class CompareSparseToDenseDisparityChecks<T extends ImageGray<T>
 		compareResults(config);
 	}
 
+	/**
+	 * Processing a batch of pixels, concurrently and in any order, should produce the same results as processing
+	 * them one at a time. The same instance is used for several batches, each with a different set of rows
+	 */
+	@Test void checkBatch() {
+		ConfigDisparityBM config = createConfig();
+		config.subpixel = true;
+
+		StereoDisparitySparse<T> expected = createSparse(config);
+		StereoDisparitySparse<T> alg = createSparse(config);
+		expected.setImages(left, right);
+		alg.setImages(left, right);
+
+		// Random pixels with many sharing the same row and having overlapping blocks
+		checkBatch(expected, alg, 300, 0, height, true);
+		// Fewer rows than before with a different minimum row
+		checkBatch(expected, alg, 200, 5, 9, true);
+		checkBatch(expected, alg, 150, 2, 12, false);
+		// Pixels which are far apart
+		checkBatch(expected, alg, 10, 0, height, true);
+	}
+
+	void checkBatch( StereoDisparitySparse<T> expected, StereoDisparitySparse<T> alg,
+					 int count, int y0, int y1, boolean concurrent ) {
+		var pixels = new DogArray_I32();
+		for (int i = 0; i < count; i++) {
+			pixels.add(rand.nextInt(width));
+			pixels.add(y0 + rand.nextInt(y1 - y0));
+		}
+
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+		var disparity = new DogArray_F64();
+		var valid = new DogArray_B();
+		alg.process(pixels, disparity, valid);
+
+		assertEquals(count, disparity.size);
+		assertEquals(count, valid.size);
+		int totalValid = 0;
+		for (int i = 0; i < count; i++) {
+			boolean success = expected.process(pixels.get(i*2), pixels.get(i*2 + 1));
+			assertEquals(success, valid.get(i));
+			if (!success)
+				continue;
+			totalValid++;
+			assertEquals(expected.getDisparity(), disparity.get(i));
+		}
+		assertTrue(totalValid > 0);
+	}
+
 	public <D extends ImageGray<D>>
 	void compareResults( ConfigDisparityBM config ) {
 		StereoDisparity<T, D> dense = createDense(config);
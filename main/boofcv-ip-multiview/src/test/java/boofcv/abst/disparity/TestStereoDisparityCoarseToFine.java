@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.abst.disparity;
+
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.disparity.ConfigDisparityBM;
+import boofcv.factory.disparity.DisparityError;
+import boofcv.factory.disparity.FactoryStereoDisparity;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestStereoDisparityCoarseToFine extends BoofStandardJUnit {
+	int width = 240;
+	int height = 80;
+
+	/**
+	 * Constant disparity across the image. It should be found while only searching a small range in each tile
+	 */
+	@Test void constantDisparity() {
+		int disparity = 37;
+
+		for (DisparityError error : new DisparityError[]{DisparityError.SAD, DisparityError.CENSUS}) {
+			var config = new ConfigDisparityBM();
+			config.errorType = error;
+			config.disparityMin = 5;
+			config.disparityRange = 120;
+			config.subpixel = false;
+			config.validateRtoL = -1;
+			config.texture = 0.0;
+
+			StereoDisparityCoarseToFine<GrayU8> alg =
+					FactoryStereoDisparity.blockMatchCoarseToFine(config, 4, GrayU8.class);
+
+			var left = new GrayU8(width, height);
+			var right = new GrayU8(width, height);
+			createShifted(left, right, disparity);
+
+			alg.process(left, right);
+			GrayF32 found = alg.getDisparity();
+			assertEquals(width, found.width);
+			assertEquals(height, found.height);
+
+			// Only look at pixels which can see the full block in both images
+			int total = 0;
+			int correct = 0;
+			for (int y = 0; y < height; y++) {
+				for (int x = disparity + 10; x < width; x++) {
+					total++;
+					if (found.get(x, y) + config.disparityMin == disparity)
+						correct++;
+				}
+			}
+			assertTrue(correct > total*0.95, error + " correct=" + correct + " total=" + total);
+
+			// All the tiles should have searched a reduced range
+			for (int range : alg.fineByRange.keys()) {
+				assertTrue(range < config.disparityRange);
+			}
+		}
+	}
+
+	/**
+	 * If the coarse disparity has no valid values then the tile should be skipped instead of searching the full range
+	 */
+	@Test void noCoarse() {
+		var config = new ConfigDisparityBM();
+		config.disparityMin = 5;
+		config.disparityRange = 120;
+		config.subpixel = false;
+
+		StereoDisparityCoarseToFine<GrayU8> alg =
+				FactoryStereoDisparity.blockMatchCoarseToFine(config, 4, GrayU8.class);
+
+		var left = new GrayU8(width, height);
+		var right = new GrayU8(width, height);
+		createShifted(left, right, 20);
+		alg.process(left, right);
+		assertEquals(0, alg.getTotalSkippedTiles());
+
+		// Mark every coarse pixel as invalid
+		GImageMiscOps.fill(alg.coarse.getDisparity(), alg.coarse.getInvalidValue());
+		for (int i = 0; i < alg.tilesMin.size; i++) {
+			alg.coarseTileRange(0, 0, width, height, i);
+		}
+		assertFalse(alg.selectTileRange(1, 1));
+	}
+
+	/**
+	 * A tile without a valid coarse disparity should use the union of its neighbors' ranges
+	 */
+	@Test void selectTileRange_neighbors() {
+		var config = new ConfigDisparityBM();
+		config.disparityMin = 5;
+		config.disparityRange = 120;
+		config.subpixel = false;
+
+		StereoDisparityCoarseToFine<GrayU8> alg =
+				FactoryStereoDisparity.blockMatchCoarseToFine(config, 4, GrayU8.class);
+		alg.rangeStep = 1;
+
+		var left = new GrayU8(width, height);
+		var right = new GrayU8(width, height);
+		createShifted(left, right, 20);
+		alg.process(left, right);
+
+		// Every tile is unknown except for two which are next to tile (1,1) and one which is too far away
+		alg.tilesMin.fill(Integer.MAX_VALUE);
+		alg.tilesMax.fill(Integer.MIN_VALUE);
+		setTile(alg, 0, 0, 20, 30);
+		setTile(alg, 2, 1, 40, 45);
+		setTile(alg, 4, 1, 100, 110);
+
+		// Tile has a range so it should be used
+		assertTrue(alg.selectTileRange(0, 0));
+		assertEquals(20, alg.tileMin);
+		assertEquals(11, alg.tileRange);
+
+		// Union of the neighbors
+		assertTrue(alg.selectTileRange(1, 1));
+		assertEquals(20, alg.tileMin);
+		assertEquals(26, alg.tileRange);
+
+		// No neighbors are known
+		assertFalse(alg.selectTileRange(6, 0));
+
+		// Turn off the fallback
+		alg.fallbackRadius = 0;
+		assertFalse(alg.selectTileRange(1, 1));
+	}
+
+	private void setTile( StereoDisparityCoarseToFine<?> alg, int tx, int ty, int min, int max ) {
+		alg.tilesMin.set(ty*alg.tilesX + tx, min);
+		alg.tilesMax.set(ty*alg.tilesX + tx, max);
+	}
+
+	/**
+	 * Right image is the left image shifted by the disparity
+	 */
+	private void createShifted( GrayU8 left, GrayU8 right, int disparity ) {
+		ImageMiscOps.fillUniform(left, rand, 0, 255);
+		ImageMiscOps.fillUniform(right, rand, 0, 255);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x + disparity < width; x++) {
+				right.set(x, y, left.get(x + disparity, y));
+			}
+		}
+	}
+}
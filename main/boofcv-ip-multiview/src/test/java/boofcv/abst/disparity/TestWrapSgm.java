@@ -66,4 +66,24 @@ class TestWrapSgm extends BoofStandardJUnit {
 			return FactoryStereoDisparity.sgm(config, inputType.getImageClass(), disparityType.getImageClass());
 		}
 	}
+
+	@Nested
+	class FusedCensus_U8 extends GenericStereoDisparityChecks<GrayU8, GrayU8> {
+
+		public FusedCensus_U8() {
+			super(ImageType.SB_U8, ImageType.SB_U8);
+		}
+
+		@Override
+		public StereoDisparity<GrayU8, GrayU8> createAlg( int disparityMin, int disparityRange ) {
+			ConfigDisparitySGM config = new ConfigDisparitySGM();
+			config.errorType = DisparitySgmError.CENSUS;
+			config.useBlocks = false;
+			config.fusedCensus = true;
+			config.subpixel = false;
+			config.disparityMin = disparityMin;
+			config.disparityRange = disparityRange;
+			return FactoryStereoDisparity.sgm(config, inputType.getImageClass(), disparityType.getImageClass());
+		}
+	}
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.disparity.block.score;
+
+import boofcv.alg.disparity.block.SparseScoreRectifiedSad;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.core.image.border.FactoryImageBorder;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.border.ImageBorder_S32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+import boofcv.testing.BoofStandardJUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestDisparitySparseRectifiedScoreRowBM extends BoofStandardJUnit {
+
+	int width = 40;
+	int height = 30;
+
+	/**
+	 * Scores computed by summing column scores should be identical to scoring each block independently
+	 */
+	@Test
+	void prepareRowLeftToRight() {
+		var leftImage = new GrayU8(width, height);
+		var rightImage = new GrayU8(width, height);
+		ImageMiscOps.fillUniform(leftImage, rand, 0, 200);
+		ImageMiscOps.fillUniform(rightImage, rand, 0, 200);
+
+		DisparitySparseRectifiedScoreRowBM<int[], GrayU8> expected = createAlg(leftImage, rightImage);
+		DisparitySparseRectifiedScoreRowBM<int[], GrayU8> found = createAlg(leftImage, rightImage);
+
+		// Include the image border and pixels before the minimum disparity
+		for (int y : new int[]{0, 12, height - 1}) {
+			assertTrue(found.prepareRowLeftToRight(0, width, y));
+
+			for (int x = 0; x < width; x++) {
+				assertEquals(expected.processLeftToRight(x, y), found.processLeftToRight(x, y));
+				if (x < expected.getDisparityMin())
+					continue;
+				assertEquals(expected.getLocalRangeLtoR(), found.getLocalRangeLtoR());
+				for (int i = 0; i < expected.getLocalRangeLtoR(); i++) {
+					assertEquals(expected.getScoreLtoR()[i], found.getScoreLtoR()[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Column scores should only be used for the row they were computed in and be discarded if the images change
+	 */
+	@Test
+	void columnScoresDiscarded() {
+		var leftImage = new GrayU8(width, height);
+		var rightImage = new GrayU8(width, height);
+		ImageMiscOps.fillUniform(leftImage, rand, 0, 200);
+		ImageMiscOps.fillUniform(rightImage, rand, 0, 200);
+
+		DisparitySparseRectifiedScoreRowBM<int[], GrayU8> alg = createAlg(leftImage, rightImage);
+
+		// No pixels in the row can be processed
+		assertFalse(alg.prepareRowLeftToRight(0, 2, 5));
+		assertEquals(-1, alg.columnsY);
+
+		assertTrue(alg.prepareRowLeftToRight(5, 20, 5));
+		assertEquals(5, alg.columnsY);
+		alg.setImages(leftImage, rightImage);
+		assertEquals(-1, alg.columnsY);
+	}
+
+	private DisparitySparseRectifiedScoreRowBM<int[], GrayU8> createAlg( GrayU8 left, GrayU8 right ) {
+		var alg = new SparseScoreRectifiedSad.U8(2, 1);
+		alg.setBorder((ImageBorder_S32)FactoryImageBorder.generic(BorderType.EXTENDED, ImageType.SB_U8));
+		alg.configure(3, 12);
+		alg.setImages(left, right);
+		return alg;
+	}
+}
@@ -217,6 +217,73 @@ class TestSgmCostAggregation  extends BoofStandardJUnit {
 		}
 	}
 
+	/**
+	 * Scoring all directions at once with per thread aggregated costs should produce identical results
+	 */
+	@Test
+	void concurrentDirections() {
+		Planar<GrayU16> costYXD = new Planar<>(GrayU16.class, 120, 60, 20);
+		GImageMiscOps.fillUniform(costYXD, rand, 0, 100);
+
+		for (int paths : new int[]{1, 2, 4, 8, 16}) {
+			BoofConcurrency.USE_CONCURRENT = false;
+			var expected = new SgmCostAggregation();
+			expected.configure(2);
+			expected.setPathsConsidered(paths);
+			expected.process(costYXD);
+
+			BoofConcurrency.USE_CONCURRENT = true;
+			var alg = new SgmCostAggregation();
+			alg.configure(2);
+			alg.setPathsConsidered(paths);
+			alg.setConcurrentDirections(true);
+			alg.process(costYXD);
+			BoofTesting.assertEquals(expected.getAggregated(), alg.getAggregated(), 0.0);
+
+			// Call it again to make sure the thread's copies are reset
+			alg.process(costYXD);
+			BoofTesting.assertEquals(expected.getAggregated(), alg.getAggregated(), 0.0);
+		}
+	}
+
+	/**
+	 * Encode the cost using a look up table and see if it produces the same results as the decoded cost
+	 */
+	@Test
+	void processCompact() {
+		var costTable = new short[256];
+		for (int i = 0; i < costTable.length; i++) {
+			costTable[i] = (short)(i*SgmDisparityCost.MAX_COST/255);
+		}
+
+		Planar<GrayU8> compactYXD = new Planar<>(GrayU8.class, 12, width, height);
+		GImageMiscOps.fillUniform(compactYXD, rand, 0, 255);
+
+		// Decode the cost
+		Planar<GrayU16> costYXD = new Planar<>(GrayU16.class, 12, width, height);
+		for (int y = 0; y < height; y++) {
+			GrayU8 src = compactYXD.getBand(y);
+			GrayU16 dst = costYXD.getBand(y);
+			for (int i = 0; i < src.totalPixels(); i++) {
+				dst.data[i] = costTable[src.data[i] & 0xFF];
+			}
+		}
+
+		for (int paths : new int[]{1, 2, 4, 8, 16}) {
+			var expected = new SgmCostAggregation();
+			expected.configure(3);
+			expected.setPathsConsidered(paths);
+			expected.process(costYXD);
+
+			var alg = new SgmCostAggregation();
+			alg.configure(3);
+			alg.setPathsConsidered(paths);
+			alg.processCompact(compactYXD, costTable);
+
+			BoofTesting.assertEquals(expected.getAggregated(), alg.getAggregated(), 0.0);
+		}
+	}
+
 	/**
 	 * Makes sure all possible paths are scored once and only once
 	 */
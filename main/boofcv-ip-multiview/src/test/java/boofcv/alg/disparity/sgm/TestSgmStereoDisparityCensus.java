@@ -61,4 +61,20 @@ class TestSgmStereoDisparityCensus extends BoofStandardJUnit {
 			return new SgmStereoDisparityCensus(censusTran, cost, new SgmDisparitySelector());
 		}
 	}
+
+	@Nested
+	public class Compact_U8_S32 extends GenericSgmStereoDisparityChecks<GrayU8, GrayS32> {
+		protected Compact_U8_S32() {
+			super(ImageType.SB_U8);
+		}
+
+		@Override
+		public SgmStereoDisparity<GrayU8, GrayS32> createAlgorithm() {
+			FilterImageInterface censusTran = FactoryCensusTransform.variant(BLOCK_5_5, true, GrayU8.class);
+			SgmCostHamming<GrayS32> cost = new SgmCostHamming.S32();
+			var alg = new SgmStereoDisparityCensus(censusTran, cost, new SgmDisparitySelector());
+			alg.setCompactCost(true);
+			return alg;
+		}
+	}
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.disparity.sgm.cost;
+
+import boofcv.BoofTesting;
+import boofcv.abst.filter.FilterImageInterface;
+import boofcv.alg.disparity.sgm.SgmDisparityCost;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.alg.transform.census.CensusTransform;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.core.image.border.FactoryImageBorder;
+import boofcv.factory.transform.census.CensusVariants;
+import boofcv.factory.transform.census.FactoryCensusTransform;
+import boofcv.struct.border.ImageBorder_S32;
+import boofcv.struct.image.*;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.point.Point2D_I32;
+import org.ddogleg.struct.DogArray;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Peter Abeles
+ */
+class TestSgmCostCensusHamming_U8 extends BoofStandardJUnit {
+
+	int width = 40;
+	int height = 30;
+
+	@Nested
+	public class Checks extends ChecksSgmDisparityCost<GrayU8> {
+		public Checks() {
+			super(0, 255, ImageType.single(GrayU8.class));
+		}
+
+		@Override
+		SgmDisparityCost<GrayU8> createAlg() {
+			return createCost(2);
+		}
+	}
+
+	SgmCostCensusHamming_U8 createCost( int radius ) {
+		return createCost(CensusTransform.createBlockSamples(radius));
+	}
+
+	SgmCostCensusHamming_U8 createCost( DogArray<Point2D_I32> samples ) {
+		ImageBorder_S32<GrayU8> border = FactoryImageBorder.single(FactoryCensusTransform.CENSUS_BORDER, GrayU8.class);
+		return new SgmCostCensusHamming_U8(samples, border);
+	}
+
+	/**
+	 * Compare against computing the census transform and then the cost as two separate steps
+	 */
+	@Test void compareToSeparateSteps() {
+		compareToSeparateSteps(CensusVariants.BLOCK_3_3, CensusTransform.createBlockSamples(1), new SgmCostHamming.U8());
+		compareToSeparateSteps(CensusVariants.BLOCK_5_5, CensusTransform.createBlockSamples(2), new SgmCostHamming.S32());
+		// More than 32 samples, so the census is stored in 64-bit images
+		compareToSeparateSteps(CensusVariants.BLOCK_7_7, CensusTransform.createBlockSamples(3), new SgmCostHamming.S64());
+		compareToSeparateSteps(CensusVariants.CIRCLE_9, CensusTransform.createCircleSamples(), new SgmCostHamming.S64());
+	}
+
+	<C extends ImageGray<C>>
+	void compareToSeparateSteps( CensusVariants variant, DogArray<Point2D_I32> samples, SgmCostHamming<C> hamming ) {
+		var left = new GrayU8(width, height);
+		var right = new GrayU8(width, height);
+		ImageMiscOps.fillUniform(left, rand, 0, 255);
+		ImageMiscOps.fillUniform(right, rand, 0, 255);
+
+		FilterImageInterface<GrayU8, C> censusTran = FactoryCensusTransform.variant(variant, true, GrayU8.class);
+		C censusLeft = censusTran.getOutputType().createImage(width, height);
+		C censusRight = censusTran.getOutputType().createImage(width, height);
+		censusTran.process(left, censusLeft);
+		censusTran.process(right, censusRight);
+
+		var expected = new Planar<>(GrayU16.class, 1, 1, 1);
+		hamming.configure(3, 12);
+		hamming.process(censusLeft, censusRight, expected);
+
+		var found = new Planar<>(GrayU16.class, 1, 1, 1);
+		SgmCostCensusHamming_U8 alg = createCost(samples);
+		alg.configure(3, 12);
+		alg.process(left, right, found);
+
+		// Only compare the elements that are written to
+		for (int y = 0; y < height; y++) {
+			BoofTesting.assertEquals(expected.getBand(y).subimage(0, 0, 12, width - 3),
+					found.getBand(y).subimage(0, 0, 12, width - 3), 0);
+		}
+	}
+
+	/**
+	 * Results should be identical when computed with multiple threads
+	 */
+	@Test void compareConcurrent() {
+		var left = new GrayU8(width, height);
+		var right = new GrayU8(width, height);
+		ImageMiscOps.fillUniform(left, rand, 0, 255);
+		ImageMiscOps.fillUniform(right, rand, 0, 255);
+
+		var expected = new Planar<>(GrayU16.class, 1, 1, 1);
+		var found = new Planar<>(GrayU16.class, 1, 1, 1);
+
+		SgmCostCensusHamming_U8 alg = createCost(2);
+		alg.configure(0, 10);
+
+		BoofConcurrency.USE_CONCURRENT = false;
+		alg.process(left, right, expected);
+		BoofConcurrency.USE_CONCURRENT = true;
+		alg.process(left, right, found);
+
+		BoofTesting.assertEquals(expected, found, 0);
+	}
+}
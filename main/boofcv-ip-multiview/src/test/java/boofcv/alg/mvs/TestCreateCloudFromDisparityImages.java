@@ -85,7 +85,7 @@ public class TestCreateCloudFromDisparityImages extends BoofStandardJUnit {
 		assertEquals(0, alg.addDisparity(disparity, mask, world_to_view, parameters, n_to_p, p_to_n));
 
 		// Only the two pixels marked as invalid should be excluded
-		assertEquals(width*height - 2, alg.cloud.size);
+		assertEquals(width*height - 2, alg.cloud.size());
 
 		DogArray<Point3D_F64> expected = new DogArray<>(Point3D_F64::new);
 		MultiViewStereoOps.disparityToCloud(disparity, mask, parameters,
@@ -96,7 +96,7 @@ public class TestCreateCloudFromDisparityImages extends BoofStandardJUnit {
 		for (int i = 0; i < expected.size; i++) {
 			Point3D_F64 e = expected.get(i);
 			SePointOps_F64.transformReverse(world_to_view, e, e);
-			assertEquals(0.0, e.distance(alg.cloud.get(i)), UtilEjml.TEST_F64);
+			assertEquals(0.0, e.distance(alg.cloud.getTemp(i)), UtilEjml.TEST_F64);
 		}
 	}
 
@@ -113,14 +113,14 @@ public class TestCreateCloudFromDisparityImages extends BoofStandardJUnit {
 		assertEquals(0, alg.addDisparity(disparity, mask, world_to_view, parameters, n_to_p, p_to_n));
 
 		assertEquals(0, ImageStatistics.sum(mask)); // no previous points should fill it in
-		assertEquals(width*height, alg.cloud.size);
+		assertEquals(width*height, alg.cloud.size());
 		assertEquals(1, alg.viewPointIdx.size);
 
 		// add it again and see if no new points were added but the views increased
 		assertEquals(1, alg.addDisparity(disparity, mask, world_to_view, parameters, n_to_p, p_to_n));
 
 		assertTrue(ImageStatistics.sum(mask) > 0); // it should be filled in with existing points
-		assertEquals(width*height, alg.cloud.size);
+		assertEquals(width*height, alg.cloud.size());
 		assertEquals(2, alg.viewPointIdx.size);
 	}
 
@@ -137,18 +137,18 @@ public class TestCreateCloudFromDisparityImages extends BoofStandardJUnit {
 		var alg = new CreateCloudFromDisparityImages();
 		alg.disparitySimilarTol = tol;
 		assertEquals(0, alg.addDisparity(disparity, mask, world_to_view, parameters, n_to_p, p_to_n));
-		assertEquals(width*height, alg.cloud.size);
+		assertEquals(width*height, alg.cloud.size());
 
 		// Changing the disparity, but just under the tolerance. Nothing should be added
 		disparity.data[72] += tol - 0.001f;
 		assertEquals(1, alg.addDisparity(disparity, mask, world_to_view, parameters, n_to_p, p_to_n));
-		assertEquals(width*height, alg.cloud.size);
+		assertEquals(width*height, alg.cloud.size());
 
 		// It should now be above the tolerance
 		disparity.data[72] += 0.002f;
 		// zero the mask again so that it can add points
 		ImageMiscOps.fill(mask, 0);
 		assertEquals(2, alg.addDisparity(disparity, mask, world_to_view, parameters, n_to_p, p_to_n));
-		assertEquals(width*height + 1, alg.cloud.size);
+		assertEquals(width*height + 1, alg.cloud.size());
 	}
 }
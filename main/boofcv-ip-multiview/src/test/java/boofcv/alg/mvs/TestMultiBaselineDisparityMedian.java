@@ -18,10 +18,12 @@
 
 package boofcv.alg.mvs;
 
+import boofcv.BoofTesting;
 import boofcv.alg.distort.DoNothingPixelTransform_F64;
 import boofcv.alg.distort.PixelTransformAffine_F64;
 import boofcv.alg.misc.ImageMiscOps;
 import boofcv.alg.misc.ImageStatistics;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.calib.CameraPinhole;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.GrayU8;
@@ -91,28 +93,28 @@ public class TestMultiBaselineDisparityMedian extends BoofStandardJUnit {
 		var distort = new PixelTransformAffine_F64();
 		distort.getModel().setTo(2, 0, 0, 2, 0, 0);
 		alg.initialize(intrinsic, distort);
-		alg.fusedBaseline = parameters.baseline;
 
-		var image = new MultiBaselineDisparityMedian.DisparityImage();
-		image.disparity.reshape(intrinsic.width, intrinsic.height - 12);
-		ImageMiscOps.fill(image.disparity, 5);
-		image.mask.reshape(image.disparity);
-		image.parameters.setTo(parameters);
+		var disparity = new GrayF32(intrinsic.width, intrinsic.height - 12);
+		ImageMiscOps.fill(disparity, 5);
+		var mask = new GrayU8(disparity.width, disparity.height);
 		// only part of the mask has valid values
-		ImageMiscOps.fillRectangle(image.mask, 1, 1, 1, 79, 59);
+		ImageMiscOps.fillRectangle(mask, 1, 1, 1, 79, 59);
 		// when inverted this will counter act the distort above
-		CommonOps_DDRM.diag(image.undist_to_rect_px, 3, 0.5, 0.5, 1);
+		var undist_to_rect_px = new DMatrixRMaj(3, 3);
+		CommonOps_DDRM.diag(undist_to_rect_px, 3, 0.5, 0.5, 1);
 
-		assertTrue(alg.addToFusedImage(image));
+		alg.addToFusedImage(disparity, mask, parameters, undist_to_rect_px);
+		alg.fused.sortByPixel();
 		for (int y = 0; y < intrinsic.height; y++) {
 			for (int x = 0; x < intrinsic.width; x++) {
-				if (y == 0 || x == 0 || y >= image.disparity.height) {
-					assertEquals(0, alg.fused.get(x, y).size, x + " " + y);
+				if (y == 0 || x == 0 || y >= disparity.height) {
+					assertEquals(0, alg.fused.getCount(x, y), x + " " + y);
 				} else if (y < 60 && x < 80) {
-					assertEquals(1, alg.fused.get(x, y).size);
-					assertEquals(10, alg.fused.get(x, y).get(0));
+					assertEquals(1, alg.fused.getCount(x, y));
+					// values are saved with a baseline of one
+					assertEquals(10, alg.fused.getValue(x, y, 0)*parameters.baseline, UtilEjml.TEST_F32);
 				} else {
-					assertEquals(0, alg.fused.get(x, y).size);
+					assertEquals(0, alg.fused.getCount(x, y));
 				}
 			}
 		}
@@ -127,28 +129,133 @@ public class TestMultiBaselineDisparityMedian extends BoofStandardJUnit {
 		var distort = new PixelTransformAffine_F64();
 		distort.getModel().setTo(1, 0, 0, 1, 0, 0);
 		alg.initialize(intrinsic, distort);
-		alg.fusedBaseline = parameters.baseline;
-
-		var image = new MultiBaselineDisparityMedian.DisparityImage();
-		image.disparity.reshape(intrinsic.width, intrinsic.height);
-		image.mask.reshape(image.disparity);
-		image.parameters.setTo(parameters);
-		ImageMiscOps.fill(image.mask, 1);
-		CommonOps_DDRM.diag(image.undist_to_rect_px, 3, 1, 1, 1);
+
+		var disparity = new GrayF32(intrinsic.width, intrinsic.height);
+		var mask = new GrayU8(intrinsic.width, intrinsic.height);
+		var param = new DisparityParameters(parameters.disparityMin, parameters.disparityRange,
+				parameters.baseline, intrinsic);
+		ImageMiscOps.fill(mask, 1);
 		// every point will be at infinity
-		ImageMiscOps.fill(image.disparity, 0);
-		image.parameters.disparityMin = 0;
+		param.disparityMin = 0;
 
 		// Every point should be filled in with zero disparity
-		assertTrue(alg.addToFusedImage(image));
+		alg.addToFusedImage(disparity, mask, param, CommonOps_DDRM.identity(3));
+		alg.fused.sortByPixel();
 		for (int y = 0; y < intrinsic.height; y++) {
 			for (int x = 0; x < intrinsic.width; x++) {
-				assertEquals(1, alg.fused.get(x, y).size);
-				assertEquals(0, alg.fused.get(x, y).get(0));
+				assertEquals(1, alg.fused.getCount(x, y));
+				assertEquals(0, alg.fused.getValue(x, y, 0));
 			}
 		}
 	}
 
+	/**
+	 * Disparity images should not be saved and can be modified after being added
+	 */
+	@Test void addDisparity_notSaved() {
+		intrinsic.fsetShape(30, 20);
+
+		var disparity = new GrayF32(30, 20);
+		var mask = new GrayU8(30, 20);
+		ImageMiscOps.fill(mask, 1);
+
+		var alg = new MultiBaselineDisparityMedian();
+		alg.initialize(intrinsic, new DoNothingPixelTransform_F64());
+		for (int i = 0; i < 3; i++) {
+			ImageMiscOps.fillUniform(disparity, rand, 0, 20);
+			alg.addDisparity(disparity, mask, parameters, CommonOps_DDRM.identity(3));
+		}
+		assertEquals(3, alg.getImageCount());
+		assertEquals(30*20*3, alg.fused.sampleValues.size);
+
+		// Clearing the input afterwards should have no effect
+		ImageMiscOps.fill(disparity, 0);
+		assertTrue(alg.process(new GrayF32(1, 1)));
+	}
+
+	/**
+	 * The concurrent and single thread code should produce identical results
+	 */
+	@Test void compareToSingleThread() {
+		intrinsic.fsetShape(60, 50);
+
+		var disparity = new GrayF32(60, 50);
+		var mask = new GrayU8(60, 50);
+		ImageMiscOps.fillUniform(mask, rand, 0, 2);
+
+		var algA = new MultiBaselineDisparityMedian();
+		var algB = new MultiBaselineDisparityMedian();
+		algA.initialize(intrinsic, new DoNothingPixelTransform_F64());
+		algB.initialize(intrinsic, new DoNothingPixelTransform_F64());
+
+		for (int i = 0; i < 5; i++) {
+			ImageMiscOps.fillUniform(disparity, rand, 0, 99);
+			var param = new DisparityParameters(5, 100, 100 + i*50, intrinsic);
+
+			BoofConcurrency.USE_CONCURRENT = false;
+			algA.addDisparity(disparity, mask, param, CommonOps_DDRM.identity(3));
+			BoofConcurrency.USE_CONCURRENT = true;
+			algB.addDisparity(disparity, mask, param, CommonOps_DDRM.identity(3));
+		}
+
+		var foundA = new GrayF32(1, 1);
+		var foundB = new GrayF32(1, 1);
+		BoofConcurrency.USE_CONCURRENT = false;
+		assertTrue(algA.process(foundA));
+		BoofConcurrency.USE_CONCURRENT = true;
+		assertTrue(algB.process(foundB));
+
+		BoofTesting.assertEquals(foundA, foundB, 0.0);
+		assertEquals(algA.getFusedBaseline(), algB.getFusedBaseline());
+	}
+
+	/**
+	 * Calling initialize() again should clear all previous results. Compare against a new instance
+	 */
+	@Test void initialize_reuse() {
+		intrinsic.fsetShape(60, 50);
+
+		var disparity = new GrayF32(60, 50);
+		var mask = new GrayU8(60, 50);
+
+		var algA = new MultiBaselineDisparityMedian();
+		var algB = new MultiBaselineDisparityMedian();
+
+		// Fill algA with results from a different set of images, at the same and then a smaller size
+		for (int trial = 0; trial < 2; trial++) {
+			algA.initialize(intrinsic, new DoNothingPixelTransform_F64());
+			for (int i = 0; i < 3; i++) {
+				ImageMiscOps.fillUniform(mask, rand, 0, 2);
+				ImageMiscOps.fillUniform(disparity, rand, 0, 99);
+				algA.addDisparity(disparity, mask, new DisparityParameters(5, 100, 100 + i*50, intrinsic),
+						CommonOps_DDRM.identity(3));
+			}
+			assertTrue(algA.process(new GrayF32(1, 1)));
+		}
+
+		intrinsic.fsetShape(40, 30);
+		disparity.reshape(40, 30);
+		mask.reshape(40, 30);
+		ImageMiscOps.fillUniform(mask, rand, 0, 2);
+
+		algA.initialize(intrinsic, new DoNothingPixelTransform_F64());
+		algB.initialize(intrinsic, new DoNothingPixelTransform_F64());
+		for (int i = 0; i < 3; i++) {
+			ImageMiscOps.fillUniform(disparity, rand, 0, 99);
+			var param = new DisparityParameters(5, 100, 100 + i*50, intrinsic);
+			algA.addDisparity(disparity, mask, param, CommonOps_DDRM.identity(3));
+			algB.addDisparity(disparity, mask, param, CommonOps_DDRM.identity(3));
+		}
+
+		var foundA = new GrayF32(1, 1);
+		var foundB = new GrayF32(1, 1);
+		assertTrue(algA.process(foundA));
+		assertTrue(algB.process(foundB));
+
+		BoofTesting.assertEquals(foundB, foundA, 0.0);
+		assertEquals(algB.getFusedBaseline(), algA.getFusedBaseline());
+	}
+
 	/**
 	 * Given an already constructed fused image, compute the disparity image output.
 	 */
@@ -157,13 +264,15 @@ public class TestMultiBaselineDisparityMedian extends BoofStandardJUnit {
 		intrinsic.width = 10;
 		intrinsic.height = 8;
 		alg.initialize(intrinsic, new DoNothingPixelTransform_F64());
+		// values are saved with a baseline of one
+		alg.fusedBaseline = 1.0;
 
 		// add elements to each fused pixel that will be easy to compute the solution for
 		int counter = 0;
 		for (int y = 0; y < 8; y++) {
 			for (int x = 0; x < 10; x++, counter++) {
 				for (int i = 0; i < counter; i++) {
-					alg.fused.get(x, y).add(i + 0.5f);
+					alg.fused.add(x, y, i + 0.5f);
 				}
 			}
 		}
@@ -227,25 +336,23 @@ public class TestMultiBaselineDisparityMedian extends BoofStandardJUnit {
 
 		var alg = new MultiBaselineDisparityMedian();
 		alg.initialize(intrinsic, new DoNothingPixelTransform_F64());
-		alg.fusedBaseline = 500; // keep the baseline the same, yes this should be checked too but isn't here
 
-		var image = new MultiBaselineDisparityMedian.DisparityImage();
-		image.disparity.reshape(width, height);
-		ImageMiscOps.fill(image.disparity, imageValue);
-		image.mask.reshape(image.disparity);
-		ImageMiscOps.fill(image.mask, 1);
-		image.parameters.setTo(param2);
-		CommonOps_DDRM.setIdentity(image.undist_to_rect_px);
+		var disparity = new GrayF32(width, height);
+		ImageMiscOps.fill(disparity, imageValue);
+		var mask = new GrayU8(width, height);
+		ImageMiscOps.fill(mask, 1);
 
-		assertTrue(alg.addToFusedImage(image));
+		alg.addToFusedImage(disparity, mask, param2, CommonOps_DDRM.identity(3));
+		alg.fused.sortByPixel();
 		for (int y = 0; y < height; y++) {
 			for (int x = 0; x < width; x++) {
 				if (expected > 0) {
-					assertEquals(1, alg.fused.get(x, y).size);
-					float found = alg.fused.get(x, y).get(0);
+					assertEquals(1, alg.fused.getCount(x, y));
+					// values are saved with a baseline of one. Convert to the baseline the expected value used
+					float found = alg.fused.getValue(x, y, 0)*500.0f;
 					assertEquals(expected, found, UtilEjml.TEST_F32);
 				} else {
-					assertEquals(0, alg.fused.get(x, y).size);
+					assertEquals(0, alg.fused.getCount(x, y));
 				}
 			}
 		}
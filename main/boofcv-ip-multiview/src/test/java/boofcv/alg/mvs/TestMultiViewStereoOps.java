@@ -18,6 +18,7 @@
 
 package boofcv.alg.mvs;
 
+import boofcv.BoofTesting;
 import boofcv.alg.distort.LensDistortionNarrowFOV;
 import boofcv.alg.distort.pinhole.LensDistortionPinhole;
 import boofcv.alg.geo.MultiViewOps;
@@ -34,6 +35,7 @@ import boofcv.struct.distort.PointToPixelTransform_F64;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageGray;
+import boofcv.struct.packed.PackedBigArrayPoint3D_F64;
 import boofcv.testing.BoofStandardJUnit;
 import georegression.geometry.UtilPoint3D_F64;
 import georegression.struct.point.Point2D_F64;
@@ -94,6 +96,31 @@ public class TestMultiViewStereoOps extends BoofStandardJUnit {
 		assertEquals(cloud.size() - 1, ImageStatistics.sum(mask));
 	}
 
+	/**
+	 * The packed version should produce the same mask as the list version
+	 */
+	@Test void maskOutPointsInCloud_packed() {
+		GrayF32 disparity = new GrayF32(width, height);
+		List<Point3D_F64> cloud = UtilPoint3D_F64.random(new Point3D_F64(0, 0, 2), -1, 1, 100, rand);
+
+		Se3_F64 cloud_to_stereo = SpecialEuclideanOps_F64.eulerXyz(-0.1, 0.05, 0.2, 0.01, 0.02, -0.03, null);
+		var norm_to_pixel = new LensDistortionPinhole(intrinsic).distort_F64(false, true);
+		renderCloudToDisparity(cloud, cloud_to_stereo, new LensDistortionPinhole(intrinsic), parameters, disparity);
+
+		var packed = new PackedBigArrayPoint3D_F64();
+		cloud.forEach(packed::append);
+
+		GrayU8 expected = disparity.createSameShape(GrayU8.class);
+		GrayU8 found = disparity.createSameShape(GrayU8.class);
+		MultiViewStereoOps.maskOutPointsInCloud(
+				cloud, disparity, parameters, cloud_to_stereo, norm_to_pixel, 1.0, expected);
+		MultiViewStereoOps.maskOutPointsInCloud(
+				packed, disparity, parameters, cloud_to_stereo, norm_to_pixel, 1.0, found);
+
+		assertEquals(cloud.size(), ImageStatistics.sum(found));
+		BoofTesting.assertEquals(expected, found, 0);
+	}
+
 	/**
 	 * Renders the cloud into the disparity image and removes points which land on the same pixel
 	 */
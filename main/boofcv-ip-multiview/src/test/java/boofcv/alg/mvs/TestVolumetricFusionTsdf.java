@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.mvs;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.calib.CameraPinhole;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.packed.PackedBigArrayPoint3D_F64;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.point.Point3D_F64;
+import georegression.struct.se.Se3_F64;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+class TestVolumetricFusionTsdf extends BoofStandardJUnit {
+	int width = 60;
+	int height = 40;
+	CameraPinhole intrinsic = new CameraPinhole(50, 50, 0, width/2, height/2, width, height);
+
+	double voxelSize = 0.05;
+	double truncation = 0.2;
+
+	/**
+	 * Observe a plane and see if the extracted surface lies on the plane
+	 */
+	@Test void addDepth_plane() {
+		var depth = new GrayF32(width, height);
+		ImageMiscOps.fill(depth, 2.0f);
+
+		var alg = new VolumetricFusionTsdf(voxelSize, truncation);
+		alg.addDepth(depth, intrinsic, new Se3_F64());
+		assertTrue(alg.getBlockCount() > 0);
+
+		var cloud = new PackedBigArrayPoint3D_F64();
+		alg.extractCloud(cloud);
+		assertTrue(cloud.size() > 100);
+		for (int i = 0; i < cloud.size(); i++) {
+			assertEquals(2.0, cloud.getTemp(i).z, 1e-4);
+		}
+	}
+
+	/**
+	 * Adding the same observation multiple times should not add duplicate points or new blocks
+	 */
+	@Test void addDepth_duplicateViews() {
+		var depth = new GrayF32(width, height);
+		ImageMiscOps.fill(depth, 2.0f);
+		Se3_F64 world_to_view = SpecialEuclideanOps_F64.eulerXyz(0.1, -0.05, 0.2, 0.02, -0.01, 0.0, null);
+
+		var alg = new VolumetricFusionTsdf(voxelSize, truncation);
+		alg.addDepth(depth, intrinsic, world_to_view);
+		int expectedBlocks = alg.getBlockCount();
+		var expected = new PackedBigArrayPoint3D_F64();
+		alg.extractCloud(expected);
+
+		for (int trial = 0; trial < 3; trial++) {
+			alg.addDepth(depth, intrinsic, world_to_view);
+		}
+		assertEquals(expectedBlocks, alg.getBlockCount());
+		var found = new PackedBigArrayPoint3D_F64();
+		alg.extractCloud(found);
+		assertEquals(expected.size(), found.size());
+
+		// After a reset there should be nothing
+		alg.reset();
+		assertEquals(0, alg.getBlockCount());
+		found.reset();
+		alg.extractCloud(found);
+		assertEquals(0, found.size());
+	}
+
+	/**
+	 * Invalid depth values should be ignored
+	 */
+	@Test void addDepth_invalid() {
+		var depth = new GrayF32(width, height);
+		ImageMiscOps.fill(depth, Float.NaN);
+		depth.set(1, 0, 0.0f);
+		depth.set(2, 0, -1.0f);
+		depth.set(3, 0, Float.POSITIVE_INFINITY);
+
+		var alg = new VolumetricFusionTsdf(voxelSize, truncation);
+		alg.addDepth(depth, intrinsic, new Se3_F64());
+		assertEquals(0, alg.getBlockCount());
+	}
+
+	/**
+	 * Disparity image of a plane. Then see if the mask is respected
+	 */
+	@Test void addDisparity() {
+		var parameters = new DisparityParameters(5, 30, 0.4, intrinsic);
+		var disparity = new GrayF32(width, height);
+		ImageMiscOps.fill(disparity, 5.0f);
+		double expectedZ = 0.4*intrinsic.fx/(5.0 + 5.0);
+
+		var alg = new VolumetricFusionTsdf(voxelSize, truncation);
+		alg.addDisparity(disparity, null, new Se3_F64(), parameters);
+
+		var cloud = new PackedBigArrayPoint3D_F64();
+		alg.extractCloud(cloud);
+		assertTrue(cloud.size() > 100);
+		for (int i = 0; i < cloud.size(); i++) {
+			assertEquals(expectedZ, cloud.getTemp(i).z, 1e-4);
+		}
+
+		// Mask out every pixel
+		var mask = new GrayU8(width, height);
+		ImageMiscOps.fill(mask, 1);
+		alg.reset();
+		alg.addDisparity(disparity, mask, new Se3_F64(), parameters);
+		assertEquals(0, alg.getBlockCount());
+	}
+
+	/**
+	 * Compare single and multi-threaded results. Should be identical
+	 */
+	@Test void compareConcurrent() {
+		var depth = new GrayF32(width, height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				depth.set(x, y, 1.5f + 0.01f*x + rand.nextFloat()*0.02f);
+			}
+		}
+		Se3_F64 world_to_view = SpecialEuclideanOps_F64.eulerXyz(0.1, -0.05, 0.2, 0.02, -0.01, 0.0, null);
+
+		var expected = new PackedBigArrayPoint3D_F64();
+		var found = new PackedBigArrayPoint3D_F64();
+
+		BoofConcurrency.USE_CONCURRENT = false;
+		var alg = new VolumetricFusionTsdf(voxelSize, truncation);
+		alg.addDepth(depth, intrinsic, world_to_view);
+		alg.addDepth(depth, intrinsic, new Se3_F64());
+		alg.extractCloud(expected);
+
+		BoofConcurrency.USE_CONCURRENT = true;
+		alg.reset();
+		alg.addDepth(depth, intrinsic, world_to_view);
+		alg.addDepth(depth, intrinsic, new Se3_F64());
+		alg.extractCloud(found);
+
+		assertEquals(expected.size(), found.size());
+		var e = new Point3D_F64();
+		for (int i = 0; i < expected.size(); i++) {
+			expected.getCopy(i, e);
+			assertEquals(0.0, e.distance(found.getTemp(i)));
+		}
+	}
+}
@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.structure;
+
+import boofcv.misc.BoofMiscOps;
+import georegression.geometry.ConvertRotation3D_F64;
+import georegression.struct.point.Point3D_F64;
+import georegression.struct.point.Vector3D_F64;
+import georegression.struct.se.Se3_F64;
+import georegression.struct.so.Quaternion_F64;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_I32;
+import org.ddogleg.struct.VerbosePrint;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Finds the similarity transform (scale + SE3) from each independently reconstructed submap into a single global
+ * coordinate system. The relative transform between two submaps is found using the views they have in common.
+ * Scale is found from the spread of the camera centers, rotation by averaging the relative rotation of each
+ * common view, and translation from the camera centers' centroid.
+ *
+ * <ol>
+ *     <li>The submap with the most views is the reference and defines the global coordinate system</li>
+ *     <li>Initial estimate is found by traversing a spanning tree, preferring the connections with the most
+ *     common views</li>
+ *     <li>Estimates are refined by replacing each submap's transform with the weighted average of the estimates
+ *     provided by all of its neighbors. Weights are the number of common views.</li>
+ * </ol>
+ *
+ * Submaps which are not connected to the reference submap are not aligned.
+ *
+ * @author Peter Abeles
+ */
+public class AlignSubmapsSimilarity implements VerbosePrint {
+	/** Two submaps need to have at least this many views in common for their relationship to be estimated */
+	public int minimumCommonViews = 3;
+
+	/** Number of times every submap is refined */
+	public int refineIterations = 10;
+
+	/** Relative transforms between pairs of submaps */
+	final DogArray<Relation> relations = new DogArray<>(Relation::new, Relation::reset);
+
+	// Relations for each submap
+	final DogArray<DogArray_I32> submapRelations = new DogArray<>(DogArray_I32::new, DogArray_I32::reset);
+
+	//--------------------------------------------- Internal workspace
+	final Point3D_F64 centerSrc = new Point3D_F64();
+	final Point3D_F64 centerDst = new Point3D_F64();
+	final DogArray<Point3D_F64> pointsSrc = new DogArray<>(Point3D_F64::new);
+	final DogArray<Point3D_F64> pointsDst = new DogArray<>(Point3D_F64::new);
+	final DMatrixRMaj R = new DMatrixRMaj(3, 3);
+	final Quaternion_F64 q = new Quaternion_F64();
+	final Quaternion_F64 qSum = new Quaternion_F64();
+	final ScaleSe3_F64 inverse = new ScaleSe3_F64();
+	final DogArray<ScaleSe3_F64> estimates = new DogArray<>(ScaleSe3_F64::new, ScaleSe3_F64::reset);
+	final DogArray_I32 weights = new DogArray_I32();
+
+	@Nullable PrintStream verbose;
+
+	/**
+	 * Estimates the submap to global transform for every submap.
+	 *
+	 * @param submaps (Input/Output) Poses of views in each submap. Transform to global frame is written to it.
+	 */
+	public void process( List<SubmapPoses> submaps ) {
+		for (int i = 0; i < submaps.size(); i++) {
+			submaps.get(i).submap_to_global.reset();
+			submaps.get(i).aligned = false;
+		}
+		if (submaps.isEmpty())
+			return;
+
+		findRelations(submaps);
+
+		// Select the largest submap as the reference
+		int reference = 0;
+		for (int i = 1; i < submaps.size(); i++) {
+			if (submaps.get(i).viewIds.size() > submaps.get(reference).viewIds.size())
+				reference = i;
+		}
+
+		initializeSpanningTree(submaps, reference);
+
+		for (int iteration = 0; iteration < refineIterations; iteration++) {
+			for (int submapIdx = 0; submapIdx < submaps.size(); submapIdx++) {
+				if (submapIdx == reference || !submaps.get(submapIdx).aligned)
+					continue;
+				refineSubmap(submaps, submapIdx);
+			}
+		}
+
+		if (verbose != null) {
+			int total = 0;
+			for (int i = 0; i < submaps.size(); i++) {
+				total += submaps.get(i).aligned ? 1 : 0;
+			}
+			verbose.println("submaps.size=" + submaps.size() + " relations.size=" + relations.size +
+					" aligned=" + total + " reference=" + reference);
+		}
+	}
+
+	/**
+	 * Finds all pairs of submaps which have enough views in common and estimates their relative transform
+	 */
+	void findRelations( List<SubmapPoses> submaps ) {
+		relations.reset();
+		submapRelations.resetResize(submaps.size());
+
+		// Look up every submap and the index of the view inside of it
+		Map<String, DogArray_I32> viewToSubmaps = new HashMap<>();
+		for (int submapIdx = 0; submapIdx < submaps.size(); submapIdx++) {
+			List<String> ids = submaps.get(submapIdx).viewIds;
+			for (int localIdx = 0; localIdx < ids.size(); localIdx++) {
+				DogArray_I32 list = viewToSubmaps.computeIfAbsent(ids.get(localIdx), k -> new DogArray_I32());
+				list.add(submapIdx);
+				list.add(localIdx);
+			}
+		}
+
+		// Find views which are in common. Iterate in the same order as the submaps to keep the order stable.
+		Map<Long, Relation> pairToRelation = new HashMap<>();
+		for (int submapIdx = 0; submapIdx < submaps.size(); submapIdx++) {
+			List<String> ids = submaps.get(submapIdx).viewIds;
+			for (int localIdx = 0; localIdx < ids.size(); localIdx++) {
+				DogArray_I32 list = viewToSubmaps.get(ids.get(localIdx));
+				for (int i = 0; i < list.size; i += 2) {
+					int otherIdx = list.get(i);
+					if (otherIdx <= submapIdx)
+						continue;
+					long key = (long)submapIdx*submaps.size() + otherIdx;
+					Relation r = pairToRelation.get(key);
+					if (r == null) {
+						r = relations.grow();
+						r.src = submapIdx;
+						r.dst = otherIdx;
+						pairToRelation.put(key, r);
+					}
+					r.viewsSrc.add(localIdx);
+					r.viewsDst.add(list.get(i + 1));
+				}
+			}
+		}
+
+		// Estimate the transform between submaps that have enough views in common
+		for (int relationIdx = 0; relationIdx < relations.size; relationIdx++) {
+			Relation r = relations.get(relationIdx);
+			if (r.viewsSrc.size < minimumCommonViews)
+				continue;
+			if (!estimateRelative(submaps.get(r.src), r.viewsSrc, submaps.get(r.dst), r.viewsDst, r.src_to_dst))
+				continue;
+			r.valid = true;
+			submapRelations.get(r.src).add(relationIdx);
+			submapRelations.get(r.dst).add(relationIdx);
+		}
+	}
+
+	/**
+	 * Estimates the transform from 'src' to 'dst' using views which are in both submaps
+	 *
+	 * @return true if successful
+	 */
+	boolean estimateRelative( SubmapPoses src, DogArray_I32 viewsSrc,
+							  SubmapPoses dst, DogArray_I32 viewsDst, ScaleSe3_F64 src_to_dst ) {
+		BoofMiscOps.checkEq(viewsSrc.size, viewsDst.size);
+		final int N = viewsSrc.size;
+
+		// Find the camera centers and the average rotation
+		pointsSrc.resize(N);
+		pointsDst.resize(N);
+		centerSrc.setTo(0, 0, 0);
+		centerDst.setTo(0, 0, 0);
+		qSum.setTo(0, 0, 0, 0);
+		for (int i = 0; i < N; i++) {
+			Se3_F64 worldSrc_to_view = src.world_to_view.get(viewsSrc.get(i));
+			Se3_F64 worldDst_to_view = dst.world_to_view.get(viewsDst.get(i));
+
+			Point3D_F64 ps = pointsSrc.get(i);
+			Point3D_F64 pd = pointsDst.get(i);
+			cameraCenter(worldSrc_to_view, ps);
+			cameraCenter(worldDst_to_view, pd);
+			centerSrc.setTo(centerSrc.x + ps.x, centerSrc.y + ps.y, centerSrc.z + ps.z);
+			centerDst.setTo(centerDst.x + pd.x, centerDst.y + pd.y, centerDst.z + pd.z);
+
+			// R = R_dst^T * R_src
+			CommonOps_DDRM.multTransA(worldDst_to_view.R, worldSrc_to_view.R, R);
+			addQuaternion(R, 1.0);
+		}
+		centerSrc.divideIP(N);
+		centerDst.divideIP(N);
+
+		// Scale from the spread of the camera centers
+		double spreadSrc = 0.0;
+		double spreadDst = 0.0;
+		for (int i = 0; i < N; i++) {
+			spreadSrc += pointsSrc.get(i).distance(centerSrc);
+			spreadDst += pointsDst.get(i).distance(centerDst);
+		}
+		if (spreadSrc == 0.0 || spreadDst == 0.0)
+			return false;
+
+		src_to_dst.scale = spreadDst/spreadSrc;
+		averageQuaternion(src_to_dst.transform.R);
+
+		// T = c_dst - scale*R*c_src
+		double[] r = src_to_dst.transform.R.data;
+		double s = src_to_dst.scale;
+		Point3D_F64 c = centerSrc;
+		src_to_dst.transform.T.setTo(
+				centerDst.x - s*(r[0]*c.x + r[1]*c.y + r[2]*c.z),
+				centerDst.y - s*(r[3]*c.x + r[4]*c.y + r[5]*c.z),
+				centerDst.z - s*(r[6]*c.x + r[7]*c.y + r[8]*c.z));
+
+		return true;
+	}
+
+	/**
+	 * Finds the initial estimate by traversing the relations, starting at the reference, always selecting the
+	 * relation with the most common views that connects an aligned submap to an unaligned one.
+	 */
+	void initializeSpanningTree( List<SubmapPoses> submaps, int reference ) {
+		submaps.get(reference).aligned = true;
+
+		while (true) {
+			Relation best = null;
+			for (int relationIdx = 0; relationIdx < relations.size; relationIdx++) {
+				Relation r = relations.get(relationIdx);
+				if (!r.valid || submaps.get(r.src).aligned == submaps.get(r.dst).aligned)
+					continue;
+				if (best == null || r.viewsSrc.size > best.viewsSrc.size)
+					best = r;
+			}
+			if (best == null)
+				break;
+
+			if (submaps.get(best.src).aligned) {
+				// dst_to_global = src_to_global * dst_to_src
+				invert(best.src_to_dst, inverse);
+				concat(inverse, submaps.get(best.src).submap_to_global, submaps.get(best.dst).submap_to_global);
+				submaps.get(best.dst).aligned = true;
+			} else {
+				concat(best.src_to_dst, submaps.get(best.dst).submap_to_global, submaps.get(best.src).submap_to_global);
+				submaps.get(best.src).aligned = true;
+			}
+		}
+	}
+
+	/**
+	 * Replaces the submap's transform with the weighted average of estimates from all of its aligned neighbors
+	 */
+	void refineSubmap( List<SubmapPoses> submaps, int submapIdx ) {
+		estimates.reset();
+		weights.reset();
+
+		DogArray_I32 list = submapRelations.get(submapIdx);
+		for (int i = 0; i < list.size; i++) {
+			Relation r = relations.get(list.get(i));
+			if (r.src == submapIdx) {
+				if (!submaps.get(r.dst).aligned)
+					continue;
+				concat(r.src_to_dst, submaps.get(r.dst).submap_to_global, estimates.grow());
+			} else {
+				if (!submaps.get(r.src).aligned)
+					continue;
+				invert(r.src_to_dst, inverse);
+				concat(inverse, submaps.get(r.src).submap_to_global, estimates.grow());
+			}
+			weights.add(r.viewsSrc.size);
+		}
+
+		if (estimates.isEmpty())
+			return;
+
+		ScaleSe3_F64 output = submaps.get(submapIdx).submap_to_global;
+		double totalWeight = 0.0;
+		double logScale = 0.0;
+		qSum.setTo(0, 0, 0, 0);
+		output.transform.T.setTo(0, 0, 0);
+		for (int i = 0; i < estimates.size; i++) {
+			ScaleSe3_F64 e = estimates.get(i);
+			double w = weights.get(i);
+			totalWeight += w;
+			logScale += w*Math.log(e.scale);
+			addQuaternion(e.transform.R, w);
+			output.transform.T.x += w*e.transform.T.x;
+			output.transform.T.y += w*e.transform.T.y;
+			output.transform.T.z += w*e.transform.T.z;
+		}
+		output.scale = Math.exp(logScale/totalWeight);
+		output.transform.T.divideIP(totalWeight);
+		averageQuaternion(output.transform.R);
+	}
+
+	/**
+	 * Adds the rotation matrix to the quaternion sum. The sign is selected to be consistent with the sum.
+	 */
+	void addQuaternion( DMatrixRMaj R, double weight ) {
+		ConvertRotation3D_F64.matrixToQuaternion(R, q);
+		double dot = q.w*qSum.w + q.x*qSum.x + q.y*qSum.y + q.z*qSum.z;
+		double sign = dot < 0 ? -weight : weight;
+		qSum.w += sign*q.w;
+		qSum.x += sign*q.x;
+		qSum.y += sign*q.y;
+		qSum.z += sign*q.z;
+	}
+
+	/**
+	 * Converts the quaternion sum into a rotation matrix
+	 */
+	void averageQuaternion( DMatrixRMaj R ) {
+		qSum.normalize();
+		ConvertRotation3D_F64.quaternionToMatrix(qSum, R);
+	}
+
+	/**
+	 * Computes the location of the camera center in world coordinates
+	 */
+	static void cameraCenter( Se3_F64 world_to_view, Point3D_F64 center ) {
+		// C = -R^T*T
+		DMatrixRMaj R = world_to_view.R;
+		Vector3D_F64 T = world_to_view.T;
+		center.x = -(R.data[0]*T.x + R.data[3]*T.y + R.data[6]*T.z);
+		center.y = -(R.data[1]*T.x + R.data[4]*T.y + R.data[7]*T.z);
+		center.z = -(R.data[2]*T.x + R.data[5]*T.y + R.data[8]*T.z);
+	}
+
+	/**
+	 * Computes the transform which applies 'first' then 'second'. X' = s2*R2*(s1*R1*X + T1) + T2
+	 */
+	public static void concat( ScaleSe3_F64 first, ScaleSe3_F64 second, ScaleSe3_F64 output ) {
+		BoofMiscOps.checkTrue(output != first && output != second, "Output can't be an input");
+		output.scale = first.scale*second.scale;
+		CommonOps_DDRM.mult(second.transform.R, first.transform.R, output.transform.R);
+		// T = s2*R2*T1 + T2
+		Vector3D_F64 T1 = first.transform.T;
+		double[] R2 = second.transform.R.data;
+		double s2 = second.scale;
+		output.transform.T.setTo(
+				s2*(R2[0]*T1.x + R2[1]*T1.y + R2[2]*T1.z) + second.transform.T.x,
+				s2*(R2[3]*T1.x + R2[4]*T1.y + R2[5]*T1.z) + second.transform.T.y,
+				s2*(R2[6]*T1.x + R2[7]*T1.y + R2[8]*T1.z) + second.transform.T.z);
+	}
+
+	/**
+	 * Computes the inverse transform. X = (1/s)*R^T*(X' - T)
+	 */
+	public static void invert( ScaleSe3_F64 src, ScaleSe3_F64 dst ) {
+		BoofMiscOps.checkTrue(src != dst, "Can't be the same instance");
+		dst.scale = 1.0/src.scale;
+		CommonOps_DDRM.transpose(src.transform.R, dst.transform.R);
+		double[] R = dst.transform.R.data;
+		Vector3D_F64 T = src.transform.T;
+		dst.transform.T.setTo(
+				-dst.scale*(R[0]*T.x + R[1]*T.y + R[2]*T.z),
+				-dst.scale*(R[3]*T.x + R[4]*T.y + R[5]*T.z),
+				-dst.scale*(R[6]*T.x + R[7]*T.y + R[8]*T.z));
+	}
+
+	@Override public void setVerbose( @Nullable PrintStream out, @Nullable Set<String> configuration ) {
+		this.verbose = BoofMiscOps.addPrefix(this, out);
+	}
+
+	/**
+	 * Poses of all the views in a submap and the transform from the submap into the global frame
+	 */
+	public static class SubmapPoses {
+		/** ID of each view in the submap */
+		public final List<String> viewIds = new ArrayList<>();
+		/** Transform from submap world frame to each view */
+		public final DogArray<Se3_F64> world_to_view = new DogArray<>(Se3_F64::new, Se3_F64::reset);
+		/** Transform from submap to the global frame. Points are scaled first. */
+		public final ScaleSe3_F64 submap_to_global = new ScaleSe3_F64();
+		/** If true then the submap has been aligned with the global frame */
+		public boolean aligned;
+
+		/**
+		 * Adds a view to the submap
+		 */
+		public void addView( String id, Se3_F64 world_to_view ) {
+			viewIds.add(id);
+			this.world_to_view.grow().setTo(world_to_view);
+		}
+
+		/**
+		 * Computes the transform from the global frame to the view. Translation is in global units.
+		 *
+		 * @param localIdx Index of the view in this submap
+		 * @param global_to_view (Output) Transform from the global frame to the view
+		 */
+		public void globalToView( int localIdx, Se3_F64 global_to_view ) {
+			Se3_F64 local = world_to_view.get(localIdx);
+			DMatrixRMaj Rg = submap_to_global.transform.R;
+			Vector3D_F64 Tg = submap_to_global.transform.T;
+
+			// R' = R*Rg^T,  T' = s*T - R'*Tg
+			CommonOps_DDRM.multTransB(local.R, Rg, global_to_view.R);
+			double[] R = global_to_view.R.data;
+			double s = submap_to_global.scale;
+			global_to_view.T.setTo(
+					s*local.T.x - (R[0]*Tg.x + R[1]*Tg.y + R[2]*Tg.z),
+					s*local.T.y - (R[3]*Tg.x + R[4]*Tg.y + R[5]*Tg.z),
+					s*local.T.z - (R[6]*Tg.x + R[7]*Tg.y + R[8]*Tg.z));
+		}
+
+		public void reset() {
+			viewIds.clear();
+			world_to_view.reset();
+			submap_to_global.reset();
+			aligned = false;
+		}
+	}
+
+	/**
+	 * Relationship between two submaps
+	 */
+	static class Relation {
+		/** Index of each submap */
+		int src, dst;
+		/** Index of the common views inside each submap */
+		final DogArray_I32 viewsSrc = new DogArray_I32();
+		final DogArray_I32 viewsDst = new DogArray_I32();
+		/** Transform from src to dst */
+		final ScaleSe3_F64 src_to_dst = new ScaleSe3_F64();
+		/** If the transform could be estimated */
+		boolean valid;
+
+		public void reset() {
+			src = dst = -1;
+			viewsSrc.reset();
+			viewsDst.reset();
+			src_to_dst.reset();
+			valid = false;
+		}
+	}
+}
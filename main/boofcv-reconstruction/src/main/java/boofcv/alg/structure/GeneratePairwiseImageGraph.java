@@ -49,6 +49,12 @@ public class GeneratePairwiseImageGraph implements VerbosePrint {
 	/** Used to score if the two views have a 3D relationship or not */
 	public final @Getter EpipolarScore3D epipolarScore;
 
+	/**
+	 * If true then associations are sorted by their fit score, best first, before the epipolar geometry is
+	 * estimated. Needed when PROSAC sampling is used since it assumes the input is ordered by quality.
+	 */
+	public boolean sortByScore = false;
+
 	private PrintStream verbose;
 
 	//--------- Internal Workspace
@@ -125,6 +131,10 @@ public class GeneratePairwiseImageGraph implements VerbosePrint {
 				dbSimilar.lookupPixelFeats(dst, dstFeats);
 				dbSimilar.lookupAssociated(dst, matches);
 
+				// Lower scores are better, which is the convention used by association
+				if (sortByScore)
+					Arrays.sort(matches.data, 0, matches.size, Comparator.comparingDouble(m -> m.fitScore));
+
 				pairs.reset();
 				for (int i = 0; i < matches.size; i++) {
 					AssociatedIndex m = matches.get(i);
@@ -170,9 +170,19 @@ public class MetricFromUncalibratedPairwiseGraph extends ReconstructionFromPairw
 			return false;
 		}
 
+		addSpawnedScene(spawnScene.getScene());
+		return true;
+	}
+
+	/**
+	 * Adds a scene which was successfully spawned to the list of scenes and updates book keeping
+	 *
+	 * @param spawned (Input) The spawned scene. Copied.
+	 */
+	protected void addSpawnedScene( SceneWorkingGraph spawned ) {
 		// Save the new scene
 		SceneWorkingGraph scene = scenes.grow();
-		scene.setTo(spawnScene.getScene());
+		scene.setTo(spawned);
 		scene.index = scenes.size - 1;
 
 		// The function for computing geometric score for an inlier set lies in this code so we have to add it here
@@ -184,8 +194,6 @@ public class MetricFromUncalibratedPairwiseGraph extends ReconstructionFromPairw
 			// Also add it to the list of scenes in each view
 			scenesInEachView.getView(scene.listViews.get(viewIdx).pview).viewedBy.add(scene.index);
 		}
-
-		return true;
 	}
 
 	/**
@@ -194,20 +202,7 @@ public class MetricFromUncalibratedPairwiseGraph extends ReconstructionFromPairw
 	 * connected views does not belong to any other scenes.
 	 */
 	void expandScenes( LookUpSimilarImages dbSimilar, LookUpCameraInfo dbCam ) {
-		if (verbose != null) verbose.println("Expand Scenes: Finding open views in each scene");
-
-		// Initialize the expansion by finding all the views each scene could expand into
-		for (int sceneIdx = 0; sceneIdx < scenes.size; sceneIdx++) {
-			SceneWorkingGraph scene = scenes.get(sceneIdx);
-
-			// Mark views which were learned in the spawn as known
-			scene.listViews.forEach(wv -> scene.exploredViews.add(wv.pview.id));
-
-			// Add views which can be expanded into
-			findAllOpenViews(scene);
-
-			if (verbose != null) verbose.println("scene[" + sceneIdx + "].open.size=" + scene.open.size);
-		}
+		initializeOpenViews();
 
 		// Workspace for selecting which scene and view to expand into
 		Expansion best = new Expansion();
@@ -270,6 +265,25 @@ public class MetricFromUncalibratedPairwiseGraph extends ReconstructionFromPairw
 		}
 	}
 
+	/**
+	 * Initialize the expansion by finding all the views each scene could expand into
+	 */
+	protected void initializeOpenViews() {
+		if (verbose != null) verbose.println("Expand Scenes: Finding open views in each scene");
+
+		for (int sceneIdx = 0; sceneIdx < scenes.size; sceneIdx++) {
+			SceneWorkingGraph scene = scenes.get(sceneIdx);
+
+			// Mark views which were learned in the spawn as known
+			scene.listViews.forEach(wv -> scene.exploredViews.add(wv.pview.id));
+
+			// Add views which can be expanded into
+			findAllOpenViews(scene);
+
+			if (verbose != null) verbose.println("scene[" + sceneIdx + "].open.size=" + scene.open.size);
+		}
+	}
+
 	/**
 	 * Check to see the scene is allowed to expand from the specified view. The goal here is to have some redundancy
 	 * in views between scenes but not let all scenes expand unbounded and end up as duplicates of each other.
@@ -330,15 +344,8 @@ public class MetricFromUncalibratedPairwiseGraph extends ReconstructionFromPairw
 			}
 
 			// Don't merge in this situation
-			if (isSubset(src, dst)) {
-				if (verbose != null)
-					verbose.println("Merge results: src=" + src.index + " dst=" + dst.index + " sizes=(" +
-							src.listViews.size() + " " + dst.listViews.size() + "), Removing: src is a subset.");
-				mergeOps.toggleViewEnabled(src, scenesInEachView);
-				BoofMiscOps.checkTrue(!mergeOps.enabledScenes.get(src.index), "Should be disabled now");
-				BoofMiscOps.checkTrue(mergeOps.enabledScenes.get(dst.index), "Should be enabled now");
+			if (removeIfSubset(src, dst))
 				continue;
-			}
 
 			if (verbose != null)
 				verbose.println("Attempt merge: src=" + src.index + " dst=" + dst.index + " sizes=(" +
@@ -357,21 +364,7 @@ public class MetricFromUncalibratedPairwiseGraph extends ReconstructionFromPairw
 
 			if (verbose != null) verbose.println("Success merging. dst.size=" + dst.listViews.size());
 
-			// Remove both views from the counts for now
-			mergeOps.toggleViewEnabled(src, scenesInEachView);
-			mergeOps.toggleViewEnabled(dst, scenesInEachView);
-
-			// Mark all the newly added views and being inside of dst
-			for (int i = sizeBefore; i < dst.listViews.size(); i++) {
-				SceneWorkingGraph.View wview = dst.listViews.get(i);
-				scenesInEachView.getView(wview.pview).viewedBy.add(dst.index);
-				scenesInEachView.getView(wview.pview).viewedBy.sort();// TODO use sorter
-			}
-
-			// Add the dst scene back in
-			mergeOps.toggleViewEnabled(dst, scenesInEachView);
-			BoofMiscOps.checkTrue(!mergeOps.enabledScenes.get(src.index), "Should be disabled now");
-			BoofMiscOps.checkTrue(mergeOps.enabledScenes.get(dst.index), "Should be enabled now");
+			updateAfterMerge(src, dst, sizeBefore);
 
 			// Uncomment to run sanity checks on the validity of each of data structures
 //			sanityCheckScenesInEachView();
@@ -379,6 +372,48 @@ public class MetricFromUncalibratedPairwiseGraph extends ReconstructionFromPairw
 		}
 	}
 
+	/**
+	 * If 'src' is entirely contained inside of 'dst' then 'src' is disabled and it won't be merged
+	 *
+	 * @return true if 'src' was a subset and has been disabled
+	 */
+	protected boolean removeIfSubset( SceneWorkingGraph src, SceneWorkingGraph dst ) {
+		if (!isSubset(src, dst))
+			return false;
+
+		if (verbose != null)
+			verbose.println("Merge results: src=" + src.index + " dst=" + dst.index + " sizes=(" +
+					src.listViews.size() + " " + dst.listViews.size() + "), Removing: src is a subset.");
+		mergeOps.toggleViewEnabled(src, scenesInEachView);
+		BoofMiscOps.checkTrue(!mergeOps.enabledScenes.get(src.index), "Should be disabled now");
+		BoofMiscOps.checkTrue(mergeOps.enabledScenes.get(dst.index), "Should be enabled now");
+		return true;
+	}
+
+	/**
+	 * Updates book keeping after 'src' has been successfully merged into 'dst'. 'src' is disabled and the
+	 * common view counts for 'dst' are updated to include the views it gained.
+	 *
+	 * @param sizeBefore Number of views in 'dst' before the merge
+	 */
+	protected void updateAfterMerge( SceneWorkingGraph src, SceneWorkingGraph dst, int sizeBefore ) {
+		// Remove both views from the counts for now
+		mergeOps.toggleViewEnabled(src, scenesInEachView);
+		mergeOps.toggleViewEnabled(dst, scenesInEachView);
+
+		// Mark all the newly added views and being inside of dst
+		for (int i = sizeBefore; i < dst.listViews.size(); i++) {
+			SceneWorkingGraph.View wview = dst.listViews.get(i);
+			scenesInEachView.getView(wview.pview).viewedBy.add(dst.index);
+			scenesInEachView.getView(wview.pview).viewedBy.sort();// TODO use sorter
+		}
+
+		// Add the dst scene back in
+		mergeOps.toggleViewEnabled(dst, scenesInEachView);
+		BoofMiscOps.checkTrue(!mergeOps.enabledScenes.get(src.index), "Should be disabled now");
+		BoofMiscOps.checkTrue(mergeOps.enabledScenes.get(dst.index), "Should be enabled now");
+	}
+
 	/**
 	 * Checks to see if 'src' is entirely contained inside of 'dst'
 	 */
@@ -396,7 +431,7 @@ public class MetricFromUncalibratedPairwiseGraph extends ReconstructionFromPairw
 	/**
 	 * If a scene has been merged into another one remove it from the list of scenes
 	 */
-	private void removeMergedScenes() {
+	protected void removeMergedScenes() {
 		// remove scenes that got merged into others. This is output to the user
 		for (int i = scenes.size - 1; i >= 0; i--) {
 			if (mergeOps.enabledScenes.get(scenes.get(i).index))
@@ -427,6 +462,17 @@ public class MetricFromUncalibratedPairwiseGraph extends ReconstructionFromPairw
 			return false;
 		}
 
+		addExpandedView(utils, scene, selected);
+		return true;
+	}
+
+	/**
+	 * Updates book keeping after the scene has been successfully expanded into the selected view
+	 *
+	 * @param utils (Input) The utils used to expand into the view. Only used for verbose output.
+	 */
+	protected void addExpandedView( PairwiseGraphUtils utils, SceneWorkingGraph scene,
+									PairwiseImageGraph.View selected ) {
 		// Compute the score for view's inliers
 		SceneWorkingGraph.View wview = scene.lookupView(selected.id);
 		SceneWorkingGraph.InlierInfo inlier = wview.inliers.getTail();
@@ -448,8 +494,6 @@ public class MetricFromUncalibratedPairwiseGraph extends ReconstructionFromPairw
 
 		// Add this view to the list
 		scenesInEachView.getView(selected).viewedBy.add(scene.index);
-
-		return true;
 	}
 
 	/**
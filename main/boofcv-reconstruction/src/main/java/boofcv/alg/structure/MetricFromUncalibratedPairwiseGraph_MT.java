@@ -0,0 +1,448 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.structure;
+
+import boofcv.abst.geo.bundle.MetricBundleAdjustmentUtils;
+import boofcv.alg.structure.expand.MetricExpandByOneView;
+import boofcv.alg.structure.spawn.MetricSpawnSceneFromView;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
+import boofcv.misc.BoofMiscOps;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.DogArray_I32;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link MetricFromUncalibratedPairwiseGraph}. Seeds are spawned in batches, scenes
+ * are expanded and refined in parallel, and scenes are merged using a reduction tree. Every scene, seed, and
+ * merge has its own workspace. Work is assigned to workspaces based on the index of the scene or its position
+ * in a batch, and all book keeping is done sequentially in a fixed order, so the output is deterministic and does
+ * not depend on the number of threads.
+ * </p>
+ *
+ * <p>
+ * Differences from the single thread version:
+ * <ul>
+ *     <li>Instead of expanding the one scene with the best candidate view, each iteration expands every scene
+ *     into its best candidate view at the same time.</li>
+ *     <li>All pairs of scenes which can be merged and have no scenes in common are merged at the same time.</li>
+ * </ul>
+ * As a result the found scenes will not be identical to the single thread version.
+ * </p>
+ *
+ * <p>
+ * {@link LookUpSimilarImages#lookupPixelFeats} and {@link LookUpCameraInfo} must be safe to call from multiple
+ * threads at once. Settings are configured using the base class, e.g. {@link #getRefineWorking()}, and are
+ * copied into every workspace before it's used.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class MetricFromUncalibratedPairwiseGraph_MT extends MetricFromUncalibratedPairwiseGraph {
+
+	/** Maximum number of seeds which are spawned at the same time. Changing this can change the output. */
+	public int spawnBatchSize = 8;
+
+	/** Workspace for each scene, seed in a batch, or merge */
+	final DogArray<SceneWorkspace> workspaces;
+
+	//--------------------------------------------- Internal workspace
+	List<SeedInfo> batch = new ArrayList<>();
+	Set<String> batchNeighbors = new HashSet<>();
+	DogArray<Expansion> selections = new DogArray<>(Expansion::new, Expansion::reset);
+	List<PairwiseImageGraph.View> selectedViews = new ArrayList<>();
+	List<SceneWorkingGraph> mergeSrc = new ArrayList<>();
+	List<SceneWorkingGraph> mergeDst = new ArrayList<>();
+	DogArray_I32 sizeBefore = new DogArray_I32();
+	DogArray_B busy = new DogArray_B();
+	DogArray_B success = new DogArray_B();
+
+	// Verbose configuration which is passed on to each workspace
+	@Nullable Set<String> verboseConfiguration;
+
+	/**
+	 * Specifies how workspaces are created
+	 *
+	 * @param utils Used by the main thread
+	 * @param factoryWorkspace Creates a new workspace
+	 */
+	public MetricFromUncalibratedPairwiseGraph_MT( PairwiseGraphUtils utils,
+												   BoofLambdas.Factory<SceneWorkspace> factoryWorkspace ) {
+		super(utils);
+		this.workspaces = new DogArray<>(factoryWorkspace::newInstance);
+	}
+
+	public MetricFromUncalibratedPairwiseGraph_MT( ConfigProjectiveReconstruction config ) {
+		this(new PairwiseGraphUtils(config), () -> new SceneWorkspace(new PairwiseGraphUtils(config)));
+	}
+
+	public MetricFromUncalibratedPairwiseGraph_MT() {
+		this(new ConfigProjectiveReconstruction());
+	}
+
+	/**
+	 * Seeds are selected in the same order as the single thread version. A batch of seeds is spawned at the same
+	 * time. A batch ends when the next seed can only be rejected if a seed in the batch is successfully spawned.
+	 * This ensures the selected seeds are the same as if they were spawned one at a time.
+	 */
+	@Override
+	protected void selectAndSpawnSeeds( LookUpSimilarImages dbSimilar, LookUpCameraInfo dbCams,
+										PairwiseImageGraph pairwise,
+										DogArray<SeedInfo> candidates, Map<String, SeedInfo> lookupInfo ) {
+		// sort it so best scores are last
+		Collections.sort(candidates.toList());
+
+		if (verbose != null) {
+			double maxScore = candidates.get(candidates.size - 1).score;
+			double minScore = candidates.get(0).score;
+			verbose.printf("Select Seeds: candidates.size=%d scores=(%.2f - %.2f)\n",
+					candidates.size, minScore, maxScore);
+		}
+
+		// When it reaches the maximum number of failed seeds/spawns it will stop trying
+		int maxFailures = maximumSeedFailures.computeI(candidates.size);
+
+		// Collect summary information on rejections
+		int rejectedNeighbor = 0;
+		int rejectedClose = 0;
+		int rejectedSpawn = 0;
+		int successes = 0;
+
+		// Start iterating from the best scores
+		int candidateIdx = candidates.size - 1;
+		while (candidateIdx >= 0 && rejectedSpawn < maxFailures) {
+			batch.clear();
+			batchNeighbors.clear();
+
+			// Select seeds for this batch
+			while (candidateIdx >= 0 && batch.size() < spawnBatchSize) {
+				SeedInfo s = candidates.get(candidateIdx);
+
+				// skip if it's a neighbor to an already selected seed. Also if it has no connections.
+				if (s.neighbor || s.motions.isEmpty()) {
+					rejectedNeighbor++;
+					candidateIdx--;
+					continue;
+				}
+
+				// It can't be decided if this is a valid seed until the seeds in the batch have been spawned
+				if (batchNeighbors.contains(s.seed.id))
+					break;
+
+				// If any of the connected seeds are zero it's too close to another seed and you should pass over it
+				boolean skip = false;
+				boolean undecided = false;
+				for (int j = 0; j < s.seed.connections.size; j++) {
+					PairwiseImageGraph.View o = s.seed.connections.get(j).other(s.seed);
+					if (lookupInfo.get(o.id).neighbor) {
+						skip = true;
+						break;
+					}
+					undecided |= batchNeighbors.contains(o.id);
+				}
+				if (skip) {
+					rejectedClose++;
+					candidateIdx--;
+					continue;
+				}
+				if (undecided)
+					break;
+
+				batch.add(s);
+				for (int j = 0; j < s.seed.connections.size; j++) {
+					batchNeighbors.add(s.seed.connections.get(j).other(s.seed).id);
+				}
+				candidateIdx--;
+			}
+
+			// Attempt to create a new scene from every seed in the batch
+			growWorkspaces(batch.size());
+			success.resetResize(batch.size(), false);
+			BoofConcurrency.loopFor(0, batch.size(), batchIdx -> {
+				SeedInfo s = batch.get(batchIdx);
+				MetricSpawnSceneFromView spawn = workspaces.get(batchIdx).spawnScene;
+				success.data[batchIdx] = spawn.process(dbSimilar, dbCams, pairwise, s.seed, s.motions);
+			});
+
+			// Save the results in the same order they would have been processed by the single thread version
+			for (int batchIdx = 0; batchIdx < batch.size() && rejectedSpawn < maxFailures; batchIdx++) {
+				SeedInfo s = batch.get(batchIdx);
+				if (!success.get(batchIdx)) {
+					if (verbose != null) verbose.println("FAILED: Spawn view.id='" + s.seed.id + "'");
+					rejectedSpawn++;
+					continue;
+				}
+
+				if (verbose != null) verbose.println("Successfully spawned view.id='" + s.seed.id + "'");
+
+				addSpawnedScene(workspaces.get(batchIdx).spawnScene.getScene());
+
+				// zero the score of children so that they can't be a seed
+				for (int j = 0; j < s.seed.connections.size; j++) {
+					lookupInfo.get(s.seed.connections.get(j).other(s.seed).id).neighbor = true;
+				}
+
+				successes++;
+			}
+		}
+
+		if (verbose != null) {
+			verbose.printf("Seed Summary: candidates=%d, success=%d, failures: neighbor=%d close=%d spawn=%d\n",
+					candidates.size, successes, rejectedNeighbor, rejectedClose, rejectedSpawn);
+		}
+	}
+
+	/**
+	 * Every scene selects the view it would like to expand into. Then all scenes are expanded at the same time.
+	 * Book keeping is then updated one scene at a time in order of scene index.
+	 */
+	@Override
+	void expandScenes( LookUpSimilarImages dbSimilar, LookUpCameraInfo dbCam ) {
+		initializeOpenViews();
+
+		// Each scene gets its own workspace
+		growWorkspaces(scenes.size);
+
+		while (true) {
+			if (verbose != null) verbose.println("Selecting next view for each scene to expand into.");
+
+			// Select the view each scene will expand into and remove it from the open list
+			selections.reset();
+			selectedViews.clear();
+			for (int sceneIdx = 0; sceneIdx < scenes.size; sceneIdx++) {
+				SceneWorkingGraph scene = scenes.get(sceneIdx);
+				if (scene.open.isEmpty())
+					continue;
+
+				Expansion selection = selections.grow();
+				if (!selectNextToProcess(scene, selection)) {
+					if (verbose != null) verbose.println("_ No valid views left. open.size=" + scene.open.size);
+					selections.removeTail();
+					continue;
+				}
+				selectedViews.add(scene.open.removeSwap(selection.openIdx));
+			}
+
+			// See if there is nothing left to expand into
+			if (selections.isEmpty())
+				break;
+
+			// Expand all the scenes at once
+			success.resetResize(selections.size, false);
+			BoofConcurrency.loopFor(0, selections.size, selectIdx -> {
+				SceneWorkingGraph scene = selections.get(selectIdx).scene;
+				MetricExpandByOneView expand = workspaces.get(scene.index).expandMetric;
+				success.data[selectIdx] = expand.process(dbSimilar, dbCam, scene, selectedViews.get(selectIdx));
+			});
+
+			// Update book keeping in a fixed order
+			for (int selectIdx = 0; selectIdx < selections.size; selectIdx++) {
+				SceneWorkingGraph scene = selections.get(selectIdx).scene;
+				PairwiseImageGraph.View view = selectedViews.get(selectIdx);
+
+				if (!success.get(selectIdx)) {
+					if (verbose != null)
+						verbose.println("FAILED: Expand/add scene=" + scene.index + " view='" + view.id + "'. Discarding.");
+					continue;
+				}
+
+				addExpandedView(workspaces.get(scene.index).utils, scene, view);
+			}
+
+			// Refine small scenes that have changed
+			BoofConcurrency.loopFor(0, selections.size, selectIdx -> {
+				SceneWorkingGraph scene = selections.get(selectIdx).scene;
+				if (!success.get(selectIdx) || scene.listViews.size() > refineSceneWhileExpandingMaxViews)
+					return;
+				workspaces.get(scene.index).refineWorking.process(dbSimilar, scene);
+			});
+		}
+	}
+
+	@Override
+	void refineScenes( LookUpSimilarImages dbSimilar ) {
+		if (verbose != null) verbose.println("Refining all scenes before merging");
+		growWorkspaces(scenes.size);
+		BoofConcurrency.loopFor(0, scenes.size, sceneIdx ->
+				workspaces.get(sceneIdx).refineBeforeMerge.process(dbSimilar, scenes.get(sceneIdx)));
+	}
+
+	/**
+	 * Scenes are merged as a reduction tree. At each level the pairs of scenes with the most common views are
+	 * selected, with a scene only being in a single pair. The selected pairs are merged at the same time.
+	 */
+	@Override
+	void mergeScenes( LookUpSimilarImages dbSimilar ) {
+		if (verbose != null) verbose.println("Merging Scenes. scenes.size=" + scenes.size);
+
+		var selected = new SceneMergingOperations.SelectedScenes();
+
+		// Compute the number of views which are in common between all the scenes
+		mergeOps.initializeViewCounts(scenesInEachView, scenes.size);
+
+		while (true) {
+			mergeSrc.clear();
+			mergeDst.clear();
+			busy.resetResize(scenes.size, false);
+
+			// Select pairs of scenes to merge which have no scenes in common
+			while (mergeOps.selectScenesToMerge(selected, busy)) {
+				SceneWorkingGraph src = scenes.get(selected.sceneA);
+				SceneWorkingGraph dst = scenes.get(selected.sceneB);
+
+				// See if it needs to swap src and dst for merging
+				if (!mergeOps.decideFirstIntoSecond(src, dst)) {
+					SceneWorkingGraph tmp = dst;
+					dst = src;
+					src = tmp;
+				}
+
+				// Don't merge in this situation
+				if (removeIfSubset(src, dst))
+					continue;
+
+				if (verbose != null)
+					verbose.println("Attempt merge: src=" + src.index + " dst=" + dst.index + " sizes=(" +
+							src.listViews.size() + " " + dst.listViews.size() + ")");
+
+				busy.set(src.index, true);
+				busy.set(dst.index, true);
+				mergeSrc.add(src);
+				mergeDst.add(dst);
+			}
+
+			// Nothing more can be merged
+			if (mergeSrc.isEmpty())
+				break;
+
+			// Merge all the selected pairs at once
+			final int numMerges = mergeSrc.size();
+			growWorkspaces(numMerges);
+			sizeBefore.resize(numMerges);
+			success.resetResize(numMerges, false);
+			for (int i = 0; i < numMerges; i++) {
+				sizeBefore.data[i] = mergeDst.get(i).listViews.size();
+			}
+			BoofConcurrency.loopFor(0, numMerges, i ->
+					success.data[i] = workspaces.get(i).mergeScenes.merge(dbSimilar, mergeSrc.get(i), mergeDst.get(i)));
+
+			// Update book keeping in the order the scenes were selected
+			for (int i = 0; i < numMerges; i++) {
+				SceneWorkingGraph src = mergeSrc.get(i);
+				SceneWorkingGraph dst = mergeDst.get(i);
+
+				if (!success.get(i)) {
+					if (verbose != null)
+						verbose.println("FAILED: Merged blocked until scenes modified. src=" + src.index + " dst=" + dst.index);
+					// Mark merging these two scenes are impossible until one of them is modified
+					mergeOps.markAsFailed(src, dst);
+					continue;
+				}
+
+				if (verbose != null) verbose.println("Success merging. dst.size=" + dst.listViews.size());
+
+				updateAfterMerge(src, dst, sizeBefore.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Ensures there are at least this many workspaces and that they have the same configuration as the base class
+	 */
+	void growWorkspaces( int size ) {
+		while (workspaces.size < size) {
+			setVerboseWorkspace(workspaces.grow());
+		}
+		for (int i = 0; i < size; i++) {
+			workspaces.get(i).setTo(this);
+		}
+	}
+
+	@Override
+	public void setVerbose( @Nullable PrintStream out, @Nullable Set<String> configuration ) {
+		super.setVerbose(out, configuration);
+		this.verboseConfiguration = configuration;
+		for (int i = 0; i < workspaces.size; i++) {
+			setVerboseWorkspace(workspaces.get(i));
+		}
+	}
+
+	/**
+	 * Passes the verbose settings on to the workspace the same way the base class does for its children
+	 */
+	private void setVerboseWorkspace( SceneWorkspace w ) {
+		BoofMiscOps.verboseChildren(verbose, verboseConfiguration,
+				w.spawnScene, w.expandMetric, w.refineWorking, w.mergeScenes);
+	}
+
+	/**
+	 * Everything needed to spawn, expand, refine, and merge a single scene
+	 */
+	public static class SceneWorkspace {
+		public final PairwiseGraphUtils utils;
+		public final MetricExpandByOneView expandMetric = new MetricExpandByOneView();
+		public final RefineMetricWorkingGraph refineWorking = new RefineMetricWorkingGraph();
+		public final RefineMetricWorkingGraph refineBeforeMerge = new RefineMetricWorkingGraph();
+		public final MetricSpawnSceneFromView spawnScene;
+		public final MetricMergeScenes mergeScenes = new MetricMergeScenes();
+
+		public SceneWorkspace( PairwiseGraphUtils utils ) {
+			this.utils = utils;
+			expandMetric.utils = utils;
+			spawnScene = new MetricSpawnSceneFromView(refineWorking, utils);
+
+			// prune outlier observations and run SBA a second time
+			refineWorking.metricSba.keepFraction = 0.95;
+		}
+
+		/**
+		 * Copies the configuration from the single thread algorithm
+		 */
+		public void setTo( MetricFromUncalibratedPairwiseGraph src ) {
+			expandMetric.onlyConsiderCalibrated = src.getExpandMetric().onlyConsiderCalibrated;
+			expandMetric.overfitHandyCap = src.getExpandMetric().overfitHandyCap;
+			copySettings(src.getExpandMetric().expandUnknown.estimateUtils.metricSba,
+					expandMetric.expandUnknown.estimateUtils.metricSba);
+			copySettings(src.getExpandMetric().expandCalibrated.estimateUtils.metricSba,
+					expandMetric.expandCalibrated.estimateUtils.metricSba);
+			copySettings(src.getRefineWorking(), refineWorking);
+			copySettings(src.getRefineBeforeMerge(), refineBeforeMerge);
+			spawnScene.fractionBadFeaturesRecover = src.getSpawnScene().fractionBadFeaturesRecover;
+			mergeScenes.fractionBadFeaturesRecover = src.getMergeScenes().fractionBadFeaturesRecover;
+			copySettings(src.getMergeScenes().getRefiner(), mergeScenes.getRefiner());
+		}
+
+		private static void copySettings( RefineMetricWorkingGraph src, RefineMetricWorkingGraph dst ) {
+			dst.maxReprojectionErrorPixel = src.maxReprojectionErrorPixel;
+			dst.verboseViewInfo = src.verboseViewInfo;
+			copySettings(src.metricSba, dst.metricSba);
+		}
+
+		private static void copySettings( MetricBundleAdjustmentUtils src, MetricBundleAdjustmentUtils dst ) {
+			dst.configConverge.setTo(src.configConverge);
+			dst.configScale = src.configScale;
+			dst.keepFraction = src.keepFraction;
+		}
+	}
+}
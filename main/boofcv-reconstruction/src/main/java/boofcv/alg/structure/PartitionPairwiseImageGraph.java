@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.structure;
+
+import boofcv.misc.BoofMiscOps;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_F64;
+import org.ddogleg.struct.DogArray_I32;
+import org.ddogleg.struct.VerbosePrint;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Splits a {@link PairwiseImageGraph} into overlapping submaps which are small enough to be reconstructed
+ * independently. Each submap is grown from a seed view by greedily adding the unassigned view with the best
+ * 3D connection to the submap until it reaches the maximum size. Greedy growth can leave behind submaps which are
+ * too small to be reconstructed. These are merged into the neighboring submap they are most strongly connected to,
+ * so their views are not lost. After all views have been assigned, each submap is expanded by including views from
+ * other submaps which are connected to it. These overlapping views are used later on to align the submaps with
+ * each other.
+ *
+ * <p>
+ * In each submap the views it was assigned to are listed first, followed by the views which overlap with other
+ * submaps. See {@link Submap#numCore}.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class PartitionPairwiseImageGraph implements VerbosePrint {
+	/** Maximum number of views which are assigned to a submap. Overlapping views are not included. */
+	public int maxCoreViews = 500;
+
+	/**
+	 * Submaps with fewer assigned views than this are merged into a neighboring submap. A neighbor is only allowed to
+	 * exceed {@link #maxCoreViews} if no other neighbor has room.
+	 */
+	public int minCoreViews = 3;
+
+	/** Number of times it will add all neighbors with a 3D connection to the submap, to create the overlap. */
+	public int overlapHops = 1;
+
+	/** The found submaps */
+	public final DogArray<Submap> submaps = new DogArray<>(Submap::new, Submap::reset);
+
+	//--------------------------------------------- Internal workspace
+	// Which submap each view is assigned to. -1 if not assigned
+	DogArray_I32 viewToSubmap = new DogArray_I32();
+	// Used to mark which views are in the submap being processed
+	DogArray_I32 marks = new DogArray_I32();
+	// Views which are candidates for being added to a submap
+	PriorityQueue<Candidate> open = new PriorityQueue<>();
+	DogArray_I32 frontier = new DogArray_I32();
+	// Sum of 3D scores between the small submap and each other submap
+	DogArray_F64 connectionScore = new DogArray_F64();
+
+	@Nullable PrintStream verbose;
+
+	/**
+	 * Partitions the graph into submaps
+	 *
+	 * @param graph (Input) Graph which is to be partitioned
+	 */
+	public void process( PairwiseImageGraph graph ) {
+		BoofMiscOps.checkTrue(maxCoreViews >= 3, "Submaps must have at least 3 views");
+		submaps.reset();
+		viewToSubmap.resetResize(graph.nodes.size, -1);
+
+		// Views are considered as seeds in order of how well connected they are
+		DogArray_I32 seedOrder = selectSeedOrder(graph);
+
+		for (int orderIdx = 0; orderIdx < seedOrder.size; orderIdx++) {
+			int seedIdx = seedOrder.get(orderIdx);
+			if (viewToSubmap.get(seedIdx) != -1)
+				continue;
+
+			growSubmap(graph, seedIdx, submaps.grow());
+		}
+
+		mergeSmallSubmaps(graph);
+
+		// Add overlapping views
+		marks.resetResize(graph.nodes.size, -1);
+		for (int submapIdx = 0; submapIdx < submaps.size; submapIdx++) {
+			addOverlap(graph, submapIdx, submaps.get(submapIdx));
+		}
+
+		if (verbose != null) {
+			verbose.println("views.size=" + graph.nodes.size + " submaps.size=" + submaps.size);
+			for (int i = 0; i < submaps.size; i++) {
+				Submap s = submaps.get(i);
+				verbose.println("_ submap[" + i + "] core=" + s.numCore + " total=" + s.views.size);
+			}
+		}
+	}
+
+	/**
+	 * Sorts views by the sum of their 3D scores. Ties are broken by the view's index so that the order is stable.
+	 */
+	DogArray_I32 selectSeedOrder( PairwiseImageGraph graph ) {
+		var scores = new double[graph.nodes.size];
+		var order = new Integer[graph.nodes.size];
+		for (int viewIdx = 0; viewIdx < graph.nodes.size; viewIdx++) {
+			PairwiseImageGraph.View v = graph.nodes.get(viewIdx);
+			order[viewIdx] = viewIdx;
+			for (int connIdx = 0; connIdx < v.connections.size; connIdx++) {
+				PairwiseImageGraph.Motion m = v.connections.get(connIdx);
+				if (m.is3D)
+					scores[viewIdx] += m.score3D;
+			}
+		}
+		Arrays.sort(order, ( a, b ) -> {
+			int c = Double.compare(scores[b], scores[a]);
+			return c != 0 ? c : Integer.compare(a, b);
+		});
+
+		var output = new DogArray_I32(order.length);
+		for (Integer o : order) {
+			output.add(o);
+		}
+		return output;
+	}
+
+	/**
+	 * Creates a submap by starting at the seed then adding the view with the best 3D connection to the submap
+	 * until there are no more views or it hits the size limit.
+	 */
+	void growSubmap( PairwiseImageGraph graph, int seedIdx, Submap submap ) {
+		int submapIdx = submaps.size - 1;
+		open.clear();
+		open.add(new Candidate(seedIdx, Double.MAX_VALUE));
+
+		while (!open.isEmpty() && submap.views.size < maxCoreViews) {
+			Candidate c = open.poll();
+			// It might have been added through another connection
+			if (viewToSubmap.get(c.viewIdx) != -1)
+				continue;
+
+			viewToSubmap.set(c.viewIdx, submapIdx);
+			submap.views.add(c.viewIdx);
+
+			PairwiseImageGraph.View v = graph.nodes.get(c.viewIdx);
+			for (int connIdx = 0; connIdx < v.connections.size; connIdx++) {
+				PairwiseImageGraph.Motion m = v.connections.get(connIdx);
+				if (!m.is3D)
+					continue;
+				PairwiseImageGraph.View o = m.other(v);
+				if (viewToSubmap.get(o.index) != -1)
+					continue;
+				open.add(new Candidate(o.index, m.score3D));
+			}
+		}
+		submap.numCore = submap.views.size;
+	}
+
+	/**
+	 * Submaps which are too small to be reconstructed are merged into the neighboring submap with the largest
+	 * sum of 3D scores. Neighbors which would stay within the size limit are preferred. A small submap with no 3D
+	 * connection to another submap is left alone. Empty submaps are then removed.
+	 */
+	void mergeSmallSubmaps( PairwiseImageGraph graph ) {
+		for (int submapIdx = 0; submapIdx < submaps.size; submapIdx++) {
+			Submap small = submaps.get(submapIdx);
+			if (small.views.size == 0 || small.views.size >= minCoreViews)
+				continue;
+
+			// Score the connection to every other submap
+			connectionScore.resetResize(submaps.size, 0.0);
+			for (int i = 0; i < small.views.size; i++) {
+				PairwiseImageGraph.View v = graph.nodes.get(small.views.get(i));
+				for (int connIdx = 0; connIdx < v.connections.size; connIdx++) {
+					PairwiseImageGraph.Motion m = v.connections.get(connIdx);
+					if (!m.is3D)
+						continue;
+					int otherSubmap = viewToSubmap.get(m.other(v).index);
+					if (otherSubmap != submapIdx)
+						connectionScore.data[otherSubmap] += m.score3D;
+				}
+			}
+
+			// Select the best neighbor, preferring one which has room
+			int bestIdx = -1;
+			boolean bestHasRoom = false;
+			for (int otherIdx = 0; otherIdx < submaps.size; otherIdx++) {
+				double score = connectionScore.get(otherIdx);
+				if (score <= 0.0)
+					continue;
+				boolean hasRoom = submaps.get(otherIdx).views.size + small.views.size <= maxCoreViews;
+				if (bestIdx == -1 || (hasRoom && !bestHasRoom) ||
+						(hasRoom == bestHasRoom && score > connectionScore.get(bestIdx))) {
+					bestIdx = otherIdx;
+					bestHasRoom = hasRoom;
+				}
+			}
+			if (bestIdx == -1)
+				continue;
+
+			if (verbose != null)
+				verbose.println("Merging small submap[" + submapIdx + "] size=" + small.views.size +
+						" into submap[" + bestIdx + "]");
+
+			Submap dst = submaps.get(bestIdx);
+			for (int i = 0; i < small.views.size; i++) {
+				int viewIdx = small.views.get(i);
+				viewToSubmap.set(viewIdx, bestIdx);
+				dst.views.add(viewIdx);
+			}
+			dst.numCore = dst.views.size;
+			small.reset();
+		}
+
+		// Remove empty submaps and update the view to submap lookup
+		int count = 0;
+		for (int submapIdx = 0; submapIdx < submaps.size; submapIdx++) {
+			Submap s = submaps.get(submapIdx);
+			if (s.views.size == 0)
+				continue;
+			if (count != submapIdx) {
+				// Swap so that the empty submap's storage can be recycled
+				submaps.swap(count, submapIdx);
+				for (int i = 0; i < s.views.size; i++) {
+					viewToSubmap.set(s.views.get(i), count);
+				}
+			}
+			count++;
+		}
+		submaps.resize(count);
+	}
+
+	/**
+	 * Adds views from other submaps which are connected to this submap
+	 */
+	void addOverlap( PairwiseImageGraph graph, int submapIdx, Submap submap ) {
+		for (int i = 0; i < submap.views.size; i++) {
+			marks.set(submap.views.get(i), submapIdx);
+		}
+
+		int start = 0;
+		for (int hop = 0; hop < overlapHops; hop++) {
+			frontier.reset();
+			for (int i = start; i < submap.views.size; i++) {
+				PairwiseImageGraph.View v = graph.nodes.get(submap.views.get(i));
+				for (int connIdx = 0; connIdx < v.connections.size; connIdx++) {
+					PairwiseImageGraph.Motion m = v.connections.get(connIdx);
+					if (!m.is3D)
+						continue;
+					int otherIdx = m.other(v).index;
+					if (marks.get(otherIdx) == submapIdx)
+						continue;
+					marks.set(otherIdx, submapIdx);
+					frontier.add(otherIdx);
+				}
+			}
+			if (frontier.isEmpty())
+				break;
+			start = submap.views.size;
+			submap.views.addAll(frontier);
+		}
+	}
+
+	/**
+	 * Creates a new graph which only contains the views in the submap and the motions between them. Views and
+	 * their features will have the same IDs and indexes.
+	 *
+	 * @param graph (Input) The full graph
+	 * @param submap (Input) Which views are to be copied
+	 * @param output (Output) Graph which contains just the submap
+	 */
+	public void createSubgraph( PairwiseImageGraph graph, Submap submap, PairwiseImageGraph output ) {
+		output.reset();
+		marks.resetResize(graph.nodes.size, -1);
+
+		for (int i = 0; i < submap.views.size; i++) {
+			PairwiseImageGraph.View v = graph.nodes.get(submap.views.get(i));
+			marks.set(v.index, i);
+			output.createNode(v.id).totalObservations = v.totalObservations;
+		}
+
+		for (int i = 0; i < submap.views.size; i++) {
+			PairwiseImageGraph.View v = graph.nodes.get(submap.views.get(i));
+			for (int connIdx = 0; connIdx < v.connections.size; connIdx++) {
+				PairwiseImageGraph.Motion m = v.connections.get(connIdx);
+				// Only add a motion once, when encountered from its 'src' view
+				if (m.src != v || marks.get(m.dst.index) == -1)
+					continue;
+
+				PairwiseImageGraph.Motion c = output.connect(output.nodes.get(i), output.nodes.get(marks.get(m.dst.index)));
+				c.is3D = m.is3D;
+				c.score3D = m.score3D;
+				c.inliers.resize(m.inliers.size);
+				for (int inlierIdx = 0; inlierIdx < m.inliers.size; inlierIdx++) {
+					c.inliers.get(inlierIdx).setTo(m.inliers.get(inlierIdx));
+				}
+			}
+		}
+	}
+
+	@Override public void setVerbose( @Nullable PrintStream out, @Nullable Set<String> configuration ) {
+		this.verbose = BoofMiscOps.addPrefix(this, out);
+	}
+
+	/**
+	 * A subset of the views in the graph
+	 */
+	public static class Submap {
+		/** Indexes of views in the graph. Views assigned to this submap come first. */
+		public final DogArray_I32 views = new DogArray_I32();
+		/** Number of views which were assigned to this submap. The remaining views overlap other submaps */
+		public int numCore;
+
+		public void reset() {
+			views.reset();
+			numCore = 0;
+		}
+	}
+
+	/** View which could be added to a submap and its score */
+	private static class Candidate implements Comparable<Candidate> {
+		final int viewIdx;
+		final double score;
+
+		public Candidate( int viewIdx, double score ) {
+			this.viewIdx = viewIdx;
+			this.score = score;
+		}
+
+		/** Higher scores come first, then ties are broken by the view's index */
+		@Override public int compareTo( Candidate o ) {
+			int c = Double.compare(o.score, score);
+			return c != 0 ? c : Integer.compare(viewIdx, o.viewIdx);
+		}
+	}
+}
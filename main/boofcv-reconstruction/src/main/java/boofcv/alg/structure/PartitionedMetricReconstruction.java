@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.structure;
+
+import boofcv.alg.structure.AlignSubmapsSimilarity.SubmapPoses;
+import boofcv.misc.BoofMiscOps;
+import georegression.struct.se.Se3_F64;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import lombok.Getter;
+import lombok.Setter;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_I32;
+import org.ddogleg.struct.VerbosePrint;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.PrintStream;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Metric reconstruction for image collections which are too large to reconstruct all at once. The
+ * {@link PairwiseImageGraph} is split into overlapping submaps which are reconstructed and bundle adjusted
+ * independently. Only the pose of each view is kept in memory after a submap has been reconstructed. Once every
+ * submap has been reconstructed, they are all aligned to a single global coordinate system using the views which
+ * are in multiple submaps.
+ *
+ * <ol>
+ *     <li>Partition the graph. {@link PartitionPairwiseImageGraph}</li>
+ *     <li>Metric reconstruction of each submap. {@link MetricFromUncalibratedPairwiseGraph}</li>
+ *     <li>Bundle adjustment of each submap. {@link RefineMetricWorkingGraph}</li>
+ *     <li>Save the submap and discard everything but the view poses. {@link SubmapStorage}</li>
+ *     <li>Align submaps. {@link AlignSubmapsSimilarity}</li>
+ * </ol>
+ *
+ * <p>
+ * If a {@link SubmapStorage} is provided then the graph of each submap is saved by {@link #partition} and reloaded
+ * one at a time by {@link #reconstruct}, so the full graph does not need to be kept in memory after it has been
+ * partitioned. The reconstructed submaps can be loaded again afterwards with {@link #loadSubmap}. Without storage
+ * a reference to the full graph is kept until {@link #reconstruct} is finished.
+ * </p>
+ *
+ * The pose of a view in the global frame is taken from the submap the view was assigned to. If that submap
+ * failed then it's taken from the first aligned submap that contains it.
+ *
+ * @author Peter Abeles
+ */
+public class PartitionedMetricReconstruction implements VerbosePrint {
+	/** Splits the graph into submaps */
+	private final @Getter PartitionPairwiseImageGraph partition = new PartitionPairwiseImageGraph();
+
+	/** Reconstructs each submap */
+	private final @Getter MetricFromUncalibratedPairwiseGraph metric;
+
+	/** Bundle adjustment of the entire submap */
+	private final @Getter RefineMetricWorkingGraph refine = new RefineMetricWorkingGraph();
+
+	/** Aligns all the submaps together */
+	private final @Getter AlignSubmapsSimilarity alignment = new AlignSubmapsSimilarity();
+
+	/** If not null, each submap is saved here so that it doesn't need to be kept in memory */
+	private @Getter @Setter @Nullable SubmapStorage storage;
+
+	/** Pose of every view in each submap */
+	final @Getter DogArray<SubmapPoses> submaps = new DogArray<>(SubmapPoses::new, SubmapPoses::reset);
+
+	// Index of each view in the full graph, looked up by its ID
+	final TObjectIntHashMap<String> viewIdToIndex = new TObjectIntHashMap<>();
+
+	// Which submap and the index inside the submap a view's pose comes from. -1 if it has no pose
+	final DogArray_I32 viewToSubmap = new DogArray_I32();
+	final DogArray_I32 viewToLocal = new DogArray_I32();
+
+	// The full graph. Only kept when there's no storage to reload the submaps from
+	@Nullable PairwiseImageGraph pairwise;
+
+	// Graph for the submap being processed
+	final PairwiseImageGraph subgraph = new PairwiseImageGraph();
+
+	@Nullable PrintStream verbose;
+
+	public PartitionedMetricReconstruction( MetricFromUncalibratedPairwiseGraph metric ) {
+		this.metric = metric;
+	}
+
+	public PartitionedMetricReconstruction() {
+		this(new MetricFromUncalibratedPairwiseGraph());
+	}
+
+	/**
+	 * Reconstructs the scene. Same as calling {@link #partition} then {@link #reconstruct}.
+	 *
+	 * @param dbSimilar (input) Contains information on each image
+	 * @param dbCams (input) Information on each camera
+	 * @param pairwise (input) Relationship between the images
+	 * @return true if at least one submap could be reconstructed
+	 */
+	public boolean process( LookUpSimilarImages dbSimilar, LookUpCameraInfo dbCams, PairwiseImageGraph pairwise ) {
+		partition(pairwise);
+		return reconstruct(dbSimilar, dbCams);
+	}
+
+	/**
+	 * Splits the graph into submaps. If there is storage then the graph of each submap is saved and no reference
+	 * to the full graph is kept.
+	 *
+	 * @param pairwise (input) Relationship between the images
+	 */
+	public void partition( PairwiseImageGraph pairwise ) {
+		partition.process(pairwise);
+
+		viewIdToIndex.clear();
+		for (int viewIdx = 0; viewIdx < pairwise.nodes.size; viewIdx++) {
+			viewIdToIndex.put(pairwise.nodes.get(viewIdx).id, viewIdx);
+		}
+
+		if (storage == null) {
+			this.pairwise = pairwise;
+			return;
+		}
+
+		this.pairwise = null;
+		for (int submapIdx = 0; submapIdx < partition.submaps.size; submapIdx++) {
+			partition.createSubgraph(pairwise, partition.submaps.get(submapIdx), subgraph);
+			storage.saveGraph(submapIdx, subgraph);
+		}
+		subgraph.reset();
+	}
+
+	/**
+	 * Reconstructs every submap found by {@link #partition} then aligns them.
+	 *
+	 * @param dbSimilar (input) Contains information on each image
+	 * @param dbCams (input) Information on each camera
+	 * @return true if at least one submap could be reconstructed
+	 */
+	public boolean reconstruct( LookUpSimilarImages dbSimilar, LookUpCameraInfo dbCams ) {
+		submaps.reset();
+
+		int totalSuccess = 0;
+		for (int submapIdx = 0; submapIdx < partition.submaps.size; submapIdx++) {
+			SubmapPoses poses = submaps.grow();
+			if (reconstructSubmap(dbSimilar, dbCams, submapIdx, poses))
+				totalSuccess++;
+		}
+		// The full graph is no longer needed
+		pairwise = null;
+
+		if (verbose != null)
+			verbose.println("Reconstructed submaps: success=" + totalSuccess + " total=" + submaps.size);
+
+		if (totalSuccess == 0)
+			return false;
+
+		alignment.process(submaps.toList());
+		selectViewPoses();
+
+		return true;
+	}
+
+	/**
+	 * Loads the graph for the submap, reconstructs it, saves the results, and then extracts the poses
+	 *
+	 * @return true if successful
+	 */
+	boolean reconstructSubmap( LookUpSimilarImages dbSimilar, LookUpCameraInfo dbCams,
+							   int submapIdx, SubmapPoses poses ) {
+		if (storage != null) {
+			storage.loadGraph(submapIdx, subgraph);
+		} else {
+			partition.createSubgraph(Objects.requireNonNull(pairwise), partition.submaps.get(submapIdx), subgraph);
+		}
+
+		if (!metric.process(dbSimilar, dbCams, subgraph)) {
+			if (verbose != null) verbose.println("FAILED: Metric reconstruction. submap=" + submapIdx);
+			return false;
+		}
+
+		SceneWorkingGraph scene = metric.getLargestScene();
+		if (!refine.process(dbSimilar, scene)) {
+			if (verbose != null) verbose.println("FAILED: Refine. submap=" + submapIdx);
+			return false;
+		}
+
+		if (verbose != null)
+			verbose.println("submap[" + submapIdx + "] views.size=" + subgraph.nodes.size +
+					" scene.size=" + scene.listViews.size());
+
+		if (storage != null)
+			storage.saveScene(submapIdx, scene);
+
+		for (int i = 0; i < scene.listViews.size(); i++) {
+			SceneWorkingGraph.View wview = scene.listViews.get(i);
+			poses.addView(wview.pview.id, wview.world_to_view);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Selects which submap the pose of each view will come from
+	 */
+	void selectViewPoses() {
+		viewToSubmap.resetResize(viewIdToIndex.size(), -1);
+		viewToLocal.resetResize(viewIdToIndex.size(), -1);
+
+		// First pass only consider views in the submap they were assigned to, then consider any submap
+		for (int pass = 0; pass < 2; pass++) {
+			for (int submapIdx = 0; submapIdx < submaps.size; submapIdx++) {
+				SubmapPoses poses = submaps.get(submapIdx);
+				if (!poses.aligned)
+					continue;
+
+				for (int localIdx = 0; localIdx < poses.viewIds.size(); localIdx++) {
+					int viewIdx = viewIdToIndex.get(poses.viewIds.get(localIdx));
+					if (viewToSubmap.get(viewIdx) != -1)
+						continue;
+					if (pass == 0 && partition.viewToSubmap.get(viewIdx) != submapIdx)
+						continue;
+					viewToSubmap.set(viewIdx, submapIdx);
+					viewToLocal.set(viewIdx, localIdx);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Looks up the pose of a view in the global coordinate system
+	 *
+	 * @param view (Input) The view in the graph passed to {@link #process}
+	 * @param global_to_view (Output) Transform from global to view
+	 * @return true if the view has a known pose
+	 */
+	public boolean lookupGlobalToView( PairwiseImageGraph.View view, Se3_F64 global_to_view ) {
+		int submapIdx = viewToSubmap.get(view.index);
+		if (submapIdx == -1)
+			return false;
+		submaps.get(submapIdx).globalToView(viewToLocal.get(view.index), global_to_view);
+		return true;
+	}
+
+	/**
+	 * Loads a reconstructed submap from storage. The scene is in the submap's coordinate system. Use
+	 * {@link SubmapPoses#submap_to_global} in {@link #getSubmaps()} to convert it into the global frame.
+	 *
+	 * @param submapIdx (Input) Index of the submap
+	 * @param graph (Output) Graph with just the views in the submap
+	 * @param scene (Output) The reconstructed scene, which references the graph
+	 * @return true if the submap was reconstructed and could be loaded
+	 */
+	public boolean loadSubmap( int submapIdx, PairwiseImageGraph graph, SceneWorkingGraph scene ) {
+		SubmapStorage storage = Objects.requireNonNull(this.storage, "Storage must be set to load a submap");
+		if (!storage.containsScene(submapIdx))
+			return false;
+		storage.loadGraph(submapIdx, graph);
+		storage.loadScene(submapIdx, graph, scene);
+		return true;
+	}
+
+	@Override public void setVerbose( @Nullable PrintStream out, @Nullable Set<String> configuration ) {
+		this.verbose = BoofMiscOps.addPrefix(this, out);
+		BoofMiscOps.verboseChildren(verbose, configuration, partition, metric, refine, alignment);
+	}
+}
@@ -194,17 +194,29 @@ public class SceneMergingOperations implements VerbosePrint {
 	 * @return true if it could find two valid scenes to merge
 	 */
 	public boolean selectScenesToMerge( SelectedScenes selected ) {
+		return selectScenesToMerge(selected, null);
+	}
+
+	/**
+	 * Selects the two scenes with the most common views to merge together while ignoring scenes which are
+	 * marked as busy. Used to select multiple pairs of scenes which have no scenes in common.
+	 *
+	 * @param selected (Output) Selected scenes to merge
+	 * @param busy (Input) If not null, then scenes which are true are not considered.
+	 * @return true if it could find two valid scenes to merge
+	 */
+	public boolean selectScenesToMerge( SelectedScenes selected, @Nullable DogArray_B busy ) {
 		int bestCommon = 0;
 
 		for (int sceneIndexA = 0; sceneIndexA < commonViewCounts.size; sceneIndexA++) {
 			// if the view is disabled, skip it
-			if (!enabledScenes.get(sceneIndexA))
+			if (!enabledScenes.get(sceneIndexA) || (busy != null && busy.get(sceneIndexA)))
 				continue;
 
 			DogArray<SceneCommonCounts> list = commonViewCounts.get(sceneIndexA);
 			for (int j = 0; j < list.size; j++) {
 				SceneCommonCounts overlap = list.get(j);
-				if (!enabledScenes.get(overlap.sceneIndex))
+				if (!enabledScenes.get(overlap.sceneIndex) || (busy != null && busy.get(overlap.sceneIndex)))
 					continue;
 
 				if (overlap.counts <= bestCommon)
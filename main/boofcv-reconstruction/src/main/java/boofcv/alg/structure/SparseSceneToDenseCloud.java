@@ -21,15 +21,17 @@ package boofcv.alg.structure;
 import boofcv.abst.geo.bundle.SceneStructureMetric;
 import boofcv.alg.mvs.ColorizeMultiViewStereoResults;
 import boofcv.alg.mvs.MultiViewStereoFromKnownSceneStructure;
+import boofcv.alg.mvs.MultiViewStereoFromKnownSceneStructure.ViewInfo;
 import boofcv.core.image.LookUpColorRgbFormats;
 import boofcv.misc.LookUpImages;
 import boofcv.struct.image.ImageGray;
 import boofcv.struct.image.ImageType;
-import georegression.struct.point.Point3D_F64;
+import boofcv.struct.packed.PackedPointCloud_F64;
 import gnu.trove.map.TIntObjectMap;
 import lombok.Getter;
 import org.ddogleg.struct.DogArray_I32;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -43,8 +45,8 @@ public class SparseSceneToDenseCloud<T extends ImageGray<T>> {
 	private final MultiViewStereoFromKnownSceneStructure<T> mvs;
 	/** Finds and scores stereo pairs from sparse scene graph */
 	private final @Getter GenerateStereoPairGraphFromScene generateGraph = new GenerateStereoPairGraphFromScene();
-	/** RGB colors in found dense point cloud */
-	private final @Getter DogArray_I32 colorRgb = new DogArray_I32();
+	/** Found dense point cloud. Includes the color of each point and the SBA index of the view it came from */
+	private final @Getter PackedPointCloud_F64 cloud = new PackedPointCloud_F64();
 
 	// Profiling times in milliseconds
 	@Getter double timeCreateGraphMS;
@@ -56,6 +58,8 @@ public class SparseSceneToDenseCloud<T extends ImageGray<T>> {
 
 	public SparseSceneToDenseCloud( Class<T> imageType ) {
 		mvs = new MultiViewStereoFromKnownSceneStructure<>(ImageType.single(imageType));
+		// MVS writes its points directly into the output cloud, avoiding a second copy of the whole cloud
+		mvs.getDisparityCloud().setCloud(cloud.xyz);
 	}
 
 	/**
@@ -80,15 +84,18 @@ public class SparseSceneToDenseCloud<T extends ImageGray<T>> {
 		timeCreateGraphMS = (time1 - time0)*1e-6;
 
 		// Compute the dense cloud
+		cloud.initialize(true, false, true);
 		mvs.setImageLookUp(lookUpImages);
 		mvs.process(scene, generateGraph.getStereoGraph());
 		long time2 = System.nanoTime();
 		timeMultiViewStereoMS = (time2 - time1)*1e-6;
 
+		// Note which view each point came from
+		assignPointsToViews();
+
 		// Extract colors from cloud
-		colorRgb.resize(mvs.getCloud().size());
 		var colorizeMvs = new ColorizeMultiViewStereoResults<>(new LookUpColorRgbFormats.PL_U8(), lookUpImages);
-		colorizeMvs.processMvsCloud(scene, mvs, ( idx, r, g, b ) -> colorRgb.set(idx, (r << 16) | (g << 8) | b));
+		colorizeMvs.processMvsCloud(scene, mvs, ( idx, r, g, b ) -> cloud.setRgb(idx, (r << 16) | (g << 8) | b));
 		long time3 = System.nanoTime();
 		timeColorizeMS = (time3 - time2)*1e-6;
 
@@ -96,10 +103,24 @@ public class SparseSceneToDenseCloud<T extends ImageGray<T>> {
 	}
 
 	/**
-	 * Returns the generated dense 3D point cloud
+	 * MVS has already written the points into the output cloud. Allocates the other attributes and assigns each
+	 * point to the view it came from.
 	 */
-	public List<Point3D_F64> getCloud() {
-		return mvs.getCloud();
+	void assignPointsToViews() {
+		DogArray_I32 viewPointIdx = mvs.getDisparityCloud().getViewPointIdx();
+		List<ViewInfo> centers = mvs.getListCenters();
+
+		// Only the attributes are resized since the points are already there. Points which aren't colorized are black
+		cloud.resize(cloud.xyz.size());
+		cloud.rgb.processByBlock(0, cloud.size(), ( array, idx0, idx1, offset ) -> Arrays.fill(array, idx0, idx1, 0));
+
+		for (int centerIdx = 0; centerIdx + 1 < viewPointIdx.size; centerIdx++) {
+			int indexSba = centers.get(centerIdx).getIndexSba();
+			int idx1 = viewPointIdx.get(centerIdx + 1);
+			for (int pointIdx = viewPointIdx.get(centerIdx); pointIdx < idx1; pointIdx++) {
+				cloud.setView(pointIdx, indexSba);
+			}
+		}
 	}
 
 	/** Returns the MVS used internally */
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boofcv.alg.structure;
+
+/**
+ * Used by {@link PartitionedMetricReconstruction} to save submaps and load them again later, allowing
+ * them to be removed from memory. The graph of a submap is saved after partitioning and the scene after
+ * it has been reconstructed.
+ *
+ * @author Peter Abeles
+ */
+public interface SubmapStorage {
+	/**
+	 * Saves the graph of a submap. The passed in graph will be modified after this function returns, so a copy
+	 * must be made if it is to be kept.
+	 *
+	 * @param submapIdx Index of the submap
+	 * @param pairwise Graph containing just the views in the submap
+	 */
+	void saveGraph( int submapIdx, PairwiseImageGraph pairwise );
+
+	/**
+	 * Loads the graph of a submap
+	 *
+	 * @param submapIdx Index of the submap
+	 * @param output (Output) The graph is loaded into this object
+	 */
+	void loadGraph( int submapIdx, PairwiseImageGraph output );
+
+	/**
+	 * Saves the reconstructed scene of a submap. The passed in scene will be modified after this function
+	 * returns, so a copy must be made if it is to be kept.
+	 *
+	 * @param submapIdx Index of the submap
+	 * @param scene Reconstructed scene for the submap, in the submap's coordinate system
+	 */
+	void saveScene( int submapIdx, SceneWorkingGraph scene );
+
+	/**
+	 * Loads the reconstructed scene of a submap
+	 *
+	 * @param submapIdx Index of the submap
+	 * @param pairwise Graph for the submap, which the scene references. See {@link #loadGraph}.
+	 * @param output (Output) The scene is loaded into this object
+	 */
+	void loadScene( int submapIdx, PairwiseImageGraph pairwise, SceneWorkingGraph output );
+
+	/** Returns true if the scene of the submap has been saved */
+	boolean containsScene( int submapIdx );
+}
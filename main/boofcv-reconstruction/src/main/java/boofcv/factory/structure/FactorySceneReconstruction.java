@@ -24,16 +24,21 @@ import boofcv.abst.feature.describe.DescribePointRadiusAngle;
 import boofcv.abst.feature.detdesc.DetectDescribePoint;
 import boofcv.abst.geo.bundle.MetricBundleAdjustmentUtils;
 import boofcv.abst.scene.FeatureSceneRecognition;
+import boofcv.alg.mvs.MultiBaselineStereoIndependent;
 import boofcv.alg.mvs.MultiViewStereoFromKnownSceneStructure;
 import boofcv.alg.similar.*;
 import boofcv.alg.structure.EpipolarScore3D;
 import boofcv.alg.structure.GeneratePairwiseImageGraph;
+import boofcv.alg.structure.ConfigProjectiveReconstruction;
 import boofcv.alg.structure.GenerateStereoPairGraphFromScene;
+import boofcv.alg.structure.MetricFromUncalibratedPairwiseGraph;
+import boofcv.alg.structure.MetricFromUncalibratedPairwiseGraph_MT;
 import boofcv.alg.structure.SparseSceneToDenseCloud;
 import boofcv.alg.structure.score3d.ScoreFundamentalHomographyCompatibility;
 import boofcv.alg.structure.score3d.ScoreFundamentalVsRotation;
 import boofcv.alg.structure.score3d.ScoreRatioFundamentalHomography;
 import boofcv.alg.video.SelectFramesForReconstruction3D;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.disparity.FactoryStereoDisparity;
 import boofcv.factory.feature.associate.FactoryAssociation;
 import boofcv.factory.feature.describe.FactoryDescribePoint;
@@ -78,6 +83,22 @@ public class FactorySceneReconstruction {
 		return alg;
 	}
 
+	/**
+	 * Creates {@link MetricFromUncalibratedPairwiseGraph}. If concurrency is turned on then
+	 * {@link MetricFromUncalibratedPairwiseGraph_MT} is returned, which will not produce identical results.
+	 */
+	public static MetricFromUncalibratedPairwiseGraph
+	metricFromPairwise( @Nullable ConfigProjectiveReconstruction config ) {
+		if (config == null)
+			config = new ConfigProjectiveReconstruction();
+
+		if (BoofConcurrency.USE_CONCURRENT) {
+			return new MetricFromUncalibratedPairwiseGraph_MT(config);
+		} else {
+			return new MetricFromUncalibratedPairwiseGraph(config);
+		}
+	}
+
 	/**
 	 * Creates {@link GeneratePairwiseImageGraph}
 	 */
@@ -87,7 +108,10 @@ public class FactorySceneReconstruction {
 
 		EpipolarScore3D scorer = epipolarScore3D(config.score);
 
-		return new GeneratePairwiseImageGraph(scorer);
+		var alg = new GeneratePairwiseImageGraph(scorer);
+		// PROSAC assumes the input has been sorted by quality
+		alg.sortByScore = config.score.ransacF.prosac;
+		return alg;
 	}
 
 	/**
@@ -148,12 +172,27 @@ public class FactorySceneReconstruction {
 		mvs.minimumQuality3D = config.mvs.minimumQuality3D;
 		mvs.maximumCenterOverlap = config.mvs.maximumCenterOverlap;
 		mvs.maxCombinePairs = config.mvs.maxCombinePairs;
+		mvs.maxConcurrentCenters = config.mvs.maxConcurrentCenters;
 
 		mvs.setStereoDisparity(FactoryStereoDisparity.generic(
 				config.disparity, grayType, GrayF32.class));
 		mvs.getComputeFused().setDisparitySmoother(
 				FactoryStereoDisparity.removeSpeckle(config.smoother, GrayF32.class));
 
+		// Each center view that's processed concurrently needs its own stereo algorithms
+		if (config.mvs.maxConcurrentCenters > 1) {
+			var configCopy = new ConfigSparseToDenseCloud();
+			configCopy.setTo(config);
+			mvs.setComputeFusedFactory(() -> {
+				var fused = new MultiBaselineStereoIndependent<>(imageType);
+				fused.setStereoDisparity(FactoryStereoDisparity.generic(
+						configCopy.disparity, grayType, GrayF32.class));
+				fused.setDisparitySmoother(
+						FactoryStereoDisparity.removeSpeckle(configCopy.smoother, GrayF32.class));
+				return fused;
+			});
+		}
+
 		GenerateStereoPairGraphFromScene generateGraph = s2c.getGenerateGraph();
 
 		generateGraph.targetDisparity = config.graph.targetDisparity;
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.structure;
+
+import boofcv.BoofTesting;
+import boofcv.alg.structure.AlignSubmapsSimilarity.SubmapPoses;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.se.Se3_F64;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.ejml.dense.row.MatrixFeatures_DDRM;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestAlignSubmapsSimilarity extends BoofStandardJUnit {
+	// Location of each view in the global frame
+	List<Se3_F64> truth = new ArrayList<>();
+
+	/**
+	 * Three submaps in a chain. The first one has the most views and defines the global frame.
+	 */
+	@Test void process() {
+		for (int i = 0; i < 20; i++) {
+			truth.add(SpecialEuclideanOps_F64.eulerXyz(rand.nextGaussian(), rand.nextGaussian(), rand.nextGaussian(),
+					rand.nextGaussian()*0.2, rand.nextGaussian()*0.2, rand.nextGaussian()*0.2, null));
+		}
+
+		List<SubmapPoses> submaps = new ArrayList<>();
+		submaps.add(createSubmap(0, 9, new ScaleSe3_F64()));
+		submaps.add(createSubmap(6, 14, randomTransform(2.5)));
+		submaps.add(createSubmap(11, 20, randomTransform(0.3)));
+		// This one isn't connected to anything
+		var isolated = new SubmapPoses();
+		isolated.addView("foo", new Se3_F64());
+		submaps.add(isolated);
+
+		var alg = new AlignSubmapsSimilarity();
+		alg.process(submaps);
+
+		for (int submapIdx = 0; submapIdx < 3; submapIdx++) {
+			SubmapPoses s = submaps.get(submapIdx);
+			assertTrue(s.aligned);
+
+			var found = new Se3_F64();
+			for (int localIdx = 0; localIdx < s.viewIds.size(); localIdx++) {
+				s.globalToView(localIdx, found);
+				Se3_F64 expected = truth.get(Integer.parseInt(s.viewIds.get(localIdx)));
+				BoofTesting.assertEquals(expected, found, 1e-6, 1e-6);
+			}
+		}
+		assertFalse(isolated.aligned);
+	}
+
+	/**
+	 * Applying the inverse should result in the identity transform
+	 */
+	@Test void concat_invert() {
+		ScaleSe3_F64 a = randomTransform(1.5);
+		var inv = new ScaleSe3_F64();
+		var found = new ScaleSe3_F64();
+
+		AlignSubmapsSimilarity.invert(a, inv);
+		AlignSubmapsSimilarity.concat(a, inv, found);
+
+		assertEquals(1.0, found.scale, 1e-8);
+		assertTrue(MatrixFeatures_DDRM.isIdentity(found.transform.R, 1e-8));
+		assertEquals(0.0, found.transform.T.norm(), 1e-8);
+	}
+
+	ScaleSe3_F64 randomTransform( double scale ) {
+		var t = new ScaleSe3_F64();
+		t.scale = scale;
+		t.transform.setTo(SpecialEuclideanOps_F64.eulerXyz(rand.nextGaussian(), rand.nextGaussian(),
+				rand.nextGaussian(), rand.nextGaussian(), rand.nextGaussian(), rand.nextGaussian(), null));
+		return t;
+	}
+
+	/**
+	 * Creates a submap with views in the specified range.
+	 *
+	 * @param global_to_submap Transform from the global frame to the submap's frame
+	 */
+	SubmapPoses createSubmap( int idx0, int idx1, ScaleSe3_F64 global_to_submap ) {
+		var submap = new SubmapPoses();
+		var local = new Se3_F64();
+		double s = global_to_submap.scale;
+		Se3_F64 g = global_to_submap.transform;
+		for (int i = idx0; i < idx1; i++) {
+			Se3_F64 global_to_view = truth.get(i);
+			// R' = R*Rg^T,  T' = s*T - R'*Tg
+			CommonOps_DDRM.multTransB(global_to_view.R, g.R, local.R);
+			double[] R = local.R.data;
+			local.T.setTo(
+					s*global_to_view.T.x - (R[0]*g.T.x + R[1]*g.T.y + R[2]*g.T.z),
+					s*global_to_view.T.y - (R[3]*g.T.x + R[4]*g.T.y + R[5]*g.T.z),
+					s*global_to_view.T.z - (R[6]*g.T.x + R[7]*g.T.y + R[8]*g.T.z));
+			submap.addView("" + i, local);
+		}
+		return submap;
+	}
+}
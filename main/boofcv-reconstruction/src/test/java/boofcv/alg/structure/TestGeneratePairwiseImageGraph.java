@@ -18,8 +18,12 @@
 
 package boofcv.alg.structure;
 
+import boofcv.factory.structure.ConfigGeneratePairwiseImageGraph;
 import boofcv.factory.structure.FactorySceneReconstruction;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.geo.AssociatedPair;
 import boofcv.testing.BoofStandardJUnit;
+import org.ddogleg.struct.DogArray;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -81,4 +85,40 @@ class TestGeneratePairwiseImageGraph extends BoofStandardJUnit {
 			}
 		}
 	}
+
+	/**
+	 * When PROSAC is used the associations should be sorted by score before being passed to the estimator
+	 */
+	@Test void sortByScore() {
+		var config = new ConfigGeneratePairwiseImageGraph();
+		config.score.ransacF.prosac = true;
+		GeneratePairwiseImageGraph alg = FactorySceneReconstruction.generatePairwise(config);
+		assertTrue(alg.sortByScore);
+
+		var dbSimilar = new MockLookupSimilarImages(2, 123123) {
+			@Override public boolean lookupAssociated( String viewB, DogArray<AssociatedIndex> pairs ) {
+				super.lookupAssociated(viewB, pairs);
+				for (int i = 0; i < pairs.size; i++) {
+					pairs.get(i).fitScore = rand.nextDouble();
+				}
+				return true;
+			}
+		};
+		var dbCams = new MockLookUpCameraInfo(400, 300);
+
+		// Check the order of the associations right before the edge is estimated
+		var checker = new GeneratePairwiseImageGraph(alg.epipolarScore) {
+			@Override protected void createEdge( LookUpCameraInfo dbCams, String src, String dst,
+												 DogArray<AssociatedPair> pairs, DogArray<AssociatedIndex> matches ) {
+				assertEquals(matches.size, pairs.size);
+				for (int i = 1; i < matches.size; i++) {
+					assertTrue(matches.get(i - 1).fitScore <= matches.get(i).fitScore);
+				}
+				super.createEdge(dbCams, src, dst, pairs, matches);
+			}
+		};
+		checker.sortByScore = true;
+		checker.process(dbSimilar, dbCams);
+		assertEquals(1, checker.getGraph().edges.size);
+	}
 }
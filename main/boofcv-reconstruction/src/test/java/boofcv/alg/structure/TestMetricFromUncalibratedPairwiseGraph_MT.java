@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.structure;
+
+import boofcv.BoofTesting;
+import boofcv.alg.geo.MultiViewOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.calib.CameraPinhole;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.se.Se3_F64;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestMetricFromUncalibratedPairwiseGraph_MT extends BoofStandardJUnit {
+	/**
+	 * Reconstruct a scene with perfect data and see if the solution is correct
+	 */
+	@Test void process_perfect() {
+		for (int numViews = 3; numViews <= 23; numViews += 10) {
+			MockLookupSimilarImagesRealistic dbSimilar = createDB(numViews);
+			var dbCams = new MockLookUpCameraInfo(dbSimilar.intrinsic);
+
+			MetricFromUncalibratedPairwiseGraph_MT alg = createAlg();
+			assertTrue(alg.process(dbSimilar, dbCams, dbSimilar.createPairwise()));
+			assertEquals(1, alg.getScenes().size);
+
+			SceneWorkingGraph found = alg.getLargestScene();
+			assertEquals(dbSimilar.views.size(), found.getAllViews().size());
+			for (SceneWorkingGraph.Camera c : found.listCameras.toList()) {
+				assertEquals(dbSimilar.intrinsic.fx, c.intrinsic.f, 1e-2);
+			}
+
+			// Compare motion up to a scale factor
+			String originID = dbSimilar.views.get(0).id;
+			Se3_F64 fndWorld_to_origin = found.lookupView(originID).world_to_view;
+			Se3_F64 expWorld_to_origin = dbSimilar.views.get(0).world_to_view;
+			for (var trueView : dbSimilar.views) {
+				Se3_F64 fnd = found.lookupView(trueView.id).world_to_view.invert(null).concat(fndWorld_to_origin, null);
+				Se3_F64 exp = trueView.world_to_view.invert(null).concat(expWorld_to_origin, null);
+				fnd.T.scale(MultiViewOps.findScale(fnd.T, exp.T));
+				BoofTesting.assertEquals(exp, fnd, 0.001, 1e-3);
+			}
+		}
+	}
+
+	/**
+	 * Results with and without threads should be identical, since the order scenes are processed in must not
+	 * depend on which thread finishes first
+	 */
+	@Test void deterministic() {
+		MockLookupSimilarImagesRealistic dbSimilar = createDB(13);
+		var dbCams = new MockLookUpCameraInfo(dbSimilar.intrinsic);
+
+		MetricFromUncalibratedPairwiseGraph_MT algA = createAlg();
+		MetricFromUncalibratedPairwiseGraph_MT algB = createAlg();
+
+		BoofConcurrency.USE_CONCURRENT = false;
+		assertTrue(algA.process(dbSimilar, dbCams, dbSimilar.createPairwise()));
+		BoofConcurrency.USE_CONCURRENT = true;
+		assertTrue(algB.process(dbSimilar, dbCams, dbSimilar.createPairwise()));
+
+		assertEquals(algA.getScenes().size, algB.getScenes().size);
+		for (int sceneIdx = 0; sceneIdx < algA.getScenes().size; sceneIdx++) {
+			SceneWorkingGraph sceneA = algA.getScenes().get(sceneIdx);
+			SceneWorkingGraph sceneB = algB.getScenes().get(sceneIdx);
+			assertEquals(sceneA.listViews.size(), sceneB.listViews.size());
+			for (int viewIdx = 0; viewIdx < sceneA.listViews.size(); viewIdx++) {
+				SceneWorkingGraph.View va = sceneA.listViews.get(viewIdx);
+				SceneWorkingGraph.View vb = sceneB.listViews.get(viewIdx);
+				assertEquals(va.pview.id, vb.pview.id);
+				BoofTesting.assertEquals(va.world_to_view, vb.world_to_view, 1e-8, 1e-8);
+			}
+		}
+	}
+
+	/**
+	 * Settings in the base class should be copied into every workspace
+	 */
+	@Test void workspacesCopyConfiguration() {
+		MetricFromUncalibratedPairwiseGraph_MT alg = createAlg();
+		alg.getExpandMetric().onlyConsiderCalibrated = true;
+		alg.getRefineWorking().metricSba.keepFraction = 0.5;
+		alg.getRefineBeforeMerge().maxReprojectionErrorPixel = 12.0;
+		alg.getSpawnScene().fractionBadFeaturesRecover = 0.2;
+		alg.getMergeScenes().fractionBadFeaturesRecover = 0.3;
+
+		alg.growWorkspaces(3);
+		assertEquals(3, alg.workspaces.size);
+		for (int i = 0; i < alg.workspaces.size; i++) {
+			MetricFromUncalibratedPairwiseGraph_MT.SceneWorkspace w = alg.workspaces.get(i);
+			assertTrue(w.expandMetric.onlyConsiderCalibrated);
+			assertEquals(4, w.expandMetric.expandUnknown.estimateUtils.metricSba.configConverge.maxIterations);
+			assertEquals(0.5, w.refineWorking.metricSba.keepFraction);
+			assertEquals(4, w.refineWorking.metricSba.configConverge.maxIterations);
+			assertEquals(12.0, w.refineBeforeMerge.maxReprojectionErrorPixel);
+			assertEquals(0.2, w.spawnScene.fractionBadFeaturesRecover);
+			assertEquals(0.3, w.mergeScenes.fractionBadFeaturesRecover);
+			assertEquals(4, w.mergeScenes.refiner.metricSba.configConverge.maxIterations);
+		}
+	}
+
+	private MockLookupSimilarImagesRealistic createDB( int numViews ) {
+		return new MockLookupSimilarImagesRealistic().setLoop(false).
+				setIntrinsic(new CameraPinhole(410, 410, 0, 400, 400, 800, 800)).
+				setSeed(numViews).setFeatures(Math.max(400, 50*numViews)).pathLine(numViews, 0.30, 6.0, 2);
+	}
+
+	/**
+	 * Creates the algorithm and tells it to not try as hard since the data is perfect
+	 */
+	private MetricFromUncalibratedPairwiseGraph_MT createAlg() {
+		var config = new ConfigProjectiveReconstruction();
+		config.ransac.iterations = 1;
+		config.sbaConverge.maxIterations = 0;
+		config.ransacTrifocal.converge.maxIterations = 0;
+
+		var alg = new MetricFromUncalibratedPairwiseGraph_MT(config);
+		// The workspaces should copy these settings
+		alg.getRefineWorking().metricSba.configConverge.maxIterations = 4;
+		alg.getExpandMetric().expandUnknown.estimateUtils.metricSba.configConverge.maxIterations = 4;
+		alg.getMergeScenes().refiner.metricSba.configConverge.maxIterations = 4;
+		return alg;
+	}
+}
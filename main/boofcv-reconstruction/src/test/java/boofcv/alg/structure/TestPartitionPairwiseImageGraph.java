@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.structure;
+
+import boofcv.testing.BoofStandardJUnit;
+import org.ddogleg.struct.DogArray_I32;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestPartitionPairwiseImageGraph extends BoofStandardJUnit {
+	/**
+	 * Creates a graph where views are in a line and connected to the next two views
+	 */
+	PairwiseImageGraph createLineGraph( int numViews ) {
+		var graph = new PairwiseImageGraph();
+		for (int i = 0; i < numViews; i++) {
+			graph.createNode("" + i).totalObservations = 10 + i;
+		}
+		for (int i = 0; i < numViews; i++) {
+			for (int j = i + 1; j < Math.min(numViews, i + 3); j++) {
+				PairwiseImageGraph.Motion m = graph.connect(graph.nodes.get(i), graph.nodes.get(j));
+				m.is3D = true;
+				m.score3D = 1.0 + rand.nextDouble();
+				m.inliers.grow().setTo(i, j, 0.5);
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Every view should be assigned to exactly one submap, submaps should not be too small, and they
+	 * should overlap
+	 */
+	@Test void process() {
+		PairwiseImageGraph graph = createLineGraph(40);
+
+		var alg = new PartitionPairwiseImageGraph();
+		alg.maxCoreViews = 6;
+		alg.process(graph);
+
+		assertTrue(alg.submaps.size >= 40/6);
+
+		var assigned = new DogArray_I32();
+		assigned.resize(graph.nodes.size, 0);
+		for (int submapIdx = 0; submapIdx < alg.submaps.size; submapIdx++) {
+			PartitionPairwiseImageGraph.Submap s = alg.submaps.get(submapIdx);
+			// Small submaps are merged into a neighbor, which can push it over the limit
+			assertTrue(s.numCore >= alg.minCoreViews);
+			for (int i = 0; i < s.numCore; i++) {
+				assigned.data[s.views.get(i)]++;
+				assertEquals(submapIdx, alg.viewToSubmap.get(s.views.get(i)));
+			}
+			// overlapping views must belong to another submap
+			for (int i = s.numCore; i < s.views.size; i++) {
+				assertNotEquals(submapIdx, alg.viewToSubmap.get(s.views.get(i)));
+			}
+		}
+		for (int i = 0; i < assigned.size; i++) {
+			assertEquals(1, assigned.get(i));
+		}
+
+		// Since it's all connected, every submap will overlap with another
+		if (alg.submaps.size > 1) {
+			for (int submapIdx = 0; submapIdx < alg.submaps.size; submapIdx++) {
+				PartitionPairwiseImageGraph.Submap s = alg.submaps.get(submapIdx);
+				assertTrue(s.views.size > s.numCore);
+			}
+		}
+	}
+
+	/**
+	 * No overlap should be added if hops is zero and each submap should be the size limit
+	 */
+	@Test void process_noOverlap() {
+		PairwiseImageGraph graph = createLineGraph(12);
+
+		var alg = new PartitionPairwiseImageGraph();
+		alg.maxCoreViews = 12;
+		alg.overlapHops = 0;
+		alg.process(graph);
+
+		assertEquals(1, alg.submaps.size);
+		assertEquals(12, alg.submaps.get(0).numCore);
+		assertEquals(12, alg.submaps.get(0).views.size);
+	}
+
+	/**
+	 * Small submaps should be merged into the neighbor they are connected to. Views which are not connected
+	 * to anything are left alone.
+	 */
+	@Test void mergeSmallSubmaps() {
+		PairwiseImageGraph graph = createLineGraph(8);
+		graph.createNode("isolated");
+
+		var alg = new PartitionPairwiseImageGraph();
+		alg.maxCoreViews = 6;
+		alg.viewToSubmap.resetResize(graph.nodes.size, -1);
+		addSubmap(alg, 0, 1, 2, 3, 4, 5);
+		addSubmap(alg, 8);
+		addSubmap(alg, 6, 7);
+
+		alg.mergeSmallSubmaps(graph);
+
+		assertEquals(2, alg.submaps.size);
+		PartitionPairwiseImageGraph.Submap merged = alg.submaps.get(0);
+		assertEquals(8, merged.views.size);
+		assertEquals(8, merged.numCore);
+		for (int viewIdx = 0; viewIdx < 8; viewIdx++) {
+			assertTrue(merged.views.contains(viewIdx));
+			assertEquals(0, alg.viewToSubmap.get(viewIdx));
+		}
+
+		// The isolated view has nothing to merge with, but its submap was moved
+		assertEquals(1, alg.submaps.get(1).views.size);
+		assertEquals(1, alg.viewToSubmap.get(8));
+	}
+
+	private void addSubmap( PartitionPairwiseImageGraph alg, int... views ) {
+		PartitionPairwiseImageGraph.Submap s = alg.submaps.grow();
+		for (int viewIdx : views) {
+			s.views.add(viewIdx);
+			alg.viewToSubmap.set(viewIdx, alg.submaps.size - 1);
+		}
+		s.numCore = views.length;
+	}
+
+	@Test void createSubgraph() {
+		PairwiseImageGraph graph = createLineGraph(10);
+
+		var submap = new PartitionPairwiseImageGraph.Submap();
+		for (int viewIdx : new int[]{5, 2, 3, 9}) {
+			submap.views.add(viewIdx);
+		}
+
+		var alg = new PartitionPairwiseImageGraph();
+		var found = new PairwiseImageGraph();
+		alg.createSubgraph(graph, submap, found);
+
+		assertEquals(4, found.nodes.size);
+		for (int i = 0; i < submap.views.size; i++) {
+			PairwiseImageGraph.View expected = graph.nodes.get(submap.views.get(i));
+			PairwiseImageGraph.View v = found.nodes.get(i);
+			assertEquals(expected.id, v.id);
+			assertEquals(expected.totalObservations, v.totalObservations);
+			assertSame(v, found.lookupNode(v.id));
+		}
+
+		// Only 2-3 and 3-5 have both views inside the submap
+		assertEquals(2, found.edges.size);
+		for (int i = 0; i < found.edges.size; i++) {
+			PairwiseImageGraph.Motion m = found.edges.get(i);
+			PairwiseImageGraph.Motion expected = graph.lookupNode(m.src.id).findMotion(graph.lookupNode(m.dst.id));
+			assertNotNull(expected);
+			// direction must be the same since inliers reference src and dst
+			assertEquals(expected.src.id, m.src.id);
+			assertEquals(expected.score3D, m.score3D);
+			assertEquals(expected.is3D, m.is3D);
+			assertEquals(1, m.inliers.size);
+			assertEquals(expected.inliers.get(0).src, m.inliers.get(0).src);
+			assertEquals(expected.inliers.get(0).dst, m.inliers.get(0).dst);
+		}
+	}
+}
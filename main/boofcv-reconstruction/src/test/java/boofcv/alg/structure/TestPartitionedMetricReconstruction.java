@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.structure;
+
+import boofcv.BoofTesting;
+import boofcv.alg.geo.MultiViewOps;
+import boofcv.io.UtilIO;
+import boofcv.io.geo.SubmapStorageDirectory;
+import boofcv.struct.calib.CameraPinhole;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.se.Se3_F64;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestPartitionedMetricReconstruction extends BoofStandardJUnit {
+
+	// testing tolerance for orientation on perfect data
+	double angleTol = 0.01;
+	// testing tolerance for location on perfect data
+	double locationTol = 0.01;
+
+	/**
+	 * Reconstruct a scene which is split into several submaps with everything kept in memory
+	 */
+	@Test void process_memory() {
+		PartitionedMetricReconstruction alg = createAlg();
+
+		var dbSimilar = createScene();
+		PairwiseImageGraph graph = dbSimilar.createPairwise();
+
+		alg.partition(graph);
+		// The full graph is needed since there's no storage
+		assertSame(graph, alg.pairwise);
+		assertTrue(alg.reconstruct(dbSimilar, new MockLookUpCameraInfo(dbSimilar.intrinsic)));
+		assertNull(alg.pairwise);
+
+		checkReconstruction(alg, dbSimilar, graph);
+	}
+
+	/**
+	 * Reconstruct a scene which is split into several submaps with each submap saved to a directory
+	 */
+	@Test void process_directory() throws IOException {
+		File directory = Files.createTempDirectory("submaps").toFile();
+		try {
+			PartitionedMetricReconstruction alg = createAlg();
+			alg.setStorage(new SubmapStorageDirectory(directory));
+
+			var dbSimilar = createScene();
+			PairwiseImageGraph graph = dbSimilar.createPairwise();
+
+			alg.partition(graph);
+			// No reference to the full graph should be kept
+			assertNull(alg.pairwise);
+			assertTrue(alg.reconstruct(dbSimilar, new MockLookUpCameraInfo(dbSimilar.intrinsic)));
+
+			checkReconstruction(alg, dbSimilar, graph);
+
+			// Every submap should have been saved and can be loaded again
+			for (int submapIdx = 0; submapIdx < alg.getSubmaps().size; submapIdx++) {
+				var foundGraph = new PairwiseImageGraph();
+				var foundScene = new SceneWorkingGraph();
+				assertTrue(alg.loadSubmap(submapIdx, foundGraph, foundScene));
+
+				PartitionPairwiseImageGraph.Submap submap = alg.getPartition().submaps.get(submapIdx);
+				assertEquals(submap.views.size, foundGraph.nodes.size);
+				assertTrue(foundScene.listViews.size() > 0);
+				assertTrue(foundScene.listViews.size() <= submap.views.size);
+			}
+		} finally {
+			UtilIO.deleteRecursive(directory);
+		}
+	}
+
+	private PartitionedMetricReconstruction createAlg() {
+		// Perfect data so it doesn't need to try very hard
+		var config = new ConfigProjectiveReconstruction();
+		config.ransac.iterations = 1;
+		config.sbaConverge.maxIterations = 0;
+		config.ransacTrifocal.converge.maxIterations = 0;
+
+		var alg = new PartitionedMetricReconstruction(new MetricFromUncalibratedPairwiseGraph(config));
+		alg.getMetric().getRefineWorking().metricSba.configConverge.maxIterations = 4;
+		alg.getMetric().getExpandMetric().expandUnknown.estimateUtils.metricSba.configConverge.maxIterations = 4;
+		alg.getMetric().getMergeScenes().refiner.metricSba.configConverge.maxIterations = 4;
+		alg.getRefine().metricSba.configConverge.maxIterations = 4;
+
+		// Small submaps so that the scene is split up
+		alg.getPartition().maxCoreViews = 5;
+		return alg;
+	}
+
+	private MockLookupSimilarImagesRealistic createScene() {
+		return new MockLookupSimilarImagesRealistic().setLoop(false).
+				setIntrinsic(new CameraPinhole(410, 410, 0, 400, 400, 800, 800)).
+				setSeed(234).setFeatures(750).pathLine(15, 0.30, 6.0, 2);
+	}
+
+	/**
+	 * Compares the found global pose of every view against truth. They are only the same up to a similarity
+	 * transform, so the first view is made the origin and a single scale factor is found for all views.
+	 */
+	private void checkReconstruction( PartitionedMetricReconstruction alg, MockLookupSimilarImagesRealistic db,
+									  PairwiseImageGraph graph ) {
+		// The scene needs to have actually been split up for this to be a meaningful test
+		assertTrue(alg.getSubmaps().size >= 2);
+		for (int submapIdx = 0; submapIdx < alg.getSubmaps().size; submapIdx++) {
+			assertTrue(alg.getSubmaps().get(submapIdx).aligned);
+		}
+
+		int numViews = db.views.size();
+		var found_world_to_view = new Se3_F64[numViews];
+		for (int viewIdx = 0; viewIdx < numViews; viewIdx++) {
+			PairwiseImageGraph.View pview = graph.lookupNode(db.views.get(viewIdx).id);
+			found_world_to_view[viewIdx] = new Se3_F64();
+			assertTrue(alg.lookupGlobalToView(pview, found_world_to_view[viewIdx]));
+		}
+
+		// Make the first view the origin and find the scale using the view which is farthest from it
+		Se3_F64 fndWorld_to_origin = found_world_to_view[0];
+		Se3_F64 expWorld_to_origin = db.views.get(0).world_to_view;
+		Se3_F64 fndFar = found_world_to_view[numViews - 1].invert(null).concat(fndWorld_to_origin, null);
+		Se3_F64 expFar = db.views.get(numViews - 1).world_to_view.invert(null).concat(expWorld_to_origin, null);
+		double scale = MultiViewOps.findScale(fndFar.T, expFar.T);
+
+		for (int viewIdx = 0; viewIdx < numViews; viewIdx++) {
+			Se3_F64 found = found_world_to_view[viewIdx].invert(null).concat(fndWorld_to_origin, null);
+			Se3_F64 expected = db.views.get(viewIdx).world_to_view.invert(null).concat(expWorld_to_origin, null);
+			found.T.scale(scale);
+
+			BoofTesting.assertEquals(expected, found, angleTol, locationTol);
+		}
+	}
+}
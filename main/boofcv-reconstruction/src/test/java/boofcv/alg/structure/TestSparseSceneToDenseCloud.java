@@ -34,6 +34,7 @@ import org.junit.jupiter.api.Test;
 
 import static boofcv.misc.BoofMiscOps.uniform;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -75,8 +76,18 @@ class TestSparseSceneToDenseCloud extends BoofStandardJUnit {
 		// should be a significant number of points in the cloud. The test number is arbitrary.
 		assertTrue(alg.getCloud().size() > 100);
 
-		// these two should be the same, although the colors won't be interesting
-		assertEquals(alg.getCloud().size(), alg.getColorRgb().size);
+		// MVS should have written directly into the output cloud instead of the cloud being copied
+		assertSame(alg.getCloud().xyz, alg.getMultiViewStereo().getCloud());
+
+		// these should be the same, although the colors won't be interesting
+		assertEquals(alg.getCloud().size(), alg.getCloud().rgb.size);
+		assertEquals(alg.getCloud().size(), alg.getCloud().views.size);
+
+		// every point should have been assigned to a view
+		for (int i = 0; i < alg.getCloud().size(); i++) {
+			int view = alg.getCloud().getView(i);
+			assertTrue(view >= 0 && view < 8);
+		}
 	}
 
 	/**
@@ -25,6 +25,7 @@ import boofcv.alg.geo.PerspectiveOps;
 import boofcv.alg.geo.pose.PnPStereoDistanceReprojectionSq;
 import boofcv.alg.geo.pose.RefinePnPStereo;
 import boofcv.alg.sfm.d3.VisOdomDualTrackPnP;
+import boofcv.alg.sfm.d3.VisOdomLoopClosure;
 import boofcv.struct.calib.StereoParameters;
 import boofcv.struct.geo.Point2D3D;
 import boofcv.struct.image.ImageGray;
@@ -128,10 +129,18 @@ public class WrapVisOdomDualTrackPnP<T extends ImageGray<T>> implements StereoVi
 		visualOdometry.reset();
 	}
 
+	/** Stops background threads. See {@link VisOdomDualTrackPnP#shutdown()} */
+	public void shutdown() {
+		visualOdometry.shutdown();
+	}
+
 	@Override public Se3_F64 getCameraToWorld() {return visualOdometry.getCurrentToWorld();}
 
 	@Override public long getFrameID() {return visualOdometry.getFrameID();}
 
+	/** Returns loop closure or null if there is none. See {@link VisOdomDualTrackPnP#setLoopClosure}. */
+	public @Nullable VisOdomLoopClosure<?> getLoopClosure() {return visualOdometry.getLoopClosure();}
+
 	@Override
 	public boolean process( T leftImage, T rightImage ) {return success = visualOdometry.process(leftImage, rightImage);}
 
@@ -30,6 +30,7 @@ import georegression.struct.point.Point4D_F64;
 import georegression.struct.se.Se3_F64;
 import georegression.transform.se.SePointOps_F64;
 import lombok.Getter;
+import org.ddogleg.struct.LArrayAccessor;
 
 import java.util.Iterator;
 import java.util.List;
@@ -68,6 +69,16 @@ public class ColorizeCloudFromImage<T extends ImageBase<T>> {
 		process3(image, iterator, world_to_view, norm_to_pixel, colorizer);
 	}
 
+	/**
+	 * Same as {@link #process3(ImageBase, List, int, int, Se3_F64, Point2Transform2_F64, BoofLambdas.IndexRgbConsumer)}
+	 * but for a packed point cloud.
+	 */
+	public void process3( T image, LArrayAccessor<Point3D_F64> cloud, int idx0, int idx1, Se3_F64 world_to_view,
+						  Point2Transform2_F64 norm_to_pixel, BoofLambdas.IndexRgbConsumer colorizer ) {
+		var iterator = new PointToIndexIterator<>(cloud, idx0, idx1, new PointIndex3D_F64());
+		process3(image, iterator, world_to_view, norm_to_pixel, colorizer);
+	}
+
 	public void process3( T image, Iterator<PointIndex3D_F64> cloud, Se3_F64 world_to_view,
 						  Point2Transform2_F64 norm_to_pixel, BoofLambdas.IndexRgbConsumer colorizer ) {
 		colorLookup.setImage(image);
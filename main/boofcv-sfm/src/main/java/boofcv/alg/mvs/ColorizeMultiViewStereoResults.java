@@ -30,10 +30,9 @@ import boofcv.struct.calib.CameraPinholeBrown;
 import boofcv.struct.distort.Point2Transform2_F64;
 import boofcv.struct.geo.PointIndex4D_F64;
 import boofcv.struct.image.ImageBase;
-import georegression.struct.point.Point3D_F64;
+import boofcv.struct.packed.PackedBigArrayPoint3D_F64;
 import georegression.struct.se.Se3_F64;
 import lombok.Getter;
-import org.ddogleg.struct.DogArray;
 import org.ddogleg.struct.DogArray_I32;
 
 import java.util.ArrayList;
@@ -93,7 +92,7 @@ public class ColorizeMultiViewStereoResults<T extends ImageBase<T>> {
 		List<ViewInfo> centers = mvs.getListCenters();
 
 		// Get the point cloud
-		DogArray<Point3D_F64> cloud = mvs.getDisparityCloud().getCloud();
+		PackedBigArrayPoint3D_F64 cloud = mvs.getDisparityCloud().getCloud();
 
 		// Step through each "center" view
 		for (int centerIdx = 0; centerIdx < centers.size(); centerIdx++) {
@@ -114,7 +113,7 @@ public class ColorizeMultiViewStereoResults<T extends ImageBase<T>> {
 			scene.getWorldToView(center.metric, world_to_view, tmp);
 
 			// Grab the colorized points from this view
-			colorizer.process3(image, cloud.toList(), idx0, idx1, world_to_view, norm_to_pixel, indexColor);
+			colorizer.process3(image, cloud, idx0, idx1, world_to_view, norm_to_pixel, indexColor);
 		}
 	}
 
@@ -24,13 +24,15 @@ import boofcv.abst.geo.bundle.SceneStructureMetric;
 import boofcv.alg.distort.brown.LensDistortionBrown;
 import boofcv.alg.geo.bundle.BundleAdjustmentOps;
 import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.misc.BoofLambdas;
 import boofcv.misc.BoofMiscOps;
 import boofcv.misc.LookUpImages;
 import boofcv.struct.calib.CameraPinholeBrown;
 import boofcv.struct.distort.Point2Transform2_F64;
 import boofcv.struct.distort.PointToPixelTransform_F64;
 import boofcv.struct.image.*;
-import georegression.struct.point.Point3D_F64;
+import boofcv.struct.packed.PackedBigArrayPoint3D_F64;
 import georegression.struct.se.Se3_F64;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
@@ -63,6 +65,13 @@ import static java.util.Objects.requireNonNull;
  * contribution to the point cloud is needed then you need to call {@link #getDisparityCloud()} and access
  * the view specific results.
  *
+ * Center views are independent of each other and can be processed concurrently. If {@link #maxConcurrentCenters}
+ * is more than one and {@link #setComputeFusedFactory} has been called, then up to that many center views will
+ * have their fused disparity computed at the same time. Each center view in flight has its own
+ * {@link MultiBaselineStereoIndependent}, and its own stereo disparity algorithm, so memory usage goes up with the
+ * number of centers in flight. Disparity images are still added to the cloud one at a time in the same order
+ * as the single threaded version, so the results are identical.
+ *
  * NOTE: Before this can be used you must call {@link #setStereoDisparity}.
  *
  * @see ScoreRectifiedViewCoveragePixels
@@ -87,6 +96,13 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 	/** Maximum number of stereo pairs that will be combined. If more than this number then the best are selected */
 	public @Getter @Setter int maxCombinePairs = 10;
 
+	/**
+	 * Maximum number of center views which can have their disparity computed at the same time. This bounds
+	 * the amount of memory used, since every center in flight has its own images and disparity algorithm.
+	 * Only used if {@link #setComputeFusedFactory} has been called.
+	 */
+	public @Getter @Setter int maxConcurrentCenters = 1;
+
 	/** Used to access temporary results before they are discarded */
 	protected @Getter @Setter @Nullable Listener<T> listener;
 
@@ -108,6 +124,9 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 	 * combined disparity image
 	 */
 	final @Getter MultiBaselineStereoIndependent<T> computeFused;
+	/** Creates additional instances of {@link #computeFused} so that center views can be processed concurrently */
+	protected @Nullable BoofLambdas.Factory<MultiBaselineStereoIndependent<T>> factoryComputeFused;
+
 	/** Combine multiple disparity images into a single point cloud while avoiding redundant points */
 	final @Getter CreateCloudFromDisparityImages disparityCloud = new CreateCloudFromDisparityImages();
 
@@ -118,12 +137,19 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 	final Map<String, ViewInfo> mapScores = new HashMap<>();
 	final DogArray<ViewInfo> arrayScores = new DogArray<>(ViewInfo::new, ViewInfo::reset);
 
-	// Used to look up ViewInfo from SBA index
-	TIntObjectMap<String> indexSbaToViewID = new TIntObjectHashMap<>();
-
 	// Which SBA view indexes are paired to the target
 	DogArray_I32 imagePairIndexesSba = new DogArray_I32();
 
+	// Look up table from SBA index to view ID for every view. Not modified while disparity is being computed
+	// so it's safe to read from multiple threads
+	TIntObjectMap<String> indexSbaToViewIdAll = new TIntObjectHashMap<>();
+
+	// Each view that will be used as a center and which views it's paired with. Ordered by score.
+	DogArray<CenterJob> jobs = new DogArray<>(CenterJob::new, CenterJob::reset);
+
+	// Computes the fused disparity for a center view. The first element is always computeFused.
+	final List<MultiBaselineStereoIndependent<T>> workers = new ArrayList<>();
+
 	// Used when a stereo mask is required but none is available
 	GrayU8 dummyMask = new GrayU8(1, 1);
 
@@ -148,11 +174,13 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 		this.computeFused = new MultiBaselineStereoIndependent<>(imageLookUp, imageType);
 		this.imageLookUp = imageLookUp;
 		this.imageType = imageType;
+		this.workers.add(computeFused);
 	}
 
 	public MultiViewStereoFromKnownSceneStructure( ImageType<T> imageType ) {
 		this.computeFused = new MultiBaselineStereoIndependent<>(imageType);
 		this.imageType = imageType;
+		this.workers.add(computeFused);
 	}
 
 	/**
@@ -162,7 +190,7 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 	 * @param pairs (Input) Which views are to be used and their relationship to each other
 	 */
 	public void process( SceneStructureMetric scene, StereoPairGraph pairs ) {
-		initializeListener();
+		initializeWorkers();
 		// Go through each view and compute score for use as a common / "left" stereo image
 		initializeScores(scene, pairs);
 		scoreViewsSelectStereoPairs(scene);
@@ -177,7 +205,46 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 		// Prune centers with redundant information
 		pruneViewsThatAreSimilarByNeighbors(scene);
 
-		// Go through the list of views and use unused views as center views when computing the overall 3D cloud
+		// Which views are centers and what they are paired with doesn't depend on the disparity results
+		selectCenterViews(pairs);
+
+		// Centers are processed in batches. The fused disparity for every center in a batch is computed at the
+		// same time, then added to the cloud in order so that the results don't depend on the number of threads
+		final int batchSize = workers.size();
+		for (int batch0 = 0; batch0 < jobs.size; batch0 += batchSize) {
+			final int batch1 = Math.min(jobs.size, batch0 + batchSize);
+
+			// Let the image look up start loading images which will be needed by the next batch
+			prefetchImages(batch1, Math.min(jobs.size, batch1 + batchSize));
+
+			if (batch1 - batch0 == 1) {
+				computeFusedDisparity(scene, jobs.get(batch0), workers.get(0));
+			} else {
+				final int offset = batch0;
+				BoofConcurrency.loopFor(batch0, batch1, jobIdx ->
+						computeFusedDisparity(scene, jobs.get(jobIdx), workers.get(jobIdx - offset)));
+			}
+
+			for (int jobIdx = batch0; jobIdx < batch1; jobIdx++) {
+				CenterJob job = jobs.get(jobIdx);
+				if (!job.success) {
+					if (verbose != null) verbose.println("FAILED: fused disparity. center.index=" + job.center.index);
+					continue;
+				}
+
+				// Record that this view was used as a center
+				listCenters.add(job.center);
+				addFusedDisparityToCloud(scene, job.center, workers.get(jobIdx - batch0));
+			}
+		}
+	}
+
+	/**
+	 * Goes through the list of views and selects unused views as center views. The views each center is paired
+	 * with are saved in the list of jobs
+	 */
+	void selectCenterViews( StereoPairGraph pairs ) {
+		jobs.reset();
 		for (int index = 0; index < arrayScores.size; index++) {
 			ViewInfo center = arrayScores.get(index);
 			// if already processed skip over
@@ -190,7 +257,6 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 			//      and skip if over a certain value to avoid wasting time. This can happen if a view is very
 			//      similar to a "center" view and not used due to lack of 3D information between the two
 
-			// Compute a disparity image for this cluster of stereo pairs
 			selectAndLoadConnectedImages(pairs, center.relations);
 
 			// If none of the connected views had enough quality abort
@@ -199,36 +265,60 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 				continue;
 			}
 
-			// Record that this view was used as a center
-			listCenters.add(center);
-
-			// Add image for center view
-			indexSbaToViewID.put(center.relations.indexSba, center.relations.id);
+			CenterJob job = jobs.grow();
+			job.center = center;
+			job.pairIndexesSba.setTo(imagePairIndexesSba);
+		}
+	}
 
-			// Compute the fused disparity from all the views, then add points to the point cloud
-			if (!computeFusedDisparityAddCloud(scene, center, indexSbaToViewID, imagePairIndexesSba) ) {
-				// Failed to compute a fused disparity image
-				// Remove it from the lists
-				listCenters.remove(listCenters.size()-1);
-				indexSbaToViewID.remove(center.relations.indexSba);
+	/**
+	 * Tells the image look up which images will be needed by the jobs in the specified range
+	 */
+	void prefetchImages( int job0, int job1 ) {
+		for (int jobIdx = job0; jobIdx < job1; jobIdx++) {
+			CenterJob job = jobs.get(jobIdx);
+			imageLookUp.prefetch(job.center.relations.id);
+			for (int i = 0; i < job.pairIndexesSba.size; i++) {
+				imageLookUp.prefetch(indexSbaToViewIdAll.get(job.pairIndexesSba.get(i)));
 			}
 		}
 	}
 
 	/**
-	 * Sets up the listener for individual stereo pairs
+	 * Creates workers up to the maximum number of concurrent centers and sets up the listener for individual
+	 * stereo pairs
 	 */
-	void initializeListener() {
+	void initializeWorkers() {
 		Objects.requireNonNull(computeFused.getStereoDisparity(), "Must call setStereoDisparity() first");
 
-		if (listener != null) {
-			computeFused.setListener(( left, right, rectLeft, rectRight, disparity, mask, parameters, rect ) -> {
-				String leftID = indexSbaToViewID.get(left);
-				String rightID = indexSbaToViewID.get(right);
-				this.listener.handlePairDisparity(leftID, rightID, rectLeft, rectRight, disparity, mask, parameters);
+		int numWorkers = factoryComputeFused == null ? 1 : Math.max(1, maxConcurrentCenters);
+		while (workers.size() > numWorkers) {
+			workers.remove(workers.size() - 1);
+		}
+		while (workers.size() < numWorkers) {
+			MultiBaselineStereoIndependent<T> worker = Objects.requireNonNull(factoryComputeFused).newInstance();
+			Objects.requireNonNull(worker.getStereoDisparity(), "Factory must set the stereo disparity");
+			workers.add(worker);
+		}
+
+		for (int i = 0; i < workers.size(); i++) {
+			MultiBaselineStereoIndependent<T> worker = workers.get(i);
+			if (i > 0)
+				worker.setLookUpImages(computeFused.getLookUpImages());
+
+			if (listener == null) {
+				worker.setListener(null);
+				continue;
+			}
+			final Listener<T> listener = this.listener;
+			worker.setListener(( left, right, rectLeft, rectRight, disparity, mask, parameters, rect ) -> {
+				String leftID = indexSbaToViewIdAll.get(left);
+				String rightID = indexSbaToViewIdAll.get(right);
+				// Pairs can be computed by different threads at the same time
+				synchronized (listener) {
+					listener.handlePairDisparity(leftID, rightID, rectLeft, rectRight, disparity, mask, parameters);
+				}
 			});
-		} else {
-			computeFused.setListener(null);
 		}
 	}
 
@@ -240,6 +330,7 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 		arrayScores.resize(stereoPairs.vertexes.size());
 		arrayScores.reset();
 		mapScores.clear();
+		indexSbaToViewIdAll.clear();
 		for (StereoPairGraph.Vertex node : stereoPairs.vertexes.values()) {
 			ViewInfo info = arrayScores.grow();
 			info.metric = scene.views.get(node.indexSba);
@@ -248,6 +339,7 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 			info.relations = node;
 
 			mapScores.put(info.relations.id, info);
+			indexSbaToViewIdAll.put(node.indexSba, node.id);
 		}
 	}
 
@@ -389,24 +481,29 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 	}
 
 	/**
-	 * Combing stereo information from all images in this cluster, compute a disparity image and add it to the cloud
+	 * Combing stereo information from all images in this cluster, compute a disparity image. Can be called
+	 * from multiple threads at once as long as each thread has its own worker.
 	 */
-	boolean computeFusedDisparityAddCloud( SceneStructureMetric scene, ViewInfo center,
-										TIntObjectMap<String> sbaIndexToName, DogArray_I32 pairIndexes ) {
-		if (!computeFused.process(scene, center.relations.indexSba, pairIndexes, sbaIndexToName::get)) {
-			if (verbose != null) verbose.println("FAILED: fused disparity. center.index="+center.index);
-			return false;
-		}
+	void computeFusedDisparity( SceneStructureMetric scene, CenterJob job,
+								MultiBaselineStereoIndependent<T> worker ) {
+		job.success = worker.process(scene, job.center.relations.indexSba, job.pairIndexesSba,
+				indexSbaToViewIdAll::get);
+	}
 
+	/**
+	 * Adds the fused disparity image which was just computed by the worker to the cloud
+	 */
+	void addFusedDisparityToCloud( SceneStructureMetric scene, ViewInfo center,
+								   MultiBaselineStereoIndependent<T> worker ) {
 		// The fused disparity doesn't compute a mask since all invalid pixels are marked as invalid using
 		// the disparity value
-		GrayF32 disparity = computeFused.fusedDisparity;
+		GrayF32 disparity = worker.fusedDisparity;
 		dummyMask.reshape(disparity);
 		ImageMiscOps.fill(dummyMask, 0);
 
 		// Pass along results to the listener
 		if (listener != null) {
-			listener.handleFusedDisparity(center.relations.id, disparity, dummyMask, computeFused.fusedParam);
+			listener.handleFusedDisparity(center.relations.id, disparity, dummyMask, worker.fusedParam);
 		}
 
 		// Convert data structures into a format which is understood by disparity to cloud
@@ -420,10 +517,8 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 
 		// Use the computed disparity to add to the common point cloud while not adding points already in
 		// the cloud
-		disparityCloud.addDisparity(disparity, dummyMask, world_to_view1, computeFused.fusedParam,
+		disparityCloud.addDisparity(disparity, dummyMask, world_to_view1, worker.fusedParam,
 				norm_to_pixel, new PointToPixelTransform_F64(pixel_to_norm));
-
-		return true;
 	}
 
 	/**
@@ -431,7 +526,6 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 	 * add it to the list of views which is used in this cluster and mark them as used.
 	 */
 	void selectAndLoadConnectedImages( StereoPairGraph pairs, StereoPairGraph.Vertex center ) {
-		indexSbaToViewID.clear();
 		imagePairIndexesSba.reset();
 
 		final List<StereoPairGraph.Edge> connections = requireNonNull(pairs.vertexes.get(center.id)).pairs;
@@ -455,23 +549,22 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 			// Look up the "other" view this is connected to
 			StereoPairGraph.Vertex other = connected.other(center);
 
-			// Add view to the look up table and mark it as the second image in a stereo pair
-			indexSbaToViewID.put(other.indexSba, other.id);
+			// Mark it as the second image in a stereo pair
 			imagePairIndexesSba.add(other.indexSba);
 		}
 
 		if (verbose != null) {
 			verbose.print("_ connected: consider=" + totalConsider + " views=[");
-			for (String id : indexSbaToViewID.valueCollection()) { // lint:forbidden ignore_line
-				verbose.print(" '" + id + "'");
+			for (int i = 0; i < imagePairIndexesSba.size; i++) {
+				verbose.print(" '" + indexSbaToViewIdAll.get(imagePairIndexesSba.get(i)) + "'");
 			}
-			if (verbose != null) verbose.println(" ].size=" + indexSbaToViewID.size());
+			verbose.println(" ].size=" + imagePairIndexesSba.size);
 		}
 	}
 
 	/** Returns the computed 3D point cloud. */
-	public List<Point3D_F64> getCloud() {
-		return disparityCloud.cloud.toList();
+	public PackedBigArrayPoint3D_F64 getCloud() {
+		return disparityCloud.cloud;
 	}
 
 	/** Specifies which stereo disparity algorithm to use */
@@ -479,6 +572,18 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 		computeFused.setStereoDisparity(stereoDisparity);
 	}
 
+	/**
+	 * Specifies a factory for creating new instances of {@link #computeFused}. Each instance must have its
+	 * own stereo disparity algorithm. Needed for center views to be processed concurrently.
+	 */
+	public void setComputeFusedFactory( @Nullable BoofLambdas.Factory<MultiBaselineStereoIndependent<T>> factory ) {
+		this.factoryComputeFused = factory;
+		// Discard workers created by the previous factory
+		while (workers.size() > 1) {
+			workers.remove(workers.size() - 1);
+		}
+	}
+
 	public void setImageLookUp( LookUpImages imageLookUp ) {
 		this.computeFused.setLookUpImages(imageLookUp);
 		this.imageLookUp = imageLookUp;
@@ -504,6 +609,9 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 		// Indicates if it has already been used to compute a disparity image or not
 		boolean used;
 
+		/** Index of the view in the SBA scene */
+		public int getIndexSba() {return relations.indexSba;}
+
 		void reset() {
 			metric = null;
 			relations = null;
@@ -514,6 +622,22 @@ public class MultiViewStereoFromKnownSceneStructure<T extends ImageGray<T>> impl
 		}
 	}
 
+	/** A view which has been selected to be a center and the views it's paired with */
+	static class CenterJob {
+		// The center view
+		ViewInfo center;
+		// SBA index of views paired with the center
+		final DogArray_I32 pairIndexesSba = new DogArray_I32();
+		// If the fused disparity was successfully computed
+		boolean success;
+
+		void reset() {
+			center = null;
+			pairIndexesSba.reset();
+			success = false;
+		}
+	}
+
 	/** Used to capture intermediate results */
 	public interface Listener<RectImg> {
 		/**
@@ -21,17 +21,22 @@ package boofcv.alg.mvs;
 import boofcv.misc.IteratorReset;
 import boofcv.struct.geo.PointIndex;
 import georegression.struct.GeoTuple;
+import org.ddogleg.struct.LArrayAccessor;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
- * Specialized iterator that takes in a list of points but iterates over PointIndex. The same instance of a PointIndex
+ * Specialized iterator that takes in a list or packed array of points but iterates over PointIndex. The same instance of a PointIndex
  * is returned every iteration to improve performance.
  *
  * @author Peter Abeles
  */
 public class PointToIndexIterator<T extends PointIndex<T,P>, P extends GeoTuple<P>> implements IteratorReset<T> {
-	List<P> list;
+	// Only one of these will be not null
+	@Nullable List<P> list;
+	@Nullable LArrayAccessor<P> array;
 	int idx0, idx1;
 	int index;
 	T point;
@@ -44,6 +49,14 @@ public class PointToIndexIterator<T extends PointIndex<T,P>, P extends GeoTuple<
 		this.point = point;
 	}
 
+	public PointToIndexIterator( LArrayAccessor<P> array, int idx0, int idx1, T point ) {
+		this.array = array;
+		this.idx0 = idx0;
+		this.idx1 = idx1;
+		this.index = idx0;
+		this.point = point;
+	}
+
 	@Override public void reset() {
 		index = idx0;
 	}
@@ -58,7 +71,8 @@ public class PointToIndexIterator<T extends PointIndex<T,P>, P extends GeoTuple<
 	}
 
 	@Override public T next() {
-		point.setTo(list.get(index),index++);
+		P p = list != null ? list.get(index) : Objects.requireNonNull(array).getTemp(index);
+		point.setTo(p, index++);
 		return point;
 	}
 }
@@ -19,10 +19,10 @@
 package boofcv.alg.sfm.d3;
 
 import boofcv.BoofVerbose;
-import boofcv.abst.geo.TriangulateNViewsMetric;
 import boofcv.abst.tracker.PointTrack;
 import boofcv.abst.tracker.PointTracker;
 import boofcv.alg.geo.PerspectiveOps;
+import boofcv.alg.geo.triangulate.TriangulateBatchNViewsMetric;
 import boofcv.alg.sfm.d3.structure.MaxGeoKeyFrameManager;
 import boofcv.alg.sfm.d3.structure.VisOdomBundleAdjustment;
 import boofcv.alg.sfm.d3.structure.VisOdomBundleAdjustment.BFrame;
@@ -31,6 +31,8 @@ import boofcv.alg.sfm.d3.structure.VisOdomBundleAdjustment.BTrack;
 import boofcv.alg.sfm.d3.structure.VisOdomKeyFrameManager;
 import boofcv.misc.BoofMiscOps;
 import boofcv.struct.distort.Point2Transform2_F64;
+import boofcv.struct.packed.PackedArrayPoint2D_F64;
+import boofcv.struct.packed.PackedArrayPoint3D_F64;
 import georegression.struct.point.Point2D_F64;
 import georegression.struct.point.Point3D_F64;
 import georegression.struct.point.Point4D_F64;
@@ -39,6 +41,7 @@ import georegression.transform.se.SePointOps_F64;
 import lombok.Getter;
 import lombok.Setter;
 import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
 import org.ddogleg.struct.DogArray_I32;
 import org.ddogleg.struct.VerbosePrint;
 import org.jetbrains.annotations.Nullable;
@@ -46,7 +49,12 @@ import org.jetbrains.annotations.Nullable;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Base class for all visual odometry algorithms based on PNP and use bundle adjustment.
@@ -98,7 +106,7 @@ public abstract class VisOdomBundlePnPBase<Track extends VisOdomBundleAdjustment
 	protected @Getter final List<CameraModel> cameraModels = new ArrayList<>();
 
 	/** Triangulates points not optimized by bundle adjustment */
-	protected @Getter TriangulateNViewsMetric triangulateN;
+	protected @Getter TriangulateBatchNViewsMetric triangulateBatch;
 
 	// Internal profiling
 	protected @Getter @Setter PrintStream profileOut;
@@ -108,15 +116,48 @@ public abstract class VisOdomBundlePnPBase<Track extends VisOdomBundleAdjustment
 	// Total number of tracks dropped due to large bundle adjustment errors
 	protected int totalDroppedTracksBadBundle;
 
+	/** Optional listener which is given the best estimate of each frame's pose once it's known */
+	protected @Getter @Setter @Nullable Listener listener;
+
+	/**
+	 * If true then bundle adjustment runs in a background thread while the next frame is being tracked. See
+	 * {@link #setPipelined(boolean)}.
+	 */
+	protected @Getter boolean pipelined = false;
+
+	//======== Pipelined bundle adjustment
+	// Thread which bundle adjustment is run in
+	protected @Nullable ExecutorService bundleExecutor;
+	// Bundle adjustment which is running in the background. At most one can be pending at a time.
+	protected @Nullable Future<?> pendingBundle;
+	// The frame being optimized in the background and its ID. Frame is null if it was dropped from the scene.
+	protected @Nullable BFrame pendingFrame;
+	protected long pendingFrameID;
+	// Pose estimate of the frame prior to bundle adjustment
+	protected final Se3_F64 pendingFrame_to_world = new Se3_F64();
+
+	/** Time in milliseconds the most recently finished background bundle adjustment took. 0 if none finished */
+	protected @Getter double timeBackgroundBundle;
+	/** Time in milliseconds to drop bad tracks after the most recently finished background bundle adjustment */
+	protected @Getter double timeBackgroundDropUnused;
+
 	//=================================================================
 	//======== Workspace Variables
 	List<PointTrack> removedBundleTracks = new ArrayList<>();
 
 	//======== Triangulation related
-	// observations in normalized image coordinates
-	protected DogArray<Point2D_F64> observationsNorm = new DogArray<>(Point2D_F64::new);
+	// observations in normalized image coordinates of all tracks being triangulated
+	protected PackedArrayPoint2D_F64 observationsNorm = new PackedArrayPoint2D_F64();
+	// Index of the frame each observation came from
+	protected DogArray_I32 observationFrame = new DogArray_I32();
+	// Index of the first observation of each track being triangulated
+	protected DogArray_I32 observationStart = new DogArray_I32();
+	// The tracks being triangulated
+	protected List<BTrack> tracksTriangulate = new ArrayList<>();
 	protected DogArray<Se3_F64> listOf_world_to_frame = new DogArray<>(Se3_F64::new);
-	protected Point3D_F64 found3D = new Point3D_F64();
+	protected PackedArrayPoint3D_F64 found3D = new PackedArrayPoint3D_F64();
+	protected DogArray_B foundSuccess = new DogArray_B();
+	protected Point2D_F64 pointNorm = new Point2D_F64();
 
 	protected Se3_F64 world_to_frame = new Se3_F64();
 	protected Point4D_F64 cameraLoc = new Point4D_F64();
@@ -126,6 +167,8 @@ public abstract class VisOdomBundlePnPBase<Track extends VisOdomBundleAdjustment
 	 */
 	public void reset() {
 		if (verbose != null) verbose.println("VO: reset()");
+		// Wait for the background thread to stop touching the scene but discard the results
+		waitForBundleAdjustment();
 		current_to_world.reset();
 		current_to_previous.reset();
 		cameraModels.clear();
@@ -133,6 +176,134 @@ public abstract class VisOdomBundlePnPBase<Track extends VisOdomBundleAdjustment
 		first = true;
 	}
 
+	/**
+	 * <p>
+	 * Turns on or off pipelined processing. When on, tracking of the next frame overlaps with bundle adjustment
+	 * of the current frame, which runs in a background thread. Only one frame can be pending at a time, so if
+	 * bundle adjustment takes longer than tracking, processing of the next frame will block until it's finished.
+	 * </p>
+	 *
+	 * <p>
+	 * While pipelined, the pose returned by {@link #getCurrentToWorld()} is the estimate prior to bundle
+	 * adjustment and is updated once bundle adjustment has finished. The location of tracks in the scene can be
+	 * modified by the background thread until the next call to process() or {@link #finishBundleAdjustment()}.
+	 * Use {@link #listener} to get the refined pose of every frame.
+	 * </p>
+	 */
+	public void setPipelined( boolean pipelined ) {
+		if (this.pipelined == pipelined)
+			return;
+		this.pipelined = pipelined;
+
+		if (pipelined) {
+			bundleExecutor = Executors.newSingleThreadExecutor(r -> {
+				var thread = new Thread(r, "VisOdomBundle");
+				thread.setDaemon(true);
+				return thread;
+			});
+		} else {
+			shutdown();
+		}
+	}
+
+	/**
+	 * Finishes any pending bundle adjustment and stops the background thread, if there is one. Must be called
+	 * before discarding an instance which is pipelined, otherwise its thread will stay alive. Afterwards
+	 * processing is no longer pipelined. Safe to call more than once.
+	 */
+	public void shutdown() {
+		finishBundleAdjustment();
+		pipelined = false;
+		if (bundleExecutor != null) {
+			bundleExecutor.shutdown();
+			bundleExecutor = null;
+		}
+	}
+
+	/**
+	 * Refines the scene's state estimate using bundle adjustment. Tracks not included in the optimization
+	 * are then triangulated.
+	 */
+	protected void optimizeTheScene() {
+		if (bundleViso.isOptimizeActive()) {
+			bundleViso.optimize(verbose);
+			triangulateNotSelectedBundleTracks();
+		}
+	}
+
+	/**
+	 * Starts bundle adjustment in the background thread. The scene must not be modified until
+	 * {@link #finishBundleAdjustment()} has been called.
+	 *
+	 * @param frameID ID of the frame which was just processed
+	 * @param frame The frame which was just processed or null if it was dropped from the scene
+	 */
+	protected void startBundleAdjustment( long frameID, @Nullable BFrame frame ) {
+		BoofMiscOps.checkTrue(pendingBundle == null, "Bundle adjustment is already pending");
+		pendingFrameID = frameID;
+		pendingFrame = frame;
+		pendingFrame_to_world.setTo(current_to_world);
+		pendingBundle = Objects.requireNonNull(bundleExecutor).submit(() -> {
+			long time0 = System.nanoTime();
+			optimizeTheScene();
+			// Reading this field after the future has finished is safe
+			timeBackgroundBundle = (System.nanoTime() - time0)*1e-6;
+		});
+	}
+
+	/**
+	 * If bundle adjustment is running in the background, block until it's finished and then apply the results.
+	 * Tracks which are now bad are dropped, the current pose is updated, and the listener is notified. Is called
+	 * automatically at the start of the next frame.
+	 */
+	public void finishBundleAdjustment() {
+		if (!waitForBundleAdjustment()) {
+			timeBackgroundBundle = timeBackgroundDropUnused = 0;
+			return;
+		}
+
+		long time0 = System.nanoTime();
+		dropBadBundleTracks();
+		timeBackgroundDropUnused = (System.nanoTime() - time0)*1e-6;
+
+		if (pendingFrame != null) {
+			pendingFrame_to_world.setTo(pendingFrame.frame_to_world);
+			current_to_world.setTo(pendingFrame_to_world);
+			pendingFrame = null;
+		}
+		notifyListener(pendingFrameID, pendingFrame_to_world);
+	}
+
+	/**
+	 * Blocks until the pending bundle adjustment is finished
+	 *
+	 * @return true if there was a pending bundle adjustment
+	 */
+	private boolean waitForBundleAdjustment() {
+		if (pendingBundle == null)
+			return false;
+
+		try {
+			pendingBundle.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pendingBundle = null;
+		}
+		return true;
+	}
+
+	/**
+	 * Passes the pose of a frame to the listener, if there is one
+	 */
+	protected void notifyListener( long frameID, Se3_F64 frame_to_world ) {
+		if (listener != null)
+			listener.handleFramePose(frameID, frame_to_world);
+	}
+
 	/**
 	 * Goes through the list of initially visible tracks and see which ones have not been dropped
 	 */
@@ -146,11 +317,26 @@ public abstract class VisOdomBundlePnPBase<Track extends VisOdomBundleAdjustment
 	}
 
 	/**
-	 * Triangulate tracks which were not included in the optimization
+	 * Triangulate tracks which were not included in the optimization. All the tracks are triangulated together
+	 * as a batch.
 	 */
 	protected void triangulateNotSelectedBundleTracks() {
 		final int minObservationsTriangulate = this.minObservationsTriangulate;
 
+		// Only compute the world to frame transform once for each frame
+		listOf_world_to_frame.reset();
+		for (int frameIdx = 0; frameIdx < bundleViso.frames.size; frameIdx++) {
+			BFrame bf = bundleViso.frames.get(frameIdx);
+			bf.listIndex = frameIdx; // save the index since it's needed in the next loop
+			bf.frame_to_world.invert(listOf_world_to_frame.grow());
+		}
+
+		// Pack observations of all the tracks being triangulated
+		tracksTriangulate.clear();
+		observationsNorm.reset();
+		observationFrame.reset();
+		observationStart.reset();
+		observationStart.add(0);
 		for (int trackIdx = 0; trackIdx < bundleViso.tracks.size; trackIdx++) {
 			final BTrack bt = bundleViso.tracks.data[trackIdx];
 			// skip selected since they have already been optimized or only too few observations since
@@ -158,23 +344,26 @@ public abstract class VisOdomBundlePnPBase<Track extends VisOdomBundleAdjustment
 			if (bt.selected || bt.observations.size < minObservationsTriangulate)
 				continue;
 
-			observationsNorm.reset();
-			listOf_world_to_frame.reset();
 			for (int obsIdx = 0; obsIdx < bt.observations.size; obsIdx++) {
 				BObservation bo = bt.observations.get(obsIdx);
 				CameraModel cm = cameraModels.get(bo.frame.camera.index);
-				cm.pixelToNorm.compute(bo.pixel.x, bo.pixel.y, observationsNorm.grow());
-				bo.frame.frame_to_world.invert(listOf_world_to_frame.grow());
-				// NOTE: This invert could be cached. Doesn't need to be done a million times
+				cm.pixelToNorm.compute(bo.pixel.x, bo.pixel.y, pointNorm);
+				observationsNorm.append(pointNorm);
+				observationFrame.add(bo.frame.listIndex);
 			}
+			observationStart.add(observationsNorm.size());
+			tracksTriangulate.add(bt);
+		}
 
-			// NOTE: If there is a homogenous metric triangulation added in the future replace this with that
-			if (triangulateN.triangulate(observationsNorm.toList(), listOf_world_to_frame.toList(), found3D)) {
-				bt.worldLoc.x = found3D.x;
-				bt.worldLoc.y = found3D.y;
-				bt.worldLoc.z = found3D.z;
-				bt.worldLoc.w = 1.0;
-			}
+		// NOTE: If there is a homogenous metric triangulation added in the future replace this with that
+		triangulateBatch.triangulate(observationsNorm, observationFrame, observationStart,
+				listOf_world_to_frame.toList(), found3D, foundSuccess);
+
+		for (int i = 0; i < tracksTriangulate.size(); i++) {
+			if (!foundSuccess.get(i))
+				continue;
+			Point3D_F64 X = found3D.getTemp(i);
+			tracksTriangulate.get(i).worldLoc.setTo(X.x, X.y, X.z, 1.0);
 		}
 	}
 
@@ -199,7 +388,8 @@ public abstract class VisOdomBundlePnPBase<Track extends VisOdomBundleAdjustment
 	}
 
 	/**
-	 * Removes the frames listed from the scene
+	 * Removes the frames listed from the scene. If enabled in {@link #bundleViso} the frames will be kept as fixed
+	 * anchor frames so that their observations can still be used.
 	 *
 	 * @param dropFrameIndexes List of indexes to drop. Sorted from lowest to highest
 	 */
@@ -211,7 +401,7 @@ public abstract class VisOdomBundlePnPBase<Track extends VisOdomBundleAdjustment
 //			System.out.println("Dropping frame ID "+frameToDrop.id);
 
 			// update data structures
-			bundleViso.removeFrame(frameToDrop, removedBundleTracks);
+			bundleViso.anchorFrame(frameToDrop, removedBundleTracks);
 
 			// These tracks were visually being tracked and were removed. So drop them from the visual tracker
 			for (int removeIdx = 0; removeIdx < removedBundleTracks.size(); removeIdx++) {
@@ -221,8 +411,9 @@ public abstract class VisOdomBundlePnPBase<Track extends VisOdomBundleAdjustment
 	}
 
 	/**
-	 * Drop tracks which are no longer being visually tracked and have less than two observations. In general
-	 * 3 observations is much more stable than two and less prone to be a false positive.
+	 * Drop tracks which are no longer being visually tracked and have too few observations, including
+	 * observations from anchor frames. In general 3 observations is much more stable than two and less
+	 * prone to be a false positive.
 	 */
 	protected void dropTracksNotVisibleAndTooFewObservations() {
 		final int minObservationsNotVisible = this.minObservationsNotVisible;
@@ -230,7 +421,7 @@ public abstract class VisOdomBundlePnPBase<Track extends VisOdomBundleAdjustment
 		// iteration through track lists in reverse order because of removeSwap()
 		for (int tidx = bundleViso.tracks.size - 1; tidx >= 0; tidx--) {
 			BTrack bt = bundleViso.tracks.get(tidx);
-			if (bt.visualTrack == null && bt.observations.size < minObservationsNotVisible) {
+			if (bt.visualTrack == null && bt.totalObservations() < minObservationsNotVisible) {
 				bt.observations.reset(); // Mark it as dropped. Formally remove it in the next loop
 				bundleViso.tracks.removeSwap(tidx);
 //				System.out.println("drop old bt="+bt.id+" vt=NONE");
@@ -343,6 +534,21 @@ public abstract class VisOdomBundlePnPBase<Track extends VisOdomBundleAdjustment
 
 	public abstract long getFrameID();
 
+	/**
+	 * Used to get the pose of each frame after it has been estimated
+	 */
+	public interface Listener {
+		/**
+		 * Called once for every frame which was successfully processed, in the order they were processed, with
+		 * the best estimate of its pose. When pipelined this is done after bundle adjustment has finished, which
+		 * is during the next call to process(). Always called from the thread which invoked process().
+		 *
+		 * @param frameID ID of the frame. Same as the value returned by {@link VisOdomBundlePnPBase#getFrameID()}
+		 * @param frame_to_world Transform from the frame to world. Modified after this function returns.
+		 */
+		void handleFramePose( long frameID, Se3_F64 frame_to_world );
+	}
+
 	/**
 	 * Contains the camera's lens distortion model
 	 */
@@ -31,6 +31,7 @@ import boofcv.alg.sfm.d3.structure.VisOdomBundleAdjustment.BTrack;
 import boofcv.factory.distort.LensDistortionFactory;
 import boofcv.factory.geo.ConfigTriangulation;
 import boofcv.factory.geo.FactoryMultiView;
+import boofcv.struct.calib.CameraPinholeBrown;
 import boofcv.struct.calib.StereoParameters;
 import boofcv.struct.feature.AssociatedIndex;
 import boofcv.struct.feature.TupleDesc;
@@ -49,6 +50,7 @@ import org.ddogleg.struct.DogArray;
 import org.ddogleg.struct.DogArray_I32;
 import org.ddogleg.struct.FastAccess;
 import org.ddogleg.struct.FastArray;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -119,7 +121,12 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 	/** List of tracks from left image that remain after geometric filters have been applied */
 	private @Getter final List<PointTrack> candidates = new ArrayList<>();
 
-	// Internal profiling
+	/** Optional loop closure. Every new key frame is passed to it. See {@link #setLoopClosure}. */
+	private @Getter @Nullable VisOdomLoopClosure<TD> loopClosure;
+	// Intrinsic parameters of the left camera. Null until calibration has been specified.
+	private @Nullable CameraPinholeBrown intrinsicLeft;
+
+	// Internal profiling. When pipelined, timeBundle and timeDropUnused are for the previous frame
 	private @Getter double timeTracking, timeEstimate, timeBundle, timeDropUnused, timeSceneMaintenance, timeSpawn;
 
 	//---------------------------------------------------------------------------------------------------
@@ -136,6 +143,14 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 	Point2D_F64 normLeft = new Point2D_F64();
 	Point2D_F64 normRight = new Point2D_F64();
 
+	// Used when adding key frames to loop closure
+	private final List<PointTrack> keyFrameTracks = new ArrayList<>();
+	private final Se3_F64 world_to_key = new Se3_F64();
+	private final Point4D_F64 keyLoc4 = new Point4D_F64();
+	private final TD keyFrameDesc;
+	// true if the left image has been passed to the describer while adding the current key frame
+	private boolean keyFrameImageSet;
+
 	/**
 	 * Specifies internal algorithms and parameters
 	 *
@@ -168,6 +183,7 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 
 		descLeft = new DogArray<>(describe::createDescription);
 		descRight = new DogArray<>(describe::createDescription);
+		keyFrameDesc = describe.createDescription();
 
 		stereoCheck = new StereoConsistencyCheck(epilolarTol, epilolarTol);
 
@@ -178,7 +194,7 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 		ConfigTriangulation config = new ConfigTriangulation();
 		config.type = ConfigTriangulation.Type.GEOMETRIC;
 		config.converge.maxIterations = 10;
-		triangulateN = FactoryMultiView.triangulateNViewMetric(config);
+		triangulateBatch = FactoryMultiView.triangulateNViewMetricBatch(config);
 	}
 
 	/**
@@ -200,6 +216,23 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 		cameraModels.add(right);
 		bundleViso.addCamera(param.left);
 		bundleViso.addCamera(param.right);
+
+		intrinsicLeft = new CameraPinholeBrown(param.left);
+		if (loopClosure != null)
+			loopClosure.setCamera(intrinsicLeft);
+	}
+
+	/**
+	 * Specifies loop closure. Every time a new key frame is saved, the visible tracks are passed to loop closure
+	 * along with their 3D location. Descriptions are reused from the tracker or from stereo association when
+	 * possible. Its descriptor type must be the same as the one used for stereo association. Found loops are retrieved with {@link VisOdomLoopClosure#takeConstraints}.
+	 *
+	 * @param loopClosure The loop closure or null to turn it off
+	 */
+	public void setLoopClosure( @Nullable VisOdomLoopClosure<TD> loopClosure ) {
+		this.loopClosure = loopClosure;
+		if (loopClosure != null && intrinsicLeft != null)
+			loopClosure.setCamera(intrinsicLeft);
 	}
 
 	/**
@@ -210,6 +243,19 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 		super.reset();
 		trackerLeft.reset();
 		trackerRight.reset();
+		// Frame IDs start over so old key frames would be confused with new ones
+		if (loopClosure != null)
+			loopClosure.reset();
+	}
+
+	/**
+	 * Stops the background threads used by bundle adjustment and loop closure
+	 */
+	@Override
+	public void shutdown() {
+		super.shutdown();
+		if (loopClosure != null)
+			loopClosure.shutdown();
 	}
 
 	/**
@@ -220,6 +266,24 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 	 * @return true if motion estimate was updated and false if not
 	 */
 	public boolean process( T left, T right ) {
+		this.inputLeft = left;
+		this.inputRight = right;
+
+		//=============================================================================================
+		//========== Visually track features
+		double time0 = System.nanoTime();
+		long frameLeftID = trackerLeft.getFrameID();
+		long frameRightID = trackerRight.getFrameID();
+
+		// Track objects given the new images. Tracking doesn't touch the scene, so if pipelined this is done
+		// while bundle adjustment of the previous frame is running in the background
+		trackerLeft.process(left);
+		trackerRight.process(right);
+		double time1 = System.nanoTime();
+
+		// The scene can't be modified until bundle adjustment is finished
+		finishBundleAdjustment();
+
 		if (verbose != null) {
 			verbose.println("----------- Process --------------");
 			verbose.println("Scene: Frames=" + bundleViso.frames.size + " Tracks=" + bundleViso.tracks.size);
@@ -228,27 +292,16 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 				verbose.printf("   frame[%2d] cam=%d tracks=%d\n", frameIdx, bf.camera.index, bf.tracks.size);
 			}
 		}
-		this.inputLeft = left;
-		this.inputRight = right;
-
-		//=============================================================================================
-		//========== Visually track features
-		double time0 = System.nanoTime();
 		inlierTracks.clear();
 		visibleTracks.clear();
 		initialVisible.clear();
 		candidates.clear();
 
 		// Create a new frame for the current image
-		currentLeft = bundleViso.addFrame(CAMERA_LEFT, trackerLeft.getFrameID());
-		currentRight = bundleViso.addFrame(CAMERA_RIGHT, trackerRight.getFrameID());
+		currentLeft = bundleViso.addFrame(CAMERA_LEFT, frameLeftID);
+		currentRight = bundleViso.addFrame(CAMERA_RIGHT, frameRightID);
 		// TODO in the future when bundle adjustment supports rigid relationships between two views use that here
 
-		// Track objects given the new images
-		trackerLeft.process(left);
-		trackerRight.process(right);
-		double time1 = System.nanoTime();
-
 		//=============================================================================================
 		//========== Initialize VO from the first image and return
 		if (first) {
@@ -258,6 +311,8 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 			// The left camera is the world frame right now
 			currentLeft.frame_to_world.reset();
 			currentRight.frame_to_world.setTo(right_to_left);
+			addKeyFrameToLoopClosure();
+			notifyListener(getFrameID(), current_to_world);
 			return true;
 		}
 
@@ -281,10 +336,20 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 		addInlierObservationsToScene();
 		removeOldUnusedVisibleTracks();
 
+		if (pipelined) {
+			double time2 = System.nanoTime();
+			timeTracking = (time1 - time0)*1e-6;
+			timeEstimate = (time2 - time1)*1e-6;
+			processPipelinedTail(time0);
+			return true;
+		}
+
 		//=============================================================================================
 		//========== Refine the scene's state estimate
 		double time2 = System.nanoTime();
 		optimizeTheScene();
+		// Save the output
+		current_to_world.setTo(currentLeft.frame_to_world);
 		double time3 = System.nanoTime();
 		//=============================================================================================
 		//========== Perform maintenance by dropping elements from the scene
@@ -297,6 +362,7 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 			if (verbose != null) verbose.println("Saving new key frames");
 			// We are keeping the current frame! Spawn new tracks inside of it
 			addNewTracks();
+			addKeyFrameToLoopClosure();
 		}
 		long time6 = System.nanoTime();
 
@@ -315,20 +381,45 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 					timeTracking, timeEstimate, timeBundle, timeDropUnused, timeSceneMaintenance, timeSpawn, timeTotal);
 		}
 
+		notifyListener(getFrameID(), current_to_world);
 		return true;
 	}
 
 	/**
-	 * Runs bundle adjustment and update the state of views and features
+	 * Last steps of processing a frame when pipelined. Scene maintenance and spawning new tracks are done before
+	 * bundle adjustment so that the scene isn't modified while it's being optimized in the background. Tracks
+	 * which are bad after bundle adjustment get dropped when it's finished. The reported bundle adjustment time
+	 * is for the previous frame, which was collected at the start of this frame.
+	 *
+	 * @param timeStart When processing of this frame started, from {@link System#nanoTime()}
 	 */
-	private void optimizeTheScene() {
-		// Update the state estimate
-		if (bundleViso.isOptimizeActive()) {
-			bundleViso.optimize(verbose);
-			triangulateNotSelectedBundleTracks();
-		}
-		// Save the output
+	private void processPipelinedTail( double timeStart ) {
+		// Until bundle adjustment finishes the best estimate is from PnP
 		current_to_world.setTo(currentLeft.frame_to_world);
+
+		long time0 = System.nanoTime();
+		boolean droppedCurrentFrame = performKeyFrameMaintenance(trackerLeft, 2);
+		long time1 = System.nanoTime();
+		if (!droppedCurrentFrame) {
+			if (verbose != null) verbose.println("Saving new key frames");
+			addNewTracks();
+			addKeyFrameToLoopClosure();
+		}
+		long time2 = System.nanoTime();
+
+		startBundleAdjustment(getFrameID(), droppedCurrentFrame ? null : currentLeft);
+
+		timeBundle = timeBackgroundBundle;
+		timeDropUnused = timeBackgroundDropUnused;
+		timeSceneMaintenance = (time1 - time0)*1e-6;
+		timeSpawn = (time2 - time1)*1e-6;
+
+		if (profileOut != null) {
+			// Bundle adjustment ran in the background and isn't part of the time this thread spent on the frame
+			double timeTotal = (time2 - timeStart)*1e-6;
+			profileOut.printf("TIME: TRK %5.1f Est %5.1f Bun %5.1f DU %5.1f Scene %5.1f Spn  %5.1f TOTAL %5.1f\n",
+					timeTracking, timeEstimate, timeBundle, timeDropUnused, timeSceneMaintenance, timeSpawn, timeTotal);
+		}
 	}
 
 	/**
@@ -547,6 +638,14 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 				trackL.cookie = bt;
 				trackR.cookie = bt;
 
+				// Save the description so that loop closure doesn't need to compute it again
+				if (loopClosure != null) {
+					if (bt.description == null)
+						bt.description = describe.createDescription();
+					((TD)bt.description).setTo(descLeft.get(m.src));
+					bt.hasDescription = true;
+				}
+
 				bundleViso.addObservation(currentLeft, bt, trackL.pixel.x, trackL.pixel.y);
 				bundleViso.addObservation(currentRight, bt, trackR.pixel.x, trackR.pixel.y);
 
@@ -579,6 +678,57 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 		frameManager.handleSpawnedTracks(trackerRight, bundleViso.cameras.get(CAMERA_RIGHT));
 	}
 
+	/**
+	 * Passes the current frame to loop closure as a new key frame. Descriptions are selected by
+	 * {@link #keyFrameDescription} and locations are in the left camera's coordinate system. Loop closure copies
+	 * what it needs, so the workspace can be reused.
+	 */
+	private void addKeyFrameToLoopClosure() {
+		if (loopClosure == null)
+			return;
+
+		keyFrameImageSet = false;
+		currentLeft.frame_to_world.invert(world_to_key);
+
+		keyFrameTracks.clear();
+		for (int i = 0; i < visibleTracks.size(); i++) {
+			TrackInfo bt = visibleTracks.get(i);
+			if (bt.visualTrack != null)
+				keyFrameTracks.add(bt.visualTrack);
+		}
+
+		loopClosure.addKeyFrame(getFrameID(), keyFrameTracks, this::keyFrameDescription,
+				( track, location ) -> {
+					TrackInfo bt = track.getCookie();
+					SePointOps_F64.transform(world_to_key, bt.worldLoc, keyLoc4);
+					PerspectiveOps.homogenousTo3dPositiveZ(keyLoc4, 1e8, 1e-8, location);
+					// Points behind the camera can't be used with PnP
+					return location.z > 0.0;
+				});
+	}
+
+	/**
+	 * Selects the description of a track for loop closure. In order of preference, it's the tracker's description
+	 * if it's the same type, the description which was computed when the track was spawned, or the track is
+	 * described in the current left image.
+	 */
+	private @Nullable TD keyFrameDescription( PointTrack track ) {
+		@Nullable TD desc = VisOdomLoopClosure.trackDescription(track);
+		if (desc != null && desc.getClass() == keyFrameDesc.getClass() && desc.size() == keyFrameDesc.size())
+			return desc;
+
+		TrackInfo bt = track.getCookie();
+		if (bt.hasDescription)
+			return (TD)bt.description;
+
+		// Only tracks which were spawned before loop closure was turned on should get this far
+		if (!keyFrameImageSet) {
+			describe.setImage(inputLeft);
+			keyFrameImageSet = true;
+		}
+		return describe.process(track.pixel.x, track.pixel.y, 0, describeRadius, keyFrameDesc) ? keyFrameDesc : null;
+	}
+
 	/**
 	 * Given list of new visual tracks, describe the region around each track using a descriptor
 	 */
@@ -630,10 +780,15 @@ public class VisOdomDualTrackPnP<T extends ImageBase<T>, TD extends TupleDesc<TD
 		public long lastInlier;
 		// the last frame it was seen in
 		public long lastSeenRightFrame;
+		// Description of the left track from when it was spawned. Only saved when there's loop closure.
+		// The instance is recycled along with the track.
+		public @Nullable TupleDesc<?> description;
+		public boolean hasDescription;
 
 		@Override
 		public void reset() {
 			super.reset();
+			hasDescription = false;
 			visualRight = null;
 			lastStereoFrame = -1;
 			lastInlier = -1;
@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.sfm.d3;
+
+import boofcv.abst.feature.associate.AssociateDescription;
+import boofcv.abst.scene.FeatureSceneRecognition;
+import boofcv.abst.scene.SceneRecognition;
+import boofcv.abst.tracker.PointTrack;
+import boofcv.alg.geo.robust.ModelMatcherMultiview;
+import boofcv.alg.tracker.hybrid.HybridTrack;
+import boofcv.factory.distort.LensDistortionFactory;
+import boofcv.misc.BoofLambdas;
+import boofcv.misc.BoofMiscOps;
+import boofcv.struct.calib.CameraPinholeBrown;
+import boofcv.struct.distort.Point2Transform2_F64;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.feature.TupleDesc;
+import boofcv.struct.geo.Point2D3D;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.point.Point3D_F64;
+import georegression.struct.se.Se3_F64;
+import lombok.Getter;
+import org.ddogleg.fitting.modelset.ModelMatcher;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_B;
+import org.ddogleg.struct.FastAccess;
+import org.ddogleg.struct.VerbosePrint;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * Detects when visual odometry has returned to a previously visited location so that drift can be corrected.
+ * Key frames are incrementally added to a {@link FeatureSceneRecognition} database, e.g. a vocabulary tree,
+ * using the descriptions of the features which are being tracked. When a new key frame is added the database
+ * is queried for similar key frames which are not too close in time. Candidates are geometrically verified
+ * by associating features and robustly estimating the pose of the new key frame from the 3D location of
+ * features in the old key frame using PnP. Each verified loop is output as a {@link LoopConstraint}, which
+ * is a relative pose that can be added to a pose graph.
+ * </p>
+ *
+ * <p>
+ * The cost of each key frame is bounded by only saving up to {@link #maxFeaturesPerFrame} features and by only
+ * verifying up to {@link #limitQuery} candidates. Optionally, see {@link #setBackground(boolean)}, the query,
+ * verification, and update of the database is done in a background thread so that it doesn't delay tracking.
+ * If the background thread falls behind by more than {@link #maxPendingFrames} key frames then new key frames
+ * are skipped.
+ * </p>
+ *
+ * <p>
+ * The recognition model must have already been learned before key frames are added.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class VisOdomLoopClosure<TD extends TupleDesc<TD>> implements VerbosePrint {
+	/** Two key frames must be at least this many frames apart for them to be considered a loop */
+	public long minimumFrameSeparation = 50;
+
+	/** Maximum number of candidates from the recognition database which are geometrically verified */
+	public int limitQuery = 3;
+
+	/** Minimum number of inliers for a loop to be accepted */
+	public int minimumInliers = 30;
+
+	/** Minimum fraction of associated features which must be inliers for a loop to be accepted */
+	public double minimumInlierFraction = 0.3;
+
+	/** Maximum number of features saved in each key frame */
+	public int maxFeaturesPerFrame = 800;
+
+	/** Maximum number of key frames which can be waiting to be processed in the background */
+	public int maxPendingFrames = 2;
+
+	/** Database of key frames used to find loop candidates */
+	final @Getter FeatureSceneRecognition<TD> recognizer;
+
+	/** Associates features between two key frames */
+	final @Getter AssociateDescription<TD> associate;
+
+	/** Robustly estimates the pose of the query key frame from 3D features in the candidate key frame */
+	final @Getter ModelMatcher<Se3_F64, Point2D3D> estimatePose;
+
+	// Creates new descriptions for storage in key frames
+	final BoofLambdas.Factory<TD> factoryDescription;
+
+	// Converts pixels into normalized image coordinates
+	@Nullable Point2Transform2_F64 pixelToNorm;
+
+	// Key frames which have been added to the database
+	final Map<String, KeyFrame<TD>> keyFrames = new HashMap<>();
+
+	// Loops which have been found but not yet taken by the user. Access must be synchronized
+	final List<LoopConstraint> constraints = new ArrayList<>();
+
+	/** true if key frames are processed in a background thread */
+	protected @Getter boolean background = false;
+
+	// Thread which key frames are processed in
+	protected @Nullable ExecutorService executor;
+
+	// Key frames being processed in the background
+	protected final ArrayDeque<Future<?>> pending = new ArrayDeque<>();
+
+	/** Number of key frames which were skipped because the background thread had fallen behind */
+	protected @Getter int totalSkipped;
+
+	//----------------- Workspace. Only used by the thread that processes key frames
+	final DogArray<SceneRecognition.Match> matches = new DogArray<>(SceneRecognition.Match::new);
+	final DogArray<Point2D3D> pairs = new DogArray<>(Point2D3D::new);
+
+	@Nullable PrintStream verbose;
+
+	public VisOdomLoopClosure( FeatureSceneRecognition<TD> recognizer,
+							   AssociateDescription<TD> associate,
+							   ModelMatcher<Se3_F64, Point2D3D> estimatePose,
+							   BoofLambdas.Factory<TD> factoryDescription ) {
+		this.recognizer = recognizer;
+		this.associate = associate;
+		this.estimatePose = estimatePose;
+		this.factoryDescription = factoryDescription;
+	}
+
+	/**
+	 * Specifies the intrinsic camera parameters. Used to convert pixels into normalized image coordinates and,
+	 * if the pose estimator supports it, to compute the reprojection error in pixels.
+	 */
+	public void setCamera( CameraPinholeBrown camera ) {
+		pixelToNorm = LensDistortionFactory.narrow(camera).undistort_F64(true, false);
+		if (estimatePose instanceof ModelMatcherMultiview)
+			((ModelMatcherMultiview<Se3_F64, Point2D3D>)estimatePose).setIntrinsic(0, camera);
+	}
+
+	/**
+	 * Specifies the transform from pixels into normalized image coordinates directly.
+	 */
+	public void setPixelToNorm( Point2Transform2_F64 pixelToNorm ) {
+		this.pixelToNorm = pixelToNorm;
+	}
+
+	/**
+	 * Turns on or off processing of key frames in a background thread. When off, key frames are processed
+	 * inside of {@link #addKeyFrame}. Turning it off will block until all pending key frames have been processed.
+	 */
+	public void setBackground( boolean background ) {
+		if (this.background == background)
+			return;
+		this.background = background;
+
+		if (background) {
+			executor = Executors.newSingleThreadExecutor(r -> {
+				var thread = new Thread(r, "VisOdomLoopClosure");
+				thread.setDaemon(true);
+				return thread;
+			});
+		} else {
+			finish();
+			Objects.requireNonNull(executor).shutdown();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Adds a new key frame. The features are copied so the tracks can be modified after this function returns.
+	 * Only tracks with a description are saved and if there are too many tracks a subset, evenly sampled
+	 * from the list, is saved.
+	 *
+	 * @param frameID Unique ID of the frame. Used to determine how far apart two key frames are in time.
+	 * @param tracks Tracks which are visible in this frame
+	 * @param trackToDesc Returns the description of a track or null if it has none. See {@link #trackDescription}.
+	 * @param trackToLocation Looks up the 3D location of a track in the key frame's coordinate system.
+	 * @return true if the key frame was accepted or false if it was skipped because too many are pending
+	 */
+	public boolean addKeyFrame( long frameID, List<PointTrack> tracks,
+								BoofLambdas.ConvertOut<PointTrack, TD> trackToDesc,
+								TrackLocation trackToLocation ) {
+		Objects.requireNonNull(pixelToNorm, "Must specify camera first");
+
+		// Rethrow any errors and see if there's room for another key frame
+		removeCompletedTasks();
+		if (background && pending.size() >= maxPendingFrames) {
+			totalSkipped++;
+			if (verbose != null) verbose.println("Skipping key frame " + frameID + ", pending=" + pending.size());
+			return false;
+		}
+
+		// Copy the features since tracks are modified by the tracker when it processes the next frame
+		var frame = new KeyFrame<>(factoryDescription);
+		frame.frameID = frameID;
+
+		int total = Math.min(tracks.size(), maxFeaturesPerFrame);
+		double step = total == 0 ? 1.0 : tracks.size()/(double)total;
+		for (int i = 0; i < total; i++) {
+			PointTrack track = tracks.get((int)(i*step));
+			@Nullable TD desc = trackToDesc.process(track);
+			if (desc == null)
+				continue;
+
+			frame.descriptions.grow().setTo(desc);
+			frame.pixels.grow().setTo(track.pixel);
+			pixelToNorm.compute(track.pixel.x, track.pixel.y, frame.norms.grow());
+			frame.known3D.add(trackToLocation.lookup(track, frame.locations.grow()));
+		}
+
+		if (background) {
+			pending.add(Objects.requireNonNull(executor).submit(() -> processKeyFrame(frame)));
+		} else {
+			processKeyFrame(frame);
+		}
+		return true;
+	}
+
+	/**
+	 * Blocks until all pending key frames have been processed then stops the background thread, if there is one.
+	 * Must be called before discarding an instance which processes key frames in the background. Afterwards, key
+	 * frames are processed inside of {@link #addKeyFrame}. Safe to call more than once.
+	 */
+	public void shutdown() {
+		setBackground(false);
+	}
+
+	/**
+	 * Blocks until all pending key frames have been processed
+	 */
+	public void finish() {
+		while (!pending.isEmpty()) {
+			waitFor(pending.removeFirst());
+		}
+	}
+
+	/**
+	 * Moves all the loops which have been found since the last call into the provided list.
+	 *
+	 * @param storage (Output) Found loops are added to this list
+	 * @return Number of loops which were added
+	 */
+	public int takeConstraints( List<LoopConstraint> storage ) {
+		synchronized (constraints) {
+			int count = constraints.size();
+			storage.addAll(constraints);
+			constraints.clear();
+			return count;
+		}
+	}
+
+	/**
+	 * Discards all key frames and found loops. The recognition model is not modified.
+	 */
+	public void reset() {
+		finish();
+		recognizer.clearDatabase();
+		keyFrames.clear();
+		synchronized (constraints) {
+			constraints.clear();
+		}
+		totalSkipped = 0;
+	}
+
+	/**
+	 * Finds loops between this key frame and previous key frames, then adds it to the database
+	 */
+	protected void processKeyFrame( KeyFrame<TD> frame ) {
+		// Only consider key frames which are far enough back in time
+		recognizer.query(frame, ( id ) ->
+						frame.frameID - keyFrames.get(id).frameID >= minimumFrameSeparation,
+				limitQuery, matches);
+
+		if (verbose != null) verbose.println("Key frame " + frame.frameID + " features=" +
+				frame.size() + " candidates=" + matches.size);
+
+		for (int i = 0; i < matches.size; i++) {
+			KeyFrame<TD> candidate = keyFrames.get(matches.get(i).id);
+			LoopConstraint loop = verify(candidate, frame);
+			if (loop == null)
+				continue;
+
+			if (verbose != null) verbose.println("  loop " + loop.frameA + " -> " + loop.frameB +
+					" inliers=" + loop.inliers);
+			synchronized (constraints) {
+				constraints.add(loop);
+			}
+		}
+
+		String id = Long.toString(frame.frameID);
+		recognizer.addImage(id, frame);
+		keyFrames.put(id, frame);
+	}
+
+	/**
+	 * Associates features then robustly estimates the pose of 'frameB' using the 3D location of features
+	 * in 'frameA'.
+	 *
+	 * @return The found loop or null if it failed
+	 */
+	protected @Nullable LoopConstraint verify( KeyFrame<TD> frameA, KeyFrame<TD> frameB ) {
+		associate.setSource(frameB.descriptions);
+		associate.setDestination(frameA.descriptions);
+		associate.associate();
+
+		FastAccess<AssociatedIndex> associated = associate.getMatches();
+		pairs.reset();
+		for (int i = 0; i < associated.size; i++) {
+			AssociatedIndex a = associated.get(i);
+			if (!frameA.known3D.get(a.dst))
+				continue;
+			Point2D3D p = pairs.grow();
+			p.observation.setTo(frameB.norms.get(a.src));
+			p.location.setTo(frameA.locations.get(a.dst));
+		}
+
+		if (pairs.size < minimumInliers)
+			return null;
+
+		if (!estimatePose.process(pairs.toList()))
+			return null;
+
+		int inliers = estimatePose.getMatchSet().size();
+		if (inliers < minimumInliers || inliers < minimumInlierFraction*pairs.size)
+			return null;
+
+		var loop = new LoopConstraint();
+		loop.frameA = frameA.frameID;
+		loop.frameB = frameB.frameID;
+		loop.a_to_b.setTo(estimatePose.getModelParameters());
+		loop.inliers = inliers;
+		return loop;
+	}
+
+	/**
+	 * Removes tasks which have finished from the front of the pending queue. Exceptions are rethrown.
+	 */
+	private void removeCompletedTasks() {
+		while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+			waitFor(pending.removeFirst());
+		}
+	}
+
+	private static void waitFor( Future<?> task ) {
+		try {
+			task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Returns the description of a track created by a DDA or hybrid tracker. Null if it has no description.
+	 */
+	public static <TD extends TupleDesc<TD>> @Nullable TD trackDescription( PointTrack track ) {
+		if (track instanceof HybridTrack)
+			return ((HybridTrack<TD>)track).descriptor;
+		Object desc = track.getDescription();
+		if (desc instanceof TupleDesc)
+			return (TD)desc;
+		return null;
+	}
+
+	@Override public void setVerbose( @Nullable PrintStream out, @Nullable Set<String> configuration ) {
+		this.verbose = BoofMiscOps.addPrefix(this, out);
+	}
+
+	/**
+	 * Looks up the 3D location of a track
+	 */
+	@FunctionalInterface
+	public interface TrackLocation {
+		/**
+		 * @param track (Input) The track
+		 * @param location (Output) 3D location of the track in the key frame's coordinate system
+		 * @return true if the location is known
+		 */
+		boolean lookup( PointTrack track, Point3D_F64 location );
+	}
+
+	/**
+	 * Relative pose between two key frames which was found by closing a loop
+	 */
+	public static class LoopConstraint {
+		/** The older key frame */
+		public long frameA;
+		/** The newer key frame */
+		public long frameB;
+		/** Transform from key frame A to key frame B */
+		public final Se3_F64 a_to_b = new Se3_F64();
+		/** Number of features which were inliers */
+		public int inliers;
+	}
+
+	/**
+	 * Features which were saved from a key frame
+	 */
+	public static class KeyFrame<TD extends TupleDesc<TD>> implements FeatureSceneRecognition.Features<TD> {
+		public long frameID;
+		/** Pixel coordinate of each feature */
+		public final DogArray<Point2D_F64> pixels = new DogArray<>(Point2D_F64::new);
+		/** Normalized image coordinate of each feature */
+		public final DogArray<Point2D_F64> norms = new DogArray<>(Point2D_F64::new);
+		/** 3D location of each feature in the key frame's coordinate system */
+		public final DogArray<Point3D_F64> locations = new DogArray<>(Point3D_F64::new);
+		/** If the 3D location of a feature is known */
+		public final DogArray_B known3D = new DogArray_B();
+		/** Description of each feature */
+		public final DogArray<TD> descriptions;
+
+		public KeyFrame( BoofLambdas.Factory<TD> factory ) {
+			descriptions = new DogArray<>(factory::newInstance);
+		}
+
+		@Override public Point2D_F64 getPixel( int index ) {return pixels.get(index);}
+
+		@Override public TD getDescription( int index ) {return descriptions.get(index);}
+
+		@Override public int size() {return pixels.size;}
+	}
+}
@@ -111,7 +111,7 @@ public class VisOdomMonoDepthPnP<T extends ImageBase<T>>
 		ConfigTriangulation config = new ConfigTriangulation();
 		config.type = ConfigTriangulation.Type.GEOMETRIC;
 		config.converge.maxIterations = 10;
-		triangulateN = FactoryMultiView.triangulateNViewMetric(config);
+		triangulateBatch = FactoryMultiView.triangulateNViewMetricBatch(config);
 	}
 
 	/**
@@ -153,6 +153,7 @@ public class VisOdomMonoDepthPnP<T extends ImageBase<T>>
 			frameManager.initialize(bundleViso.cameras);
 			frameManager.handleSpawnedTracks(tracker, bundleViso.cameras.getTail());
 			if (verbose != null) verbose.println("First Frame. Spawned=" + visibleTracks.size());
+			notifyListener(getFrameID(), current_to_world);
 			return true;
 		}
 
@@ -183,6 +184,8 @@ public class VisOdomMonoDepthPnP<T extends ImageBase<T>>
 		//========== Refine the scene's state estimate
 		double time2 = System.nanoTime();
 		optimizeTheScene();
+		// Save the output
+		current_to_world.setTo(frameCurrent.frame_to_world);
 		double time3 = System.nanoTime();
 
 		//=============================================================================================
@@ -217,6 +220,7 @@ public class VisOdomMonoDepthPnP<T extends ImageBase<T>>
 
 //		bundle.sanityCheck();
 
+		notifyListener(getFrameID(), current_to_world);
 		return true;
 	}
 
@@ -242,19 +246,6 @@ public class VisOdomMonoDepthPnP<T extends ImageBase<T>>
 		}
 	}
 
-	/**
-	 * Runs bundle adjustment and update the state of views and features
-	 */
-	private void optimizeTheScene() {
-		// Update the state estimate
-		if (bundleViso.isOptimizeActive()) {
-			bundleViso.optimize(verbose);
-			triangulateNotSelectedBundleTracks();
-		}
-		// Save the output
-		current_to_world.setTo(frameCurrent.frame_to_world);
-	}
-
 	private void handleDroppedVisualTracks() {
 		tmpVisualTracks.clear();
 		tracker.getDroppedTracks(tmpVisualTracks);
@@ -44,7 +44,7 @@ public class SelectTracksInFrameForBundleAdjustment {
 	/** maximum number of features per frame that can be used */
 	public int maxFeaturesPerFrame = 1; // give it a horrible initial value
 
-	/** The minimum number of observations to process */
+	/** The minimum number of observations to process. Includes observations from anchor frames */
 	public int minTrackObservations = 3;
 
 	// grid cells. Stored in row major format
@@ -78,7 +78,7 @@ public class SelectTracksInFrameForBundleAdjustment {
 			// handle the case where it's unlimited differently
 			for (int trackIdx = 0; trackIdx < sba.tracks.size; trackIdx++) {
 				BTrack track = sba.tracks.get(trackIdx);
-				if (track.observations.size >= minTrackObservations) {
+				if (track.totalObservations() >= minTrackObservations) {
 					track.selected = true;
 					selected.add(track);
 				}
@@ -128,7 +128,7 @@ public class SelectTracksInFrameForBundleAdjustment {
 			Info cell = grid.getCellAtPixel((int)o.pixel.x, (int)o.pixel.y);
 			if (bt.selected)
 				cell.alreadySelected++;
-			else if (bt.observations.size >= minTrackObservations)
+			else if (bt.totalObservations() >= minTrackObservations)
 				cell.unselected.add(bt);
 		}
 	}
@@ -42,7 +42,17 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * <p>
  * Bundle adjustment specifically intended for use with visual odometry algorithms.
+ * </p>
+ *
+ * <p>
+ * When a frame is dropped from the sliding window it can be kept as a fixed anchor frame instead of being
+ * discarded, see {@link #maxAnchors}. An anchor frame is included in the optimization as a view with a fixed pose,
+ * its last estimate. This adds no parameters to be optimized but its observations continue to constrain the
+ * location of tracks which are still in the scene. This is not marginalization. The anchor's pose is treated as
+ * if it's known exactly and its uncertainty is not propagated into a prior on the remaining frames.
+ * </p>
  *
  * @author Peter Abeles
  */
@@ -54,6 +64,14 @@ public class VisOdomBundleAdjustment<T extends VisOdomBundleAdjustment.BTrack> {
 	public final DogArray<BFrame> frames = new DogArray<>(BFrame::new, BFrame::reset);
 	/** List of all the cameras */
 	public final DogArray<BCamera> cameras = new DogArray<>(BCamera::new, BCamera::reset);
+	/** Fixed anchor frames which were dropped from the sliding window. Ordered from oldest to newest */
+	public final DogArray<BFrame> anchors = new DogArray<>(BFrame::new, BFrame::reset);
+
+	/**
+	 * Maximum number of anchor frames which are kept. When exceeded the oldest is discarded. If &le; 0 then
+	 * dropped frames are discarded instead of becoming anchors.
+	 */
+	public int maxAnchors = 0;
 
 	/** Configurations and implementation of bundle adjustment */
 	public final MetricBundleAdjustmentUtils bundle = new MetricBundleAdjustmentUtils();
@@ -108,11 +126,14 @@ public class VisOdomBundleAdjustment<T extends VisOdomBundleAdjustment.BTrack> {
 		// Need to count the total number of tracks that will be feed into bundle adjustment
 		int totalBundleTracks = selectedTracks.size();
 
+		// Anchor frames are added after the regular frames
+		int totalViews = frames.size + anchors.size;
+
 		// Initialize data structures
 		final SceneStructureMetric structure = bundle.getStructure();
 		final SceneObservations observations = bundle.getObservations();
-		observations.initialize(frames.size);
-		structure.initialize(cameras.size, frames.size, totalBundleTracks);
+		observations.initialize(totalViews);
+		structure.initialize(cameras.size, totalViews, totalBundleTracks);
 		for (int cameraIdx = 0; cameraIdx < cameras.size; cameraIdx++) {
 			structure.setCamera(cameraIdx, true, cameras.get(cameraIdx).bundleCamera);
 		}
@@ -125,6 +146,14 @@ public class VisOdomBundleAdjustment<T extends VisOdomBundleAdjustment.BTrack> {
 			frames.get(frameIdx).listIndex = frameIdx; // save the index since it's needed in the next loop
 		}
 
+		// The pose of anchor frames is fixed and not optimized
+		for (int anchorIdx = 0; anchorIdx < anchors.size; anchorIdx++) {
+			BFrame bf = anchors.get(anchorIdx);
+			bf.frame_to_world.invert(world_to_view);
+			bf.listIndex = frames.size + anchorIdx;
+			structure.setView(bf.listIndex, bf.camera.index, true, world_to_view);
+		}
+
 		// A feature is only passed to SBA if it is active and more than one view has seen it
 		// this requires it to have a different index
 		int featureBundleIdx = 0;
@@ -141,6 +170,11 @@ public class VisOdomBundleAdjustment<T extends VisOdomBundleAdjustment.BTrack> {
 				SceneObservations.View view = observations.getView(o.frame.listIndex);
 				view.add(featureBundleIdx, (float)o.pixel.x, (float)o.pixel.y);
 			}
+			for (int obsIdx = 0; obsIdx < bt.anchorObservations.size; obsIdx++) {
+				BObservation o = bt.anchorObservations.get(obsIdx);
+				SceneObservations.View view = observations.getView(o.frame.listIndex);
+				view.add(featureBundleIdx, (float)o.pixel.x, (float)o.pixel.y);
+			}
 			featureBundleIdx++;
 		}
 
@@ -179,6 +213,7 @@ public class VisOdomBundleAdjustment<T extends VisOdomBundleAdjustment.BTrack> {
 		frames.reset();
 		tracks.reset();
 		cameras.reset();
+		anchors.reset();
 	}
 
 	public void addObservation( BFrame frame, T track, double pixelX, double pixelY ) {
@@ -273,6 +308,60 @@ public class VisOdomBundleAdjustment<T extends VisOdomBundleAdjustment.BTrack> {
 		frames.remove(index);
 	}
 
+	/**
+	 * Removes the frame from the scene but saves its observations of tracks which remain in the scene so that
+	 * they can still be used in the optimization. If {@link #maxAnchors} &le; 0 then this is the same as
+	 * {@link #removeFrame}.
+	 *
+	 * @param removedVisualTracks List of tracks which were removed and were being visually tracked
+	 * because they had no more observations. Cleared each call.
+	 */
+	public void anchorFrame( BFrame frame, List<PointTrack> removedVisualTracks ) {
+		if (maxAnchors <= 0) {
+			removeFrame(frame, removedVisualTracks);
+			return;
+		}
+
+		// Make room by discarding the oldest anchor frame
+		while (anchors.size >= maxAnchors) {
+			discardAnchor(0);
+		}
+
+		BFrame mf = anchors.grow();
+		mf.id = frame.id;
+		mf.camera = frame.camera;
+		mf.frame_to_world.setTo(frame.frame_to_world);
+
+		for (int trackIdx = 0; trackIdx < frame.tracks.size; trackIdx++) {
+			BTrack bt = frame.tracks.get(trackIdx);
+			// Skip tracks which will be removed because this frame has their only observation
+			if (bt.observations.size <= 1)
+				continue;
+			BObservation o = bt.findObservationBy(frame);
+			if (o == null)
+				throw new RuntimeException("Bug: Track not in frame. frame.id " + frame.id + " track.id " + bt.id);
+
+			BObservation m = bt.anchorObservations.grow();
+			m.frame = mf;
+			m.pixel.setTo(o.pixel);
+			mf.tracks.add(bt);
+		}
+
+		removeFrame(frame, removedVisualTracks);
+	}
+
+	/**
+	 * Discards an anchor frame and removes its observations from all the tracks
+	 */
+	public void discardAnchor( int index ) {
+		BFrame mf = anchors.get(index);
+		for (int trackIdx = 0; trackIdx < mf.tracks.size; trackIdx++) {
+			// The track might have been removed from the scene already, in which case there's nothing to remove
+			mf.tracks.get(trackIdx).removeAnchorRef(mf);
+		}
+		anchors.remove(index);
+	}
+
 	public BFrame getLastFrame() { return frames.get(frames.size - 1); }
 
 	public BFrame getFirstFrame() { return frames.get(0);}
@@ -328,6 +417,8 @@ public class VisOdomBundleAdjustment<T extends VisOdomBundleAdjustment.BTrack> {
 		public PointTrack visualTrack;
 		public final Point4D_F64 worldLoc = new Point4D_F64();
 		public final DogArray<BObservation> observations = new DogArray<>(BObservation::new, BObservation::reset);
+		/** Observations from anchor frames */
+		public final DogArray<BObservation> anchorObservations = new DogArray<>(BObservation::new, BObservation::reset);
 		/** if true then the track has been an inlier at least once and should be considered for optimization */
 		public boolean hasBeenInlier;
 		/** true if it was selected for inclusion in the optimization */
@@ -354,6 +445,7 @@ public class VisOdomBundleAdjustment<T extends VisOdomBundleAdjustment.BTrack> {
 		public void reset() {
 			worldLoc.setTo(0, 0, 0, 0);
 			observations.reset();
+			anchorObservations.reset();
 			hasBeenInlier = false;
 			selected = false;
 			visualTrack = null;
@@ -374,6 +466,26 @@ public class VisOdomBundleAdjustment<T extends VisOdomBundleAdjustment.BTrack> {
 			}
 			return false;
 		}
+
+		/**
+		 * Removes the observation from the specified anchor frame
+		 *
+		 * @return true if a match was found and removed. False otherwise.
+		 */
+		public boolean removeAnchorRef( BFrame frame ) {
+			for (int i = anchorObservations.size - 1; i >= 0; i--) {
+				if (anchorObservations.data[i].frame == frame) {
+					anchorObservations.removeSwap(i);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/** Total number of observations, including ones from anchor frames */
+		public int totalObservations() {
+			return observations.size + anchorObservations.size;
+		}
 	}
 
 	/**
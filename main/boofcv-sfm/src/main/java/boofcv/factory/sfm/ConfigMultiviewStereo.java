@@ -36,14 +36,19 @@ public class ConfigMultiviewStereo implements Configuration {
 	/** {@link boofcv.alg.mvs.MultiViewStereoFromKnownSceneStructure#maxCombinePairs} */
 	public int maxCombinePairs = 10;
 
+	/** {@link boofcv.alg.mvs.MultiViewStereoFromKnownSceneStructure#maxConcurrentCenters} */
+	public int maxConcurrentCenters = 1;
+
 	@Override public void checkValidity() {
 		BoofMiscOps.checkTrue(minimumQuality3D >= 0.0);
 		BoofMiscOps.checkTrue(maximumCenterOverlap >= 0.0 && maximumCenterOverlap <= 1.0);
+		BoofMiscOps.checkTrue(maxConcurrentCenters >= 1);
 	}
 
 	public void setTo( ConfigMultiviewStereo src ) {
 		this.minimumQuality3D = src.minimumQuality3D;
 		this.maximumCenterOverlap = src.maximumCenterOverlap;
 		this.maxCombinePairs = src.maxCombinePairs;
+		this.maxConcurrentCenters = src.maxConcurrentCenters;
 	}
 }
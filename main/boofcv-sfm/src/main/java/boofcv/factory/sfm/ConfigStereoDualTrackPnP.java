@@ -47,6 +47,18 @@ public class ConfigStereoDualTrackPnP implements Configuration {
 	/** Tolerance for matching stereo features along epipolar line in Pixels */
 	public double epipolarTol = 1.5;
 
+	/**
+	 * If true then bundle adjustment is run in a background thread while the next frame is being tracked.
+	 * See {@link boofcv.alg.sfm.d3.VisOdomBundlePnPBase#setPipelined(boolean)}.
+	 */
+	public boolean pipelined = false;
+
+	/**
+	 * Used when loop closure is turned on by passing a recognition database to the factory.
+	 * See {@link boofcv.alg.sfm.d3.VisOdomLoopClosure}.
+	 */
+	public ConfigVisOdomLoopClosure loopClosure = new ConfigVisOdomLoopClosure();
+
 	{
 		tracker.typeTracker = ConfigPointTracker.TrackerType.KLT;
 		tracker.klt.pyramidLevels = ConfigDiscreteLevels.minSize(40);
@@ -70,6 +82,7 @@ public class ConfigStereoDualTrackPnP implements Configuration {
 
 		tracker.checkValidity();
 		stereoDescribe.checkValidity();
+		loopClosure.checkValidity();
 	}
 
 	public void setTo( ConfigStereoDualTrackPnP src ) {
@@ -78,5 +91,7 @@ public class ConfigStereoDualTrackPnP implements Configuration {
 		this.stereoDescribe.setTo(src.stereoDescribe);
 		this.stereoRadius = src.stereoRadius;
 		this.epipolarTol = src.epipolarTol;
+		this.pipelined = src.pipelined;
+		this.loopClosure.setTo(src.loopClosure);
 	}
 }
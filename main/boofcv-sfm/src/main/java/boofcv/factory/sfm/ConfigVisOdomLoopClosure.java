@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.factory.sfm;
+
+import boofcv.factory.feature.associate.ConfigAssociateGreedy;
+import boofcv.factory.geo.ConfigPnP;
+import boofcv.factory.geo.ConfigRansac;
+import boofcv.struct.Configuration;
+
+/**
+ * Configuration for {@link boofcv.alg.sfm.d3.VisOdomLoopClosure}
+ *
+ * @author Peter Abeles
+ */
+public class ConfigVisOdomLoopClosure implements Configuration {
+	/** Two key frames must be at least this many frames apart for them to be considered a loop */
+	public long minimumFrameSeparation = 50;
+
+	/** Maximum number of candidates from the recognition database which are geometrically verified */
+	public int limitQuery = 3;
+
+	/** Minimum number of inliers for a loop to be accepted */
+	public int minimumInliers = 30;
+
+	/** Minimum fraction of associated features which must be inliers for a loop to be accepted */
+	public double minimumInlierFraction = 0.3;
+
+	/** Maximum number of features saved in each key frame */
+	public int maxFeaturesPerFrame = 800;
+
+	/** Maximum number of key frames which can be waiting to be processed in the background */
+	public int maxPendingFrames = 2;
+
+	/** If true then key frames are processed in a background thread */
+	public boolean background = true;
+
+	/** Association between features in the two key frames */
+	public ConfigAssociateGreedy associate = new ConfigAssociateGreedy(true, 0.9, -1.0);
+
+	/** PnP used to verify a loop */
+	public ConfigPnP pnp = new ConfigPnP();
+
+	/** RANSAC used to verify a loop. Inlier threshold is in pixels. */
+	public ConfigRansac ransac = new ConfigRansac(200, 2.0);
+
+	@Override
+	public void checkValidity() {
+		if (minimumFrameSeparation < 0)
+			throw new IllegalArgumentException("minimumFrameSeparation can't be negative");
+		if (limitQuery <= 0)
+			throw new IllegalArgumentException("limitQuery must be greater than zero");
+		if (minimumInliers <= 0)
+			throw new IllegalArgumentException("minimumInliers must be greater than zero");
+		if (minimumInlierFraction < 0.0 || minimumInlierFraction > 1.0)
+			throw new IllegalArgumentException("minimumInlierFraction must be 0 to 1.0");
+		if (maxFeaturesPerFrame <= 0)
+			throw new IllegalArgumentException("maxFeaturesPerFrame must be greater than zero");
+		if (maxPendingFrames <= 0)
+			throw new IllegalArgumentException("maxPendingFrames must be greater than zero");
+
+		associate.checkValidity();
+		pnp.checkValidity();
+		ransac.checkValidity();
+	}
+
+	public void setTo( ConfigVisOdomLoopClosure src ) {
+		this.minimumFrameSeparation = src.minimumFrameSeparation;
+		this.limitQuery = src.limitQuery;
+		this.minimumInliers = src.minimumInliers;
+		this.minimumInlierFraction = src.minimumInlierFraction;
+		this.maxFeaturesPerFrame = src.maxFeaturesPerFrame;
+		this.maxPendingFrames = src.maxPendingFrames;
+		this.background = src.background;
+		this.associate.setTo(src.associate);
+		this.pnp.setTo(src.pnp);
+		this.ransac.setTo(src.ransac);
+	}
+}
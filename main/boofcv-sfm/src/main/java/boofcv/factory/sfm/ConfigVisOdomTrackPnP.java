@@ -47,6 +47,13 @@ public class ConfigVisOdomTrackPnP implements Configuration {
 	 * tends to remove most false positives.
 	 */
 	public int bundleMinObservations = 3;
+	/**
+	 * Number of frames dropped from the scene which are kept as fixed anchor frames instead of being discarded.
+	 * Their observations continue to constrain tracks in bundle adjustment but their poses are fixed at their
+	 * last estimate. This is not marginalization, since the uncertainty in their poses is ignored.
+	 * If &le; 0 then dropped frames are discarded.
+	 */
+	public int bundleMaxAnchors = 0;
 	/** Drop tracks if they have been outliers for this many frames in a row */
 	public int dropOutlierTracks = 2;
 	/** Maximum number of key frames it will save. Must be at least 4 */
@@ -74,6 +81,7 @@ public class ConfigVisOdomTrackPnP implements Configuration {
 		this.bundleConverge.setTo(src.bundleConverge);
 		this.bundleMaxFeaturesPerFrame = src.bundleMaxFeaturesPerFrame;
 		this.bundleMinObservations = src.bundleMinObservations;
+		this.bundleMaxAnchors = src.bundleMaxAnchors;
 		this.dropOutlierTracks = src.dropOutlierTracks;
 		this.maxKeyFrames = src.maxKeyFrames;
 		this.ransac.setTo(src.ransac);
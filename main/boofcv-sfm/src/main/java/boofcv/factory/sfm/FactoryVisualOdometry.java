@@ -19,6 +19,7 @@
 package boofcv.factory.sfm;
 
 import boofcv.abst.disparity.StereoDisparitySparse;
+import boofcv.abst.feature.associate.AssociateDescription;
 import boofcv.abst.feature.associate.AssociateDescription2D;
 import boofcv.abst.feature.associate.EnforceUniqueByScore;
 import boofcv.abst.feature.associate.ScoreAssociation;
@@ -31,10 +32,12 @@ import boofcv.abst.geo.Triangulate2ViewsMetric;
 import boofcv.abst.sfm.DepthSparse3D_to_PixelTo3D;
 import boofcv.abst.sfm.ImagePixelTo3D;
 import boofcv.abst.sfm.d2.ImageMotion2D;
+import boofcv.abst.scene.FeatureSceneRecognition;
 import boofcv.abst.sfm.d3.*;
 import boofcv.abst.tracker.PointTracker;
 import boofcv.alg.feature.associate.AssociateStereo2D;
 import boofcv.alg.geo.pose.*;
+import boofcv.alg.geo.robust.ModelMatcherMultiview;
 import boofcv.alg.sfm.DepthSparse3D;
 import boofcv.alg.sfm.StereoSparse3D;
 import boofcv.alg.sfm.d3.*;
@@ -54,6 +57,7 @@ import boofcv.factory.geo.FactoryMultiView;
 import boofcv.factory.geo.FactoryMultiViewRobust;
 import boofcv.factory.tracker.FactoryPointTracker;
 import boofcv.factory.transform.pyramid.FactoryPyramid;
+import boofcv.misc.BoofLambdas;
 import boofcv.struct.feature.TupleDesc;
 import boofcv.struct.geo.Point2D3D;
 import boofcv.struct.image.ImageBase;
@@ -223,6 +227,7 @@ public class FactoryVisualOdometry {
 		alg.setThresholdRetireTracks(configVO.dropOutlierTracks);
 		alg.getBundleViso().getSelectTracks().maxFeaturesPerFrame = configVO.bundleMaxFeaturesPerFrame;
 		alg.getBundleViso().getSelectTracks().minTrackObservations = configVO.bundleMinObservations;
+		alg.getBundleViso().maxAnchors = configVO.bundleMaxAnchors;
 
 		return new WrapVisOdomMonoStereoDepthPnP<>(alg, pixelTo3D, distance, imageType);
 	}
@@ -282,6 +287,7 @@ public class FactoryVisualOdometry {
 		alg.setThresholdRetireTracks(configVO.dropOutlierTracks);
 		alg.getBundleViso().getSelectTracks().maxFeaturesPerFrame = configVO.bundleMaxFeaturesPerFrame;
 		alg.getBundleViso().getSelectTracks().minTrackObservations = configVO.bundleMinObservations;
+		alg.getBundleViso().maxAnchors = configVO.bundleMaxAnchors;
 
 		return new VisOdomPixelDepthPnP_to_DepthVisualOdometry<>
 				(sparseDepth, alg, distance, ImageType.single(visualType), depthType);
@@ -296,6 +302,23 @@ public class FactoryVisualOdometry {
 	 */
 	public static <T extends ImageGray<T>>
 	StereoVisualOdometry<T> stereoDualTrackerPnP( @Nullable ConfigStereoDualTrackPnP configVO, Class<T> imageType ) {
+		return stereoDualTrackerPnP(configVO, null, imageType);
+	}
+
+	/**
+	 * Creates an instance of {@link VisOdomDualTrackPnP} with {@link VisOdomLoopClosure loop closure}. Found loops
+	 * can be retrieved using {@link WrapVisOdomDualTrackPnP#getLoopClosure()}.
+	 *
+	 * @param configVO Configuration
+	 * @param recognizer (Optional) Recognition database used to find loops. Its model must already be learned
+	 * and it must use the same descriptor as stereo association. If null then there's no loop closure.
+	 * @param imageType Type of input image
+	 * @return The new instance
+	 */
+	public static <T extends ImageGray<T>>
+	StereoVisualOdometry<T> stereoDualTrackerPnP( @Nullable ConfigStereoDualTrackPnP configVO,
+												  @Nullable FeatureSceneRecognition<?> recognizer,
+												  Class<T> imageType ) {
 		if (configVO == null)
 			configVO = new ConfigStereoDualTrackPnP();
 		configVO.checkValidity();
@@ -303,7 +326,16 @@ public class FactoryVisualOdometry {
 		PointTracker<T> trackerLeft = FactoryPointTracker.tracker(configVO.tracker, imageType, null);
 		PointTracker<T> trackerRight = FactoryPointTracker.tracker(configVO.tracker, imageType, null);
 
-		return stereoDualTrackerPnP(configVO.scene, trackerLeft, trackerRight, configVO, imageType);
+		return stereoDualTrackerPnP(configVO.scene, trackerLeft, trackerRight, configVO, recognizer, imageType);
+	}
+
+	public static <T extends ImageGray<T>, Desc extends TupleDesc<Desc>>
+	StereoVisualOdometry<T> stereoDualTrackerPnP( ConfigVisOdomTrackPnP configVO,
+												  PointTracker<T> trackerLeft,
+												  PointTracker<T> trackerRight,
+												  ConfigStereoDualTrackPnP hack,
+												  Class<T> imageType ) {
+		return stereoDualTrackerPnP(configVO, trackerLeft, trackerRight, hack, null, imageType);
 	}
 
 	public static <T extends ImageGray<T>, Desc extends TupleDesc<Desc>>
@@ -311,6 +343,7 @@ public class FactoryVisualOdometry {
 												  PointTracker<T> trackerLeft,
 												  PointTracker<T> trackerRight,
 												  ConfigStereoDualTrackPnP hack,
+												  @Nullable FeatureSceneRecognition<?> recognizer,
 												  Class<T> imageType ) {
 		if (configVO == null)
 			configVO = new ConfigVisOdomTrackPnP();
@@ -369,15 +402,58 @@ public class FactoryVisualOdometry {
 		alg.getBundleViso().bundle.setSba(FactoryMultiView.bundleSparseMetric(configVO.bundle));
 		alg.getBundleViso().bundle.configConverge.setTo(configVO.bundleConverge);
 		alg.setDescribeRadius(hack.stereoRadius);
+		alg.setPipelined(hack.pipelined);
 		alg.setFrameManager(keyframe);
 		alg.setThresholdRetireTracks(configVO.dropOutlierTracks);
 		alg.getBundleViso().getSelectTracks().maxFeaturesPerFrame = configVO.bundleMaxFeaturesPerFrame;
 		alg.getBundleViso().getSelectTracks().minTrackObservations = configVO.bundleMinObservations;
+		alg.getBundleViso().maxAnchors = configVO.bundleMaxAnchors;
+
+		if (recognizer != null) {
+			if (recognizer.getDescriptorType() != descType)
+				throw new IllegalArgumentException("Recognizer's descriptor type must be the same as stereo " +
+						"association's. " + recognizer.getDescriptorType().getSimpleName() + " != " +
+						descType.getSimpleName());
+			alg.setLoopClosure(loopClosure(hack.loopClosure,
+					(FeatureSceneRecognition<Desc>)recognizer, descriptor::createDescription));
+		}
 
 		return new WrapVisOdomDualTrackPnP<>(alg, sharedLeftToRight, distanceLeft, distanceRight, distanceStereo,
 				associateL2R, refinePnP, imageType);
 	}
 
+	/**
+	 * Creates {@link VisOdomLoopClosure}, which finds loops between key frames in visual odometry.
+	 *
+	 * @param config (Optional) Configuration
+	 * @param recognizer Recognition database used to find candidate key frames. Its model must already be learned.
+	 * @param factoryDescription Creates new instances of the feature descriptor
+	 * @return The new instance
+	 */
+	public static <TD extends TupleDesc<TD>>
+	VisOdomLoopClosure<TD> loopClosure( @Nullable ConfigVisOdomLoopClosure config,
+										FeatureSceneRecognition<TD> recognizer,
+										BoofLambdas.Factory<TD> factoryDescription ) {
+		if (config == null)
+			config = new ConfigVisOdomLoopClosure();
+		config.checkValidity();
+
+		ScoreAssociation<TD> scorer = FactoryAssociation.defaultScore(recognizer.getDescriptorType());
+		AssociateDescription<TD> associate = FactoryAssociation.greedy(config.associate, scorer);
+		ModelMatcherMultiview<Se3_F64, Point2D3D> estimatePose =
+				FactoryMultiViewRobust.pnpRansac(config.pnp, config.ransac);
+
+		var alg = new VisOdomLoopClosure<>(recognizer, associate, estimatePose, factoryDescription);
+		alg.minimumFrameSeparation = config.minimumFrameSeparation;
+		alg.limitQuery = config.limitQuery;
+		alg.minimumInliers = config.minimumInliers;
+		alg.minimumInlierFraction = config.minimumInlierFraction;
+		alg.maxFeaturesPerFrame = config.maxFeaturesPerFrame;
+		alg.maxPendingFrames = config.maxPendingFrames;
+		alg.setBackground(config.background);
+		return alg;
+	}
+
 	/**
 	 * Creates a stereo visual odometry algorithm that uses the two most recent frames (4 images total) to estimate
 	 * motion.
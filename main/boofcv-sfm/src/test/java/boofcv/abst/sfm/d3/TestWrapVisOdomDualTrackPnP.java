@@ -18,15 +18,32 @@
 
 package boofcv.abst.sfm.d3;
 
+import boofcv.abst.scene.FeatureSceneRecognition;
+import boofcv.abst.scene.SceneRecognition;
 import boofcv.factory.feature.describe.ConfigDescribeRegion;
 import boofcv.factory.feature.detect.interest.ConfigDetectInterestPoint;
 import boofcv.factory.sfm.ConfigStereoDualTrackPnP;
 import boofcv.factory.sfm.FactoryVisualOdometry;
 import boofcv.factory.tracker.ConfigPointTracker;
+import boofcv.misc.BoofLambdas;
+import boofcv.struct.feature.TupleDesc_B;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.pyramid.ConfigDiscreteLevels;
 import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_I32;
+import org.jetbrains.annotations.Nullable;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author Peter Abeles
@@ -62,6 +79,109 @@ public class TestWrapVisOdomDualTrackPnP extends BoofStandardJUnit {
 		}
 	}
 
+	/**
+	 * Bundle adjustment is run in a background thread
+	 */
+	@Nested
+	public class TrackerKltPipelined extends CheckVisualOdometryStereoSim<GrayF32> {
+
+		public TrackerKltPipelined() {
+			super(GrayF32.class);
+		}
+
+		@Override
+		void singleBadFrame() {
+			// skip this since KLT can't recover from bad frames since it overwrites the result
+		}
+
+		@Override
+		public StereoVisualOdometry<GrayF32> createAlgorithm() {
+
+			var config = new ConfigStereoDualTrackPnP();
+
+			config.pipelined = true;
+			config.scene.ransac.iterations = 200;
+			config.scene.ransac.inlierThreshold = 1.5;
+
+			config.tracker.typeTracker = ConfigPointTracker.TrackerType.KLT;
+			config.tracker.klt.pyramidLevels = ConfigDiscreteLevels.levels(4);
+			config.tracker.klt.templateRadius = 3;
+			config.tracker.detDesc.detectPoint.shiTomasi.radius = 3;
+			config.tracker.detDesc.detectPoint.general.radius = 3;
+
+			return FactoryVisualOdometry.stereoDualTrackerPnP(config, GrayF32.class);
+		}
+	}
+
+	/**
+	 * Loop closure is turned on. Makes sure it doesn't break VO and that key frames are passed to it
+	 */
+	@Nested
+	public class TrackerKltLoopClosure extends CheckVisualOdometryStereoSim<GrayF32> {
+		RecordRecognition recognizer = new RecordRecognition();
+
+		public TrackerKltLoopClosure() {
+			super(GrayF32.class);
+		}
+
+		@Override
+		void singleBadFrame() {
+			// skip this since KLT can't recover from bad frames since it overwrites the result
+		}
+
+		@Override
+		public StereoVisualOdometry<GrayF32> createAlgorithm() {
+			var config = new ConfigStereoDualTrackPnP();
+
+			config.scene.ransac.iterations = 200;
+			config.scene.ransac.inlierThreshold = 1.5;
+
+			config.tracker.typeTracker = ConfigPointTracker.TrackerType.KLT;
+			config.tracker.klt.pyramidLevels = ConfigDiscreteLevels.levels(4);
+			config.tracker.klt.templateRadius = 3;
+			config.tracker.detDesc.detectPoint.shiTomasi.radius = 3;
+			config.tracker.detDesc.detectPoint.general.radius = 3;
+
+			// Process key frames immediately so that the results can be inspected
+			config.loopClosure.background = false;
+
+			recognizer = new RecordRecognition();
+			return FactoryVisualOdometry.stereoDualTrackerPnP(config, recognizer, GrayF32.class);
+		}
+
+		@Test
+		void keyFramesPassedToLoopClosure() {
+			var alg = (WrapVisOdomDualTrackPnP<GrayF32>)createAlgorithm();
+			alg.setCalibration(param);
+			assertNotNull(alg.getLoopClosure());
+
+			var worldToLeft = new Se3_F64();
+			var worldToRight = new Se3_F64();
+			Se3_F64 leftToRight = param.getRightToLeft().invert(null);
+
+			for (int i = 0; i < 5; i++) {
+				worldToLeft.getT().z = i*0.05;
+				worldToLeft.concat(leftToRight, worldToRight);
+
+				setIntrinsic(param.getLeft());
+				left.setTo(render(worldToLeft));
+				setIntrinsic(param.getRight());
+				right.setTo(render(worldToRight));
+
+				assertTrue(alg.process(left, right));
+			}
+
+			// The first frame is always a key frame. Every key frame should have features with known 3D locations
+			assertTrue(recognizer.ids.size() >= 1);
+			assertEquals(Long.toString(alg.getFrameID() - 4), recognizer.ids.get(0));
+			for (int i = 0; i < recognizer.ids.size(); i++) {
+				assertTrue(recognizer.sizes.get(i) > 0);
+			}
+
+			alg.shutdown();
+		}
+	}
+
 	@Nested
 	public class TrackerDDA extends CheckVisualOdometryStereoSim<GrayF32> {
 
@@ -90,4 +210,46 @@ public class TestWrapVisOdomDualTrackPnP extends BoofStandardJUnit {
 			return FactoryVisualOdometry.stereoDualTrackerPnP(config, GrayF32.class);
 		}
 	}
+
+	/**
+	 * Records which key frames were added to the database. Queries never find a match.
+	 */
+	static class RecordRecognition implements FeatureSceneRecognition<TupleDesc_B> {
+		List<String> ids = new ArrayList<>();
+		List<Integer> sizes = new ArrayList<>();
+
+		@Override public void learnModel( Iterator<Features<TupleDesc_B>> images ) {}
+
+		@Override public void clearDatabase() {
+			ids.clear();
+			sizes.clear();
+		}
+
+		@Override public void addImage( String id, Features<TupleDesc_B> features ) {
+			ids.add(id);
+			sizes.add(features.size());
+		}
+
+		@Override public List<String> getImageIds( @Nullable List<String> storage ) {return new ArrayList<>(ids);}
+
+		@Override public boolean query( Features<TupleDesc_B> query, @Nullable BoofLambdas.Filter<String> filter,
+										int limit, DogArray<SceneRecognition.Match> matches ) {
+			matches.reset();
+			return false;
+		}
+
+		@Override public int getQueryWord( int featureIdx ) {return -1;}
+
+		@Override public void getQueryWords( int featureIdx, DogArray_I32 words ) {}
+
+		@Override public int lookupWord( TupleDesc_B description ) {return -1;}
+
+		@Override public void lookupWords( TupleDesc_B description, DogArray_I32 word ) {}
+
+		@Override public int getTotalWords() {return 0;}
+
+		@Override public Class<TupleDesc_B> getDescriptorType() {return TupleDesc_B.class;}
+
+		@Override public void setVerbose( @Nullable PrintStream out, @Nullable Set<String> configuration ) {}
+	}
 }
@@ -18,11 +18,13 @@
 
 package boofcv.alg.mvs;
 
+import boofcv.abst.disparity.StereoDisparity;
 import boofcv.abst.geo.bundle.SceneStructureMetric;
 import boofcv.alg.geo.bundle.BundleAdjustmentOps;
 import boofcv.alg.geo.bundle.cameras.BundlePinhole;
 import boofcv.alg.misc.ImageMiscOps;
 import boofcv.alg.mvs.MultiViewStereoFromKnownSceneStructure.ViewInfo;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.GConvertImage;
 import boofcv.factory.disparity.ConfigDisparityBM;
 import boofcv.factory.disparity.DisparityError;
@@ -36,6 +38,7 @@ import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.ImageDimension;
 import boofcv.struct.image.ImageType;
+import boofcv.struct.packed.PackedBigArrayPoint3D_F64;
 import boofcv.testing.BoofStandardJUnit;
 import boofcv.visualize.PointCloudViewer;
 import boofcv.visualize.TwoAxisRgbPlane;
@@ -127,6 +130,46 @@ public class TestMultiViewStereoFromKnownSceneStructure extends BoofStandardJUni
 		assertEquals(3, alg.getDisparityCloud().viewPointIdx.size);
 	}
 
+	/**
+	 * Process multiple centers at the same time. Results should be identical to processing them one at a time
+	 */
+	@Test void concurrentCenters() {
+		BoofConcurrency.USE_CONCURRENT = true;
+		createScene(4);
+
+		// Two clusters so that there are two centers
+		prunePairs(pairs.vertexes.get("id=0").pairs, 0, 1);
+		prunePairs(pairs.vertexes.get("id=1").pairs, 0, 1);
+		prunePairs(pairs.vertexes.get("id=2").pairs, 2, 3);
+		prunePairs(pairs.vertexes.get("id=3").pairs, 2, 3);
+
+		MultiViewStereoFromKnownSceneStructure<GrayF32> expected = createAlg();
+		expected.process(scene, pairs);
+
+		MultiViewStereoFromKnownSceneStructure<GrayF32> alg = createAlg();
+		alg.maxConcurrentCenters = 2;
+		alg.setComputeFusedFactory(() -> {
+			var fused = new MultiBaselineStereoIndependent<>(ImageType.SB_F32);
+			fused.setStereoDisparity(createDisparity());
+			return fused;
+		});
+		alg.process(scene, pairs);
+		assertEquals(2, alg.workers.size());
+
+		assertEquals(2, alg.getListCenters().size());
+		for (int i = 0; i < 2; i++) {
+			assertSame(expected.getListCenters().get(i).relations, alg.getListCenters().get(i).relations);
+		}
+
+		PackedBigArrayPoint3D_F64 cloudA = expected.getCloud();
+		PackedBigArrayPoint3D_F64 cloudB = alg.getCloud();
+		assertTrue(cloudA.size() > 0);
+		assertEquals(cloudA.size(), cloudB.size());
+		for (int i = 0; i < cloudA.size(); i++) {
+			assertEquals(0.0, cloudA.getTemp(i).distance(cloudB.getTemp(i)));
+		}
+	}
+
 	void prunePairs( List<StereoPairGraph.Edge> pairs , int keep0 , int keep1 ) {
 		for (int i = pairs.size()-1; i >= 0; i--) {
 			StereoPairGraph.Edge e = pairs.get(i);
@@ -193,7 +236,6 @@ public class TestMultiViewStereoFromKnownSceneStructure extends BoofStandardJUni
 		// All views are connected to each other. Every view but the "center" should be added here
 		alg.selectAndLoadConnectedImages(pairs, pairs.vertexes.get("id=" + 0));
 
-		assertEquals(2, alg.indexSbaToViewID.size());
 		assertEquals(2, alg.imagePairIndexesSba.size);
 		assertEquals(3, dummy.requestShapes.size());
 		assertEquals(0, dummy.requestImage.size());
@@ -202,7 +244,6 @@ public class TestMultiViewStereoFromKnownSceneStructure extends BoofStandardJUni
 		pairs.vertexes.get("id=" + 0).pairs.get(0).quality3D = 0;
 		alg.selectAndLoadConnectedImages(pairs, pairs.vertexes.get("id=" + 0));
 
-		assertEquals(1, alg.indexSbaToViewID.size());
 		assertEquals(1, alg.imagePairIndexesSba.size);
 
 		// See if the correct two views were added
@@ -281,7 +322,7 @@ public class TestMultiViewStereoFromKnownSceneStructure extends BoofStandardJUni
 		PointCloudViewer pcv = VisualizeData.createPointCloudViewer();
 		pcv.setCameraHFov(UtilAngle.radian(90));
 		pcv.setTranslationStep(0.2);
-		pcv.addCloud(alg.getCloud());
+		pcv.addCloud(alg.getCloud()::getCopy, null, alg.getCloud().size());
 		pcv.setColorizer(new TwoAxisRgbPlane.Z_XY(1.0).fperiod(1.0));
 		JComponent component = pcv.getComponent();
 		component.setPreferredSize(new Dimension(400, 400));
@@ -292,7 +333,7 @@ public class TestMultiViewStereoFromKnownSceneStructure extends BoofStandardJUni
 	 * Checks to see if the point cloud is as expected. A 2D square planar object at a known distance and size. This
 	 * takes in account noise
 	 */
-	private void checkCloudPlane( List<Point3D_F64> cloud ) {
+	private void checkCloudPlane( PackedBigArrayPoint3D_F64 cloud ) {
 		assertTrue(cloud.size() > 100);
 
 		DogArray_F64 arrayZ = new DogArray_F64();
@@ -302,7 +343,7 @@ public class TestMultiViewStereoFromKnownSceneStructure extends BoofStandardJUni
 		double x0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE;
 		double y0 = Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
 		for (int i = 0; i < cloud.size(); i++) {
-			Point3D_F64 p = cloud.get(i);
+			Point3D_F64 p = cloud.getTemp(i);
 			double z = p.z;
 			if (UtilEjml.isUncountable(z)) // skip points at infinity
 				continue;
@@ -335,7 +376,11 @@ public class TestMultiViewStereoFromKnownSceneStructure extends BoofStandardJUni
 	private MultiViewStereoFromKnownSceneStructure<GrayF32> createAlg() {
 
 		var alg = new MultiViewStereoFromKnownSceneStructure<>(new SimulatedLookUp(), ImageType.SB_F32);
+		alg.setStereoDisparity(createDisparity());
+		return alg;
+	}
 
+	private StereoDisparity<GrayF32, GrayF32> createDisparity() {
 		// It would be very difficult to mock the disparity for each view so we just use real disparity
 		var configDisp = new ConfigDisparityBM();
 		configDisp.errorType = DisparityError.CENSUS;
@@ -347,9 +392,7 @@ public class TestMultiViewStereoFromKnownSceneStructure extends BoofStandardJUni
 		configDisp.regionRadiusX = 3;
 		configDisp.regionRadiusY = 3;
 		configDisp.border = BorderType.EXTENDED;
-		alg.setStereoDisparity(FactoryStereoDisparity.blockMatch(configDisp, GrayF32.class, GrayF32.class));
-
-		return alg;
+		return FactoryStereoDisparity.blockMatch(configDisp, GrayF32.class, GrayF32.class);
 	}
 
 	private class DummyLookUp implements LookUpImages {
@@ -388,7 +431,8 @@ public class TestMultiViewStereoFromKnownSceneStructure extends BoofStandardJUni
 			return true;
 		}
 
-		@Override public <LT extends ImageBase<LT>> boolean loadImage( String name, LT output ) {
+		// Synchronized since the simulator can only render one image at a time
+		@Override public synchronized <LT extends ImageBase<LT>> boolean loadImage( String name, LT output ) {
 			int indexSba = Integer.parseInt(name.substring(3));
 			var pinhole = new CameraPinhole();
 			BundleAdjustmentOps.convert((BundlePinhole)scene.cameras.get(indexSba).model, 0, 0, pinhole);
@@ -19,6 +19,7 @@
 package boofcv.alg.mvs;
 
 import boofcv.struct.geo.PointIndex2D_F64;
+import boofcv.struct.packed.PackedArrayPoint2D_F64;
 import boofcv.testing.BoofStandardJUnit;
 import georegression.struct.point.Point2D_F64;
 import org.ejml.UtilEjml;
@@ -50,4 +51,22 @@ public class TestPointIndexToPointIterator extends BoofStandardJUnit {
 
 		assertFalse(alg.hasNext());
 	}
+
+	@Test void packed() {
+		var array = new PackedArrayPoint2D_F64();
+		array.append(new Point2D_F64(1.0, 2.0));
+		array.append(new Point2D_F64(2.0, 2.0));
+		array.append(new Point2D_F64(3.0, 2.0));
+
+		var alg = new PointToIndexIterator<>(array, 1, 3, new PointIndex2D_F64());
+
+		for (int i = 1; i < array.size(); i++) {
+			assertTrue(alg.hasNext());
+			PointIndex2D_F64 found = alg.next();
+			assertEquals(i, found.index);
+			assertEquals(0.0, array.getTemp(i).distance(found.p), UtilEjml.TEST_F64);
+		}
+
+		assertFalse(alg.hasNext());
+	}
 }
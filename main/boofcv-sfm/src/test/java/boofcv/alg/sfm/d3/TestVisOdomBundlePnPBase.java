@@ -20,6 +20,7 @@ package boofcv.alg.sfm.d3;
 
 import boofcv.abst.geo.TriangulateNViewsMetric;
 import boofcv.abst.tracker.PointTrack;
+import boofcv.alg.geo.triangulate.TriangulateBatchNViewsMetric;
 import boofcv.alg.sfm.d3.structure.VisOdomBundleAdjustment;
 import boofcv.alg.sfm.d3.structure.VisOdomBundleAdjustment.BFrame;
 import boofcv.alg.sfm.d3.structure.VisOdomBundleAdjustment.BTrack;
@@ -32,10 +33,10 @@ import georegression.struct.se.Se3_F64;
 import org.ddogleg.struct.DogArray_I32;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author Peter Abeles
@@ -66,7 +67,7 @@ class TestVisOdomBundlePnPBase extends BoofStandardJUnit {
 		var mock = new MockTriangulate();
 		var alg = new BundleBase();
 		alg.bundleViso.addCamera(pinhole);
-		alg.triangulateN = mock;
+		alg.triangulateBatch = new TriangulateBatchNViewsMetric(() -> mock);
 
 		VisOdomBundlePnPBase.CameraModel cmodel = new VisOdomBundlePnPBase.CameraModel();
 		cmodel.pixelToNorm = LensDistortionFactory.narrow(pinhole).undistort_F64(true, false);
@@ -221,6 +222,85 @@ class TestVisOdomBundlePnPBase extends BoofStandardJUnit {
 		assertEquals(6, alg.bundleViso.tracks.size);
 	}
 
+	/**
+	 * When pipelined, the listener should be given the refined pose only once bundle adjustment has finished
+	 */
+	@Test
+	void pipelined_listener() {
+		var alg = new BundleBase() {
+			@Override
+			protected void optimizeTheScene() {
+				// Simulate bundle adjustment refining the pose of the most recent frame
+				bundleViso.frames.getTail().frame_to_world.T.setTo(2, 0, 0);
+			}
+		};
+		alg.bundleViso.addCamera(pinhole);
+
+		List<Long> foundIDs = new ArrayList<>();
+		List<Se3_F64> foundPoses = new ArrayList<>();
+		alg.setListener(( frameID, frame_to_world ) -> {
+			foundIDs.add(frameID);
+			foundPoses.add(frame_to_world.copy());
+		});
+		alg.setPipelined(true);
+
+		try {
+			// Pose from PnP prior to bundle adjustment
+			BFrame frame = alg.bundleViso.addFrame(5);
+			alg.current_to_world.T.setTo(1, 0, 0);
+			alg.startBundleAdjustment(5, frame);
+
+			alg.finishBundleAdjustment();
+			assertEquals(1, foundIDs.size());
+			assertEquals(5L, foundIDs.get(0));
+			assertEquals(2.0, foundPoses.get(0).T.x, 1e-8);
+			assertEquals(2.0, alg.current_to_world.T.x, 1e-8);
+			assertTrue(alg.getTimeBackgroundBundle() > 0.0);
+
+			// Nothing is pending so the listener should not be called again
+			alg.finishBundleAdjustment();
+			assertEquals(1, foundIDs.size());
+			assertEquals(0.0, alg.getTimeBackgroundBundle());
+			assertEquals(0.0, alg.getTimeBackgroundDropUnused());
+
+			// If the frame was dropped from the scene then the estimate prior to bundle adjustment is used
+			alg.current_to_world.T.setTo(3, 0, 0);
+			alg.startBundleAdjustment(6, null);
+			alg.finishBundleAdjustment();
+			assertEquals(2, foundIDs.size());
+			assertEquals(6L, foundIDs.get(1));
+			assertEquals(3.0, foundPoses.get(1).T.x, 1e-8);
+		} finally {
+			alg.shutdown();
+		}
+	}
+
+	/**
+	 * Shutting down should apply the pending bundle adjustment and stop the background thread
+	 */
+	@Test
+	void shutdown() {
+		var alg = new BundleBase();
+		alg.bundleViso.addCamera(pinhole);
+
+		List<Long> foundIDs = new ArrayList<>();
+		alg.setListener(( frameID, frame_to_world ) -> foundIDs.add(frameID));
+		alg.setPipelined(true);
+
+		BFrame frame = alg.bundleViso.addFrame(2);
+		alg.startBundleAdjustment(2, frame);
+		alg.shutdown();
+
+		assertEquals(1, foundIDs.size());
+		assertFalse(alg.isPipelined());
+		assertNull(alg.bundleExecutor);
+		assertNull(alg.pendingBundle);
+
+		// Calling it again should do nothing
+		alg.shutdown();
+		assertEquals(1, foundIDs.size());
+	}
+
 	static class BundleBase extends VisOdomBundlePnPBase<BTrack> {
 		public long frameID = 0;
 		public int countDropVisual = 0;
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.alg.sfm.d3;
+
+import boofcv.abst.feature.associate.ScoreAssociateEuclideanSq;
+import boofcv.abst.scene.FeatureSceneRecognition;
+import boofcv.abst.scene.SceneRecognition;
+import boofcv.abst.tracker.PointTrack;
+import boofcv.factory.feature.associate.ConfigAssociateGreedy;
+import boofcv.factory.feature.associate.FactoryAssociation;
+import boofcv.factory.geo.ConfigRansac;
+import boofcv.factory.geo.FactoryMultiViewRobust;
+import boofcv.misc.BoofLambdas;
+import boofcv.struct.distort.DoNothing2Transform2_F64;
+import boofcv.struct.feature.TupleDesc_F64;
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.point.Point3D_F64;
+import georegression.struct.se.Se3_F64;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import georegression.transform.se.SePointOps_F64;
+import org.ddogleg.struct.DogArray;
+import org.ddogleg.struct.DogArray_I32;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestVisOdomLoopClosure extends BoofStandardJUnit {
+
+	// 3D location of features in the world and their descriptions
+	List<Point3D_F64> cloud = new ArrayList<>();
+	List<TupleDesc_F64> descriptions = new ArrayList<>();
+
+	@BeforeEach void createScene() {
+		for (int i = 0; i < 200; i++) {
+			cloud.add(new Point3D_F64(rand.nextGaussian(), rand.nextGaussian(), 4.0 + rand.nextGaussian()*0.2));
+			var desc = new TupleDesc_F64(8);
+			for (int j = 0; j < desc.size(); j++) {
+				desc.data[j] = rand.nextDouble();
+			}
+			descriptions.add(desc);
+		}
+	}
+
+	/**
+	 * Key frames which view the same features. Only the ones far enough apart in time should form loops
+	 */
+	@Test void findLoops() {
+		VisOdomLoopClosure<TupleDesc_F64> alg = createAlg();
+
+		Se3_F64 world_to_b = SpecialEuclideanOps_F64.eulerXyz(0.1, -0.05, 0.02, 0.02, -0.05, 0.01, null);
+
+		addKeyFrame(alg, 0, new Se3_F64());
+		addKeyFrame(alg, 20, new Se3_F64());
+		var found = new ArrayList<VisOdomLoopClosure.LoopConstraint>();
+		assertEquals(0, alg.takeConstraints(found));
+
+		addKeyFrame(alg, 100, world_to_b);
+		assertEquals(2, alg.takeConstraints(found));
+
+		for (VisOdomLoopClosure.LoopConstraint loop : found) {
+			assertEquals(100, loop.frameB);
+			assertTrue(loop.frameA == 0 || loop.frameA == 20);
+			assertTrue(loop.inliers >= 190);
+			assertEquals(0.0, loop.a_to_b.T.distance(world_to_b.T), 1e-4);
+		}
+
+		// They should have been removed
+		assertEquals(0, alg.takeConstraints(found));
+	}
+
+	/**
+	 * Processing in the background should produce the same results
+	 */
+	@Test void background() {
+		VisOdomLoopClosure<TupleDesc_F64> alg = createAlg();
+		alg.maxPendingFrames = 10;
+		alg.setBackground(true);
+
+		Se3_F64 world_to_b = SpecialEuclideanOps_F64.eulerXyz(0.1, -0.05, 0.02, 0.02, -0.05, 0.01, null);
+
+		assertTrue(addKeyFrame(alg, 0, new Se3_F64()));
+		assertTrue(addKeyFrame(alg, 20, new Se3_F64()));
+		assertTrue(addKeyFrame(alg, 100, world_to_b));
+		alg.finish();
+
+		var found = new ArrayList<VisOdomLoopClosure.LoopConstraint>();
+		assertEquals(2, alg.takeConstraints(found));
+		assertEquals(0, alg.getTotalSkipped());
+
+		alg.shutdown();
+	}
+
+	/**
+	 * Shutting down should process pending key frames and stop the thread
+	 */
+	@Test void shutdown() {
+		VisOdomLoopClosure<TupleDesc_F64> alg = createAlg();
+		alg.maxPendingFrames = 10;
+		alg.setBackground(true);
+
+		assertTrue(addKeyFrame(alg, 0, new Se3_F64()));
+		assertTrue(addKeyFrame(alg, 100, new Se3_F64()));
+		alg.shutdown();
+
+		assertFalse(alg.isBackground());
+		assertNull(alg.executor);
+		assertTrue(alg.pending.isEmpty());
+		assertEquals(2, alg.keyFrames.size());
+
+		// Calling it again should do nothing
+		alg.shutdown();
+	}
+
+	/**
+	 * If too many key frames are pending then new ones should be skipped
+	 */
+	@Test void skipWhenBehind() {
+		VisOdomLoopClosure<TupleDesc_F64> alg = createAlg();
+		alg.maxPendingFrames = 0;
+		alg.setBackground(true);
+
+		assertFalse(addKeyFrame(alg, 0, new Se3_F64()));
+		assertFalse(addKeyFrame(alg, 100, new Se3_F64()));
+		alg.finish();
+
+		assertEquals(2, alg.getTotalSkipped());
+		assertEquals(0, alg.keyFrames.size());
+
+		alg.shutdown();
+	}
+
+	/**
+	 * Only the specified number of features should be saved
+	 */
+	@Test void maxFeaturesPerFrame() {
+		VisOdomLoopClosure<TupleDesc_F64> alg = createAlg();
+		alg.maxFeaturesPerFrame = 50;
+
+		addKeyFrame(alg, 0, new Se3_F64());
+		VisOdomLoopClosure.KeyFrame<TupleDesc_F64> frame = alg.keyFrames.get("0");
+		assertEquals(50, frame.size());
+		// features should be sampled across the entire list
+		assertArrayEquals(descriptions.get(196).data, frame.getDescription(49).data);
+	}
+
+	/**
+	 * Makes sure it can get the description out of a DDA track
+	 */
+	@Test void trackDescription() {
+		var track = new PointTrack();
+		assertNull(VisOdomLoopClosure.<TupleDesc_F64>trackDescription(track));
+		var desc = new TupleDesc_F64(2);
+		track.setDescription(desc);
+		assertSame(desc, VisOdomLoopClosure.<TupleDesc_F64>trackDescription(track));
+	}
+
+	private VisOdomLoopClosure<TupleDesc_F64> createAlg() {
+		var alg = new VisOdomLoopClosure<>(new DummyRecognition(),
+				FactoryAssociation.greedy(new ConfigAssociateGreedy(true), new ScoreAssociateEuclideanSq.F64()),
+				FactoryMultiViewRobust.pnpRansac(null, new ConfigRansac(100, 1e-3)),
+				() -> new TupleDesc_F64(8));
+		alg.setPixelToNorm(new DoNothing2Transform2_F64());
+		return alg;
+	}
+
+	/**
+	 * Observes every feature in the cloud from the specified view. Observations are in normalized image
+	 * coordinates and the 3D location of each track is in the world frame
+	 */
+	private boolean addKeyFrame( VisOdomLoopClosure<TupleDesc_F64> alg, long frameID, Se3_F64 world_to_view ) {
+		List<PointTrack> tracks = new ArrayList<>();
+		var X = new Point3D_F64();
+		for (int i = 0; i < cloud.size(); i++) {
+			SePointOps_F64.transform(world_to_view, cloud.get(i), X);
+			var track = new PointTrack(X.x/X.z, X.y/X.z, i);
+			track.setDescription(descriptions.get(i));
+			track.cookie = cloud.get(i);
+			tracks.add(track);
+		}
+
+		return alg.addKeyFrame(frameID, tracks, VisOdomLoopClosure::trackDescription, ( track, location ) -> {
+			location.setTo(track.<Point3D_F64>getCookie());
+			return true;
+		});
+	}
+
+	/**
+	 * Returns every image in the database, newest first
+	 */
+	private static class DummyRecognition implements FeatureSceneRecognition<TupleDesc_F64> {
+		List<String> ids = new ArrayList<>();
+
+		@Override public void learnModel( Iterator<Features<TupleDesc_F64>> images ) {}
+
+		@Override public void clearDatabase() {ids.clear();}
+
+		@Override public void addImage( String id, Features<TupleDesc_F64> features ) {ids.add(id);}
+
+		@Override public List<String> getImageIds( @Nullable List<String> storage ) {
+			return new ArrayList<>(ids);
+		}
+
+		@Override public boolean query( Features<TupleDesc_F64> query, @Nullable BoofLambdas.Filter<String> filter,
+										int limit, DogArray<SceneRecognition.Match> matches ) {
+			matches.reset();
+			for (int i = ids.size() - 1; i >= 0; i--) {
+				if (limit > 0 && matches.size >= limit)
+					break;
+				if (filter != null && !filter.keep(ids.get(i)))
+					continue;
+				matches.grow().id = ids.get(i);
+			}
+			return matches.size > 0;
+		}
+
+		@Override public int getQueryWord( int featureIdx ) {return -1;}
+
+		@Override public void getQueryWords( int featureIdx, DogArray_I32 words ) {}
+
+		@Override public int lookupWord( TupleDesc_F64 description ) {return -1;}
+
+		@Override public void lookupWords( TupleDesc_F64 description, DogArray_I32 word ) {}
+
+		@Override public int getTotalWords() {return 0;}
+
+		@Override public Class<TupleDesc_F64> getDescriptorType() {return TupleDesc_F64.class;}
+
+		@Override public void setVerbose( @Nullable PrintStream out, @Nullable Set<String> configuration ) {}
+	}
+}
@@ -188,6 +188,130 @@ class TestVisOdomBundleAdjustment extends BoofStandardJUnit {
 		assertTrue(alg.tracks.contains(trackC));
 	}
 
+	@Test
+	void anchorFrame() {
+		VisOdomBundleAdjustment<BTrack> alg = createAlgSingleCamera();
+		alg.maxAnchors = 2;
+
+		BFrame frameA = alg.addFrame(0);
+		BFrame frameB = alg.addFrame(1);
+		frameA.frame_to_world.T.x = 2;
+
+		BTrack trackA = alg.addTrack(1, 2, 3, 4);
+		BTrack trackB = alg.addTrack(1, 2, 3, 4);
+		BTrack trackC = alg.addTrack(1, 2, 3, 4);
+
+		alg.addObservation(frameA, trackA, 1, 2);
+		alg.addObservation(frameA, trackC, 1, 3);
+		alg.addObservation(frameB, trackB, 1, 4);
+		alg.addObservation(frameB, trackC, 1, 5);
+
+		alg.anchorFrame(frameA, new ArrayList<>());
+
+		// Should be removed from the scene just like removeFrame()
+		assertEquals(1, alg.frames.size);
+		assertEquals(2, alg.tracks.size);
+		assertSame(frameB, alg.frames.get(0));
+		assertTrue(alg.tracks.contains(trackB));
+		assertTrue(alg.tracks.contains(trackC));
+
+		// Only the observation of the track which remains is saved
+		assertEquals(1, alg.anchors.size);
+		BFrame anchor = alg.anchors.get(0);
+		assertEquals(0, anchor.id);
+		assertEquals(2.0, anchor.frame_to_world.T.x, UtilEjml.TEST_F64);
+		assertEquals(1, anchor.tracks.size);
+		assertEquals(0, trackB.anchorObservations.size);
+		assertEquals(1, trackC.anchorObservations.size);
+		assertSame(anchor, trackC.anchorObservations.get(0).frame);
+		assertEquals(0.0, trackC.anchorObservations.get(0).pixel.distance(1, 3), UtilEjml.TEST_F64);
+		assertEquals(2, trackC.totalObservations());
+	}
+
+	/**
+	 * When the limit is exceeded the oldest anchor frame should be discarded
+	 */
+	@Test
+	void anchorFrame_limit() {
+		VisOdomBundleAdjustment<BTrack> alg = createAlgSingleCamera();
+		alg.maxAnchors = 1;
+
+		BFrame frameA = alg.addFrame(0);
+		BFrame frameB = alg.addFrame(1);
+		BFrame frameC = alg.addFrame(2);
+
+		BTrack track = alg.addTrack(1, 2, 3, 4);
+		alg.addObservation(frameA, track, 1, 2);
+		alg.addObservation(frameB, track, 1, 3);
+		alg.addObservation(frameC, track, 1, 4);
+
+		alg.anchorFrame(frameA, new ArrayList<>());
+		alg.anchorFrame(frameB, new ArrayList<>());
+
+		assertEquals(1, alg.frames.size);
+		assertEquals(1, alg.anchors.size);
+		assertEquals(1, alg.anchors.get(0).id);
+		assertEquals(1, track.anchorObservations.size);
+		assertEquals(0.0, track.anchorObservations.get(0).pixel.distance(1, 3), UtilEjml.TEST_F64);
+	}
+
+	/**
+	 * If anchor frames are turned off then it should behave like removeFrame()
+	 */
+	@Test
+	void anchorFrame_disabled() {
+		VisOdomBundleAdjustment<BTrack> alg = createAlgSingleCamera();
+
+		BFrame frameA = alg.addFrame(0);
+		BFrame frameB = alg.addFrame(1);
+		BTrack track = alg.addTrack(1, 2, 3, 4);
+		alg.addObservation(frameA, track, 1, 2);
+		alg.addObservation(frameB, track, 1, 3);
+
+		alg.anchorFrame(frameA, new ArrayList<>());
+		assertEquals(1, alg.frames.size);
+		assertEquals(0, alg.anchors.size);
+		assertEquals(0, track.anchorObservations.size);
+	}
+
+	/**
+	 * Anchor frames should be included in the optimization as views with a fixed pose
+	 */
+	@Test
+	void optimize_anchors() {
+		VisOdomBundleAdjustment<BTrack> alg = createAlgSingleCamera();
+		createPerfectScene(alg);
+		alg.maxAnchors = 2;
+		int totalObservations = countObservations(alg);
+
+		alg.anchorFrame(alg.frames.get(0), new ArrayList<>());
+		alg.anchorFrame(alg.frames.get(0), new ArrayList<>());
+		assertEquals(3, alg.frames.size);
+		assertEquals(2, alg.anchors.size);
+
+		// add noise to the remaining views, but not the first one since it's fixed
+		for (int i = 1; i < alg.frames.size; i++) {
+			alg.frames.get(i).frame_to_world.T.x += 0.01;
+		}
+
+		alg.selectTracks.maxFeaturesPerFrame = 0;
+		alg.selectTracks.minTrackObservations = 2;
+		alg.bundle.configConverge.setTo(1e-6, 1e-6, 10);
+		alg.optimize(null);
+		assertEquals(0.0, alg.bundle.sba.getFitScore(), 1e-4);
+		assertEquals(5, alg.bundle.getStructure().views.size);
+		// Observations of tracks which are still in the scene are not lost
+		assertTrue(alg.bundle.getObservations().getObservationCount() > totalObservations/2);
+	}
+
+	private int countObservations( VisOdomBundleAdjustment<BTrack> alg ) {
+		int total = 0;
+		for (int i = 0; i < alg.tracks.size; i++) {
+			total += alg.tracks.get(i).totalObservations();
+		}
+		return total;
+	}
+
 	@Test
 	void getFirstFrame() {
 		VisOdomBundleAdjustment<BTrack> alg = createAlgSingleCamera();
@@ -21,7 +21,10 @@ package boofcv.misc;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.ImageDimension;
 
-/** Used to look up images as needed for disparity calculation. */
+/**
+ * Used to look up images as needed for disparity calculation. If the images are used by a concurrent algorithm
+ * then the implementation must be thread safe.
+ */
 public interface LookUpImages {
 	/**
 	 * Loads the shape for an image
@@ -40,4 +43,12 @@ public interface LookUpImages {
 	 * @return true if the image was found or false if not
 	 */
 	<LT extends ImageBase<LT>> boolean loadImage( String name, LT output );
+
+	/**
+	 * Hint that the image will be requested soon. Implementations which load images from slow storage can use
+	 * this to start loading the image in the background. By default nothing is done.
+	 *
+	 * @param name (Input) Name of the image
+	 */
+	default void prefetch( String name ) {}
 }
@@ -53,6 +53,16 @@ public class PackedArrayPoint3D_F64 implements PackedArray<Point3D_F64> {
 		array.reserve(numTuples*2);
 	}
 
+	/**
+	 * Changes the number of elements in the array. The value of new elements is undefined.
+	 *
+	 * @param numTuples The new number of elements
+	 */
+	public void resize( int numTuples ) {
+		array.resize(numTuples*3);
+		numElements = numTuples;
+	}
+
 	@Override public void append( Point3D_F64 element ) {
 		array.add(element.x);
 		array.add(element.y);
@@ -91,6 +91,48 @@ public class PackedBigArrayPoint3D_F64 implements PackedArray<Point3D_F64> {
 		size++;
 	}
 
+	/**
+	 * Changes the value of an existing point
+	 */
+	public void set( int index, double x, double y, double z ) {
+		index *= DOF;
+		double[] block = dog.getBlocks().get(index/dog.getBlockSize());
+		int element = index%dog.getBlockSize();
+		block[element] = x;
+		block[element + 1] = y;
+		block[element + 2] = z;
+	}
+
+	/**
+	 * Appends points which are stored in an interleaved array, (x,y,z), to the end of this array in a single copy.
+	 *
+	 * @param xyz (Input) Interleaved coordinates of the points
+	 * @param offset Index of the first point in xyz that is copied
+	 * @param count Number of points that are copied
+	 */
+	public void append( double[] xyz, int offset, int count ) {
+		dog.append(xyz, offset*DOF, count*DOF);
+		size += count;
+	}
+
+	/**
+	 * Appends all the points in 'src' to the end of this array. Copies are done a block at a time.
+	 */
+	public void appendAll( PackedBigArrayPoint3D_F64 src ) {
+		src.dog.processByBlock(0, src.dog.size, ( array, idx0, idx1, offset ) -> dog.append(array, idx0, idx1 - idx0));
+		size += src.size;
+	}
+
+	/**
+	 * Changes the number of points in the array. The value of new points is undefined.
+	 *
+	 * @param numPoints The new number of points
+	 */
+	public void resize( int numPoints ) {
+		dog.resize(numPoints*DOF);
+		size = numPoints;
+	}
+
 	@Override public Point3D_F64 getTemp( int index ) {
 		index *= DOF;
 		double[] block = dog.getBlocks().get(index/dog.getBlockSize());
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.struct.packed;
+
+import georegression.struct.point.Point3D_F32;
+import georegression.struct.point.Point3D_F64;
+import org.ddogleg.struct.BigDogArray_I32;
+import org.ddogleg.struct.DogArray_B;
+
+/**
+ * <p>
+ * Point cloud which is stored in a column format. Each attribute of a point is stored in its own packed array,
+ * instead of one object per point. This greatly reduces the amount of memory required to store a large cloud
+ * and allows an entire attribute to be copied at once. Color, normals, and view index are optional. If an
+ * attribute is not enabled then its array is empty.
+ * </p>
+ *
+ * <ul>
+ *     <li>xyz: 3D location of each point</li>
+ *     <li>rgb: Color of each point encoded as 0xRRGGBB</li>
+ *     <li>normals: Surface normal of each point</li>
+ *     <li>views: Index of the view the point came from. -1 if unknown</li>
+ * </ul>
+ *
+ * @author Peter Abeles
+ */
+public class PackedPointCloud_F64 {
+	/** 3D location of each point */
+	public final PackedBigArrayPoint3D_F64 xyz = new PackedBigArrayPoint3D_F64();
+
+	/** Color of each point, 0xRRGGBB */
+	public final BigDogArray_I32 rgb = new BigDogArray_I32();
+
+	/** Surface normal of each point */
+	public final PackedBigArrayPoint3D_F32 normals = new PackedBigArrayPoint3D_F32();
+
+	/** Index of the view each point came from */
+	public final BigDogArray_I32 views = new BigDogArray_I32();
+
+	// Which optional attributes the points have
+	protected boolean hasColor;
+	protected boolean hasNormals;
+	protected boolean hasViews;
+
+	/**
+	 * Specifies which attributes the cloud has and removes all points.
+	 */
+	public void initialize( boolean hasColor, boolean hasNormals, boolean hasViews ) {
+		this.hasColor = hasColor;
+		this.hasNormals = hasNormals;
+		this.hasViews = hasViews;
+		reset();
+	}
+
+	/**
+	 * Removes all points. Attributes are not modified.
+	 */
+	public void reset() {
+		xyz.reset();
+		rgb.reset();
+		normals.reset();
+		views.reset();
+	}
+
+	/**
+	 * Ensures there is enough space to store the specified number of points without growing the arrays
+	 */
+	public void reserve( int numPoints ) {
+		xyz.reserve(numPoints);
+		if (hasColor)
+			rgb.reserve(numPoints);
+		if (hasNormals)
+			normals.reserve(numPoints);
+		if (hasViews)
+			views.reserve(numPoints);
+	}
+
+	/**
+	 * Adds a new point. Enabled attributes are assigned default values of color = 0, normal = (0,0,0), view = -1.
+	 *
+	 * @return Index of the new point
+	 */
+	public int append( double x, double y, double z ) {
+		xyz.append(x, y, z);
+		if (hasColor)
+			rgb.add(0);
+		if (hasNormals)
+			normals.append(0.0f, 0.0f, 0.0f);
+		if (hasViews)
+			views.add(-1);
+		return xyz.size() - 1;
+	}
+
+	/**
+	 * Adds a new point with color. If the cloud doesn't have color then the color is ignored.
+	 *
+	 * @return Index of the new point
+	 */
+	public int append( double x, double y, double z, int rgb ) {
+		int index = append(x, y, z);
+		if (hasColor)
+			this.rgb.set(index, rgb);
+		return index;
+	}
+
+	/**
+	 * Appends points which are stored in arrays. The location and color are copied in bulk. Other enabled attributes
+	 * are assigned default values, the same as {@link #append(double, double, double)}.
+	 *
+	 * @param blockXyz (Input) Interleaved location of each point, (x,y,z)
+	 * @param blockRgb (Input) Color of each point. Ignored if the cloud doesn't have color.
+	 * @param offset Index of the first point in the arrays that is copied
+	 * @param count Number of points that are copied
+	 */
+	public void appendBlock( double[] blockXyz, int[] blockRgb, int offset, int count ) {
+		xyz.append(blockXyz, offset, count);
+		if (hasColor)
+			rgb.append(blockRgb, offset, count);
+		for (int i = 0; hasNormals && i < count; i++) {
+			normals.append(0.0f, 0.0f, 0.0f);
+		}
+		for (int i = 0; hasViews && i < count; i++) {
+			views.add(-1);
+		}
+	}
+
+	/**
+	 * Appends all the points in 'src' to the end of this cloud. Each attribute is copied in bulk. Both clouds
+	 * must have the same attributes.
+	 */
+	public void appendAll( PackedPointCloud_F64 src ) {
+		if (src.hasColor != hasColor || src.hasNormals != hasNormals || src.hasViews != hasViews)
+			throw new IllegalArgumentException("Clouds have different attributes");
+
+		xyz.appendAll(src.xyz);
+		if (hasColor)
+			src.rgb.processByBlock(0, src.rgb.size, ( array, idx0, idx1, offset ) ->
+					rgb.append(array, idx0, idx1 - idx0));
+		if (hasNormals)
+			normals.appendAll(src.normals);
+		if (hasViews)
+			src.views.processByBlock(0, src.views.size, ( array, idx0, idx1, offset ) ->
+					views.append(array, idx0, idx1 - idx0));
+	}
+
+	/**
+	 * Turns this cloud into a copy of 'src'
+	 */
+	public PackedPointCloud_F64 setTo( PackedPointCloud_F64 src ) {
+		initialize(src.hasColor, src.hasNormals, src.hasViews);
+		appendAll(src);
+		return this;
+	}
+
+	/**
+	 * Changes the number of points in the cloud. The value of new points is undefined.
+	 *
+	 * @param numPoints The new number of points
+	 */
+	public void resize( int numPoints ) {
+		xyz.resize(numPoints);
+		if (hasColor)
+			rgb.resize(numPoints);
+		if (hasNormals)
+			normals.resize(numPoints);
+		if (hasViews)
+			views.resize(numPoints);
+	}
+
+	/**
+	 * Removes all points which are not marked as keep in a single pass. The order of the remaining points is
+	 * not changed and all attributes are kept in sync.
+	 *
+	 * @param keep (Input) true for each point that should be kept. Must be the same size as the cloud.
+	 * @return Number of points which were removed
+	 */
+	public int compact( DogArray_B keep ) {
+		if (keep.size != size())
+			throw new IllegalArgumentException("keep has a different size than the cloud");
+
+		final Point3D_F64 p = new Point3D_F64();
+		final Point3D_F32 n = new Point3D_F32();
+		final int N = size();
+		int count = 0;
+		for (int i = 0; i < N; i++) {
+			if (!keep.data[i])
+				continue;
+			// Skip over the initial points which don't need to move
+			if (count != i) {
+				xyz.getCopy(i, p);
+				xyz.set(count, p.x, p.y, p.z);
+				if (hasColor)
+					rgb.set(count, rgb.get(i));
+				if (hasNormals) {
+					normals.getCopy(i, n);
+					normals.set(count, n.x, n.y, n.z);
+				}
+				if (hasViews)
+					views.set(count, views.get(i));
+			}
+			count++;
+		}
+		resize(count);
+		return N - count;
+	}
+
+	/** Copies the 3D location of a point */
+	public void getPoint( int index, Point3D_F64 dst ) {
+		xyz.getCopy(index, dst);
+	}
+
+	/** Returns the color of a point or 0 if the cloud has no color */
+	public int getRgb( int index ) {
+		return hasColor ? rgb.get(index) : 0;
+	}
+
+	/** Copies the surface normal of a point */
+	public void getNormal( int index, Point3D_F32 dst ) {
+		normals.getCopy(index, dst);
+	}
+
+	/** Returns the view index of a point or -1 if the cloud has no view information */
+	public int getView( int index ) {
+		return hasViews ? views.get(index) : -1;
+	}
+
+	public void setRgb( int index, int rgb ) {
+		this.rgb.set(index, rgb);
+	}
+
+	public void setNormal( int index, float nx, float ny, float nz ) {
+		normals.set(index, nx, ny, nz);
+	}
+
+	public void setView( int index, int view ) {
+		views.set(index, view);
+	}
+
+	/** If true then each point has a color */
+	public boolean hasColor() {return hasColor;}
+
+	/** If true then each point has a surface normal */
+	public boolean hasNormals() {return hasNormals;}
+
+	/** If true then each point has a view index */
+	public boolean hasViews() {return hasViews;}
+
+	/** Number of points in the cloud */
+	public int size() {
+		return xyz.size();
+	}
+}
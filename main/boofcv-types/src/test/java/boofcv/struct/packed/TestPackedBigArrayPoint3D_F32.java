@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.struct.packed;
+
+import boofcv.struct.PackedArray;
+import georegression.struct.point.Point3D_F32;
+import org.ddogleg.struct.BigDogGrowth;
+import org.ejml.UtilEjml;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestPackedBigArrayPoint3D_F32 extends GenericPackedArrayChecks<Point3D_F32> {
+
+	@Override protected PackedArray<Point3D_F32> createAlg() {
+		return new PackedBigArrayPoint3D_F32(3, 11, BigDogGrowth.GROW_FIRST);
+	}
+
+	@Override protected Point3D_F32 createRandomPoint() {
+		var point = new Point3D_F32();
+		point.x = (float) rand.nextGaussian();
+		point.y = (float) rand.nextGaussian();
+		point.z = (float) rand.nextGaussian();
+		return point;
+	}
+
+	@Override protected void checkEquals( Point3D_F32 a, Point3D_F32 b ) {
+		assertEquals(0.0, a.distance(b), UtilEjml.TEST_F32);
+	}
+
+	@Override protected void checkNotEquals( Point3D_F32 a, Point3D_F32 b ) {
+		assertNotEquals(0.0, a.distance(b), UtilEjml.TEST_F32);
+	}
+
+	@Test void set() {
+		var alg = new PackedBigArrayPoint3D_F32(3, 11, BigDogGrowth.GROW_FIRST);
+		for (int i = 0; i < 20; i++) {
+			alg.append(i, i + 1, i + 2);
+		}
+		alg.set(12, 1, 2, 3);
+		assertEquals(20, alg.size());
+		checkEquals(new Point3D_F32(1, 2, 3), alg.getTemp(12));
+		checkEquals(new Point3D_F32(11, 12, 13), alg.getTemp(11));
+		checkEquals(new Point3D_F32(13, 14, 15), alg.getTemp(13));
+	}
+
+	@Test void appendAll() {
+		var src = new PackedBigArrayPoint3D_F32(3, 11, BigDogGrowth.GROW_FIRST);
+		var dst = new PackedBigArrayPoint3D_F32(3, 7, BigDogGrowth.GROW_FIRST);
+		for (int i = 0; i < 25; i++) {
+			src.append(i, i + 1, i + 2);
+		}
+		dst.append(-1, -2, -3);
+		dst.appendAll(src);
+
+		assertEquals(26, dst.size());
+		checkEquals(new Point3D_F32(-1, -2, -3), dst.getTemp(0));
+		for (int i = 0; i < 25; i++) {
+			checkEquals(src.getTemp(i), dst.getTemp(i + 1));
+		}
+	}
+
+	@Test void resize() {
+		var alg = new PackedBigArrayPoint3D_F32(3, 11, BigDogGrowth.GROW_FIRST);
+		for (int i = 0; i < 20; i++) {
+			alg.append(i, i + 1, i + 2);
+		}
+		alg.resize(12);
+		assertEquals(12, alg.size());
+		checkEquals(new Point3D_F32(11, 12, 13), alg.getTemp(11));
+
+		// new points should be added after the resized end
+		alg.append(-1, -2, -3);
+		assertEquals(13, alg.size());
+		checkEquals(new Point3D_F32(-1, -2, -3), alg.getTemp(12));
+	}
+}
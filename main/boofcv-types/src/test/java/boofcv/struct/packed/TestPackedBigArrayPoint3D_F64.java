@@ -22,6 +22,7 @@ import boofcv.struct.PackedArray;
 import georegression.struct.point.Point3D_F64;
 import org.ddogleg.struct.BigDogGrowth;
 import org.ejml.UtilEjml;
+import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -50,4 +51,47 @@ public class TestPackedBigArrayPoint3D_F64 extends GenericPackedArrayChecks<Poin
 	@Override protected void checkNotEquals( Point3D_F64 a, Point3D_F64 b ) {
 		assertNotEquals(0.0, a.distance(b), UtilEjml.TEST_F64);
 	}
+
+	@Test void set() {
+		var alg = new PackedBigArrayPoint3D_F64(3, 11, BigDogGrowth.GROW_FIRST);
+		for (int i = 0; i < 20; i++) {
+			alg.append(i, i + 1, i + 2);
+		}
+		alg.set(12, 1, 2, 3);
+		assertEquals(20, alg.size());
+		checkEquals(new Point3D_F64(1, 2, 3), alg.getTemp(12));
+		checkEquals(new Point3D_F64(11, 12, 13), alg.getTemp(11));
+		checkEquals(new Point3D_F64(13, 14, 15), alg.getTemp(13));
+	}
+
+	@Test void appendAll() {
+		var src = new PackedBigArrayPoint3D_F64(3, 11, BigDogGrowth.GROW_FIRST);
+		var dst = new PackedBigArrayPoint3D_F64(3, 7, BigDogGrowth.GROW_FIRST);
+		for (int i = 0; i < 25; i++) {
+			src.append(i, i + 1, i + 2);
+		}
+		dst.append(-1, -2, -3);
+		dst.appendAll(src);
+
+		assertEquals(26, dst.size());
+		checkEquals(new Point3D_F64(-1, -2, -3), dst.getTemp(0));
+		for (int i = 0; i < 25; i++) {
+			checkEquals(src.getTemp(i), dst.getTemp(i + 1));
+		}
+	}
+
+	@Test void resize() {
+		var alg = new PackedBigArrayPoint3D_F64(3, 11, BigDogGrowth.GROW_FIRST);
+		for (int i = 0; i < 20; i++) {
+			alg.append(i, i + 1, i + 2);
+		}
+		alg.resize(12);
+		assertEquals(12, alg.size());
+		checkEquals(new Point3D_F64(11, 12, 13), alg.getTemp(11));
+
+		// new points should be added after the resized end
+		alg.append(-1, -2, -3);
+		assertEquals(13, alg.size());
+		checkEquals(new Point3D_F64(-1, -2, -3), alg.getTemp(12));
+	}
 }
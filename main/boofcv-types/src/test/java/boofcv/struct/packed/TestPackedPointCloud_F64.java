@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2021, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package boofcv.struct.packed;
+
+import boofcv.testing.BoofStandardJUnit;
+import georegression.struct.point.Point3D_F32;
+import georegression.struct.point.Point3D_F64;
+import org.ddogleg.struct.DogArray_B;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestPackedPointCloud_F64 extends BoofStandardJUnit {
+	/**
+	 * Only enabled attributes should be filled in
+	 */
+	@Test void append_attributes() {
+		var alg = new PackedPointCloud_F64();
+		alg.initialize(true, false, true);
+
+		assertEquals(0, alg.append(1, 2, 3));
+		assertEquals(1, alg.append(4, 5, 6, 0xFF00FF));
+
+		assertEquals(2, alg.size());
+		assertEquals(2, alg.rgb.size);
+		assertEquals(0, alg.normals.size());
+		assertEquals(2, alg.views.size);
+
+		var p = new Point3D_F64();
+		alg.getPoint(1, p);
+		assertEquals(0.0, p.distance(4, 5, 6));
+		assertEquals(0, alg.getRgb(0));
+		assertEquals(0xFF00FF, alg.getRgb(1));
+		assertEquals(-1, alg.getView(1));
+
+		alg.setView(1, 5);
+		assertEquals(5, alg.getView(1));
+	}
+
+	/**
+	 * Copy a block of points starting at an offset. Attributes not in the block get default values
+	 */
+	@Test void appendBlock() {
+		var alg = new PackedPointCloud_F64();
+		alg.initialize(true, true, true);
+		alg.append(-1, -2, -3, 0x01);
+
+		double[] xyz = new double[]{1, 2, 3, 4, 5, 6, 7, 8, 9};
+		int[] rgb = new int[]{10, 11, 12};
+		alg.appendBlock(xyz, rgb, 1, 2);
+
+		assertEquals(3, alg.size());
+		assertEquals(3, alg.rgb.size);
+		assertEquals(3, alg.normals.size());
+		assertEquals(3, alg.views.size);
+
+		var p = new Point3D_F64();
+		alg.getPoint(1, p);
+		assertEquals(0.0, p.distance(4, 5, 6));
+		alg.getPoint(2, p);
+		assertEquals(0.0, p.distance(7, 8, 9));
+		assertEquals(11, alg.getRgb(1));
+		assertEquals(12, alg.getRgb(2));
+		assertEquals(-1, alg.getView(2));
+	}
+
+	/**
+	 * If an attribute is not enabled the default value should be returned
+	 */
+	@Test void noAttributes() {
+		var alg = new PackedPointCloud_F64();
+		alg.append(1, 2, 3, 0xFF);
+		assertEquals(1, alg.size());
+		assertEquals(0, alg.rgb.size);
+		assertEquals(0, alg.getRgb(0));
+		assertEquals(-1, alg.getView(0));
+	}
+
+	@Test void setTo() {
+		var src = new PackedPointCloud_F64();
+		src.initialize(true, true, true);
+		for (int i = 0; i < 30; i++) {
+			int idx = src.append(i, i + 1, i + 2, i*10);
+			src.setNormal(idx, 0, 1, 0);
+			src.setView(idx, i/10);
+		}
+
+		var dst = new PackedPointCloud_F64();
+		dst.append(1, 1, 1);
+		dst.setTo(src);
+
+		assertTrue(dst.hasColor());
+		assertTrue(dst.hasNormals());
+		assertTrue(dst.hasViews());
+		assertEquals(30, dst.size());
+
+		var p = new Point3D_F64();
+		var n = new Point3D_F32();
+		for (int i = 0; i < 30; i++) {
+			dst.getPoint(i, p);
+			assertEquals(0.0, p.distance(i, i + 1, i + 2));
+			assertEquals(i*10, dst.getRgb(i));
+			dst.getNormal(i, n);
+			assertEquals(0.0f, n.distance(0, 1, 0));
+			assertEquals(i/10, dst.getView(i));
+		}
+	}
+
+	@Test void appendAll_differentAttributes() {
+		var src = new PackedPointCloud_F64();
+		src.initialize(true, false, false);
+		var dst = new PackedPointCloud_F64();
+		assertThrows(IllegalArgumentException.class, () -> dst.appendAll(src));
+	}
+
+	@Test void compact() {
+		var alg = new PackedPointCloud_F64();
+		alg.initialize(true, true, true);
+		var keep = new DogArray_B();
+		for (int i = 0; i < 30; i++) {
+			int idx = alg.append(i, i + 1, i + 2, i*10);
+			alg.setNormal(idx, i, 0, 0);
+			alg.setView(idx, i);
+			keep.add(i%3 == 1);
+		}
+
+		assertEquals(20, alg.compact(keep));
+		assertEquals(10, alg.size());
+		assertEquals(10, alg.rgb.size);
+		assertEquals(10, alg.normals.size());
+		assertEquals(10, alg.views.size);
+
+		var p = new Point3D_F64();
+		var n = new Point3D_F32();
+		for (int i = 0; i < 10; i++) {
+			int original = i*3 + 1;
+			alg.getPoint(i, p);
+			assertEquals(0.0, p.distance(original, original + 1, original + 2));
+			assertEquals(original*10, alg.getRgb(i));
+			alg.getNormal(i, n);
+			assertEquals(0.0f, n.distance(original, 0, 0));
+			assertEquals(original, alg.getView(i));
+		}
+	}
+
+	@Test void compact_badSize() {
+		var alg = new PackedPointCloud_F64();
+		alg.append(1, 2, 3);
+		assertThrows(IllegalArgumentException.class, () -> alg.compact(new DogArray_B()));
+	}
+}